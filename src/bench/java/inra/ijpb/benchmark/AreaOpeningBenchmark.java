@@ -0,0 +1,106 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ij.ImageStack;
+import ij.process.ImageProcessor;
+import inra.ijpb.morphology.attrfilt.AreaOpeningQueue;
+import inra.ijpb.morphology.attrfilt.AreaOpeningUnionFind;
+import inra.ijpb.morphology.attrfilt.SizeOpening3DQueue;
+import inra.ijpb.morphology.attrfilt.SizeOpening3DUnionFind;
+
+/**
+ * Benchmarks the area opening of planar images and the size opening of 3D
+ * images, using either priority queues or union-find.
+ * 
+ * @see inra.ijpb.morphology.attrfilt
+ * 
+ * @author agent
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx8g"})
+public class AreaOpeningBenchmark
+{
+	@Param({"8", "16"})
+	public int bitDepth;
+	
+	@Param({"100", "10000"})
+	public int minSize;
+	
+	@Param({"256", "512"})
+	public int size;
+	
+	ImageProcessor image;
+	
+	ImageStack image3d;
+	
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		this.image = SyntheticImages.grayscale(size, bitDepth);
+		this.image3d = SyntheticImages.grayscale3d(size / 8, bitDepth);
+	}
+	
+	@Benchmark
+	public ImageProcessor areaOpeningQueue()
+	{
+		return new AreaOpeningQueue().process(image, minSize);
+	}
+
+	@Benchmark
+	public ImageProcessor areaOpeningUnionFind()
+	{
+		return new AreaOpeningUnionFind().process(image, minSize);
+	}
+
+	@Benchmark
+	public ImageStack sizeOpening3DQueue()
+	{
+		return new SizeOpening3DQueue().process(image3d, minSize);
+	}
+
+	@Benchmark
+	public ImageStack sizeOpening3DUnionFind()
+	{
+		return new SizeOpening3DUnionFind().process(image3d, minSize);
+	}
+}
@@ -0,0 +1,98 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ij.process.ImageProcessor;
+import inra.ijpb.morphology.attrfilt.AreaOpeningUnionFind;
+import inra.ijpb.morphology.attrfilt.ComponentTree;
+
+/**
+ * Benchmarks a sweep of area openings with increasing thresholds, either
+ * computed independently, or by filtering a single max-tree.
+ * 
+ * @see inra.ijpb.morphology.attrfilt.ComponentTree
+ * 
+ * @author agent
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx8g"})
+public class ComponentTreeBenchmark
+{
+	/** The thresholds of the sweep. */
+	static final int[] THRESHOLDS = new int[] {
+		10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 20000, 50000};
+	
+	@Param({"8", "16"})
+	public int bitDepth;
+	
+	@Param({"512", "2048"})
+	public int size;
+	
+	ImageProcessor image;
+	
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		this.image = SyntheticImages.grayscale(size, bitDepth);
+	}
+	
+	@Benchmark
+	public void areaOpeningSweep(Blackhole blackhole)
+	{
+		for (int minArea : THRESHOLDS)
+		{
+			blackhole.consume(new AreaOpeningUnionFind().process(image, minArea));
+		}
+	}
+
+	@Benchmark
+	public void componentTreeSweep(Blackhole blackhole)
+	{
+		ComponentTree tree = ComponentTree.maxTree(image, 4);
+		for (int minArea : THRESHOLDS)
+		{
+			blackhole.consume(tree.filterImage(ComponentTree.Attribute.AREA, 
+					minArea, ComponentTree.Rule.DIRECT));
+		}
+	}
+}
@@ -0,0 +1,99 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ij.ImageStack;
+import inra.ijpb.binary.ChamferWeights3D;
+import inra.ijpb.binary.distmap.DistanceTransform3D;
+import inra.ijpb.binary.distmap.DistanceTransform3D4WeightsFloat;
+import inra.ijpb.binary.distmap.DistanceTransform3D4WeightsShort;
+import inra.ijpb.binary.distmap.DistanceTransform3DFloat;
+import inra.ijpb.binary.distmap.DistanceTransform3DShort;
+import inra.ijpb.binary.distmap.DistanceTransform3DEuclidean;
+
+/**
+ * Benchmarks the distance transforms of 3D binary images.
+ * 
+ * @author agent
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx8g"})
+public class DistanceTransform3DBenchmark
+{
+	@Param({"Short", "Float", "4WeightsShort", "4WeightsFloat", "Euclidean"})
+	public String algorithm;
+	
+	@Param({"64", "128", "256"})
+	public int size;
+	
+	ImageStack image;
+	
+	DistanceTransform3D algo;
+	
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		this.image = SyntheticImages.binary3d(size);
+		this.algo = createAlgo(algorithm);
+	}
+	
+	private static final DistanceTransform3D createAlgo(String name)
+	{
+		if (name.equals("Short"))
+			return new DistanceTransform3DShort(ChamferWeights3D.BORGEFORS, true);
+		if (name.equals("Float"))
+			return new DistanceTransform3DFloat(ChamferWeights3D.BORGEFORS, true);
+		if (name.equals("4WeightsShort"))
+			return new DistanceTransform3D4WeightsShort(ChamferWeights3D.WEIGHTS_3_4_5_7, true);
+		if (name.equals("4WeightsFloat"))
+			return new DistanceTransform3D4WeightsFloat(ChamferWeights3D.WEIGHTS_3_4_5_7, true);
+		if (name.equals("Euclidean"))
+			return new DistanceTransform3DEuclidean();
+		throw new IllegalArgumentException("Unknown algorithm: " + name);
+	}
+	
+	@Benchmark
+	public ImageStack distanceMap()
+	{
+		return algo.distanceMap(image);
+	}
+}
@@ -0,0 +1,99 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ij.process.ImageProcessor;
+import inra.ijpb.binary.ChamferWeights;
+import inra.ijpb.binary.distmap.DistanceTransform;
+import inra.ijpb.binary.distmap.DistanceTransform3x3Float;
+import inra.ijpb.binary.distmap.DistanceTransform3x3Short;
+import inra.ijpb.binary.distmap.DistanceTransform5x5Float;
+import inra.ijpb.binary.distmap.DistanceTransform5x5Short;
+import inra.ijpb.binary.distmap.DistanceTransformEuclidean;
+
+/**
+ * Benchmarks the distance transforms of planar binary images.
+ * 
+ * @author agent
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class DistanceTransformBenchmark
+{
+	@Param({"3x3Short", "3x3Float", "5x5Short", "5x5Float", "Euclidean"})
+	public String algorithm;
+	
+	@Param({"512", "1024", "2048", "4096"})
+	public int size;
+	
+	ImageProcessor image;
+	
+	DistanceTransform algo;
+	
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		this.image = SyntheticImages.binary(size);
+		this.algo = createAlgo(algorithm);
+	}
+	
+	private static final DistanceTransform createAlgo(String name)
+	{
+		if (name.equals("3x3Short"))
+			return new DistanceTransform3x3Short(ChamferWeights.BORGEFORS, true);
+		if (name.equals("3x3Float"))
+			return new DistanceTransform3x3Float(ChamferWeights.BORGEFORS, true);
+		if (name.equals("5x5Short"))
+			return new DistanceTransform5x5Short(ChamferWeights.CHESSKNIGHT, true);
+		if (name.equals("5x5Float"))
+			return new DistanceTransform5x5Float(ChamferWeights.CHESSKNIGHT, true);
+		if (name.equals("Euclidean"))
+			return new DistanceTransformEuclidean();
+		throw new IllegalArgumentException("Unknown algorithm: " + name);
+	}
+	
+	@Benchmark
+	public ImageProcessor distanceMap()
+	{
+		return algo.distanceMap(image);
+	}
+}
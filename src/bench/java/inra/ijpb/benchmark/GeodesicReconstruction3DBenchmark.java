@@ -0,0 +1,153 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ij.ImageStack;
+import inra.ijpb.morphology.geodrec.GeodesicReconstruction3DAlgo;
+import inra.ijpb.morphology.geodrec.GeodesicReconstruction3DHybrid0Float;
+import inra.ijpb.morphology.geodrec.GeodesicReconstruction3DHybrid0Gray16;
+import inra.ijpb.morphology.geodrec.GeodesicReconstruction3DHybrid0Gray8;
+import inra.ijpb.morphology.geodrec.GeodesicReconstructionByDilation3DGray8;
+import inra.ijpb.morphology.geodrec.GeodesicReconstructionByErosion3DGray8;
+import inra.ijpb.morphology.geodrec.GeodesicReconstructionType;
+
+/**
+ * Benchmarks the queue-based algorithms for geodesic reconstruction of 3D
+ * images.
+ * 
+ * As for planar images, the marker is initialized from the values of the mask
+ * on the image border, and with the extreme value elsewhere.
+ * 
+ * @see GeodesicReconstructionBenchmark
+ * 
+ * @author agent
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx8g"})
+public class GeodesicReconstruction3DBenchmark
+{
+	/**
+	 * The algorithm to use. "Hybrid" selects the hybrid algorithm adapted to
+	 * the bit depth, "Gray8" selects the dedicated classes for reconstruction
+	 * by dilation or by erosion of 8-bits images.
+	 */
+	@Param({"Hybrid", "Gray8"})
+	public String algorithm;
+	
+	@Param({"BY_DILATION", "BY_EROSION"})
+	public GeodesicReconstructionType type;
+	
+	@Param({"6", "26"})
+	public int connectivity;
+	
+	@Param({"8", "16", "32"})
+	public int bitDepth;
+	
+	@Param({"64", "128", "256"})
+	public int size;
+	
+	ImageStack mask;
+	
+	ImageStack marker;
+	
+	GeodesicReconstruction3DAlgo algo;
+	
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		if (algorithm.equals("Gray8") && bitDepth != 8)
+		{
+			throw new IllegalArgumentException("Gray8 algorithms require 8-bits images");
+		}
+		
+		this.mask = SyntheticImages.grayscale3d(size, bitDepth);
+		this.marker = createBorderMarker(mask, type);
+		this.algo = createAlgo();
+	}
+	
+	private GeodesicReconstruction3DAlgo createAlgo()
+	{
+		if (algorithm.equals("Gray8"))
+		{
+			if (type == GeodesicReconstructionType.BY_DILATION)
+				return new GeodesicReconstructionByDilation3DGray8(connectivity);
+			else
+				return new GeodesicReconstructionByErosion3DGray8(connectivity);
+		}
+		if (algorithm.equals("Hybrid"))
+		{
+			switch (bitDepth)
+			{
+			case 8: return new GeodesicReconstruction3DHybrid0Gray8(type, connectivity);
+			case 16: return new GeodesicReconstruction3DHybrid0Gray16(type, connectivity);
+			case 32: return new GeodesicReconstruction3DHybrid0Float(type, connectivity);
+			}
+		}
+		throw new IllegalArgumentException("Unknown algorithm: " + algorithm);
+	}
+	
+	private static final ImageStack createBorderMarker(ImageStack mask, GeodesicReconstructionType type)
+	{
+		int sizeX = mask.getWidth();
+		int sizeY = mask.getHeight();
+		int sizeZ = mask.getSize();
+		ImageStack marker = mask.duplicate();
+		double value = type == GeodesicReconstructionType.BY_DILATION ? 0 : mask.getProcessor(1).maxValue();
+		for (int z = 1; z < sizeZ - 1; z++)
+		{
+			for (int y = 1; y < sizeY - 1; y++)
+			{
+				for (int x = 1; x < sizeX - 1; x++)
+				{
+					marker.setVoxel(x, y, z, value);
+				}
+			}
+		}
+		return marker;
+	}
+	
+	@Benchmark
+	public ImageStack reconstruction()
+	{
+		return algo.applyTo(marker, mask);
+	}
+}
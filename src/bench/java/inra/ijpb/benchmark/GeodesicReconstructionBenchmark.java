@@ -0,0 +1,121 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ij.process.ImageProcessor;
+import inra.ijpb.morphology.geodrec.GeodesicReconstructionAlgo;
+import inra.ijpb.morphology.geodrec.GeodesicReconstructionHybrid;
+import inra.ijpb.morphology.geodrec.GeodesicReconstructionScanning;
+import inra.ijpb.morphology.geodrec.GeodesicReconstructionType;
+
+/**
+ * Benchmarks the hybrid and the scanning algorithms for geodesic
+ * reconstruction of planar images.
+ * 
+ * The marker is initialized from the values of the mask on the image border,
+ * and with the extreme value elsewhere. Reconstruction by dilation therefore
+ * corresponds to the "kill borders" operation, and reconstruction by erosion
+ * to the "fill holes" operation.
+ * 
+ * @author agent
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class GeodesicReconstructionBenchmark
+{
+	@Param({"Hybrid", "Scanning"})
+	public String algorithm;
+	
+	@Param({"BY_DILATION", "BY_EROSION"})
+	public GeodesicReconstructionType type;
+	
+	@Param({"4", "8"})
+	public int connectivity;
+	
+	@Param({"8", "16", "32"})
+	public int bitDepth;
+	
+	@Param({"512", "1024", "2048", "4096"})
+	public int size;
+	
+	ImageProcessor mask;
+	
+	ImageProcessor marker;
+	
+	GeodesicReconstructionAlgo algo;
+	
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		this.mask = SyntheticImages.grayscale(size, bitDepth);
+		this.marker = createBorderMarker(mask, type);
+		
+		if (algorithm.equals("Hybrid"))
+			this.algo = new GeodesicReconstructionHybrid(type, connectivity);
+		else if (algorithm.equals("Scanning"))
+			this.algo = new GeodesicReconstructionScanning(type, connectivity);
+		else
+			throw new IllegalArgumentException("Unknown algorithm: " + algorithm);
+	}
+	
+	private static final ImageProcessor createBorderMarker(ImageProcessor mask, GeodesicReconstructionType type)
+	{
+		int sizeX = mask.getWidth();
+		int sizeY = mask.getHeight();
+		ImageProcessor marker = mask.duplicate();
+		float value = type == GeodesicReconstructionType.BY_DILATION ? 0 : (float) mask.maxValue();
+		for (int y = 1; y < sizeY - 1; y++)
+		{
+			for (int x = 1; x < sizeX - 1; x++)
+			{
+				marker.setf(x, y, value);
+			}
+		}
+		return marker;
+	}
+	
+	@Benchmark
+	public ImageProcessor reconstruction()
+	{
+		return algo.applyTo(marker, mask);
+	}
+}
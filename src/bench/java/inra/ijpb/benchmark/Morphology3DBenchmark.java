@@ -0,0 +1,95 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ij.ImageStack;
+import inra.ijpb.morphology.Morphology;
+import inra.ijpb.morphology.Strel3D;
+
+/**
+ * Benchmarks dilation and erosion of 3D images, for each shape of 3D
+ * structuring element.
+ * 
+ * @see inra.ijpb.morphology.Morphology
+ * @see inra.ijpb.morphology.Strel3D.Shape
+ * 
+ * @author agent
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx8g"})
+public class Morphology3DBenchmark
+{
+	@Param({"CUBE", "BALL", "OCTAGON", "LINE_HORIZ", "LINE_Z"})
+	public Strel3D.Shape shape;
+	
+	@Param({"2", "5"})
+	public int radius;
+	
+	@Param({"8", "16", "32"})
+	public int bitDepth;
+	
+	@Param({"128", "256"})
+	public int size;
+	
+	ImageStack image;
+	
+	Strel3D strel;
+	
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		this.image = SyntheticImages.grayscale3d(size, bitDepth);
+		this.strel = shape.fromRadius(radius);
+	}
+	
+	@Benchmark
+	public ImageStack dilation()
+	{
+		return Morphology.dilation(image, strel);
+	}
+
+	@Benchmark
+	public ImageStack erosion()
+	{
+		return Morphology.erosion(image, strel);
+	}
+}
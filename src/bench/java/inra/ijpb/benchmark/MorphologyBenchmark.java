@@ -0,0 +1,112 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ij.process.ImageProcessor;
+import inra.ijpb.morphology.Morphology;
+import inra.ijpb.morphology.Strel;
+import inra.ijpb.morphology.strel.AbstractStrel3D;
+
+/**
+ * Benchmarks dilation and erosion of planar images, for several shapes of
+ * structuring element.
+ * 
+ * The default parameters cover image sizes from 512x512 to 4096x4096 pixels
+ * with a reduced set of shapes, radii and bit depths. Other values can be
+ * selected from the command line, for example with
+ * {@code -p shape=DIAMOND,LINE_VERT -p size=1024 -p threads=0,1}.
+ * 
+ * @see inra.ijpb.morphology.Morphology
+ * @see inra.ijpb.morphology.Strel.Shape
+ * 
+ * @author agent
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class MorphologyBenchmark
+{
+	@Param({"SQUARE", "OCTAGON", "DISK", "LINE_DIAG_UP"})
+	public Strel.Shape shape;
+	
+	@Param({"5", "25"})
+	public int radius;
+	
+	@Param({"8", "32"})
+	public int bitDepth;
+	
+	@Param({"512", "1024", "2048", "4096"})
+	public int size;
+	
+	/**
+	 * The number of threads used by separable strels, 0 meaning the number
+	 * of threads from ImageJ preferences.
+	 */
+	@Param({"0"})
+	public int threads;
+	
+	ImageProcessor image;
+	
+	Strel strel;
+	
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		this.image = SyntheticImages.grayscale(size, bitDepth);
+		this.strel = shape.fromRadius(radius);
+		if (strel instanceof AbstractStrel3D)
+		{
+			((AbstractStrel3D) strel).setThreadCount(threads);
+		}
+	}
+	
+	@Benchmark
+	public ImageProcessor dilation()
+	{
+		return Morphology.dilation(image, strel);
+	}
+
+	@Benchmark
+	public ImageProcessor erosion()
+	{
+		return Morphology.erosion(image, strel);
+	}
+}
@@ -0,0 +1,129 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ij.measure.Calibration;
+import ij.process.ImageProcessor;
+import inra.ijpb.measure.region2d.AverageThickness;
+import inra.ijpb.measure.region2d.BoundingBox;
+import inra.ijpb.measure.region2d.Centroid;
+import inra.ijpb.measure.region2d.Convexity;
+import inra.ijpb.measure.region2d.EquivalentEllipse;
+import inra.ijpb.measure.region2d.GeodesicDiameter;
+import inra.ijpb.measure.region2d.InertiaEllipse;
+import inra.ijpb.measure.region2d.IntrinsicVolumesAnalyzer2D;
+import inra.ijpb.measure.region2d.LargestInscribedCircle;
+import inra.ijpb.measure.region2d.MaxFeretDiameter;
+import inra.ijpb.measure.region2d.OrientedBoundingBox2D;
+import inra.ijpb.measure.region2d.RegionAnalyzer2D;
+import inra.ijpb.measure.region2d.RegionFeatures2D;
+
+/**
+ * Benchmarks the analyzers of regions within planar label images.
+ * 
+ * @see inra.ijpb.measure.region2d.RegionAnalyzer2D
+ * 
+ * @author agent
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class RegionAnalyzer2DBenchmark
+{
+	@Param({ "BoundingBox", "Centroid", "InertiaEllipse", "EquivalentEllipse",
+			"IntrinsicVolumes", "Convexity", "MaxFeretDiameter",
+			"OrientedBoundingBox", "LargestInscribedCircle",
+			"GeodesicDiameter", "AverageThickness", "RegionFeatures" })
+	public String analyzer;
+	
+	@Param({"512", "1024", "2048", "4096"})
+	public int size;
+	
+	ImageProcessor labelImage;
+	
+	Calibration calib;
+	
+	RegionAnalyzer2D<?> algo;
+	
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		this.labelImage = SyntheticImages.labels(size);
+		this.calib = new Calibration();
+		this.algo = createAnalyzer(analyzer);
+	}
+	
+	private static final RegionAnalyzer2D<?> createAnalyzer(String name)
+	{
+		if (name.equals("BoundingBox"))
+			return new BoundingBox();
+		if (name.equals("Centroid"))
+			return new Centroid();
+		if (name.equals("InertiaEllipse"))
+			return new InertiaEllipse();
+		if (name.equals("EquivalentEllipse"))
+			return new EquivalentEllipse();
+		if (name.equals("IntrinsicVolumes"))
+			return new IntrinsicVolumesAnalyzer2D();
+		if (name.equals("Convexity"))
+			return new Convexity();
+		if (name.equals("MaxFeretDiameter"))
+			return new MaxFeretDiameter();
+		if (name.equals("OrientedBoundingBox"))
+			return new OrientedBoundingBox2D();
+		if (name.equals("LargestInscribedCircle"))
+			return new LargestInscribedCircle();
+		if (name.equals("GeodesicDiameter"))
+			return new GeodesicDiameter();
+		if (name.equals("AverageThickness"))
+			return new AverageThickness();
+		if (name.equals("RegionFeatures"))
+			return new RegionFeatures2D();
+		throw new IllegalArgumentException("Unknown analyzer: " + name);
+	}
+	
+	@Benchmark
+	public Map<Integer, ?> analyzeRegions()
+	{
+		return algo.analyzeRegions(labelImage, calib);
+	}
+}
@@ -0,0 +1,119 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ij.ImageStack;
+import ij.measure.Calibration;
+import inra.ijpb.measure.region3d.BoundingBox3D;
+import inra.ijpb.measure.region3d.Centroid3D;
+import inra.ijpb.measure.region3d.Convexity3D;
+import inra.ijpb.measure.region3d.EquivalentEllipsoid;
+import inra.ijpb.measure.region3d.InertiaEllipsoid;
+import inra.ijpb.measure.region3d.IntrinsicVolumesAnalyzer3D;
+import inra.ijpb.measure.region3d.LargestInscribedBall;
+import inra.ijpb.measure.region3d.MaxFeretDiameter3D;
+import inra.ijpb.measure.region3d.RegionAnalyzer3D;
+import inra.ijpb.measure.region3d.RegionFeatures3D;
+
+/**
+ * Benchmarks the analyzers of regions within 3D label images.
+ * 
+ * @see inra.ijpb.measure.region3d.RegionAnalyzer3D
+ * 
+ * @author agent
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx8g"})
+public class RegionAnalyzer3DBenchmark
+{
+	@Param({ "BoundingBox", "Centroid", "InertiaEllipsoid",
+			"EquivalentEllipsoid", "IntrinsicVolumes", "MaxFeretDiameter",
+			"LargestInscribedBall", "Convexity", "RegionFeatures" })
+	public String analyzer;
+	
+	@Param({"64", "128", "256"})
+	public int size;
+	
+	ImageStack labelImage;
+	
+	Calibration calib;
+	
+	RegionAnalyzer3D<?> algo;
+	
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		this.labelImage = SyntheticImages.labels3d(size);
+		this.calib = new Calibration();
+		this.algo = createAnalyzer(analyzer);
+	}
+	
+	private static final RegionAnalyzer3D<?> createAnalyzer(String name)
+	{
+		if (name.equals("BoundingBox"))
+			return new BoundingBox3D();
+		if (name.equals("Centroid"))
+			return new Centroid3D();
+		if (name.equals("InertiaEllipsoid"))
+			return new InertiaEllipsoid();
+		if (name.equals("EquivalentEllipsoid"))
+			return new EquivalentEllipsoid();
+		if (name.equals("IntrinsicVolumes"))
+			return new IntrinsicVolumesAnalyzer3D();
+		if (name.equals("MaxFeretDiameter"))
+			return new MaxFeretDiameter3D();
+		if (name.equals("LargestInscribedBall"))
+			return new LargestInscribedBall();
+		if (name.equals("Convexity"))
+			return new Convexity3D();
+		if (name.equals("RegionFeatures"))
+			return new RegionFeatures3D();
+		throw new IllegalArgumentException("Unknown analyzer: " + name);
+	}
+	
+	@Benchmark
+	public Map<Integer, ?> analyzeRegions()
+	{
+		return algo.analyzeRegions(labelImage, calib);
+	}
+}
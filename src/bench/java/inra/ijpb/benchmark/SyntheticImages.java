@@ -0,0 +1,271 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.benchmark;
+
+import java.util.Random;
+
+import ij.ImageStack;
+import ij.process.ByteProcessor;
+import ij.process.FloatProcessor;
+import ij.process.ImageProcessor;
+import ij.process.ShortProcessor;
+import inra.ijpb.binary.BinaryImages;
+
+/**
+ * Generates the synthetic images used as input by the benchmarks. 
+ * 
+ * All images are generated from a fixed random seed, so that successive runs
+ * (and successive releases) are measured on exactly the same data.
+ * 
+ * @author agent
+ *
+ */
+public class SyntheticImages
+{
+	/** The seed used for all random generators. */
+	public static final long SEED = 42L;
+	
+	/** The number of blobs per 512 pixels in each direction. */
+	private static final int BLOB_DENSITY = 8;
+
+	/**
+	 * Private constructor to prevent instantiation.
+	 */
+	private SyntheticImages()
+	{
+	}
+	
+	// ==================================================
+	// Planar images 
+
+	/**
+	 * Creates a grayscale image containing smooth bumps with a small amount of
+	 * noise, scaled to the range of the specified bit depth.
+	 * 
+	 * @param size
+	 *            the size of the image in each direction
+	 * @param bitDepth
+	 *            the bit depth of the result (8, 16 or 32)
+	 * @return a new grayscale image
+	 */
+	public static final ImageProcessor grayscale(int size, int bitDepth)
+	{
+		ImageProcessor result = createProcessor(size, size, bitDepth);
+		double maxValue = maxValue(bitDepth);
+		
+		Random random = new Random(SEED);
+		double freq = 2 * Math.PI * BLOB_DENSITY / 512.0;
+		for (int y = 0; y < size; y++)
+		{
+			for (int x = 0; x < size; x++)
+			{
+				double v = Math.sin(x * freq) * Math.cos(y * freq * 0.9);
+				v = (v + 1) * 0.45 + random.nextDouble() * 0.1;
+				result.setf(x, y, (float) Math.floor(v * maxValue));
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Creates a binary image containing randomly distributed disks.
+	 * 
+	 * @param size
+	 *            the size of the image in each direction
+	 * @return a new binary image, with pixels equal to 0 or 255
+	 */
+	public static final ImageProcessor binary(int size)
+	{
+		ByteProcessor result = new ByteProcessor(size, size);
+		
+		Random random = new Random(SEED);
+		int nBlobs = BLOB_DENSITY * BLOB_DENSITY * (size / 512) * (size / 512);
+		nBlobs = Math.max(nBlobs, BLOB_DENSITY * BLOB_DENSITY);
+		double maxRadius = 512.0 / BLOB_DENSITY / 2;
+		for (int i = 0; i < nBlobs; i++)
+		{
+			double xc = random.nextDouble() * size;
+			double yc = random.nextDouble() * size;
+			double r = maxRadius * (0.3 + 0.7 * random.nextDouble());
+			fillDisk(result, xc, yc, r);
+		}
+		return result;
+	}
+
+	/**
+	 * Creates a label image by computing the connected components of the
+	 * binary image generated by the {@link #binary(int)} method.
+	 * 
+	 * @param size
+	 *            the size of the image in each direction
+	 * @return a new 16-bits label image
+	 */
+	public static final ImageProcessor labels(int size)
+	{
+		return BinaryImages.componentsLabeling(binary(size), 4, 16);
+	}
+	
+	private static final void fillDisk(ImageProcessor image, double xc, double yc, double r)
+	{
+		int x0 = Math.max((int) Math.floor(xc - r), 0);
+		int x1 = Math.min((int) Math.ceil(xc + r), image.getWidth() - 1);
+		int y0 = Math.max((int) Math.floor(yc - r), 0);
+		int y1 = Math.min((int) Math.ceil(yc + r), image.getHeight() - 1);
+		double r2 = r * r;
+		for (int y = y0; y <= y1; y++)
+		{
+			for (int x = x0; x <= x1; x++)
+			{
+				double dx = x - xc, dy = y - yc;
+				if (dx * dx + dy * dy <= r2)
+				{
+					image.set(x, y, 255);
+				}
+			}
+		}
+	}
+	
+	
+	// ==================================================
+	// 3D images 
+
+	/**
+	 * Creates a grayscale 3D image containing smooth bumps with a small amount
+	 * of noise, scaled to the range of the specified bit depth.
+	 * 
+	 * @param size
+	 *            the size of the image in each direction
+	 * @param bitDepth
+	 *            the bit depth of the result (8, 16 or 32)
+	 * @return a new grayscale image
+	 */
+	public static final ImageStack grayscale3d(int size, int bitDepth)
+	{
+		ImageStack result = ImageStack.create(size, size, size, bitDepth);
+		double maxValue = maxValue(bitDepth);
+		
+		Random random = new Random(SEED);
+		double freq = 2 * Math.PI * BLOB_DENSITY / 512.0 * 2;
+		for (int z = 0; z < size; z++)
+		{
+			for (int y = 0; y < size; y++)
+			{
+				for (int x = 0; x < size; x++)
+				{
+					double v = Math.sin(x * freq) * Math.cos(y * freq * 0.9) * Math.sin(z * freq * 1.1 + 0.5);
+					v = (v + 1) * 0.45 + random.nextDouble() * 0.1;
+					result.setVoxel(x, y, z, Math.floor(v * maxValue));
+				}
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Creates a binary 3D image containing randomly distributed balls.
+	 * 
+	 * @param size
+	 *            the size of the image in each direction
+	 * @return a new binary image, with voxels equal to 0 or 255
+	 */
+	public static final ImageStack binary3d(int size)
+	{
+		ImageStack result = ImageStack.create(size, size, size, 8);
+		
+		Random random = new Random(SEED);
+		int nBlobs = BLOB_DENSITY * BLOB_DENSITY * Math.max(size / 64, 1);
+		double maxRadius = size / 10.0;
+		for (int i = 0; i < nBlobs; i++)
+		{
+			double xc = random.nextDouble() * size;
+			double yc = random.nextDouble() * size;
+			double zc = random.nextDouble() * size;
+			double r = maxRadius * (0.3 + 0.7 * random.nextDouble());
+			fillBall(result, xc, yc, zc, r);
+		}
+		return result;
+	}
+
+	/**
+	 * Creates a 3D label image by computing the connected components of the
+	 * binary image generated by the {@link #binary3d(int)} method.
+	 * 
+	 * @param size
+	 *            the size of the image in each direction
+	 * @return a new 16-bits label image
+	 */
+	public static final ImageStack labels3d(int size)
+	{
+		return BinaryImages.componentsLabeling(binary3d(size), 6, 16);
+	}
+
+	private static final void fillBall(ImageStack image, double xc, double yc, double zc, double r)
+	{
+		int x0 = Math.max((int) Math.floor(xc - r), 0);
+		int x1 = Math.min((int) Math.ceil(xc + r), image.getWidth() - 1);
+		int y0 = Math.max((int) Math.floor(yc - r), 0);
+		int y1 = Math.min((int) Math.ceil(yc + r), image.getHeight() - 1);
+		int z0 = Math.max((int) Math.floor(zc - r), 0);
+		int z1 = Math.min((int) Math.ceil(zc + r), image.getSize() - 1);
+		double r2 = r * r;
+		for (int z = z0; z <= z1; z++)
+		{
+			for (int y = y0; y <= y1; y++)
+			{
+				for (int x = x0; x <= x1; x++)
+				{
+					double dx = x - xc, dy = y - yc, dz = z - zc;
+					if (dx * dx + dy * dy + dz * dz <= r2)
+					{
+						image.setVoxel(x, y, z, 255);
+					}
+				}
+			}
+		}
+	}
+	
+
+	// ==================================================
+	// Utility methods 
+
+	private static final ImageProcessor createProcessor(int sizeX, int sizeY, int bitDepth)
+	{
+		switch (bitDepth)
+		{
+		case 8: return new ByteProcessor(sizeX, sizeY);
+		case 16: return new ShortProcessor(sizeX, sizeY);
+		case 32: return new FloatProcessor(sizeX, sizeY);
+		default: throw new IllegalArgumentException("Bit depth must be 8, 16 or 32, not " + bitDepth);
+		}
+	}
+	
+	private static final double maxValue(int bitDepth)
+	{
+		switch (bitDepth)
+		{
+		case 8: return 255;
+		case 16: return 65535;
+		case 32: return 1000;
+		default: throw new IllegalArgumentException("Bit depth must be 8, 16 or 32, not " + bitDepth);
+		}
+	}
+}
@@ -0,0 +1,112 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ij.ImagePlus;
+import ij.ImageStack;
+import inra.ijpb.binary.BinaryImages;
+import inra.ijpb.morphology.MinimaAndMaxima3D;
+import inra.ijpb.watershed.MarkerControlledWatershedTransform3D;
+import inra.ijpb.watershed.WatershedTransform3D;
+
+/**
+ * Benchmarks the watershed transforms of 3D images, either computed from the
+ * regional minima, or controlled by the labeled extended minima.
+ * 
+ * @author agent
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgs = {"-Xmx16g"})
+public class Watershed3DBenchmark
+{
+	@Param({"6", "26"})
+	public int connectivity;
+	
+	@Param({"8", "16", "32"})
+	public int bitDepth;
+	
+	@Param({"64", "128", "256"})
+	public int size;
+	
+	ImagePlus imagePlus;
+	
+	ImagePlus markerPlus;
+	
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		ImageStack image = SyntheticImages.grayscale3d(size, bitDepth);
+		this.imagePlus = new ImagePlus("image", image);
+		
+		// markers are the labeled extended minima, using a dynamic of 4% 
+		double dynamic = imagePlus.getStatistics().max * 0.04;
+		ImageStack minima = MinimaAndMaxima3D.extendedMinima(image, dynamic, connectivity);
+		ImageStack markers = BinaryImages.componentsLabeling(minima, connectivity, 32);
+		this.markerPlus = new ImagePlus("markers", markers);
+	}
+	
+	@Benchmark
+	public ImagePlus watershed()
+	{
+		WatershedTransform3D algo = new WatershedTransform3D(imagePlus, null, connectivity);
+		algo.setVerbose(false);
+		return algo.apply();
+	}
+
+	@Benchmark
+	public ImagePlus markerControlledWatershed()
+	{
+		MarkerControlledWatershedTransform3D algo = new MarkerControlledWatershedTransform3D(
+				imagePlus, markerPlus, null, connectivity);
+		algo.setVerbose(false);
+		return algo.applyWithPriorityQueue();
+	}
+
+	@Benchmark
+	public ImagePlus markerControlledWatershedHierarchicalQueue()
+	{
+		MarkerControlledWatershedTransform3D algo = new MarkerControlledWatershedTransform3D(
+				imagePlus, markerPlus, null, connectivity);
+		algo.setVerbose(false);
+		return algo.applyWithHierarchicalQueue();
+	}
+}
@@ -0,0 +1,109 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ij.process.ImageProcessor;
+import inra.ijpb.binary.BinaryImages;
+import inra.ijpb.morphology.MinimaAndMaxima;
+import inra.ijpb.watershed.MarkerControlledWatershedTransform2D;
+import inra.ijpb.watershed.WatershedTransform2D;
+
+/**
+ * Benchmarks the watershed transforms of planar images, either computed from
+ * the regional minima, or controlled by the labeled extended minima.
+ * 
+ * @author agent
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx8g"})
+public class WatershedBenchmark
+{
+	@Param({"4", "8"})
+	public int connectivity;
+	
+	@Param({"8", "16", "32"})
+	public int bitDepth;
+	
+	@Param({"512", "1024", "2048", "4096"})
+	public int size;
+	
+	ImageProcessor image;
+	
+	ImageProcessor markers;
+	
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		this.image = SyntheticImages.grayscale(size, bitDepth);
+		
+		// markers are the labeled extended minima, using a dynamic of 4% 
+		double dynamic = (image.getMax() - image.getMin()) * 0.04;
+		ImageProcessor minima = MinimaAndMaxima.extendedMinima(image, dynamic, connectivity);
+		this.markers = BinaryImages.componentsLabeling(minima, connectivity, 32);
+	}
+	
+	@Benchmark
+	public ImageProcessor watershed()
+	{
+		WatershedTransform2D algo = new WatershedTransform2D(image, null, connectivity);
+		algo.setVerbose(false);
+		return algo.apply();
+	}
+
+	@Benchmark
+	public ImageProcessor markerControlledWatershed()
+	{
+		MarkerControlledWatershedTransform2D algo = new MarkerControlledWatershedTransform2D(
+				image, markers, null, connectivity);
+		algo.setVerbose(false);
+		return algo.applyWithPriorityQueue();
+	}
+
+	@Benchmark
+	public ImageProcessor markerControlledWatershedHierarchicalQueue()
+	{
+		MarkerControlledWatershedTransform2D algo = new MarkerControlledWatershedTransform2D(
+				image, markers, null, connectivity);
+		algo.setVerbose(false);
+		return algo.applyWithHierarchicalQueue();
+	}
+}
@@ -21,11 +21,16 @@
  */
 package inra.ijpb.algo;
 
-import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * A minimal implementation of algorithm for managing progression listeners.
  * 
+ * Events can be fired from several threads, for example by algorithms that
+ * process regions in parallel: listeners can be added or removed while
+ * events are dispatched.
+ * 
  * @author David Legland
  */
 public class AlgoStub implements Algo
@@ -33,7 +38,7 @@ public class AlgoStub implements Algo
 	// ===================================================================
 	// Class variables
 	
-	private ArrayList<AlgoListener> algoListeners = new ArrayList<AlgoListener>();
+	private List<AlgoListener> algoListeners = new CopyOnWriteArrayList<AlgoListener>();
 
 
 	// ===================================================================
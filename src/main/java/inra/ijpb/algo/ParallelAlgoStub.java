@@ -0,0 +1,74 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.algo;
+
+import ij.Prefs;
+
+/**
+ * An implementation of algorithm that manages progression listeners and the
+ * number of threads used for processing independent parts of the data.
+ * 
+ * @author agent
+ */
+public class ParallelAlgoStub extends AlgoStub
+{
+	// ===================================================================
+	// Class variables
+	
+	/**
+	 * The number of threads used by the algorithm, or 0 for using the number
+	 * of threads specified in ImageJ preferences.
+	 */
+	private int threadCount = 0;
+
+
+	// ===================================================================
+	// Management of threads
+	
+	/**
+	 * Returns the number of threads used by this algorithm. Default value is
+	 * the number of threads specified in ImageJ preferences.
+	 * 
+	 * @return the number of threads used by this algorithm
+	 */
+	public int getThreadCount()
+	{
+		return threadCount > 0 ? threadCount : Prefs.getThreads();
+	}
+	
+	/**
+	 * Changes the number of threads used by this algorithm. The result does
+	 * not depend on the number of threads.
+	 * 
+	 * @param nThreads
+	 *            the number of threads to use, or 0 for using the number of
+	 *            threads specified in ImageJ preferences
+	 */
+	public void setThreadCount(int nThreads)
+	{
+		if (nThreads < 0)
+		{
+			throw new IllegalArgumentException("Number of threads must be positive or zero, not " + nThreads);
+		}
+		this.threadCount = nThreads;
+	}
+}
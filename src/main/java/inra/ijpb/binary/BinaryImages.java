@@ -23,6 +23,7 @@ package inra.ijpb.binary;
 
 import ij.ImagePlus;
 import ij.ImageStack;
+import ij.measure.Calibration;
 import ij.process.ByteProcessor;
 import ij.process.FloatProcessor;
 import ij.process.ImageProcessor;
@@ -30,21 +31,27 @@ import ij.process.ShortProcessor;
 import inra.ijpb.algo.DefaultAlgoListener;
 import inra.ijpb.binary.conncomp.ConnectedComponentsLabeling;
 import inra.ijpb.binary.conncomp.ConnectedComponentsLabeling3D;
-import inra.ijpb.binary.conncomp.FloodFillComponentsLabeling;
-import inra.ijpb.binary.conncomp.FloodFillComponentsLabeling3D;
+import inra.ijpb.binary.conncomp.UnionFindComponentsLabeling;
+import inra.ijpb.binary.conncomp.UnionFindComponentsLabeling3D;
+import inra.ijpb.binary.distmap.DistanceMethod;
 import inra.ijpb.binary.distmap.DistanceTransform;
 import inra.ijpb.binary.distmap.DistanceTransform3D;
+import inra.ijpb.binary.distmap.DistanceTransform3DEuclidean;
 import inra.ijpb.binary.distmap.DistanceTransform3DFloat;
 import inra.ijpb.binary.distmap.DistanceTransform3DShort;
 import inra.ijpb.binary.distmap.DistanceTransform3x3Float;
 import inra.ijpb.binary.distmap.DistanceTransform3x3Short;
 import inra.ijpb.binary.distmap.DistanceTransform5x5Float;
 import inra.ijpb.binary.distmap.DistanceTransform5x5Short;
+import inra.ijpb.binary.distmap.DistanceTransformEuclidean;
 import inra.ijpb.binary.geodesic.GeodesicDistanceTransform;
 import inra.ijpb.binary.geodesic.GeodesicDistanceTransformFloat;
 import inra.ijpb.binary.geodesic.GeodesicDistanceTransformFloat5x5;
+import inra.ijpb.binary.geodesic.GeodesicDistanceTransformFloatQueue;
 import inra.ijpb.binary.geodesic.GeodesicDistanceTransformShort;
 import inra.ijpb.binary.geodesic.GeodesicDistanceTransformShort5x5;
+import inra.ijpb.binary.geodesic.GeodesicDistanceTransformShortQueue;
+import inra.ijpb.binary.geodesic.PropagationMethod;
 import inra.ijpb.binary.skeleton.ImageJSkeleton;
 import inra.ijpb.data.image.Image3D;
 import inra.ijpb.data.image.Images3D;
@@ -267,7 +274,7 @@ public class BinaryImages
 	 * Computes the labels of the connected components in the given planar
 	 * binary image. The type of result is controlled by the bitDepth option.
 	 * 
-	 * Uses a Flood-fill type algorithm.
+	 * Uses a block-parallel scan with union-find merging of labels.
 	 * 
 	 * @param image
 	 *            contains the binary image (any type is accepted)
@@ -287,7 +294,7 @@ public class BinaryImages
 	public final static ImageProcessor componentsLabeling(ImageProcessor image,
 			int conn, int bitDepth) 
 	{
-		ConnectedComponentsLabeling algo = new FloodFillComponentsLabeling(conn, bitDepth);
+		ConnectedComponentsLabeling algo = new UnionFindComponentsLabeling(conn, bitDepth);
 		DefaultAlgoListener.monitor(algo);
 		return algo.computeLabels(image);
 	}
@@ -296,7 +303,7 @@ public class BinaryImages
 	 * Computes the labels of the connected components in the given 3D binary
 	 * image. The type of result is controlled by the bitDepth option.
 	 * 
-	 * Uses a Flood-fill type algorithm.
+	 * Uses a slab-parallel scan with union-find merging of labels.
 	 * 
 	 * @param image
 	 *            contains the 3D binary image (any type is accepted)
@@ -316,7 +323,7 @@ public class BinaryImages
 	public final static ImageStack componentsLabeling(ImageStack image,
 			int conn, int bitDepth)
 	{
-		ConnectedComponentsLabeling3D algo = new FloodFillComponentsLabeling3D(conn, bitDepth);
+		ConnectedComponentsLabeling3D algo = new UnionFindComponentsLabeling3D(conn, bitDepth);
 		DefaultAlgoListener.monitor(algo);
 		return algo.computeLabels(image);
 	}
@@ -519,6 +526,90 @@ public class BinaryImages
 		DistanceTransform3D algo = new DistanceTransform3DFloat(weights, normalize);
 		return algo.distanceMap(image);
 	}
+
+	/**
+	 * Computes the distance map (or distance transform) from a binary image,
+	 * using the specified method. Distance is computed for each foreground
+	 * pixel or voxel, as the distance to the nearest background pixel or
+	 * voxel.
+	 * 
+	 * The chamfer method uses default weights, as
+	 * {@link #distanceMap(ImagePlus)}. The exact Euclidean method takes into
+	 * account the spatial calibration of the image, the result being
+	 * expressed in the unit of the pixel width.
+	 * 
+	 * @param imagePlus
+	 *            an ImagePlus object containing a binary image
+	 * @param method
+	 *            the method used for computing distances
+	 * @return a new ImagePlus containing the distance map
+	 * 
+	 * @see inra.ijpb.binary.distmap.DistanceTransformEuclidean
+	 * @see inra.ijpb.binary.distmap.DistanceTransform3DEuclidean
+	 */
+	public static final ImagePlus distanceMap(ImagePlus imagePlus, DistanceMethod method)
+	{
+		if (method == DistanceMethod.CHAMFER)
+		{
+			return distanceMap(imagePlus);
+		}
+		
+		ImagePlus resultPlus;
+		String newName = imagePlus.getShortTitle() + "-distMap";
+		Calibration calib = imagePlus.getCalibration();
+		double dx = calib.pixelWidth;
+		
+		// Dispatch to appropriate function depending on dimension
+		if (imagePlus.getStackSize() == 1) 
+		{
+			double[] spacing = new double[] {1.0, calib.pixelHeight / dx};
+			ImageProcessor result = distanceMap(imagePlus.getProcessor(), spacing);
+			resultPlus = new ImagePlus(newName, result);
+		} 
+		else
+		{
+			double[] spacing = new double[] {1.0, calib.pixelHeight / dx, calib.pixelDepth / dx};
+			ImageStack result = distanceMap(imagePlus.getStack(), spacing);
+			resultPlus = new ImagePlus(newName, result);
+		}
+		
+		resultPlus.copyScale(imagePlus);
+		return resultPlus;
+	}
+	
+	/**
+	 * Computes the exact Euclidean distance map from a binary image, by
+	 * specifying the spacing between pixels. Distance is computed for each
+	 * foreground (non-zero) pixel, as the Euclidean distance to the nearest
+	 * background (zero) pixel.
+	 * 
+	 * @param image
+	 *            the input binary image
+	 * @param spacing
+	 *            the spacing between pixels along the x and y directions
+	 * @return the distance map obtained after applying the distance transform
+	 */
+	public static final FloatProcessor distanceMap(ImageProcessor image, double[] spacing)
+	{
+		return new DistanceTransformEuclidean(spacing).distanceMap(image);
+	}
+	
+	/**
+	 * Computes the exact Euclidean distance map from a binary 3D image, by
+	 * specifying the spacing between voxels. Distance is computed for each
+	 * foreground (non-zero) voxel, as the Euclidean distance to the nearest
+	 * background (zero) voxel.
+	 * 
+	 * @param image
+	 *            the input 3D binary image
+	 * @param spacing
+	 *            the spacing between voxels along the x, y and z directions
+	 * @return the distance map obtained after applying the distance transform
+	 */
+	public static final ImageStack distanceMap(ImageStack image, double[] spacing)
+	{
+		return new DistanceTransform3DEuclidean(spacing).distanceMap(image);
+	}
 	
 	public static final ImagePlus geodesicDistanceMap(ImagePlus markerPlus,
 			ImagePlus maskPlus)
@@ -572,18 +663,51 @@ public class BinaryImages
 	public static final ImageProcessor geodesicDistanceMap(ImageProcessor marker,
 			ImageProcessor mask, short[] weights, boolean normalize) 
 	{
+		return geodesicDistanceMap(marker, mask, weights, normalize, PropagationMethod.ITERATED_SCANS);
+	}
+	
+	/**
+	 * Computes the geodesic distance transform (or geodesic distance map) of a
+	 * binary image of marker, constrained to a binary mask, using the
+	 * specified method for propagating distances.
+	 * Returns the result in a new instance of ShortProcessor.
+	 * 
+	 * @param marker
+	 *            the binary image of marker
+	 * @param mask
+	 *            the binary image of mask
+	 * @param weights
+	 *            an array of chamfer weights, with at least two values
+	 * @param normalize
+	 *            indicates whether the resulting distance map should be
+	 *            normalized (divide distances by the first chamfer weight)
+	 * @param method
+	 *            the method used for propagating distances. Both methods give
+	 *            the same result, but priority queue is usually faster for
+	 *            tortuous masks.
+	 * @return the geodesic distance map in a new ImageProcessor
+	 */
+	public static final ImageProcessor geodesicDistanceMap(ImageProcessor marker,
+			ImageProcessor mask, short[] weights, boolean normalize, PropagationMethod method) 
+	{
+		if (weights.length != 2 && weights.length != 3)
+		{
+			throw new IllegalArgumentException(
+					"Requires weight array with 2 or 3 elements");
+		}
+		
 		GeodesicDistanceTransform algo;
-		switch (weights.length) 
+		if (method == PropagationMethod.PRIORITY_QUEUE)
+		{
+			algo = new GeodesicDistanceTransformShortQueue(weights, normalize);
+		}
+		else if (weights.length == 2)
 		{
-		case 2:
 			algo = new GeodesicDistanceTransformShort(weights, normalize);
-			break;
-		case 3:
+		}
+		else
+		{
 			algo = new GeodesicDistanceTransformShort5x5(weights, normalize);
-			break;
-		default:
-			throw new IllegalArgumentException(
-					"Requires weight array with 2 or 3 elements");
 		}
 		
 		return algo.geodesicDistanceMap(marker, mask);
@@ -608,18 +732,51 @@ public class BinaryImages
 	public static final ImageProcessor geodesicDistanceMap(ImageProcessor marker,
 			ImageProcessor mask, float[] weights, boolean normalize) 
 	{
+		return geodesicDistanceMap(marker, mask, weights, normalize, PropagationMethod.ITERATED_SCANS);
+	}
+	
+	/**
+	 * Computes the geodesic distance transform (or geodesic distance map) of a
+	 * binary image of marker, constrained to a binary mask, using the
+	 * specified method for propagating distances.
+	 * Returns the result in a new instance of FloatProcessor.
+	 * 
+	 * @param marker
+	 *            the binary image of marker
+	 * @param mask
+	 *            the binary image of mask
+	 * @param weights
+	 *            an array of chamfer weights, with at least two values
+	 * @param normalize
+	 *            indicates whether the resulting distance map should be
+	 *            normalized (divide distances by the first chamfer weight)
+	 * @param method
+	 *            the method used for propagating distances. Both methods give
+	 *            the same result, but priority queue is usually faster for
+	 *            tortuous masks.
+	 * @return the geodesic distance map in a new ImageProcessor
+	 */
+	public static final ImageProcessor geodesicDistanceMap(ImageProcessor marker,
+			ImageProcessor mask, float[] weights, boolean normalize, PropagationMethod method) 
+	{
+		if (weights.length != 2 && weights.length != 3)
+		{
+			throw new IllegalArgumentException(
+					"Requires weight array with 2 or 3 elements");
+		}
+		
 		GeodesicDistanceTransform algo;
-		switch (weights.length) 
+		if (method == PropagationMethod.PRIORITY_QUEUE)
+		{
+			algo = new GeodesicDistanceTransformFloatQueue(weights, normalize);
+		}
+		else if (weights.length == 2)
 		{
-		case 2:
 			algo = new GeodesicDistanceTransformFloat(weights, normalize);
-			break;
-		case 3:
+		}
+		else
+		{
 			algo = new GeodesicDistanceTransformFloat5x5(weights, normalize);
-			break;
-		default:
-			throw new IllegalArgumentException(
-					"Requires weight array with 2 or 3 elements");
 		}
 		
 		return algo.geodesicDistanceMap(marker, mask);
@@ -681,7 +838,7 @@ public class BinaryImages
 			int nPixelMin) 
 	{
 		// Labeling
-		ConnectedComponentsLabeling algo = new FloodFillComponentsLabeling(4, 16);	
+		ConnectedComponentsLabeling algo = new UnionFindComponentsLabeling(4, 16);	
 		ImageProcessor labelImage = algo.computeLabels(image);
 
 		// keep only necessary labels and binarize
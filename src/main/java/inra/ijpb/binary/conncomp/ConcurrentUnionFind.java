@@ -0,0 +1,117 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.binary.conncomp;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A lock-free union-find structure over a fixed number of elements, that can
+ * be updated concurrently by several threads. The root of each set is always
+ * its smallest element.
+ * 
+ * Roots are attached with a compare-and-set operation, that is retried if
+ * another thread modified the root in the meantime. Paths are halved during
+ * find operations, which only replaces a parent by one of its ancestors.
+ * 
+ * @see UnionFindLabels
+ * 
+ * @author agent
+ *
+ */
+final class ConcurrentUnionFind
+{
+	/**
+	 * The parent of each element.
+	 */
+	private final AtomicIntegerArray parents;
+	
+	/**
+	 * Creates a new union-find structure where each element is the root of
+	 * its own set.
+	 * 
+	 * @param count
+	 *            the number of elements
+	 */
+	ConcurrentUnionFind(int count)
+	{
+		this.parents = new AtomicIntegerArray(count);
+		for (int i = 0; i < count; i++)
+		{
+			parents.set(i, i);
+		}
+	}
+	
+	/**
+	 * Finds the root of the set containing the specified element.
+	 * 
+	 * @param element
+	 *            the index of an element
+	 * @return the smallest element of the set containing the element
+	 */
+	int find(int element)
+	{
+		int parent = parents.get(element);
+		while (parent != element)
+		{
+			int grandParent = parents.get(parent);
+			if (grandParent != parent)
+			{
+				parents.compareAndSet(element, parent, grandParent);
+			}
+			element = parent;
+			parent = grandParent;
+		}
+		return element;
+	}
+	
+	/**
+	 * Merges the sets containing the two elements, by attaching the largest
+	 * root to the smallest one.
+	 * 
+	 * @param element1
+	 *            the first element
+	 * @param element2
+	 *            the second element
+	 */
+	void union(int element1, int element2)
+	{
+		while (true)
+		{
+			int root1 = find(element1);
+			int root2 = find(element2);
+			if (root1 == root2)
+				return;
+			
+			// attach the largest root, if it was not modified meanwhile
+			if (root1 < root2)
+			{
+				if (parents.compareAndSet(root2, root2, root1))
+					return;
+			}
+			else
+			{
+				if (parents.compareAndSet(root1, root1, root2))
+					return;
+			}
+		}
+	}
+}
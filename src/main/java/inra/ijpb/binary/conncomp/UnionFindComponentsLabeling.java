@@ -0,0 +1,358 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.binary.conncomp;
+
+import ij.process.ByteProcessor;
+import ij.process.FloatProcessor;
+import ij.process.ImageProcessor;
+import ij.process.ShortProcessor;
+import inra.ijpb.algo.ParallelAlgoStub;
+import inra.ijpb.util.ParallelRanges;
+
+/**
+ * Computes the labels of the connected components in a binary image. The
+ * type of result is controlled by the bitDepth option.
+ * 
+ * The image is split into blocks of rows, processed in parallel. Each block
+ * is scanned independently, and receives provisional labels whose
+ * equivalences are recorded with a union-find structure. Provisional labels
+ * of adjacent blocks are then merged with a lock-free union-find structure.
+ * The final labels are assigned during a second scan of each block, that
+ * generates the same provisional labels, avoiding to store them for each
+ * pixel.
+ * 
+ * Labels are numbered in the order of the first pixel of each component, so
+ * the result is the same as the one of FloodFillComponentsLabeling, and does
+ * not depend on the number of threads.
+ * 
+ * @see FloodFillComponentsLabeling
+ * @see UnionFindComponentsLabeling3D
+ * 
+ * @author agent
+ */
+public class UnionFindComponentsLabeling extends ParallelAlgoStub implements
+		ConnectedComponentsLabeling
+{
+	/** 
+	 * The connectivity of the components, either 4 (default) or 8.
+	 */
+	int connectivity = 4;
+
+	/**
+	 * The number of bits for representing the result label image. Can be 8, 16
+	 * (default), or 32.
+	 */
+	int bitDepth = 16;
+	
+	private int sizeX;
+	
+	/**
+	 * Constructor with default connectivity 4 and default output bitdepth equal to 16.  
+	 */
+	public UnionFindComponentsLabeling()
+	{
+	}
+	
+	/**
+	 * Constructor specifying the connectivity and using default output bitdepth equal to 16.  
+	 * 
+	 * @param connectivity
+	 *            the connectivity of connected components (4 or 8)
+	 */
+	public UnionFindComponentsLabeling(int connectivity)
+	{
+		this(connectivity, 16);
+	}
+	
+	/**
+	 * Constructor specifying the connectivity and the bitdepth of result label
+	 * image
+	 * 
+	 * @param connectivity
+	 *            the connectivity of connected components (4 or 8)
+	 * @param bitDepth
+	 *            the bit depth of the result (8, 16, or 32)
+	 */
+	public UnionFindComponentsLabeling(int connectivity, int bitDepth)
+	{
+		if (connectivity != 4 && connectivity != 8)
+		{
+			throw new IllegalArgumentException("Connectivity should be 4 or 8, not " + connectivity);
+		}
+		this.connectivity = connectivity;
+		this.bitDepth = bitDepth;
+	}
+	
+	/* (non-Javadoc)
+	 * @see inra.ijpb.binary.conncomp.ConnectedComponentsLabeling#computeLabels(ij.process.ImageProcessor)
+	 */
+	@Override
+	public ImageProcessor computeLabels(final ImageProcessor image)
+	{
+		// get image size
+		sizeX = image.getWidth();
+		final int sizeY = image.getHeight();
+		final int nThreads = getThreadCount();
+		int maxLabel;
+
+		// Depending on bitDepth, create result image, and choose max label 
+		// number
+		final ImageProcessor labels;
+		switch (this.bitDepth) {
+		case 8: 
+			labels = new ByteProcessor(sizeX, sizeY);
+			maxLabel = 255;
+			break; 
+		case 16: 
+			labels = new ShortProcessor(sizeX, sizeY);
+			maxLabel = 65535;
+			break;
+		case 32:
+			labels = new FloatProcessor(sizeX, sizeY);
+			maxLabel = 0x01 << 23;
+			break;
+		default:
+			throw new IllegalArgumentException(
+					"Bit Depth should be 8, 16 or 32.");
+		}
+		
+		// The data associated to each block are indexed by their first row
+		final UnionFindLabels[] blockLabels = new UnionFindLabels[sizeY];
+		final int[][] firstRows = new int[sizeY][];
+		final int[][] lastRows = new int[sizeY][];
+		final int[] blockStarts = new int[sizeY];
+		
+		// compute provisional labels within each block
+		ParallelRanges.run(sizeY, nThreads, new ParallelRanges.Task()
+		{
+			public void process(int start, int end)
+			{
+				UnionFindLabels equivalences = new UnionFindLabels();
+				int[] prevRow = null;
+				int[] row = new int[sizeX];
+				for (int y = start; y < end; y++)
+				{
+					if (start == 0)
+						fireProgressChanged(UnionFindComponentsLabeling.this, y, 2 * end);
+					
+					scanRow(image, y, prevRow, row, equivalences.count(), equivalences);
+					blockStarts[y] = start;
+					if (y == start)
+						firstRows[start] = row.clone();
+					
+					int[] tmp = prevRow == null ? new int[sizeX] : prevRow;
+					prevRow = row;
+					row = tmp;
+				}
+				lastRows[start] = prevRow;
+				blockLabels[start] = equivalences;
+			}
+		});
+		
+		// number the sets of provisional labels over all blocks, and merge
+		// the labels of pixels on each side of block boundaries
+		final int[][] blockIndices = new int[sizeY][];
+		int nSets = 0;
+		for (int y = 0; y < sizeY; y++)
+		{
+			if (blockStarts[y] != y)
+				continue;
+			blockIndices[y] = blockLabels[y].setIndices(nSets);
+			nSets = blockIndices[y][0];
+		}
+		ConcurrentUnionFind sets = new ConcurrentUnionFind(nSets);
+		for (int y = 1; y < sizeY; y++)
+		{
+			if (blockStarts[y] == y)
+			{
+				int prevStart = blockStarts[y - 1];
+				mergeRows(image, y, firstRows[y], blockIndices[y], lastRows[prevStart], blockIndices[prevStart], sets);
+			}
+		}
+		
+		// compute final label of each set, in the order of their first pixel
+		int[] setLabels = new int[nSets];
+		int nLabels = 0;
+		for (int i = 0; i < nSets; i++)
+		{
+			int root = sets.find(i);
+			if (root != i)
+			{
+				setLabels[i] = setLabels[root];
+				continue;
+			}
+			
+			// a new label is found: check current label number  
+			if (nLabels == maxLabel)
+			{
+				throw new RuntimeException("Max number of label reached (" + maxLabel + ")");
+			}
+			setLabels[i] = ++nLabels;
+		}
+		for (int y = 0; y < sizeY; y++)
+		{
+			int[] indices = blockIndices[y];
+			if (indices == null)
+				continue;
+			for (int label = 1; label < indices.length; label++)
+			{
+				indices[label] = setLabels[indices[label]];
+			}
+		}
+		
+		// scan the blocks again, as the same partition of rows is used, and
+		// convert provisional labels into final labels
+		ParallelRanges.run(sizeY, nThreads, new ParallelRanges.Task()
+		{
+			public void process(int start, int end)
+			{
+				int[] finalLabels = blockIndices[start];
+				int[] prevRow = null;
+				int[] row = new int[sizeX];
+				int nLabels = 0;
+				for (int y = start; y < end; y++)
+				{
+					if (start == 0)
+						fireProgressChanged(UnionFindComponentsLabeling.this, end + y, 2 * end);
+					
+					nLabels = scanRow(image, y, prevRow, row, nLabels, null);
+					int offset = y * sizeX;
+					for (int x = 0; x < sizeX; x++)
+					{
+						if (row[x] > 0)
+							labels.setf(offset + x, finalLabels[row[x]]);
+					}
+					
+					int[] tmp = prevRow == null ? new int[sizeX] : prevRow;
+					prevRow = row;
+					row = tmp;
+				}
+			}
+		});
+		this.fireProgressChanged(this, 1, 1);
+
+		labels.setMinAndMax(0, nLabels);
+		return labels;
+	}
+	
+	/**
+	 * Computes the provisional labels of the pixels of a row, from the labels
+	 * of the previous row and of the pixels already visited within the row.
+	 * Each foreground pixel receives the smallest label of its neighbors with
+	 * the same value, or a new label if no such neighbor is labeled.
+	 * 
+	 * @param image
+	 *            the binary image
+	 * @param y
+	 *            the index of the row
+	 * @param prevRow
+	 *            the labels of the previous row, or null for the first row
+	 *            of a block
+	 * @param row
+	 *            the array that will contain the labels of the row
+	 * @param nLabels
+	 *            the number of provisional labels already used
+	 * @param equivalences
+	 *            the union-find structure used to create labels and record
+	 *            equivalences, or null if they are already known
+	 * @return the number of provisional labels used after the row
+	 */
+	private int scanRow(ImageProcessor image, int y, int[] prevRow, int[] row, int nLabels, UnionFindLabels equivalences)
+	{
+		boolean c8 = connectivity == 8;
+		int offset = y * sizeX;
+		int prevOffset = offset - sizeX;
+		for (int x = 0; x < sizeX; x++)
+		{
+			float value = image.getf(offset + x);
+			if (value == 0)
+			{
+				row[x] = 0;
+				continue;
+			}
+			
+			// consider only neighbors with the same value
+			int label = 0;
+			if (x > 0 && image.getf(offset + x - 1) == value)
+				label = merge(label, row[x - 1], equivalences);
+			if (prevRow != null)
+			{
+				if (image.getf(prevOffset + x) == value)
+					label = merge(label, prevRow[x], equivalences);
+				if (c8 && x > 0 && image.getf(prevOffset + x - 1) == value)
+					label = merge(label, prevRow[x - 1], equivalences);
+				if (c8 && x < sizeX - 1 && image.getf(prevOffset + x + 1) == value)
+					label = merge(label, prevRow[x + 1], equivalences);
+			}
+			
+			// create a new label if no neighbor was labeled
+			if (label == 0)
+			{
+				label = ++nLabels;
+				if (equivalences != null)
+					equivalences.add();
+			}
+			row[x] = label;
+		}
+		return nLabels;
+	}
+	
+	/**
+	 * Merges the sets of the foreground pixels of the first row of a block
+	 * with the sets of their neighbors with the same value within the last
+	 * row of the previous block.
+	 */
+	private void mergeRows(ImageProcessor image, int y, int[] row, int[] indices, int[] prevRow, int[] prevIndices, ConcurrentUnionFind sets)
+	{
+		int dx = connectivity == 8 ? 1 : 0;
+		int offset = y * sizeX;
+		for (int x = 0; x < sizeX; x++)
+		{
+			int label = row[x];
+			if (label == 0)
+				continue;
+			
+			float value = image.getf(offset + x);
+			for (int x2 = Math.max(x - dx, 0); x2 <= Math.min(x + dx, sizeX - 1); x2++)
+			{
+				int label2 = prevRow[x2];
+				if (label2 > 0 && image.getf(offset - sizeX + x2) == value)
+					sets.union(indices[label], prevIndices[label2]);
+			}
+		}
+	}
+	
+	/**
+	 * Combines the current label of a pixel with the label of a neighbor, and
+	 * records their equivalence if both are defined.
+	 */
+	private static final int merge(int label, int neighborLabel, UnionFindLabels equivalences)
+	{
+		if (neighborLabel == 0)
+			return label;
+		if (label == 0)
+			return neighborLabel;
+		if (label != neighborLabel && equivalences != null)
+			equivalences.union(label, neighborLabel);
+		return Math.min(label, neighborLabel);
+	}
+}
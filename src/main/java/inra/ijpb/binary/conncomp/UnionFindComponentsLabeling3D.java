@@ -0,0 +1,412 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.binary.conncomp;
+
+import ij.ImageStack;
+import ij.process.ImageProcessor;
+import inra.ijpb.algo.ParallelAlgoStub;
+import inra.ijpb.util.ParallelRanges;
+
+/**
+ * Computes the labels of the connected components in a 3D binary image. The
+ * type of result is controlled by the bitDepth option.
+ * 
+ * The image is split into slabs of slices, processed in parallel. Each slab
+ * is scanned independently, and receives provisional labels whose
+ * equivalences are recorded with a union-find structure. Provisional labels
+ * of adjacent slabs are then merged with a lock-free union-find structure.
+ * The final labels are assigned during a second scan of each slab, that
+ * generates the same provisional labels, avoiding to store them for each
+ * voxel.
+ * 
+ * Labels are numbered in the order of the first voxel of each component, so
+ * the result is the same as the one of FloodFillComponentsLabeling3D, and
+ * does not depend on the number of threads.
+ * 
+ * @see FloodFillComponentsLabeling3D
+ * @see UnionFindComponentsLabeling
+ * 
+ * @author agent
+ */
+public class UnionFindComponentsLabeling3D extends ParallelAlgoStub implements
+		ConnectedComponentsLabeling3D
+{
+	/** 
+	 * The connectivity of the components, either 6 (default) or 26.
+	 */
+	int connectivity = 6;
+	
+	/**
+	 * The number of bits for representing the result label image. Can be 8, 16
+	 * (default), or 32.
+	 */
+	int bitDepth = 16;
+	
+	private int sizeX;
+	private int sizeY;
+	
+	/**
+	 * Constructor with default connectivity 6 and default output bitdepth equal to 16.  
+	 */
+	public UnionFindComponentsLabeling3D()
+	{
+	}
+	
+	/**
+	 * Constructor specifying the connectivity and using default output bitdepth equal to 16.  
+	 * 
+	 * @param connectivity
+	 *            the connectivity of connected components (6 or 26)
+	 */
+	public UnionFindComponentsLabeling3D(int connectivity)
+	{
+		this(connectivity, 16);
+	}
+	
+	/**
+	 * Constructor specifying the connectivity and the bitdepth of result label
+	 * image
+	 * 
+	 * @param connectivity
+	 *            the connectivity of connected components (6 or 26)
+	 * @param bitDepth
+	 *            the bit depth of the result (8, 16, or 32)
+	 */
+	public UnionFindComponentsLabeling3D(int connectivity, int bitDepth)
+	{
+		if (connectivity != 6 && connectivity != 26)
+		{
+			throw new IllegalArgumentException("Connectivity should be 6 or 26, not " + connectivity);
+		}
+		this.connectivity = connectivity;
+		this.bitDepth = bitDepth;
+	}
+	
+	/* (non-Javadoc)
+	 * @see inra.ijpb.binary.conncomp.ConnectedComponentsLabeling3D#computeLabels(ij.ImageStack)
+	 */
+	@Override
+	public ImageStack computeLabels(ImageStack image)
+	{
+		// get image size
+		sizeX = image.getWidth();
+		sizeY = image.getHeight();
+		final int sizeZ = image.getSize();
+		final int sliceSize = sizeX * sizeY;
+		final int nThreads = getThreadCount();
+
+		// identify the maximum label index
+		int maxLabel;
+		switch (this.bitDepth) {
+		case 8: 
+			maxLabel = 255;
+			break; 
+		case 16: 
+			maxLabel = 65535;
+			break;
+		case 32:
+			maxLabel = 0x01 << 23;
+			break;
+		default:
+			throw new IllegalArgumentException(
+					"Bit Depth should be 8, 16 or 32.");
+		}
+
+		// initialize result image
+		fireStatusChanged(this, "Allocate memory...");
+		ImageStack labels = ImageStack.create(sizeX, sizeY, sizeZ, bitDepth);
+		final ImageProcessor[] masks = new ImageProcessor[sizeZ];
+		final ImageProcessor[] labelSlices = new ImageProcessor[sizeZ];
+		for (int z = 0; z < sizeZ; z++)
+		{
+			masks[z] = image.getProcessor(z + 1);
+			labelSlices[z] = labels.getProcessor(z + 1);
+		}
+		
+		// The data associated to each slab are indexed by their first slice
+		final UnionFindLabels[] slabLabels = new UnionFindLabels[sizeZ];
+		final int[][] firstSlices = new int[sizeZ][];
+		final int[][] lastSlices = new int[sizeZ][];
+		final int[] slabStarts = new int[sizeZ];
+		
+		// compute provisional labels within each slab
+		fireStatusChanged(this, "Label slabs...");
+		ParallelRanges.run(sizeZ, nThreads, new ParallelRanges.Task()
+		{
+			public void process(int start, int end)
+			{
+				UnionFindLabels equivalences = new UnionFindLabels();
+				int[] prevSlice = null;
+				int[] slice = new int[sliceSize];
+				for (int z = start; z < end; z++)
+				{
+					if (start == 0)
+						fireProgressChanged(UnionFindComponentsLabeling3D.this, z, 2 * end);
+					
+					scanSlice(masks[z], z > start ? masks[z - 1] : null, prevSlice, slice, equivalences.count(), equivalences);
+					slabStarts[z] = start;
+					if (z == start)
+						firstSlices[start] = slice.clone();
+					
+					int[] tmp = prevSlice == null ? new int[sliceSize] : prevSlice;
+					prevSlice = slice;
+					slice = tmp;
+				}
+				lastSlices[start] = prevSlice;
+				slabLabels[start] = equivalences;
+			}
+		});
+		
+		// number the sets of provisional labels over all slabs
+		final int[][] slabIndices = new int[sizeZ][];
+		int nSets = 0;
+		int nBoundaries = 0;
+		for (int z = 0; z < sizeZ; z++)
+		{
+			if (slabStarts[z] != z)
+				continue;
+			slabIndices[z] = slabLabels[z].setIndices(nSets);
+			nSets = slabIndices[z][0];
+			if (z > 0)
+				nBoundaries++;
+		}
+		
+		// list the first slice of each slab after the first one
+		final int[] boundaries = new int[nBoundaries];
+		for (int z = 1, b = 0; z < sizeZ; z++)
+		{
+			if (slabStarts[z] == z)
+				boundaries[b++] = z;
+		}
+		
+		// merge the labels of voxels on each side of slab boundaries
+		fireStatusChanged(this, "Merge slabs...");
+		final ConcurrentUnionFind sets = new ConcurrentUnionFind(nSets);
+		ParallelRanges.run(nBoundaries * sizeY, nThreads, new ParallelRanges.Task()
+		{
+			public void process(int start, int end)
+			{
+				for (int i = start; i < end; i++)
+				{
+					int z = boundaries[i / sizeY];
+					int y = i % sizeY;
+					mergeRow(masks[z], masks[z - 1], y, firstSlices[z], slabIndices[z], lastSlices[slabStarts[z - 1]], slabIndices[slabStarts[z - 1]], sets);
+				}
+			}
+		});
+		
+		// compute final label of each set, in the order of their first voxel
+		int[] setLabels = new int[nSets];
+		int nLabels = 0;
+		for (int i = 0; i < nSets; i++)
+		{
+			int root = sets.find(i);
+			if (root != i)
+			{
+				setLabels[i] = setLabels[root];
+				continue;
+			}
+			
+			// a new label is found: check current label number  
+			if (nLabels == maxLabel)
+			{
+				throw new RuntimeException("Max number of label reached (" + maxLabel + ")");
+			}
+			setLabels[i] = ++nLabels;
+		}
+		for (int z = 0; z < sizeZ; z++)
+		{
+			int[] indices = slabIndices[z];
+			if (indices == null)
+				continue;
+			for (int label = 1; label < indices.length; label++)
+			{
+				indices[label] = setLabels[indices[label]];
+			}
+		}
+		
+		// scan the slabs again, as the same partition of slices is used, and
+		// convert provisional labels into final labels
+		fireStatusChanged(this, "Assign labels...");
+		ParallelRanges.run(sizeZ, nThreads, new ParallelRanges.Task()
+		{
+			public void process(int start, int end)
+			{
+				int[] finalLabels = slabIndices[start];
+				int[] prevSlice = null;
+				int[] slice = new int[sliceSize];
+				int nLabels = 0;
+				for (int z = start; z < end; z++)
+				{
+					if (start == 0)
+						fireProgressChanged(UnionFindComponentsLabeling3D.this, end + z, 2 * end);
+					
+					nLabels = scanSlice(masks[z], z > start ? masks[z - 1] : null, prevSlice, slice, nLabels, null);
+					ImageProcessor labelSlice = labelSlices[z];
+					for (int i = 0; i < sliceSize; i++)
+					{
+						if (slice[i] > 0)
+							labelSlice.setf(i, finalLabels[slice[i]]);
+					}
+					
+					int[] tmp = prevSlice == null ? new int[sliceSize] : prevSlice;
+					prevSlice = slice;
+					slice = tmp;
+				}
+			}
+		});
+		
+		fireStatusChanged(this, "");
+		fireProgressChanged(this, 1, 1);
+		return labels;
+	}
+	
+	/**
+	 * Computes the provisional labels of the voxels of a slice, from the
+	 * labels of the previous slice and of the voxels already visited within
+	 * the slice. Each foreground voxel receives the smallest label of its
+	 * neighbors with the same value, or a new label if no such neighbor is
+	 * labeled.
+	 * 
+	 * @param mask
+	 *            the slice of the binary image
+	 * @param prevMask
+	 *            the previous slice of the binary image, or null for the
+	 *            first slice of a slab
+	 * @param prevSlice
+	 *            the labels of the previous slice, or null for the first
+	 *            slice of a slab
+	 * @param slice
+	 *            the array that will contain the labels of the slice
+	 * @param nLabels
+	 *            the number of provisional labels already used
+	 * @param equivalences
+	 *            the union-find structure used to create labels and record
+	 *            equivalences, or null if they are already known
+	 * @return the number of provisional labels used after the slice
+	 */
+	private int scanSlice(ImageProcessor mask, ImageProcessor prevMask, int[] prevSlice, int[] slice, int nLabels, UnionFindLabels equivalences)
+	{
+		boolean c26 = connectivity == 26;
+		for (int y = 0; y < sizeY; y++)
+		{
+			for (int x = 0; x < sizeX; x++)
+			{
+				int index = y * sizeX + x;
+				float value = mask.getf(index);
+				if (value == 0)
+				{
+					slice[index] = 0;
+					continue;
+				}
+				
+				// neighbors with the same value within current slice
+				int label = 0;
+				if (x > 0 && mask.getf(index - 1) == value)
+					label = merge(label, slice[index - 1], equivalences);
+				if (y > 0)
+				{
+					if (mask.getf(index - sizeX) == value)
+						label = merge(label, slice[index - sizeX], equivalences);
+					if (c26 && x > 0 && mask.getf(index - sizeX - 1) == value)
+						label = merge(label, slice[index - sizeX - 1], equivalences);
+					if (c26 && x < sizeX - 1 && mask.getf(index - sizeX + 1) == value)
+						label = merge(label, slice[index - sizeX + 1], equivalences);
+				}
+				
+				// neighbors with the same value within previous slice
+				if (prevSlice != null)
+				{
+					if (!c26)
+					{
+						if (prevMask.getf(index) == value)
+							label = merge(label, prevSlice[index], equivalences);
+					}
+					else
+					{
+						for (int y2 = Math.max(y - 1, 0); y2 <= Math.min(y + 1, sizeY - 1); y2++)
+						{
+							for (int x2 = Math.max(x - 1, 0); x2 <= Math.min(x + 1, sizeX - 1); x2++)
+							{
+								int index2 = y2 * sizeX + x2;
+								if (prevMask.getf(index2) == value)
+									label = merge(label, prevSlice[index2], equivalences);
+							}
+						}
+					}
+				}
+				
+				// create a new label if no neighbor was labeled
+				if (label == 0)
+				{
+					label = ++nLabels;
+					if (equivalences != null)
+						equivalences.add();
+				}
+				slice[index] = label;
+			}
+		}
+		return nLabels;
+	}
+	
+	/**
+	 * Merges the sets of the foreground voxels of a row of the first slice of
+	 * a slab with the sets of their neighbors with the same value within the
+	 * last slice of the previous slab.
+	 */
+	private void mergeRow(ImageProcessor mask, ImageProcessor prevMask, int y, int[] slice, int[] indices, int[] prevSlice, int[] prevIndices, ConcurrentUnionFind sets)
+	{
+		int d = connectivity == 26 ? 1 : 0;
+		for (int x = 0; x < sizeX; x++)
+		{
+			int label = slice[y * sizeX + x];
+			if (label == 0)
+				continue;
+			
+			float value = mask.getf(y * sizeX + x);
+			for (int y2 = Math.max(y - d, 0); y2 <= Math.min(y + d, sizeY - 1); y2++)
+			{
+				for (int x2 = Math.max(x - d, 0); x2 <= Math.min(x + d, sizeX - 1); x2++)
+				{
+					int label2 = prevSlice[y2 * sizeX + x2];
+					if (label2 > 0 && prevMask.getf(y2 * sizeX + x2) == value)
+						sets.union(indices[label], prevIndices[label2]);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Combines the current label of a voxel with the label of a neighbor, and
+	 * records their equivalence if both are defined.
+	 */
+	private static final int merge(int label, int neighborLabel, UnionFindLabels equivalences)
+	{
+		if (neighborLabel == 0)
+			return label;
+		if (label == 0)
+			return neighborLabel;
+		if (label != neighborLabel && equivalences != null)
+			equivalences.union(label, neighborLabel);
+		return Math.min(label, neighborLabel);
+	}
+}
@@ -0,0 +1,130 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.binary.conncomp;
+
+/**
+ * A growable union-find structure over provisional labels, used by a single
+ * thread while scanning a block of an image. Labels start at 1, and the root
+ * of each set is always its smallest label.
+ * 
+ * @see ConcurrentUnionFind
+ * 
+ * @author agent
+ *
+ */
+final class UnionFindLabels
+{
+	/**
+	 * The parent of each label. Index 0 is not used.
+	 */
+	private int[] parents = new int[256];
+	
+	/**
+	 * The number of labels.
+	 */
+	private int count = 0;
+	
+	/**
+	 * Creates a new label, that is the root of its own set.
+	 * 
+	 * @return the new label
+	 */
+	int add()
+	{
+		count++;
+		if (count == parents.length)
+		{
+			int[] newParents = new int[parents.length * 2];
+			System.arraycopy(parents, 0, newParents, 0, parents.length);
+			parents = newParents;
+		}
+		parents[count] = count;
+		return count;
+	}
+	
+	/**
+	 * @return the number of labels
+	 */
+	int count()
+	{
+		return count;
+	}
+	
+	/**
+	 * Finds the root of the set containing the specified label, and halves
+	 * the path from the label to the root.
+	 * 
+	 * @param label
+	 *            a label
+	 * @return the smallest label of the set containing the label
+	 */
+	int find(int label)
+	{
+		while (parents[label] != label)
+		{
+			parents[label] = parents[parents[label]];
+			label = parents[label];
+		}
+		return label;
+	}
+	
+	/**
+	 * Merges the sets containing the two labels, by attaching the largest
+	 * root to the smallest one.
+	 * 
+	 * @param label1
+	 *            the first label
+	 * @param label2
+	 *            the second label
+	 */
+	void union(int label1, int label2)
+	{
+		int root1 = find(label1);
+		int root2 = find(label2);
+		if (root1 < root2)
+			parents[root2] = root1;
+		else if (root2 < root1)
+			parents[root1] = root2;
+	}
+	
+	/**
+	 * Computes the index of the set containing each label, sets being
+	 * numbered in the order of their smallest label, starting from the
+	 * specified offset.
+	 * 
+	 * @param offset
+	 *            the index of the first set
+	 * @return an array containing, for each label, the index of its set. The
+	 *         first element contains the index after the last set.
+	 */
+	int[] setIndices(int offset)
+	{
+		int[] indices = new int[count + 1];
+		for (int label = 1; label <= count; label++)
+		{
+			int root = find(label);
+			indices[label] = root == label ? offset++ : indices[root];
+		}
+		indices[0] = offset;
+		return indices;
+	}
+}
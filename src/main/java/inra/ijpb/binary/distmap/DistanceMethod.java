@@ -0,0 +1,93 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.binary.distmap;
+
+/**
+ * The methods that can be used for computing the distance map of a binary
+ * image.
+ * 
+ * @see inra.ijpb.binary.BinaryImages#distanceMap(ij.ImagePlus, DistanceMethod)
+ * 
+ * @author agent
+ *
+ */
+public enum DistanceMethod
+{
+	/**
+	 * Propagates chamfer distances with two scans of the image. Distances
+	 * approximate the Euclidean distance, depending on the chamfer weights.
+	 */
+	CHAMFER("Chamfer"),
+	/**
+	 * Computes the exact Euclidean distance with separable passes along each
+	 * direction, taking into account the spatial calibration.
+	 */
+	EXACT_EUCLIDEAN("Exact Euclidean");
+	
+	private final String label;
+	
+	private DistanceMethod(String label)
+	{
+		this.label = label;
+	}
+	
+	public String toString()
+	{
+		return this.label;
+	}
+	
+	public static String[] getAllLabels()
+	{
+		int n = DistanceMethod.values().length;
+		String[] result = new String[n];
+		
+		int i = 0;
+		for (DistanceMethod method : DistanceMethod.values())
+			result[i++] = method.label;
+		
+		return result;
+	}
+	
+	/**
+	 * Determines the distance method from its label.
+	 * 
+	 * @param label
+	 *            the name of a distance method
+	 * @return the DistanceMethod enum corresponding to the given name
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if label name is not recognized.
+	 */
+	public static DistanceMethod fromLabel(String label)
+	{
+		if (label != null)
+			label = label.toLowerCase();
+		for (DistanceMethod method : DistanceMethod.values())
+		{
+			String cmp = method.label.toLowerCase();
+			if (cmp.equals(label))
+				return method;
+		}
+		throw new IllegalArgumentException(
+				"Unable to parse DistanceMethod with label: " + label);
+	}
+}
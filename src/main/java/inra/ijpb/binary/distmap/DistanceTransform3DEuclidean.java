@@ -0,0 +1,261 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.binary.distmap;
+
+import ij.ImageStack;
+import ij.process.ImageProcessor;
+import inra.ijpb.algo.ParallelAlgoStub;
+import inra.ijpb.data.image.Images3D;
+import inra.ijpb.util.ParallelRanges;
+
+/**
+ * Computes the exact Euclidean distance map of a 3D binary image, using the
+ * separable algorithm of Felzenszwalb and Huttenlocher. Squared distances are
+ * computed successively along the x, y and z directions, and each line is
+ * processed independently, making it possible to use several threads.
+ * 
+ * Contrary to chamfer distances, the result does not depend on the direction,
+ * and the spacing between voxels can be different along each direction. All
+ * the voxels with a non-zero value are considered as foreground.
+ * 
+ * @see inra.ijpb.binary.BinaryImages#distanceMap(ImageStack, double[])
+ * @see inra.ijpb.binary.distmap.DistanceTransformEuclidean
+ * 
+ * @author agent
+ */
+public class DistanceTransform3DEuclidean extends ParallelAlgoStub implements DistanceTransform3D
+{
+	// ==================================================
+	// Class variables
+	
+	/**
+	 * The spacing between two voxels, along the x, y and z directions.
+	 */
+	private double[] spacing;
+	
+	private int sizeX;
+	private int sizeY;
+	private int sizeZ;
+	
+	/**
+	 * The slices of the result image, that contain squared distances until
+	 * the last pass.
+	 */
+	private float[][] resultSlices;
+	
+	
+	// ==================================================
+	// Constructors 
+	
+	/**
+	 * Creates a new distance transform for images with cubic voxels.
+	 */
+	public DistanceTransform3DEuclidean()
+	{
+		this(new double[] {1.0, 1.0, 1.0});
+	}
+	
+	/**
+	 * Creates a new distance transform by specifying the spacing between
+	 * voxels.
+	 * 
+	 * @param spacing
+	 *            the spacing between two voxels along the x, y and z
+	 *            directions
+	 */
+	public DistanceTransform3DEuclidean(double[] spacing)
+	{
+		if (spacing.length != 3)
+		{
+			throw new IllegalArgumentException("Requires a spacing array with 3 elements");
+		}
+		this.spacing = spacing;
+	}
+	
+	
+	// ==================================================
+	// Implementation of DistanceTransform3D interface 
+	
+	/**
+	 * Computes the distance map from a 3D binary image. Distance is computed
+	 * for each foreground (non-zero) voxel, as the Euclidean distance to the
+	 * nearest background (zero) voxel.
+	 * 
+	 * @param image
+	 *            a 3D binary image with white voxels (255) as foreground
+	 * @return a new 3D image containing:
+	 *         <ul>
+	 *         <li>0 for each background voxel</li>
+	 *         <li>the Euclidean distance to the nearest background voxel
+	 *         otherwise</li>
+	 *         </ul>
+	 */
+	public ImageStack distanceMap(ImageStack image)
+	{
+		// size of image
+		sizeX = image.getWidth();
+		sizeY = image.getHeight();
+		sizeZ = image.getSize();
+		
+		// create new empty image
+		ImageStack buffer = ImageStack.create(sizeX, sizeY, sizeZ, 32);
+		this.resultSlices = Images3D.getFloatArrays(buffer);
+		
+		processLinesX(image);
+		processLinesY();
+		processLinesZ();
+		
+		fireStatusChanged(this, "");
+		return buffer;
+	}
+	
+	
+	// ==================================================
+	// Inner computation methods 
+	
+	/**
+	 * Computes squared distances to the nearest background voxel within each
+	 * line along the x direction.
+	 */
+	private void processLinesX(ImageStack image)
+	{
+		fireStatusChanged(this, "Process x direction"); 
+		
+		// retrieve processors once, as they are created at each call
+		final ImageProcessor[] masks = new ImageProcessor[sizeZ];
+		for (int z = 0; z < sizeZ; z++)
+		{
+			masks[z] = image.getProcessor(z + 1);
+		}
+		
+		ParallelRanges.run(sizeY * sizeZ, getThreadCount(), new ParallelRanges.Task()
+		{
+			public void process(int start, int end)
+			{
+				double[] line = new double[sizeX];
+				for (int i = start; i < end; i++)
+				{
+					if (start == 0 && i % sizeY == 0)
+						fireProgressChanged(DistanceTransform3DEuclidean.this, i, end);
+					
+					int z = i / sizeY;
+					int offset = (i % sizeY) * sizeX;
+					ImageProcessor mask = masks[z];
+					float[] result = resultSlices[z];
+					
+					for (int x = 0; x < sizeX; x++)
+					{
+						line[x] = mask.getf(offset + x) == 0 ? 0 : Double.POSITIVE_INFINITY;
+					}
+					ParabolaEnvelope.transformBinary(line, sizeX, spacing[0]);
+					for (int x = 0; x < sizeX; x++)
+					{
+						result[offset + x] = (float) line[x];
+					}
+				}
+			}
+		});
+		fireProgressChanged(this, 1, 1); 
+	}
+	
+	/**
+	 * Combines the squared distances with the ones along the y direction.
+	 */
+	private void processLinesY()
+	{
+		fireStatusChanged(this, "Process y direction"); 
+		ParallelRanges.run(sizeX * sizeZ, getThreadCount(), new ParallelRanges.Task()
+		{
+			public void process(int start, int end)
+			{
+				double[] line = new double[sizeY];
+				ParabolaEnvelope envelope = new ParabolaEnvelope(sizeY);
+				for (int i = start; i < end; i++)
+				{
+					if (start == 0 && i % sizeX == 0)
+						fireProgressChanged(DistanceTransform3DEuclidean.this, i, end);
+					
+					int x = i % sizeX;
+					float[] result = resultSlices[i / sizeX];
+					
+					boolean foreground = false;
+					for (int y = 0; y < sizeY; y++)
+					{
+						line[y] = result[y * sizeX + x];
+						foreground |= line[y] > 0;
+					}
+					
+					// lines with only background voxels are left unchanged
+					if (!foreground)
+						continue;
+					
+					envelope.transform(line, sizeY, spacing[1]);
+					for (int y = 0; y < sizeY; y++)
+					{
+						result[y * sizeX + x] = (float) line[y];
+					}
+				}
+			}
+		});
+		fireProgressChanged(this, 1, 1); 
+	}
+	
+	/**
+	 * Combines the squared distances with the ones along the z direction, and
+	 * computes the square root of the results.
+	 */
+	private void processLinesZ()
+	{
+		fireStatusChanged(this, "Process z direction"); 
+		ParallelRanges.run(sizeX * sizeY, getThreadCount(), new ParallelRanges.Task()
+		{
+			public void process(int start, int end)
+			{
+				double[] line = new double[sizeZ];
+				ParabolaEnvelope envelope = new ParabolaEnvelope(sizeZ);
+				for (int index = start; index < end; index++)
+				{
+					if (start == 0 && index % sizeX == 0)
+						fireProgressChanged(DistanceTransform3DEuclidean.this, index, end);
+					
+					boolean foreground = false;
+					for (int z = 0; z < sizeZ; z++)
+					{
+						line[z] = resultSlices[z][index];
+						foreground |= line[z] > 0;
+					}
+					
+					// lines with only background voxels are left unchanged
+					if (!foreground)
+						continue;
+					
+					envelope.transform(line, sizeZ, spacing[2]);
+					for (int z = 0; z < sizeZ; z++)
+					{
+						resultSlices[z][index] = (float) Math.sqrt(line[z]);
+					}
+				}
+			}
+		});
+		fireProgressChanged(this, 1, 1); 
+	}
+}
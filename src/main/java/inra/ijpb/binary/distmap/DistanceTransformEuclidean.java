@@ -0,0 +1,185 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.binary.distmap;
+
+import ij.process.FloatProcessor;
+import ij.process.ImageProcessor;
+import inra.ijpb.algo.ParallelAlgoStub;
+import inra.ijpb.util.ParallelRanges;
+
+/**
+ * Computes the exact Euclidean distance map of a binary image, using the
+ * separable algorithm of Felzenszwalb and Huttenlocher. Squared distances are
+ * computed along the rows, then along the columns, and each line is processed
+ * independently, making it possible to use several threads.
+ * 
+ * Contrary to chamfer distances, the result does not depend on the direction,
+ * and the spacing between pixels can be different along each direction. All
+ * the pixels with a non-zero value are considered as foreground.
+ * 
+ * <p>
+ * Example of use:
+ *<pre>{@code
+ *	double[] spacing = new double[]{1.0, 1.5};
+ *	DistanceTransform dt = new DistanceTransformEuclidean(spacing);
+ *	ImageProcessor result = dt.distanceMap(inputImage);
+ *	// or:
+ *	ImageProcessor result = BinaryImages.distanceMap(inputImage, spacing);
+ *}</pre>
+ * 
+ * @see inra.ijpb.binary.BinaryImages#distanceMap(ImageProcessor, double[])
+ * @see inra.ijpb.binary.distmap.DistanceTransform3DEuclidean
+ * 
+ * @author agent
+ */
+public class DistanceTransformEuclidean extends ParallelAlgoStub implements DistanceTransform
+{
+	// ==================================================
+	// Class variables
+	
+	/**
+	 * The spacing between two pixels, along the x and y directions.
+	 */
+	private double[] spacing;
+	
+	
+	// ==================================================
+	// Constructors 
+	
+	/**
+	 * Creates a new distance transform for images with square pixels.
+	 */
+	public DistanceTransformEuclidean()
+	{
+		this(new double[] {1.0, 1.0});
+	}
+	
+	/**
+	 * Creates a new distance transform by specifying the spacing between
+	 * pixels.
+	 * 
+	 * @param spacing
+	 *            the spacing between two pixels along the x and y directions
+	 */
+	public DistanceTransformEuclidean(double[] spacing)
+	{
+		if (spacing.length != 2)
+		{
+			throw new IllegalArgumentException("Requires a spacing array with 2 elements");
+		}
+		this.spacing = spacing;
+	}
+	
+	
+	// ==================================================
+	// Implementation of DistanceTransform interface 
+	
+	/**
+	 * Computes the distance map from a binary image. Distance is computed
+	 * for each foreground (non-zero) pixel, as the Euclidean distance to the
+	 * nearest background (zero) pixel.
+	 * 
+	 * @param image
+	 *            a binary image with white pixels (255) as foreground
+	 * @return a new instance of FloatProcessor containing:
+	 *         <ul>
+	 *         <li>0 for each background pixel</li>
+	 *         <li>the Euclidean distance to the nearest background pixel
+	 *         otherwise</li>
+	 *         </ul>
+	 */
+	public FloatProcessor distanceMap(final ImageProcessor image)
+	{
+		// size of image
+		final int sizeX = image.getWidth();
+		final int sizeY = image.getHeight();
+		final float[] buffer = new float[sizeX * sizeY];
+		int nThreads = getThreadCount();
+		
+		// squared distances along each row
+		this.fireStatusChanged(this, "Process rows");
+		ParallelRanges.run(sizeY, nThreads, new ParallelRanges.Task()
+		{
+			public void process(int start, int end)
+			{
+				double[] line = new double[sizeX];
+				for (int y = start; y < end; y++)
+				{
+					if (start == 0)
+						fireProgressChanged(DistanceTransformEuclidean.this, y, end);
+					
+					int offset = y * sizeX;
+					for (int x = 0; x < sizeX; x++)
+					{
+						line[x] = image.getf(offset + x) == 0 ? 0 : Double.POSITIVE_INFINITY;
+					}
+					ParabolaEnvelope.transformBinary(line, sizeX, spacing[0]);
+					for (int x = 0; x < sizeX; x++)
+					{
+						buffer[offset + x] = (float) line[x];
+					}
+				}
+			}
+		});
+		
+		// combine with distances along each column, and compute square root
+		this.fireStatusChanged(this, "Process columns");
+		ParallelRanges.run(sizeX, nThreads, new ParallelRanges.Task()
+		{
+			public void process(int start, int end)
+			{
+				double[] line = new double[sizeY];
+				ParabolaEnvelope envelope = new ParabolaEnvelope(sizeY);
+				for (int x = start; x < end; x++)
+				{
+					if (start == 0)
+						fireProgressChanged(DistanceTransformEuclidean.this, x, end);
+					
+					for (int y = 0; y < sizeY; y++)
+					{
+						line[y] = buffer[y * sizeX + x];
+					}
+					envelope.transform(line, sizeY, spacing[1]);
+					for (int y = 0; y < sizeY; y++)
+					{
+						buffer[y * sizeX + x] = (float) Math.sqrt(line[y]);
+					}
+				}
+			}
+		});
+		this.fireProgressChanged(this, 1, 1);
+		
+		FloatProcessor distMap = new FloatProcessor(sizeX, sizeY, buffer);
+		
+		// Compute max value within the mask for setting min/max of ImageProcessor
+		double maxVal = 0;
+		for (float value : buffer)
+		{
+			if (value != Float.POSITIVE_INFINITY)
+				maxVal = Math.max(maxVal, value);
+		}
+		distMap.setMinAndMax(0, maxVal);
+		
+		this.fireStatusChanged(this, "");
+		return distMap;
+	}
+}
@@ -0,0 +1,187 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.binary.distmap;
+
+/**
+ * Computes the lower envelope of parabolas rooted at the samples of a line,
+ * as described by Felzenszwalb and Huttenlocher. This is the one-dimensional
+ * step of the separable algorithms for exact Euclidean distance transforms.
+ * 
+ * Applied to a line containing squared distances, the result contains, for
+ * each position p, the minimum of f(q) + (s * (p - q))^2 over all positions
+ * q, where s is the spacing between samples. Infinite values are ignored.
+ * 
+ * As an instance keeps internal buffers, each thread must use its own
+ * instance.
+ * 
+ * @author agent
+ *
+ */
+final class ParabolaEnvelope
+{
+	/**
+	 * The positions of the parabolas that contribute to the envelope.
+	 */
+	private final int[] vertices;
+	
+	/**
+	 * The values of the line at the position of each parabola.
+	 */
+	private final double[] values;
+	
+	/**
+	 * The value of each parabola at the origin of the line, used for
+	 * computing intersections.
+	 */
+	private final double[] heights;
+	
+	/**
+	 * The position from which each parabola becomes the lowest one.
+	 */
+	private final double[] bounds;
+	
+	/**
+	 * Creates a new envelope computer for lines with at most the specified
+	 * length.
+	 * 
+	 * @param maxLength
+	 *            the maximum length of the lines to process
+	 */
+	ParabolaEnvelope(int maxLength)
+	{
+		this.vertices = new int[maxLength];
+		this.values = new double[maxLength];
+		this.heights = new double[maxLength];
+		this.bounds = new double[maxLength];
+	}
+	
+	/**
+	 * Replaces the values of a line containing only zero or infinite values
+	 * by the squared distance to the nearest zero value. The result is the
+	 * same as the one of the transform method, but is obtained by two
+	 * linear scans.
+	 * 
+	 * @param line
+	 *            the values of the line, either 0 or positive infinity, that
+	 *            will be replaced by the result
+	 * @param length
+	 *            the number of values within the line
+	 * @param spacing
+	 *            the spacing between two consecutive samples
+	 */
+	static void transformBinary(double[] line, int length, double spacing)
+	{
+		// distance to the nearest zero on the left, in number of samples
+		int dist = -1;
+		for (int i = 0; i < length; i++)
+		{
+			if (line[i] == 0)
+				dist = 0;
+			else if (dist >= 0)
+				line[i] = ++dist;
+		}
+		
+		// compare with distance to the nearest zero on the right
+		dist = -1;
+		for (int i = length - 1; i >= 0; i--)
+		{
+			if (line[i] == 0)
+				dist = 0;
+			else if (dist >= 0 && ++dist < line[i])
+				line[i] = dist;
+		}
+		
+		// convert to squared distances
+		for (int i = 0; i < length; i++)
+		{
+			double d = line[i] * spacing;
+			line[i] = d * d;
+		}
+	}
+	
+	/**
+	 * Replaces the values of a line by the lower envelope of the parabolas
+	 * rooted at each value.
+	 * 
+	 * @param line
+	 *            the values of the line, that will be replaced by the result
+	 * @param length
+	 *            the number of values within the line
+	 * @param spacing
+	 *            the spacing between two consecutive samples
+	 */
+	void transform(double[] line, int length, double spacing)
+	{
+		double s2 = spacing * spacing;
+		
+		// compute the parabolas of the envelope, from left to right
+		int k = -1;
+		for (int q = 0; q < length; q++)
+		{
+			double fq = line[q];
+			if (fq == Double.POSITIVE_INFINITY)
+				continue;
+			
+			// within a run of zero values, only the two ends can be the
+			// nearest sample of a position outside the run
+			if (fq == 0 && q > 0 && q < length - 1 && line[q - 1] == 0 && line[q + 1] == 0)
+				continue;
+			
+			// remove the parabolas hidden by the new one. The intersection
+			// with the last parabola is compared without division.
+			double hq = fq + s2 * q * q;
+			while (k >= 0 && hq - heights[k] <= bounds[k] * 2 * s2 * (q - vertices[k]))
+			{
+				k--;
+			}
+			
+			double bound = Double.NEGATIVE_INFINITY;
+			if (k >= 0)
+			{
+				bound = (hq - heights[k]) / (2 * s2 * (q - vertices[k]));
+			}
+			
+			k++;
+			vertices[k] = q;
+			values[k] = fq;
+			heights[k] = hq;
+			bounds[k] = bound;
+		}
+		
+		// no finite value: the line is left unchanged
+		if (k < 0)
+			return;
+		
+		// evaluate the envelope at each position with a non-zero value
+		int nParabolas = k + 1;
+		k = 0;
+		for (int p = 0; p < length; p++)
+		{
+			if (line[p] == 0)
+				continue;
+			while (k + 1 < nParabolas && bounds[k + 1] < p)
+				k++;
+			double d = p - vertices[k];
+			line[p] = s2 * d * d + values[k];
+		}
+	}
+}
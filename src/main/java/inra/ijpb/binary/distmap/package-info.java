@@ -26,6 +26,10 @@
  * <p>Contains implementations for computation using shorts or float values, 
  * for 3x3 and 5x5 neighborhoods.</p>
  * 
+ * <p>Exact Euclidean distance maps are computed by the DistanceTransformEuclidean
+ * and DistanceTransform3DEuclidean classes, that also manage spatial 
+ * calibration.</p>
+ * 
  * <p>
  * Example of use:
  * <pre><code>
@@ -248,7 +248,9 @@ public class GeodesicDistanceTransform3DFloat extends AlgoStub implements Geodes
 						value = Math.min(value, newVal);
 					}
 					
-					if (value < ref)
+					// compare after conversion to float, to avoid infinite
+					// loops due to rounding of non integer weights
+					if ((float) value < ref)
 					{
 						modif = true;
 						result.setValue(x, y, z, value);
@@ -321,7 +323,9 @@ public class GeodesicDistanceTransform3DFloat extends AlgoStub implements Geodes
 						value = Math.min(value, newVal);
 					}
 					
-					if (value < ref)
+					// compare after conversion to float, to avoid infinite
+					// loops due to rounding of non integer weights
+					if ((float) value < ref)
 					{
 						modif = true;
 						result.setValue(x, y, z, value);
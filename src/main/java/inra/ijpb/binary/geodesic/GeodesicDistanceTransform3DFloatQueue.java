@@ -0,0 +1,227 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.binary.geodesic;
+
+import ij.ImageStack;
+import inra.ijpb.algo.AlgoStub;
+import inra.ijpb.binary.ChamferWeights3D;
+import inra.ijpb.data.FloatPriorityQueue;
+
+/**
+ * Computation of geodesic distance transform for 3D images, using floating
+ * point computation, by propagating distances from the marker with a priority
+ * queue.
+ * 
+ * Contrary to the GeodesicDistanceTransform3DFloat class that iterates
+ * forward and backward scans of the image until stabilization, only the
+ * voxels located on the propagation front are processed. The results are the
+ * same, but computation time does not depend on the tortuosity of the mask.
+ * 
+ * @see GeodesicDistanceTransform3DFloat
+ * @see PropagationMethod
+ * 
+ * @author agent
+ *
+ */
+public class GeodesicDistanceTransform3DFloatQueue extends AlgoStub implements GeodesicDistanceTransform3D
+{
+	private final static int DEFAULT_MASK_LABEL = 255;
+
+	// ==================================================
+	// Class variables
+	
+	float[] weights;
+	
+	/**
+	 * Flag for dividing final distance map by the value first weight. 
+	 * This results in distance map values closer to euclidean, but with non integer values. 
+	 */
+	boolean normalizeMap = true;
+	
+	/** 
+	 * The value assigned to result pixels that do not belong to the mask. 
+	 * Default is Float.MAX_VALUE.
+	 */
+	float backgroundValue = Float.POSITIVE_INFINITY;
+	
+	int maskLabel = DEFAULT_MASK_LABEL;
+
+	
+	// ==================================================
+	// Constructors
+	
+	public GeodesicDistanceTransform3DFloatQueue(float[] weights)
+	{
+		this.weights = weights;
+	}
+
+	public GeodesicDistanceTransform3DFloatQueue(float[] weights, boolean normalizeMap)
+	{
+		this.weights = weights;
+		this.normalizeMap = normalizeMap;
+	}
+
+	public GeodesicDistanceTransform3DFloatQueue(ChamferWeights3D weights, boolean normalizeMap)
+	{
+		this.weights = weights.getFloatWeights();
+		this.normalizeMap = normalizeMap;
+	}
+
+
+	// ==================================================
+	// Methods
+	
+	/* (non-Javadoc)
+	 * @see inra.ijpb.binary.geodesic.GeodesicDistanceTransform3D#geodesicDistanceMap(ij.ImageStack, ij.ImageStack)
+	 */
+	@Override
+	public ImageStack geodesicDistanceMap(ImageStack marker, ImageStack mask)
+	{
+		int sizeX = mask.getWidth();
+		int sizeY = mask.getHeight();
+		int sizeZ = mask.getSize();
+		int planeSize = sizeX * sizeY;
+		if ((long) planeSize * sizeZ > Integer.MAX_VALUE)
+		{
+			throw new IllegalArgumentException("Requires an image with less than 2^31 voxels");
+		}
+		
+		fireStatusChanged(this, "Initialization..."); 
+		
+		// create the 26 neighbor shifts, and their weights
+		int[] dx = new int[26];
+		int[] dy = new int[26];
+		int[] dz = new int[26];
+		double[] dw = new double[26];
+		int nShifts = 0;
+		for (int z = -1; z <= 1; z++)
+		{
+			for (int y = -1; y <= 1; y++)
+			{
+				for (int x = -1; x <= 1; x++)
+				{
+					int order = Math.abs(x) + Math.abs(y) + Math.abs(z);
+					if (order == 0)
+						continue;
+					dx[nShifts] = x;
+					dy[nShifts] = y;
+					dz[nShifts] = z;
+					dw[nShifts] = weights[order - 1];
+					nShifts++;
+				}
+			}
+		}
+		
+		// initialize distances with either 0 (marker) or Inf (background),
+		// and the queue with marker voxels
+		boolean[] inMask = new boolean[planeSize * sizeZ];
+		float[][] distances = new float[sizeZ][planeSize];
+		FloatPriorityQueue queue = new FloatPriorityQueue();
+		for (int z = 0; z < sizeZ; z++)
+		{
+			float[] slice = distances[z];
+			for (int y = 0; y < sizeY; y++)
+			{
+				for (int x = 0; x < sizeX; x++)
+				{
+					int index = y * sizeX + x;
+					inMask[z * planeSize + index] = mask.getVoxel(x, y, z) == maskLabel;
+					if (marker.getVoxel(x, y, z) == 0)
+					{
+						slice[index] = backgroundValue;
+					}
+					else
+					{
+						// markers propagate distances even outside of the mask
+						queue.add(0, z * planeSize + index);
+					}
+				}
+			}
+		}
+		
+		// propagate distances, processing voxels by increasing distance
+		fireStatusChanged(this, "Propagate distances"); 
+		while (!queue.isEmpty())
+		{
+			float dist = queue.firstPriority();
+			int index = queue.removeFirst();
+			int z = index / planeSize;
+			int index2d = index - z * planeSize;
+			
+			// voxels can be added several times to the queue
+			if (dist > distances[z][index2d])
+				continue;
+			
+			int x = index2d % sizeX;
+			int y = index2d / sizeX;
+			
+			// iterate over neighbors
+			for (int i = 0; i < nShifts; i++)
+			{
+				int x2 = x + dx[i];
+				int y2 = y + dy[i];
+				int z2 = z + dz[i];
+				
+				if (x2 < 0 || x2 >= sizeX)
+					continue;
+				if (y2 < 0 || y2 >= sizeY)
+					continue;
+				if (z2 < 0 || z2 >= sizeZ)
+					continue;
+				
+				// update only voxels within the mask
+				int index2 = y2 * sizeX + x2;
+				if (!inMask[z2 * planeSize + index2])
+					continue;
+				
+				float newDist = (float) (dist + dw[i]);
+				if (newDist < distances[z2][index2])
+				{
+					distances[z2][index2] = newDist;
+					queue.add(newDist, z2 * planeSize + index2);
+				}
+			}
+		}
+		
+		// Normalize values by the first weight value
+		if (this.normalizeMap) 
+		{
+			fireStatusChanged(this, "Normalize map"); 
+			for (int z = 0; z < sizeZ; z++)
+			{
+				float[] slice = distances[z];
+				for (int i = 0; i < planeSize; i++)
+				{
+					slice[i] = (float) (slice[i] / (double) weights[0]);
+				}
+			}
+		}
+
+		// create result image
+		ImageStack result = new ImageStack(sizeX, sizeY);
+		for (int z = 0; z < sizeZ; z++)
+		{
+			result.addSlice(null, distances[z]);
+		}
+		return result;
+	}
+}
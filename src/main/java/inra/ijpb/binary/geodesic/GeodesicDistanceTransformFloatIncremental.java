@@ -0,0 +1,450 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.binary.geodesic;
+
+import ij.process.FloatProcessor;
+import ij.process.ImageProcessor;
+import inra.ijpb.algo.AlgoStub;
+import inra.ijpb.binary.ChamferWeights;
+import inra.ijpb.data.FloatPriorityQueue;
+import inra.ijpb.data.IntStack;
+
+/**
+ * Computation of Chamfer geodesic distances using floating point array for
+ * storing result, that keeps the current distance map to update it when the
+ * marker changes.
+ * 
+ * The mask is specified once with the <code>setMask()</code> method. Each call
+ * to the <code>setMarker()</code> method compares the new marker with the
+ * previous one. Distances are propagated with a priority queue only from the
+ * added marker pixels, and only the pixels whose distance improves are
+ * processed. For each removed marker pixel, the region of pixels whose
+ * distance was computed from it is reset, and recomputed from the distances
+ * of the pixels around the region.
+ * 
+ * The results are the same as for the GeodesicDistanceTransformFloatQueue
+ * class. The chamfer mask depends on the number of weights: 3-by-3 chamfer
+ * mask for two weights, and 5-by-5 chamfer mask for three weights or more.
+ * 
+ * <pre><code>
+ * GeodesicDistanceTransformFloatIncremental algo;
+ * algo = new GeodesicDistanceTransformFloatIncremental(weights, true);
+ * algo.setMask(mask);
+ * algo.setMarker(marker);
+ * ImageProcessor map = algo.getDistanceMap();
+ * // update the map after a modification of the marker
+ * algo.setMarker(newMarker);
+ * map = algo.getDistanceMap();
+ * </code></pre>
+ * 
+ * @see GeodesicDistanceTransformFloatQueue
+ * @see GeodesicDistanceTransformShortIncremental
+ * 
+ * @author agent
+ * 
+ */
+public class GeodesicDistanceTransformFloatIncremental extends AlgoStub implements
+		GeodesicDistanceTransform
+{
+	// ==================================================
+	// Class variables
+	
+	public static final float MAX_DIST = Float.POSITIVE_INFINITY;
+	
+	float[] weights = new float[]{5, 7, 11};
+
+	/**
+	 * Flag for dividing final distance map by the value first weight. 
+	 * This results in distance map values closer to Euclidean distance. 
+	 */
+	boolean normalizeMap = true;
+
+	/** The offsets and weights of the chamfer mask */
+	int[] dx;
+	int[] dy;
+	float[] dw;
+	
+	/** The size of the current mask, or zero if no mask was specified */
+	int sizeX = 0;
+	int sizeY = 0;
+	
+	/** The labels of the mask pixels */
+	int[] labels;
+	
+	/** The current (non normalized) distance of each pixel */
+	float[] distances;
+	
+	/**
+	 * The index of the marker pixel each distance was propagated from, or -1
+	 * for pixels not reached by any marker pixel.
+	 */
+	int[] sources;
+	
+	/** The flags of the pixels within the current marker */
+	boolean[] markers;
+	
+	
+	// ==================================================
+	// Constructors 
+	
+	public GeodesicDistanceTransformFloatIncremental(float[] weights)
+	{
+		this(weights, true);
+	}
+
+	public GeodesicDistanceTransformFloatIncremental(ChamferWeights weights, boolean normalizeMap) 
+	{
+		this(weights.getFloatWeights(), normalizeMap);
+	}
+
+	public GeodesicDistanceTransformFloatIncremental(float[] weights, boolean normalizeMap)
+	{
+		if (weights.length < 2)
+		{
+			throw new IllegalArgumentException("Requires weight array with at least 2 elements");
+		}
+		this.weights = weights;
+		this.normalizeMap = normalizeMap;
+		
+		// create the neighborhood, made of pairs of offsets and weights
+		if (weights.length == 2)
+		{
+			dx = new int[] {-1,  0, +1, -1, +1, -1,  0, +1};
+			dy = new int[] {-1, -1, -1,  0,  0, +1, +1, +1};
+			dw = new float[] {
+					weights[1], weights[0], weights[1], 
+					weights[0], weights[0], 
+					weights[1], weights[0], weights[1]};
+		}
+		else
+		{
+			dx = new int[] {-1, +1, -2, -1,  0, +1, +2, -1, +1, -2, -1,  0, +1, +2, -1, +1};
+			dy = new int[] {-2, -2, -1, -1, -1, -1, -1,  0,  0, +1, +1, +1, +1, +1, +2, +2};
+			dw = new float[] {
+					weights[2], weights[2], 
+					weights[2], weights[1], weights[0], weights[1], weights[2], 
+					weights[0], weights[0], 
+					weights[2], weights[1], weights[0], weights[1], weights[2], 
+					weights[2], weights[2]};
+		}
+	}
+
+	
+	// ==================================================
+	// Methods 
+	
+	/**
+	 * Computes the geodesic distance function for each pixel in mask label
+	 * image, using the given binary marker image. Mask and marker should be
+	 * ImageProcessor the same size and containing integer values.
+	 * 
+	 * The current distance map is discarded, and can be updated afterwards by
+	 * calling the <code>setMarker()</code> method.
+	 * 
+	 * The function returns a new FloatProcessor the same size as the input,
+	 * with values greater or equal to zero.
+	 *
+	 * @param marker
+	 *            the binary marker image
+	 * @param mask
+	 *            the label image used as mask
+	 * @return the geodesic distance map from the marker image within each label
+	 *         of the mask
+	 * @see inra.ijpb.binary.geodesic.GeodesicDistanceTransform#geodesicDistanceMap(ij.process.ImageProcessor,
+	 *      ij.process.ImageProcessor)
+	 */
+	@Override
+	public ImageProcessor geodesicDistanceMap(ImageProcessor marker, ImageProcessor mask)
+	{
+		setMask(mask);
+		setMarker(marker);
+		return getDistanceMap();
+	}
+	
+	/**
+	 * Specifies the label image used as mask, and resets the current marker
+	 * and distance map.
+	 * 
+	 * @param mask
+	 *            the label image used as mask
+	 */
+	public void setMask(ImageProcessor mask)
+	{
+		// size of image
+		this.sizeX = mask.getWidth();
+		this.sizeY = mask.getHeight();
+		int nPixels = sizeX * sizeY;
+		
+		fireStatusChanged(this, "Initialization..."); 
+		this.labels = new int[nPixels];
+		this.distances = new float[nPixels];
+		this.sources = new int[nPixels];
+		this.markers = new boolean[nPixels];
+		for (int y = 0, index = 0; y < sizeY; y++) 
+		{
+			for (int x = 0; x < sizeX; x++, index++) 
+			{
+				labels[index] = (int) mask.getf(x, y);
+				distances[index] = MAX_DIST;
+				sources[index] = -1;
+			}
+		}
+	}
+	
+	/**
+	 * Updates the distance map for a new marker image. Only the pixels whose
+	 * distance is modified by the pixels added to or removed from the previous
+	 * marker are processed.
+	 * 
+	 * @param marker
+	 *            the binary marker image, the same size as the mask
+	 */
+	public void setMarker(ImageProcessor marker)
+	{
+		if (labels == null)
+		{
+			throw new IllegalStateException("The mask must be specified before the marker");
+		}
+		if (marker.getWidth() != sizeX || marker.getHeight() != sizeY)
+		{
+			throw new IllegalArgumentException("Marker and mask images must have the same size");
+		}
+		int nPixels = sizeX * sizeY;
+		
+		// update the flags of marker pixels, and identify the removed ones
+		fireStatusChanged(this, "Update marker"); 
+		IntStack added = new IntStack();
+		IntStack removed = new IntStack();
+		for (int index = 0; index < nPixels; index++)
+		{
+			boolean isMarker = (marker.get(index) & 0x00ff) != 0;
+			if (isMarker == markers[index])
+				continue;
+			
+			markers[index] = isMarker;
+			if (isMarker)
+				added.push(index);
+			else
+				removed.push(index);
+		}
+		
+		FloatPriorityQueue queue = new FloatPriorityQueue();
+		if (!removed.isEmpty())
+		{
+			clearRegions(removed, queue);
+		}
+		
+		// initialize the new marker pixels
+		while (!added.isEmpty())
+		{
+			int index = added.pop();
+			distances[index] = 0;
+			sources[index] = index;
+			
+			// only markers within the mask propagate distances
+			if (labels[index] != 0)
+			{
+				queue.add(0, index);
+			}
+		}
+		
+		propagate(queue);
+	}
+	
+	/**
+	 * Resets the distances of the pixels computed from the removed marker
+	 * pixels, and adds to the queue the pixels around the cleared regions,
+	 * from which the distances will be propagated again.
+	 */
+	private void clearRegions(IntStack removed, FloatPriorityQueue queue)
+	{
+		// collect the pixels whose distance was propagated from a removed
+		// marker pixel. As the regions associated to each marker pixel are
+		// connected, they are traversed from the marker pixels.
+		IntStack region = new IntStack();
+		while (!removed.isEmpty())
+		{
+			int index = removed.pop();
+			if (sources[index] == index)
+			{
+				distances[index] = MAX_DIST;
+				sources[index] = -1;
+				region.push(index);
+			}
+		}
+		IntStack cleared = new IntStack();
+		while (!region.isEmpty())
+		{
+			int index = region.pop();
+			cleared.push(index);
+			
+			int x = index % sizeX;
+			int y = index / sizeX;
+			int label = labels[index];
+			for (int i = 0; i < dx.length; i++)
+			{
+				int x2 = x + dx[i];
+				int y2 = y + dy[i];
+				if (x2 < 0 || x2 >= sizeX)
+					continue;
+				if (y2 < 0 || y2 >= sizeY)
+					continue;
+				
+				int index2 = y2 * sizeX + x2;
+				if (labels[index2] != label)
+					continue;
+				
+				// the source of the neighbor was removed from the marker
+				int source = sources[index2];
+				if (source != -1 && !markers[source])
+				{
+					distances[index2] = MAX_DIST;
+					sources[index2] = -1;
+					region.push(index2);
+				}
+			}
+		}
+		
+		// add to the queue the neighbors of cleared pixels that still have
+		// a distance
+		while (!cleared.isEmpty())
+		{
+			int index = cleared.pop();
+			int x = index % sizeX;
+			int y = index / sizeX;
+			int label = labels[index];
+			if (label == 0)
+				continue;
+			
+			for (int i = 0; i < dx.length; i++)
+			{
+				int x2 = x + dx[i];
+				int y2 = y + dy[i];
+				if (x2 < 0 || x2 >= sizeX)
+					continue;
+				if (y2 < 0 || y2 >= sizeY)
+					continue;
+				
+				int index2 = y2 * sizeX + x2;
+				if (labels[index2] != label)
+					continue;
+				
+				if (sources[index2] != -1)
+				{
+					queue.add(distances[index2], index2);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Propagates the distances of the pixels in the queue, processing pixels
+	 * by increasing distance.
+	 */
+	private void propagate(FloatPriorityQueue queue)
+	{
+		fireStatusChanged(this, "Propagate distances"); 
+		while (!queue.isEmpty())
+		{
+			float dist = queue.firstPriority();
+			int index = queue.removeFirst();
+			
+			// pixels can be added several times to the queue
+			if (dist > distances[index])
+				continue;
+			
+			int x = index % sizeX;
+			int y = index / sizeX;
+			int label = labels[index];
+			int source = sources[index];
+			
+			// iterate over neighbors
+			for (int i = 0; i < dx.length; i++)
+			{
+				// compute neighbor coordinates
+				int x2 = x + dx[i];
+				int y2 = y + dy[i];
+				
+				// check bounds
+				if (x2 < 0 || x2 >= sizeX)
+					continue;
+				if (y2 < 0 || y2 >= sizeY)
+					continue;
+				
+				// propagate only within the same label
+				int index2 = y2 * sizeX + x2;
+				if (labels[index2] != label)
+					continue;
+				
+				float newDist = dist + dw[i];
+				if (newDist < distances[index2])
+				{
+					distances[index2] = newDist;
+					sources[index2] = source;
+					queue.add(newDist, index2);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Returns the distance map computed for the current mask and marker.
+	 * 
+	 * @return a new FloatProcessor containing the geodesic distance map
+	 */
+	public ImageProcessor getDistanceMap()
+	{
+		if (distances == null)
+		{
+			throw new IllegalStateException("The mask must be specified before computing the distance map");
+		}
+		int nPixels = sizeX * sizeY;
+		
+		float[] values = new float[nPixels];
+		float maxVal = 0;
+		for (int i = 0; i < nPixels; i++)
+		{
+			float val = distances[i];
+			if (val != MAX_DIST)
+			{
+				// Normalize values by the first weight
+				if (this.normalizeMap)
+				{
+					val = val / this.weights[0];
+				}
+				maxVal = Math.max(maxVal, val);
+			}
+			values[i] = val;
+		}
+		FloatProcessor distMap = new FloatProcessor(sizeX, sizeY, values);
+
+		// update and return resulting Image processor
+		distMap.setMinAndMax(0, maxVal);
+		// Forces the display to non-inverted LUT
+		if (distMap.isInvertedLut())
+		{
+			distMap.invertLut();
+		}
+		
+		return distMap;
+	}
+}
@@ -0,0 +1,249 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.binary.geodesic;
+
+import ij.process.ImageProcessor;
+import ij.process.ShortProcessor;
+import inra.ijpb.algo.AlgoStub;
+import inra.ijpb.binary.ChamferWeights;
+import inra.ijpb.data.HierarchicalQueue;
+
+/**
+ * Computation of Chamfer geodesic distances using short integer array for
+ * storing result, by propagating distances from the marker with a
+ * hierarchical queue indexed by distance values.
+ * 
+ * Contrary to the GeodesicDistanceTransformShort and
+ * GeodesicDistanceTransformShort5x5 classes that iterate forward and backward
+ * scans of the image until stabilization, only the pixels located on the
+ * propagation front are processed. The results are the same, but computation
+ * time does not depend on the tortuosity of the mask.
+ * 
+ * The chamfer mask depends on the number of weights: 3-by-3 chamfer mask
+ * for two weights, and 5-by-5 chamfer mask for three weights or more. The maximum
+ * propagated distance is limited to Short.MAX_VALUE.
+ * 
+ * @see GeodesicDistanceTransformShort
+ * @see GeodesicDistanceTransformShort5x5
+ * @see PropagationMethod
+ * 
+ * @author agent
+ * 
+ */
+public class GeodesicDistanceTransformShortQueue extends AlgoStub implements
+		GeodesicDistanceTransform
+{
+	// ==================================================
+	// Class variables
+	
+	public static final short MAX_DIST = Short.MAX_VALUE;
+	
+	short[] weights = new short[]{5, 7, 11};
+
+	/**
+	 * Flag for dividing final distance map by the value first weight. 
+	 * This results in distance map values closer to Euclidean distance. 
+	 */
+	boolean normalizeMap = true;
+
+	
+	// ==================================================
+	// Constructors 
+	
+	public GeodesicDistanceTransformShortQueue(short[] weights)
+	{
+		this(weights, true);
+	}
+
+	public GeodesicDistanceTransformShortQueue(ChamferWeights weights, boolean normalizeMap) 
+	{
+		this(weights.getShortWeights(), normalizeMap);
+	}
+
+	public GeodesicDistanceTransformShortQueue(short[] weights, boolean normalizeMap)
+	{
+		if (weights.length < 2)
+		{
+			throw new IllegalArgumentException("Requires weight array with at least 2 elements");
+		}
+		this.weights = weights;
+		this.normalizeMap = normalizeMap;
+	}
+
+	
+	// ==================================================
+	// Methods 
+	
+	/**
+	 * Computes the geodesic distance function for each pixel in mask label
+	 * image, using the given binary marker image. Mask and marker should be
+	 * ImageProcessor the same size and containing integer values.
+	 * 
+	 * The function returns a new ShortProcessor the same size as the input,
+	 * with values greater or equal to zero.
+	 *
+	 * @param marker
+	 *            the binary marker image
+	 * @param mask
+	 *            the label image used as mask
+	 * @return the geodesic distance map from the marker image within each label
+	 *         of the mask
+	 * @see inra.ijpb.binary.geodesic.GeodesicDistanceTransform#geodesicDistanceMap(ij.process.ImageProcessor,
+	 *      ij.process.ImageProcessor)
+	 */
+	@Override
+	public ImageProcessor geodesicDistanceMap(ImageProcessor marker, ImageProcessor mask)
+	{
+		// size of image
+		int sizeX = mask.getWidth();
+		int sizeY = mask.getHeight();
+		int nPixels = sizeX * sizeY;
+		
+		// create the neighborhood, made of pairs of offsets and weights
+		int[] dx;
+		int[] dy;
+		int[] dw;
+		if (weights.length == 2)
+		{
+			dx = new int[] {-1,  0, +1, -1, +1, -1,  0, +1};
+			dy = new int[] {-1, -1, -1,  0,  0, +1, +1, +1};
+			dw = new int[] {
+					weights[1], weights[0], weights[1], 
+					weights[0], weights[0], 
+					weights[1], weights[0], weights[1]};
+		}
+		else
+		{
+			dx = new int[] {-1, +1, -2, -1,  0, +1, +2, -1, +1, -2, -1,  0, +1, +2, -1, +1};
+			dy = new int[] {-2, -2, -1, -1, -1, -1, -1,  0,  0, +1, +1, +1, +1, +1, +2, +2};
+			dw = new int[] {
+					weights[2], weights[2], 
+					weights[2], weights[1], weights[0], weights[1], weights[2], 
+					weights[0], weights[0], 
+					weights[2], weights[1], weights[0], weights[1], weights[2], 
+					weights[2], weights[2]};
+		}
+		
+		// initialize labels and distances, and the queue with marker pixels
+		fireStatusChanged(this, "Initialization..."); 
+		int[] labels = new int[nPixels];
+		int[] distances = new int[nPixels];
+		HierarchicalQueue queue = new HierarchicalQueue(MAX_DIST);
+		for (int y = 0, index = 0; y < sizeY; y++) 
+		{
+			for (int x = 0; x < sizeX; x++, index++) 
+			{
+				labels[index] = (int) mask.getf(x, y);
+				if ((marker.get(x, y) & 0x00ff) == 0)
+				{
+					distances[index] = MAX_DIST;
+				}
+				else if (labels[index] != 0)
+				{
+					// only markers within the mask propagate distances
+					queue.add(0, index);
+				}
+			}
+		}
+		
+		// propagate distances, processing pixels by increasing distance
+		fireStatusChanged(this, "Propagate distances"); 
+		while (!queue.isEmpty())
+		{
+			int dist = queue.currentLevel();
+			int index = queue.removeFirst();
+			
+			// pixels can be added several times to the queue
+			if (dist > distances[index])
+				continue;
+			
+			int x = index % sizeX;
+			int y = index / sizeX;
+			int label = labels[index];
+			
+			// iterate over neighbors
+			for (int i = 0; i < dx.length; i++)
+			{
+				// compute neighbor coordinates
+				int x2 = x + dx[i];
+				int y2 = y + dy[i];
+				
+				// check bounds
+				if (x2 < 0 || x2 >= sizeX)
+					continue;
+				if (y2 < 0 || y2 >= sizeY)
+					continue;
+				
+				// propagate only within the same label
+				int index2 = y2 * sizeX + x2;
+				if (labels[index2] != label)
+					continue;
+				
+				// distances larger than MAX_DIST are not propagated
+				int newDist = dist + dw[i];
+				if (newDist < distances[index2])
+				{
+					distances[index2] = newDist;
+					queue.add(newDist, index2);
+				}
+			}
+		}
+		
+		// Normalize values by the first weight
+		if (this.normalizeMap) 
+		{
+			fireStatusChanged(this, "Normalize map"); 
+			for (int i = 0; i < nPixels; i++)
+			{
+				int val = distances[i];
+				if (val != MAX_DIST)
+				{
+					distances[i] = val / this.weights[0];
+				}
+			}
+		}
+		
+		// Create result image, and compute max value within the mask
+		fireStatusChanged(this, "Normalize display"); 
+		ShortProcessor distMap = new ShortProcessor(sizeX, sizeY);
+		float maxVal = 0;
+		for (int i = 0; i < nPixels; i++)
+		{
+			int val = distances[i];
+			distMap.set(i, val);
+			if (val != MAX_DIST)
+			{
+				maxVal = Math.max(maxVal, val);
+			}
+		}
+
+		// update and return resulting Image processor
+		distMap.setMinAndMax(0, maxVal);
+		// Forces the display to non-inverted LUT
+		if (distMap.isInvertedLut())
+		{
+			distMap.invertLut();
+		}
+		
+		return distMap;
+	}
+}
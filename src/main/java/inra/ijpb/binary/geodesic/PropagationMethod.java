@@ -0,0 +1,96 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.binary.geodesic;
+
+/**
+ * The methods that can be used for propagating chamfer distances within
+ * geodesic distance transforms. Both methods give the same results.
+ * 
+ * @see inra.ijpb.binary.BinaryImages#geodesicDistanceMap(ij.process.ImageProcessor,
+ *      ij.process.ImageProcessor, float[], boolean, PropagationMethod)
+ * 
+ * @author agent
+ *
+ */
+public enum PropagationMethod
+{
+	/**
+	 * Alternates forward and backward scans of the whole image until
+	 * distances are stable. Efficient for compact masks, but may require many
+	 * scans for tortuous masks.
+	 */
+	ITERATED_SCANS("Iterated Scans"),
+	/**
+	 * Propagates distances from the markers using a priority queue, so that
+	 * only the front of the propagation is processed, and the distance of each
+	 * pixel is updated at most once per neighbor.
+	 */
+	PRIORITY_QUEUE("Priority Queue");
+	
+	private final String label;
+	
+	private PropagationMethod(String label)
+	{
+		this.label = label;
+	}
+	
+	public String toString()
+	{
+		return this.label;
+	}
+	
+	public static String[] getAllLabels()
+	{
+		int n = PropagationMethod.values().length;
+		String[] result = new String[n];
+		
+		int i = 0;
+		for (PropagationMethod method : PropagationMethod.values())
+			result[i++] = method.label;
+		
+		return result;
+	}
+	
+	/**
+	 * Determines the propagation method from its label.
+	 * 
+	 * @param label
+	 *            the name of a propagation method
+	 * @return the PropagationMethod enum corresponding to the given name
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if label name is not recognized.
+	 */
+	public static PropagationMethod fromLabel(String label)
+	{
+		if (label != null)
+			label = label.toLowerCase();
+		for (PropagationMethod method : PropagationMethod.values())
+		{
+			String cmp = method.label.toLowerCase();
+			if (cmp.equals(label))
+				return method;
+		}
+		throw new IllegalArgumentException(
+				"Unable to parse PropagationMethod with label: " + label);
+	}
+}
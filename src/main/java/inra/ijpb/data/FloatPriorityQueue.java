@@ -0,0 +1,220 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.data;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A priority queue of integer values associated to floating point
+ * priorities, backed by a binary heap stored within primitive arrays.
+ * 
+ * Values are removed in increasing order of their priority. The order of
+ * values with the same priority is not specified. The same value can be added
+ * several times with different priorities.
+ * 
+ * Typically used by propagation algorithms with non integer weights, by using
+ * distances as priority, and linear indices of pixels as values. For integer
+ * priorities within a small range, the HierarchicalQueue class is usually
+ * more efficient.
+ * 
+ * @see HierarchicalQueue
+ * 
+ * @author agent
+ *
+ */
+public class FloatPriorityQueue
+{
+	// ==================================================
+	// Class variables
+	
+	/** The default capacity of a new queue. */
+	private static final int DEFAULT_CAPACITY = 256;
+	
+	/** The priorities of the elements, organized as a binary heap. */
+	private float[] priorities;
+	
+	/** The values of the elements, in the same order as the priorities. */
+	private int[] values;
+	
+	/** The number of elements within the queue. */
+	private int size = 0;
+
+	
+	// ==================================================
+	// Constructors
+	
+	/**
+	 * Creates a new empty queue with the default initial capacity.
+	 */
+	public FloatPriorityQueue()
+	{
+		this(DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * Creates a new empty queue with the specified initial capacity.
+	 * 
+	 * @param initialCapacity
+	 *            the number of elements that can be stored before the buffers
+	 *            need to be extended
+	 */
+	public FloatPriorityQueue(int initialCapacity)
+	{
+		int capacity = Math.max(initialCapacity, 4);
+		this.priorities = new float[capacity];
+		this.values = new int[capacity];
+	}
+	
+
+	// ==================================================
+	// Methods
+	
+	/**
+	 * Adds a value with the specified priority.
+	 * 
+	 * @param priority
+	 *            the priority of the value, lowest priorities being removed
+	 *            first
+	 * @param value
+	 *            the value to add
+	 */
+	public void add(float priority, int value)
+	{
+		if (size == values.length)
+		{
+			grow();
+		}
+		
+		// move up the parents with larger priority
+		int index = size++;
+		while (index > 0)
+		{
+			int parent = (index - 1) >> 1;
+			if (priorities[parent] <= priority)
+			{
+				break;
+			}
+			priorities[index] = priorities[parent];
+			values[index] = values[parent];
+			index = parent;
+		}
+		priorities[index] = priority;
+		values[index] = value;
+	}
+	
+	/**
+	 * Removes the value with the lowest priority, and returns it.
+	 * 
+	 * @return the value with the lowest priority
+	 * @throws NoSuchElementException
+	 *             if the queue is empty
+	 */
+	public int removeFirst()
+	{
+		if (size == 0)
+		{
+			throw new NoSuchElementException("Queue is empty");
+		}
+		int result = values[0];
+		
+		// move down the last element from the root
+		size--;
+		float priority = priorities[size];
+		int value = values[size];
+		int index = 0;
+		int half = size >> 1;
+		while (index < half)
+		{
+			// find the child with the smallest priority
+			int child = 2 * index + 1;
+			int right = child + 1;
+			if (right < size && priorities[right] < priorities[child])
+			{
+				child = right;
+			}
+			if (priority <= priorities[child])
+			{
+				break;
+			}
+			priorities[index] = priorities[child];
+			values[index] = values[child];
+			index = child;
+		}
+		priorities[index] = priority;
+		values[index] = value;
+		
+		return result;
+	}
+	
+	/**
+	 * Returns the lowest priority within the queue.
+	 * 
+	 * @return the priority of the next value to be removed
+	 * @throws NoSuchElementException
+	 *             if the queue is empty
+	 */
+	public float firstPriority()
+	{
+		if (size == 0)
+		{
+			throw new NoSuchElementException("Queue is empty");
+		}
+		return priorities[0];
+	}
+	
+	/**
+	 * @return true if the queue does not contain any value
+	 */
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+	
+	/**
+	 * @return the number of values within the queue
+	 */
+	public int size()
+	{
+		return size;
+	}
+	
+	/**
+	 * Doubles the capacity of the buffers.
+	 */
+	private void grow()
+	{
+		int capacity = values.length;
+		if (capacity == Integer.MAX_VALUE - 8)
+		{
+			throw new IllegalStateException("Queue capacity exceeds maximum array size");
+		}
+		int newCapacity = (int) Math.min((long) capacity * 2, Integer.MAX_VALUE - 8);
+		
+		float[] newPriorities = new float[newCapacity];
+		System.arraycopy(priorities, 0, newPriorities, 0, size);
+		this.priorities = newPriorities;
+		
+		int[] newValues = new int[newCapacity];
+		System.arraycopy(values, 0, newValues, 0, size);
+		this.values = newValues;
+	}
+}
@@ -0,0 +1,174 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.data;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A hierarchical queue of integer values, made of one First-In First-Out
+ * queue for each priority level.
+ * 
+ * Values are removed in increasing order of their level, and in insertion
+ * order for values with the same level. Adding and removing a value is
+ * performed in constant time, the only overhead being the search of the next
+ * non-empty level. Values can be added to a level lower than the current one;
+ * in that case the search for the next value restarts from the new level.
+ * 
+ * Typically used by flooding algorithms on integer images, by using gray
+ * levels as priority, and linear indices of pixels as values.
+ * 
+ * @see IntQueue
+ * 
+ * @author agent
+ *
+ */
+public class HierarchicalQueue
+{
+	// ==================================================
+	// Class variables
+	
+	/** The initial capacity of the queue associated to each level. */
+	private static final int LEVEL_CAPACITY = 16;
+
+	/**
+	 * The queue associated to each level. Queues are allocated only when a
+	 * value is added to the corresponding level.
+	 */
+	private IntQueue[] queues;
+	
+	/** The lowest level that may contain a value. */
+	private int currentLevel;
+	
+	/** The total number of values within the queue. */
+	private int size = 0;
+	
+
+	// ==================================================
+	// Constructors
+	
+	/**
+	 * Creates a new empty hierarchical queue.
+	 * 
+	 * @param nLevels
+	 *            the number of levels of the queue. Levels range from 0 to
+	 *            nLevels-1.
+	 */
+	public HierarchicalQueue(int nLevels)
+	{
+		if (nLevels < 1)
+		{
+			throw new IllegalArgumentException("Number of levels must be positive, not " + nLevels);
+		}
+		this.queues = new IntQueue[nLevels];
+		this.currentLevel = nLevels;
+	}
+	
+
+	// ==================================================
+	// Methods
+	
+	/**
+	 * Adds a value with the specified level.
+	 * 
+	 * @param level
+	 *            the level of the value, between 0 and nLevels-1
+	 * @param value
+	 *            the value to add
+	 */
+	public void add(int level, int value)
+	{
+		IntQueue queue = queues[level];
+		if (queue == null)
+		{
+			queue = new IntQueue(LEVEL_CAPACITY);
+			queues[level] = queue;
+		}
+		queue.add(value);
+		
+		if (level < currentLevel)
+		{
+			currentLevel = level;
+		}
+		size++;
+	}
+	
+	/**
+	 * Removes the first value with the lowest level, and returns it.
+	 * 
+	 * @return the first value of the lowest non-empty level
+	 * @throws NoSuchElementException
+	 *             if the queue is empty
+	 */
+	public int removeFirst()
+	{
+		if (size == 0)
+		{
+			throw new NoSuchElementException("Queue is empty");
+		}
+		size--;
+		return queues[currentLevel()].removeFirst();
+	}
+	
+	/**
+	 * Returns the lowest level containing at least one value, or the number
+	 * of levels if the queue is empty.
+	 * 
+	 * @return the level of the next value to be removed
+	 */
+	public int currentLevel()
+	{
+		while (currentLevel < queues.length)
+		{
+			IntQueue queue = queues[currentLevel];
+			if (queue != null && !queue.isEmpty())
+			{
+				break;
+			}
+			currentLevel++;
+		}
+		return currentLevel;
+	}
+	
+	/**
+	 * @return true if the queue does not contain any value
+	 */
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+	
+	/**
+	 * @return the number of values within the queue
+	 */
+	public int size()
+	{
+		return size;
+	}
+	
+	/**
+	 * @return the number of levels of this queue
+	 */
+	public int levelCount()
+	{
+		return queues.length;
+	}
+}
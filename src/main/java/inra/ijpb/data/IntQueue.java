@@ -0,0 +1,186 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.data;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A First-In First-Out queue of integer values, backed by a growable circular
+ * array.
+ * 
+ * Used by algorithms that need to propagate a front of pixels or voxels (for
+ * example geodesic reconstruction), by storing linear indices instead of
+ * cursor objects. This avoids the allocation of one object per enqueued
+ * position.
+ * 
+ * <pre>
+ * IntQueue queue = new IntQueue();
+ * queue.add(y * sizeX + x);
+ * while (!queue.isEmpty())
+ * {
+ *     int index = queue.removeFirst();
+ *     int x = index % sizeX;
+ *     int y = index / sizeX;
+ *     ...
+ * }
+ * </pre>
+ * 
+ * @author agent
+ *
+ */
+public class IntQueue
+{
+	// ==================================================
+	// Class variables
+	
+	/** The default capacity of a new queue. */
+	private static final int DEFAULT_CAPACITY = 256;
+	
+	/** The array storing the elements, used as circular buffer. */
+	private int[] buffer;
+	
+	/** Index of the first element of the queue within the buffer. */
+	private int head = 0;
+	
+	/** The number of elements within the queue. */
+	private int size = 0;
+
+	
+	// ==================================================
+	// Constructors
+	
+	/**
+	 * Creates a new empty queue with the default initial capacity.
+	 */
+	public IntQueue()
+	{
+		this(DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * Creates a new empty queue with the specified initial capacity.
+	 * 
+	 * @param initialCapacity
+	 *            the number of elements that can be stored before the buffer
+	 *            needs to be extended
+	 */
+	public IntQueue(int initialCapacity)
+	{
+		this.buffer = new int[Math.max(initialCapacity, 4)];
+	}
+	
+
+	// ==================================================
+	// Methods
+	
+	/**
+	 * Adds a value at the end of the queue.
+	 * 
+	 * @param value
+	 *            the value to add
+	 */
+	public void add(int value)
+	{
+		if (size == buffer.length)
+		{
+			grow();
+		}
+		int tail = head + size;
+		if (tail >= buffer.length)
+		{
+			tail -= buffer.length;
+		}
+		buffer[tail] = value;
+		size++;
+	}
+	
+	/**
+	 * Removes the first value of the queue and returns it.
+	 * 
+	 * @return the first value of the queue
+	 * @throws NoSuchElementException
+	 *             if the queue is empty
+	 */
+	public int removeFirst()
+	{
+		if (size == 0)
+		{
+			throw new NoSuchElementException("Queue is empty");
+		}
+		int value = buffer[head++];
+		if (head == buffer.length)
+		{
+			head = 0;
+		}
+		size--;
+		return value;
+	}
+	
+	/**
+	 * @return true if the queue does not contain any value
+	 */
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+	
+	/**
+	 * @return the number of values within the queue
+	 */
+	public int size()
+	{
+		return size;
+	}
+	
+	/**
+	 * Removes all the values from the queue. The capacity of the queue is
+	 * kept.
+	 */
+	public void clear()
+	{
+		this.head = 0;
+		this.size = 0;
+	}
+	
+	/**
+	 * Doubles the capacity of the buffer, and moves the content of the queue
+	 * at the beginning of the new buffer.
+	 */
+	private void grow()
+	{
+		int capacity = buffer.length;
+		if (capacity == Integer.MAX_VALUE - 8)
+		{
+			throw new IllegalStateException("Queue capacity exceeds maximum array size");
+		}
+		int newCapacity = (int) Math.min((long) capacity * 2, Integer.MAX_VALUE - 8);
+		int[] newBuffer = new int[newCapacity];
+		
+		// copy the two parts of the circular buffer
+		int firstPart = Math.min(size, capacity - head);
+		System.arraycopy(buffer, head, newBuffer, 0, firstPart);
+		System.arraycopy(buffer, 0, newBuffer, firstPart, size - firstPart);
+		
+		this.buffer = newBuffer;
+		this.head = 0;
+	}
+}
@@ -0,0 +1,163 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.data;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A Last-In First-Out stack of integer values, backed by a growable array.
+ * 
+ * Used by flood-fill algorithms to store the positions of the scan-lines
+ * that remain to be processed, either as linear indices or as successive
+ * coordinates. This avoids the allocation of one object per pushed position.
+ * 
+ * <pre>
+ * IntStack stack = new IntStack();
+ * stack.push(x);
+ * stack.push(y);
+ * while (!stack.isEmpty())
+ * {
+ *     int y = stack.pop();
+ *     int x = stack.pop();
+ *     ...
+ * }
+ * </pre>
+ * 
+ * @see IntQueue
+ * 
+ * @author agent
+ *
+ */
+public class IntStack
+{
+	// ==================================================
+	// Class variables
+	
+	/** The default capacity of a new stack. */
+	private static final int DEFAULT_CAPACITY = 256;
+	
+	/** The array storing the elements, the top of the stack being at the end. */
+	private int[] buffer;
+	
+	/** The number of elements within the stack. */
+	private int size = 0;
+
+	
+	// ==================================================
+	// Constructors
+	
+	/**
+	 * Creates a new empty stack with the default initial capacity.
+	 */
+	public IntStack()
+	{
+		this(DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * Creates a new empty stack with the specified initial capacity.
+	 * 
+	 * @param initialCapacity
+	 *            the number of elements that can be stored before the buffer
+	 *            needs to be extended
+	 */
+	public IntStack(int initialCapacity)
+	{
+		this.buffer = new int[Math.max(initialCapacity, 4)];
+	}
+	
+
+	// ==================================================
+	// Methods
+	
+	/**
+	 * Adds a value on the top of the stack.
+	 * 
+	 * @param value
+	 *            the value to add
+	 */
+	public void push(int value)
+	{
+		if (size == buffer.length)
+		{
+			grow();
+		}
+		buffer[size++] = value;
+	}
+	
+	/**
+	 * Removes the value on the top of the stack and returns it.
+	 * 
+	 * @return the last value added to the stack
+	 * @throws NoSuchElementException
+	 *             if the stack is empty
+	 */
+	public int pop()
+	{
+		if (size == 0)
+		{
+			throw new NoSuchElementException("Stack is empty");
+		}
+		return buffer[--size];
+	}
+	
+	/**
+	 * @return true if the stack does not contain any value
+	 */
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+	
+	/**
+	 * @return the number of values within the stack
+	 */
+	public int size()
+	{
+		return size;
+	}
+	
+	/**
+	 * Removes all the values from the stack. The capacity of the stack is
+	 * kept.
+	 */
+	public void clear()
+	{
+		this.size = 0;
+	}
+	
+	/**
+	 * Doubles the capacity of the buffer.
+	 */
+	private void grow()
+	{
+		int capacity = buffer.length;
+		if (capacity == Integer.MAX_VALUE - 8)
+		{
+			throw new IllegalStateException("Stack capacity exceeds maximum array size");
+		}
+		int newCapacity = (int) Math.min((long) capacity * 2, Integer.MAX_VALUE - 8);
+		int[] newBuffer = new int[newCapacity];
+		System.arraycopy(buffer, 0, newBuffer, 0, size);
+		this.buffer = newBuffer;
+	}
+}
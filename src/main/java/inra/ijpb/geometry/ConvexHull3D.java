@@ -0,0 +1,572 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.geometry;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+
+/**
+ * The convex hull of a set of points in the 3D space, represented by its
+ * vertices and by triangular faces.
+ *
+ * The hull is computed with the Quickhull algorithm (Barber, Dobkin and
+ * Huhdanpaa, 1996). Points located on a face or an edge of the hull are not
+ * kept as vertices, so that coplanar faces may be split into several
+ * triangles. If all the points are coplanar, the hull is degenerate: it
+ * contains all the input points as vertices, and no face.
+ *
+ * <p>
+ * Example of use:
+ *<pre>{@code
+ *	ConvexHull3D hull = ConvexHull3D.fromPoints(points);
+ *	double volume = hull.volume();
+ *	ArrayList<Point3D> vertices = hull.vertices();
+ *}</pre>
+ *
+ * @see Polygons2D#convexHull(ArrayList)
+ *
+ * @author agent
+ *
+ */
+public class ConvexHull3D
+{
+	// ==================================================
+	// Static factory
+
+	/**
+	 * Computes the convex hull of a set of points.
+	 *
+	 * @param points
+	 *            a set of points in the 3D space
+	 * @return the convex hull of the points
+	 */
+	public static final ConvexHull3D fromPoints(Collection<? extends Point3D> points)
+	{
+		return new Builder(points).build();
+	}
+
+
+	// ==================================================
+	// Class variables
+
+	/**
+	 * The vertices of the hull, in the order of the input points.
+	 */
+	private final ArrayList<Point3D> vertices;
+
+	/**
+	 * The faces of the hull, given by the indices of their three vertices,
+	 * in counter-clockwise order when seen from outside of the hull.
+	 */
+	private final int[][] faces;
+
+
+	// ==================================================
+	// Constructor
+
+	private ConvexHull3D(ArrayList<Point3D> vertices, int[][] faces)
+	{
+		this.vertices = vertices;
+		this.faces = faces;
+	}
+
+
+	// ==================================================
+	// Accessors
+
+	/**
+	 * @return the vertices of the hull
+	 */
+	public ArrayList<Point3D> vertices()
+	{
+		return vertices;
+	}
+
+	/**
+	 * @return the faces of the hull, as triplets of vertex indices oriented
+	 *         counter-clockwise when seen from outside of the hull
+	 */
+	public int[][] faces()
+	{
+		return faces;
+	}
+
+	/**
+	 * @return true if the points used to compute the hull are coplanar
+	 */
+	public boolean isDegenerate()
+	{
+		return faces.length == 0;
+	}
+
+
+	// ==================================================
+	// Measures
+
+	/**
+	 * Computes the volume of the hull, as the sum of the signed volumes of
+	 * the tetrahedra formed by the faces and the first vertex.
+	 *
+	 * @return the volume enclosed by the hull
+	 */
+	public double volume()
+	{
+		if (faces.length == 0)
+			return 0;
+
+		Point3D ref = vertices.get(0);
+		double sum = 0;
+		for (int[] face : faces)
+		{
+			Vector3D v1 = vector(ref, vertices.get(face[0]));
+			Vector3D v2 = vector(ref, vertices.get(face[1]));
+			Vector3D v3 = vector(ref, vertices.get(face[2]));
+			sum += Vector3D.dotProduct(v1, Vector3D.crossProduct(v2, v3));
+		}
+		return sum / 6;
+	}
+
+	/**
+	 * Computes the surface area of the hull, as the sum of the areas of the
+	 * faces.
+	 *
+	 * @return the surface area of the hull
+	 */
+	public double surfaceArea()
+	{
+		double sum = 0;
+		for (int[] face : faces)
+		{
+			Point3D p1 = vertices.get(face[0]);
+			Vector3D v12 = vector(p1, vertices.get(face[1]));
+			Vector3D v13 = vector(p1, vertices.get(face[2]));
+			sum += Vector3D.crossProduct(v12, v13).getNorm();
+		}
+		return sum / 2;
+	}
+
+	private static final Vector3D vector(Point3D p1, Point3D p2)
+	{
+		return new Vector3D(p2.getX() - p1.getX(), p2.getY() - p1.getY(), p2.getZ() - p1.getZ());
+	}
+
+
+	// ==================================================
+	// Inner classes for the Quickhull algorithm
+
+	/**
+	 * A triangular face of the hull being built, with the list of points
+	 * located outside of its supporting plane.
+	 */
+	private static final class Face
+	{
+		final int a, b, c;
+
+		/**
+		 * The outer normal of the face (not normalized), and the signed
+		 * distance of origin, such that distance of point p is n.p - offset.
+		 */
+		final double nx, ny, nz, offset;
+
+		int[] outside = new int[4];
+		int outsideCount = 0;
+
+		boolean deleted = false;
+
+		/**
+		 * The index of the last iteration this face was found visible.
+		 */
+		int visibleStamp = -1;
+
+		Face(int a, int b, int c, double[] xs, double[] ys, double[] zs)
+		{
+			this.a = a;
+			this.b = b;
+			this.c = c;
+
+			double x1 = xs[b] - xs[a], y1 = ys[b] - ys[a], z1 = zs[b] - zs[a];
+			double x2 = xs[c] - xs[a], y2 = ys[c] - ys[a], z2 = zs[c] - zs[a];
+			this.nx = y1 * z2 - z1 * y2;
+			this.ny = z1 * x2 - x1 * z2;
+			this.nz = x1 * y2 - y1 * x2;
+			this.offset = nx * xs[a] + ny * ys[a] + nz * zs[a];
+		}
+
+		double distance(double x, double y, double z)
+		{
+			return nx * x + ny * y + nz * z - offset;
+		}
+
+		void addOutside(int index)
+		{
+			if (outsideCount == outside.length)
+			{
+				int[] newArray = new int[outside.length * 2];
+				System.arraycopy(outside, 0, newArray, 0, outsideCount);
+				outside = newArray;
+			}
+			outside[outsideCount++] = index;
+		}
+	}
+
+	/**
+	 * Computes the hull of a set of points. Faces are oriented
+	 * counter-clockwise, so that each directed edge belongs to a single face,
+	 * and the neighbor face across an edge is the one containing the reverse
+	 * edge.
+	 */
+	private static final class Builder
+	{
+		final ArrayList<Point3D> points;
+		final int nPoints;
+		final double[] xs, ys, zs;
+
+		/**
+		 * The tolerance for deciding whether a point is outside of a face.
+		 */
+		double eps;
+
+		/**
+		 * All the faces created, including the deleted ones.
+		 */
+		final ArrayList<Face> faces = new ArrayList<Face>();
+
+		/**
+		 * The map from each directed edge to the face containing it.
+		 */
+		final HashMap<Long, Face> edgeFaces = new HashMap<Long, Face>();
+
+		Builder(Collection<? extends Point3D> points)
+		{
+			this.points = new ArrayList<Point3D>(points);
+			this.nPoints = this.points.size();
+			this.xs = new double[nPoints];
+			this.ys = new double[nPoints];
+			this.zs = new double[nPoints];
+			for (int i = 0; i < nPoints; i++)
+			{
+				Point3D p = this.points.get(i);
+				xs[i] = p.getX();
+				ys[i] = p.getY();
+				zs[i] = p.getZ();
+			}
+		}
+
+		ConvexHull3D build()
+		{
+			int[] simplex = initialSimplex();
+			if (simplex == null)
+			{
+				return new ConvexHull3D(points, new int[0][]);
+			}
+
+			// create the four faces of the initial tetrahedron, with outward
+			// orientation
+			ArrayList<Face> newFaces = new ArrayList<Face>(4);
+			newFaces.add(createFace(simplex[0], simplex[1], simplex[2], simplex[3]));
+			newFaces.add(createFace(simplex[0], simplex[1], simplex[3], simplex[2]));
+			newFaces.add(createFace(simplex[0], simplex[2], simplex[3], simplex[1]));
+			newFaces.add(createFace(simplex[1], simplex[2], simplex[3], simplex[0]));
+
+			// assign remaining points to the faces they are outside of
+			for (int i = 0; i < nPoints; i++)
+			{
+				if (i == simplex[0] || i == simplex[1] || i == simplex[2] || i == simplex[3])
+					continue;
+				assignPoint(i, newFaces);
+			}
+
+			ArrayDeque<Face> pending = new ArrayDeque<Face>(newFaces);
+			int iter = 0;
+			while (!pending.isEmpty())
+			{
+				Face face = pending.pop();
+				if (face.deleted || face.outsideCount == 0)
+					continue;
+
+				newFaces = addPoint(face, iter++);
+				for (Face newFace : newFaces)
+				{
+					if (newFace.outsideCount > 0)
+						pending.push(newFace);
+				}
+			}
+
+			return createHull();
+		}
+
+		/**
+		 * Finds four points that are not coplanar, or returns null if all
+		 * the points are coplanar.
+		 */
+		int[] initialSimplex()
+		{
+			if (nPoints < 4)
+				return null;
+
+			// find extreme points along each axis
+			int[] extremes = new int[6];
+			for (int i = 1; i < nPoints; i++)
+			{
+				if (xs[i] < xs[extremes[0]]) extremes[0] = i;
+				if (xs[i] > xs[extremes[1]]) extremes[1] = i;
+				if (ys[i] < ys[extremes[2]]) extremes[2] = i;
+				if (ys[i] > ys[extremes[3]]) extremes[3] = i;
+				if (zs[i] < zs[extremes[4]]) extremes[4] = i;
+				if (zs[i] > zs[extremes[5]]) extremes[5] = i;
+			}
+
+			// tolerance relative to the extent of the point set
+			double extent = Math.max(Math.max(xs[extremes[1]] - xs[extremes[0]], ys[extremes[3]] - ys[extremes[2]]), zs[extremes[5]] - zs[extremes[4]]);
+			double scale = 0;
+			for (int i : extremes)
+			{
+				scale = Math.max(scale, Math.max(Math.max(Math.abs(xs[i]), Math.abs(ys[i])), Math.abs(zs[i])));
+			}
+			eps = 1e-12 * extent * extent * (scale + extent);
+			if (extent == 0)
+				return null;
+
+			// the two most distant extreme points
+			int i0 = 0, i1 = 0;
+			double maxDist = -1;
+			for (int k = 0; k < 6; k += 2)
+			{
+				double dist = squaredDistance(extremes[k], extremes[k + 1]);
+				if (dist > maxDist)
+				{
+					maxDist = dist;
+					i0 = extremes[k];
+					i1 = extremes[k + 1];
+				}
+			}
+
+			// the point the most distant from the line
+			double dx = xs[i1] - xs[i0], dy = ys[i1] - ys[i0], dz = zs[i1] - zs[i0];
+			int i2 = -1;
+			maxDist = 0;
+			for (int i = 0; i < nPoints; i++)
+			{
+				double x = xs[i] - xs[i0], y = ys[i] - ys[i0], z = zs[i] - zs[i0];
+				double cx = y * dz - z * dy, cy = z * dx - x * dz, cz = x * dy - y * dx;
+				double dist = cx * cx + cy * cy + cz * cz;
+				if (dist > maxDist)
+				{
+					maxDist = dist;
+					i2 = i;
+				}
+			}
+			if (i2 < 0)
+				return null;
+
+			// the point the most distant from the plane
+			Face plane = new Face(i0, i1, i2, xs, ys, zs);
+			int i3 = -1;
+			maxDist = eps;
+			for (int i = 0; i < nPoints; i++)
+			{
+				double dist = Math.abs(plane.distance(xs[i], ys[i], zs[i]));
+				if (dist > maxDist)
+				{
+					maxDist = dist;
+					i3 = i;
+				}
+			}
+			if (i3 < 0)
+				return null;
+
+			return new int[] {i0, i1, i2, i3};
+		}
+
+		/**
+		 * Creates a face from three vertices, oriented such that the fourth
+		 * point is inside.
+		 */
+		Face createFace(int a, int b, int c, int inner)
+		{
+			Face face = new Face(a, b, c, xs, ys, zs);
+			if (face.distance(xs[inner], ys[inner], zs[inner]) > 0)
+			{
+				face = new Face(a, c, b, xs, ys, zs);
+			}
+			registerFace(face);
+			return face;
+		}
+
+		void registerFace(Face face)
+		{
+			faces.add(face);
+			edgeFaces.put(edgeKey(face.a, face.b), face);
+			edgeFaces.put(edgeKey(face.b, face.c), face);
+			edgeFaces.put(edgeKey(face.c, face.a), face);
+		}
+
+		/**
+		 * Adds the point the most distant from the specified face to the
+		 * hull, and returns the new faces.
+		 */
+		ArrayList<Face> addPoint(Face face, int iter)
+		{
+			// find the outside point the most distant from the face
+			int eye = face.outside[0];
+			double maxDist = Double.NEGATIVE_INFINITY;
+			for (int k = 0; k < face.outsideCount; k++)
+			{
+				int i = face.outside[k];
+				double dist = face.distance(xs[i], ys[i], zs[i]);
+				if (dist > maxDist)
+				{
+					maxDist = dist;
+					eye = i;
+				}
+			}
+			double ex = xs[eye], ey = ys[eye], ez = zs[eye];
+
+			// find the faces visible from the eye point, and the edges of the
+			// horizon, as seen from the visible faces
+			ArrayList<Face> visibleFaces = new ArrayList<Face>();
+			ArrayList<int[]> horizon = new ArrayList<int[]>();
+			face.visibleStamp = iter;
+			visibleFaces.add(face);
+			for (int k = 0; k < visibleFaces.size(); k++)
+			{
+				Face visible = visibleFaces.get(k);
+				int[] vertices = new int[] {visible.a, visible.b, visible.c};
+				for (int e = 0; e < 3; e++)
+				{
+					int u = vertices[e];
+					int v = vertices[(e + 1) % 3];
+					Face neighbor = edgeFaces.get(edgeKey(v, u));
+					if (neighbor.visibleStamp == iter)
+						continue;
+					if (neighbor.distance(ex, ey, ez) > eps)
+					{
+						neighbor.visibleStamp = iter;
+						visibleFaces.add(neighbor);
+					}
+					else
+					{
+						horizon.add(new int[] {u, v});
+					}
+				}
+			}
+
+			// remove visible faces
+			for (Face visible : visibleFaces)
+			{
+				visible.deleted = true;
+				edgeFaces.remove(edgeKey(visible.a, visible.b));
+				edgeFaces.remove(edgeKey(visible.b, visible.c));
+				edgeFaces.remove(edgeKey(visible.c, visible.a));
+			}
+
+			// create the faces joining the horizon to the eye point
+			ArrayList<Face> newFaces = new ArrayList<Face>(horizon.size());
+			for (int[] edge : horizon)
+			{
+				Face newFace = new Face(edge[0], edge[1], eye, xs, ys, zs);
+				registerFace(newFace);
+				newFaces.add(newFace);
+			}
+
+			// assign the outside points of the visible faces to the new faces
+			for (Face visible : visibleFaces)
+			{
+				for (int k = 0; k < visible.outsideCount; k++)
+				{
+					int i = visible.outside[k];
+					if (i != eye)
+						assignPoint(i, newFaces);
+				}
+				visible.outside = null;
+				visible.outsideCount = 0;
+			}
+
+			return newFaces;
+		}
+
+		void assignPoint(int index, ArrayList<Face> candidates)
+		{
+			double x = xs[index], y = ys[index], z = zs[index];
+			for (Face face : candidates)
+			{
+				if (face.distance(x, y, z) > eps)
+				{
+					face.addOutside(index);
+					return;
+				}
+			}
+		}
+
+		/**
+		 * Creates the hull from the remaining faces, keeping only the points
+		 * used as face vertices.
+		 */
+		ConvexHull3D createHull()
+		{
+			int[] vertexIndices = new int[nPoints];
+			for (Face face : faces)
+			{
+				if (!face.deleted)
+				{
+					vertexIndices[face.a] = 1;
+					vertexIndices[face.b] = 1;
+					vertexIndices[face.c] = 1;
+				}
+			}
+
+			ArrayList<Point3D> vertices = new ArrayList<Point3D>();
+			for (int i = 0; i < nPoints; i++)
+			{
+				if (vertexIndices[i] == 1)
+				{
+					vertexIndices[i] = vertices.size();
+					vertices.add(points.get(i));
+				}
+			}
+
+			ArrayList<int[]> hullFaces = new ArrayList<int[]>();
+			for (Face face : faces)
+			{
+				if (!face.deleted)
+				{
+					hullFaces.add(new int[] {vertexIndices[face.a], vertexIndices[face.b], vertexIndices[face.c]});
+				}
+			}
+
+			return new ConvexHull3D(vertices, hullFaces.toArray(new int[hullFaces.size()][]));
+		}
+
+		double squaredDistance(int i, int j)
+		{
+			double dx = xs[j] - xs[i], dy = ys[j] - ys[i], dz = zs[j] - zs[i];
+			return dx * dx + dy * dy + dz * dz;
+		}
+
+		static final long edgeKey(int u, int v)
+		{
+			return ((long) u << 32) | (v & 0xFFFFFFFFL);
+		}
+	}
+}
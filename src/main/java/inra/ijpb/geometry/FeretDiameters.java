@@ -17,7 +17,10 @@ public class FeretDiameters
 	 * Computes Maximum Feret diameter of a set of points.
 	 * 
 	 * Note: it is often a good idea to compute convex hull before computing
-	 * Feret diameter.
+	 * Feret diameter. For convex polygons, the RotatingCalipers class computes
+	 * the diameter in linear time.
+	 * 
+	 * @see RotatingCalipers#maxFeretDiameter()
 	 * 
 	 * @param points
 	 *            a collection of planar points
@@ -57,6 +60,8 @@ public class FeretDiameters
 	 * Note: it is often more efficient to compute the convex hull of the set of
 	 * points before computing minimum Feret diameter.
 	 * 
+	 * @see RotatingCalipers#minFeretDiameter()
+	 * 
 	 * @param points
 	 *            a collection of planar points
 	 * @return the minimum Feret diameter of the point set
@@ -6,6 +6,8 @@ package inra.ijpb.geometry;
 import java.awt.Point;
 import java.awt.geom.Point2D;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 
 /**
  * A set of static methods operating on polygons.
@@ -138,6 +140,83 @@ public class Polygons2D
 		return convHull;
 	}
 
+	/**
+	 * Computes the convex hull of a set of points given by their coordinates,
+	 * and returns the indices of the hull vertices.
+	 * 
+	 * Uses the monotone chain algorithm (Andrew, 1979), with a complexity of
+	 * O(n log n). As for {@link #convexHull(ArrayList)}, the hull vertices are
+	 * oriented counter-clockwise, and start from the left-most vertex with
+	 * smallest y. Aligned vertices are removed.
+	 * 
+	 * @param xs
+	 *            the x-coordinates of the points
+	 * @param ys
+	 *            the y-coordinates of the points
+	 * @param n
+	 *            the number of points
+	 * @return the indices of the convex hull vertices within the coordinate
+	 *         arrays
+	 */
+	public static final int[] convexHullIndices(final double[] xs, final double[] ys, int n)
+	{
+		if (n == 0)
+		{
+			return new int[0];
+		}
+		
+		// sort point indices by increasing y, then by increasing x
+		Integer[] sorted = new Integer[n];
+		for (int i = 0; i < n; i++)
+		{
+			sorted[i] = i;
+		}
+		Arrays.sort(sorted, new Comparator<Integer>()
+		{
+			@Override
+			public int compare(Integer i1, Integer i2)
+			{
+				int res = Double.compare(ys[i1], ys[i2]);
+				return res != 0 ? res : Double.compare(xs[i1], xs[i2]);
+			}
+		});
+		
+		// build the right chain then the left chain, removing vertices that
+		// do not turn counter-clockwise
+		int[] hull = new int[2 * n];
+		int k = 0;
+		for (int i = 0; i < n; i++)
+		{
+			int ip = sorted[i];
+			while (k >= 2 && turn(xs, ys, hull[k - 2], hull[k - 1], ip) <= 0)
+			{
+				k--;
+			}
+			hull[k++] = ip;
+		}
+		for (int i = n - 2, k0 = k + 1; i >= 0; i--)
+		{
+			int ip = sorted[i];
+			while (k >= k0 && turn(xs, ys, hull[k - 2], hull[k - 1], ip) <= 0)
+			{
+				k--;
+			}
+			hull[k++] = ip;
+		}
+		
+		// the last vertex is the same as the first one
+		return Arrays.copyOf(hull, Math.max(k - 1, 1));
+	}
+	
+	/**
+	 * Returns a positive value if the three points turn counter-clockwise,
+	 * negative if they turn clockwise, and zero if they are aligned.
+	 */
+	private static final double turn(double[] xs, double[] ys, int i1, int i2, int i3)
+	{
+		return (xs[i2] - xs[i1]) * (ys[i3] - ys[i1]) - (ys[i2] - ys[i1]) * (xs[i3] - xs[i1]);
+	}
+	
 	/**
 	 * Uses the gift wrap algorithm with integer values to find the convex hull
 	 * of a list of vertices, and returns it as an ordered list of points.
@@ -0,0 +1,506 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.geometry;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+
+/**
+ * Computes the maximum Feret diameter, the minimum Feret diameter and the
+ * oriented bounding boxes of a convex polygon, using the rotating calipers
+ * algorithm (Toussaint, 1983).
+ *
+ * All the measures are computed in a single pass over the edges of the
+ * polygon, by maintaining the indices of the vertices in contact with four
+ * calipers, resulting in a linear complexity with respect to the number of
+ * vertices. Vertex coordinates are stored in primitive arrays.
+ *
+ * <p>
+ * Example of use:
+ *<pre>{@code
+ *	Polygon2D convexHull = Polygons2D.convexHull(points);
+ *	RotatingCalipers calipers = RotatingCalipers.fromPolygon(convexHull);
+ *	PointPair2D maxDiam = calipers.maxFeretDiameter();
+ *	AngleDiameterPair minDiam = calipers.minFeretDiameter();
+ *	OrientedBox2D box = calipers.minimumAreaBox();
+ *}</pre>
+ *
+ * @see FeretDiameters
+ * @see Polygons2D#convexHullIndices(double[], double[], int)
+ *
+ * @author agent
+ *
+ */
+public class RotatingCalipers
+{
+	// ==================================================
+	// Static factories
+
+	/**
+	 * Creates a new rotating calipers computation from the vertices of a
+	 * convex polygon.
+	 *
+	 * @param convexPolygon
+	 *            a convex polygon, for example the convex hull of a set of
+	 *            points
+	 * @return the result of rotating calipers on the polygon
+	 */
+	public static final RotatingCalipers fromPolygon(Polygon2D convexPolygon)
+	{
+		int n = convexPolygon.vertexNumber();
+		double[] xs = new double[n];
+		double[] ys = new double[n];
+		for (int i = 0; i < n; i++)
+		{
+			Point2D vertex = convexPolygon.getVertex(i);
+			xs[i] = vertex.getX();
+			ys[i] = vertex.getY();
+		}
+		return new RotatingCalipers(xs, ys, n);
+	}
+
+	/**
+	 * Creates a new rotating calipers computation from the convex hull of a
+	 * set of points.
+	 *
+	 * @param points
+	 *            a set of points in the plane
+	 * @return the result of rotating calipers on the convex hull of the points
+	 */
+	public static final RotatingCalipers fromPoints(ArrayList<? extends Point2D> points)
+	{
+		int n = points.size();
+		double[] xs = new double[n];
+		double[] ys = new double[n];
+		for (int i = 0; i < n; i++)
+		{
+			Point2D p = points.get(i);
+			xs[i] = p.getX();
+			ys[i] = p.getY();
+		}
+		
+		// keep the coordinates of convex hull vertices
+		int[] hull = Polygons2D.convexHullIndices(xs, ys, n);
+		int nv = hull.length;
+		double[] hx = new double[nv];
+		double[] hy = new double[nv];
+		for (int i = 0; i < nv; i++)
+		{
+			hx[i] = xs[hull[i]];
+			hy[i] = ys[hull[i]];
+		}
+		return new RotatingCalipers(hx, hy, nv);
+	}
+
+
+	// ==================================================
+	// Class variables
+
+	/** The coordinates of the polygon vertices, oriented counter-clockwise. */
+	private final double[] xs;
+	private final double[] ys;
+
+	/** The number of vertices of the polygon */
+	private final int n;
+
+	/** The indices of the vertices of the maximum Feret diameter. */
+	private int maxIndex1 = 0;
+	private int maxIndex2 = 0;
+	
+	/** The squared length of the maximum Feret diameter. */
+	private double maxDist2 = -1;
+
+	/** The minimum Feret diameter, and its direction, in radians. */
+	private double minWidth = 0;
+	private double minWidthAngle = -Math.PI / 2;
+
+	/**
+	 * The calipers supporting the box with minimum width and the box with
+	 * minimum area, given by the index of the edge, of the farthest vertex,
+	 * and of the vertices with minimum and maximum projection along the edge.
+	 * Null for degenerate polygons.
+	 */
+	private int[] minWidthCalipers = null;
+	private int[] minAreaCalipers = null;
+
+
+	// ==================================================
+	// Constructor
+
+	/**
+	 * Computes the rotating calipers measures of a convex polygon, given by
+	 * the coordinates of its vertices. The vertices may be ordered either
+	 * clockwise or counter-clockwise. The input arrays are not modified.
+	 *
+	 * @param xs
+	 *            the x-coordinates of the polygon vertices
+	 * @param ys
+	 *            the y-coordinates of the polygon vertices
+	 * @param n
+	 *            the number of vertices
+	 */
+	public RotatingCalipers(double[] xs, double[] ys, int n)
+	{
+		// copy vertices, removing consecutive duplicates
+		this.xs = new double[n];
+		this.ys = new double[n];
+		int nv = 0;
+		for (int i = 0; i < n; i++)
+		{
+			if (nv > 0 && xs[i] == this.xs[nv - 1] && ys[i] == this.ys[nv - 1])
+				continue;
+			this.xs[nv] = xs[i];
+			this.ys[nv] = ys[i];
+			nv++;
+		}
+		while (nv > 1 && this.xs[nv - 1] == this.xs[0] && this.ys[nv - 1] == this.ys[0])
+		{
+			nv--;
+		}
+		this.n = nv;
+
+		if (nv == 0)
+		{
+			throw new IllegalArgumentException("Requires at least one vertex");
+		}
+
+		// ensure counter-clockwise orientation
+		double area2 = 0;
+		for (int i = 0; i < nv; i++)
+		{
+			int i2 = (i + 1) % nv;
+			area2 += (this.xs[i] - this.xs[0]) * (this.ys[i2] - this.ys[0]) - (this.xs[i2] - this.xs[0]) * (this.ys[i] - this.ys[0]);
+		}
+		if (area2 < 0)
+		{
+			reverseVertices();
+		}
+
+		if (nv < 3 || area2 == 0)
+		{
+			computeDegenerate();
+		}
+		else
+		{
+			computeCalipers();
+		}
+	}
+
+	private void reverseVertices()
+	{
+		for (int i = 0, j = n - 1; i < j; i++, j--)
+		{
+			double tmp = xs[i];
+			xs[i] = xs[j];
+			xs[j] = tmp;
+			tmp = ys[i];
+			ys[i] = ys[j];
+			ys[j] = tmp;
+		}
+	}
+
+	/**
+	 * Processes the case of collinear vertices: the polygon is a line
+	 * segment between the two most distant vertices, and its width is zero.
+	 */
+	private void computeDegenerate()
+	{
+		for (int i = 0; i < n; i++)
+		{
+			for (int j = i; j < n; j++)
+			{
+				updateMaxDiameter(i, j);
+			}
+		}
+
+		double dx = xs[maxIndex2] - xs[maxIndex1];
+		double dy = ys[maxIndex2] - ys[maxIndex1];
+		this.minWidth = 0;
+		this.minWidthAngle = Math.atan2(dy, dx) - Math.PI / 2;
+	}
+
+	/**
+	 * Rotates the calipers around the polygon. For each edge, the vertex
+	 * farthest from the edge, and the vertices with extreme projections
+	 * along the edge are updated by moving forward along the polygon.
+	 */
+	private void computeCalipers()
+	{
+		// initialize the calipers for the first edge
+		double ex = xs[1] - xs[0];
+		double ey = ys[1] - ys[0];
+		int iFar = 0, iMax = 0, iMin = 0;
+		for (int i = 1; i < n; i++)
+		{
+			if (cross(ex, ey, 0, i) > cross(ex, ey, 0, iFar))
+				iFar = i;
+			if (dot(ex, ey, 0, i) > dot(ex, ey, 0, iMax))
+				iMax = i;
+			if (dot(ex, ey, 0, i) < dot(ex, ey, 0, iMin))
+				iMin = i;
+		}
+
+		double widthMin = Double.POSITIVE_INFINITY;
+		double areaMin = Double.POSITIVE_INFINITY;
+
+		for (int i = 0; i < n; i++)
+		{
+			int i2 = next(i);
+			ex = xs[i2] - xs[i];
+			ey = ys[i2] - ys[i];
+
+			// advance the caliper opposite to the edge, checking all the
+			// vertices antipodal to the first edge vertex
+			updateMaxDiameter(i, iFar);
+			for (int k = 0; k < n && cross(ex, ey, i, next(iFar)) > cross(ex, ey, i, iFar); k++)
+			{
+				iFar = next(iFar);
+				updateMaxDiameter(i, iFar);
+			}
+
+			// the last vertex of the edge is antipodal to the far vertex, and
+			// to the next one in case of parallel edges
+			updateMaxDiameter(i2, iFar);
+			updateMaxDiameter(i2, next(iFar));
+
+			// advance the calipers parallel to the edge normal
+			for (int k = 0; k < n && dot(ex, ey, i, next(iMax)) > dot(ex, ey, i, iMax); k++)
+			{
+				iMax = next(iMax);
+			}
+			for (int k = 0; k < n && dot(ex, ey, i, next(iMin)) < dot(ex, ey, i, iMin); k++)
+			{
+				iMin = next(iMin);
+			}
+
+			// dimensions of the box supported by the current edge
+			double edgeLength = Math.hypot(ex, ey);
+			double height = cross(ex, ey, i, iFar) / edgeLength;
+			double extent = (dot(ex, ey, i, iMax) - dot(ex, ey, i, iMin)) / edgeLength;
+
+			// update minimum Feret diameter
+			if (height < widthMin)
+			{
+				widthMin = height;
+				this.minWidth = height;
+				this.minWidthAngle = Math.atan2(ey, ex) - Math.PI / 2;
+				this.minWidthCalipers = new int[] {i, iFar, iMin, iMax};
+			}
+
+			// update minimum area box
+			double area = extent * height;
+			if (area < areaMin)
+			{
+				areaMin = area;
+				this.minAreaCalipers = new int[] {i, iFar, iMin, iMax};
+			}
+		}
+	}
+
+	/**
+	 * Updates the maximum Feret diameter with a pair of antipodal vertices.
+	 * The vertices of the diameter are sorted by increasing y, then by
+	 * increasing x. Among pairs with the same distance, the pair whose first
+	 * vertex comes first in this order is kept, then the pair whose second
+	 * vertex comes first, as when all the pairs of points sorted by rows are
+	 * compared.
+	 */
+	private void updateMaxDiameter(int i, int j)
+	{
+		if (precedes(j, i))
+		{
+			int tmp = i;
+			i = j;
+			j = tmp;
+		}
+		
+		double dist2 = squaredDistance(i, j);
+		if (dist2 < maxDist2)
+			return;
+		if (dist2 == maxDist2)
+		{
+			if (i == maxIndex1 ? !precedes(j, maxIndex2) : !precedes(i, maxIndex1))
+				return;
+		}
+		maxDist2 = dist2;
+		maxIndex1 = i;
+		maxIndex2 = j;
+	}
+	
+	/**
+	 * Checks if vertex i comes before vertex j, by comparing the y-coordinates
+	 * then the x-coordinates.
+	 */
+	private boolean precedes(int i, int j)
+	{
+		return ys[i] < ys[j] || (ys[i] == ys[j] && xs[i] < xs[j]);
+	}
+
+
+	// ==================================================
+	// Accessors
+
+	/**
+	 * Returns the pair of polygon vertices with the largest distance. The
+	 * first vertex has the smallest y-coordinate, or the smallest
+	 * x-coordinate if both vertices have the same y-coordinate, so that the
+	 * angle of the diameter is between 0 and PI.
+	 * 
+	 * @return the pair of polygon vertices with the largest distance
+	 */
+	public PointPair2D maxFeretDiameter()
+	{
+		Point2D p1 = new Point2D.Double(xs[maxIndex1], ys[maxIndex1]);
+		Point2D p2 = new Point2D.Double(xs[maxIndex2], ys[maxIndex2]);
+		return new PointPair2D(p1, p2);
+	}
+
+	/**
+	 * Returns the minimum Feret diameter, and the direction of the
+	 * measurement. The angle is given in radians, and corresponds to the
+	 * normal of the polygon edge that supports the smallest width, using the
+	 * same convention as
+	 * {@link FeretDiameters#minFeretDiameter(ArrayList)}.
+	 *
+	 * @return the minimum Feret diameter, with its angle
+	 */
+	public AngleDiameterPair minFeretDiameter()
+	{
+		return new AngleDiameterPair(minWidthAngle, minWidth);
+	}
+
+	/**
+	 * Returns the oriented box with the smallest area that contains the
+	 * polygon. One of the sides of the box is supported by a polygon edge.
+	 * The length of the box is greater than or equal to its width, and its
+	 * orientation is given in degrees, between 0 and 180.
+	 *
+	 * @return the minimum-area oriented box
+	 */
+	public OrientedBox2D minimumAreaBox()
+	{
+		if (minAreaCalipers == null)
+			return degenerateBox();
+		
+		OrientedBox2D box = createBox(minAreaCalipers);
+		if (box.length() >= box.width())
+			return box;
+		return new OrientedBox2D(box.center(), box.width(), box.length(), normalizeAngle(box.orientation() + 90));
+	}
+
+	/**
+	 * Returns the oriented box that contains the polygon and whose width is
+	 * the minimum Feret diameter. The orientation of the box is the direction
+	 * of the polygon edge that supports the minimum Feret diameter, in
+	 * degrees between 0 and 180.
+	 *
+	 * @return the oriented box aligned with the minimum Feret diameter
+	 */
+	public OrientedBox2D minimumWidthBox()
+	{
+		if (minWidthCalipers == null)
+			return degenerateBox();
+
+		return createBox(minWidthCalipers);
+	}
+
+	/**
+	 * Creates the box with a side supported by an edge, from the indices of
+	 * the vertices in contact with the calipers.
+	 */
+	private OrientedBox2D createBox(int[] calipers)
+	{
+		int i = calipers[0];
+		int i2 = next(i);
+		double ex = xs[i2] - xs[i];
+		double ey = ys[i2] - ys[i];
+		double edgeLength = Math.hypot(ex, ey);
+
+		double height = cross(ex, ey, i, calipers[1]) / edgeLength;
+		double posMin = dot(ex, ey, i, calipers[2]) / edgeLength;
+		double posMax = dot(ex, ey, i, calipers[3]) / edgeLength;
+
+		// unit vectors along the edge, and towards polygon interior
+		double ux = ex / edgeLength;
+		double uy = ey / edgeLength;
+		double pos = (posMax + posMin) / 2;
+		double xc = xs[i] + ux * pos - uy * height / 2;
+		double yc = ys[i] + uy * pos + ux * height / 2;
+
+		double orientation = normalizeAngle(Math.toDegrees(Math.atan2(ey, ex)));
+		return new OrientedBox2D(xc, yc, posMax - posMin, height, orientation);
+	}
+
+	/**
+	 * Creates the box of a degenerate polygon, corresponding to the line
+	 * segment of maximum Feret diameter.
+	 */
+	private OrientedBox2D degenerateBox()
+	{
+		double xc = (xs[maxIndex1] + xs[maxIndex2]) / 2;
+		double yc = (ys[maxIndex1] + ys[maxIndex2]) / 2;
+		double dx = xs[maxIndex2] - xs[maxIndex1];
+		double dy = ys[maxIndex2] - ys[maxIndex1];
+		double orientation = normalizeAngle(Math.toDegrees(Math.atan2(dy, dx)));
+		return new OrientedBox2D(xc, yc, Math.hypot(dx, dy), 0, orientation);
+	}
+
+
+	// ==================================================
+	// Utility methods
+
+	private int next(int i)
+	{
+		return i + 1 == n ? 0 : i + 1;
+	}
+
+	/**
+	 * Computes the cross product of the edge vector with the vector from
+	 * vertex i to vertex j.
+	 */
+	private double cross(double ex, double ey, int i, int j)
+	{
+		return ex * (ys[j] - ys[i]) - ey * (xs[j] - xs[i]);
+	}
+
+	/**
+	 * Computes the dot product of the edge vector with the vector from
+	 * vertex i to vertex j.
+	 */
+	private double dot(double ex, double ey, int i, int j)
+	{
+		return ex * (xs[j] - xs[i]) + ey * (ys[j] - ys[i]);
+	}
+
+	private double squaredDistance(int i, int j)
+	{
+		double dx = xs[j] - xs[i];
+		double dy = ys[j] - ys[i];
+		return dx * dx + dy * dy;
+	}
+
+	private static final double normalizeAngle(double angle)
+	{
+		angle = angle % 180;
+		return angle < 0 ? angle + 180 : angle;
+	}
+}
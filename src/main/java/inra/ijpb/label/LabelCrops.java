@@ -0,0 +1,359 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.label;
+
+import ij.ImageStack;
+import ij.process.ImageProcessor;
+
+/**
+ * Binary masks of a set of regions within a label image, each one cropped
+ * to the bounding box of the region, and eventually padded with a border.
+ * 
+ * All the masks are computed with two passes over the label image: the first
+ * one computes the bounding box of each region, and the second one fills the
+ * masks. This is equivalent to calling
+ * {@link LabelImages#cropLabel(ImageStack, int, int)} for each label, without
+ * scanning the whole image for each label.
+ * 
+ * <pre>
+ * {@code
+ * int[] labels = LabelImages.findAllLabels(labelImage);
+ * LabelCrops crops = LabelCrops.compute(labelImage, labels, 1);
+ * for (int i = 0; i < crops.size(); i++)
+ * {
+ *     ImageProcessor mask = crops.mask(i);
+ *     // position of the mask origin within the label image
+ *     int x0 = crops.originX(i);
+ *     int y0 = crops.originY(i);
+ *     ...
+ * }
+ * }
+ * </pre>
+ * 
+ * @see LabelImages#cropLabel(ImageProcessor, int, int)
+ * @see LabelImages#cropLabels(ImageProcessor, int[], int)
+ * 
+ * @author agent
+ *
+ */
+public class LabelCrops
+{
+	// ==================================================
+	// Static factories
+
+	/**
+	 * Computes the cropped binary mask of each region within a 2D label
+	 * image.
+	 * 
+	 * @param image
+	 *            a label image
+	 * @param labels
+	 *            the labels of the regions to crop
+	 * @param border
+	 *            the number of pixels to add to each side of the regions
+	 * @return the cropped masks of the regions
+	 */
+	public static final LabelCrops compute(ImageProcessor image, int[] labels, int border)
+	{
+		return compute(image, labels, border, false);
+	}
+
+	/**
+	 * Computes the cropped binary mask of each region within a 2D label
+	 * image, eventually restricting the masks to the bounds of the image.
+	 * 
+	 * When the masks are restricted to the image bounds, the elements in the
+	 * border of each mask all correspond to elements of the label image. This
+	 * ensures that algorithms processing each mask give the same results as
+	 * on the whole label image, for example distance transforms.
+	 * 
+	 * @param image
+	 *            a label image
+	 * @param labels
+	 *            the labels of the regions to crop
+	 * @param border
+	 *            the number of pixels to add to each side of the regions
+	 * @param clip
+	 *            if true, the masks are restricted to the bounds of the image
+	 * @return the cropped masks of the regions
+	 */
+	public static final LabelCrops compute(ImageProcessor image, int[] labels, int border, boolean clip)
+	{
+		ImageStack stack = new ImageStack(image.getWidth(), image.getHeight());
+		stack.addSlice(image);
+		return new LabelCrops(stack, labels, border, 0, clip);
+	}
+
+	/**
+	 * Computes the cropped binary mask of each region within a 3D label
+	 * image.
+	 * 
+	 * @param image
+	 *            a 3D label image
+	 * @param labels
+	 *            the labels of the regions to crop
+	 * @param border
+	 *            the number of voxels to add to each side of the regions
+	 * @return the cropped masks of the regions
+	 */
+	public static final LabelCrops compute(ImageStack image, int[] labels, int border)
+	{
+		return compute(image, labels, border, false);
+	}
+
+	/**
+	 * Computes the cropped binary mask of each region within a 3D label
+	 * image, eventually restricting the masks to the bounds of the image.
+	 * 
+	 * @param image
+	 *            a 3D label image
+	 * @param labels
+	 *            the labels of the regions to crop
+	 * @param border
+	 *            the number of voxels to add to each side of the regions
+	 * @param clip
+	 *            if true, the masks are restricted to the bounds of the image
+	 * @return the cropped masks of the regions
+	 * @see #compute(ImageProcessor, int[], int, boolean)
+	 */
+	public static final LabelCrops compute(ImageStack image, int[] labels, int border, boolean clip)
+	{
+		return new LabelCrops(image, labels, border, border, clip);
+	}
+
+
+	// ==================================================
+	// Class variables
+
+	/** The labels of the regions. */
+	private final int[] labels;
+
+	/** The position of the origin of each mask within the label image. */
+	private final int[] originsX;
+	private final int[] originsY;
+	private final int[] originsZ;
+
+	/** The binary mask of each region, or null if the region is empty. */
+	private final ImageStack[] masks;
+
+
+	// ==================================================
+	// Constructor
+
+	private LabelCrops(ImageStack image, int[] labels, int border, int borderZ, boolean clip)
+	{
+		int sizeX = image.getWidth();
+		int sizeY = image.getHeight();
+		int sizeZ = image.getSize();
+
+		int nLabels = labels.length;
+		this.labels = labels.clone();
+		LabelIndex index = LabelIndex.fromLabels(labels);
+
+		// Initialize label bounds
+		int[] xmin = new int[nLabels];
+		int[] xmax = new int[nLabels];
+		int[] ymin = new int[nLabels];
+		int[] ymax = new int[nLabels];
+		int[] zmin = new int[nLabels];
+		int[] zmax = new int[nLabels];
+		for (int i = 0; i < nLabels; i++)
+		{
+			xmin[i] = Integer.MAX_VALUE;
+			xmax[i] = Integer.MIN_VALUE;
+			ymin[i] = Integer.MAX_VALUE;
+			ymax[i] = Integer.MIN_VALUE;
+			zmin[i] = Integer.MAX_VALUE;
+			zmax[i] = Integer.MIN_VALUE;
+		}
+
+		// first pass: update bounds by iterating on voxels
+		for (int z = 0; z < sizeZ; z++)
+		{
+			ImageProcessor slice = image.getProcessor(z + 1);
+			for (int y = 0; y < sizeY; y++)
+			{
+				for (int x = 0; x < sizeX; x++)
+				{
+					int label = (int) slice.getf(x, y);
+					if (label == 0)
+						continue;
+					int i = index.indexOf(label);
+					if (i < 0)
+						continue;
+
+					xmin[i] = Math.min(xmin[i], x);
+					xmax[i] = Math.max(xmax[i], x);
+					ymin[i] = Math.min(ymin[i], y);
+					ymax[i] = Math.max(ymax[i], y);
+					zmin[i] = Math.min(zmin[i], z);
+					zmax[i] = Math.max(zmax[i], z);
+				}
+			}
+		}
+
+		// allocate memory for masks, taking into account border
+		this.originsX = new int[nLabels];
+		this.originsY = new int[nLabels];
+		this.originsZ = new int[nLabels];
+		this.masks = new ImageStack[nLabels];
+		for (int i = 0; i < nLabels; i++)
+		{
+			if (xmin[i] > xmax[i])
+				continue;
+
+			int x0 = xmin[i] - border;
+			int y0 = ymin[i] - border;
+			int z0 = zmin[i] - borderZ;
+			int x1 = xmax[i] + border;
+			int y1 = ymax[i] + border;
+			int z1 = zmax[i] + borderZ;
+			if (clip)
+			{
+				x0 = Math.max(x0, 0);
+				y0 = Math.max(y0, 0);
+				z0 = Math.max(z0, 0);
+				x1 = Math.min(x1, sizeX - 1);
+				y1 = Math.min(y1, sizeY - 1);
+				z1 = Math.min(z1, sizeZ - 1);
+			}
+
+			this.originsX[i] = x0;
+			this.originsY[i] = y0;
+			this.originsZ[i] = z0;
+			this.masks[i] = ImageStack.create(x1 - x0 + 1, y1 - y0 + 1, z1 - z0 + 1, 8);
+		}
+
+		// second pass: fill masks with binary labels
+		for (int z = 0; z < sizeZ; z++)
+		{
+			ImageProcessor slice = image.getProcessor(z + 1);
+			for (int y = 0; y < sizeY; y++)
+			{
+				for (int x = 0; x < sizeX; x++)
+				{
+					int label = (int) slice.getf(x, y);
+					if (label == 0)
+						continue;
+					int i = index.indexOf(label);
+					if (i < 0)
+						continue;
+
+					ImageStack mask = this.masks[i];
+					byte[] pixels = (byte[]) mask.getPixels(z - this.originsZ[i] + 1);
+					pixels[(y - this.originsY[i]) * mask.getWidth() + x - this.originsX[i]] = (byte) 255;
+				}
+			}
+		}
+	}
+
+
+	// ==================================================
+	// Methods
+
+	/**
+	 * @return the number of regions
+	 */
+	public int size()
+	{
+		return this.labels.length;
+	}
+
+	/**
+	 * @return the labels of the regions
+	 */
+	public int[] labels()
+	{
+		return this.labels.clone();
+	}
+
+	/**
+	 * @param index
+	 *            the index of the region
+	 * @return the label of the region
+	 */
+	public int label(int index)
+	{
+		return this.labels[index];
+	}
+
+	/**
+	 * @param index
+	 *            the index of the region
+	 * @return the x-coordinate of the first pixel of the mask within the
+	 *         label image (can be negative when a border is added)
+	 */
+	public int originX(int index)
+	{
+		return this.originsX[index];
+	}
+
+	/**
+	 * @param index
+	 *            the index of the region
+	 * @return the y-coordinate of the first pixel of the mask within the
+	 *         label image (can be negative when a border is added)
+	 */
+	public int originY(int index)
+	{
+		return this.originsY[index];
+	}
+
+	/**
+	 * @param index
+	 *            the index of the region
+	 * @return the z-coordinate of the first slice of the mask within the
+	 *         label image (can be negative when a border is added)
+	 */
+	public int originZ(int index)
+	{
+		return this.originsZ[index];
+	}
+
+	/**
+	 * Returns the binary mask of a region within a 2D label image. For
+	 * 3D label images, only the first slice is returned.
+	 * 
+	 * @param index
+	 *            the index of the region
+	 * @return a binary image containing only the selected region, or null if
+	 *         the region does not exist within the label image
+	 */
+	public ImageProcessor mask(int index)
+	{
+		ImageStack mask = this.masks[index];
+		return mask != null ? mask.getProcessor(1) : null;
+	}
+
+	/**
+	 * Returns the binary mask of a region within a 3D label image.
+	 * 
+	 * @param index
+	 *            the index of the region
+	 * @return a binary image containing only the selected region, or null if
+	 *         the region does not exist within the label image
+	 */
+	public ImageStack maskStack(int index)
+	{
+		return this.masks[index];
+	}
+}
@@ -474,6 +474,60 @@ public class LabelImages
 
 	}
 	
+	/**
+	 * Returns the binary images of several particles or regions, each one
+	 * automatically cropped to the region and eventually padded with some
+	 * borders. The label image is scanned only twice, whatever the number of
+	 * labels.
+	 * 
+	 * @param image
+	 *            an image containing label of particles
+	 * @param labels
+	 *            the labels of the particles to select
+	 * @param border
+	 *            the number of pixels to add to each side of the particles
+	 * @return a binary image for each label, or null for labels that are not
+	 *         within the image
+	 * @see LabelCrops
+	 */
+	public static final ImageProcessor[] cropLabels(ImageProcessor image, int[] labels, int border) 
+	{
+		LabelCrops crops = LabelCrops.compute(image, labels, border);
+		ImageProcessor[] result = new ImageProcessor[labels.length];
+		for (int i = 0; i < labels.length; i++)
+		{
+			result[i] = crops.mask(i);
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns the binary images of several particles or regions, each one
+	 * automatically cropped to the region and eventually padded with some
+	 * borders. The label image is scanned only twice, whatever the number of
+	 * labels.
+	 * 
+	 * @param image
+	 *            a 3D image containing label of particles
+	 * @param labels
+	 *            the labels of the particles to select
+	 * @param border
+	 *            the number of voxels to add to each side of the particles
+	 * @return a binary image for each label, or null for labels that are not
+	 *         within the image
+	 * @see LabelCrops
+	 */
+	public static final ImageStack[] cropLabels(ImageStack image, int[] labels, int border) 
+	{
+		LabelCrops crops = LabelCrops.compute(image, labels, border);
+		ImageStack[] result = new ImageStack[labels.length];
+		for (int i = 0; i < labels.length; i++)
+		{
+			result[i] = crops.maskStack(i);
+		}
+		return result;
+	}
+	
 	/**
 	 * Applies size opening on a label image: creates a new label image that
 	 * contains only particles with at least the specified number of pixels or
@@ -1119,7 +1173,7 @@ public class LabelImages
 	    int height 	= image.getHeight();
 	
         // create associative array to identify the index of each label
-	    HashMap<Integer, Integer> labelIndices = mapLabelIndices(labels);
+	    LabelIndex labelIndices = LabelIndex.fromLabels(labels);
 
         // initialize result
 		int nLabels = labels.length;
@@ -1133,8 +1187,9 @@ public class LabelImages
 	        	int label = (int) image.getf(x, y);
 	        	if (label == 0)
 					continue;
-				int labelIndex = labelIndices.get(label);
-				counts[labelIndex]++;
+				int labelIndex = labelIndices.indexOf(label);
+				if (labelIndex >= 0)
+					counts[labelIndex]++;
 	        }
 	    }	
 	    
@@ -1155,7 +1210,7 @@ public class LabelImages
 	public final static int[] voxelCount(ImageStack image, int[] labels) 
 	{
         // create associative array to know index of each label
-		HashMap<Integer, Integer> labelIndices = mapLabelIndices(labels);
+		LabelIndex labelIndices = LabelIndex.fromLabels(labels);
 
         // initialize result
 		int nLabels = labels.length;
@@ -1170,16 +1225,18 @@ public class LabelImages
 		for (int z = 0; z < sizeZ; z++) 
         {
         	IJ.showProgress(z, sizeZ);
+        	ImageProcessor slice = image.getProcessor(z + 1);
         	for (int y = 0; y < sizeY; y++)
         	{
         		for (int x = 0; x < sizeX; x++)
         		{
-        			int label = (int) image.getVoxel(x, y, z);
+        			int label = (int) slice.getf(x, y);
 					// do not consider background
 					if (label == 0)
 						continue;
-					int labelIndex = labelIndices.get(label);
-					counts[labelIndex]++;
+					int labelIndex = labelIndices.indexOf(label);
+					if (labelIndex >= 0)
+						counts[labelIndex]++;
         		}
         	}
         }
@@ -1230,35 +1287,7 @@ public class LabelImages
      */
     public final static int[] findAllLabels(ImageStack image) 
     {
-        int sizeX = image.getWidth();
-        int sizeY = image.getHeight();
-        int sizeZ = image.getSize();
-        
-        TreeSet<Integer> labels = new TreeSet<Integer> ();
-        
-        // iterate on image pixels
-        for (int z = 0; z < sizeZ; z++) 
-        {
-        	for (int y = 0; y < sizeY; y++)  
-        	{
-        		for (int x = 0; x < sizeX; x++)
-        		{
-        			labels.add((int) image.getVoxel(x, y, z));
-        		}
-        	}
-        }
-        
-        // remove 0 if it exists
-        if (labels.contains(0))
-            labels.remove(0);
-        
-        // convert to array of integers
-        int[] array = new int[labels.size()];
-        Iterator<Integer> iterator = labels.iterator();
-        for (int i = 0; i < labels.size(); i++) 
-            array[i] = iterator.next();
-        
-        return array;
+        return LabelIndex.fromImage(image).labels();
     }
 
     /**
@@ -1271,42 +1300,7 @@ public class LabelImages
      */
     public final static int[] findAllLabels(ImageProcessor image)
     {
-        int sizeX = image.getWidth();
-        int sizeY = image.getHeight();
-        
-        TreeSet<Integer> labels = new TreeSet<Integer> ();
-        
-        // iterate on image pixels
-        if (image instanceof FloatProcessor) 
-        {
-        	// For float processor, use explicit case to int from float value  
-        	for (int y = 0; y < sizeY; y++) 
-        	{
-        		for (int x = 0; x < sizeX; x++) 
-        			labels.add((int) image.getf(x, y));
-        	}
-        } 
-        else
-        {
-        	// for integer-based images, simply use integer result
-        	for (int y = 0; y < sizeY; y++) 
-        	{
-        		for (int x = 0; x < sizeX; x++) 
-        			labels.add(image.get(x, y));
-        	}
-        }
-        
-        // remove 0 if it exists
-        if (labels.contains(0))
-            labels.remove(0);
-        
-        // convert to array of integers
-        int[] array = new int[labels.size()];
-        Iterator<Integer> iterator = labels.iterator();
-        for (int i = 0; i < labels.size(); i++) 
-            array[i] = iterator.next();
-        
-        return array;
+        return LabelIndex.fromImage(image).labels();
     }
 
 	/**
@@ -1526,8 +1520,7 @@ public class LabelImages
 	 */
 	public static final void remapLabels(ImageProcessor image)
 	{
-		int[] labels = findAllLabels(image);
-		HashMap<Integer, Integer> map = mapLabelIndices(labels);
+		LabelIndex map = LabelIndex.fromImage(image);
 		
 		for (int y = 0; y < image.getHeight(); y++)
 		{
@@ -1536,7 +1529,7 @@ public class LabelImages
 				int label = (int) image.getf(x, y);
 				if (label != 0)
 				{
-					image.setf(x, y, map.get(label) + 1);
+					image.setf(x, y, map.indexOf(label) + 1);
 				}
 			}
 		}
@@ -1549,8 +1542,7 @@ public class LabelImages
 	 */
 	public static final void remapLabels(ImageStack image)
 	{
-		int[] labels = findAllLabels(image);
-		HashMap<Integer, Integer> map = mapLabelIndices(labels);
+		LabelIndex map = LabelIndex.fromImage(image);
 		
 		for (int z = 0; z < image.getSize(); z++)
 		{
@@ -1561,7 +1553,7 @@ public class LabelImages
 					int label = (int) image.getVoxel(x, y, z);
 					if (label != 0)
 					{
-						image.setVoxel(x, y, z, map.get(label) + 1);
+						image.setVoxel(x, y, z, map.indexOf(label) + 1);
 					}
 				}
 			}
@@ -1703,11 +1695,8 @@ public class LabelImages
 		
 		FloatProcessor resultImage = new FloatProcessor(width, height);
 		
-        // extract particle labels
-        int[] labels = LabelImages.findAllLabels(labelImage);
-        
-        // create associative array to know index of each label
-        HashMap<Integer, Integer> labelIndices = mapLabelIndices(labels);
+        // extract particle labels, and associate each label to its index
+        LabelIndex labelIndices = LabelIndex.fromImage(labelImage);
 
 		for (int y = 0; y < height; y++) 
 		{
@@ -1720,7 +1709,7 @@ public class LabelImages
 					continue;
 				}
 				
-				int index = labelIndices.get(label);
+				int index = labelIndices.indexOf(label);
 				
 				if (index >= values.length) {
 					throw new RuntimeException("Try to access index " + index + 
@@ -1754,11 +1743,8 @@ public class LabelImages
 		
 		ImageStack resultImage = ImageStack.create(sizeX, sizeY, sizeZ, 32);
 		
-        // extract particle labels
-        int[] labels = LabelImages.findAllLabels(labelImage);
-        
-        // create associative array to know index of each label
-        HashMap<Integer, Integer> labelIndices = mapLabelIndices(labels);
+        // extract particle labels, and associate each label to its index
+        LabelIndex labelIndices = LabelIndex.fromImage(labelImage);
 
         // Iterate over voxels to change their color
         for (int z = 0; z < sizeZ; z++) 
@@ -1774,7 +1760,7 @@ public class LabelImages
 						continue;
 					}
 
-					int index = labelIndices.get(label);
+					int index = labelIndices.indexOf(label);
 					
 					if (index >= values.length) 
 					{
@@ -2416,22 +2402,7 @@ public class LabelImages
 		if( sourceImage.getWidth() != targetImage.getWidth() ||
 				sourceImage.getHeight() != targetImage.getHeight() )
 			return -1;
-		double intersection = 0;
-		double numPixTarget = 0;
-		// calculate the pixel to pixel intersection
-	    for( int i = 0; i < sourceImage.getWidth(); i++ )
-	    	for( int j = 0; j < sourceImage.getHeight(); j++ )
-	    	{
-	    		if( sourceImage.getf( i, j ) > 0 ) // skip label 0 (background)
-	    		{
-	    			if( sourceImage.getf( i, j ) == targetImage.getf( i, j ) )
-	    				intersection ++;
-	    		}
-	    		if( targetImage.getf( i, j ) > 0 )
-	    			numPixTarget ++;
-	    	}
-	    // return the total overlap
-	    return intersection / numPixTarget;
+		return LabelOverlapTable.compute( sourceImage, targetImage ).totalOverlap();
 	}
 	/**
 	 * Get the target overlap between two label images (source and target)
@@ -2450,38 +2421,9 @@ public class LabelImages
 		if( sourceImage.getWidth() != targetImage.getWidth() ||
 				sourceImage.getHeight() != targetImage.getHeight() )
 			return null;
-
-		int[] sourceLabels = findAllLabels( sourceImage );
-		double[] intersection = new double[ sourceLabels.length ];
-		// create associative array to identify the index of each label
-	    HashMap<Integer, Integer> sourceLabelIndices = mapLabelIndices( sourceLabels );
-
-	    int[] targetLabels = findAllLabels( targetImage );
-		int[] numPixTarget = pixelCount( targetImage, targetLabels );
-
-		// create associative array to identify the index of each label
-	    HashMap<Integer, Integer> targetLabelIndices = mapLabelIndices( targetLabels );
-
-		// calculate the pixel to pixel intersection
-	    for( int i = 0; i < sourceImage.getWidth(); i++ )
-	    	for( int j = 0; j < sourceImage.getHeight(); j++ )
-	    		if( sourceImage.getf( i, j ) > 0 ) // skip label 0 (background)
-	    		{
-	    			if( sourceImage.getf( i, j ) == targetImage.getf( i, j ) )
-	    				intersection[ sourceLabelIndices.get( (int) sourceImage.getf( i, j ) ) ] ++;
-	    		}
-	    // return the target overlap
-	    for( int i = 0; i < intersection.length; i ++ )
-	    	intersection[ i ] = targetLabelIndices.get( sourceLabels[ i ] ) != null ?
-	    			intersection[ i ] / numPixTarget[ targetLabelIndices.get( sourceLabels[ i ] ) ] : 0;
-		// create data table
-		ResultsTable table = new ResultsTable();
-		for (int i = 0; i < sourceLabels.length; i++) {
-			table.incrementCounter();
-			table.addLabel(Integer.toString( sourceLabels[i] ));
-			table.addValue("TargetOverlap", intersection[i]);
-		}
-	    return table;
+		LabelOverlapTable overlaps = LabelOverlapTable.compute( sourceImage, targetImage );
+		return createPerLabelTable( overlaps.sourceLabels(), "TargetOverlap",
+				overlaps.targetOverlapPerLabel() );
 	}
 	/**
 	 * Get the total overlap between two label images (source and target).
@@ -2497,29 +2439,10 @@ public class LabelImages
 			ImageStack targetImage )
 	{
 		if( sourceImage.getWidth() != targetImage.getWidth() ||
-				sourceImage.getHeight() != targetImage.getHeight() )
+				sourceImage.getHeight() != targetImage.getHeight() ||
+				sourceImage.getSize() != targetImage.getSize() )
 			return -1;
-		double intersection = 0;
-		double numPixTarget = 0;
-		// calculate the pixel to pixel intersection
-		for( int k = 0; k < sourceImage.getSize(); k ++ )
-		{
-			final ImageProcessor ls = sourceImage.getProcessor( k+1 );
-			final ImageProcessor lt = targetImage.getProcessor( k+1 );
-			for( int i = 0; i < sourceImage.getWidth(); i++ )
-				for( int j = 0; j < sourceImage.getHeight(); j++ )
-				{
-					if( ls.getf( i, j ) > 0 ) // skip label 0 (background)
-		    		{
-		    			if( ls.getf( i, j ) == lt.getf( i, j ) )
-		    				intersection ++;
-		    		}
-					if( lt.getf( i, j ) > 0 )
-						numPixTarget ++;
-				}
-		}
-	    // return the total overlap
-	    return intersection / numPixTarget;
+		return LabelOverlapTable.compute( sourceImage, targetImage ).totalOverlap();
 	}
 	/**
 	 * Get the total overlap between two label images (source and target).
@@ -2552,44 +2475,12 @@ public class LabelImages
 			ImageStack targetImage )
 	{
 		if( sourceImage.getWidth() != targetImage.getWidth() ||
-				sourceImage.getHeight() != targetImage.getHeight() )
+				sourceImage.getHeight() != targetImage.getHeight() ||
+				sourceImage.getSize() != targetImage.getSize() )
 			return null;
-
-		int[] sourceLabels = findAllLabels( sourceImage );
-		double[] intersection = new double[ sourceLabels.length ];
-		// create associative array to identify the index of each label
-	    HashMap<Integer, Integer> sourceLabelIndices = mapLabelIndices( sourceLabels );
-
-	    int[] targetLabels = findAllLabels( targetImage );
-		int[] numPixTarget = voxelCount( targetImage, targetLabels );
-
-		// create associative array to identify the index of each label
-	    HashMap<Integer, Integer> targetLabelIndices = mapLabelIndices( targetLabels );
-	    // calculate the pixel to pixel intersection
-	 	for( int k = 0; k < sourceImage.getSize(); k ++ )
-	 	{
-	 		final ImageProcessor ls = sourceImage.getProcessor( k+1 );
-			final ImageProcessor lt = targetImage.getProcessor( k+1 );
-	 		for( int i = 0; i < sourceImage.getWidth(); i++ )
-	 			for( int j = 0; j < sourceImage.getHeight(); j++ )
-	 				if( ls.getf( i, j ) > 0 ) // skip label 0 (background)
-	 				{
-	 					if( ls.getf( i, j ) == lt.getf( i, j ) )
-	 						intersection[ sourceLabelIndices.get( (int) ls.getf( i, j ) ) ] ++;
-	 				}
-	 	}
-	    // return the target overlap
-	    for( int i = 0; i < intersection.length; i ++ )
-	    	intersection[ i ] = targetLabelIndices.get( sourceLabels[ i ] ) != null ?
-	    			intersection[ i ] / numPixTarget[ targetLabelIndices.get( sourceLabels[ i ] ) ] : 0;
-		// create data table
-		ResultsTable table = new ResultsTable();
-		for (int i = 0; i < sourceLabels.length; i++) {
-			table.incrementCounter();
-			table.addLabel(Integer.toString( sourceLabels[i] ));
-			table.addValue("TargetOverlap", intersection[i]);
-		}
-	    return table;
+		LabelOverlapTable overlaps = LabelOverlapTable.compute( sourceImage, targetImage );
+		return createPerLabelTable( overlaps.sourceLabels(), "TargetOverlap",
+				overlaps.targetOverlapPerLabel() );
 	}
 	/**
 	 * Get the target overlap between two label images (source and target)
@@ -2622,24 +2513,7 @@ public class LabelImages
 		if( labelImage1.getWidth() != labelImage2.getWidth() ||
 				labelImage1.getHeight() != labelImage2.getHeight() )
 			return -1;
-		double intersection = 0;
-		double numPix1 = 0;
-		double numPix2 = 0;
-		// calculate the pixel to pixel intersection
-	    for( int i = 0; i < labelImage1.getWidth(); i++ )
-	    	for( int j = 0; j < labelImage1.getHeight(); j++ )
-	    	{
-	    		if( labelImage1.getf( i, j ) > 0 ) // skip label 0 (background)
-	    		{
-	    			numPix1 ++;
-	    			if( labelImage1.getf( i, j ) == labelImage2.getf( i, j ) )
-	    				intersection ++;
-	    		}
-	    		if( labelImage2.getf( i, j ) > 0 )
-	    			numPix2 ++;
-	    	}
-	    // return the intersection over the union
-	    return intersection / ( numPix1 + numPix2 - intersection );
+		return LabelOverlapTable.compute( labelImage1, labelImage2 ).jaccardIndex();
 	}
 	/**
 	 * Get the Jaccard index per label (intersection over union overlap) between
@@ -2656,41 +2530,9 @@ public class LabelImages
 		if( labelImage1.getWidth() != labelImage2.getWidth() ||
 				labelImage1.getHeight() != labelImage2.getHeight() )
 			return null;
-
-		int[] labels1 = findAllLabels( labelImage1 );
-		int[] numPix1 = pixelCount( labelImage1, labels1 );
-		double[] intersection = new double[ labels1.length ];
-		// create associative array to identify the index of each label
-	    HashMap<Integer, Integer> labelIndices1 = mapLabelIndices( labels1 );
-
-	    int[] labels2 = findAllLabels( labelImage2 );
-		int[] numPix2 = pixelCount( labelImage2, labels2 );
-
-		// create associative array to identify the index of each label
-	    HashMap<Integer, Integer> labelIndices2 = mapLabelIndices( labels2 );
-
-		// calculate the pixel to pixel intersection
-	    for( int i = 0; i < labelImage1.getWidth(); i++ )
-	    	for( int j = 0; j < labelImage1.getHeight(); j++ )
-	    		if( labelImage1.getf( i, j ) > 0 ) // skip label 0 (background)
-	    		{
-	    			if( labelImage1.getf( i, j ) == labelImage2.getf( i, j ) )
-	    				intersection[ labelIndices1.get( (int) labelImage1.getf( i, j ) ) ] ++;
-	    		}
-	    // return the intersection over the union
-	    for( int i = 0; i < intersection.length; i ++ )
-	    {
-	    	int num2 = labelIndices2.get( labels1[ i ] ) != null ? numPix2[ labelIndices2.get( labels1[ i ] ) ] : 0;
-	    	intersection[ i ] /= ( numPix1[ i ] + num2 - intersection[ i ] );
-	    }
-	    // create data table
- 		ResultsTable table = new ResultsTable();
- 		for (int i = 0; i < labels1.length; i++) {
- 			table.incrementCounter();
- 			table.addLabel(Integer.toString( labels1[i] ));
- 			table.addValue("JaccardIndex", intersection[i]);
- 		}
- 	    return table;
+		LabelOverlapTable overlaps = LabelOverlapTable.compute( labelImage1, labelImage2 );
+		return createPerLabelTable( overlaps.sourceLabels(), "JaccardIndex",
+				overlaps.jaccardIndexPerLabel() );
 	}
 	/**
 	 * Get the Jaccard index (intersection over union overlap) between
@@ -2708,29 +2550,7 @@ public class LabelImages
 				labelImage1.getHeight() != labelImage2.getHeight() ||
 				labelImage1.getSize() != labelImage2.getSize() )
 			return -1;
-		double intersection = 0;
-		double numPix1 = 0;
-		double numPix2 = 0;
-		// calculate the pixel to pixel intersection
-		for( int k = 0; k < labelImage1.getSize(); k ++ )
-		{
-			final ImageProcessor l1 = labelImage1.getProcessor( k+1 );
-			final ImageProcessor l2 = labelImage2.getProcessor( k+1 );
-			for( int i = 0; i < labelImage1.getWidth(); i++ )
-				for( int j = 0; j < labelImage1.getHeight(); j++ )
-				{
-					if( l1.getf( i, j ) > 0 ) // skip label 0 (background)
-		    		{
-		    			numPix1 ++;
-		    			if( l1.getf( i, j ) == l2.getf( i, j ) )
-		    				intersection ++;
-		    		}
-					if( l2.getf( i, j ) > 0 )
-						numPix2 ++;
-				}
-		}
-	    // return the intersection over the union
-	    return intersection / ( numPix1 + numPix2 - intersection );
+		return LabelOverlapTable.compute( labelImage1, labelImage2 ).jaccardIndex();
 	}
 	/**
 	 * Get the Jaccard index per label (intersection over union overlap) between
@@ -2745,48 +2565,12 @@ public class LabelImages
 			ImageStack labelImage2 )
 	{
 		if( labelImage1.getWidth() != labelImage2.getWidth() ||
-				labelImage1.getHeight() != labelImage2.getHeight() )
+				labelImage1.getHeight() != labelImage2.getHeight() ||
+				labelImage1.getSize() != labelImage2.getSize() )
 			return null;
-
-		int[] labels1 = findAllLabels( labelImage1 );
-		int[] numPix1 = voxelCount( labelImage1, labels1 );
-		double[] intersection = new double[ labels1.length ];
-		// create associative array to identify the index of each label
-	    HashMap<Integer, Integer> labelIndices1 = mapLabelIndices( labels1 );
-
-	    int[] labels2 = findAllLabels( labelImage2 );
-		int[] numPix2 = voxelCount( labelImage2, labels2 );
-
-		// create associative array to identify the index of each label
-	    HashMap<Integer, Integer> labelIndices2 = mapLabelIndices( labels2 );
-
-		// calculate the voxel to voxel intersection
-	    for( int k = 0; k < labelImage1.getSize(); k ++ )
-		{
-			final ImageProcessor l1 = labelImage1.getProcessor( k+1 );
-			final ImageProcessor l2 = labelImage2.getProcessor( k+1 );
-			for( int i = 0; i < labelImage1.getWidth(); i++ )
-				for( int j = 0; j < labelImage1.getHeight(); j++ )
-					if( l1.getf( i, j ) > 0 ) // skip label 0 (background)
-		    		{
-						if( l1.getf( i, j ) == l2.getf( i, j ) )
-							intersection[ labelIndices1.get( (int) l1.getf( i, j ) ) ] ++;
-		    		}
-		}
-	    // return the intersection over the union
-	    for( int i = 0; i < intersection.length; i ++ )
-	    {
-	    	int num2 = labelIndices2.get( labels1[ i ] ) != null ? numPix2[ labelIndices2.get( labels1[ i ] ) ] : 0;
-	    	intersection[ i ] /= ( numPix1[ i ] + num2 - intersection[ i ] );
-	    }
-	    // create data table
-  		ResultsTable table = new ResultsTable();
-  		for (int i = 0; i < labels1.length; i++) {
-  			table.incrementCounter();
-  			table.addLabel(Integer.toString( labels1[i] ));
-  			table.addValue("JaccardIndex", intersection[i]);
-  		}
-  	    return table;
+		LabelOverlapTable overlaps = LabelOverlapTable.compute( labelImage1, labelImage2 );
+		return createPerLabelTable( overlaps.sourceLabels(), "JaccardIndex",
+				overlaps.jaccardIndexPerLabel() );
 	}
 	/**
 	 * Get the Jaccard index (intersection over union overlap) between
@@ -2830,24 +2614,7 @@ public class LabelImages
 		if( labelImage1.getWidth() != labelImage2.getWidth() ||
 				labelImage1.getHeight() != labelImage2.getHeight() )
 			return -1;
-		double intersection = 0;
-		double numPix1 = 0;
-		double numPix2 = 0;
-		// calculate the pixel to pixel intersection
-	    for( int i = 0; i < labelImage1.getWidth(); i++ )
-	    	for( int j = 0; j < labelImage1.getHeight(); j++ )
-	    	{
-	    		if( labelImage1.getf( i, j ) > 0 ) // skip label 0 (background)
-	    		{
-	    			numPix1 ++;
-	    			if( labelImage1.getf( i, j ) == labelImage2.getf( i, j ) )
-	    				intersection ++;
-	    		}
-	    		if( labelImage2.getf( i, j ) > 0 )
-	    			numPix2 ++;
-	    	}
-	    // return the Dice coefficient
-	    return 2.0 * intersection / (numPix1 + numPix2);
+		return LabelOverlapTable.compute( labelImage1, labelImage2 ).diceCoefficient();
 	}
 	/**
 	 * Get the Dice coefficient per label (intersection over union overlap) between
@@ -2864,41 +2631,9 @@ public class LabelImages
 		if( labelImage1.getWidth() != labelImage2.getWidth() ||
 				labelImage1.getHeight() != labelImage2.getHeight() )
 			return null;
-
-		int[] labels1 = findAllLabels( labelImage1 );
-		int[] numPix1 = pixelCount( labelImage1, labels1 );
-		double[] intersection = new double[ labels1.length ];
-		// create associative array to identify the index of each label
-	    HashMap<Integer, Integer> labelIndices1 = mapLabelIndices( labels1 );
-
-	    int[] labels2 = findAllLabels( labelImage2 );
-		int[] numPix2 = pixelCount( labelImage2, labels2 );
-
-		// create associative array to identify the index of each label
-	    HashMap<Integer, Integer> labelIndices2 = mapLabelIndices( labels2 );
-
-		// calculate the pixel to pixel intersection
-	    for( int i = 0; i < labelImage1.getWidth(); i++ )
-	    	for( int j = 0; j < labelImage1.getHeight(); j++ )
-	    		if( labelImage1.getf( i, j ) > 0 ) // skip label 0 (background)
-	    		{
-	    			if( labelImage1.getf( i, j ) == labelImage2.getf( i, j ) )
-	    				intersection[ labelIndices1.get( (int) labelImage1.getf( i, j ) ) ] ++;
-	    		}
-	    // return the Dice coefficient
-	    for( int i = 0; i < intersection.length; i ++ )
-	    {
-	    	int num2 = labelIndices2.get( labels1[ i ] ) != null ? numPix2[ labelIndices2.get( labels1[ i ] ) ] : 0;
-	    	intersection[ i ] = 2.0 * intersection[ i ]  / ( numPix1[ i ] + num2 );
-	    }
-	    // create data table
-  		ResultsTable table = new ResultsTable();
-  		for (int i = 0; i < labels1.length; i++) {
-  			table.incrementCounter();
-  			table.addLabel(Integer.toString( labels1[i] ));
-  			table.addValue("DiceCoefficient", intersection[i]);
-  		}
-  	    return table;
+		LabelOverlapTable overlaps = LabelOverlapTable.compute( labelImage1, labelImage2 );
+		return createPerLabelTable( overlaps.sourceLabels(), "DiceCoefficient",
+				overlaps.diceCoefficientPerLabel() );
 	}
 	/**
 	 * Get the Dice coefficient between two label images.
@@ -2912,31 +2647,10 @@ public class LabelImages
 			ImageStack labelImage2 )
 	{
 		if( labelImage1.getWidth() != labelImage2.getWidth() ||
-				labelImage1.getHeight() != labelImage2.getHeight() )
+				labelImage1.getHeight() != labelImage2.getHeight() ||
+				labelImage1.getSize() != labelImage2.getSize() )
 			return -1;
-		double intersection = 0;
-		double numPix1 = 0;
-		double numPix2 = 0;
-		// calculate the pixel to pixel intersection
-		for( int k = 0; k < labelImage1.getSize(); k ++ )
-		{
-			final ImageProcessor l1 = labelImage1.getProcessor( k+1 );
-			final ImageProcessor l2 = labelImage2.getProcessor( k+1 );
-			for( int i = 0; i < labelImage1.getWidth(); i++ )
-				for( int j = 0; j < labelImage1.getHeight(); j++ )
-				{
-					if( l1.getf( i, j ) > 0 ) // skip label 0 (background)
-		    		{
-		    			numPix1 ++;
-		    			if( l1.getf( i, j ) == l2.getf( i, j ) )
-		    				intersection ++;
-		    		}
-					if( l2.getf( i, j ) > 0 )
-						numPix2 ++;
-				}
-		}
-	    // return the Dice coefficient
-	    return 2.0 * intersection / ( numPix1 + numPix2 );
+		return LabelOverlapTable.compute( labelImage1, labelImage2 ).diceCoefficient();
 	}
 	/**
 	 * Get the Dice coefficient per label (intersection over union overlap) between
@@ -2951,48 +2665,12 @@ public class LabelImages
 			ImageStack labelImage2 )
 	{
 		if( labelImage1.getWidth() != labelImage2.getWidth() ||
-				labelImage1.getHeight() != labelImage2.getHeight() )
+				labelImage1.getHeight() != labelImage2.getHeight() ||
+				labelImage1.getSize() != labelImage2.getSize() )
 			return null;
-
-		int[] labels1 = findAllLabels( labelImage1 );
-		int[] numPix1 = voxelCount( labelImage1, labels1 );
-		double[] intersection = new double[ labels1.length ];
-		// create associative array to identify the index of each label
-	    HashMap<Integer, Integer> labelIndices1 = mapLabelIndices( labels1 );
-
-	    int[] labels2 = findAllLabels( labelImage2 );
-		int[] numPix2 = voxelCount( labelImage2, labels2 );
-
-		// create associative array to identify the index of each label
-	    HashMap<Integer, Integer> labelIndices2 = mapLabelIndices( labels2 );
-
-		// calculate the voxel to voxel intersection
-	    for( int k = 0; k < labelImage1.getSize(); k ++ )
-		{
-			final ImageProcessor l1 = labelImage1.getProcessor( k+1 );
-			final ImageProcessor l2 = labelImage2.getProcessor( k+1 );
-			for( int i = 0; i < labelImage1.getWidth(); i++ )
-				for( int j = 0; j < labelImage1.getHeight(); j++ )
-					if( l1.getf( i, j ) > 0 ) // skip label 0 (background)
-		    		{
-						if( l1.getf( i, j ) == l2.getf( i, j ) )
-							intersection[ labelIndices1.get( (int) l1.getf( i, j ) ) ] ++;
-		    		}
-		}
-	    // return the Dice coefficient
-	    for( int i = 0; i < intersection.length; i ++ )
-	    {
-	    	int num2 = labelIndices2.get( labels1[ i ] ) != null ? numPix2[ labelIndices2.get( labels1[ i ] ) ] : 0;
-	    	intersection[ i ] = 2.0 * intersection[ i ]  / ( numPix1[ i ] + num2 );
-	    }
-	    // create data table
-  		ResultsTable table = new ResultsTable();
-  		for (int i = 0; i < labels1.length; i++) {
-  			table.incrementCounter();
-  			table.addLabel(Integer.toString( labels1[i] ));
-  			table.addValue("DiceCoefficient", intersection[i]);
-  		}
-  	    return table;
+		LabelOverlapTable overlaps = LabelOverlapTable.compute( labelImage1, labelImage2 );
+		return createPerLabelTable( overlaps.sourceLabels(), "DiceCoefficient",
+				overlaps.diceCoefficientPerLabel() );
 	}
 	/**
 	 * Get the Dice coefficient between two label images.
@@ -3034,18 +2712,13 @@ public class LabelImages
 			ImageProcessor sourceImage,
 			ImageProcessor targetImage )
 	{
+		// count the foreground elements of each image
 		double numPixSource = 0;
+		for( int count : LabelIndex.fromImage( sourceImage ).counts() )
+			numPixSource += count;
 		double numPixTarget = 0;
-		int[] sourceLabels = findAllLabels( sourceImage );
-		int[] sourcePixPerLabel = pixelCount( sourceImage, sourceLabels );
-
-	    int[] targetLabels = findAllLabels( targetImage );
-		int[] targetPixPerLabel = pixelCount( targetImage, targetLabels );
-
-		for( int i = 0; i < sourceLabels.length; i ++ )
-			numPixSource += sourcePixPerLabel[ i ];
-		for( int i = 0; i < targetLabels.length; i ++ )
-			numPixTarget += targetPixPerLabel[ i ];
+		for( int count : LabelIndex.fromImage( targetImage ).counts() )
+			numPixTarget += count;
 
 	    // return the total volume similarity
 	    return 2.0 * ( numPixSource - numPixTarget )  / ( numPixSource + numPixTarget );
@@ -3064,30 +2737,25 @@ public class LabelImages
 			ImageProcessor sourceImage,
 			ImageProcessor targetImage )
 	{
-		int[] sourceLabels = findAllLabels( sourceImage );
-		int[] numPixSource = pixelCount( sourceImage, sourceLabels );
+		// index the labels of each image, and count their elements
+		LabelIndex sourceIndices = LabelIndex.fromImage( sourceImage );
+		int[] sourceLabels = sourceIndices.labels();
+		int[] numPixSource = sourceIndices.counts();
 		double[] volumeSim = new double[ sourceLabels.length ];
 
-	    int[] targetLabels = findAllLabels( targetImage );
-		int[] numPixTarget = pixelCount( targetImage, targetLabels );
-
-		// create associative array to identify the index of each label
-	    HashMap<Integer, Integer> targetLabelIndices = mapLabelIndices( targetLabels );
+		LabelIndex targetIndices = LabelIndex.fromImage( targetImage );
+		int[] numPixTarget = targetIndices.counts();
 
 	    // calculate the volume similarity of the source labels
 	    for( int i = 0; i < sourceLabels.length; i ++ )
-	    	volumeSim[ i ] = targetLabelIndices.get( sourceLabels[ i ] ) != null ?
-	    			2.0 * ( numPixSource[ i ] - numPixTarget[ targetLabelIndices.get( sourceLabels[ i ] ) ] )
-	    			/ ( numPixSource[ i ] + numPixTarget[ targetLabelIndices.get( sourceLabels[ i ] ) ] )
+	    {
+	    	int index = targetIndices.indexOf( sourceLabels[ i ] );
+	    	volumeSim[ i ] = index >= 0 ?
+	    			2.0 * ( numPixSource[ i ] - numPixTarget[ index ] )
+	    			/ ( numPixSource[ i ] + numPixTarget[ index ] )
 	    			: 0;
-		// create data table
-  		ResultsTable table = new ResultsTable();
-  		for (int i = 0; i < sourceLabels.length; i++) {
-  			table.incrementCounter();
-  			table.addLabel(Integer.toString( sourceLabels[ i ] ));
-  			table.addValue("VolumeSimilarity", volumeSim[ i ] );
-  		}
-  	    return table;
+	    }
+		return createPerLabelTable( sourceLabels, "VolumeSimilarity", volumeSim );
 	}
 	/**
 	 * Get the total volume similarity between two label images (source and target).
@@ -3102,18 +2770,13 @@ public class LabelImages
 			ImageStack sourceImage,
 			ImageStack targetImage )
 	{
+		// count the foreground elements of each image
 		double numPixSource = 0;
+		for( int count : LabelIndex.fromImage( sourceImage ).counts() )
+			numPixSource += count;
 		double numPixTarget = 0;
-		int[] sourceLabels = findAllLabels( sourceImage );
-		int[] sourcePixPerLabel = voxelCount( sourceImage, sourceLabels );
-
-	    int[] targetLabels = findAllLabels( targetImage );
-		int[] targetPixPerLabel = voxelCount( targetImage, targetLabels );
-
-		for( int i = 0; i < sourceLabels.length; i ++ )
-			numPixSource += sourcePixPerLabel[ i ];
-		for( int i = 0; i < targetLabels.length; i ++ )
-			numPixTarget += targetPixPerLabel[ i ];
+		for( int count : LabelIndex.fromImage( targetImage ).counts() )
+			numPixTarget += count;
 
 	    // return the total volume similarity
 	    return 2.0 * ( numPixSource - numPixTarget )  / ( numPixSource + numPixTarget );
@@ -3132,30 +2795,25 @@ public class LabelImages
 			ImageStack sourceImage,
 			ImageStack targetImage )
 	{
-		int[] sourceLabels = findAllLabels( sourceImage );
-		int[] numPixSource = voxelCount( sourceImage, sourceLabels );
+		// index the labels of each image, and count their elements
+		LabelIndex sourceIndices = LabelIndex.fromImage( sourceImage );
+		int[] sourceLabels = sourceIndices.labels();
+		int[] numPixSource = sourceIndices.counts();
 		double[] volumeSim = new double[ sourceLabels.length ];
 
-	    int[] targetLabels = findAllLabels( targetImage );
-		int[] numPixTarget = voxelCount( targetImage, targetLabels );
-
-		// create associative array to identify the index of each label
-	    HashMap<Integer, Integer> targetLabelIndices = mapLabelIndices( targetLabels );
+		LabelIndex targetIndices = LabelIndex.fromImage( targetImage );
+		int[] numPixTarget = targetIndices.counts();
 
 	    // calculate the volume similarity of the source labels
 	    for( int i = 0; i < sourceLabels.length; i ++ )
-	    	volumeSim[ i ] = targetLabelIndices.get( sourceLabels[ i ] ) != null ?
-	    			2.0 * ( numPixSource[ i ] - numPixTarget[ targetLabelIndices.get( sourceLabels[ i ] ) ] )
-	    			/ ( numPixSource[ i ] + numPixTarget[ targetLabelIndices.get( sourceLabels[ i ] ) ] )
+	    {
+	    	int index = targetIndices.indexOf( sourceLabels[ i ] );
+	    	volumeSim[ i ] = index >= 0 ?
+	    			2.0 * ( numPixSource[ i ] - numPixTarget[ index ] )
+	    			/ ( numPixSource[ i ] + numPixTarget[ index ] )
 	    			: 0;
-		// create data table
-  		ResultsTable table = new ResultsTable();
-  		for (int i = 0; i < sourceLabels.length; i++) {
-  			table.incrementCounter();
-  			table.addLabel(Integer.toString( sourceLabels[ i ] ));
-  			table.addValue("VolumeSimilarity", volumeSim[ i ] );
-  		}
-  	    return table;
+	    }
+		return createPerLabelTable( sourceLabels, "VolumeSimilarity", volumeSim );
 	}
 	/**
 	 * Get the total volume similarity between two label images (source and target).
@@ -3204,7 +2862,7 @@ public class LabelImages
 		if( sourceImage.getWidth() != targetImage.getWidth() ||
 				sourceImage.getHeight() != targetImage.getHeight() )
 			return -1;
-		return 1.0 - LabelImages.getTotalOverlap( sourceImage, targetImage );
+		return LabelOverlapTable.compute( sourceImage, targetImage ).falseNegativeError();
 	}
 	/**
 	 * Get the false negative error between two label images (source and target)
@@ -3223,16 +2881,9 @@ public class LabelImages
 		if( sourceImage.getWidth() != targetImage.getWidth() ||
 				sourceImage.getHeight() != targetImage.getHeight() )
 			return null;
-
-		ResultsTable toTable = LabelImages.getTargetOverlapPerLabel( sourceImage, targetImage );
-		// create data table
-  		ResultsTable fneTable = new ResultsTable();
-  		for (int i = 0; i < toTable.getCounter(); i++) {
-  			fneTable.incrementCounter();
-  			fneTable.addLabel( toTable.getLabel( i ) );
-  			fneTable.addValue( "FalseNegativeError", 1.0 - toTable.getValue("TargetOverlap", i) );
-  		}
-  	    return fneTable;
+		LabelOverlapTable overlaps = LabelOverlapTable.compute( sourceImage, targetImage );
+		return createPerLabelTable( overlaps.sourceLabels(), "FalseNegativeError",
+				overlaps.falseNegativeErrorPerLabel() );
 	}
 	/**
 	 * Get the total false negative error between two label images (source and target).
@@ -3251,7 +2902,7 @@ public class LabelImages
 				sourceImage.getHeight() != targetImage.getHeight() ||
 				sourceImage.getSize() != targetImage.getSize() )
 			return -1;
-		return 1.0 - LabelImages.getTotalOverlap( sourceImage, targetImage );
+		return LabelOverlapTable.compute( sourceImage, targetImage ).falseNegativeError();
 	}
 	/**
 	 * Get the false negative error between two label images (source and target)
@@ -3267,15 +2918,13 @@ public class LabelImages
 			ImageStack sourceImage,
 			ImageStack targetImage )
 	{
-		ResultsTable toTable = LabelImages.getTargetOverlapPerLabel( sourceImage, targetImage );
-		// create data table
-  		ResultsTable fneTable = new ResultsTable();
-  		for (int i = 0; i < toTable.getCounter(); i++) {
-  			fneTable.incrementCounter();
-  			fneTable.addLabel( toTable.getLabel( i ) );
-  			fneTable.addValue( "FalseNegativeError", 1.0 - toTable.getValue("TargetOverlap", i) );
-  		}
-  	    return fneTable;
+		if( sourceImage.getWidth() != targetImage.getWidth() ||
+				sourceImage.getHeight() != targetImage.getHeight() ||
+				sourceImage.getSize() != targetImage.getSize() )
+			return null;
+		LabelOverlapTable overlaps = LabelOverlapTable.compute( sourceImage, targetImage );
+		return createPerLabelTable( overlaps.sourceLabels(), "FalseNegativeError",
+				overlaps.falseNegativeErrorPerLabel() );
 	}
 
 	/**
@@ -3329,21 +2978,7 @@ public class LabelImages
 		if( sourceImage.getWidth() != targetImage.getWidth() ||
 				sourceImage.getHeight() != targetImage.getHeight() )
 			return -1;
-		double setDiff = 0;
-		double numPixSource = 0;
-		// calculate the set difference between source and target
-	    for( int i = 0; i < sourceImage.getWidth(); i++ )
-	    	for( int j = 0; j < sourceImage.getHeight(); j++ )
-	    	{
-	    		if( sourceImage.getf( i, j ) > 0 ) // skip label 0 (background)
-	    		{
-	    			numPixSource ++;
-	    			if( sourceImage.getf( i, j ) != targetImage.getf( i, j ) )
-	    				setDiff ++;
-	    		}
-	    	}
-	    // return the total overlap
-	    return setDiff / numPixSource;
+		return LabelOverlapTable.compute( sourceImage, targetImage ).falsePositiveError();
 	}
 	/**
 	 * Get the false positive error between two label images (source and target)
@@ -3362,33 +2997,9 @@ public class LabelImages
 		if( sourceImage.getWidth() != targetImage.getWidth() ||
 				sourceImage.getHeight() != targetImage.getHeight() )
 			return null;
-
-		int[] sourceLabels = findAllLabels( sourceImage );
-		double[] setDiff = new double[ sourceLabels.length ];
-		// create associative array to identify the index of each label
-	    HashMap<Integer, Integer> sourceLabelIndices = mapLabelIndices( sourceLabels );
-	    int[] numPixSource = pixelCount( sourceImage, sourceLabels );
-
-		// calculate the set difference between source and target
-	    for( int i = 0; i < sourceImage.getWidth(); i++ )
-	    	for( int j = 0; j < sourceImage.getHeight(); j++ )
-	    		if( sourceImage.getf( i, j ) > 0 ) // skip label 0 (background)
-	    		{
-	    			if( sourceImage.getf( i, j ) != targetImage.getf( i, j ) )
-	    				setDiff[ sourceLabelIndices.get( (int) sourceImage.getf( i, j ) ) ] ++;
-	    		}
-	    // return the false positive error
-	    for( int i = 0; i < setDiff.length; i ++ )
-	    	setDiff[ i ] /= numPixSource[ i ];
-
-	    // create data table
-  		ResultsTable table = new ResultsTable();
-  		for (int i = 0; i < sourceLabels.length; i++) {
-  			table.incrementCounter();
-  			table.addLabel(Integer.toString( sourceLabels[ i ] ));
-  			table.addValue( "FalsePositiveError", setDiff[ i ] );
-  		}
-  	    return table;
+		LabelOverlapTable overlaps = LabelOverlapTable.compute( sourceImage, targetImage );
+		return createPerLabelTable( overlaps.sourceLabels(), "FalsePositiveError",
+				overlaps.falsePositiveErrorPerLabel() );
 	}
 	/**
 	 * Get the total false positive error between two label images (source and target).
@@ -3407,26 +3018,7 @@ public class LabelImages
 				sourceImage.getHeight() != targetImage.getHeight() ||
 				sourceImage.getSize() != targetImage.getSize() )
 			return -1;
-		double setDiff = 0;
-		double numPixSource = 0;
-		// calculate the set difference between source and target
-		for( int k = 0; k < sourceImage.getSize(); k++ )
-		{
-			final ImageProcessor ls = sourceImage.getProcessor( k+1 );
-			final ImageProcessor lt = targetImage.getProcessor( k+1 );
-		    for( int i = 0; i < sourceImage.getWidth(); i++ )
-		    	for( int j = 0; j < sourceImage.getHeight(); j++ )
-		    	{
-		    		if( ls.getf( i, j ) > 0 ) // skip label 0 (background)
-		    		{
-		    			numPixSource ++;
-		    			if( ls.getf( i, j ) != lt.getf( i, j ) )
-		    				setDiff ++;
-		    		}
-		    	}
-		}
-	    // return the total overlap
-	    return setDiff / numPixSource;
+		return LabelOverlapTable.compute( sourceImage, targetImage ).falsePositiveError();
 	}
 	/**
 	 * Get the false positive error between two label images (source and target)
@@ -3446,38 +3038,9 @@ public class LabelImages
 				sourceImage.getHeight() != targetImage.getHeight() ||
 				sourceImage.getSize() != targetImage.getSize() )
 			return null;
-		int[] sourceLabels = findAllLabels( sourceImage );
-		double[] setDiff = new double[ sourceLabels.length ];
-		// create associative array to identify the index of each label
-	    HashMap<Integer, Integer> sourceLabelIndices = mapLabelIndices( sourceLabels );
-	    int[] numPixSource = voxelCount( sourceImage, sourceLabels );
-
-	    // calculate the set difference between source and target
-	    for( int k = 0; k < sourceImage.getSize(); k++ )
-	 	{
-	 		final ImageProcessor ls = sourceImage.getProcessor( k+1 );
-	 		final ImageProcessor lt = targetImage.getProcessor( k+1 );
-	 		for( int i = 0; i < sourceImage.getWidth(); i++ )
-	 			for( int j = 0; j < sourceImage.getHeight(); j++ )
-	 				if( ls.getf( i, j ) > 0 ) // skip label 0 (background)
-	 				{
-	 					if( ls.getf( i, j ) != lt.getf( i, j ) )
-	 						setDiff[ sourceLabelIndices.get( (int) ls.getf( i, j ) ) ] ++;
-	 				}
-	 	}
-	
-	    // return the false positive error
-	    for( int i = 0; i < setDiff.length; i ++ )
-	    	setDiff[ i ] /= numPixSource[ i ];
-
-	    // create data table
-  		ResultsTable table = new ResultsTable();
-  		for (int i = 0; i < sourceLabels.length; i++) {
-  			table.incrementCounter();
-  			table.addLabel(Integer.toString( sourceLabels[ i ] ));
-  			table.addValue( "FalsePositiveError", setDiff[ i ] );
-  		}
-  	    return table;
+		LabelOverlapTable overlaps = LabelOverlapTable.compute( sourceImage, targetImage );
+		return createPerLabelTable( overlaps.sourceLabels(), "FalsePositiveError",
+				overlaps.falsePositiveErrorPerLabel() );
 	}
 	/**
 	 * Get the total false positive error between two label images (source and target).
@@ -3514,6 +3077,26 @@ public class LabelImages
 	{
 		return LabelImages.getFalsePositiveErrorPerLabel( sourceImage.getImageStack(), targetImage.getImageStack() );
 	}
+	/**
+	 * Creates a results table with one row per label, containing the given
+	 * values.
+	 * 
+	 * @param labels the labels associated to the rows of the table
+	 * @param name the name of the column
+	 * @param values the value associated to each label
+	 * @return a new results table
+	 */
+	private static final ResultsTable createPerLabelTable( int[] labels, String name, double[] values )
+	{
+		ResultsTable table = new ResultsTable();
+		for( int i = 0; i < labels.length; i++ )
+		{
+			table.incrementCounter();
+			table.addLabel( Integer.toString( labels[ i ] ) );
+			table.addValue( name, values[ i ] );
+		}
+		return table;
+	}
 	/**
 	 * For each label, finds the position of the point belonging to label region
 	 * defined by <code>labelImage</code> and with maximal value in intensity
@@ -0,0 +1,447 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.label;
+
+import java.util.Arrays;
+
+import ij.ImageStack;
+import ij.process.ByteProcessor;
+import ij.process.FloatProcessor;
+import ij.process.ImageProcessor;
+import ij.process.ShortProcessor;
+
+/**
+ * Associates each label of a label image to its index within a sorted array
+ * of labels, without boxing label values.
+ * 
+ * When the range of label values is small compared to the number of labels,
+ * the index is retrieved from a dense look-up table. Otherwise, an
+ * open-addressing hash table with primitive keys and values is used.
+ * 
+ * <pre>
+ * {@code
+ * LabelIndex index = LabelIndex.fromImage(labelImage);
+ * int[] labels = index.labels();
+ * int[] counts = index.counts();
+ * int i = index.indexOf(labels[2]); // returns 2
+ * }
+ * </pre>
+ * 
+ * @see LabelImages#findAllLabels(ImageProcessor)
+ * @see LabelImages#mapLabelIndices(int[])
+ * 
+ * @author agent
+ *
+ */
+public class LabelIndex
+{
+	// ==================================================
+	// Static factories
+
+	/**
+	 * Creates a new index from an array of labels. The index of each label
+	 * corresponds to its position within the array.
+	 * 
+	 * @param labels
+	 *            an array of labels, without duplicates
+	 * @return a new LabelIndex
+	 */
+	public static final LabelIndex fromLabels(int[] labels)
+	{
+		return new LabelIndex(labels.clone(), null);
+	}
+
+	/**
+	 * Creates a new index from the labels within a 2D label image, using a
+	 * single pass over the pixels. Labels are sorted by increasing values,
+	 * and the background label 0 is excluded.
+	 * 
+	 * @param image
+	 *            a label image
+	 * @return a new LabelIndex, that also contains the number of pixels of
+	 *         each label
+	 */
+	public static final LabelIndex fromImage(ImageProcessor image)
+	{
+		Histogram histogram = new Histogram();
+		histogram.add(image);
+		return histogram.createIndex();
+	}
+
+	/**
+	 * Creates a new index from the labels within a 3D label image, using a
+	 * single pass over the voxels. Labels are sorted by increasing values,
+	 * and the background label 0 is excluded.
+	 * 
+	 * @param image
+	 *            a 3D label image
+	 * @return a new LabelIndex, that also contains the number of voxels of
+	 *         each label
+	 */
+	public static final LabelIndex fromImage(ImageStack image)
+	{
+		Histogram histogram = new Histogram();
+		for (int z = 1; z <= image.getSize(); z++)
+		{
+			histogram.add(image.getProcessor(z));
+		}
+		return histogram.createIndex();
+	}
+
+
+	// ==================================================
+	// Class variables
+
+	/**
+	 * The maximal ratio between the range of label values and the number of
+	 * labels for using a dense look-up table.
+	 */
+	private static final int MAX_DENSITY_RATIO = 4;
+
+	/**
+	 * The range of label values that always allows a dense look-up table.
+	 */
+	private static final int MIN_DENSE_RANGE = 1 << 16;
+
+	/**
+	 * The labels, in the order of their indices.
+	 */
+	private final int[] labels;
+
+	/**
+	 * The number of elements of each label, or null if the index was not
+	 * computed from an image.
+	 */
+	private final int[] counts;
+
+	/**
+	 * The dense look-up table, or null if the hash table is used. Contains
+	 * the index of label <code>minLabel + i</code> at position i, or -1.
+	 */
+	private int[] lut = null;
+	private int minLabel = 0;
+
+	/**
+	 * The open-addressing hash table, used when label range is too large.
+	 * Empty slots correspond to negative values.
+	 */
+	private int[] keys = null;
+	private int[] values = null;
+	private int mask = 0;
+
+
+	// ==================================================
+	// Constructor
+
+	private LabelIndex(int[] labels, int[] counts)
+	{
+		this.labels = labels;
+		this.counts = counts;
+
+		int nLabels = labels.length;
+		if (nLabels == 0)
+		{
+			this.lut = new int[0];
+			return;
+		}
+
+		// compute label range
+		int minLabel = labels[0];
+		int maxLabel = labels[0];
+		for (int label : labels)
+		{
+			minLabel = Math.min(minLabel, label);
+			maxLabel = Math.max(maxLabel, label);
+		}
+		long range = (long) maxLabel - minLabel + 1;
+
+		if (range <= Math.max(MIN_DENSE_RANGE, (long) MAX_DENSITY_RATIO * nLabels))
+		{
+			// dense look-up table
+			this.minLabel = minLabel;
+			this.lut = new int[(int) range];
+			Arrays.fill(this.lut, -1);
+			for (int i = 0; i < nLabels; i++)
+			{
+				this.lut[labels[i] - minLabel] = i;
+			}
+		}
+		else
+		{
+			// open addressing with linear probing, at most half full
+			int capacity = Integer.highestOneBit(nLabels) << 2;
+			this.mask = capacity - 1;
+			this.keys = new int[capacity];
+			this.values = new int[capacity];
+			Arrays.fill(this.values, -1);
+			for (int i = 0; i < nLabels; i++)
+			{
+				int slot = hash(labels[i]) & mask;
+				while (values[slot] >= 0)
+				{
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = labels[i];
+				values[slot] = i;
+			}
+		}
+	}
+
+	private static final int hash(int label)
+	{
+		int h = label * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+
+	// ==================================================
+	// Methods
+
+	/**
+	 * Returns the index of the specified label.
+	 * 
+	 * @param label
+	 *            the label value
+	 * @return the index of the label, or -1 if the label is not indexed
+	 */
+	public int indexOf(int label)
+	{
+		if (lut != null)
+		{
+			int pos = label - minLabel;
+			return pos >= 0 && pos < lut.length ? lut[pos] : -1;
+		}
+
+		int slot = hash(label) & mask;
+		while (values[slot] >= 0)
+		{
+			if (keys[slot] == label)
+				return values[slot];
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * @param label
+	 *            the label value
+	 * @return true if the label is indexed
+	 */
+	public boolean contains(int label)
+	{
+		return indexOf(label) >= 0;
+	}
+
+	/**
+	 * @return the number of labels
+	 */
+	public int size()
+	{
+		return labels.length;
+	}
+
+	/**
+	 * @return a copy of the array of labels, in the order of their indices
+	 */
+	public int[] labels()
+	{
+		return labels.clone();
+	}
+
+	/**
+	 * Returns the number of pixels or voxels of each label, if the index
+	 * was computed from an image.
+	 * 
+	 * @return a copy of the array of element counts, in the order of the
+	 *         label indices, or null if the index was created from an array
+	 *         of labels
+	 */
+	public int[] counts()
+	{
+		return counts == null ? null : counts.clone();
+	}
+
+
+	// ==================================================
+	// Inner class for computing histograms of labels
+
+	/**
+	 * Counts the occurrences of each label value, using direct arrays for
+	 * integer images and a growable hash table for float images.
+	 */
+	private static class Histogram
+	{
+		int[] byteCounts = null;
+		int[] shortCounts = null;
+
+		// growable open-addressing table for other label values
+		int[] keys = new int[16];
+		int[] counts = new int[16];
+		int size = 0;
+
+		// the slot of the last updated label, used to skip hashing within runs
+		int lastSlot = -1;
+
+		void add(ImageProcessor image)
+		{
+			int nPixels = image.getPixelCount();
+			if (image instanceof ByteProcessor)
+			{
+				if (byteCounts == null)
+					byteCounts = new int[256];
+				byte[] pixels = (byte[]) image.getPixels();
+				for (int i = 0; i < nPixels; i++)
+				{
+					byteCounts[pixels[i] & 0x00FF]++;
+				}
+			}
+			else if (image instanceof ShortProcessor)
+			{
+				if (shortCounts == null)
+					shortCounts = new int[65536];
+				short[] pixels = (short[]) image.getPixels();
+				for (int i = 0; i < nPixels; i++)
+				{
+					shortCounts[pixels[i] & 0x00FFFF]++;
+				}
+			}
+			else if (image instanceof FloatProcessor)
+			{
+				float[] pixels = (float[]) image.getPixels();
+				for (int i = 0; i < nPixels; i++)
+				{
+					increment((int) pixels[i]);
+				}
+			}
+			else
+			{
+				for (int i = 0; i < nPixels; i++)
+				{
+					increment(image.get(i));
+				}
+			}
+		}
+
+		private void increment(int label)
+		{
+			if (label == 0)
+				return;
+			if (lastSlot < 0 || keys[lastSlot] != label)
+			{
+				lastSlot = findSlot(label);
+			}
+			counts[lastSlot]++;
+		}
+
+		/**
+		 * Returns the slot of the specified label, inserting the label if
+		 * necessary.
+		 */
+		private int findSlot(int label)
+		{
+			int mask = keys.length - 1;
+			int slot = hash(label) & mask;
+			while (counts[slot] > 0)
+			{
+				if (keys[slot] == label)
+					return slot;
+				slot = (slot + 1) & mask;
+			}
+
+			// new label: keep the table at most half full
+			if (2 * (size + 1) > keys.length)
+			{
+				grow();
+				return findSlot(label);
+			}
+			keys[slot] = label;
+			size++;
+			return slot;
+		}
+
+		private void grow()
+		{
+			int[] oldKeys = keys;
+			int[] oldCounts = counts;
+			keys = new int[oldKeys.length * 2];
+			counts = new int[oldKeys.length * 2];
+			int mask = keys.length - 1;
+			for (int i = 0; i < oldKeys.length; i++)
+			{
+				if (oldCounts[i] == 0)
+					continue;
+				int slot = hash(oldKeys[i]) & mask;
+				while (counts[slot] > 0)
+				{
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[i];
+				counts[slot] = oldCounts[i];
+			}
+			lastSlot = -1;
+		}
+
+		LabelIndex createIndex()
+		{
+			// transfer the counts of integer images to the hash table, 
+			// without the background
+			if (byteCounts != null)
+			{
+				for (int label = 1; label < 256; label++)
+					add(label, byteCounts[label]);
+			}
+			if (shortCounts != null)
+			{
+				for (int label = 1; label < 65536; label++)
+					add(label, shortCounts[label]);
+			}
+
+			// collect and sort labels
+			int[] labels = new int[size];
+			int n = 0;
+			for (int i = 0; i < keys.length; i++)
+			{
+				if (counts[i] > 0)
+					labels[n++] = keys[i];
+			}
+			Arrays.sort(labels);
+
+			// retrieve counts in label order
+			LabelIndex index = new LabelIndex(labels, new int[size]);
+			for (int i = 0; i < keys.length; i++)
+			{
+				if (counts[i] > 0)
+					index.counts[index.indexOf(keys[i])] = counts[i];
+			}
+			return index;
+		}
+
+		private void add(int label, int count)
+		{
+			if (count == 0)
+				return;
+			// retrieve slot first, as the table may grow
+			int slot = findSlot(label);
+			counts[slot] += count;
+		}
+	}
+}
@@ -0,0 +1,778 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.label;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import ij.ImageStack;
+import ij.Prefs;
+import ij.process.ImageProcessor;
+import inra.ijpb.util.ParallelRanges;
+
+/**
+ * Sparse contingency table between the labels of a source and a target label
+ * image, computed within a single parallel scan of both images.
+ * 
+ * The table stores the number of elements (pixels or voxels) of each source
+ * label, of each target label, and of each non-empty intersection between a
+ * source label and a target label. All label overlap and agreement measures
+ * are derived from these counts:
+ * <ul>
+ * <li>measures that compare regions with the same label in both images
+ * (target overlap, Jaccard index, Dice coefficient...)</li>
+ * <li>matching-based measures, that pair each source region with the target
+ * region it overlaps the most (best-match Jaccard index, F1 score at a
+ * Jaccard index threshold)</li>
+ * </ul>
+ * 
+ * The overlaps are stored in compressed sparse row format: the overlaps of
+ * the source label with index i are stored between positions rowOffsets[i]
+ * (inclusive) and rowOffsets[i+1] (exclusive), sorted by increasing target
+ * label index.
+ * 
+ * <pre>
+ * {@code
+ * LabelOverlapTable table = LabelOverlapTable.compute(sourceImage, targetImage);
+ * double jaccard = table.jaccardIndex();
+ * double[] jaccardPerLabel = table.jaccardIndexPerLabel();
+ * double f1 = table.f1Score(0.5);
+ * }
+ * </pre>
+ * 
+ * @see LabelImages#getJaccardIndex(ImageStack, ImageStack)
+ * @see inra.ijpb.plugins.LabelOverlapMeasures
+ * 
+ * @author agent
+ *
+ */
+public class LabelOverlapTable
+{
+	// ==================================================
+	// Static factories
+
+	/**
+	 * Computes the overlap table between two 2D label images with the same
+	 * size.
+	 * 
+	 * @param sourceImage
+	 *            the source label image
+	 * @param targetImage
+	 *            the target label image
+	 * @return the overlap table between the labels of the two images
+	 * @throws IllegalArgumentException
+	 *             if the images do not have the same size
+	 */
+	public static final LabelOverlapTable compute(ImageProcessor sourceImage, ImageProcessor targetImage)
+	{
+		ImageStack sourceStack = new ImageStack(sourceImage.getWidth(), sourceImage.getHeight());
+		sourceStack.addSlice(sourceImage);
+		ImageStack targetStack = new ImageStack(targetImage.getWidth(), targetImage.getHeight());
+		targetStack.addSlice(targetImage);
+		return compute(sourceStack, targetStack);
+	}
+
+	/**
+	 * Computes the overlap table between two 3D label images with the same
+	 * size.
+	 * 
+	 * @param sourceImage
+	 *            the source label image
+	 * @param targetImage
+	 *            the target label image
+	 * @return the overlap table between the labels of the two images
+	 * @throws IllegalArgumentException
+	 *             if the images do not have the same size
+	 */
+	public static final LabelOverlapTable compute(ImageStack sourceImage, ImageStack targetImage)
+	{
+		return compute(sourceImage, targetImage, 0);
+	}
+
+	/**
+	 * Computes the overlap table between two 3D label images with the same
+	 * size, using the specified number of threads. The result does not
+	 * depend on the number of threads.
+	 * 
+	 * @param sourceImage
+	 *            the source label image
+	 * @param targetImage
+	 *            the target label image
+	 * @param nThreads
+	 *            the number of threads to use, or 0 for using the number of
+	 *            threads specified in ImageJ preferences
+	 * @return the overlap table between the labels of the two images
+	 * @throws IllegalArgumentException
+	 *             if the images do not have the same size, or if the number
+	 *             of threads is negative
+	 */
+	public static final LabelOverlapTable compute(ImageStack sourceImage, ImageStack targetImage, int nThreads)
+	{
+		if (nThreads < 0)
+		{
+			throw new IllegalArgumentException("Number of threads must be positive or zero, not " + nThreads);
+		}
+
+		final int sizeX = sourceImage.getWidth();
+		final int sizeY = sourceImage.getHeight();
+		final int sizeZ = sourceImage.getSize();
+		if (targetImage.getWidth() != sizeX || targetImage.getHeight() != sizeY || targetImage.getSize() != sizeZ)
+		{
+			throw new IllegalArgumentException("Source and target images must have the same size");
+		}
+
+		// retrieve processors once, as they may be created at each call
+		final ImageProcessor[] sourceSlices = new ImageProcessor[sizeZ];
+		final ImageProcessor[] targetSlices = new ImageProcessor[sizeZ];
+		for (int z = 0; z < sizeZ; z++)
+		{
+			sourceSlices[z] = sourceImage.getProcessor(z + 1);
+			targetSlices[z] = targetImage.getProcessor(z + 1);
+		}
+
+		// count label pairs within each block of lines, and merge the
+		// counts at the end of each block
+		final PairCounter pairs = new PairCounter();
+		ParallelRanges.run(sizeY * sizeZ, nThreads > 0 ? nThreads : Prefs.getThreads(), new ParallelRanges.Task()
+		{
+			public void process(int start, int end)
+			{
+				PairCounter blockPairs = new PairCounter();
+				for (int i = start; i < end; i++)
+				{
+					ImageProcessor source = sourceSlices[i / sizeY];
+					ImageProcessor target = targetSlices[i / sizeY];
+					int offset = (i % sizeY) * sizeX;
+					for (int x = 0; x < sizeX; x++)
+					{
+						int sourceLabel = (int) source.getf(offset + x);
+						int targetLabel = (int) target.getf(offset + x);
+						if (sourceLabel != 0 || targetLabel != 0)
+						{
+							blockPairs.add(sourceLabel, targetLabel, 1);
+						}
+					}
+				}
+
+				synchronized (pairs)
+				{
+					pairs.addAll(blockPairs);
+				}
+			}
+		});
+
+		return new LabelOverlapTable(pairs);
+	}
+
+
+	// ==================================================
+	// Class variables
+
+	/** The sorted labels of the source image, without background. */
+	private final int[] sourceLabels;
+
+	/** The sorted labels of the target image, without background. */
+	private final int[] targetLabels;
+
+	/** The number of elements of each source label. */
+	private final int[] sourceCounts;
+
+	/** The number of elements of each target label. */
+	private final int[] targetCounts;
+
+	/** The total number of foreground elements in the source image. */
+	private final long sourceTotal;
+
+	/** The total number of foreground elements in the target image. */
+	private final long targetTotal;
+
+	/**
+	 * The position of the first overlap of each source label within the
+	 * arrays of overlaps, with an additional element equal to the number of
+	 * overlaps.
+	 */
+	private final int[] rowOffsets;
+
+	/** The target label index of each overlap. */
+	private final int[] targetIndices;
+
+	/** The number of elements of each overlap. */
+	private final int[] overlapCounts;
+
+	/**
+	 * The number of elements with the same label in both images, for each
+	 * source label.
+	 */
+	private final int[] sameLabelCounts;
+
+
+	// ==================================================
+	// Constructor
+
+	/**
+	 * Creates the overlap table from the counts of each pair of labels.
+	 */
+	private LabelOverlapTable(PairCounter pairs)
+	{
+		// extract the foreground labels of each image
+		int nPairs = pairs.index.size();
+		int[] sourceBuffer = new int[nPairs];
+		int[] targetBuffer = new int[nPairs];
+		int nSource = 0, nTarget = 0;
+		for (int p = 0; p < nPairs; p++)
+		{
+			int sourceLabel = pairs.index.label1(p);
+			int targetLabel = pairs.index.label2(p);
+			if (sourceLabel != 0)
+				sourceBuffer[nSource++] = sourceLabel;
+			if (targetLabel != 0)
+				targetBuffer[nTarget++] = targetLabel;
+		}
+		this.sourceLabels = uniqueSorted(sourceBuffer, nSource);
+		this.targetLabels = uniqueSorted(targetBuffer, nTarget);
+		LabelIndex sourceIndex = LabelIndex.fromLabels(this.sourceLabels);
+		LabelIndex targetIndex = LabelIndex.fromLabels(this.targetLabels);
+
+		// count elements of each label, and encode the pairs of foreground
+		// labels such that sorting codes sorts pairs by source then target
+		this.sourceCounts = new int[this.sourceLabels.length];
+		this.targetCounts = new int[this.targetLabels.length];
+		long[] codes = new long[nPairs];
+		int nOverlaps = 0;
+		long sourceTotal = 0, targetTotal = 0;
+		for (int p = 0; p < nPairs; p++)
+		{
+			int count = pairs.counts[p];
+			int sourceLabel = pairs.index.label1(p);
+			int targetLabel = pairs.index.label2(p);
+			int i = sourceLabel != 0 ? sourceIndex.indexOf(sourceLabel) : -1;
+			int j = targetLabel != 0 ? targetIndex.indexOf(targetLabel) : -1;
+			if (i >= 0)
+			{
+				this.sourceCounts[i] += count;
+				sourceTotal += count;
+			}
+			if (j >= 0)
+			{
+				this.targetCounts[j] += count;
+				targetTotal += count;
+			}
+			if (i >= 0 && j >= 0)
+			{
+				codes[nOverlaps++] = ((long) i << 32) | j;
+			}
+		}
+		this.sourceTotal = sourceTotal;
+		this.targetTotal = targetTotal;
+
+		// create the compressed sparse rows
+		Arrays.sort(codes, 0, nOverlaps);
+		this.rowOffsets = new int[this.sourceLabels.length + 1];
+		this.targetIndices = new int[nOverlaps];
+		this.overlapCounts = new int[nOverlaps];
+		this.sameLabelCounts = new int[this.sourceLabels.length];
+		for (int k = 0; k < nOverlaps; k++)
+		{
+			int i = (int) (codes[k] >>> 32);
+			int j = (int) codes[k];
+			int count = pairs.get(this.sourceLabels[i], this.targetLabels[j]);
+			this.rowOffsets[i + 1]++;
+			this.targetIndices[k] = j;
+			this.overlapCounts[k] = count;
+			if (this.sourceLabels[i] == this.targetLabels[j])
+			{
+				this.sameLabelCounts[i] = count;
+			}
+		}
+		for (int i = 0; i < this.sourceLabels.length; i++)
+		{
+			this.rowOffsets[i + 1] += this.rowOffsets[i];
+		}
+	}
+
+	/**
+	 * Returns the sorted distinct values within the first elements of the
+	 * array.
+	 */
+	private static final int[] uniqueSorted(int[] values, int n)
+	{
+		Arrays.sort(values, 0, n);
+		int count = 0;
+		for (int i = 0; i < n; i++)
+		{
+			if (count == 0 || values[i] != values[count - 1])
+			{
+				values[count++] = values[i];
+			}
+		}
+		return Arrays.copyOf(values, count);
+	}
+
+
+	// ==================================================
+	// Access to the contingency table
+
+	/**
+	 * @return the sorted labels of the source image, without background
+	 */
+	public int[] sourceLabels()
+	{
+		return this.sourceLabels.clone();
+	}
+
+	/**
+	 * @return the sorted labels of the target image, without background
+	 */
+	public int[] targetLabels()
+	{
+		return this.targetLabels.clone();
+	}
+
+	/**
+	 * @return the number of elements of each source label
+	 */
+	public int[] sourceCounts()
+	{
+		return this.sourceCounts.clone();
+	}
+
+	/**
+	 * @return the number of elements of each target label
+	 */
+	public int[] targetCounts()
+	{
+		return this.targetCounts.clone();
+	}
+
+	/**
+	 * Returns the number of elements of the intersection between a source
+	 * label and a target label.
+	 * 
+	 * @param sourceLabel
+	 *            a label of the source image
+	 * @param targetLabel
+	 *            a label of the target image
+	 * @return the number of elements of the intersection, or 0 if one of the
+	 *         labels does not exist
+	 */
+	public int overlap(int sourceLabel, int targetLabel)
+	{
+		int i = Arrays.binarySearch(this.sourceLabels, sourceLabel);
+		int j = Arrays.binarySearch(this.targetLabels, targetLabel);
+		if (i < 0 || j < 0)
+			return 0;
+		int k = Arrays.binarySearch(this.targetIndices, this.rowOffsets[i], this.rowOffsets[i + 1], j);
+		return k >= 0 ? this.overlapCounts[k] : 0;
+	}
+
+	/**
+	 * Returns the labels of the target regions that overlap a source region,
+	 * sorted by increasing label.
+	 * 
+	 * @param sourceIndex
+	 *            the index of the source label
+	 * @return the target labels overlapping the source label
+	 */
+	public int[] overlappingTargetLabels(int sourceIndex)
+	{
+		int start = this.rowOffsets[sourceIndex];
+		int[] res = new int[this.rowOffsets[sourceIndex + 1] - start];
+		for (int k = 0; k < res.length; k++)
+		{
+			res[k] = this.targetLabels[this.targetIndices[start + k]];
+		}
+		return res;
+	}
+
+	/**
+	 * Returns the sizes of the intersections between a source region and the
+	 * target regions it overlaps, in the same order as the labels returned by
+	 * {@link #overlappingTargetLabels(int)}.
+	 * 
+	 * @param sourceIndex
+	 *            the index of the source label
+	 * @return the number of elements of each non-empty intersection
+	 */
+	public int[] overlapCounts(int sourceIndex)
+	{
+		return Arrays.copyOfRange(this.overlapCounts, this.rowOffsets[sourceIndex],
+				this.rowOffsets[sourceIndex + 1]);
+	}
+
+
+	// ==================================================
+	// Total measures, comparing regions with the same label
+
+	/**
+	 * @return the number of foreground elements with the same label in both
+	 *         images
+	 */
+	private long sameLabelTotal()
+	{
+		long sum = 0;
+		for (int count : this.sameLabelCounts)
+		{
+			sum += count;
+		}
+		return sum;
+	}
+
+	/**
+	 * Total Overlap (for all regions)
+	 * $TO = \frac{ \sum_r{|S_r \cap T_r|} }{ \sum_r{|T_r|} }$.
+	 * 
+	 * @return the total overlap
+	 */
+	public double totalOverlap()
+	{
+		return (double) sameLabelTotal() / this.targetTotal;
+	}
+
+	/**
+	 * @return the Jaccard index (intersection over union) of the foreground
+	 *         elements with the same label
+	 */
+	public double jaccardIndex()
+	{
+		double intersection = sameLabelTotal();
+		return intersection / (this.sourceTotal + this.targetTotal - intersection);
+	}
+
+	/**
+	 * @return the Dice coefficient of the foreground elements with the same
+	 *         label
+	 */
+	public double diceCoefficient()
+	{
+		return 2.0 * sameLabelTotal() / (this.sourceTotal + this.targetTotal);
+	}
+
+	/**
+	 * @return the volume similarity between the foregrounds of both images
+	 */
+	public double volumeSimilarity()
+	{
+		return 2.0 * (this.sourceTotal - this.targetTotal) / (this.sourceTotal + this.targetTotal);
+	}
+
+	/**
+	 * @return the false negative error, equal to one minus the total
+	 *         overlap
+	 */
+	public double falseNegativeError()
+	{
+		return 1.0 - totalOverlap();
+	}
+
+	/**
+	 * @return the false positive error, the fraction of source foreground
+	 *         elements with a different label in the target image
+	 */
+	public double falsePositiveError()
+	{
+		return (double) (this.sourceTotal - sameLabelTotal()) / this.sourceTotal;
+	}
+
+
+	// ==================================================
+	// Measures per source label, comparing regions with the same label
+
+	/**
+	 * Target Overlap (for individual label regions r)
+	 * $TO_r = \frac{ |S_r \cap T_r| }{ |T_r| }$.
+	 * 
+	 * @return the target overlap of each source label, or 0 if the label does
+	 *         not exist in the target image
+	 */
+	public double[] targetOverlapPerLabel()
+	{
+		double[] res = new double[this.sourceLabels.length];
+		for (int i = 0; i < res.length; i++)
+		{
+			int j = Arrays.binarySearch(this.targetLabels, this.sourceLabels[i]);
+			res[i] = j >= 0 ? (double) this.sameLabelCounts[i] / this.targetCounts[j] : 0;
+		}
+		return res;
+	}
+
+	/**
+	 * @return the Jaccard index between each source region and the target
+	 *         region with the same label
+	 */
+	public double[] jaccardIndexPerLabel()
+	{
+		double[] res = new double[this.sourceLabels.length];
+		for (int i = 0; i < res.length; i++)
+		{
+			double intersection = this.sameLabelCounts[i];
+			res[i] = intersection / (this.sourceCounts[i] + sameTargetCount(i) - intersection);
+		}
+		return res;
+	}
+
+	/**
+	 * @return the Dice coefficient between each source region and the target
+	 *         region with the same label
+	 */
+	public double[] diceCoefficientPerLabel()
+	{
+		double[] res = new double[this.sourceLabels.length];
+		for (int i = 0; i < res.length; i++)
+		{
+			res[i] = 2.0 * this.sameLabelCounts[i] / (this.sourceCounts[i] + sameTargetCount(i));
+		}
+		return res;
+	}
+
+	/**
+	 * @return the volume similarity between each source region and the
+	 *         target region with the same label, or 0 if the label does not
+	 *         exist in the target image
+	 */
+	public double[] volumeSimilarityPerLabel()
+	{
+		double[] res = new double[this.sourceLabels.length];
+		for (int i = 0; i < res.length; i++)
+		{
+			int j = Arrays.binarySearch(this.targetLabels, this.sourceLabels[i]);
+			if (j >= 0)
+			{
+				double ns = this.sourceCounts[i];
+				double nt = this.targetCounts[j];
+				res[i] = 2.0 * (ns - nt) / (ns + nt);
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * @return the false negative error of each source label, equal to one
+	 *         minus the target overlap
+	 */
+	public double[] falseNegativeErrorPerLabel()
+	{
+		double[] res = targetOverlapPerLabel();
+		for (int i = 0; i < res.length; i++)
+		{
+			res[i] = 1.0 - res[i];
+		}
+		return res;
+	}
+
+	/**
+	 * @return the false positive error of each source label, the fraction of
+	 *         its elements with a different label in the target image
+	 */
+	public double[] falsePositiveErrorPerLabel()
+	{
+		double[] res = new double[this.sourceLabels.length];
+		for (int i = 0; i < res.length; i++)
+		{
+			res[i] = (double) (this.sourceCounts[i] - this.sameLabelCounts[i]) / this.sourceCounts[i];
+		}
+		return res;
+	}
+
+	/**
+	 * Returns the number of elements of the target label equal to the source
+	 * label with the given index, or 0 if it does not exist.
+	 */
+	private int sameTargetCount(int sourceIndex)
+	{
+		int j = Arrays.binarySearch(this.targetLabels, this.sourceLabels[sourceIndex]);
+		return j >= 0 ? this.targetCounts[j] : 0;
+	}
+
+
+	// ==================================================
+	// Matching-based measures
+
+	/**
+	 * Computes the Jaccard index between the source region with index i and
+	 * the target region with index j, given the size of their intersection.
+	 */
+	private double jaccard(int i, int j, int intersection)
+	{
+		return (double) intersection / (this.sourceCounts[i] + this.targetCounts[j] - intersection);
+	}
+
+	/**
+	 * For each source region, computes the largest Jaccard index with a
+	 * target region, whatever its label.
+	 * 
+	 * @return the best-match Jaccard index of each source label, or 0 if the
+	 *         source region does not overlap any target region
+	 */
+	public double[] bestMatchJaccardIndex()
+	{
+		double[] res = new double[this.sourceLabels.length];
+		for (int i = 0; i < res.length; i++)
+		{
+			for (int k = this.rowOffsets[i]; k < this.rowOffsets[i + 1]; k++)
+			{
+				res[i] = Math.max(res[i], jaccard(i, this.targetIndices[k], this.overlapCounts[k]));
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * For each source region, finds the target region with the largest
+	 * Jaccard index.
+	 * 
+	 * @return the label of the best-matching target region of each source
+	 *         label, or 0 if the source region does not overlap any target
+	 *         region
+	 */
+	public int[] bestMatchLabels()
+	{
+		int[] res = new int[this.sourceLabels.length];
+		for (int i = 0; i < res.length; i++)
+		{
+			double best = 0;
+			for (int k = this.rowOffsets[i]; k < this.rowOffsets[i + 1]; k++)
+			{
+				double jaccard = jaccard(i, this.targetIndices[k], this.overlapCounts[k]);
+				if (jaccard > best)
+				{
+					best = jaccard;
+					res[i] = this.targetLabels[this.targetIndices[k]];
+				}
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Counts the pairs of source and target regions matched with a Jaccard
+	 * index greater than or equal to the threshold. Each region is matched
+	 * at most once, by considering the candidate pairs by decreasing Jaccard
+	 * index. For thresholds greater than 0.5, the matching is unique.
+	 * 
+	 * @param threshold
+	 *            the minimum Jaccard index of matched regions, greater than 0
+	 * @return the number of matched pairs (true positives)
+	 */
+	public int matchCount(double threshold)
+	{
+		// collect the candidate pairs
+		int nOverlaps = this.overlapCounts.length;
+		double[] scores = new double[nOverlaps];
+		int[] sourceIndices = new int[nOverlaps];
+		Integer[] order = new Integer[nOverlaps];
+		int nCandidates = 0;
+		for (int i = 0; i < this.sourceLabels.length; i++)
+		{
+			for (int k = this.rowOffsets[i]; k < this.rowOffsets[i + 1]; k++)
+			{
+				scores[k] = jaccard(i, this.targetIndices[k], this.overlapCounts[k]);
+				sourceIndices[k] = i;
+				if (scores[k] >= threshold)
+				{
+					order[nCandidates++] = k;
+				}
+			}
+		}
+
+		// sort candidates by decreasing score
+		final double[] fScores = scores;
+		Arrays.sort(order, 0, nCandidates, new Comparator<Integer>()
+		{
+			public int compare(Integer k1, Integer k2)
+			{
+				int res = Double.compare(fScores[k2], fScores[k1]);
+				return res != 0 ? res : Integer.compare(k1, k2);
+			}
+		});
+
+		// greedy one-to-one matching
+		boolean[] sourceMatched = new boolean[this.sourceLabels.length];
+		boolean[] targetMatched = new boolean[this.targetLabels.length];
+		int count = 0;
+		for (int c = 0; c < nCandidates; c++)
+		{
+			int k = order[c];
+			int i = sourceIndices[k];
+			int j = this.targetIndices[k];
+			if (!sourceMatched[i] && !targetMatched[j])
+			{
+				sourceMatched[i] = true;
+				targetMatched[j] = true;
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Computes the F1 score of the matching between source and target
+	 * regions, as the ratio of twice the number of matched pairs over the
+	 * total number of regions.
+	 * 
+	 * @param threshold
+	 *            the minimum Jaccard index of matched regions, greater than 0
+	 * @return the F1 score at the given threshold
+	 * @see #matchCount(double)
+	 */
+	public double f1Score(double threshold)
+	{
+		int nRegions = this.sourceLabels.length + this.targetLabels.length;
+		return nRegions > 0 ? 2.0 * matchCount(threshold) / nRegions : Double.NaN;
+	}
+
+
+	// ==================================================
+	// Inner class
+
+	/**
+	 * Counts the occurrences of pairs of source and target labels.
+	 */
+	private static final class PairCounter
+	{
+		LabelPairIndex index = new LabelPairIndex();
+		int[] counts = new int[32];
+
+		void add(int sourceLabel, int targetLabel, int count)
+		{
+			int p = index.add(sourceLabel, targetLabel);
+			if (p == counts.length)
+			{
+				counts = Arrays.copyOf(counts, 2 * p);
+			}
+			counts[p] += count;
+		}
+
+		void addAll(PairCounter other)
+		{
+			for (int p = 0; p < other.index.size(); p++)
+			{
+				add(other.index.label1(p), other.index.label2(p), other.counts[p]);
+			}
+		}
+
+		int get(int sourceLabel, int targetLabel)
+		{
+			int p = index.indexOf(sourceLabel, targetLabel);
+			return p >= 0 ? counts[p] : 0;
+		}
+	}
+}
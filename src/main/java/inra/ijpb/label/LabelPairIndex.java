@@ -0,0 +1,204 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.label;
+
+import java.util.Arrays;
+
+/**
+ * Associates ordered pairs of labels to consecutive indices, in the order of
+ * their insertion, using an open-addressing hash table with primitive keys.
+ * Attributes of the pairs can be stored within arrays indexed by the pair
+ * indices.
+ * 
+ * @see LabelOverlapTable
+ * @see RegionAdjacencyGraph
+ * 
+ * @author agent
+ *
+ */
+final class LabelPairIndex
+{
+	/** The hash table, containing pair index + 1, or 0 for empty slots. */
+	private int[] table = new int[64];
+
+	/** The key of each pair, in the order of insertion. */
+	private long[] keys = new long[32];
+
+	/** The number of pairs. */
+	private int size = 0;
+
+	/** The key and index of the last pair, as consecutive pairs are often equal. */
+	private long lastKey;
+	private int lastIndex = -1;
+
+	/**
+	 * Encodes a pair of labels into a long key.
+	 */
+	private static final long key(int label1, int label2)
+	{
+		return ((long) label1 << 32) | (label2 & 0xFFFFFFFFL);
+	}
+
+	private static final int hash(long key, int mask)
+	{
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & mask;
+	}
+
+	/**
+	 * Returns the index of a pair of labels, adding the pair if necessary.
+	 * 
+	 * @param label1
+	 *            the first label of the pair
+	 * @param label2
+	 *            the second label of the pair
+	 * @return the index of the pair
+	 */
+	int add(int label1, int label2)
+	{
+		long key = key(label1, label2);
+		if (lastIndex >= 0 && key == lastKey)
+			return lastIndex;
+
+		int mask = table.length - 1;
+		int slot = hash(key, mask);
+		while (table[slot] != 0)
+		{
+			int index = table[slot] - 1;
+			if (keys[index] == key)
+			{
+				lastKey = key;
+				lastIndex = index;
+				return index;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		// insert new pair
+		int index = size++;
+		if (index == keys.length)
+		{
+			keys = Arrays.copyOf(keys, 2 * index);
+		}
+		keys[index] = key;
+		table[slot] = index + 1;
+		if (2 * size > table.length)
+		{
+			rehash(2 * table.length);
+		}
+		lastKey = key;
+		lastIndex = index;
+		return index;
+	}
+
+	/**
+	 * Returns the index of a pair of labels.
+	 * 
+	 * @param label1
+	 *            the first label of the pair
+	 * @param label2
+	 *            the second label of the pair
+	 * @return the index of the pair, or -1 if the pair was not added
+	 */
+	int indexOf(int label1, int label2)
+	{
+		long key = key(label1, label2);
+		int mask = table.length - 1;
+		int slot = hash(key, mask);
+		while (table[slot] != 0)
+		{
+			int index = table[slot] - 1;
+			if (keys[index] == key)
+				return index;
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	private void rehash(int newLength)
+	{
+		table = new int[newLength];
+		int mask = newLength - 1;
+		for (int index = 0; index < size; index++)
+		{
+			int slot = hash(keys[index], mask);
+			while (table[slot] != 0)
+			{
+				slot = (slot + 1) & mask;
+			}
+			table[slot] = index + 1;
+		}
+	}
+
+	/**
+	 * @return the number of pairs
+	 */
+	int size()
+	{
+		return size;
+	}
+
+	/**
+	 * @param index
+	 *            the index of a pair
+	 * @return the first label of the pair
+	 */
+	int label1(int index)
+	{
+		return (int) (keys[index] >>> 32);
+	}
+
+	/**
+	 * @param index
+	 *            the index of a pair
+	 * @return the second label of the pair
+	 */
+	int label2(int index)
+	{
+		return (int) keys[index];
+	}
+
+	/**
+	 * Computes the order of the pairs sorted by first label, then by second
+	 * label.
+	 * 
+	 * @return the indices of the pairs in sorted order
+	 */
+	int[] sortedIndices()
+	{
+		// flip the sign bit of the second label, such that the order of
+		// codes matches the signed order of labels
+		long[] codes = new long[size];
+		for (int index = 0; index < size; index++)
+		{
+			codes[index] = keys[index] ^ 0x80000000L;
+		}
+		Arrays.sort(codes);
+		int[] res = new int[size];
+		for (int i = 0; i < size; i++)
+		{
+			long key = codes[i] ^ 0x80000000L;
+			res[i] = indexOf((int) (key >>> 32), (int) key);
+		}
+		return res;
+	}
+}
@@ -1,7 +1,6 @@
 package inra.ijpb.label;
 
 import java.awt.Point;
-import java.util.Map;
 
 import ij.ImageStack;
 import ij.process.ImageProcessor;
@@ -128,7 +127,7 @@ public class LabelValues
 		int nLabels = labels.length;
 		
 		// init index of each label
-		Map<Integer, Integer> labelIndices = LabelImages.mapLabelIndices(labels);
+		LabelIndex labelIndices = LabelIndex.fromLabels(labels);
 				
 		// Init value of maximum for each label
 		double[] maxValues = new double[nLabels];
@@ -148,9 +147,9 @@ public class LabelValues
 				if (label == 0)
 					continue;
 
-				if (labelIndices.containsKey(label))
+				if (labelIndices.contains(label))
 				{
-					int index = labelIndices.get(label);
+					int index = labelIndices.indexOf(label);
 					
 					// update values and positions
 					double value = image.getf(x, y);
@@ -193,7 +192,7 @@ public class LabelValues
 		int nLabels = labels.length;
 		
 		// init index of each label
-		Map<Integer, Integer> labelIndices = LabelImages.mapLabelIndices(labels);
+		LabelIndex labelIndices = LabelIndex.fromLabels(labels);
 				
 		// Init value of maximum for each label
 		double[] maxValues = new double[nLabels];
@@ -213,9 +212,9 @@ public class LabelValues
 					if (label == 0)
 						continue;
 
-					if (labelIndices.containsKey(label))
+					if (labelIndices.contains(label))
 					{
-						int index = labelIndices.get(label);
+						int index = labelIndices.indexOf(label);
 
 						// update values and positions
 						double value = image.getVoxel(x, y, z);
@@ -246,7 +245,7 @@ public class LabelValues
 			ImageProcessor labelImage, int[] labels)
 	{
 		// Create associative map between each label and its index
-		Map<Integer,Integer> labelIndices = LabelImages.mapLabelIndices(labels);
+		LabelIndex labelIndices = LabelIndex.fromLabels(labels);
 		
 		// Init Position and value of maximum for each label
 		int nLabels = labels.length;
@@ -268,11 +267,11 @@ public class LabelValues
 				// do not process pixels that do not belong to any particle
 				if (label == 0)
 					continue;
-				if (!labelIndices.containsKey(label))
+				if (!labelIndices.contains(label))
 					continue;
 
 				// get position-value pair corresponding to current label
-				int index = labelIndices.get(label);
+				int index = labelIndices.indexOf(label);
 				PositionValuePair pair = pairs[index];
 				
 				// update values and positions
@@ -316,7 +315,7 @@ public class LabelValues
 		}
 
 		// Create associative map between each label and its index
-		Map<Integer,Integer> labelIndices = LabelImages.mapLabelIndices(labels);
+		LabelIndex labelIndices = LabelIndex.fromLabels(labels);
 		
 		// Init Position and value of maximum for each label
 		int nLabels = labels.length;
@@ -338,11 +337,11 @@ public class LabelValues
 					// do not process pixels that do not belong to any particle
 					if (label == 0)
 						continue;
-					if (!labelIndices.containsKey(label))
+					if (!labelIndices.contains(label))
 						continue;
 	
 					// get position-value pair corresponding to current label
-					int index = labelIndices.get(label);
+					int index = labelIndices.indexOf(label);
 					Position3DValuePair pair = pairs[index];
 					
 					// update values and positions
@@ -376,7 +375,7 @@ public class LabelValues
 			ImageProcessor labelImage, int[] labels)
 	{
 		// Create associative map between each label and its index
-		Map<Integer,Integer> labelIndices = LabelImages.mapLabelIndices(labels);
+		LabelIndex labelIndices = LabelIndex.fromLabels(labels);
 		
 		// Init Position and value of maximum for each label
 		int nLabels = labels.length;
@@ -398,11 +397,11 @@ public class LabelValues
 				// do not process pixels that do not belong to any particle
 				if (label == 0)
 					continue;
-				if (!labelIndices.containsKey(label))
+				if (!labelIndices.contains(label))
 					continue;
 
 				// get position-value pair corresponding to current label
-				int index = labelIndices.get(label);
+				int index = labelIndices.indexOf(label);
 				PositionValuePair pair = pairs[index];
 				
 				// update values and positions
@@ -446,7 +445,7 @@ public class LabelValues
 		}
 
 		// Create associative map between each label and its index
-		Map<Integer,Integer> labelIndices = LabelImages.mapLabelIndices(labels);
+		LabelIndex labelIndices = LabelIndex.fromLabels(labels);
 		
 		// Init Position and value of maximum for each label
 		int nLabels = labels.length;
@@ -468,11 +467,11 @@ public class LabelValues
 					// do not process pixels that do not belong to any particle
 					if (label == 0)
 						continue;
-					if (!labelIndices.containsKey(label))
+					if (!labelIndices.contains(label))
 						continue;
 
 					// get position-value pair corresponding to current label
-					int index = labelIndices.get(label);
+					int index = labelIndices.indexOf(label);
 					Position3DValuePair pair = pairs[index];
 
 					// update values and positions
@@ -506,7 +505,7 @@ public class LabelValues
 			ImageProcessor labelImage, int[] labels)
 	{
 		// Create associative map between each label and its index
-		Map<Integer,Integer> labelIndices = LabelImages.mapLabelIndices(labels);
+		LabelIndex labelIndices = LabelIndex.fromLabels(labels);
 		
 		// Init Position and value of maximum for each label
 		int nLabels = labels.length;
@@ -531,7 +530,7 @@ public class LabelValues
 				if (label == 0)
 					continue;
 
-				int index = labelIndices.get(label);
+				int index = labelIndices.indexOf(label);
 				
 				// update values and positions
 				float value = valueImage.getf(x, y);
@@ -574,7 +573,7 @@ public class LabelValues
 		}
 
 		// Create associative map between each label and its index
-		Map<Integer,Integer> labelIndices = LabelImages.mapLabelIndices(labels);
+		LabelIndex labelIndices = LabelIndex.fromLabels(labels);
 		
 		// Init Position and value of maximum for each label
 		int nLabels = labels.length;
@@ -599,7 +598,7 @@ public class LabelValues
 					if (label == 0)
 						continue;
 
-					int index = labelIndices.get(label);
+					int index = labelIndices.indexOf(label);
 
 					// update values and positions
 					double value = valueImage.getVoxel(x, y, z);
@@ -632,7 +631,7 @@ public class LabelValues
 			ImageProcessor labelImage, int[] labels)
 	{
 		// Create associative map between each label and its index
-		Map<Integer,Integer> labelIndices = LabelImages.mapLabelIndices(labels);
+		LabelIndex labelIndices = LabelIndex.fromLabels(labels);
 		
 		// Init Position and value of minimum for each label
 		int nLabels = labels.length;
@@ -657,7 +656,7 @@ public class LabelValues
 				if (label == 0)
 					continue;
 
-				int index = labelIndices.get(label);
+				int index = labelIndices.indexOf(label);
 				
 				// update values and positions
 				float value = valueImage.getf(x, y);
@@ -700,7 +699,7 @@ public class LabelValues
 		}
 
 		// Create associative map between each label and its index
-		Map<Integer,Integer> labelIndices = LabelImages.mapLabelIndices(labels);
+		LabelIndex labelIndices = LabelIndex.fromLabels(labels);
 		
 		// Init Position and value of maximum for each label
 		int nLabels = labels.length;
@@ -725,7 +724,7 @@ public class LabelValues
 					if (label == 0)
 						continue;
 
-					int index = labelIndices.get(label);
+					int index = labelIndices.indexOf(label);
 
 					// update values and positions
 					double value = valueImage.getVoxel(x, y, z);
@@ -23,10 +23,12 @@ package inra.ijpb.label;
 
 import ij.ImagePlus;
 import ij.ImageStack;
+import ij.Prefs;
 import ij.process.ImageProcessor;
+import inra.ijpb.util.ParallelRanges;
 
+import java.util.Arrays;
 import java.util.Set;
-import java.util.TreeSet;
 
 /**
  * <p>
@@ -62,6 +64,9 @@ import java.util.TreeSet;
  * {
  *     System.out.println("(" + pair.label1 + "," + pair.label2 + ")");
  * }
+ * 
+ * // compute the graph of adjacencies, with the contact size of each edge
+ * RegionGraph graph = RegionAdjacencyGraph.computeGraph(image);
  * }</pre>
  * @author dlegland
  *
@@ -100,46 +105,7 @@ public class RegionAdjacencyGraph
 	 */
 	public static final Set<LabelPair> computeAdjacencies(ImageProcessor image)
 	{
-		int width = image.getWidth();
-		int height = image.getHeight();
-		
-		TreeSet<LabelPair> list = new TreeSet<LabelPair>();
-		
-		// transitions in x direction
-		for (int y = 0; y < height; y++)
-		{
-			for (int x = 0; x < width - 2; x++)
-			{
-				int label = (int) image.getf(x, y);
-				if (label == 0)
-					continue;
-				int label2 = (int) image.getf(x + 2, y);
-				if (label2 == 0 || label2 == label)
-					continue;
-				
-				LabelPair pair = new LabelPair(label, label2);
-				list.add(pair);
-			}
-		}
-		
-		// transitions in y direction
-		for (int y = 0; y < height - 2; y++)
-		{
-			for (int x = 0; x < width; x++)
-			{
-				int label = (int) image.getf(x, y);
-				if (label == 0)
-					continue;
-				int label2 = (int) image.getf(x, y + 2);
-				if (label2 == 0 || label2 == label)
-					continue;
-				
-				LabelPair pair = new LabelPair(label, label2);
-				list.add(pair);
-			}
-		}
-		
-		return list;
+		return computeGraph(image).labelPairs();
 	}
 	
 	/**
@@ -151,73 +117,369 @@ public class RegionAdjacencyGraph
 	 */
 	public static final Set<LabelPair> computeAdjacencies(ImageStack image)
 	{
-		int width = image.getWidth();
-		int height = image.getHeight();
-		int depth = image.getSize();
-		
-		TreeSet<LabelPair> list = new TreeSet<LabelPair>();
-		
-		// transitions in x direction
-		for (int z = 0; z < depth; z++)
+		return computeGraph(image).labelPairs();
+	}
+
+	/**
+	 * Computes the adjacency graph of the regions within a 2D or 3D label
+	 * image, and the contact size of each adjacency.
+	 * 
+	 * @param image
+	 *            an ImagePlus containing a 2D or 3D label image
+	 * @return the adjacency graph of the regions
+	 */
+	public static final RegionGraph computeGraph(ImagePlus image)
+	{
+		return computeGraph(image.getStack(), null);
+	}
+
+	/**
+	 * Computes the adjacency graph of the regions within a 2D label image,
+	 * and the contact size of each adjacency.
+	 * 
+	 * @param image
+	 *            a label image
+	 * @return the adjacency graph of the regions
+	 */
+	public static final RegionGraph computeGraph(ImageProcessor image)
+	{
+		return computeGraph(image, null);
+	}
+
+	/**
+	 * Computes the adjacency graph of the regions within a 2D label image,
+	 * and the contact size of each adjacency. If a value image is given, the
+	 * mean, min and max values along each interface are also computed.
+	 * 
+	 * @param image
+	 *            a label image
+	 * @param values
+	 *            an image of values with the same size, or null
+	 * @return the adjacency graph of the regions
+	 */
+	public static final RegionGraph computeGraph(ImageProcessor image, ImageProcessor values)
+	{
+		ImageStack stack = new ImageStack(image.getWidth(), image.getHeight());
+		stack.addSlice(image);
+		ImageStack valueStack = null;
+		if (values != null)
+		{
+			valueStack = new ImageStack(values.getWidth(), values.getHeight());
+			valueStack.addSlice(values);
+		}
+		return computeGraph(stack, valueStack);
+	}
+
+	/**
+	 * Computes the adjacency graph of the regions within a 3D label image,
+	 * and the contact size of each adjacency.
+	 * 
+	 * @param image
+	 *            a 3D label image
+	 * @return the adjacency graph of the regions
+	 */
+	public static final RegionGraph computeGraph(ImageStack image)
+	{
+		return computeGraph(image, null);
+	}
+
+	/**
+	 * Computes the adjacency graph of the regions within a 3D label image,
+	 * and the contact size of each adjacency. If a value image is given, the
+	 * mean, min and max values along each interface are also computed.
+	 * 
+	 * Slices are split into blocks of lines processed in parallel, each
+	 * block storing the edges it finds within its own primitive hash table.
+	 * 
+	 * @param image
+	 *            a 3D label image
+	 * @param values
+	 *            an image of values with the same size, or null
+	 * @return the adjacency graph of the regions
+	 */
+	public static final RegionGraph computeGraph(ImageStack image, ImageStack values)
+	{
+		return computeGraph(image, values, 0);
+	}
+
+	/**
+	 * Computes the adjacency graph of the regions within a 3D label image,
+	 * using the specified number of threads. The result does not depend on
+	 * the number of threads.
+	 * 
+	 * @param image
+	 *            a 3D label image
+	 * @param values
+	 *            an image of values with the same size, or null
+	 * @param nThreads
+	 *            the number of threads to use, or 0 for using the number of
+	 *            threads specified in ImageJ preferences
+	 * @return the adjacency graph of the regions
+	 */
+	public static final RegionGraph computeGraph(ImageStack image, ImageStack values, int nThreads)
+	{
+		if (nThreads < 0)
+		{
+			throw new IllegalArgumentException("Number of threads must be positive or zero, not " + nThreads);
+		}
+
+		final int sizeX = image.getWidth();
+		final int sizeY = image.getHeight();
+		final int sizeZ = image.getSize();
+		if (values != null && (values.getWidth() != sizeX || values.getHeight() != sizeY
+				|| values.getSize() != sizeZ))
+		{
+			throw new IllegalArgumentException("Label and value images must have the same size");
+		}
+
+		// retrieve processors once, as they may be created at each call
+		final ImageProcessor[] labelSlices = new ImageProcessor[sizeZ];
+		final ImageProcessor[] valueSlices = values != null ? new ImageProcessor[sizeZ] : null;
+		for (int z = 0; z < sizeZ; z++)
+		{
+			labelSlices[z] = image.getProcessor(z + 1);
+			if (values != null)
+				valueSlices[z] = values.getProcessor(z + 1);
+		}
+		final boolean hasValues = values != null;
+
+		// each line processes the comparisons starting from its elements
+		final EdgeAccumulator edges = new EdgeAccumulator(hasValues);
+		ParallelRanges.run(sizeY * sizeZ, nThreads > 0 ? nThreads : Prefs.getThreads(), new ParallelRanges.Task()
 		{
-			for (int y = 0; y < height; y++)
+			public void process(int start, int end)
 			{
-				for (int x = 0; x < width - 2; x++)
+				EdgeAccumulator blockEdges = new EdgeAccumulator(hasValues);
+				for (int i = start; i < end; i++)
 				{
-					int label = (int) image.getVoxel(x, y, z);
-					if (label == 0)
-						continue;
-					int label2 = (int) image.getVoxel(x + 2, y, z);
-					if (label2 == 0 || label2 == label)
-						continue;
+					int z = i / sizeY;
+					int y = i % sizeY;
+					ImageProcessor labels = labelSlices[z];
+					ImageProcessor vals = hasValues ? valueSlices[z] : null;
+					int offset = y * sizeX;
+
+					// transitions in x direction
+					for (int x = 0; x < sizeX - 2; x++)
+					{
+						int index = offset + x;
+						int label = (int) labels.getf(index);
+						if (label == 0)
+							continue;
+						int label2 = (int) labels.getf(index + 2);
+						if (label2 == 0 || label2 == label)
+							continue;
+						int middle = (int) labels.getf(index + 1);
+						int next = x + 3 < sizeX ? (int) labels.getf(index + 3) : 0;
+						blockEdges.addComparison(label, middle, label2, next,
+								vals, index, vals, index + 1, vals, index + 2);
+					}
 
-					LabelPair pair = new LabelPair(label, label2);
-					list.add(pair);
+					// transitions in y direction
+					if (y < sizeY - 2)
+					{
+						for (int x = 0; x < sizeX; x++)
+						{
+							int index = offset + x;
+							int label = (int) labels.getf(index);
+							if (label == 0)
+								continue;
+							int label2 = (int) labels.getf(index + 2 * sizeX);
+							if (label2 == 0 || label2 == label)
+								continue;
+							int middle = (int) labels.getf(index + sizeX);
+							int next = y + 3 < sizeY ? (int) labels.getf(index + 3 * sizeX) : 0;
+							blockEdges.addComparison(label, middle, label2, next,
+									vals, index, vals, index + sizeX, vals, index + 2 * sizeX);
+						}
+					}
+
+					// transitions in z direction
+					if (z < sizeZ - 2)
+					{
+						ImageProcessor labels1 = labelSlices[z + 1];
+						ImageProcessor labels2 = labelSlices[z + 2];
+						ImageProcessor labels3 = z + 3 < sizeZ ? labelSlices[z + 3] : null;
+						ImageProcessor vals1 = hasValues ? valueSlices[z + 1] : null;
+						ImageProcessor vals2 = hasValues ? valueSlices[z + 2] : null;
+						for (int x = 0; x < sizeX; x++)
+						{
+							int index = offset + x;
+							int label = (int) labels.getf(index);
+							if (label == 0)
+								continue;
+							int label2 = (int) labels2.getf(index);
+							if (label2 == 0 || label2 == label)
+								continue;
+							int middle = (int) labels1.getf(index);
+							int next = labels3 != null ? (int) labels3.getf(index) : 0;
+							blockEdges.addComparison(label, middle, label2, next,
+									vals, index, vals1, index, vals2, index);
+						}
+					}
 				}
+
+				synchronized (edges)
+				{
+					edges.addAll(blockEdges);
+				}
+			}
+		});
+
+		// create nodes from the labels of the image
+		LabelIndex nodeIndex = LabelIndex.fromImage(image);
+
+		// create edges sorted by label pairs
+		int[] order = edges.pairs.sortedIndices();
+		int nEdges = order.length;
+		int[] edgeNodes1 = new int[nEdges];
+		int[] edgeNodes2 = new int[nEdges];
+		int[] contactSizes = new int[nEdges];
+		double[] valueSums = hasValues ? new double[nEdges] : null;
+		double[] valueMins = hasValues ? new double[nEdges] : null;
+		double[] valueMaxs = hasValues ? new double[nEdges] : null;
+		for (int e = 0; e < nEdges; e++)
+		{
+			int p = order[e];
+			edgeNodes1[e] = nodeIndex.indexOf(edges.pairs.label1(p));
+			edgeNodes2[e] = nodeIndex.indexOf(edges.pairs.label2(p));
+			contactSizes[e] = edges.contacts[p];
+			if (hasValues)
+			{
+				valueSums[e] = edges.sums[p];
+				valueMins[e] = edges.mins[p];
+				valueMaxs[e] = edges.maxs[p];
 			}
 		}
 
-		// transitions in y direction
-		for (int z = 0; z < depth; z++)
+		return new RegionGraph(nodeIndex.labels(), nodeIndex.counts(), edgeNodes1, edgeNodes2, contactSizes,
+				valueSums, valueMins, valueMaxs);
+	}
+
+	/**
+	 * Stores the edges found within a part of the image, and the statistics
+	 * of their interfaces.
+	 */
+	private static final class EdgeAccumulator
+	{
+		final boolean hasValues;
+		final LabelPairIndex pairs = new LabelPairIndex();
+		int[] contacts = new int[32];
+		double[] sums, mins, maxs;
+
+		EdgeAccumulator(boolean hasValues)
 		{
-			for (int y = 0; y < height - 2; y++)
+			this.hasValues = hasValues;
+			if (hasValues)
 			{
-				for (int x = 0; x < width; x++)
-				{
-					int label = (int) image.getVoxel(x, y, z);
-					if (label == 0)
-						continue;
-					int label2 = (int) image.getVoxel(x, y + 2, z);
-					if (label2 == 0 || label2 == label)
-						continue;
+				this.sums = new double[32];
+				this.mins = new double[32];
+				this.maxs = new double[32];
+			}
+		}
+
+		/**
+		 * Processes the comparison between two elements with different
+		 * labels at a distance of two elements. The interface element is
+		 * counted only once: the middle element if it belongs to background,
+		 * or the pair of touching elements otherwise, if it is not counted by
+		 * the next comparison.
+		 */
+		void addComparison(int label, int middle, int label2, int next,
+				ImageProcessor vals0, int index0, ImageProcessor vals1, int index1,
+				ImageProcessor vals2, int index2)
+		{
+			if (middle == 0)
+			{
+				add(label, label2, 1, hasValues ? vals1.getf(index1) : 0);
+			}
+			else if (middle == label2)
+			{
+				add(label, label2, 1, hasValues ? (vals0.getf(index0) + vals1.getf(index1)) * 0.5 : 0);
+			}
+			else if (middle == label && next != label2)
+			{
+				add(label, label2, 1, hasValues ? (vals1.getf(index1) + vals2.getf(index2)) * 0.5 : 0);
+			}
+			else
+			{
+				// adjacent regions, interface counted elsewhere
+				add(label, label2, 0, 0);
+			}
+		}
+
+		/**
+		 * Adds contact elements to the edge between two labels.
+		 */
+		void add(int label1, int label2, int count, double value)
+		{
+			int p = label1 < label2 ? pairs.add(label1, label2) : pairs.add(label2, label1);
+			if (p == contacts.length)
+			{
+				grow(2 * p);
+			}
+			if (count == 0)
+				return;
 
-					LabelPair pair = new LabelPair(label, label2);
-					list.add(pair);
+			if (hasValues)
+			{
+				if (contacts[p] == 0)
+				{
+					mins[p] = value;
+					maxs[p] = value;
 				}
+				else
+				{
+					mins[p] = Math.min(mins[p], value);
+					maxs[p] = Math.max(maxs[p], value);
+				}
+				sums[p] += value;
 			}
+			contacts[p] += count;
 		}
 
-		// transitions in z direction
-		for (int z = 0; z < depth - 2; z++)
+		/**
+		 * Merges the edges found by another accumulator.
+		 */
+		void addAll(EdgeAccumulator other)
 		{
-			for (int y = 0; y < height; y++)
+			for (int q = 0; q < other.pairs.size(); q++)
 			{
-				for (int x = 0; x < width; x++)
+				int p = pairs.add(other.pairs.label1(q), other.pairs.label2(q));
+				if (p == contacts.length)
 				{
-					int label = (int) image.getVoxel(x, y, z);
-					if (label == 0)
-						continue;
-					int label2 = (int) image.getVoxel(x, y, z + 2);
-					if (label2 == 0 || label2 == label)
-						continue;
+					grow(2 * p);
+				}
+				if (other.contacts[q] == 0)
+					continue;
 
-					LabelPair pair = new LabelPair(label, label2);
-					list.add(pair);
+				if (hasValues)
+				{
+					if (contacts[p] == 0)
+					{
+						mins[p] = other.mins[q];
+						maxs[p] = other.maxs[q];
+					}
+					else
+					{
+						mins[p] = Math.min(mins[p], other.mins[q]);
+						maxs[p] = Math.max(maxs[p], other.maxs[q]);
+					}
+					sums[p] += other.sums[q];
 				}
+				contacts[p] += other.contacts[q];
+			}
+		}
+
+		private void grow(int length)
+		{
+			contacts = Arrays.copyOf(contacts, length);
+			if (hasValues)
+			{
+				sums = Arrays.copyOf(sums, length);
+				mins = Arrays.copyOf(mins, length);
+				maxs = Arrays.copyOf(maxs, length);
 			}
 		}
-	
-		return list;
 	}
 
 	/**
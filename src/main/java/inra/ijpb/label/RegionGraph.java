@@ -0,0 +1,410 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.label;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+import inra.ijpb.label.RegionAdjacencyGraph.LabelPair;
+
+/**
+ * Compact representation of the adjacency graph between the regions of a
+ * label image, with attributes on the edges.
+ * 
+ * Nodes correspond to the labels of the image, sorted by increasing values,
+ * and are identified by their index. Edges are sorted by increasing pairs of
+ * labels, and are also identified by their index. The neighbors of each node
+ * are stored in compressed sparse row (CSR) format:
+ * 
+ * <pre>
+ * {@code
+ * RegionGraph graph = RegionAdjacencyGraph.computeGraph(labelImage, valueImage);
+ * for (int node = 0; node < graph.nodeCount(); node++)
+ * {
+ *     for (int k = graph.neighborStart(node); k < graph.neighborEnd(node); k++)
+ *     {
+ *         int neighbor = graph.neighborNode(k);
+ *         double meanValue = graph.meanValue(graph.neighborEdge(k));
+ *     }
+ * }
+ * }
+ * </pre>
+ * 
+ * The contact size of an edge is the number of elements on the interface
+ * between the two regions: the background elements between them (for label
+ * images obtained with watershed lines), and the pairs of touching elements.
+ * When a value image is given, the mean, min and max values are computed on
+ * the interface elements; the value of a pair of touching elements is the
+ * average of their values.
+ * 
+ * @see RegionAdjacencyGraph#computeGraph(ij.process.ImageProcessor,
+ *      ij.process.ImageProcessor)
+ * 
+ * @author agent
+ *
+ */
+public class RegionGraph
+{
+	// ==================================================
+	// Class variables
+
+	/** The label of each node, sorted by increasing values. */
+	private final int[] labels;
+
+	/** The number of elements of each node region. */
+	private final int[] regionSizes;
+
+	/** The index of the node with the lowest label of each edge. */
+	private final int[] edgeNodes1;
+
+	/** The index of the node with the highest label of each edge. */
+	private final int[] edgeNodes2;
+
+	/** The number of interface elements of each edge. */
+	private final int[] contactSizes;
+
+	/** The sum of the values on the interface of each edge, or null. */
+	private final double[] valueSums;
+
+	/** The smallest value on the interface of each edge, or null. */
+	private final double[] valueMins;
+
+	/** The largest value on the interface of each edge, or null. */
+	private final double[] valueMaxs;
+
+	/** The position of the first neighbor of each node, plus the end position. */
+	private final int[] neighborOffsets;
+
+	/** The node index of each neighbor. */
+	private final int[] neighborNodes;
+
+	/** The edge index of each neighbor. */
+	private final int[] neighborEdges;
+
+
+	// ==================================================
+	// Constructor
+
+	/**
+	 * Creates a new graph. Edges must be sorted by increasing pairs of node
+	 * indices, and the first node of each edge must have the lowest index.
+	 * 
+	 * @param labels
+	 *            the label of each node, sorted by increasing value
+	 * @param regionSizes
+	 *            the number of elements of each node region
+	 * @param edgeNodes1
+	 *            the first node index of each edge
+	 * @param edgeNodes2
+	 *            the second node index of each edge
+	 * @param contactSizes
+	 *            the number of interface elements of each edge
+	 * @param valueSums
+	 *            the sum of interface values of each edge, or null
+	 * @param valueMins
+	 *            the min of interface values of each edge, or null
+	 * @param valueMaxs
+	 *            the max of interface values of each edge, or null
+	 */
+	RegionGraph(int[] labels, int[] regionSizes, int[] edgeNodes1, int[] edgeNodes2, int[] contactSizes,
+			double[] valueSums, double[] valueMins, double[] valueMaxs)
+	{
+		this.labels = labels;
+		this.regionSizes = regionSizes;
+		this.edgeNodes1 = edgeNodes1;
+		this.edgeNodes2 = edgeNodes2;
+		this.contactSizes = contactSizes;
+		this.valueSums = valueSums;
+		this.valueMins = valueMins;
+		this.valueMaxs = valueMaxs;
+
+		// count the neighbors of each node
+		int nNodes = labels.length;
+		int nEdges = edgeNodes1.length;
+		this.neighborOffsets = new int[nNodes + 1];
+		for (int e = 0; e < nEdges; e++)
+		{
+			this.neighborOffsets[edgeNodes1[e] + 1]++;
+			this.neighborOffsets[edgeNodes2[e] + 1]++;
+		}
+		for (int i = 0; i < nNodes; i++)
+		{
+			this.neighborOffsets[i + 1] += this.neighborOffsets[i];
+		}
+
+		// fill neighbor arrays; as edges are sorted, the neighbors of each
+		// node are sorted by increasing index
+		this.neighborNodes = new int[2 * nEdges];
+		this.neighborEdges = new int[2 * nEdges];
+		int[] pos = new int[nNodes];
+		System.arraycopy(this.neighborOffsets, 0, pos, 0, nNodes);
+		for (int e = 0; e < nEdges; e++)
+		{
+			int k = pos[edgeNodes2[e]]++;
+			this.neighborNodes[k] = edgeNodes1[e];
+			this.neighborEdges[k] = e;
+		}
+		for (int e = 0; e < nEdges; e++)
+		{
+			int k = pos[edgeNodes1[e]]++;
+			this.neighborNodes[k] = edgeNodes2[e];
+			this.neighborEdges[k] = e;
+		}
+	}
+
+
+	// ==================================================
+	// Nodes
+
+	/**
+	 * @return the number of nodes (regions) of the graph
+	 */
+	public int nodeCount()
+	{
+		return this.labels.length;
+	}
+
+	/**
+	 * @return the labels of the nodes, sorted by increasing values
+	 */
+	public int[] labels()
+	{
+		return this.labels.clone();
+	}
+
+	/**
+	 * @param node
+	 *            the index of a node
+	 * @return the label of the node
+	 */
+	public int label(int node)
+	{
+		return this.labels[node];
+	}
+
+	/**
+	 * @param label
+	 *            a region label
+	 * @return the index of the node with the specified label, or -1 if the
+	 *         label does not exist
+	 */
+	public int nodeIndex(int label)
+	{
+		int index = Arrays.binarySearch(this.labels, label);
+		return index >= 0 ? index : -1;
+	}
+
+	/**
+	 * @param node
+	 *            the index of a node
+	 * @return the number of elements (pixels or voxels) of the region
+	 */
+	public int regionSize(int node)
+	{
+		return this.regionSizes[node];
+	}
+
+	/**
+	 * @param node
+	 *            the index of a node
+	 * @return the number of neighbors of the node
+	 */
+	public int degree(int node)
+	{
+		return this.neighborOffsets[node + 1] - this.neighborOffsets[node];
+	}
+
+	/**
+	 * @param node
+	 *            the index of a node
+	 * @return the position of the first neighbor of the node
+	 */
+	public int neighborStart(int node)
+	{
+		return this.neighborOffsets[node];
+	}
+
+	/**
+	 * @param node
+	 *            the index of a node
+	 * @return the position after the last neighbor of the node
+	 */
+	public int neighborEnd(int node)
+	{
+		return this.neighborOffsets[node + 1];
+	}
+
+	/**
+	 * @param k
+	 *            a neighbor position, between neighborStart(node) and
+	 *            neighborEnd(node)
+	 * @return the index of the neighbor node
+	 */
+	public int neighborNode(int k)
+	{
+		return this.neighborNodes[k];
+	}
+
+	/**
+	 * @param k
+	 *            a neighbor position, between neighborStart(node) and
+	 *            neighborEnd(node)
+	 * @return the index of the edge to the neighbor node
+	 */
+	public int neighborEdge(int k)
+	{
+		return this.neighborEdges[k];
+	}
+
+	/**
+	 * @param node
+	 *            the index of a node
+	 * @return the indices of the neighbor nodes, sorted by increasing values
+	 */
+	public int[] neighbors(int node)
+	{
+		return Arrays.copyOfRange(this.neighborNodes, this.neighborOffsets[node],
+				this.neighborOffsets[node + 1]);
+	}
+
+
+	// ==================================================
+	// Edges
+
+	/**
+	 * @return the number of edges (adjacencies) of the graph
+	 */
+	public int edgeCount()
+	{
+		return this.edgeNodes1.length;
+	}
+
+	/**
+	 * @param edge
+	 *            the index of an edge
+	 * @return the index of the node with the lowest label
+	 */
+	public int edgeNode1(int edge)
+	{
+		return this.edgeNodes1[edge];
+	}
+
+	/**
+	 * @param edge
+	 *            the index of an edge
+	 * @return the index of the node with the highest label
+	 */
+	public int edgeNode2(int edge)
+	{
+		return this.edgeNodes2[edge];
+	}
+
+	/**
+	 * Finds the edge between two nodes.
+	 * 
+	 * @param node1
+	 *            the index of the first node
+	 * @param node2
+	 *            the index of the second node
+	 * @return the index of the edge between the two nodes, or -1 if the nodes
+	 *         are not adjacent
+	 */
+	public int edgeIndex(int node1, int node2)
+	{
+		int k = Arrays.binarySearch(this.neighborNodes, this.neighborOffsets[node1],
+				this.neighborOffsets[node1 + 1], node2);
+		return k >= 0 ? this.neighborEdges[k] : -1;
+	}
+
+	/**
+	 * @param edge
+	 *            the index of an edge
+	 * @return the number of interface elements between the two regions
+	 */
+	public int contactSize(int edge)
+	{
+		return this.contactSizes[edge];
+	}
+
+	/**
+	 * @return true if the edges contain statistics of a value image
+	 */
+	public boolean hasValues()
+	{
+		return this.valueSums != null;
+	}
+
+	/**
+	 * @param edge
+	 *            the index of an edge
+	 * @return the mean value on the interface, or NaN if the graph has no
+	 *         values or if the interface is empty
+	 */
+	public double meanValue(int edge)
+	{
+		if (this.valueSums == null || this.contactSizes[edge] == 0)
+			return Double.NaN;
+		return this.valueSums[edge] / this.contactSizes[edge];
+	}
+
+	/**
+	 * @param edge
+	 *            the index of an edge
+	 * @return the smallest value on the interface, or NaN if the graph has no
+	 *         values or if the interface is empty
+	 */
+	public double minValue(int edge)
+	{
+		if (this.valueMins == null || this.contactSizes[edge] == 0)
+			return Double.NaN;
+		return this.valueMins[edge];
+	}
+
+	/**
+	 * @param edge
+	 *            the index of an edge
+	 * @return the largest value on the interface, or NaN if the graph has no
+	 *         values or if the interface is empty
+	 */
+	public double maxValue(int edge)
+	{
+		if (this.valueMaxs == null || this.contactSizes[edge] == 0)
+			return Double.NaN;
+		return this.valueMaxs[edge];
+	}
+
+	/**
+	 * Converts the edges of this graph into a set of label pairs.
+	 * 
+	 * @return the set of adjacencies between labels
+	 */
+	public Set<LabelPair> labelPairs()
+	{
+		TreeSet<LabelPair> pairs = new TreeSet<LabelPair>();
+		for (int e = 0; e < this.edgeNodes1.length; e++)
+		{
+			pairs.add(new LabelPair(this.labels[this.edgeNodes1[e]], this.labels[this.edgeNodes2[e]]));
+		}
+		return pairs;
+	}
+}
@@ -0,0 +1,1155 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.label;
+
+import java.util.Arrays;
+
+import ij.ImageStack;
+import ij.process.FloatProcessor;
+import ij.process.ImageProcessor;
+
+/**
+ * Hierarchical merging of the regions of a label image, based on the region
+ * adjacency graph. Typically used to reduce the over-segmentation obtained
+ * with watershed transforms.
+ * 
+ * The two adjacent regions connected by the edge with the smallest weight
+ * are merged iteratively, until a single region remains within each
+ * connected component of the graph. Edges are stored in an indexed priority
+ * queue, so that the weights of the edges incident to the merged regions can
+ * be updated. The sequence of merges is computed once, and can then be cut
+ * at any threshold or number of regions without running the merging again.
+ * 
+ * <pre>
+ * {@code
+ * RegionMerging merging = RegionMerging.compute(basins, gradient,
+ *         RegionMerging.Weight.MEAN_BOUNDARY_VALUE);
+ * int[] nodeLabels = merging.nodeLabels(20.0);
+ * ImageProcessor merged = merging.relabelWithGap(basins, nodeLabels, 4);
+ * FloatProcessor saliency = merging.saliencyMap(basins);
+ * }
+ * </pre>
+ * 
+ * The level of each merge is the weight of the corresponding edge, made
+ * non-decreasing along the sequence of merges. The levels therefore define
+ * an ultrametric distance between the regions, that is used to compute the
+ * saliency map of the boundaries.
+ * 
+ * @see RegionAdjacencyGraph#computeGraph(ImageStack, ImageStack)
+ * @see RegionGraph
+ * 
+ * @author agent
+ *
+ */
+public class RegionMerging
+{
+	// ==================================================
+	// Enumeration of edge weights
+
+	/**
+	 * The different weights that can be associated to the edges between two
+	 * regions.
+	 */
+	public enum Weight
+	{
+		/** The mean value of the value image along the boundary. */
+		MEAN_BOUNDARY_VALUE,
+		/** The smallest value of the value image along the boundary. */
+		MIN_BOUNDARY_VALUE,
+		/**
+		 * The dynamics of the boundary, computed as the difference between
+		 * the smallest value along the boundary and the largest of the
+		 * minimal values within the two regions.
+		 */
+		DYNAMICS,
+		/**
+		 * The size of the smallest region. Regions with the same size are
+		 * merged first with the neighbor with the smallest mean boundary
+		 * value, or with the longest boundary if no value was computed.
+		 */
+		SIZE;
+	}
+
+
+	// ==================================================
+	// Static factories
+
+	/**
+	 * Computes the hierarchical merging of the regions within a 2D label
+	 * image.
+	 * 
+	 * @param labelImage
+	 *            a label image, usually obtained by a watershed transform
+	 * @param valueImage
+	 *            the image used to compute boundary values (for example the
+	 *            gradient image used for the watershed). Can be null for
+	 *            the SIZE weight.
+	 * @param weight
+	 *            the weight of the edges between regions
+	 * @return the result of the merging
+	 */
+	public static final RegionMerging compute(ImageProcessor labelImage, ImageProcessor valueImage, Weight weight)
+	{
+		ImageStack valueStack = null;
+		if (valueImage != null)
+		{
+			valueStack = wrap(valueImage);
+		}
+		return compute(wrap(labelImage), valueStack, weight);
+	}
+
+	/**
+	 * Computes the hierarchical merging of the regions within a 3D label
+	 * image.
+	 * 
+	 * @param labelImage
+	 *            a 3D label image, usually obtained by a watershed transform
+	 * @param valueImage
+	 *            the image used to compute boundary values (for example the
+	 *            gradient image used for the watershed). Can be null for
+	 *            the SIZE weight.
+	 * @param weight
+	 *            the weight of the edges between regions
+	 * @return the result of the merging
+	 */
+	public static final RegionMerging compute(ImageStack labelImage, ImageStack valueImage, Weight weight)
+	{
+		if (valueImage == null && weight != Weight.SIZE)
+		{
+			throw new IllegalArgumentException("A value image is required for weight " + weight);
+		}
+		RegionGraph graph = RegionAdjacencyGraph.computeGraph(labelImage, valueImage);
+
+		double[] regionMinValues = null;
+		if (weight == Weight.DYNAMICS)
+		{
+			regionMinValues = regionMinValues(graph, labelImage, valueImage);
+		}
+		return compute(graph, regionMinValues, weight);
+	}
+
+	/**
+	 * Computes the hierarchical merging of the regions of an adjacency graph.
+	 * 
+	 * @param graph
+	 *            the region adjacency graph. Must contain boundary values for
+	 *            all weights except SIZE.
+	 * @param regionMinValues
+	 *            the minimal value within each region, used only for the
+	 *            DYNAMICS weight (can be null otherwise)
+	 * @param weight
+	 *            the weight of the edges between regions
+	 * @return the result of the merging
+	 */
+	public static final RegionMerging compute(RegionGraph graph, double[] regionMinValues, Weight weight)
+	{
+		if (!graph.hasValues() && weight != Weight.SIZE)
+		{
+			throw new IllegalArgumentException("The graph must contain boundary values for weight " + weight);
+		}
+		if (weight == Weight.DYNAMICS && (regionMinValues == null || regionMinValues.length != graph.nodeCount()))
+		{
+			throw new IllegalArgumentException("The minimal value of each region is required for weight " + weight);
+		}
+		return new RegionMerging(graph, regionMinValues, weight);
+	}
+
+	/**
+	 * Computes the minimal value within each region of the graph.
+	 */
+	private static final double[] regionMinValues(RegionGraph graph, ImageStack labelImage, ImageStack valueImage)
+	{
+		int sizeX = labelImage.getWidth();
+		int sizeY = labelImage.getHeight();
+		int sizeZ = labelImage.getSize();
+
+		LabelIndex index = LabelIndex.fromLabels(graph.labels());
+		double[] minValues = new double[graph.nodeCount()];
+		Arrays.fill(minValues, Double.POSITIVE_INFINITY);
+		for (int z = 0; z < sizeZ; z++)
+		{
+			ImageProcessor labels = labelImage.getProcessor(z + 1);
+			ImageProcessor values = valueImage.getProcessor(z + 1);
+			for (int i = 0; i < sizeX * sizeY; i++)
+			{
+				int label = (int) labels.getf(i);
+				if (label == 0)
+					continue;
+				int node = index.indexOf(label);
+				minValues[node] = Math.min(minValues[node], values.getf(i));
+			}
+		}
+		return minValues;
+	}
+
+	/**
+	 * Converts a planar image into a stack with a single slice.
+	 */
+	private static final ImageStack wrap(ImageProcessor image)
+	{
+		ImageStack stack = new ImageStack(image.getWidth(), image.getHeight());
+		stack.addSlice(image);
+		return stack;
+	}
+
+
+	// ==================================================
+	// Class variables
+
+	/** The adjacency graph of the initial regions. */
+	private final RegionGraph graph;
+
+	/** The weight used for merging regions. */
+	private final Weight weight;
+
+	/** The number of merges. */
+	private int mergeCount = 0;
+
+	/** The node index of the region kept by each merge. */
+	private final int[] mergeNodes1;
+
+	/** The node index of the region absorbed by each merge. */
+	private final int[] mergeNodes2;
+
+	/** The level of each merge, as a non-decreasing sequence. */
+	private final double[] mergeLevels;
+
+	/** The level at which the two regions of each edge were merged. */
+	private final double[] edgeLevels;
+
+
+	// ==================================================
+	// Constructor
+
+	private RegionMerging(RegionGraph graph, double[] regionMinValues, Weight weight)
+	{
+		this.graph = graph;
+		this.weight = weight;
+
+		int nNodes = graph.nodeCount();
+		this.mergeNodes1 = new int[Math.max(nNodes - 1, 0)];
+		this.mergeNodes2 = new int[Math.max(nNodes - 1, 0)];
+		this.mergeLevels = new double[Math.max(nNodes - 1, 0)];
+		this.edgeLevels = new double[graph.edgeCount()];
+
+		new Merger(regionMinValues).run();
+	}
+
+
+	// ==================================================
+	// Accessors
+
+	/**
+	 * @return the adjacency graph of the initial regions
+	 */
+	public RegionGraph graph()
+	{
+		return this.graph;
+	}
+
+	/**
+	 * @return the weight used for merging regions
+	 */
+	public Weight weight()
+	{
+		return this.weight;
+	}
+
+	/**
+	 * @return the number of merges, equal to the number of regions minus the
+	 *         number of connected components of the graph
+	 */
+	public int mergeCount()
+	{
+		return this.mergeCount;
+	}
+
+	/**
+	 * @param index
+	 *            the index of the merge
+	 * @return the node index of the region kept by the merge
+	 */
+	public int mergeNode1(int index)
+	{
+		return this.mergeNodes1[index];
+	}
+
+	/**
+	 * @param index
+	 *            the index of the merge
+	 * @return the node index of the region absorbed by the merge
+	 */
+	public int mergeNode2(int index)
+	{
+		return this.mergeNodes2[index];
+	}
+
+	/**
+	 * @param index
+	 *            the index of the merge
+	 * @return the level of the merge
+	 */
+	public double mergeLevel(int index)
+	{
+		return this.mergeLevels[index];
+	}
+
+	/**
+	 * @param edge
+	 *            the index of an edge of the graph
+	 * @return the level at which the two regions of the edge were merged
+	 */
+	public double edgeLevel(int edge)
+	{
+		return this.edgeLevels[edge];
+	}
+
+
+	// ==================================================
+	// Label maps
+
+	/**
+	 * Computes the final label of each region obtained by applying all the
+	 * merges with a level lower than or equal to the threshold. Each merged
+	 * region receives the smallest label of the initial regions it contains.
+	 * 
+	 * @param threshold
+	 *            the largest merge level
+	 * @return the final label of each node of the graph
+	 */
+	public int[] nodeLabels(double threshold)
+	{
+		int n = 0;
+		while (n < this.mergeCount && this.mergeLevels[n] <= threshold)
+		{
+			n++;
+		}
+		return nodeLabels(n);
+	}
+
+	/**
+	 * Computes the final label of each region obtained by merging regions
+	 * until the specified number of regions is reached, or no more merge is
+	 * possible. Each merged region receives the smallest label of the initial
+	 * regions it contains.
+	 * 
+	 * @param regionCount
+	 *            the number of regions to keep
+	 * @return the final label of each node of the graph
+	 */
+	public int[] nodeLabelsForRegionCount(int regionCount)
+	{
+		int n = this.graph.nodeCount() - regionCount;
+		return nodeLabels(Math.min(Math.max(n, 0), this.mergeCount));
+	}
+
+	/**
+	 * Replays the first merges using a union-find structure.
+	 */
+	private int[] nodeLabels(int nMerges)
+	{
+		int nNodes = this.graph.nodeCount();
+		int[] parents = new int[nNodes];
+		int[] labels = this.graph.labels();
+		for (int i = 0; i < nNodes; i++)
+		{
+			parents[i] = i;
+		}
+
+		// merged nodes are roots at the time of the merge
+		for (int k = 0; k < nMerges; k++)
+		{
+			int node1 = this.mergeNodes1[k];
+			int node2 = this.mergeNodes2[k];
+			parents[node2] = node1;
+			labels[node1] = Math.min(labels[node1], labels[node2]);
+		}
+
+		int[] res = new int[nNodes];
+		for (int i = 0; i < nNodes; i++)
+		{
+			res[i] = labels[findRoot(parents, i)];
+		}
+		return res;
+	}
+
+	private static final int findRoot(int[] parents, int node)
+	{
+		while (parents[node] != node)
+		{
+			// path halving
+			parents[node] = parents[parents[node]];
+			node = parents[node];
+		}
+		return node;
+	}
+
+
+	// ==================================================
+	// Relabeling
+
+	/**
+	 * Replaces the label of each region of a 2D label image by the label of
+	 * the merged region. Background pixels are left unchanged.
+	 * 
+	 * @param labelImage
+	 *            the label image used to compute the merging
+	 * @param nodeLabels
+	 *            the final label of each node of the graph
+	 * @return a new label image with the same type as the input image
+	 * @see #nodeLabels(double)
+	 */
+	public ImageProcessor relabel(ImageProcessor labelImage, int[] nodeLabels)
+	{
+		return relabel(wrap(labelImage), nodeLabels).getProcessor(1);
+	}
+
+	/**
+	 * Replaces the label of each region of a 3D label image by the label of
+	 * the merged region. Background voxels are left unchanged.
+	 * 
+	 * @param labelImage
+	 *            the label image used to compute the merging
+	 * @param nodeLabels
+	 *            the final label of each node of the graph
+	 * @return a new label image with the same type as the input image
+	 * @see #nodeLabels(double)
+	 */
+	public ImageStack relabel(ImageStack labelImage, int[] nodeLabels)
+	{
+		return relabel(labelImage, nodeLabels, null);
+	}
+
+	/**
+	 * Replaces the label of each region of a 2D label image by the label of
+	 * the merged region, and fills the gaps between merged regions. The
+	 * background pixels are filled only if they are neighbor of at least two
+	 * regions, that all belong to the same merged region.
+	 * 
+	 * @param labelImage
+	 *            the label image used to compute the merging
+	 * @param nodeLabels
+	 *            the final label of each node of the graph
+	 * @param conn
+	 *            the connectivity to check neighbors of background pixels
+	 *            (4 or 8)
+	 * @return a new label image with the same type as the input image
+	 * @see LabelImages#mergeLabelsWithGap(ImageProcessor, float[], float, int)
+	 */
+	public ImageProcessor relabelWithGap(ImageProcessor labelImage, int[] nodeLabels, int conn)
+	{
+		int[][] shifts;
+		if (conn == 4)
+		{
+			shifts = neighborShifts(6);
+		}
+		else if (conn == 8)
+		{
+			shifts = neighborShifts(26);
+		}
+		else
+		{
+			throw new IllegalArgumentException("Connectivity value should be either 4 or 8.");
+		}
+		return relabel(wrap(labelImage), nodeLabels, shifts).getProcessor(1);
+	}
+
+	/**
+	 * Replaces the label of each region of a 3D label image by the label of
+	 * the merged region, and fills the gaps between merged regions. The
+	 * background voxels are filled only if they are neighbor of at least two
+	 * regions, that all belong to the same merged region.
+	 * 
+	 * @param labelImage
+	 *            the label image used to compute the merging
+	 * @param nodeLabels
+	 *            the final label of each node of the graph
+	 * @param conn
+	 *            the connectivity to check neighbors of background voxels
+	 *            (6 or 26)
+	 * @return a new label image with the same type as the input image
+	 * @see LabelImages#mergeLabelsWithGap(ImageStack, float[], float, int)
+	 */
+	public ImageStack relabelWithGap(ImageStack labelImage, int[] nodeLabels, int conn)
+	{
+		if (conn != 6 && conn != 26)
+		{
+			throw new IllegalArgumentException("Connectivity value should be either 6 or 26.");
+		}
+		return relabel(labelImage, nodeLabels, neighborShifts(conn));
+	}
+
+	/**
+	 * Applies the look-up table of node labels in a single pass over the
+	 * voxels. If shifts is not null, background voxels between merged regions
+	 * are also filled.
+	 */
+	private ImageStack relabel(ImageStack labelImage, int[] nodeLabels, int[][] shifts)
+	{
+		int sizeX = labelImage.getWidth();
+		int sizeY = labelImage.getHeight();
+		int sizeZ = labelImage.getSize();
+		if (nodeLabels.length != this.graph.nodeCount())
+		{
+			throw new IllegalArgumentException("Requires one label for each node of the graph");
+		}
+
+		LabelIndex index = LabelIndex.fromLabels(this.graph.labels());
+		ImageProcessor[] slices = slices(labelImage);
+		ImageStack result = ImageStack.create(sizeX, sizeY, sizeZ, labelImage.getBitDepth());
+
+		for (int z = 0; z < sizeZ; z++)
+		{
+			ImageProcessor slice = slices[z];
+			ImageProcessor target = result.getProcessor(z + 1);
+			for (int y = 0; y < sizeY; y++)
+			{
+				for (int x = 0; x < sizeX; x++)
+				{
+					int i = y * sizeX + x;
+					int label = (int) slice.getf(i);
+					if (label != 0)
+					{
+						int node = index.indexOf(label);
+						target.setf(i, node >= 0 ? nodeLabels[node] : label);
+					}
+					else if (shifts != null)
+					{
+						target.setf(i, gapLabel(slices, x, y, z, shifts, index, nodeLabels));
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the final label of a background voxel, or 0 if the voxel does
+	 * not separate regions that were merged together.
+	 */
+	private static final int gapLabel(ImageProcessor[] slices, int x, int y, int z, int[][] shifts,
+			LabelIndex index, int[] nodeLabels)
+	{
+		int sizeX = slices[0].getWidth();
+		int sizeY = slices[0].getHeight();
+		int sizeZ = slices.length;
+
+		int firstLabel = 0;
+		int finalLabel = 0;
+		boolean multiple = false;
+		for (int[] shift : shifts)
+		{
+			int x2 = x + shift[0];
+			int y2 = y + shift[1];
+			int z2 = z + shift[2];
+			if (x2 < 0 || x2 >= sizeX || y2 < 0 || y2 >= sizeY || z2 < 0 || z2 >= sizeZ)
+				continue;
+
+			int label2 = (int) slices[z2].getf(x2, y2);
+			if (label2 == 0)
+				continue;
+			int node2 = index.indexOf(label2);
+			int finalLabel2 = node2 >= 0 ? nodeLabels[node2] : label2;
+
+			if (firstLabel == 0)
+			{
+				firstLabel = label2;
+				finalLabel = finalLabel2;
+			}
+			else if (finalLabel2 != finalLabel)
+			{
+				return 0;
+			}
+			else if (label2 != firstLabel)
+			{
+				multiple = true;
+			}
+		}
+		return multiple ? finalLabel : 0;
+	}
+
+
+	// ==================================================
+	// Saliency map
+
+	/**
+	 * Computes the saliency map of the boundaries of a 2D label image. The
+	 * value of each boundary pixel is the level at which the regions on each
+	 * side of the boundary were merged, and is zero elsewhere.
+	 * 
+	 * Boundary pixels are either background pixels adjacent to at least two
+	 * regions (using the 8-connectivity), or region pixels adjacent to
+	 * another region (using the 4-connectivity).
+	 * 
+	 * @param labelImage
+	 *            the label image used to compute the merging
+	 * @return the saliency map of the boundaries
+	 */
+	public FloatProcessor saliencyMap(ImageProcessor labelImage)
+	{
+		return (FloatProcessor) saliencyMap(wrap(labelImage)).getProcessor(1);
+	}
+
+	/**
+	 * Computes the saliency map of the boundaries of a 3D label image. The
+	 * value of each boundary voxel is the level at which the regions on each
+	 * side of the boundary were merged, and is zero elsewhere.
+	 * 
+	 * Boundary voxels are either background voxels adjacent to at least two
+	 * regions (using the 26-connectivity), or region voxels adjacent to
+	 * another region (using the 6-connectivity).
+	 * 
+	 * @param labelImage
+	 *            the label image used to compute the merging
+	 * @return the saliency map of the boundaries, as a 32-bit stack
+	 */
+	public ImageStack saliencyMap(ImageStack labelImage)
+	{
+		int sizeX = labelImage.getWidth();
+		int sizeY = labelImage.getHeight();
+		int sizeZ = labelImage.getSize();
+
+		int[][] shifts6 = neighborShifts(6);
+		int[][] shifts26 = neighborShifts(26);
+		LabelIndex index = LabelIndex.fromLabels(this.graph.labels());
+		ImageProcessor[] slices = slices(labelImage);
+		ImageStack result = ImageStack.create(sizeX, sizeY, sizeZ, 32);
+
+		int[] nodes = new int[26];
+		for (int z = 0; z < sizeZ; z++)
+		{
+			ImageProcessor target = result.getProcessor(z + 1);
+			for (int y = 0; y < sizeY; y++)
+			{
+				for (int x = 0; x < sizeX; x++)
+				{
+					int label = (int) slices[z].getf(x, y);
+					int[][] shifts = label == 0 ? shifts26 : shifts6;
+
+					// collect the distinct regions around current voxel
+					int nNodes = 0;
+					if (label != 0)
+					{
+						int node = index.indexOf(label);
+						if (node < 0)
+							continue;
+						nodes[nNodes++] = node;
+					}
+					for (int[] shift : shifts)
+					{
+						int x2 = x + shift[0];
+						int y2 = y + shift[1];
+						int z2 = z + shift[2];
+						if (x2 < 0 || x2 >= sizeX || y2 < 0 || y2 >= sizeY || z2 < 0 || z2 >= sizeZ)
+							continue;
+
+						int label2 = (int) slices[z2].getf(x2, y2);
+						if (label2 == 0 || label2 == label)
+							continue;
+						int node2 = index.indexOf(label2);
+						if (node2 >= 0 && !contains(nodes, nNodes, node2))
+						{
+							nodes[nNodes++] = node2;
+						}
+					}
+
+					// keep the largest merge level of adjacent regions
+					double level = 0;
+					int nFirst = label == 0 ? nNodes : Math.min(nNodes, 1);
+					for (int i = 0; i < nFirst; i++)
+					{
+						for (int j = i + 1; j < nNodes; j++)
+						{
+							int edge = this.graph.edgeIndex(nodes[i], nodes[j]);
+							if (edge >= 0)
+							{
+								level = Math.max(level, this.edgeLevels[edge]);
+							}
+						}
+					}
+					target.setf(x, y, (float) level);
+				}
+			}
+		}
+		return result;
+	}
+
+	private static final boolean contains(int[] array, int size, int value)
+	{
+		for (int i = 0; i < size; i++)
+		{
+			if (array[i] == value)
+				return true;
+		}
+		return false;
+	}
+
+
+	// ==================================================
+	// Utility methods
+
+	private static final ImageProcessor[] slices(ImageStack image)
+	{
+		ImageProcessor[] slices = new ImageProcessor[image.getSize()];
+		for (int z = 0; z < slices.length; z++)
+		{
+			slices[z] = image.getProcessor(z + 1);
+		}
+		return slices;
+	}
+
+	/**
+	 * Returns the shifts of the neighbors for the 6 or 26 connectivity.
+	 */
+	private static final int[][] neighborShifts(int conn)
+	{
+		if (conn == 6)
+		{
+			return new int[][] { { 0, 0, -1 }, { 0, -1, 0 }, { -1, 0, 0 }, { 1, 0, 0 }, { 0, 1, 0 }, { 0, 0, 1 } };
+		}
+
+		int[][] shifts = new int[26][];
+		int k = 0;
+		for (int dz = -1; dz <= 1; dz++)
+		{
+			for (int dy = -1; dy <= 1; dy++)
+			{
+				for (int dx = -1; dx <= 1; dx++)
+				{
+					if (dx != 0 || dy != 0 || dz != 0)
+					{
+						shifts[k++] = new int[] { dx, dy, dz };
+					}
+				}
+			}
+		}
+		return shifts;
+	}
+
+
+	// ==================================================
+	// Inner classes
+
+	/**
+	 * Performs the greedy merging of the regions. Edges keep their index when
+	 * their end nodes are merged; when two edges connect the same pair of
+	 * regions after a merge, one of them is absorbed by the other.
+	 */
+	private class Merger
+	{
+		/** The current end nodes of each edge, always root nodes. */
+		int[] edgeNodes1;
+		int[] edgeNodes2;
+
+		/** The boundary attributes of each edge. */
+		int[] contactSizes;
+		double[] valueSums;
+		double[] valueMins;
+
+		/** The attributes of each root node. */
+		long[] regionSizes;
+		double[] regionMinValues;
+
+		/** The edges incident to each root node (may contain dead edges). */
+		int[][] nodeEdges;
+		int[] nodeEdgeCounts;
+
+		/** Whether each edge still connects two distinct regions. */
+		boolean[] alive;
+
+		/**
+		 * The initial edges represented by each edge, stored as linked lists
+		 * of edge indices.
+		 */
+		int[] memberNext;
+		int[] memberLast;
+
+		Merger(double[] regionMinValues)
+		{
+			RegionGraph graph = RegionMerging.this.graph;
+			int nNodes = graph.nodeCount();
+			int nEdges = graph.edgeCount();
+
+			edgeNodes1 = new int[nEdges];
+			edgeNodes2 = new int[nEdges];
+			contactSizes = new int[nEdges];
+			valueSums = new double[nEdges];
+			valueMins = new double[nEdges];
+			alive = new boolean[nEdges];
+			memberNext = new int[nEdges];
+			memberLast = new int[nEdges];
+			for (int e = 0; e < nEdges; e++)
+			{
+				edgeNodes1[e] = graph.edgeNode1(e);
+				edgeNodes2[e] = graph.edgeNode2(e);
+				contactSizes[e] = graph.contactSize(e);
+				if (graph.hasValues() && contactSizes[e] > 0)
+				{
+					valueSums[e] = graph.meanValue(e) * contactSizes[e];
+					valueMins[e] = graph.minValue(e);
+				}
+				alive[e] = true;
+				memberNext[e] = -1;
+				memberLast[e] = e;
+			}
+
+			regionSizes = new long[nNodes];
+			nodeEdges = new int[nNodes][];
+			nodeEdgeCounts = new int[nNodes];
+			for (int i = 0; i < nNodes; i++)
+			{
+				regionSizes[i] = graph.regionSize(i);
+				int start = graph.neighborStart(i);
+				int end = graph.neighborEnd(i);
+				nodeEdges[i] = new int[end - start];
+				for (int k = start; k < end; k++)
+				{
+					nodeEdges[i][k - start] = graph.neighborEdge(k);
+				}
+				nodeEdgeCounts[i] = end - start;
+			}
+			this.regionMinValues = regionMinValues != null ? regionMinValues.clone() : null;
+		}
+
+		void run()
+		{
+			int nNodes = nodeEdges.length;
+			int nEdges = edgeNodes1.length;
+
+			EdgeHeap heap = new EdgeHeap(nEdges);
+			for (int e = 0; e < nEdges; e++)
+			{
+				heap.add(e, weight(e), tieWeight(e));
+			}
+
+			// for each node, the last merge it was marked for, and the edge
+			// connecting it to the kept node
+			int[] markMerges = new int[nNodes];
+			int[] markEdges = new int[nNodes];
+			Arrays.fill(markMerges, -1);
+
+			double level = Double.NEGATIVE_INFINITY;
+			while (!heap.isEmpty())
+			{
+				double edgeWeight = heap.minKey();
+				int edge = heap.poll();
+				alive[edge] = false;
+
+				// keep the node with the largest number of edges
+				int node1 = edgeNodes1[edge];
+				int node2 = edgeNodes2[edge];
+				if (nodeEdgeCounts[node1] < nodeEdgeCounts[node2])
+				{
+					int tmp = node1;
+					node1 = node2;
+					node2 = tmp;
+				}
+
+				// record the merge, and the level of the initial edges
+				int index = mergeCount++;
+				level = Math.max(level, edgeWeight);
+				mergeNodes1[index] = node1;
+				mergeNodes2[index] = node2;
+				mergeLevels[index] = level;
+				for (int e = edge; e >= 0; e = memberNext[e])
+				{
+					edgeLevels[e] = level;
+				}
+
+				// update region attributes
+				regionSizes[node1] += regionSizes[node2];
+				if (regionMinValues != null)
+				{
+					regionMinValues[node1] = Math.min(regionMinValues[node1], regionMinValues[node2]);
+				}
+
+				// mark the neighbors of the kept node
+				for (int k = 0; k < nodeEdgeCounts[node1]; k++)
+				{
+					int e = nodeEdges[node1][k];
+					if (alive[e])
+					{
+						int neighbor = opposite(e, node1);
+						markMerges[neighbor] = index;
+						markEdges[neighbor] = e;
+					}
+				}
+
+				// transfer the edges of the absorbed node
+				for (int k = 0; k < nodeEdgeCounts[node2]; k++)
+				{
+					int e = nodeEdges[node2][k];
+					if (!alive[e])
+						continue;
+
+					int neighbor = opposite(e, node2);
+					if (markMerges[neighbor] == index)
+					{
+						// combine with the existing edge to the neighbor
+						int e2 = markEdges[neighbor];
+						absorbEdge(e2, e);
+						heap.remove(e);
+					}
+					else
+					{
+						if (edgeNodes1[e] == node2)
+						{
+							edgeNodes1[e] = node1;
+						}
+						else
+						{
+							edgeNodes2[e] = node1;
+						}
+						addNodeEdge(node1, e);
+					}
+				}
+				nodeEdges[node2] = null;
+				nodeEdgeCounts[node2] = 0;
+
+				// remove dead edges, and update weights of remaining ones
+				int count = 0;
+				int[] edges = nodeEdges[node1];
+				for (int k = 0; k < nodeEdgeCounts[node1]; k++)
+				{
+					int e = edges[k];
+					if (alive[e])
+					{
+						edges[count++] = e;
+						heap.update(e, weight(e), tieWeight(e));
+					}
+				}
+				nodeEdgeCounts[node1] = count;
+			}
+		}
+
+		private int opposite(int edge, int node)
+		{
+			return edgeNodes1[edge] == node ? edgeNodes2[edge] : edgeNodes1[edge];
+		}
+
+		private void addNodeEdge(int node, int edge)
+		{
+			int count = nodeEdgeCounts[node];
+			if (count == nodeEdges[node].length)
+			{
+				nodeEdges[node] = Arrays.copyOf(nodeEdges[node], Math.max(4, count * 2));
+			}
+			nodeEdges[node][count] = edge;
+			nodeEdgeCounts[node] = count + 1;
+		}
+
+		/**
+		 * Adds the boundary of an edge to the boundary of another edge
+		 * connecting the same regions, and removes the first edge.
+		 */
+		private void absorbEdge(int edge, int absorbed)
+		{
+			if (contactSizes[absorbed] > 0)
+			{
+				valueMins[edge] = contactSizes[edge] > 0
+						? Math.min(valueMins[edge], valueMins[absorbed])
+						: valueMins[absorbed];
+				contactSizes[edge] += contactSizes[absorbed];
+				valueSums[edge] += valueSums[absorbed];
+			}
+			alive[absorbed] = false;
+
+			memberNext[memberLast[edge]] = absorbed;
+			memberLast[edge] = memberLast[absorbed];
+		}
+
+		/**
+		 * Computes the weight of an edge. Edges without boundary elements
+		 * receive an infinite weight.
+		 */
+		private double weight(int edge)
+		{
+			int node1 = edgeNodes1[edge];
+			int node2 = edgeNodes2[edge];
+			if (weight == Weight.SIZE)
+			{
+				return Math.min(regionSizes[node1], regionSizes[node2]);
+			}
+
+			if (contactSizes[edge] == 0)
+				return Double.POSITIVE_INFINITY;
+
+			switch (weight)
+			{
+			case MEAN_BOUNDARY_VALUE:
+				return valueSums[edge] / contactSizes[edge];
+			case MIN_BOUNDARY_VALUE:
+				return valueMins[edge];
+			case DYNAMICS:
+				return valueMins[edge] - Math.max(regionMinValues[node1], regionMinValues[node2]);
+			default:
+				throw new RuntimeException("Unknown weight: " + weight);
+			}
+		}
+
+		/**
+		 * Computes the secondary weight of an edge, used to sort edges with
+		 * the same weight.
+		 */
+		private double tieWeight(int edge)
+		{
+			if (weight != Weight.SIZE)
+				return 0;
+			if (graph.hasValues() && contactSizes[edge] > 0)
+				return valueSums[edge] / contactSizes[edge];
+			return -contactSizes[edge];
+		}
+	}
+
+	/**
+	 * A binary min-heap of edge indices, that keeps track of the position of
+	 * each edge, so that its key can be updated or the edge removed. Edges
+	 * with the same key are sorted by tie key, then by index.
+	 */
+	private static final class EdgeHeap
+	{
+		int[] heap;
+		int[] positions;
+		double[] keys;
+		double[] tieKeys;
+		int size = 0;
+
+		EdgeHeap(int capacity)
+		{
+			heap = new int[capacity];
+			positions = new int[capacity];
+			keys = new double[capacity];
+			tieKeys = new double[capacity];
+			Arrays.fill(positions, -1);
+		}
+
+		boolean isEmpty()
+		{
+			return size == 0;
+		}
+
+		double minKey()
+		{
+			return keys[heap[0]];
+		}
+
+		void add(int edge, double key, double tieKey)
+		{
+			keys[edge] = Double.isNaN(key) ? Double.POSITIVE_INFINITY : key;
+			tieKeys[edge] = tieKey;
+			heap[size] = edge;
+			positions[edge] = size;
+			size++;
+			siftUp(size - 1);
+		}
+
+		int poll()
+		{
+			int edge = heap[0];
+			removeAt(0);
+			return edge;
+		}
+
+		void remove(int edge)
+		{
+			int pos = positions[edge];
+			if (pos >= 0)
+			{
+				removeAt(pos);
+			}
+		}
+
+		void update(int edge, double key, double tieKey)
+		{
+			if (Double.isNaN(key))
+				key = Double.POSITIVE_INFINITY;
+			if (key == keys[edge] && tieKey == tieKeys[edge])
+				return;
+			keys[edge] = key;
+			tieKeys[edge] = tieKey;
+			int pos = positions[edge];
+			siftUp(pos);
+			siftDown(positions[edge]);
+		}
+
+		private void removeAt(int pos)
+		{
+			int edge = heap[pos];
+			positions[edge] = -1;
+			size--;
+			if (pos == size)
+				return;
+
+			int last = heap[size];
+			heap[pos] = last;
+			positions[last] = pos;
+			siftUp(pos);
+			siftDown(positions[last]);
+		}
+
+		private boolean less(int edge1, int edge2)
+		{
+			if (keys[edge1] != keys[edge2])
+				return keys[edge1] < keys[edge2];
+			if (tieKeys[edge1] != tieKeys[edge2])
+				return tieKeys[edge1] < tieKeys[edge2];
+			return edge1 < edge2;
+		}
+
+		private void siftUp(int pos)
+		{
+			int edge = heap[pos];
+			while (pos > 0)
+			{
+				int parentPos = (pos - 1) / 2;
+				int parent = heap[parentPos];
+				if (!less(edge, parent))
+					break;
+				heap[pos] = parent;
+				positions[parent] = pos;
+				pos = parentPos;
+			}
+			heap[pos] = edge;
+			positions[edge] = pos;
+		}
+
+		private void siftDown(int pos)
+		{
+			int edge = heap[pos];
+			while (true)
+			{
+				int child = 2 * pos + 1;
+				if (child >= size)
+					break;
+				if (child + 1 < size && less(heap[child + 1], heap[child]))
+					child++;
+				if (!less(heap[child], edge))
+					break;
+				heap[pos] = heap[child];
+				positions[heap[pos]] = pos;
+				pos = child;
+			}
+			heap[pos] = edge;
+			positions[edge] = pos;
+		}
+	}
+}
@@ -0,0 +1,512 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.measure;
+
+import java.util.Arrays;
+
+/**
+ * Accumulates the intensity statistics of a set of values within a single
+ * pass.
+ * 
+ * Central moments up to the fourth order are updated with the numerically
+ * stable one-pass formulas from Pébay (2008), that also allow to merge the
+ * accumulators computed on disjoint sets of values. The distribution of the
+ * values is kept for computing median and mode:
+ * <ul>
+ * <li>for integer values (8- and 16-bit images), within a histogram that
+ * contains one bin per value, and median and mode are exact;</li>
+ * <li>for other values, within a primitive array of values, and median and
+ * mode are exact;</li>
+ * <li>for other values in approximate mode, within a logarithmic sketch whose
+ * bins cover a range of values with a relative width of
+ * {@link #RELATIVE_ACCURACY}. The memory does not depend on the number of
+ * values, but the median is approximated with a bounded relative error, and
+ * the mode is the center of the densest bin, that may differ from the most
+ * frequent value.</li>
+ * </ul>
+ * 
+ * @author agent
+ *
+ */
+final class IntensityAccumulator
+{
+	// ==================================================
+	// Constants
+
+	/**
+	 * The maximum relative error of median values computed from non-integer
+	 * values in approximate mode.
+	 */
+	static final double RELATIVE_ACCURACY = 0.005;
+
+	/**
+	 * The logarithm of the ratio between the bounds of each sketch bin.
+	 */
+	private static final double LOG_GAMMA = Math.log((1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY));
+
+	/**
+	 * The smallest magnitude of values distinguished from zero within the
+	 * sketch.
+	 */
+	private static final double MIN_MAGNITUDE = 1e-12;
+
+	/**
+	 * The exponent of the first sketch bin, corresponding to the smallest
+	 * magnitude.
+	 */
+	private static final int MIN_EXPONENT = (int) Math.ceil(Math.log(MIN_MAGNITUDE) / LOG_GAMMA);
+
+
+	// ==================================================
+	// Class variables
+
+	/**
+	 * Indicates whether values are integers, stored within a histogram with
+	 * one bin per value. Otherwise values are stored within the logarithmic
+	 * sketch.
+	 */
+	final boolean integerValues;
+
+	/**
+	 * Indicates whether non-integer values are stored within the logarithmic
+	 * sketch. Otherwise they are stored within the array of values.
+	 */
+	final boolean approximate;
+
+	/** The number of accumulated values. */
+	long count = 0;
+
+	/** The sum of the values. */
+	double sum = 0;
+
+	/** The smallest value. */
+	double min = Double.POSITIVE_INFINITY;
+
+	/** The largest value. */
+	double max = Double.NEGATIVE_INFINITY;
+
+	/** The mean of the values. */
+	double mean = 0;
+
+	/** The sums of the powers 2, 3 and 4 of the deviations to the mean. */
+	double m2 = 0, m3 = 0, m4 = 0;
+
+	/** The counts of the histogram bins, the first one having key offset. */
+	private int[] counts = null;
+
+	/** The key of the first element in the counts array. */
+	private int offset;
+
+	/** The smallest and largest keys with a non-zero count. */
+	private int minKey, maxKey;
+
+	/** The non-integer values, when they are not approximated. */
+	private float[] values = null;
+
+	/** Indicates whether the array of values is currently sorted. */
+	private boolean sorted = true;
+
+
+	// ==================================================
+	// Constructor
+
+	/**
+	 * Creates a new empty accumulator, that computes exact median and mode.
+	 * 
+	 * @param integerValues
+	 *            true if the values are integers (from 8- or 16-bit images),
+	 *            false otherwise
+	 */
+	IntensityAccumulator(boolean integerValues)
+	{
+		this(integerValues, false);
+	}
+
+	/**
+	 * Creates a new empty accumulator.
+	 * 
+	 * @param integerValues
+	 *            true if the values are integers (from 8- or 16-bit images),
+	 *            false otherwise
+	 * @param approximate
+	 *            if true, non-integer values are accumulated within a
+	 *            logarithmic sketch, and median and mode are approximated
+	 */
+	IntensityAccumulator(boolean integerValues, boolean approximate)
+	{
+		this.integerValues = integerValues;
+		this.approximate = approximate;
+	}
+
+
+	// ==================================================
+	// Update methods
+
+	/**
+	 * Adds a new value to this accumulator.
+	 * 
+	 * @param value
+	 *            the value to add
+	 */
+	void add(double value)
+	{
+		// update order statistics
+		this.sum += value;
+		if (value < this.min)
+			this.min = value;
+		if (value > this.max)
+			this.max = value;
+
+		// update central moments
+		long n1 = this.count;
+		long n = ++this.count;
+		double delta = value - this.mean;
+		double deltaN = delta / n;
+		double deltaN2 = deltaN * deltaN;
+		double term1 = delta * deltaN * n1;
+		this.mean += deltaN;
+		this.m4 += term1 * deltaN2 * ((double) n * n - 3 * n + 3) + 6 * deltaN2 * this.m2 - 4 * deltaN * this.m3;
+		this.m3 += term1 * deltaN * (n - 2) - 3 * deltaN * this.m2;
+		this.m2 += term1;
+
+		// update distribution
+		if (storesValues())
+		{
+			ensureCapacity((int) n);
+			this.values[(int) n1] = (float) value;
+			this.sorted = false;
+			return;
+		}
+		int key = keyOf(value);
+		ensureKey(key);
+		this.counts[key - this.offset]++;
+	}
+
+	/**
+	 * Merges the values accumulated by another accumulator into this one.
+	 * 
+	 * @param other
+	 *            the accumulator to merge, computed on the same type of
+	 *            values
+	 */
+	void merge(IntensityAccumulator other)
+	{
+		if (other.count == 0)
+			return;
+		long n0 = this.count;
+		if (this.count == 0)
+		{
+			this.mean = other.mean;
+			this.m2 = other.m2;
+			this.m3 = other.m3;
+			this.m4 = other.m4;
+		}
+		else
+		{
+			double na = this.count;
+			double nb = other.count;
+			double n = na + nb;
+			double delta = other.mean - this.mean;
+			double delta2 = delta * delta;
+			double delta3 = delta * delta2;
+			double delta4 = delta2 * delta2;
+
+			double m2 = this.m2 + other.m2 + delta2 * na * nb / n;
+			double m3 = this.m3 + other.m3 + delta3 * na * nb * (na - nb) / (n * n)
+					+ 3 * delta * (na * other.m2 - nb * this.m2) / n;
+			double m4 = this.m4 + other.m4 + delta4 * na * nb * (na * na - na * nb + nb * nb) / (n * n * n)
+					+ 6 * delta2 * (na * na * other.m2 + nb * nb * this.m2) / (n * n)
+					+ 4 * delta * (na * other.m3 - nb * this.m3) / n;
+			this.mean += delta * nb / n;
+			this.m2 = m2;
+			this.m3 = m3;
+			this.m4 = m4;
+		}
+		this.count += other.count;
+		this.sum += other.sum;
+		this.min = Math.min(this.min, other.min);
+		this.max = Math.max(this.max, other.max);
+
+		// merge distributions
+		if (storesValues())
+		{
+			ensureCapacity((int) this.count);
+			System.arraycopy(other.values, 0, this.values, (int) n0, (int) other.count);
+			this.sorted = false;
+			return;
+		}
+		ensureKey(other.minKey);
+		ensureKey(other.maxKey);
+		for (int key = other.minKey; key <= other.maxKey; key++)
+		{
+			this.counts[key - this.offset] += other.counts[key - other.offset];
+		}
+	}
+
+	/**
+	 * @return true if the values are stored within the array of values
+	 */
+	private boolean storesValues()
+	{
+		return !this.integerValues && !this.approximate;
+	}
+
+	/**
+	 * Grows the array of values such that it can contain the specified number
+	 * of values.
+	 */
+	private void ensureCapacity(int capacity)
+	{
+		if (this.values == null)
+		{
+			this.values = new float[Math.max(capacity, 16)];
+		}
+		else if (capacity > this.values.length)
+		{
+			int newLength = this.values.length;
+			while (newLength < capacity)
+				newLength = Math.max(newLength * 2, capacity);
+			this.values = Arrays.copyOf(this.values, newLength);
+		}
+	}
+
+	/**
+	 * Sorts the array of values, if it was modified since the last sort.
+	 */
+	private void sortValues()
+	{
+		if (!this.sorted)
+		{
+			Arrays.sort(this.values, 0, (int) this.count);
+			this.sorted = true;
+		}
+	}
+
+	/**
+	 * Grows the array of counts such that it contains the specified key.
+	 */
+	private void ensureKey(int key)
+	{
+		if (this.counts == null)
+		{
+			this.counts = new int[16];
+			this.offset = key;
+			this.minKey = key;
+			this.maxKey = key;
+			return;
+		}
+
+		int length = this.counts.length;
+		if (key >= this.offset && key < this.offset + length)
+		{
+			if (key < this.minKey)
+				this.minKey = key;
+			else if (key > this.maxKey)
+				this.maxKey = key;
+			return;
+		}
+
+		// double the capacity until the new range of keys fits within array
+		int lo = Math.min(key, this.minKey);
+		int hi = Math.max(key, this.maxKey);
+		int newLength = length;
+		while (newLength < hi - lo + 1)
+			newLength *= 2;
+
+		// keep the free space on the side of the new key
+		int newOffset = key < this.minKey ? hi - newLength + 1 : lo;
+		int[] newCounts = new int[newLength];
+		System.arraycopy(this.counts, this.minKey - this.offset, newCounts, this.minKey - newOffset,
+				this.maxKey - this.minKey + 1);
+		this.counts = newCounts;
+		this.offset = newOffset;
+		this.minKey = lo;
+		this.maxKey = hi;
+	}
+
+
+	// ==================================================
+	// Statistics
+
+	/**
+	 * @return the population variance of the values, or NaN if no value was
+	 *         accumulated
+	 */
+	double variance()
+	{
+		return this.count > 0 ? this.m2 / this.count : Double.NaN;
+	}
+
+	/**
+	 * @return the population standard deviation of the values, or NaN if no
+	 *         value was accumulated
+	 */
+	double stdDev()
+	{
+		return Math.sqrt(variance());
+	}
+
+	/**
+	 * @return the skewness of the values, or 0 if all values are equal, or
+	 *         NaN if no value was accumulated
+	 */
+	double skewness()
+	{
+		if (this.count == 0)
+			return Double.NaN;
+		if (this.m2 == 0)
+			return 0;
+		return Math.sqrt(this.count) * this.m3 / Math.pow(this.m2, 1.5);
+	}
+
+	/**
+	 * @return the excess kurtosis of the values, or -6/5 if all values are
+	 *         equal, or NaN if no value was accumulated
+	 */
+	double kurtosis()
+	{
+		if (this.count == 0)
+			return Double.NaN;
+		if (this.m2 == 0)
+			return -6.0 / 5.0;
+		return this.count * this.m4 / (this.m2 * this.m2) - 3.0;
+	}
+
+	/**
+	 * Computes the median as the value with rank count/2 within the sorted
+	 * values.
+	 * 
+	 * @return the median of the values, or NaN if no value was accumulated
+	 */
+	double median()
+	{
+		if (this.count == 0)
+			return Double.NaN;
+
+		long rank = this.count / 2;
+		if (storesValues())
+		{
+			sortValues();
+			return this.values[(int) rank];
+		}
+
+		long cumSum = 0;
+		for (int key = this.minKey; key <= this.maxKey; key++)
+		{
+			cumSum += this.counts[key - this.offset];
+			if (cumSum > rank)
+			{
+				return valueOf(key);
+			}
+		}
+		return this.max;
+	}
+
+	/**
+	 * Computes the mode as the most frequent value. If several values have
+	 * the same frequency, the smallest one is returned. In approximate mode,
+	 * the value associated to the densest bin of the sketch is returned.
+	 * 
+	 * @param minFrequency
+	 *            the minimum number of occurrences of the mode value
+	 * @return the mode of the values, or NaN if no value occurs at least
+	 *         minFrequency times
+	 */
+	double mode(int minFrequency)
+	{
+		if (this.count == 0)
+			return Double.NaN;
+
+		if (storesValues())
+		{
+			sortValues();
+			float bestValue = this.values[0];
+			int bestCount = 0;
+			int n = (int) this.count;
+			for (int i = 0; i < n;)
+			{
+				// count the occurrences of the current value
+				int j = i + 1;
+				while (j < n && this.values[j] == this.values[i])
+					j++;
+				if (j - i > bestCount)
+				{
+					bestValue = this.values[i];
+					bestCount = j - i;
+				}
+				i = j;
+			}
+			return bestCount >= minFrequency ? bestValue : Double.NaN;
+		}
+
+		int bestKey = this.minKey;
+		int bestCount = 0;
+		for (int key = this.minKey; key <= this.maxKey; key++)
+		{
+			int c = this.counts[key - this.offset];
+			if (c > bestCount)
+			{
+				bestKey = key;
+				bestCount = c;
+			}
+		}
+		return bestCount >= minFrequency ? valueOf(bestKey) : Double.NaN;
+	}
+
+
+	// ==================================================
+	// Conversion between values and histogram keys
+
+	/**
+	 * Computes the key of the histogram bin containing the value. Keys
+	 * increase with values.
+	 */
+	private int keyOf(double value)
+	{
+		if (this.integerValues)
+			return (int) value;
+
+		double abs = Math.abs(value);
+		if (abs < MIN_MAGNITUDE)
+			return 0;
+		int key = (int) Math.ceil(Math.log(abs) / LOG_GAMMA) - MIN_EXPONENT + 1;
+		return value > 0 ? key : -key;
+	}
+
+	/**
+	 * Computes the value associated to the histogram bin with the given key,
+	 * clamped to the range of accumulated values.
+	 */
+	private double valueOf(int key)
+	{
+		if (this.integerValues)
+			return key;
+		if (key == 0)
+			return Math.min(Math.max(0, this.min), this.max);
+
+		// the value with the smallest relative error within the bin
+		double gamma = Math.exp(LOG_GAMMA);
+		double abs = 2 * Math.exp((Math.abs(key) + MIN_EXPONENT - 1) * LOG_GAMMA) / (gamma + 1);
+		double value = key > 0 ? abs : -abs;
+		return Math.min(Math.max(value, this.min), this.max);
+	}
+}
@@ -21,9 +21,6 @@
  */
 package inra.ijpb.measure;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Set;
 
 import ij.ImagePlus;
@@ -36,19 +33,20 @@ import inra.ijpb.label.RegionAdjacencyGraph.LabelPair;
  * Class to facilitate the calculation of intensity measures by
  * grouping together voxels belonging to the same label.
  * 
+ * All measures are computed from intensity statistics accumulated during a
+ * single scan of the images. Median and mode are exact by default. For
+ * 32-bit images, an approximate mode can be chosen at construction: the
+ * median is then approximated with a relative error smaller than 0.5%, and
+ * the mode is the center of the densest bin of a logarithmic sketch.
+ * 
  * @author Ignacio Arganda-Carreras
  *
  */
 public class IntensityMeasures extends LabeledVoxelsMeasure{
     /** adjacency list */
     Set<LabelPair> adjList = null;
-    /** list of adjacent pixels/voxels per label */
-    ArrayList<Double>[] neighborVoxels = null;
-    /**
-     * intensity mode per region labeled and number of pixels/voxels with that
-     * intensity
-     */
-    double[][] mode = null;
+    /** merged intensity statistics of the adjacent labels of each label */
+    IntensityAccumulator[] neighborStats = null;
     /** maximum intensity value per labeled region */
     double[] max = null;
     /** minimum intensity value per labeled region */
@@ -57,8 +55,6 @@ public class IntensityMeasures extends LabeledVoxelsMeasure{
     double[] mean = null;
     /** neighbors mean intensity value per labeled region */
     double[] neighborsMean = null;
-    /** intensity histogram per label */
-    HashMap<Double, Integer>[] histogramPerLabel = null;
     /** label image */
     ImagePlus labelImage = null;
     
@@ -73,7 +69,48 @@ public class IntensityMeasures extends LabeledVoxelsMeasure{
 			ImagePlus inputImage,
 			ImagePlus labelImage )
 	{
-		super( inputImage, labelImage );
+		this( inputImage, labelImage, false );
+	}
+
+	/**
+	 * Initialize the measurements by reading the input (grayscale) 
+	 * image and its corresponding labels.
+	 * 
+	 * @param inputImage input (grayscale) image
+	 * @param labelImage label image (labels are positive integer values)
+	 * @param approximate if true, median and mode of 32-bit images are
+	 *            approximated, with a memory that does not depend on the
+	 *            number of voxels
+	 * @see LabeledVoxelsMeasure#LabeledVoxelsMeasure(ImagePlus, ImagePlus, boolean)
+	 */
+	public IntensityMeasures(
+			ImagePlus inputImage,
+			ImagePlus labelImage,
+			boolean approximate )
+	{
+		this( inputImage, labelImage, approximate, 0 );
+	}
+
+	/**
+	 * Initialize the measurements by reading the input (grayscale) 
+	 * image and its corresponding labels, using the specified number of
+	 * threads.
+	 * 
+	 * @param inputImage input (grayscale) image
+	 * @param labelImage label image (labels are positive integer values)
+	 * @param approximate if true, median and mode of 32-bit images are
+	 *            approximated
+	 * @param nThreads the number of threads to use, or 0 for using the
+	 *            number of threads specified in ImageJ preferences
+	 * @see LabeledVoxelsMeasure#LabeledVoxelsMeasure(ImagePlus, ImagePlus, boolean, int)
+	 */
+	public IntensityMeasures(
+			ImagePlus inputImage,
+			ImagePlus labelImage,
+			boolean approximate,
+			int nThreads )
+	{
+		super( inputImage, labelImage, approximate, nThreads );
 		this.labelImage = labelImage;
 	}
 	
@@ -87,15 +124,7 @@ public class IntensityMeasures extends LabeledVoxelsMeasure{
 		// Calculate man intensity per label
 		this.mean = meanPerLabel();
 
-		// create data table
-		ResultsTable table = new ResultsTable();
-		for (int i = 0; i < mean.length; i++) {
-			table.incrementCounter();
-			table.addLabel(Integer.toString( labels[i] ));
-			table.addValue("Mean", mean[i]);
-		}
-
-		return table;
+		return createTable( "Mean", mean );
 	}
 	/**
 	 * Get the mean intensity value per labeled region.
@@ -103,16 +132,9 @@ public class IntensityMeasures extends LabeledVoxelsMeasure{
 	 */
 	private double[] meanPerLabel()
 	{
-		double[] mean = new double[ objectVoxels.length ];
-		
-		// calculate mean voxel value per object
+		double[] mean = new double[ objectStats.length ];
 		for( int i=0; i<mean.length; i++ )
-		{
-			mean[ i ] = 0;
-			for( final double v : objectVoxels[ i ] )
-				mean[ i ] += v;
-			mean[ i ] /= objectVoxels[ i ].size();			
-		}
+			mean[ i ] = objectStats[ i ].mean;
 		return mean;
 	}
 	/**
@@ -124,15 +146,7 @@ public class IntensityMeasures extends LabeledVoxelsMeasure{
 	{
 		this.neighborsMean = neighborsMeanPerLabel();
 
-		// create data table
-		ResultsTable table = new ResultsTable();
-		for (int i = 0; i < neighborsMean.length; i++) {
-			table.incrementCounter();
-			table.addLabel(Integer.toString( labels[i] ));
-			table.addValue("NeighborsMean", neighborsMean[i]);
-		}
-
-		return table;
+		return createTable( "NeighborsMean", neighborsMean );
 	}
 	/**
 	 * Get the neighbors mean intensity value per labeled region.
@@ -140,37 +154,16 @@ public class IntensityMeasures extends LabeledVoxelsMeasure{
 	 */
 	private double[] neighborsMeanPerLabel()
 	{
-		// check if adjacency list has already been calculated
-		if( this.adjList == null )
-			this.adjList = RegionAdjacencyGraph.computeAdjacencies( labelImage );
-		// check if mean per label exists
-		if( null == this.mean )
-			this.mean = meanPerLabel();
-
-		final int numLabels = objectVoxels.length;
+		// check if neighbor statistics have already been calculated
+		if( this.neighborStats == null )
+			this.neighborStats = computeNeighborStats();
 
+		final int numLabels = objectStats.length;
 		double[] neighborsMean = new double[ numLabels ];
-		double[] neighborsNumVox = new double[ numLabels ];
-
-		// merge histograms of adjacent labels
-		for( LabelPair pair : adjList )
-		{
-			// extract their indices
-			int ind1 = super.labelIndices.get( pair.label1 );
-			int ind2 = super.labelIndices.get( pair.label2 );
-			// sum up weighted mean values
-			neighborsMean[ ind1 ] += mean[ ind2 ] * objectVoxels[ ind2 ].size();
-			neighborsMean[ ind2 ] += mean[ ind1 ] * objectVoxels[ ind1 ].size();
-			// store number of neighbor voxels
-			neighborsNumVox[ ind1 ] += objectVoxels[ ind2 ].size();
-			neighborsNumVox[ ind2 ] += objectVoxels[ ind1 ].size();
-		}
-
-		// go through list of labels and divide by the total number of neighbor voxels
 		for( int i = 0; i < numLabels; i++ )
 		{
-			if( neighborsNumVox[ i ] > 0)
-				neighborsMean[ i ] /= neighborsNumVox[ i ];
+			if( neighborStats[ i ].count > 0 )
+				neighborsMean[ i ] = neighborStats[ i ].mean;
 			else
 				neighborsMean[ i ] = Double.NaN;
 		}
@@ -183,26 +176,15 @@ public class IntensityMeasures extends LabeledVoxelsMeasure{
 	 */
 	public ResultsTable getMedian()
 	{
-		final int numLabels = objectVoxels.length;
+		final int numLabels = objectStats.length;
 
 		double[] median = new double[ numLabels ];
 
 		// calculate median voxel value per object
 		for( int i=0; i<numLabels; i++ )
-		{
-			Collections.sort( objectVoxels[ i ] );
-			median[ i ] = objectVoxels[ i ].get( objectVoxels[ i ].size() / 2 );
-		}
+			median[ i ] = objectStats[ i ].median();
 
-		// create data table
-		ResultsTable table = new ResultsTable();
-		for (int i = 0; i < numLabels; i++) {
-			table.incrementCounter();
-			table.addLabel( Integer.toString( labels[i] ));
-			table.addValue( "Median", median[i] );
-		}
-
-		return table;
+		return createTable( "Median", median );
 	}
 	/**
 	 * Get the median intensity values of the neighbor labels
@@ -211,177 +193,54 @@ public class IntensityMeasures extends LabeledVoxelsMeasure{
 	 */
 	public ResultsTable getNeighborsMedian()
 	{
-		if( this.neighborVoxels == null )
-			this.neighborVoxels = computeNeighborVoxels();
+		if( this.neighborStats == null )
+			this.neighborStats = computeNeighborStats();
 
-		final int numLabels = objectVoxels.length;
+		final int numLabels = objectStats.length;
 		double[] median = new double[ numLabels ];
 
-		// calculate median value
+		// calculate median value (NaN for labels without neighbors)
 		for( int i=0; i<numLabels; i++ )
-		{
-			Collections.sort( neighborVoxels[ i ] );
-			if( neighborVoxels[ i ].size() > 0)
-				median[ i ] = neighborVoxels[ i ].get( neighborVoxels[ i ].size() / 2 );
-			else
-				median[ i ] = Double.NaN;
-		}
+			median[ i ] = neighborStats[ i ].median();
 
-		// create data table
-		ResultsTable table = new ResultsTable();
-		for (int i = 0; i < numLabels; i++) {
-			table.incrementCounter();
-			table.addLabel(Integer.toString( labels[i] ));
-			table.addValue("NeighborsMedian", median[i]);
-		}
-
-		return table;
+		return createTable( "NeighborsMedian", median );
 	}
 	/**
-	 * Get mode voxel values per label
+	 * Get mode voxel values per label. If several values have the same
+	 * frequency, the smallest one is returned.
 	 *
 	 * @return result table with mode values per label
 	 */
 	public ResultsTable getMode()
 	{
-		final int numLabels = objectVoxels.length;
+		final int numLabels = objectStats.length;
 		double[] mode = new double[ numLabels ];
 
-		// calculate histogram of each label
-		if( null == histogramPerLabel )
-			this.histogramPerLabel = getHistogramPerLabel();
-
 		// calculate mode voxel value per object
 		for( int i=0; i<numLabels; i++ )
-		{
-			int max = 1;
-			double temp = objectVoxels[ i ].get( 0 );
-
-			for( HashMap.Entry<Double, Integer> entry : histogramPerLabel[ i ].entrySet() )
-			{
-				if( entry.getValue() > max )
-				{
-					max = entry.getValue();
-					temp = entry.getKey();
-				}
-			}
-			mode[ i ] = temp;
-		}
+			mode[ i ] = objectStats[ i ].mode( 1 );
 
-		// create data table
-		ResultsTable table = new ResultsTable();
-		for (int i = 0; i < numLabels; i++) {
-			table.incrementCounter();
-			table.addLabel( Integer.toString( labels[i] ));
-			table.addValue( "Mode", mode[ i ] );
-		}
-
-		return table;
-	}
-	/**
-	 * Get the intensity histogram of each label.
-	 * @return the intensity histogram of each label
-	 */
-	private HashMap<Double,Integer>[] getHistogramPerLabel()
-	{
-		@SuppressWarnings("unchecked")
-		HashMap<Double,Integer>[] hm = new HashMap[ objectVoxels.length ];
-		for( int i=0; i<objectVoxels.length; i++ )
-		{
-			hm[ i ] = new HashMap< Double,Integer >();
-
-			for( double val : objectVoxels[ i ] )
-			{
-				if( hm[ i ].get( val ) != null )
-				{
-					int count = hm[ i ].get( val );
-					count++;
-					hm[ i ].put( val, count );
-				}
-				else
-					hm[ i ].put( val, 1 );
-			}
-		}
-		return hm;
+		return createTable( "Mode", mode );
 	}
 	/**
-	 * Get the intensity mode value of the neighbor labels
+	 * Get the intensity mode value of the neighbor labels. The mode is NaN
+	 * if no value occurs more than once within the neighbor labels.
 	 *
 	 * @return result table with intensity mode of neighbor labels
 	 */
 	public ResultsTable getNeighborsMode()
 	{
-		// check if the label histograms have been calculated
-		if( null == histogramPerLabel )
-			this.histogramPerLabel = getHistogramPerLabel();
+		if( this.neighborStats == null )
+			this.neighborStats = computeNeighborStats();
 
-		final int numLabels = objectVoxels.length;
+		final int numLabels = objectStats.length;
 		double[] mode = new double[ numLabels ];
 
-		// check if adjacency list has already been calculated
-		if( this.adjList == null )
-			this.adjList = RegionAdjacencyGraph.computeAdjacencies( labelImage );
-
-		@SuppressWarnings("unchecked")
-		HashMap<Double,Integer>[] hm = new HashMap[ numLabels ];
-		for( int i = 0; i < numLabels ; i++ )
-			hm[ i ] = new HashMap< Double,Integer >();
-		// merge histograms of adjacent labels
-		for( LabelPair pair : adjList )
-		{
-			// extract their indices
-			int ind1 = super.labelIndices.get( pair.label1 );
-			int ind2 = super.labelIndices.get( pair.label2 );
-
-			// add up ind1 histogram to ind2 hashmap
-			for( HashMap.Entry<Double, Integer> entry : histogramPerLabel[ ind1 ].entrySet() )
-			{
-				double val = entry.getKey();
-				int count = entry.getValue();
-				if( hm[ ind2 ].get( val ) != null )
-					hm[ ind2 ].put( val, count + hm[ ind2 ].get( val ) );
-				else
-					hm[ ind2 ].put( val, count );
-			}
-			// add up ind2 histogram to ind1 hashmap
-			for( HashMap.Entry<Double, Integer> entry : histogramPerLabel[ ind2 ].entrySet() )
-			{
-				double val = entry.getKey();
-				int count = entry.getValue();
-				if( hm[ ind1 ].get( val ) != null )
-					hm[ ind1 ].put( val, count + hm[ ind1 ].get( val ) );
-				else
-					hm[ ind1 ].put( val, count );
-			}
-		}
-
-		// calculate mode value in merged histograms hashmap
+		// calculate mode value in merged histograms
 		for( int i=0; i<numLabels; i++ )
-		{
-			int max = 1;
-			double temp = Double.NaN;
-
-			for( HashMap.Entry<Double, Integer> entry : hm[ i ].entrySet() )
-			{
-				if( entry.getValue() > max )
-				{
-					max = entry.getValue();
-					temp = entry.getKey();
-				}
-			}
-			mode[ i ] = temp;
-		}
+			mode[ i ] = neighborStats[ i ].mode( 2 );
 
-		// create data table
-		ResultsTable table = new ResultsTable();
-		for( int i = 0; i < numLabels; i++ )
-		{
-			table.incrementCounter();
-			table.addLabel( Integer.toString( labels[i] ) );
-			table.addValue( "NeighborsMode", mode[i] );
-		}
-
-		return table;
+		return createTable( "NeighborsMode", mode );
 	}
 	/**
 	 * Get skewness voxel values per label
@@ -390,43 +249,14 @@ public class IntensityMeasures extends LabeledVoxelsMeasure{
 	 */
 	public ResultsTable getSkewness()
 	{
-		final int numLabels = objectVoxels.length;
-		// check if the mean intensity per label has already
-		// been calculated
-		if( null == this.mean )
-			this.mean = meanPerLabel();
-
+		final int numLabels = objectStats.length;
 		double[] skewness = new double[ numLabels ];
 
 		// calculate skewness voxel value per object
 		for( int i=0; i<numLabels; i++ )
-		{
-			final double voxelCount = objectVoxels[ i ].size();
-			double v, v2, sum2 = 0, sum3 = 0;
-			for( int j=0; j<voxelCount; j++ )
-			{
-				v = objectVoxels[ i ].get( j ) + Double.MIN_VALUE;
-				v2 = v * v;
-				sum2 += v2;
-				sum3 += v * v2;
-			}
-			double mean2 = mean[ i ] * mean[ i ];
-			double variance = sum2 / voxelCount - mean2;
-			double sDeviation = Math.sqrt( variance );
-			skewness[ i ] = Double.compare( variance, 0d ) == 0 ? 0 :
-				((sum3 - 3.0 * mean[ i ] * sum2 ) / voxelCount
-					+ 2.0 * mean[ i ] * mean2 ) / ( variance * sDeviation );
-		}
+			skewness[ i ] = objectStats[ i ].skewness();
 
-		// create data table
-		ResultsTable table = new ResultsTable();
-		for (int i = 0; i < numLabels; i++) {
-			table.incrementCounter();
-			table.addLabel( Integer.toString( labels[i] ));
-			table.addValue( "Skewness", skewness[i] );
-		}
-
-		return table;
+		return createTable( "Skewness", skewness );
 	}
 	/**
 	 * Get the intensity skewness values of the neighbor labels
@@ -435,56 +265,25 @@ public class IntensityMeasures extends LabeledVoxelsMeasure{
 	 */
 	public ResultsTable getNeighborsSkewness()
 	{
-		if( this.neighborVoxels == null )
-			this.neighborVoxels = computeNeighborVoxels();
+		if( this.neighborStats == null )
+			this.neighborStats = computeNeighborStats();
 
-		final int numLabels = objectVoxels.length;
+		final int numLabels = objectStats.length;
 		double[] skewness = new double[ numLabels ];
 
-		// calculate skewness value
+		// calculate skewness value (NaN for labels without neighbors)
 		for( int i=0; i<numLabels; i++ )
-		{
-			final double voxelCount = neighborVoxels[ i ].size();
-			if( voxelCount > 0 )
-			{
-				double v, v2, sum2 = 0, sum3 = 0;
-				double mean = 0;
-				for( int j=0; j<voxelCount; j++ )
-				{
-					mean += neighborVoxels[ i ].get( j );
-					v = neighborVoxels[ i ].get( j ) + Double.MIN_VALUE;
-					v2 = v * v;
-					sum2 += v2;
-					sum3 += v * v2;
-				}
-				mean /= voxelCount;
-				double mean2 = mean*mean;
-				double variance = sum2 / voxelCount - mean2;
-				double sDeviation = Math.sqrt( variance );
-				skewness[ i ] = Double.compare( variance, 0d ) == 0 ? 0 :
-					((sum3 - 3.0 * mean * sum2 ) / voxelCount
-						+ 2.0 * mean * mean2 ) / ( variance * sDeviation );
-			}
-			else
-				skewness[ i ] = Double.NaN;
-		}
-
-		// create data table
-		ResultsTable table = new ResultsTable();
-		for (int i = 0; i < numLabels; i++)
-		{
-			table.incrementCounter();
-			table.addLabel( Integer.toString( labels[ i ] ) );
-			table.addValue( "NeighborsSkewness", skewness[ i ] );
-		}
+			skewness[ i ] = neighborStats[ i ].skewness();
 
-		return table;
+		return createTable( "NeighborsSkewness", skewness );
 	}
 	/**
-	 * Compute the lists of pixels/voxels belonging to each adjacent label region.
-	 * @return array with lists of pixels/voxels belonging to each adjacent label region
+	 * Compute the intensity statistics of the pixels/voxels belonging to the
+	 * adjacent label regions of each label, by merging their statistics.
+	 * 
+	 * @return array with merged statistics of the adjacent label regions
 	 */
-	private ArrayList<Double>[] computeNeighborVoxels()
+	private IntensityAccumulator[] computeNeighborStats()
 	{
 		if( this.adjList == null )
 			this.adjList = RegionAdjacencyGraph.computeAdjacencies( labelImage );
@@ -492,22 +291,22 @@ public class IntensityMeasures extends LabeledVoxelsMeasure{
 		int numLabels = super.labels.length;
 		
         // create an array with as many elements as the number of labels
-		@SuppressWarnings("unchecked")
-		ArrayList<Double>[] neighborVoxels = new ArrayList[ numLabels ];
-		for( int i = 0; i < neighborVoxels.length; i++ )
-			neighborVoxels[ i ] = new ArrayList<Double>();
+		IntensityAccumulator[] neighborStats = new IntensityAccumulator[ numLabels ];
+		for( int i = 0; i < numLabels; i++ )
+			neighborStats[ i ] = new IntensityAccumulator( objectStats[ i ].integerValues,
+					objectStats[ i ].approximate );
 		
 		// go through list of adjacent pairs
 		for( LabelPair pair : adjList )
 		{
 			// extract their indices
-			int ind1 = super.labelIndices.get( pair.label1 );
-			int ind2 = super.labelIndices.get( pair.label2 );
-			// concatenate lists of adjacent voxels
-			neighborVoxels[ ind1 ].addAll( objectVoxels[ ind2 ] );
-			neighborVoxels[ ind2 ].addAll( objectVoxels[ ind1 ] );
+			int ind1 = super.labelIndices.indexOf( pair.label1 );
+			int ind2 = super.labelIndices.indexOf( pair.label2 );
+			// merge statistics of adjacent voxels
+			neighborStats[ ind1 ].merge( objectStats[ ind2 ] );
+			neighborStats[ ind2 ].merge( objectStats[ ind1 ] );
 		}
-		return neighborVoxels;
+		return neighborStats;
 	}
 	/**
 	 * Get kurtosis voxel values per label
@@ -516,45 +315,14 @@ public class IntensityMeasures extends LabeledVoxelsMeasure{
 	 */
 	public ResultsTable getKurtosis()
 	{
-		final int numLabels = objectVoxels.length;
-		// check if the mean intensity per label has already
-		// been calculated
-		if( null == this.mean )
-			this.mean = meanPerLabel();
-
+		final int numLabels = objectStats.length;
 		double[] kurtosis = new double[ numLabels ];
 
 		// calculate kurtosis voxel value per object
 		for( int i=0; i<numLabels; i++ )
-		{
-			final double voxelCount = objectVoxels[ i ].size();
-			double v, v2, sum2 = 0, sum3 = 0, sum4 = 0;
-			for( int j=0; j<voxelCount; j++ )
-			{
-				v = objectVoxels[ i ].get( j ) + Double.MIN_VALUE;
-				v2 = v * v;
-				sum2 += v2;
-				sum3 += v * v2;
-				sum4 += v2 * v2;
-			}
-
-			double mean2 = mean[ i ] * mean[ i ];
-			double variance = sum2 / voxelCount - mean2;
-			kurtosis[ i ] = Double.compare( variance, 0d ) == 0 ? -6.0/5.0 :
-				(((sum4 - 4.0 * mean[ i ] * sum3 + 6.0 * mean2 * sum2 )
-					/ voxelCount - 3.0 * mean2 * mean2 )
-					/ ( variance * variance ) -3.0 );
-		}
-
-		// create data table
-		ResultsTable table = new ResultsTable();
-		for (int i = 0; i < numLabels; i++) {
-			table.incrementCounter();
-			table.addLabel( Integer.toString( labels[ i ] ) );
-			table.addValue( "Kurtosis", kurtosis[ i ] );
-		}
+			kurtosis[ i ] = objectStats[ i ].kurtosis();
 
-		return table;
+		return createTable( "Kurtosis", kurtosis );
 	}
 	/**
 	 * Get the intensity kurtosis values of the neighbor labels
@@ -563,50 +331,17 @@ public class IntensityMeasures extends LabeledVoxelsMeasure{
 	 */
 	public ResultsTable getNeighborsKurtosis()
 	{
-		if( this.neighborVoxels == null )
-			this.neighborVoxels = computeNeighborVoxels();
-		final int numLabels = objectVoxels.length;
+		if( this.neighborStats == null )
+			this.neighborStats = computeNeighborStats();
+
+		final int numLabels = objectStats.length;
 		double[] kurtosis = new double[ numLabels ];
 
-		// calculate kurtosis value
+		// calculate kurtosis value (NaN for labels without neighbors)
 		for( int i=0; i<numLabels; i++ )
-		{
-			final double voxelCount = neighborVoxels[ i ].size();
-			if( voxelCount > 0 )
-			{
-				double v, v2, sum2 = 0, sum3 = 0, sum4 = 0;
-				double mean = 0;
-				for( int j=0; j<voxelCount; j++ )
-				{
-					mean += neighborVoxels[ i ].get( j );
-					v = neighborVoxels[ i ].get( j ) + Double.MIN_VALUE;
-					v2 = v * v;
-					sum2 += v2;
-					sum3 += v * v2;
-					sum4 += v2 * v2;
-				}
-				mean /= voxelCount;
-				double mean2 = mean*mean;
-				double variance = sum2 / voxelCount - mean2;
-				kurtosis[ i ] = Double.compare( variance, 0d ) == 0 ? -6.0/5.0 :
-					(((sum4 - 4.0 * mean * sum3 + 6.0 * mean2 * sum2 )
-						/ voxelCount - 3.0 * mean2 * mean2 )
-						/ ( variance * variance ) -3.0 );
-			}
-			else
-				kurtosis[ i ] = Double.NaN;
-		}
-
-		// create data table
-		ResultsTable table = new ResultsTable();
-		for( int i = 0; i < numLabels; i++ )
-		{
-			table.incrementCounter();
-			table.addLabel( Integer.toString( labels[ i ] ) );
-			table.addValue( "NeighborsKurtosis", kurtosis[ i ] );
-		}
+			kurtosis[ i ] = neighborStats[ i ].kurtosis();
 
-		return table;
+		return createTable( "NeighborsKurtosis", kurtosis );
 	}
 	/**
 	 * Get standard deviation of voxel values per label
@@ -615,37 +350,14 @@ public class IntensityMeasures extends LabeledVoxelsMeasure{
 	 */
 	public ResultsTable getStdDev()
 	{
-		final int numLabels = objectVoxels.length;
-		
-		// check if the mean intensity per label has already
-		// been calculated
-		if( null == this.mean )
-			this.mean = meanPerLabel();
+		final int numLabels = objectStats.length;
 		double[] sd = new double[ numLabels ];
 
 		// calculate standard deviation
 		for( int i=0; i<numLabels; i++ )
-		{
-			sd[ i ] = 0;
-			double diff;
-			for( final double v : objectVoxels[ i ] )
-			{
-				diff = v - mean[ i ];
-				sd[ i ] += diff * diff;
-			}
-			sd[ i ] /= objectVoxels[ i ].size();
-			sd[ i ] = Math.sqrt( sd[ i ] );
-		}
+			sd[ i ] = objectStats[ i ].stdDev();
 		
-		// create data table
-		ResultsTable table = new ResultsTable();
-		for (int i = 0; i < numLabels; i++) {
-			table.incrementCounter();
-			table.addLabel(Integer.toString( labels[i] ));
-			table.addValue("StdDev", sd[i]);
-		}
-
-		return table;
+		return createTable( "StdDev", sd );
 	}
 	/**
 	 * Get the standard deviation of the intensity values of the neighbor labels
@@ -654,42 +366,17 @@ public class IntensityMeasures extends LabeledVoxelsMeasure{
 	 */
 	public ResultsTable getNeighborsStdDev()
 	{
-		// Check if neighbors mean already exists
-		if( null == neighborsMean )
-			this.neighborsMean = neighborsMeanPerLabel();
-		// Check if neighbor voxels have been calculated
-		if( this.neighborVoxels == null )
-			this.neighborVoxels = computeNeighborVoxels();
-		final int numLabels = neighborsMean.length;
+		if( this.neighborStats == null )
+			this.neighborStats = computeNeighborStats();
 
+		final int numLabels = objectStats.length;
 		double[] sd = new double[ numLabels ];
 
-		// Calculate standard deviation
+		// Calculate standard deviation (NaN for labels without neighbors)
 		for( int i=0; i<numLabels; i++ )
-		{
-			if( neighborVoxels[ i ].size() > 0 )
-			{
-				for( final double v : neighborVoxels[ i ] )
-				{
-					double diff = v - neighborsMean[ i ];
-					sd[ i ] += diff * diff;
-				}
-				sd[ i ] /= neighborVoxels[ i ].size();
-				sd[ i ] = Math.sqrt( sd[ i ] );
-			}
-			else
-				sd[ i ] = Double.NaN;
-		}
+			sd[ i ] = neighborStats[ i ].stdDev();
 
-		// create data table
-		ResultsTable table = new ResultsTable();
-		for (int i = 0; i < numLabels; i++) {
-			table.incrementCounter();
-			table.addLabel(Integer.toString( labels[i] ));
-			table.addValue("NeighborsStdDev", sd[i]);
-		}
-
-		return table;
+		return createTable( "NeighborsStdDev", sd );
 	}
 	/**
 	 * Get maximum voxel values per label
@@ -700,15 +387,7 @@ public class IntensityMeasures extends LabeledVoxelsMeasure{
 	{
 		this.max = maxPerLabel();
 		
-		// create data table
-		ResultsTable table = new ResultsTable();
-		for (int i = 0; i < objectVoxels.length; i++) {
-			table.incrementCounter();
-			table.addLabel(Integer.toString( labels[i] ));
-			table.addValue("Max", max[i]);
-		}
-
-		return table;
+		return createTable( "Max", max );
 	}
 	/**
 	 * Calculate maximum intensity value per labeled region.
@@ -716,17 +395,10 @@ public class IntensityMeasures extends LabeledVoxelsMeasure{
 	 */
 	private double[] maxPerLabel()
 	{
-		final int numLabels = objectVoxels.length;
+		final int numLabels = objectStats.length;
 		final double[] max = new double[ numLabels ];
-		
-		// calculate maximum voxel value per object
 		for( int i=0; i<numLabels; i++ )
-		{
-			max[ i ] = Double.NEGATIVE_INFINITY;
-			for( final double v : objectVoxels[ i ] )
-				if( v > max[ i ] )
-					max[ i ] = v;
-		}
+			max[ i ] = objectStats[ i ].max;
 		return max;
 	}
 	/**
@@ -740,7 +412,7 @@ public class IntensityMeasures extends LabeledVoxelsMeasure{
 		if( this.adjList == null )
 			this.adjList = RegionAdjacencyGraph.computeAdjacencies( labelImage );
 
-		final int numLabels = objectVoxels.length;
+		final int numLabels = objectStats.length;
 
 		// check if the maximum intensity of individual labeled regions
 		// has been already calculated
@@ -756,8 +428,8 @@ public class IntensityMeasures extends LabeledVoxelsMeasure{
 		for( LabelPair pair : adjList )
 		{
 			// extract their indices
-			int ind1 = super.labelIndices.get( pair.label1 );
-			int ind2 = super.labelIndices.get( pair.label2 );
+			int ind1 = super.labelIndices.indexOf( pair.label1 );
+			int ind2 = super.labelIndices.indexOf( pair.label2 );
 
 			// store maximum value of adjacent label voxels
 			if( Double.isNaN( adjacentMax[ ind1 ] ) )
@@ -793,15 +465,7 @@ public class IntensityMeasures extends LabeledVoxelsMeasure{
 	{
 		this.min = minPerLabel();
 
-		// create data table
-		ResultsTable table = new ResultsTable();
-		for (int i = 0; i < objectVoxels.length; i++) {
-			table.incrementCounter();
-			table.addLabel(Integer.toString( labels[i] ));
-			table.addValue("Min", min[i]);
-		}
-
-		return table;
+		return createTable( "Min", min );
 	}
 	/**
 	 * Calculate minimum intensity value per labeled region.
@@ -809,17 +473,10 @@ public class IntensityMeasures extends LabeledVoxelsMeasure{
 	 */
 	private double[] minPerLabel()
 	{
-		final int numLabels = objectVoxels.length;
-		double[] min = new double[ numLabels ];
-		
-		// calculate minimum voxel value per object
+		final int numLabels = objectStats.length;
+		final double[] min = new double[ numLabels ];
 		for( int i=0; i<numLabels; i++ )
-		{
-			min[ i ] = Double.POSITIVE_INFINITY;
-			for( final double v : objectVoxels[ i ] )
-				if( v < min[ i ] )
-					min[ i ] = v;
-		}
+			min[ i ] = objectStats[ i ].min;
 		return min;
 	}
 	/**
@@ -833,7 +490,7 @@ public class IntensityMeasures extends LabeledVoxelsMeasure{
 		if( this.adjList == null )
 			this.adjList = RegionAdjacencyGraph.computeAdjacencies( labelImage );
 
-		final int numLabels = objectVoxels.length;
+		final int numLabels = objectStats.length;
 
 		// check if the minimum intensity of individual labeled regions
 		// has been already calculated
@@ -849,8 +506,8 @@ public class IntensityMeasures extends LabeledVoxelsMeasure{
 		for( LabelPair pair : adjList )
 		{
 			// extract their indices
-			int ind1 = super.labelIndices.get( pair.label1 );
-			int ind2 = super.labelIndices.get( pair.label2 );
+			int ind1 = super.labelIndices.indexOf( pair.label1 );
+			int ind2 = super.labelIndices.indexOf( pair.label2 );
 
 			// store minimum value of adjacent label voxels
 			if( Double.isNaN( adjacentMin[ ind1 ] ) )
@@ -877,4 +534,23 @@ public class IntensityMeasures extends LabeledVoxelsMeasure{
 
 		return table;
 	}
+	/**
+	 * Creates a result table with one row per label, containing the given
+	 * values.
+	 * 
+	 * @param name the name of the column
+	 * @param values the value of each label
+	 * @return the result table
+	 */
+	private ResultsTable createTable( String name, double[] values )
+	{
+		ResultsTable table = new ResultsTable();
+		for( int i = 0; i < values.length; i++ )
+		{
+			table.incrementCounter();
+			table.addLabel( Integer.toString( labels[ i ] ) );
+			table.addValue( name, values[ i ] );
+		}
+		return table;
+	}
 }
@@ -23,32 +23,38 @@ package inra.ijpb.measure;
 
 import ij.IJ;
 import ij.ImagePlus;
+import ij.ImageStack;
+import ij.Prefs;
 import ij.measure.Calibration;
 import ij.measure.ResultsTable;
 import ij.process.ImageProcessor;
-import inra.ijpb.label.LabelImages;
-
-import java.util.ArrayList;
-import java.util.HashMap;
+import inra.ijpb.label.LabelIndex;
+import inra.ijpb.util.ParallelRanges;
 
 /**
  * Mother class to extract measures from pairs of grayscale and 
  * labeled images.
+ * 
+ * The intensity statistics of each label are accumulated during a single
+ * parallel scan of the images. The values of 8- and 16-bit images are not
+ * stored, and the values of 32-bit images are stored within primitive
+ * arrays, unless median and mode are approximated.
+ * 
  * @author Ignacio Arganda-Carreras
  *
  */
 public class LabeledVoxelsMeasure
 {
-    /** list of voxels grouped by label */
-    ArrayList<Double>[] objectVoxels;
+    /** intensity statistics of the voxels of each label */
+    IntensityAccumulator[] objectStats;
 
     /** list of unique labels */
     int[] labels;
     
     /** calibration of input image */
     Calibration calibration;
-    /** associative hash table to know the index of each label */
-    HashMap<Integer, Integer> labelIndices = null;
+    /** associative table to know the index of each label */
+    LabelIndex labelIndices = null;
 	/**
 	 * Initialize the measurements by reading the input (grayscale) 
 	 * image and its corresponding labels.
@@ -56,11 +62,58 @@ public class LabeledVoxelsMeasure
 	 * @param inputImage input (grayscale) image
 	 * @param labelImage label image (labels are positive integer values)
 	 */
-	@SuppressWarnings("unchecked")
 	public LabeledVoxelsMeasure(
 			ImagePlus inputImage,
 			ImagePlus labelImage )
 	{
+		this( inputImage, labelImage, false );
+	}
+
+	/**
+	 * Initialize the measurements by reading the input (grayscale) 
+	 * image and its corresponding labels.
+	 * 
+	 * In approximate mode, the values of 32-bit images are accumulated within
+	 * a logarithmic sketch whose memory does not depend on the number of
+	 * voxels. The median is then approximated with a relative error smaller
+	 * than 0.5%, and the mode is the center of the densest bin of the sketch
+	 * instead of the most frequent value. Values of 8- and 16-bit images are
+	 * always processed exactly.
+	 * 
+	 * @param inputImage input (grayscale) image
+	 * @param labelImage label image (labels are positive integer values)
+	 * @param approximate if true, median and mode of 32-bit images are
+	 *            approximated
+	 */
+	public LabeledVoxelsMeasure(
+			ImagePlus inputImage,
+			ImagePlus labelImage,
+			boolean approximate )
+	{
+		this( inputImage, labelImage, approximate, 0 );
+	}
+
+	/**
+	 * Initialize the measurements by reading the input (grayscale) 
+	 * image and its corresponding labels, using the specified number of
+	 * threads. The measures do not depend on the number of threads.
+	 * 
+	 * @param inputImage input (grayscale) image
+	 * @param labelImage label image (labels are positive integer values)
+	 * @param approximate if true, median and mode of 32-bit images are
+	 *            approximated
+	 * @param nThreads the number of threads to use, or 0 for using the
+	 *            number of threads specified in ImageJ preferences
+	 */
+	public LabeledVoxelsMeasure(
+			ImagePlus inputImage,
+			ImagePlus labelImage,
+			boolean approximate,
+			int nThreads )
+	{
+		if( nThreads < 0 )
+			throw new IllegalArgumentException( "Number of threads must be positive or zero, not " + nThreads );
+
 		final int width = inputImage.getWidth();
 		final int height = inputImage.getHeight();
 		
@@ -69,46 +122,70 @@ public class LabeledVoxelsMeasure
 		
 		this.calibration = inputImage.getCalibration();
 
-		// extract the labels from the input image
-		this.labels = LabelImages.findAllLabels( labelImage.getImageStack() );
-		int numLabels = labels.length;
-		
-		// create associative hash table to know the index of each label
-		labelIndices = LabelImages.mapLabelIndices( labels );
+		// extract the labels from the input image, and create associative
+		// table to know the index of each label
+		labelIndices = LabelIndex.fromImage( labelImage.getImageStack() );
+		this.labels = labelIndices.labels();
+		final int numLabels = labels.length;
 
-		// initialize lists of voxels per object
-        // unchecked cast
-		objectVoxels = (ArrayList<Double>[]) new ArrayList[ numLabels ];
+		// values of 8- and 16-bit images are stored within exact histograms
+		final int bitDepth = inputImage.getBitDepth();
+		final boolean integerValues = bitDepth == 8 || bitDepth == 16;
 
+		objectStats = new IntensityAccumulator[ numLabels ];
 		for( int i = 0; i < numLabels; i++ )
-			objectVoxels[ i ] = new ArrayList<Double>();
-		
-		//final long start = System.currentTimeMillis();		
+			objectStats[ i ] = new IntensityAccumulator( integerValues, approximate );
 		
 		IJ.showStatus( "Extracting voxel information..." );
 		
-		// read voxel intensities for each object
+		// retrieve processors once, as they may be created at each call
 		final int numSlices = inputImage.getImageStackSize();
-		for( int z=1; z <= numSlices; z++ )
+		final ImageStack grayStack = inputImage.getImageStack();
+		final ImageStack labelStack = labelImage.getImageStack();
+		final ImageProcessor[] grayProcessors = new ImageProcessor[ numSlices ];
+		final ImageProcessor[] labelProcessors = new ImageProcessor[ numSlices ];
+		for( int z = 0; z < numSlices; z++ )
 		{
-			final ImageProcessor grayIP = inputImage.getImageStack().getProcessor( z );
-			final ImageProcessor labelsIP = labelImage.getImageStack().getProcessor( z );
+			grayProcessors[ z ] = grayStack.getProcessor( z + 1 );
+			labelProcessors[ z ] = labelStack.getProcessor( z + 1 );
+		}
 
-			for( int x = 0; x<width; x++ )
-				for( int y = 0; y<height; y++ )
+		// accumulate statistics of each block of lines within its own
+		// accumulators, and merge them at the end of the block
+		ParallelRanges.run( numSlices * height, nThreads > 0 ? nThreads : Prefs.getThreads(), new ParallelRanges.Task()
+		{
+			public void process( int start, int end )
+			{
+				IntensityAccumulator[] stats = new IntensityAccumulator[ numLabels ];
+				for( int i = 0; i < numLabels; i++ )
+					stats[ i ] = new IntensityAccumulator( integerValues, approximate );
+
+				for( int line = start; line < end; line++ )
 				{
-					int labelValue = (int) labelsIP.getf( x, y );
-					if( labelValue != 0)
-						objectVoxels[ labelIndices.get( labelValue ) ].add( (double) grayIP.getf(x, y) );
+					if( start == 0 && line % height == 0 )
+						IJ.showProgress( line, end );
+
+					int z = line / height;
+					ImageProcessor grayIP = grayProcessors[ z ];
+					ImageProcessor labelsIP = labelProcessors[ z ];
+					int offset = ( line % height ) * width;
+					for( int x = 0; x < width; x++ )
+					{
+						int labelValue = (int) labelsIP.getf( offset + x );
+						if( labelValue != 0 )
+							stats[ labelIndices.indexOf( labelValue ) ].add( grayIP.getf( offset + x ) );
+					}
 				}
-			
-			IJ.showProgress( z, numSlices );
-		}
+
+				synchronized( objectStats )
+				{
+					for( int i = 0; i < numLabels; i++ )
+						objectStats[ i ].merge( stats[ i ] );
+				}
+			}
+		});
 		
 		IJ.showProgress( 1.0 );
-		
-		//final long end = System.currentTimeMillis();
-		//IJ.log("Reading voxels took " + (end-start) + " ms.");
 	}
 	
 	/**
@@ -117,7 +194,7 @@ public class LabeledVoxelsMeasure
 	 */
 	public ResultsTable getNumberOfVoxels()
 	{
-		final int numLabels = objectVoxels.length;
+		final int numLabels = objectStats.length;
 				
 		// create data table
 		ResultsTable table = new ResultsTable();
@@ -125,7 +202,7 @@ public class LabeledVoxelsMeasure
 		{
 			table.incrementCounter();
 			table.addLabel(Integer.toString( labels[i] ));
-			table.addValue("NumberOfVoxels", objectVoxels[ i ].size() );
+			table.addValue("NumberOfVoxels", objectStats[ i ].count );
 		}
 
 		return table;
@@ -137,7 +214,7 @@ public class LabeledVoxelsMeasure
 	 */
 	public ResultsTable getSumOfVoxels() 
 	{
-		final int numLabels = objectVoxels.length;
+		final int numLabels = objectStats.length;
 
 		// create data table
 		ResultsTable table = new ResultsTable();
@@ -145,14 +222,7 @@ public class LabeledVoxelsMeasure
 		{
 			table.incrementCounter();
 			table.addLabel(Integer.toString( labels[i] ));
-//			double vox_sum = objectVoxels[ i ].stream().mapToDouble(Double::doubleValue).sum();
-			// compute the sum, 1.6-compatible
-			double voxelSum = 0;
-			for (double value : objectVoxels[i])
-			{
-				voxelSum += value;
-			}
-			table.addValue( "Voxels Sum", voxelSum);
+			table.addValue( "Voxels Sum", objectStats[ i ].sum );
 		}
 			return table;
 	}
@@ -165,7 +235,7 @@ public class LabeledVoxelsMeasure
 	 */
 	public ResultsTable getVolume()
 	{
-		final int numLabels = objectVoxels.length;
+		final int numLabels = objectStats.length;
 		
 		double volumePerVoxel = calibration.pixelWidth * calibration.pixelHeight * calibration.pixelDepth;
 		
@@ -175,7 +245,7 @@ public class LabeledVoxelsMeasure
 		{
 			table.incrementCounter();
 			table.addLabel(Integer.toString( labels[i] ));
-			table.addValue( "Volume", objectVoxels[ i ].size() * volumePerVoxel );
+			table.addValue( "Volume", objectStats[ i ].count * volumePerVoxel );
 		}
 
 		return table;
@@ -0,0 +1,177 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.measure;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import inra.ijpb.algo.ParallelAlgoStub;
+
+/**
+ * Base class for the analyzers of regions within planar or 3D label images,
+ * that manages the threads used for computing the result of each region in
+ * parallel.
+ *
+ * @param <T>
+ *            the type of the data computed for each region
+ * 
+ * @see inra.ijpb.measure.region2d.RegionAnalyzer2D
+ * @see inra.ijpb.measure.region3d.RegionAnalyzer3D
+ * 
+ * @author agent
+ *
+ */
+public abstract class RegionAnalyzerStub<T> extends ParallelAlgoStub implements RegionAnalyzer<T>
+{
+	// ==================================================
+	// Parallel processing of regions
+
+	/**
+	 * The pool used for processing regions in parallel, or null to create a
+	 * pool with the number of threads of this analyzer for each computation.
+	 */
+	private ForkJoinPool forkJoinPool = null;
+
+	/**
+	 * Changes the pool used for processing regions in parallel, for the
+	 * analyzers that compute the result of each region independently. When a
+	 * pool is specified, the thread count of this analyzer is ignored.
+	 * 
+	 * @param pool
+	 *            the pool used for processing regions, or null to create a
+	 *            pool with the number of threads of this analyzer
+	 */
+	public void setForkJoinPool(ForkJoinPool pool)
+	{
+		this.forkJoinPool = pool;
+	}
+
+	/**
+	 * @return the pool used for processing regions in parallel, or null if a
+	 *         pool is created with the number of threads of this analyzer
+	 * @see #getThreadCount()
+	 */
+	public ForkJoinPool getForkJoinPool()
+	{
+		return this.forkJoinPool;
+	}
+
+	/**
+	 * The computation of the result of a single region, identified by its
+	 * index within the array of labels. Tasks are called concurrently from
+	 * several threads.
+	 *
+	 * @param <T>
+	 *            the type of the data computed for each region
+	 */
+	protected interface RegionTask<T>
+	{
+		/**
+		 * @param index
+		 *            the index of the region
+		 * @return the result computed for the region
+		 */
+		public T process(int index);
+	}
+
+	/**
+	 * Computes the result of each region in parallel, using the pool of this
+	 * analyzer, or a new pool with the number of threads of this analyzer.
+	 * Results are stored in the order of the regions, and progress is
+	 * reported after the processing of each region.
+	 * 
+	 * @param results
+	 *            the array used to store the results, with one element per
+	 *            region
+	 * @param task
+	 *            the computation of the result of a single region
+	 * @return the array of results
+	 */
+	protected T[] processRegions(T[] results, RegionTask<T> task)
+	{
+		int[] counter = new int[1];
+		RegionAction action = new RegionAction(results, task, 0, results.length, counter);
+		if (this.forkJoinPool != null)
+		{
+			this.forkJoinPool.invoke(action);
+			return results;
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(getThreadCount());
+		try
+		{
+			pool.invoke(action);
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+		return results;
+	}
+
+	/**
+	 * Processes a range of regions, by recursively splitting the range.
+	 */
+	private class RegionAction extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		final T[] results;
+		final RegionTask<T> task;
+		final int start;
+		final int end;
+		final int[] counter;
+
+		RegionAction(T[] results, RegionTask<T> task, int start, int end, int[] counter)
+		{
+			this.results = results;
+			this.task = task;
+			this.start = start;
+			this.end = end;
+			this.counter = counter;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (end - start > 1)
+			{
+				int mid = (start + end) >>> 1;
+				invokeAll(new RegionAction(results, task, start, mid, counter),
+						new RegionAction(results, task, mid, end, counter));
+				return;
+			}
+
+			for (int i = start; i < end; i++)
+			{
+				results[i] = task.process(i);
+
+				// report progress, keeping events in increasing order
+				synchronized (counter)
+				{
+					counter[0]++;
+					fireProgressChanged(RegionAnalyzerStub.this, counter[0], results.length);
+				}
+			}
+		}
+	}
+}
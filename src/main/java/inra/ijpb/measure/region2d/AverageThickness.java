@@ -9,7 +9,6 @@ import ij.measure.Calibration;
 import ij.measure.ResultsTable;
 import ij.process.ImageProcessor;
 import inra.ijpb.binary.BinaryImages;
-import inra.ijpb.label.LabelImages;
 
 /**
  * Compute average thickness of a binary region, or of each region in a label image. 
@@ -32,7 +31,7 @@ import inra.ijpb.label.LabelImages;
  * @author dlegland
  *
  */
-public class AverageThickness extends RegionAnalyzer2D<AverageThickness.Result>
+public class AverageThickness extends CroppedRegionAnalyzer2D<AverageThickness.Result>
 {
 
     @Override
@@ -61,51 +60,52 @@ public class AverageThickness extends RegionAnalyzer2D<AverageThickness.Result>
     public AverageThickness.Result[] analyzeRegions(ImageProcessor image, int[] labels,
             Calibration calib)
     {
-        Map<Integer, Integer> labelIndices = LabelImages.mapLabelIndices(labels);
-
-        // first compute distance map of each label
-        ImageProcessor distanceMap = BinaryImages.distanceMap(image);
+        // process each region independently within its bounding box
+        return analyzeCroppedRegions(image, labels, calib, new AverageThickness.Result[labels.length]);
+    }
+    
+    @Override
+    protected AverageThickness.Result analyzeCroppedRegion(ImageProcessor mask, int x0, int y0,
+            Calibration calib)
+    {
+        // first compute distance map of the region
+        ImageProcessor distanceMap = BinaryImages.distanceMap(mask);
 
-        // Compute skeleton of each region.
-        ImageProcessor skeleton = BinaryImages.skeleton(image); 
+        // Compute skeleton of the region
+        ImageProcessor skeleton = BinaryImages.skeleton(mask); 
         
-        // allocate memory for result values
-        int nLabels = labels.length;
-        double[] sums = new double[nLabels];
-        int[] counts = new int[nLabels];
-
         // Iterate over skeleton pixels
-        int sizeX = image.getWidth();
-        int sizeY = image.getHeight();
+        double sum = 0;
+        int count = 0;
+        int sizeX = mask.getWidth();
+        int sizeY = mask.getHeight();
         for (int y = 0; y < sizeY; y++)
         {
             for (int x = 0; x < sizeX; x++)
             {
-                // label of current pixel 
-                int label = (int) skeleton.getf(x, y);
-                if (label == 0)
+                if (skeleton.getf(x, y) == 0)
                 {
                     continue;
                 }
-
-                int index = labelIndices.get(label);
-                
-                // update results for current region
-                sums[index] += distanceMap.getf(x, y);
-                counts[index]++;
+                sum += distanceMap.getf(x, y);
+                count++;
             }
         }
 
-        // convert to array of results
-        AverageThickness.Result[] results = new AverageThickness.Result[nLabels];
-        for (int i = 0; i < nLabels; i++)
-        {
-            Result res = new Result();
-            res.meanDist = sums[i] / counts[i];
-            res.avgThickness = res.meanDist * 2 - 1;
-            results[i] = res;
-        }
-        return results;
+        // convert to result
+        Result res = new Result();
+        res.meanDist = sum / count;
+        res.avgThickness = res.meanDist * 2 - 1;
+        return res;
+    }
+    
+    @Override
+    protected AverageThickness.Result createEmptyResult()
+    {
+        Result res = new Result();
+        res.meanDist = Double.NaN;
+        res.avgThickness = Double.NaN;
+        return res;
     }
     
     
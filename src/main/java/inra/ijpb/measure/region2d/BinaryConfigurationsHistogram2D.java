@@ -4,11 +4,10 @@
 package inra.ijpb.measure.region2d;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 
 import ij.process.ImageProcessor;
 import inra.ijpb.algo.AlgoStub;
-import inra.ijpb.label.LabelImages;
+import inra.ijpb.label.LabelIndex;
 
 /**
  * Computes histogram of binary configurations composed of 2-by-2 pixels (planar
@@ -209,7 +208,7 @@ public class BinaryConfigurationsHistogram2D extends AlgoStub
     {
         // create associative array to know index of each label
         int nLabels = labels.length;
-        HashMap<Integer, Integer> labelIndices = LabelImages.mapLabelIndices(labels);
+        LabelIndex labelIndices = LabelIndex.fromLabels(labels);
 
         // initialize result
         int[][] histograms = new int[nLabels][16];
@@ -260,7 +259,7 @@ public class BinaryConfigurationsHistogram2D extends AlgoStub
                     int index = configIndex(configValues, label);
 
                     // retrieve label index from label value
-                    int labelIndex = labelIndices.get(label);
+                    int labelIndex = labelIndices.indexOf(label);
 
                     // update histogram of current label
                     histograms[labelIndex][index]++;
@@ -3,14 +3,13 @@
  */
 package inra.ijpb.measure.region2d;
 
-import java.util.HashMap;
 import java.util.Map;
 
 import ij.measure.Calibration;
 import ij.measure.ResultsTable;
 import ij.process.ImageProcessor;
 import inra.ijpb.geometry.Box2D;
-import inra.ijpb.label.LabelImages;
+import inra.ijpb.label.LabelIndex;
 
 /**
  * Compute bounding box of each region within a label or binary image.
@@ -84,7 +83,7 @@ public class BoundingBox extends RegionAnalyzer2D<Box2D>
 		}
 		
 		// create associative array to know index of each label
-        HashMap<Integer, Integer> labelIndices = LabelImages.mapLabelIndices(labels);
+        LabelIndex labelIndices = LabelIndex.fromLabels(labels);
 
 		// allocate memory for result
 		int nLabels = labels.length;
@@ -113,10 +112,10 @@ public class BoundingBox extends RegionAnalyzer2D<Box2D>
 					continue;
 
                 // do not process labels that are not in the input list 
-                if (!labelIndices.containsKey(label))
+                if (!labelIndices.contains(label))
                     continue;
                 
-				int index = labelIndices.get(label);
+				int index = labelIndices.indexOf(label);
 				
 				xmin[index] = Math.min(xmin[index], x);
 				xmax[index] = Math.max(xmax[index], x);
@@ -4,13 +4,12 @@
 package inra.ijpb.measure.region2d;
 
 import java.awt.geom.Point2D;
-import java.util.HashMap;
 import java.util.Map;
 
 import ij.measure.Calibration;
 import ij.measure.ResultsTable;
 import ij.process.ImageProcessor;
-import inra.ijpb.label.LabelImages;
+import inra.ijpb.label.LabelIndex;
 
 /**
  * Computes centroid position of regions within binary or label images.
@@ -63,7 +62,7 @@ public class Centroid extends RegionAnalyzer2D<Point2D>
 	{
 		// create associative array to know index of each label
 		int nLabels = labels.length;
-        HashMap<Integer, Integer> labelIndices = LabelImages.mapLabelIndices(labels);
+        LabelIndex labelIndices = LabelIndex.fromLabels(labels);
 
 		// allocate memory for result
 		int[] counts = new int[nLabels];
@@ -81,10 +80,10 @@ public class Centroid extends RegionAnalyzer2D<Point2D>
 					continue;
 
 				// do not process labels that are not in the input list 
-				if (!labelIndices.containsKey(label))
+				if (!labelIndices.contains(label))
 					continue;
 				
-				int index = labelIndices.get(label);
+				int index = labelIndices.indexOf(label);
 				centroids[index][0] += x;
 				centroids[index][1] += y;
 				counts[index]++;
@@ -182,7 +181,7 @@ public class Centroid extends RegionAnalyzer2D<Point2D>
 		}
 		
 		// create associative array to know index of each label
-        HashMap<Integer, Integer> labelIndices = LabelImages.mapLabelIndices(labels);
+        LabelIndex labelIndices = LabelIndex.fromLabels(labels);
 
 		// allocate memory for result
 		int nLabels = labels.length;
@@ -200,7 +199,7 @@ public class Centroid extends RegionAnalyzer2D<Point2D>
 				if (label == 0)
 					continue;
 
-				int index = labelIndices.get(label);
+				int index = labelIndices.indexOf(label);
 				cx[index] += x * sx;
 				cy[index] += y * sy;
 				counts[index]++;
@@ -6,14 +6,13 @@ package inra.ijpb.measure.region2d;
 import static java.lang.Math.sqrt;
 
 import java.awt.geom.Point2D;
-import java.util.HashMap;
 import java.util.Map;
 
 import ij.measure.Calibration;
 import ij.measure.ResultsTable;
 import ij.process.ImageProcessor;
 import inra.ijpb.geometry.Ellipse;
-import inra.ijpb.label.LabelImages;
+import inra.ijpb.label.LabelIndex;
 
 /**
  * Compute parameters of equivalent ellipse from binar or label images.
@@ -133,7 +132,7 @@ public class EquivalentEllipse extends RegionAnalyzer2D<Ellipse>
 		}
 		
 		// create associative array to know index of each label
-        HashMap<Integer, Integer> labelIndices = LabelImages.mapLabelIndices(labels);
+        LabelIndex labelIndices = LabelIndex.fromLabels(labels);
 
 		// allocate memory for result
 		int nLabels = labels.length;
@@ -155,10 +154,10 @@ public class EquivalentEllipse extends RegionAnalyzer2D<Ellipse>
 					continue;
 
                 // do not process labels that are not in the input list 
-                if (!labelIndices.containsKey(label))
+                if (!labelIndices.contains(label))
                     continue;
 
-                int index = labelIndices.get(label);
+                int index = labelIndices.indexOf(label);
 				cx[index] += x * sx;
 				cy[index] += y * sy;
 				counts[index]++;
@@ -182,7 +181,7 @@ public class EquivalentEllipse extends RegionAnalyzer2D<Ellipse>
 				if (label == 0)
 					continue;
 
-				int index = labelIndices.get(label);
+				int index = labelIndices.indexOf(label);
 				double x2 = x * sx - cx[index];
 				double y2 = y * sy - cy[index];
 				Ixx[index] += x2 * x2;
@@ -204,27 +203,41 @@ public class EquivalentEllipse extends RegionAnalyzer2D<Ellipse>
 		
 		// compute ellipse parameters for each region
     	fireStatusChanged(this, "Compute Ellipses");
-		final double sqrt2 = sqrt(2);
 		for (int i = 0; i < nLabels; i++) 
 		{
-			double xx = Ixx[i];
-			double xy = Ixy[i];
-			double yy = Iyy[i];
-
-			// compute ellipse semi-axes lengths
-			double common = sqrt((xx - yy) * (xx - yy) + 4 * xy * xy);
-			double ra = sqrt2 * sqrt(xx + yy + common);
-			double rb = sqrt2 * sqrt(xx + yy - common);
-
-			// compute ellipse angle and convert into degrees
-			double theta = Math.toDegrees(Math.atan2(2 * xy, xx - yy) / 2);
-
 			Point2D center = new Point2D.Double(cx[i] + sx / 2 + ox, cy[i] + sy / 2 + oy);
-			ellipses[i] = new Ellipse(center, ra, rb, theta);
+			ellipses[i] = momentsToEllipse(center, Ixx[i], Ixy[i], Iyy[i]);
 		}
 
 		return ellipses;
 	}
 
+	/**
+	 * Computes the ellipse with the specified center and centered
+	 * second-order moments.
+	 * 
+	 * @param center
+	 *            the center of the ellipse
+	 * @param xx
+	 *            the centered second-order moment along the x axis
+	 * @param xy
+	 *            the centered second-order cross moment
+	 * @param yy
+	 *            the centered second-order moment along the y axis
+	 * @return the ellipse with the same moments
+	 */
+	static final Ellipse momentsToEllipse(Point2D center, double xx, double xy, double yy)
+	{
+		// compute ellipse semi-axes lengths
+		double common = sqrt((xx - yy) * (xx - yy) + 4 * xy * xy);
+		double ra = sqrt(2) * sqrt(xx + yy + common);
+		double rb = sqrt(2) * sqrt(xx + yy - common);
+
+		// compute ellipse angle and convert into degrees
+		double theta = Math.toDegrees(Math.atan2(2 * xy, xx - yy) / 2);
+
+		return new Ellipse(center, ra, rb, theta);
+	}
+
 }
 
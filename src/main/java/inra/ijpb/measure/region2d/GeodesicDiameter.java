@@ -28,7 +28,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
-import ij.IJ;
 import ij.measure.Calibration;
 import ij.measure.ResultsTable;
 import ij.process.ByteProcessor;
@@ -55,9 +54,11 @@ import inra.ijpb.label.LabelValues.PositionValuePair;
  * </p>
  * 
  * <p>
- * This version uses optimized algorithm, that propagates distances of all
- * particles during each pass. This reduces computation overhead due to
- * iteration over particles.
+ * Each region is processed within its own bounding box, and regions are
+ * processed in parallel using the number of threads of the analyzer (see
+ * {@link RegionAnalyzer2D#setThreadCount(int)}), or the fork-join pool
+ * specified with
+ * {@link RegionAnalyzer2D#setForkJoinPool(java.util.concurrent.ForkJoinPool)}.
  * </p>
  * 
  * <p>
@@ -83,7 +84,7 @@ import inra.ijpb.label.LabelValues.PositionValuePair;
  * @author David Legland
  *
  */
-public class GeodesicDiameter extends RegionAnalyzer2D<GeodesicDiameter.Result>
+public class GeodesicDiameter extends CroppedRegionAnalyzer2D<GeodesicDiameter.Result>
 {
 	// ==================================================
 	// Static methods
@@ -114,6 +115,12 @@ public class GeodesicDiameter extends RegionAnalyzer2D<GeodesicDiameter.Result>
 	 */
 	GeodesicDistanceTransform geodesicDistanceTransform;
 
+	/**
+	 * The chamfer weights used for creating a geodesic distance transform for
+	 * each region, or null if the geodesic distance transform was specified.
+	 */
+	float[] chamferWeights;
+
 	boolean computePaths = false;
 	
 	/**
@@ -139,7 +146,7 @@ public class GeodesicDiameter extends RegionAnalyzer2D<GeodesicDiameter.Result>
 	 */
 	public GeodesicDiameter()
 	{
-		this(new GeodesicDistanceTransformFloat5x5(ChamferWeights.CHESSKNIGHT.getFloatWeights(), true));
+		this(ChamferWeights.CHESSKNIGHT.getFloatWeights());
 	}
 	
 	/**
@@ -151,7 +158,7 @@ public class GeodesicDiameter extends RegionAnalyzer2D<GeodesicDiameter.Result>
 	 */
 	public GeodesicDiameter(ChamferWeights weights) 
 	{
-		this(new GeodesicDistanceTransformFloat5x5(weights, true));
+		this(weights.getFloatWeights());
 	}
 	
 	/**
@@ -164,10 +171,13 @@ public class GeodesicDiameter extends RegionAnalyzer2D<GeodesicDiameter.Result>
 	public GeodesicDiameter(float[] weights) 
 	{
 		this(new GeodesicDistanceTransformFloat5x5(weights, true));
+		this.chamferWeights = weights;
 	}
 	
 	/**
-	 * Creates a new geodesic diameter computation operator.
+	 * Creates a new geodesic diameter computation operator. As the geodesic
+	 * distance transform instance is shared by all regions, regions are
+	 * processed one after the other.
 	 * 
 	 * @param gdt
 	 *            the instance of Geodesic Distance Transform calculator used
@@ -222,6 +232,7 @@ public class GeodesicDiameter extends RegionAnalyzer2D<GeodesicDiameter.Result>
 	public void setChamferWeights(float[] weights)
 	{
 		this.geodesicDistanceTransform = new GeodesicDistanceTransformFloat5x5(weights, true);
+		this.chamferWeights = weights;
 	}
 
 	
@@ -291,140 +302,116 @@ public class GeodesicDiameter extends RegionAnalyzer2D<GeodesicDiameter.Result>
 			throw new RuntimeException("Requires image with square pixels");
 		}
 
-		// number of labels to process
-		int nLabels = labels.length;
-		
-		// Create new marker image
-		int sizeX = labelImage.getWidth();
-		int sizeY = labelImage.getHeight();
-		ImageProcessor marker = new ByteProcessor(sizeX, sizeY);
-		
-		// Compute distance map from label borders to identify centers
-		// (The distance map correctly processes adjacent borders)
-		this.fireStatusChanged(this, "Initializing pseudo geodesic centers...");
-		float[] weights = ChamferWeights.CHESSKNIGHT.getFloatWeights();
-		ImageProcessor distanceMap = BinaryImages.distanceMap(labelImage, weights, true);
-	
-		// Extract position of maxima
-		PositionValuePair[] innerCircles = LabelValues.findMaxValues(distanceMap, labelImage, labels);
-		
-		// initialize marker image with position of maxima
-		marker.setValue(0);
-		marker.fill();
-		for (int i = 0; i < nLabels; i++) 
+		// process each region independently within its bounding box
+		return analyzeCroppedRegions(labelImage, labels, calib, new Result[labels.length]);
+	}
+
+	@Override
+	protected Result analyzeCroppedRegion(ImageProcessor mask, int x0, int y0, Calibration calib)
+	{
+		if (this.chamferWeights != null)
 		{
-			Point center = innerCircles[i].getPosition();
-			if (center.x == -1)
-			{
-				IJ.showMessage("Particle Not Found", 
-						"Could not find maximum for particle label " + labels[i]);
-				continue;
-			}
-			marker.set(center.x, center.y, 255);
+			// use a new instance for each region, as computation stores state
+			GeodesicDistanceTransform gdt = new GeodesicDistanceTransformFloat5x5(this.chamferWeights, true);
+			return geodesicDiameter(mask, x0, y0, calib, gdt);
 		}
-	
-		this.fireStatusChanged(this, "Computing first geodesic extremities...");
-	
-		// Second distance propagation from first maximum
-		distanceMap = geodesicDistanceTransform.geodesicDistanceMap(marker, labelImage);
-		
-		// find position of maximal value for each label
-		// this is expected to correspond to a geodesic extremity 
-		Point[] firstGeodesicExtremities = LabelValues.findPositionOfMaxValues(distanceMap, labelImage, labels);
-		
-		// Create new marker image with position of maxima
-		marker.setValue(0);
-		marker.fill();
-		for (int i = 0; i < nLabels; i++)
+
+		synchronized (this.geodesicDistanceTransform)
 		{
-			if (firstGeodesicExtremities[i].x == -1) 
-			{
-				IJ.showMessage("Particle Not Found", 
-						"Could not find maximum for particle label " + labels[i]);
-				continue;
-			}
-			marker.set(firstGeodesicExtremities[i].x, firstGeodesicExtremities[i].y, 255);
+			return geodesicDiameter(mask, x0, y0, calib, this.geodesicDistanceTransform);
 		}
-		
-		this.fireStatusChanged(this, "Computing second geodesic extremities...");
-	
-		// third distance propagation from second maximum
-		distanceMap = geodesicDistanceTransform.geodesicDistanceMap(marker, labelImage);
-		
-		// also computes position of maxima
-		PositionValuePair[] secondGeodesicExtremities = LabelValues.findMaxValues(distanceMap, labelImage, labels);
-		
-		// Create array of results and populate with computed values
-		GeodesicDiameter.Result[] result = new GeodesicDiameter.Result[nLabels];
-		for (int i = 0; i < nLabels; i++)
+	}
+
+	@Override
+	protected Result createEmptyResult()
+	{
+		// same values as the ones obtained by propagating distances within
+		// the whole image, for a label that is not found
+		Result res = new Result();
+		res.diameter = Double.NEGATIVE_INFINITY;
+		res.innerRadius = Double.NEGATIVE_INFINITY;
+		res.initialPoint = new Point(-1, -1);
+		res.firstExtremity = new Point(-1, -1);
+		res.secondExtremity = new Point(-1, -1);
+		if (computePaths)
 		{
-			Result res = new Result();
-					
-			// Get the maximum distance within each label, 
-			// and add sqrt(2) to take into account maximum pixel thickness.
-			res.diameter = secondGeodesicExtremities[i].getValue() + Math.sqrt(2);
-
-			// also keep references to characteristic points
-			res.initialPoint = innerCircles[i].getPosition();
-			res.innerRadius = innerCircles[i].getValue();
-			res.firstExtremity = firstGeodesicExtremities[i];
-			res.secondExtremity = secondGeodesicExtremities[i].getPosition();
-			
-			// store the result
-			result[i] = res;
+			res.path = new ArrayList<Point2D>();
 		}
-		
+		return res;
+	}
+
+	/**
+	 * Computes the geodesic diameter of a single region, given as a binary
+	 * mask cropped to the bounding box of the region.
+	 */
+	private Result geodesicDiameter(ImageProcessor mask, int x0, int y0, Calibration calib,
+			GeodesicDistanceTransform gdt)
+	{
+		int[] labels = new int[] { 255 };
+
+		// Compute distance map from region border to identify center
+		float[] weights = ChamferWeights.CHESSKNIGHT.getFloatWeights();
+		ImageProcessor distanceMap = BinaryImages.distanceMap(mask, weights, true);
+		PositionValuePair innerCircle = LabelValues.findMaxValues(distanceMap, mask, labels)[0];
+
+		// Second distance propagation from first maximum
+		Point center = innerCircle.getPosition();
+		ImageProcessor marker = new ByteProcessor(mask.getWidth(), mask.getHeight());
+		marker.set(center.x, center.y, 255);
+		distanceMap = gdt.geodesicDistanceMap(marker, mask);
+
+		// find position of maximal value, that is expected to correspond to a
+		// geodesic extremity
+		Point firstExtremity = LabelValues.findPositionOfMaxValues(distanceMap, mask, labels)[0];
+
+		// third distance propagation from second maximum
+		marker.set(center.x, center.y, 0);
+		marker.set(firstExtremity.x, firstExtremity.y, 255);
+		distanceMap = gdt.geodesicDistanceMap(marker, mask);
+		PositionValuePair secondExtremity = LabelValues.findMaxValues(distanceMap, mask, labels)[0];
+
+		// Get the maximum distance within the region,
+		// and add sqrt(2) to take into account maximum pixel thickness.
+		Result res = new Result();
+		res.diameter = secondExtremity.getValue() + Math.sqrt(2);
+
+		// also keep references to characteristic points, in image coordinates
+		res.initialPoint = new Point(center.x + x0, center.y + y0);
+		res.innerRadius = innerCircle.getValue();
+		res.firstExtremity = new Point(firstExtremity.x + x0, firstExtremity.y + y0);
+		Point pos = secondExtremity.getPosition();
+		res.secondExtremity = new Point(pos.x + x0, pos.y + y0);
+
 		if (computePaths)
 		{
-			this.fireStatusChanged(this, "Computing geodesic paths...");
+			// Create new path
+			List<Point2D> path = new ArrayList<Point2D>();
 
-			// compute paths starting from points with larger distance value
-			for (int i = 0; i < nLabels; i++)
+			// if the geodesic diameter of the region is infinite, it is not
+			// possible to create a path -> use an empty path
+			if (!Double.isInfinite(res.diameter))
 			{
-				// Current first geodesic extremity 
-				// (corresponding to the minimum of the geodesic distance map)
-				Point2D pos1 = result[i].firstExtremity;
-				
-				// Create new path
-				List<Point2D> path = new ArrayList<Point2D>();
-				
-				// if the geodesic diameter of the current label is infinite, it is
-				// not possible to create a path
-				// -> use an empty path
-				if (Double.isInfinite(result[i].diameter))
-				{
-					result[i].path = path;
-					continue;
-				}
-				
 				// initialize path with position of second geodesic extremity
 				// (corresponding to the maximum of the geodesic distance map)
-				Point pos = (Point) result[i].secondExtremity;
-				path.add(pos);
-				
-				// iterate over neighbors of current position until we reach the minimum value
-				while (!pos.equals(pos1))
+				path.add(res.secondExtremity);
+
+				// iterate over neighbors of current position until we reach
+				// the minimum value
+				while (!pos.equals(firstExtremity))
 				{
-					pos = findLowestNeighborPosition(labelImage, distanceMap, pos);
-					path.add(pos);
+					pos = findLowestNeighborPosition(mask, distanceMap, pos);
+					path.add(new Point(pos.x + x0, pos.y + y0));
 				}
-				
-				result[i].path = path;
 			}
+			res.path = path;
 		}
-		
+
 		// calibrate the results
 		if (calib.scaled())
 		{
-			this.fireStatusChanged(this, "Re-calibrating results");
-			for (int i = 0; i < nLabels; i++)
-			{
-				result[i] = result[i].recalibrate(calib);
-			}
+			res = res.recalibrate(calib);
 		}
-		
-		// returns the results
-		return result;
+		return res;
 	}
 	
 
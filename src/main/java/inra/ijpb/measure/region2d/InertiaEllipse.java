@@ -6,14 +6,13 @@ package inra.ijpb.measure.region2d;
 import static java.lang.Math.sqrt;
 
 import java.awt.geom.Point2D;
-import java.util.HashMap;
 import java.util.Map;
 
 import ij.measure.Calibration;
 import ij.measure.ResultsTable;
 import ij.process.ImageProcessor;
 import inra.ijpb.geometry.Ellipse;
-import inra.ijpb.label.LabelImages;
+import inra.ijpb.label.LabelIndex;
 
 /**
  * Compute parameters of inertia ellipse from label images.
@@ -132,7 +131,7 @@ public class InertiaEllipse extends RegionAnalyzer2D<Ellipse>
 		}
 		
 		// create associative array to know index of each label
-        HashMap<Integer, Integer> labelIndices = LabelImages.mapLabelIndices(labels);
+        LabelIndex labelIndices = LabelIndex.fromLabels(labels);
 
 		// allocate memory for result
 		int nLabels = labels.length;
@@ -154,10 +153,10 @@ public class InertiaEllipse extends RegionAnalyzer2D<Ellipse>
 					continue;
 
                 // do not process labels that are not in the input list 
-                if (!labelIndices.containsKey(label))
+                if (!labelIndices.contains(label))
                     continue;
 
-                int index = labelIndices.get(label);
+                int index = labelIndices.indexOf(label);
 				cx[index] += x * sx;
 				cy[index] += y * sy;
 				counts[index]++;
@@ -181,7 +180,7 @@ public class InertiaEllipse extends RegionAnalyzer2D<Ellipse>
 				if (label == 0)
 					continue;
 
-				int index = labelIndices.get(label);
+				int index = labelIndices.indexOf(label);
 				double x2 = x * sx - cx[index];
 				double y2 = y * sy - cy[index];
 				Ixx[index] += x2 * x2;
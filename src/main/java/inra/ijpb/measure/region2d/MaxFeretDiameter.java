@@ -10,10 +10,10 @@ import java.util.Map;
 import ij.measure.Calibration;
 import ij.measure.ResultsTable;
 import ij.process.ImageProcessor;
-import inra.ijpb.geometry.FeretDiameters;
 import inra.ijpb.geometry.PointPair2D;
 import inra.ijpb.geometry.Polygon2D;
 import inra.ijpb.geometry.Polygons2D;
+import inra.ijpb.geometry.RotatingCalipers;
 
 /**
  * Computes maximum Feret Diameter for each region of a binary or label image.
@@ -82,7 +82,8 @@ public class MaxFeretDiameter extends RegionAnalyzer2D<PointPair2D>
 	 * Computes maximum Feret Diameter for each label of the input label image.
 	 * 
 	 * Computes diameter between corners of image pixels, so the result is
-	 * always greater than or equal to one.
+	 * always greater than or equal to one. The diameter is obtained by
+	 * rotating calipers on the convex hull of the corners of each region.
 	 * 
 	 * @param image
 	 *            a label image (8, 16 or 32 bits)
@@ -116,24 +117,38 @@ public class MaxFeretDiameter extends RegionAnalyzer2D<PointPair2D>
 		fireStatusChanged(this, "Find Label Corner Points");
         ArrayList<Point2D>[] cornerPointsArrays = RegionBoundaries.runlengthsCorners(image, labels);
                 
-        // Compute the oriented box of each set of corner points
+        // Compute the Feret diameter of the convex hull of each set of corner points
         PointPair2D[] labelMaxDiams = new PointPair2D[nLabels];
         fireStatusChanged(this, "Compute feret Diameters");
         for (int i = 0; i < nLabels; i++)
         {
         	this.fireProgressChanged(this, i, nLabels);
         	
+        	// compute convex hull in pixel coordinates
         	ArrayList<Point2D> corners = cornerPointsArrays[i];
+        	int nc = corners.size();
+        	double[] xs = new double[nc];
+        	double[] ys = new double[nc];
+        	for (int ic = 0; ic < nc; ic++)
+        	{
+        		Point2D corner = corners.get(ic);
+        		xs[ic] = corner.getX();
+        		ys[ic] = corner.getY();
+        	}
+        	int[] hull = Polygons2D.convexHullIndices(xs, ys, nc);
+        	
     		// calibrate coordinates of hull vertices
-    		for (int iv = 0; iv < corners.size(); iv++)
+        	int nv = hull.length;
+        	double[] hx = new double[nv];
+        	double[] hy = new double[nv];
+    		for (int iv = 0; iv < nv; iv++)
     		{
-    			Point2D vertex = corners.get(iv);
-    			vertex = new Point2D.Double(vertex.getX() * sx + ox, vertex.getY() * sy + oy);
-    			corners.set(iv, vertex);
+    			hx[iv] = xs[hull[iv]] * sx + ox;
+    			hy[iv] = ys[hull[iv]] * sy + oy;
     		}
 
     		// compute Feret diameter of calibrated hull
-        	labelMaxDiams[i] = FeretDiameters.maxFeretDiameter(corners);
+        	labelMaxDiams[i] = new RotatingCalipers(hx, hy, nv).maxFeretDiameter();
         }
         
         fireProgressChanged(this, 1, 1);
@@ -168,6 +183,6 @@ public class MaxFeretDiameter extends RegionAnalyzer2D<PointPair2D>
 		}
 		
 		// compute Feret diameter of calibrated vertices
-		return FeretDiameters.maxFeretDiameter(convHull.vertices());
+		return RotatingCalipers.fromPolygon(convHull).maxFeretDiameter();
 	}
 }
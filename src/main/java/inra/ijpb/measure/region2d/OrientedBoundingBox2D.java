@@ -10,11 +10,9 @@ import java.util.Map;
 import ij.measure.Calibration;
 import ij.measure.ResultsTable;
 import ij.process.ImageProcessor;
-import inra.ijpb.geometry.AngleDiameterPair;
-import inra.ijpb.geometry.FeretDiameters;
 import inra.ijpb.geometry.OrientedBox2D;
-import inra.ijpb.geometry.Polygon2D;
 import inra.ijpb.geometry.Polygons2D;
+import inra.ijpb.geometry.RotatingCalipers;
 
 /**
  * @author dlegland
@@ -26,7 +24,12 @@ public class OrientedBoundingBox2D extends RegionAnalyzer2D<OrientedBox2D>
 	// Static methods
 
 	/**
-	 * Computes the object-oriented bounding box of a set of points.
+	 * Computes the object-oriented bounding box of a set of points. The
+	 * oriented box is aligned with the direction of the minimum Feret
+	 * diameter, and is computed with rotating calipers on the convex hull of
+	 * the points.
+	 * 
+	 * @see inra.ijpb.geometry.RotatingCalipers
 	 * 
 	 * @param points
 	 *            a list of points (not necessarily ordered)
@@ -34,71 +37,7 @@ public class OrientedBoundingBox2D extends RegionAnalyzer2D<OrientedBox2D>
 	 */
 	public static final OrientedBox2D orientedBoundingBox(ArrayList<? extends Point2D> points)
 	{
-		// Compute convex hull to reduce complexity
-		Polygon2D convexHull = Polygons2D.convexHull(points);
-		
-		// compute convex hull centroid
-		Point2D center = convexHull.centroid();
-		double cx = center.getX();
-		double cy = center.getY();
-		
-		AngleDiameterPair minFeret = FeretDiameters.minFeretDiameter(convexHull.vertices());
-		
-		// recenter the convex hull
-		ArrayList<Point2D> centeredHull = new ArrayList<Point2D>(convexHull.vertexNumber());
-		for (Point2D p : convexHull)
-		{
-			centeredHull.add(new Point2D.Double(p.getX() - cx, p.getY() - cy));
-		}
-		
-		// orientation of the main axis
-		// pre-compute trigonometric functions
-		double cot = Math.cos(minFeret.angle);
-		double sit = Math.sin(minFeret.angle);
-
-		// compute elongation in direction of rectangle length and width
-		double xmin = Double.MAX_VALUE;
-		double ymin = Double.MAX_VALUE;
-		double xmax = Double.MIN_VALUE;
-		double ymax = Double.MIN_VALUE;
-		for (Point2D p : centeredHull)
-		{
-			// coordinates of current point
-			double x = p.getX(); 
-			double y = p.getY();
-			
-			// compute rotated coordinates
-			double x2 = x * cot + y * sit; 
-			double y2 = - x * sit + y * cot;
-			
-			// update bounding box
-			xmin = Math.min(xmin, x2);
-			ymin = Math.min(ymin, y2);
-			xmax = Math.max(xmax, x2);
-			ymax = Math.max(ymax, y2);
-		}
-		
-		// position of the center with respect to the centroid computed before
-		double dl = (xmax + xmin) / 2;
-		double dw = (ymax + ymin) / 2;
-
-		// change coordinates from rectangle to user-space
-		double dx  = dl * cot - dw * sit;
-		double dy  = dl * sit + dw * cot;
-
-		// coordinates of oriented box center
-		cx += dx;
-		cy += dy;
-
-		// size of the rectangle
-		double length = ymax - ymin;
-		double width  = xmax - xmin;
-		
-		// store angle in degrees, between 0 and 180
-		double angle = (Math.toDegrees(minFeret.angle) + 270) % 180;
-
-		// Store results in a new instance of OrientedBox2D
-		return new OrientedBox2D(cx, cy, length, width, angle);
+		return RotatingCalipers.fromPoints(points).minimumWidthBox();
 	}
 	
 	/**
@@ -116,74 +55,28 @@ public class OrientedBoundingBox2D extends RegionAnalyzer2D<OrientedBox2D>
 	public static final OrientedBox2D orientedBoundingBox(ArrayList<? extends Point2D> points, Calibration calib)
 	{
 		// Compute convex hull to reduce complexity
-		Polygon2D convexHull = Polygons2D.convexHull(points);
-		
-		Polygon2D calibratedHull = new Polygon2D(calibrate(convexHull.vertices(), calib));
-				
-		// compute convex hull centroid
-		Point2D center = calibratedHull.centroid();
-		double cx = center.getX();
-		double cy = center.getY();
-		
-		// coordinates of convex hull after spatial calibration and recentering
-		ArrayList<Point2D> centeredHull = new ArrayList<Point2D>(convexHull.vertexNumber());
-		for (Point2D p : calibratedHull)
+		int n = points.size();
+		double[] xs = new double[n];
+		double[] ys = new double[n];
+		for (int i = 0; i < n; i++)
 		{
-			double x = p.getX() - cx;
-			double y = p.getY() - cy;
-			centeredHull.add(new Point2D.Double(x, y));
+			Point2D p = points.get(i);
+			xs[i] = p.getX();
+			ys[i] = p.getY();
 		}
-
-		AngleDiameterPair minFeret = FeretDiameters.minFeretDiameter(centeredHull);
+		int[] hull = Polygons2D.convexHullIndices(xs, ys, n);
 		
-		// orientation of the main axis
-		// pre-compute trigonometric functions
-		double cot = Math.cos(minFeret.angle);
-		double sit = Math.sin(minFeret.angle);
-
-		// compute elongation in direction of rectangle length and width
-		double xmin = Double.MAX_VALUE;
-		double ymin = Double.MAX_VALUE;
-		double xmax = Double.MIN_VALUE;
-		double ymax = Double.MIN_VALUE;
-		for (Point2D p : centeredHull)
+		// coordinates of convex hull vertices after spatial calibration
+		int nv = hull.length;
+		double[] hx = new double[nv];
+		double[] hy = new double[nv];
+		for (int i = 0; i < nv; i++)
 		{
-			// coordinates of current point
-			double x = p.getX(); 
-			double y = p.getY();
-			
-			// compute rotated coordinates
-			double x2 = x * cot + y * sit; 
-			double y2 = - x * sit + y * cot;
-			
-			// update bounding box
-			xmin = Math.min(xmin, x2);
-			ymin = Math.min(ymin, y2);
-			xmax = Math.max(xmax, x2);
-			ymax = Math.max(ymax, y2);
+			hx[i] = xs[hull[i]] * calib.pixelWidth + calib.xOrigin;
+			hy[i] = ys[hull[i]] * calib.pixelHeight + calib.yOrigin;
 		}
 		
-		// position of the center with respect to the centroid computed before
-		double dl = (xmax + xmin) / 2;
-		double dw = (ymax + ymin) / 2;
-
-		// change coordinates from rectangle to user-space
-		double dx  = dl * cot - dw * sit;
-		double dy  = dl * sit + dw * cot;
-
-		// coordinates of oriented box center
-		cx += dx;
-		cy += dy;
-
-		// size of the rectangle
-		double length = ymax - ymin;
-		double width  = xmax - xmin;
-		
-		// store angle in degrees, between 0 and 180
-		double angle = (Math.toDegrees(minFeret.angle) + 270) % 180;
-
-		// Store results in a new instance of OrientedBox2D
-		return new OrientedBox2D(cx, cy, length, width, angle);
+		return new RotatingCalipers(hx, hy, nv).minimumWidthBox();
 	}
 
 	// ====================================================
@@ -241,7 +134,6 @@ public class OrientedBoundingBox2D extends RegionAnalyzer2D<OrientedBox2D>
         for (int i = 0; i < nLabels; i++)
         {
         	this.fireProgressChanged(this, i, nLabels);
-//        	boxes[i] = orientedBoundingBox(calibrate(cornerPointsArrays[i], calib));
         	boxes[i] = orientedBoundingBox(cornerPointsArrays[i], calib);
         }
         
@@ -250,21 +142,4 @@ public class OrientedBoundingBox2D extends RegionAnalyzer2D<OrientedBox2D>
         
         return boxes;
 	}
-
-	private static final ArrayList<Point2D> calibrate(ArrayList<Point2D> points, Calibration calib)
-	{
-		if (!calib.scaled())
-		{
-			return points;
-		}
-		
-		ArrayList<Point2D> res = new ArrayList<Point2D>(points.size());
-		for (Point2D point : points)
-		{
-			double x = point.getX() * calib.pixelWidth + calib.xOrigin;
-			double y = point.getY() * calib.pixelHeight + calib.yOrigin;
-			res.add(new Point2D.Double(x, y));
-		}
-		return res;
-	}
 }
@@ -10,9 +10,8 @@ import ij.ImagePlus;
 import ij.measure.Calibration;
 import ij.measure.ResultsTable;
 import ij.process.ImageProcessor;
-import inra.ijpb.algo.AlgoStub;
 import inra.ijpb.label.LabelImages;
-import inra.ijpb.measure.RegionAnalyzer;
+import inra.ijpb.measure.RegionAnalyzerStub;
 
 /**
  * Base implementation of RegionAnalyzer interface for planar binary/label
@@ -24,7 +23,7 @@ import inra.ijpb.measure.RegionAnalyzer;
  * @author dlegland
  *
  */
-public abstract class RegionAnalyzer2D<T> extends AlgoStub implements RegionAnalyzer<T>
+public abstract class RegionAnalyzer2D<T> extends RegionAnalyzerStub<T>
 {
 	/**
 	 * Computes an instance of the generic type T for each region in input label image.
@@ -5,12 +5,11 @@ package inra.ijpb.measure.region2d;
 
 import java.awt.geom.Point2D;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeMap;
 
 import ij.process.ImageProcessor;
-import inra.ijpb.label.LabelImages;
+import inra.ijpb.label.LabelIndex;
 
 /**
  * Utility functions for computing position of boundary points/corners of
@@ -171,10 +170,9 @@ public class RegionBoundaries
 					if (previous > 0 && labelCornerPoints.containsKey(previous))
 					{
 						ArrayList<Point2D> corners = labelCornerPoints.get(previous);
-						Point2D p = new Point2D.Double(x, y);
-						if (!corners.contains(p))
+						if (!hasTransitionAbove(image, x, y, previous))
 						{
-							corners.add(p);
+							corners.add(new Point2D.Double(x, y));
 						}
 						corners.add(new Point2D.Double(x, y+1));
 					}
@@ -184,10 +182,9 @@ public class RegionBoundaries
 					{
 						// add a new corner points for the beginning of the new region
 						ArrayList<Point2D> corners = labelCornerPoints.get(current);
-						Point2D p = new Point2D.Double(x, y);
-						if (!corners.contains(p))
+						if (!hasTransitionAbove(image, x, y, current))
 						{
-							corners.add(p);
+							corners.add(new Point2D.Double(x, y));
 						}
 						corners.add(new Point2D.Double(x, y+1));
 					}
@@ -201,10 +198,9 @@ public class RegionBoundaries
 			if (previous > 0 && labelCornerPoints.containsKey(previous))
 			{
 				ArrayList<Point2D> corners = labelCornerPoints.get(previous);
-				Point2D p = new Point2D.Double(sizeX, y);
-				if (!corners.contains(p))
+				if (!hasTransitionAbove(image, sizeX, y, previous))
 				{
-					corners.add(p);
+					corners.add(new Point2D.Double(sizeX, y));
 				}
 				corners.add(new Point2D.Double(sizeX, y+1));
 			}
@@ -213,6 +209,22 @@ public class RegionBoundaries
 		return labelCornerPoints;
 	}
 
+	/**
+	 * Checks if the corner (x,y) was already added to the corners of the
+	 * label when processing the previous row, that is if the label had a
+	 * transition at the same position within the previous row.
+	 */
+	private static final boolean hasTransitionAbove(ImageProcessor image, int x, int y, int label)
+	{
+		if (y == 0)
+		{
+			return false;
+		}
+		int left = x > 0 ? (int) image.getf(x - 1, y - 1) : 0;
+		int right = x < image.getWidth() ? (int) image.getf(x, y - 1) : 0;
+		return left != right && (left == label || right == label);
+	}
+
 	/**
      * Extracts boundary points from a binary region, keeping middle points of
      * pixel edges.
@@ -302,7 +314,7 @@ public class RegionBoundaries
         int sizeY = labelImage.getHeight();
         
         int nLabels = labels.length;
-        HashMap<Integer, Integer> labelIndices = LabelImages.mapLabelIndices(labels);
+        LabelIndex labelIndices = LabelIndex.fromLabels(labels);
         
         // allocate data structure for storing results
         @SuppressWarnings("unchecked")
@@ -338,12 +350,12 @@ public class RegionBoundaries
                     Point2D p = new Point2D.Double(x + .5, y);
                     if (label != 0)
                     {
-                        int index = labelIndices.get(label);
+                        int index = labelIndices.indexOf(label);
                         pointArrays[index].add(p);
                     }
                     if (labelUp != 0)
                     {
-                        int index = labelIndices.get(labelUp);
+                        int index = labelIndices.indexOf(labelUp);
                         pointArrays[index].add(p);
                     }
                 }
@@ -354,12 +366,12 @@ public class RegionBoundaries
                     Point2D p = new Point2D.Double(x, y + .5);
                     if (label != 0)
                     {
-                        int index = labelIndices.get(label);
+                        int index = labelIndices.indexOf(label);
                         pointArrays[index].add(p);
                     }
                     if (labelLeft != 0)
                     {
-                        int index = labelIndices.get(labelLeft);
+                        int index = labelIndices.indexOf(labelLeft);
                         pointArrays[index].add(p);
                     }
                 }
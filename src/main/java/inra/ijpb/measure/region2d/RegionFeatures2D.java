@@ -0,0 +1,729 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.measure.region2d;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import ij.ImagePlus;
+import ij.measure.Calibration;
+import ij.measure.ResultsTable;
+import ij.process.ImageProcessor;
+import inra.ijpb.geometry.Box2D;
+import inra.ijpb.geometry.Ellipse;
+import inra.ijpb.label.LabelIndex;
+
+/**
+ * Computes a set of features for each region of a 2D label image, using a
+ * single scan of the image.
+ *
+ * All the additive statistics required by the requested features (pixel
+ * counts, bounding boxes, raw moments up to order two, and histograms of
+ * binary 2-by-2 configurations) are accumulated during the same pass.
+ * Intrinsic volumes, centroids and equivalent ellipses are then derived from
+ * these statistics, and give the same results as the dedicated analyzers.
+ *
+ * When the labels are not specified, they are identified during the scan, so
+ * that the label image is read only once.
+ *
+ * @see IntrinsicVolumesAnalyzer2D
+ * @see BoundingBox
+ * @see Centroid
+ * @see EquivalentEllipse
+ * @see inra.ijpb.measure.region3d.RegionFeatures3D
+ *
+ * @author agent
+ *
+ */
+public class RegionFeatures2D extends RegionAnalyzer2D<RegionFeatures2D.Result>
+{
+	// ==================================================
+	// Inner enumeration for features
+
+	/**
+	 * The list of features that can be computed by this analyzer.
+	 */
+	public enum Feature
+	{
+		/** The area, computed from the number of pixels. */
+		AREA,
+		/** The perimeter, estimated with Crofton formula. */
+		PERIMETER,
+		/** The Euler number, using the connectivity of the analyzer. */
+		EULER_NUMBER,
+		/** The bounding box, in calibrated coordinates. */
+		BOUNDING_BOX,
+		/** The centroid, in calibrated coordinates. */
+		CENTROID,
+		/** The equivalent ellipse, computed from second-order moments. */
+		ELLIPSE;
+	}
+
+
+	// ==================================================
+	// Static methods
+
+	/**
+	 * Computes all the features of each region in input label image, using
+	 * default settings.
+	 *
+	 * @param image
+	 *            a label image (8, 16 or 32 bits)
+	 * @param labels
+	 *            the set of labels within the image
+	 * @param calib
+	 *            the spatial calibration of the image
+	 * @return an array of RegionFeatures2D.Result, one for each label
+	 */
+	public static final RegionFeatures2D.Result[] features(ImageProcessor image, int[] labels, Calibration calib)
+	{
+		return new RegionFeatures2D().analyzeRegions(image, labels, calib);
+	}
+
+
+	// ==================================================
+	// Class variables
+
+	/**
+	 * The set of features to compute.
+	 */
+	EnumSet<Feature> features;
+
+	/**
+	 * Number of directions for computing perimeter with Crofton Formula.
+	 * Default is 4.
+	 */
+	int directionNumber = 4;
+
+	/**
+	 * Connectivity for computing Euler number. Default is 4.
+	 */
+	int connectivity = 4;
+
+
+	// ==================================================
+	// Constructors
+
+	/**
+	 * Creates a new analyzer that computes all features.
+	 */
+	public RegionFeatures2D()
+	{
+		this(EnumSet.allOf(Feature.class));
+	}
+
+	/**
+	 * Creates a new analyzer that computes the specified set of features.
+	 *
+	 * @param features
+	 *            the set of features to compute
+	 */
+	public RegionFeatures2D(EnumSet<Feature> features)
+	{
+		this.features = EnumSet.copyOf(features);
+	}
+
+
+	// ==================================================
+	// Setters and Getters
+
+	/**
+	 * @return the set of features computed by this analyzer
+	 */
+	public EnumSet<Feature> getFeatures()
+	{
+		return EnumSet.copyOf(features);
+	}
+
+	/**
+	 * @return the number of directions used to compute perimeter
+	 */
+	public int getDirectionNumber()
+	{
+		return directionNumber;
+	}
+
+	/**
+	 * @param directionNumber
+	 *            the number of directions used to compute perimeter (either 2
+	 *            or 4)
+	 */
+	public void setDirectionNumber(int directionNumber)
+	{
+		this.directionNumber = directionNumber;
+	}
+
+	/**
+	 * @return the connectivity used to compute Euler number
+	 */
+	public int getConnectivity()
+	{
+		return connectivity;
+	}
+
+	/**
+	 * @param connectivity
+	 *            the connectivity used to compute Euler number (either 4 or 8)
+	 */
+	public void setConnectivity(int connectivity)
+	{
+		this.connectivity = connectivity;
+	}
+
+
+	// ==================================================
+	// Implementation of RegionAnalyzer interface
+
+	@Override
+	public ResultsTable createTable(Map<Integer, RegionFeatures2D.Result> results)
+	{
+		// Initialize a new result table
+		ResultsTable table = new ResultsTable();
+
+		for (int label : results.keySet())
+		{
+			Result res = results.get(label);
+
+			// add an entry to the resulting data table
+			table.incrementCounter();
+			table.addLabel(Integer.toString(label));
+
+			if (features.contains(Feature.AREA))
+				table.addValue("Area", res.area);
+			if (features.contains(Feature.PERIMETER))
+				table.addValue("Perimeter", res.perimeter);
+			if (features.contains(Feature.AREA) && features.contains(Feature.PERIMETER))
+				table.addValue("Circularity", res.circularity());
+			if (features.contains(Feature.EULER_NUMBER))
+				table.addValue("EulerNumber", res.eulerNumber);
+
+			if (features.contains(Feature.BOUNDING_BOX))
+			{
+				Box2D box = res.boundingBox;
+				table.addValue("Box.X.Min", box.getXMin());
+				table.addValue("Box.X.Max", box.getXMax());
+				table.addValue("Box.Y.Min", box.getYMin());
+				table.addValue("Box.Y.Max", box.getYMax());
+			}
+
+			if (features.contains(Feature.CENTROID))
+			{
+				Point2D center = res.centroid;
+				table.addValue("Centroid.X", center.getX());
+				table.addValue("Centroid.Y", center.getY());
+			}
+
+			if (features.contains(Feature.ELLIPSE))
+			{
+				Ellipse elli = res.ellipse;
+				Point2D center = elli.center();
+				table.addValue("Ellipse.Center.X", center.getX());
+				table.addValue("Ellipse.Center.Y", center.getY());
+				table.addValue("Ellipse.Radius1", elli.radius1());
+				table.addValue("Ellipse.Radius2", elli.radius2());
+				table.addValue("Ellipse.Orientation", elli.orientation());
+			}
+		}
+
+		return table;
+	}
+
+	/**
+	 * Computes the features of the regions corresponding to the specified
+	 * labels. Pixels whose label does not belong to the list are ignored.
+	 *
+	 * @param image
+	 *            the input image containing region labels
+	 * @param labels
+	 *            the array of labels within the image
+	 * @param calib
+	 *            the calibration of the image
+	 * @return an array of Result, one for each label
+	 */
+	@Override
+	public RegionFeatures2D.Result[] analyzeRegions(ImageProcessor image, int[] labels, Calibration calib)
+	{
+		// initialize statistics of each region
+		RegionStats[] stats = new RegionStats[labels.length];
+		for (int i = 0; i < labels.length; i++)
+		{
+			stats[i] = new RegionStats(labels[i]);
+		}
+
+		fireStatusChanged(this, "Scan label image");
+		scanImage(image, new StatsTable(LabelIndex.fromLabels(labels), stats));
+
+		fireStatusChanged(this, "Compute features");
+		RegionFeatures2D.Result[] results = computeResults(stats, calib);
+
+		fireStatusChanged(this, "");
+		return results;
+	}
+
+	/**
+	 * Computes the features of all the regions within the label image. The
+	 * labels are identified during the scan of the image, and the results
+	 * are returned by increasing label value.
+	 *
+	 * @param image
+	 *            the input image containing region labels
+	 * @param calib
+	 *            the calibration of the image
+	 * @return a map between each label and the result computed for the region
+	 */
+	@Override
+	public Map<Integer, RegionFeatures2D.Result> analyzeRegions(ImageProcessor image, Calibration calib)
+	{
+		fireStatusChanged(this, "Scan label image");
+		StatsTable table = new StatsTable();
+		scanImage(image, table);
+
+		// sort regions by increasing label value
+		ArrayList<RegionStats> statsList = new ArrayList<RegionStats>(table.statsMap.values());
+		Collections.sort(statsList, new Comparator<RegionStats>()
+		{
+			@Override
+			public int compare(RegionStats stats1, RegionStats stats2)
+			{
+				return Integer.compare(stats1.label, stats2.label);
+			}
+		});
+		RegionStats[] stats = statsList.toArray(new RegionStats[statsList.size()]);
+
+		fireStatusChanged(this, "Compute features");
+		RegionFeatures2D.Result[] results = computeResults(stats, calib);
+
+		// encapsulate into map
+		Map<Integer, RegionFeatures2D.Result> map = new TreeMap<Integer, RegionFeatures2D.Result>();
+		for (int i = 0; i < stats.length; i++)
+		{
+			map.put(stats[i].label, results[i]);
+		}
+
+		fireStatusChanged(this, "");
+		return map;
+	}
+
+	@Override
+	public Map<Integer, RegionFeatures2D.Result> analyzeRegions(ImagePlus labelPlus)
+	{
+		return analyzeRegions(labelPlus.getProcessor(), labelPlus.getCalibration());
+	}
+
+
+	// ==================================================
+	// Computation methods
+
+	/**
+	 * Returns true if at least one of the requested features requires the
+	 * histogram of binary configurations.
+	 */
+	private boolean requiresConfigurations()
+	{
+		return features.contains(Feature.PERIMETER)
+				|| features.contains(Feature.EULER_NUMBER);
+	}
+
+	/**
+	 * Scans the label image and updates the statistics of each region.
+	 */
+	private void scanImage(ImageProcessor image, StatsTable table)
+	{
+		if (requiresConfigurations())
+		{
+			scanConfigurations(image, table);
+		}
+		else
+		{
+			scanPixels(image, table);
+		}
+	}
+
+	/**
+	 * Updates pixel statistics by iterating over the pixels of the image.
+	 */
+	private void scanPixels(ImageProcessor image, StatsTable table)
+	{
+		// size of image
+		int sizeX = image.getWidth();
+		int sizeY = image.getHeight();
+
+		for (int y = 0; y < sizeY; y++)
+		{
+			this.fireProgressChanged(this, y, sizeY);
+			for (int x = 0; x < sizeX; x++)
+			{
+				int label = (int) image.getf(x, y);
+				if (label == 0)
+					continue;
+
+				RegionStats stats = table.get(label);
+				if (stats != null)
+				{
+					stats.addPixel(x, y);
+				}
+			}
+		}
+
+		this.fireProgressChanged(this, 1, 1);
+	}
+
+	/**
+	 * Updates pixel statistics and histograms of binary configurations by
+	 * iterating over all the 2-by-2 configurations containing at least one
+	 * pixel of the image. The pixel at the lower-right corner of each
+	 * configuration is used to update pixel statistics.
+	 */
+	private void scanConfigurations(ImageProcessor image, StatsTable table)
+	{
+		// size of image
+		int sizeX = image.getWidth();
+		int sizeY = image.getHeight();
+
+		// values of pixels within current 2-by-2 configuration
+		// (first digit for y, second digit for x)
+		int[] configValues = new int[4];
+
+		for (int y = 0; y < sizeY + 1; y++)
+		{
+			this.fireProgressChanged(this, y, sizeY + 1);
+
+			configValues[0] = 0;
+			configValues[2] = 0;
+
+			for (int x = 0; x < sizeX + 1; x++)
+			{
+				// update pixel values of configuration
+				configValues[1] = x < sizeX & y > 0 ? (int) image.getf(x, y - 1) : 0;
+				configValues[3] = x < sizeX & y < sizeY ? (int) image.getf(x, y) : 0;
+
+				// update statistics of the region containing current pixel
+				if (configValues[3] != 0)
+				{
+					RegionStats stats = table.get(configValues[3]);
+					if (stats != null)
+					{
+						stats.addPixel(x, y);
+					}
+				}
+
+				// update configuration histogram of each distinct label
+				for (int i = 0; i < 4; i++)
+				{
+					int label = configValues[i];
+					if (label == 0 || isRepeated(configValues, i))
+						continue;
+
+					RegionStats stats = table.get(label);
+					if (stats != null)
+					{
+						stats.histogram()[configIndex(configValues, label)]++;
+					}
+				}
+
+				// update values of configuration for next iteration
+				configValues[0] = configValues[1];
+				configValues[2] = configValues[3];
+			}
+		}
+
+		this.fireProgressChanged(this, 1, 1);
+	}
+
+	/**
+	 * Returns true if the value at the specified index already appears at a
+	 * smaller index.
+	 */
+	private static final boolean isRepeated(int[] values, int index)
+	{
+		for (int i = 0; i < index; i++)
+		{
+			if (values[i] == values[index])
+				return true;
+		}
+		return false;
+	}
+
+	private static final int configIndex(int[] configValues, int label)
+	{
+		// Compute index of local configuration
+		int index = 0;
+		index += configValues[0] == label ? 1 : 0;
+		index += configValues[1] == label ? 2 : 0;
+		index += configValues[2] == label ? 4 : 0;
+		index += configValues[3] == label ? 8 : 0;
+		return index;
+	}
+
+	/**
+	 * Derives the requested features from the statistics of each region.
+	 */
+	private RegionFeatures2D.Result[] computeResults(RegionStats[] stats, Calibration calib)
+	{
+		// Extract spatial calibration
+		double sx = 1, sy = 1;
+		double ox = 0, oy = 0;
+		if (calib != null)
+		{
+			sx = calib.pixelWidth;
+			sy = calib.pixelHeight;
+			ox = calib.xOrigin;
+			oy = calib.yOrigin;
+		}
+		else
+		{
+			calib = new Calibration();
+		}
+		double pixelArea = sx * sy;
+
+		// look-up tables for intrinsic volumes
+		double[] perimLut = null;
+		double[] eulerLut = null;
+		if (features.contains(Feature.PERIMETER))
+			perimLut = IntrinsicVolumes2DUtils.perimeterLut(calib, this.directionNumber);
+		if (features.contains(Feature.EULER_NUMBER))
+			eulerLut = IntrinsicVolumes2DUtils.eulerNumberLut(this.connectivity);
+
+		int nRegions = stats.length;
+		RegionFeatures2D.Result[] results = new RegionFeatures2D.Result[nRegions];
+		for (int i = 0; i < nRegions; i++)
+		{
+			RegionStats region = stats[i];
+			Result res = new Result();
+			res.pixelCount = region.count;
+			results[i] = res;
+
+			if (features.contains(Feature.AREA))
+				res.area = region.count * pixelArea;
+			if (perimLut != null)
+				res.perimeter = BinaryConfigurationsHistogram2D.applyLut(region.histogram(), perimLut);
+			if (eulerLut != null)
+				res.eulerNumber = BinaryConfigurationsHistogram2D.applyLut(region.histogram(), eulerLut);
+
+			if (features.contains(Feature.BOUNDING_BOX))
+			{
+				res.boundingBox = new Box2D(
+						region.xmin * sx + ox, (region.xmax + 1) * sx + ox,
+						region.ymin * sy + oy, (region.ymax + 1) * sy + oy);
+			}
+
+			// the moments of regions without pixels are undefined
+			if (region.count == 0)
+				continue;
+
+			// mean pixel coordinates, in pixel units
+			double n = region.count;
+			double mx = region.x0 + region.sumX / n;
+			double my = region.y0 + region.sumY / n;
+
+			if (features.contains(Feature.CENTROID))
+			{
+				res.centroid = new Point2D.Double(mx * sx + ox, my * sy + oy);
+			}
+
+			if (features.contains(Feature.ELLIPSE))
+			{
+				// compute centered second-order moments from raw moments
+				double xx = (region.sumXX - region.sumX * (double) region.sumX / n) * sx * sx / n + sx / 12.0;
+				double xy = (region.sumXY - region.sumX * (double) region.sumY / n) * sx * sy / n;
+				double yy = (region.sumYY - region.sumY * (double) region.sumY / n) * sy * sy / n + sy / 12.0;
+				Point2D center = new Point2D.Double(mx * sx + sx / 2 + ox, my * sy + sy / 2 + oy);
+				res.ellipse = EquivalentEllipse.momentsToEllipse(center, xx, xy, yy);
+			}
+		}
+
+		return results;
+	}
+
+
+	// ==================================================
+	// Inner classes for accumulating statistics
+
+	/**
+	 * Retrieves the statistics associated to a label. When the labels are
+	 * known, statistics are retrieved from a primitive label index. Otherwise,
+	 * they are created for labels that were not encountered yet, and as
+	 * regions are scanned by runs of pixels, the statistics of the last label
+	 * are cached.
+	 */
+	private class StatsTable
+	{
+		LabelIndex labelIndex = null;
+		RegionStats[] statsArray = null;
+
+		HashMap<Integer, RegionStats> statsMap = null;
+
+		int lastLabel = 0;
+		RegionStats lastStats = null;
+
+		/**
+		 * Creates a table for a fixed set of labels.
+		 */
+		StatsTable(LabelIndex labelIndex, RegionStats[] statsArray)
+		{
+			this.labelIndex = labelIndex;
+			this.statsArray = statsArray;
+		}
+
+		/**
+		 * Creates a table that creates statistics for each new label.
+		 */
+		StatsTable()
+		{
+			this.statsMap = new HashMap<Integer, RegionStats>();
+		}
+
+		RegionStats get(int label)
+		{
+			if (labelIndex != null)
+			{
+				int index = labelIndex.indexOf(label);
+				return index >= 0 ? statsArray[index] : null;
+			}
+
+			if (label == lastLabel && lastStats != null)
+				return lastStats;
+
+			RegionStats stats = statsMap.get(label);
+			if (stats == null)
+			{
+				stats = new RegionStats(label);
+				statsMap.put(label, stats);
+			}
+
+			lastLabel = label;
+			lastStats = stats;
+			return stats;
+		}
+	}
+
+	/**
+	 * The additive statistics of a region. Moments are accumulated as
+	 * integer sums of pixel offsets with respect to the first pixel of the
+	 * region, so that they are exact and do not depend on the scan order.
+	 */
+	private static class RegionStats
+	{
+		int label;
+		int count = 0;
+
+		int xmin = Integer.MAX_VALUE, xmax = Integer.MIN_VALUE;
+		int ymin = Integer.MAX_VALUE, ymax = Integer.MIN_VALUE;
+
+		// the reference pixel
+		int x0, y0;
+
+		// raw moments of pixel offsets
+		long sumX = 0, sumY = 0;
+		long sumXX = 0, sumXY = 0, sumYY = 0;
+
+		// histogram of binary configurations, allocated on demand
+		int[] histogram = null;
+
+		RegionStats(int label)
+		{
+			this.label = label;
+		}
+
+		void addPixel(int x, int y)
+		{
+			if (count == 0)
+			{
+				x0 = x;
+				y0 = y;
+			}
+			count++;
+
+			if (x < xmin) xmin = x;
+			if (x > xmax) xmax = x;
+			if (y < ymin) ymin = y;
+			if (y > ymax) ymax = y;
+
+			long dx = x - x0;
+			long dy = y - y0;
+			sumX += dx;
+			sumY += dy;
+			sumXX += dx * dx;
+			sumXY += dx * dy;
+			sumYY += dy * dy;
+		}
+
+		int[] histogram()
+		{
+			if (histogram == null)
+			{
+				histogram = new int[16];
+			}
+			return histogram;
+		}
+	}
+
+
+	// ==================================================
+	// Inner class for storing results
+
+	/**
+	 * Simple class for storing the features computed for a region. Features
+	 * that were not requested are set to NaN or null.
+	 */
+	public class Result
+	{
+		/** The number of pixels within the region. */
+		public int pixelCount = 0;
+
+		/** The area of the region. */
+		public double area = Double.NaN;
+
+		/** The perimeter of the region. */
+		public double perimeter = Double.NaN;
+
+		/** The Euler number of the region. */
+		public double eulerNumber = Double.NaN;
+
+		/** The bounding box of the region. */
+		public Box2D boundingBox = null;
+
+		/** The centroid of the region. */
+		public Point2D centroid = null;
+
+		/** The equivalent ellipse of the region. */
+		public Ellipse ellipse = null;
+
+		/**
+		 * Computes the circularity of the region, defined as the ratio of
+		 * area with the square of the perimeter, normalized such that a disk
+		 * has a circularity close to 1.
+		 *
+		 * @return the circularity value
+		 */
+		public double circularity()
+		{
+			return 4 * Math.PI * area / (perimeter * perimeter);
+		}
+	}
+}
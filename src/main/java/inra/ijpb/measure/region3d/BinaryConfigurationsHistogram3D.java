@@ -4,11 +4,10 @@
 package inra.ijpb.measure.region3d;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 
 import ij.ImageStack;
 import inra.ijpb.algo.AlgoStub;
-import inra.ijpb.label.LabelImages;
+import inra.ijpb.label.LabelIndex;
 
 /**
  * Computes histogram of binary 2-by-2-by-2 configurations within a 3D image.
@@ -260,7 +259,7 @@ public class BinaryConfigurationsHistogram3D extends AlgoStub
         // and adds is contribution to the measure associated to the label. 
         
         // create associative array to know index of each label
-        HashMap<Integer, Integer> labelIndices = LabelImages.mapLabelIndices(labels);
+        LabelIndex labelIndices = LabelIndex.fromLabels(labels);
 
         // initialize the result array containing one measure for each label
         int nLabels = labels.length;
@@ -328,7 +327,7 @@ public class BinaryConfigurationsHistogram3D extends AlgoStub
                         int index = configIndex(configValues, label);
 
                         // retrieve label index from label value
-                        int labelIndex = labelIndices.get(label);
+                        int labelIndex = labelIndices.indexOf(label);
 
                         // add the contribution of the configuration to the
                         // accumulator for the label
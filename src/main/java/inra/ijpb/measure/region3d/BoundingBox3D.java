@@ -3,14 +3,13 @@
  */
 package inra.ijpb.measure.region3d;
 
-import java.util.HashMap;
 import java.util.Map;
 
 import ij.ImageStack;
 import ij.measure.Calibration;
 import ij.measure.ResultsTable;
 import inra.ijpb.geometry.Box3D;
-import inra.ijpb.label.LabelImages;
+import inra.ijpb.label.LabelIndex;
 
 /**
  * Compute bounding box of each region within a label or binary image.
@@ -88,7 +87,7 @@ public class BoundingBox3D extends RegionAnalyzer3D<Box3D>
 		}
 		
 		// create associative array to know index of each label
-        HashMap<Integer, Integer> labelIndices = LabelImages.mapLabelIndices(labels);
+        LabelIndex labelIndices = LabelIndex.fromLabels(labels);
 
 		// allocate memory for result
 		int nLabels = labels.length;
@@ -123,9 +122,9 @@ public class BoundingBox3D extends RegionAnalyzer3D<Box3D>
     					continue;
 
                     // do not process labels that are not in the input list 
-                    if (!labelIndices.containsKey(label))
+                    if (!labelIndices.contains(label))
                         continue;
-    				int index = labelIndices.get(label);
+    				int index = labelIndices.indexOf(label);
 
     				xmin[index] = Math.min(xmin[index], x);
     				xmax[index] = Math.max(xmax[index], x + 1);
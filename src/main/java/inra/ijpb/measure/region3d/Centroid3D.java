@@ -3,14 +3,13 @@
  */
 package inra.ijpb.measure.region3d;
 
-import java.util.HashMap;
 import java.util.Map;
 
 import ij.ImageStack;
 import ij.measure.Calibration;
 import ij.measure.ResultsTable;
 import inra.ijpb.geometry.Point3D;
-import inra.ijpb.label.LabelImages;
+import inra.ijpb.label.LabelIndex;
 
 /**
  * Computes centroid position of regions within 3D binary or label images.
@@ -60,7 +59,7 @@ public class Centroid3D extends RegionAnalyzer3D<Point3D>
 	{
 		// create associative array to know index of each label
 		int nLabels = labels.length;
-        HashMap<Integer, Integer> labelIndices = LabelImages.mapLabelIndices(labels);
+        LabelIndex labelIndices = LabelIndex.fromLabels(labels);
 
 		// allocate memory for result
 		int[] counts = new int[nLabels];
@@ -82,10 +81,10 @@ public class Centroid3D extends RegionAnalyzer3D<Point3D>
 						continue;
 
 					// do not process labels that are not in the input list 
-					if (!labelIndices.containsKey(label))
+					if (!labelIndices.contains(label))
 						continue;
 
-					int index = labelIndices.get(label);
+					int index = labelIndices.indexOf(label);
 					centroids[index][0] += x;
 					centroids[index][1] += y;
 					centroids[index][2] += z;
@@ -188,7 +187,7 @@ public class Centroid3D extends RegionAnalyzer3D<Point3D>
 		}
 		
 		// create associative array to know index of each label
-        HashMap<Integer, Integer> labelIndices = LabelImages.mapLabelIndices(labels);
+        LabelIndex labelIndices = LabelIndex.fromLabels(labels);
 
 		// allocate memory for result
 		int nLabels = labels.length;
@@ -210,10 +209,10 @@ public class Centroid3D extends RegionAnalyzer3D<Point3D>
     					continue;
 
                     // do not process labels that are not in the input list 
-                    if (!labelIndices.containsKey(label))
+                    if (!labelIndices.contains(label))
                         continue;
 
-                    int index = labelIndices.get(label);
+                    int index = labelIndices.indexOf(label);
     				cx[index] += x * sx;
     				cy[index] += y * sy;
     				cz[index] += z * sz;
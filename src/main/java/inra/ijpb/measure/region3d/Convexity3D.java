@@ -0,0 +1,189 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.measure.region3d;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+import ij.ImageStack;
+import ij.measure.Calibration;
+import ij.measure.ResultsTable;
+import inra.ijpb.geometry.ConvexHull3D;
+import inra.ijpb.geometry.Point3D;
+import inra.ijpb.label.LabelImages;
+
+/**
+ * Computes convex volume and convexity for regions within a 3D binary or
+ * label image.
+ *
+ * The convex hull of a region is computed from the corners of its voxels,
+ * so that the convex volume is the volume of the smallest convex polyhedron
+ * containing all the voxels of the region, and the convexity is equal to
+ * one for regions with the shape of a box.
+ *
+ * @see Convexity
+ * @see inra.ijpb.geometry.ConvexHull3D
+ *
+ * @author agent
+ *
+ */
+public class Convexity3D extends RegionAnalyzer3D<Convexity3D.Result>
+{
+	// ==================================================
+	// Static methods
+
+	/**
+	 * Computes convexity measures of each region in input 3D label image.
+	 *
+	 * @param image
+	 *            a label image (8, 16 or 32 bits)
+	 * @param labels
+	 *            the set of labels within the image
+	 * @param calib
+	 *            the spatial calibration of the image
+	 * @return an array of Convexity3D.Result, one for each label
+	 */
+	public final static Convexity3D.Result[] convexity(ImageStack image, int[] labels, Calibration calib)
+	{
+		return new Convexity3D().analyzeRegions(image, labels, calib);
+	}
+
+
+	// ==================================================
+	// Constructor
+
+	/**
+	 * Default constructor
+	 */
+	public Convexity3D()
+	{
+	}
+
+
+	// ==================================================
+	// Implementation of RegionAnalyzer interface
+
+	@Override
+	public ResultsTable createTable(Map<Integer, Convexity3D.Result> results)
+	{
+		// Initialize a new result table
+		ResultsTable table = new ResultsTable();
+
+		for (int label : results.keySet())
+		{
+			Result res = results.get(label);
+
+			// add an entry to the resulting data table
+			table.incrementCounter();
+			table.addLabel(Integer.toString(label));
+			table.addValue("Volume", res.volume);
+			table.addValue("ConvexVolume", res.convexVolume);
+			table.addValue("ConvexSurfaceArea", res.convexSurfaceArea);
+			table.addValue("Convexity", res.convexity);
+		}
+
+		return table;
+	}
+
+	@Override
+	public Convexity3D.Result[] analyzeRegions(ImageStack image, int[] labels, Calibration calib)
+	{
+		// Check validity of parameters
+		if (image == null)
+			return null;
+
+		// Extract spatial calibration of image
+		double sx = 1, sy = 1, sz = 1;
+		if (calib != null)
+		{
+			sx = calib.pixelWidth;
+			sy = calib.pixelHeight;
+			sz = calib.pixelDepth;
+		}
+		double voxelVolume = sx * sy * sz;
+
+		int nLabels = labels.length;
+
+		// count voxels of each region
+		fireStatusChanged(this, "Count Voxels");
+		int[] counts = LabelImages.voxelCount(image, labels);
+
+        // For each label, create a list of corner points
+		fireStatusChanged(this, "Find Label Corner Points");
+        ArrayList<Point3D>[] labelCornerPointsArray = RegionBoundaries3D.regionsCornersArray(image, labels);
+
+        // compute the convex hull of each set of calibrated corner points
+        Convexity3D.Result[] res = new Convexity3D.Result[nLabels];
+        fireStatusChanged(this, "Compute Convex Hulls");
+        for (int i = 0; i < nLabels; i++)
+        {
+        	this.fireProgressChanged(this, i, nLabels);
+
+        	ArrayList<Point3D> corners = labelCornerPointsArray[i];
+        	ArrayList<Point3D> calibratedCorners = new ArrayList<Point3D>(corners.size());
+        	for (Point3D corner : corners)
+        	{
+        		calibratedCorners.add(new Point3D(corner.getX() * sx, corner.getY() * sy, corner.getZ() * sz));
+        	}
+        	ConvexHull3D hull = ConvexHull3D.fromPoints(calibratedCorners);
+
+        	res[i] = new Convexity3D.Result(counts[i] * voxelVolume, hull.volume(), hull.surfaceArea());
+        }
+
+        fireProgressChanged(this, 1, 1);
+        fireStatusChanged(this, "");
+        return res;
+	}
+
+
+	// ==================================================
+	// Inner class for storing results
+
+    /**
+     * Simple class for storing the results of convexity computations.
+     */
+	public class Result
+	{
+        /** The volume of the region in the original image. */
+        public double volume;
+
+        /** The volume of the convex hull of the region. */
+        public double convexVolume;
+
+        /** The surface area of the convex hull of the region. */
+        public double convexSurfaceArea;
+
+        /**
+         * The convexity of the region, computed as the ratio of volume over
+         * convex volume.
+         */
+        public double convexity;
+
+		public Result(double volume, double convexVolume, double convexSurfaceArea)
+		{
+			this.volume = volume;
+			this.convexVolume = convexVolume;
+			this.convexSurfaceArea = convexSurfaceArea;
+			this.convexity = volume / convexVolume;
+		}
+	}
+}
@@ -0,0 +1,115 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.measure.region3d;
+
+import ij.ImageStack;
+import ij.measure.Calibration;
+import inra.ijpb.label.LabelCrops;
+
+/**
+ * Base implementation of RegionAnalyzer for the analyzers that compute the
+ * result of each region independently from the others. Each region is
+ * processed within its own binary mask, cropped to its bounding box, and
+ * regions are processed in parallel.
+ *
+ * @param T
+ *            the type of the data computed for each region. May be a class
+ *            instance, or a single Numeric type.
+ * @author agent
+ *
+ */
+public abstract class CroppedRegionAnalyzer3D<T> extends RegionAnalyzer3D<T>
+{
+	/**
+	 * Computes the result of each region in parallel, by calling the
+	 * {@link #analyzeCroppedRegion} method on the binary mask of each region.
+	 * Masks are cropped to the bounding box of the regions, and padded with a
+	 * border of one element restricted to the image bounds.
+	 * 
+	 * @param image
+	 *            the input image containing label of particles
+	 * @param labels
+	 *            the array of labels within the image
+	 * @param calib
+	 *            the spatial calibration of the image
+	 * @param results
+	 *            the array used to store the results, with one element per
+	 *            label
+	 * @return the array of results, with the result of
+	 *         {@link #createEmptyResult()} for the labels that are not within
+	 *         the image
+	 * @see LabelCrops#compute(ImageStack, int[], int, boolean)
+	 */
+	protected T[] analyzeCroppedRegions(ImageStack image, int[] labels, final Calibration calib, T[] results)
+	{
+		fireStatusChanged(this, "Crop regions");
+		final LabelCrops crops = LabelCrops.compute(image, labels, 1, true);
+
+		fireStatusChanged(this, "Analyze regions");
+		processRegions(results, new RegionTask<T>()
+		{
+			public T process(int index)
+			{
+				ImageStack mask = crops.maskStack(index);
+				if (mask == null)
+				{
+					return createEmptyResult();
+				}
+				return analyzeCroppedRegion(mask, crops.originX(index), crops.originY(index), crops.originZ(index), calib);
+			}
+		});
+
+		fireStatusChanged(this, "");
+		return results;
+	}
+
+	/**
+	 * Computes the result of a single region from its binary mask. This
+	 * method is called concurrently from several threads by
+	 * {@link #analyzeCroppedRegions}.
+	 * 
+	 * @param mask
+	 *            the binary mask of the region, cropped to its bounding box
+	 *            and padded with background voxels
+	 * @param x0
+	 *            the x-coordinate of the first voxel of the mask within the
+	 *            label image
+	 * @param y0
+	 *            the y-coordinate of the first voxel of the mask within the
+	 *            label image
+	 * @param z0
+	 *            the z-coordinate of the first voxel of the mask within the
+	 *            label image
+	 * @param calib
+	 *            the spatial calibration of the image
+	 * @return the result computed for the region
+	 */
+	protected abstract T analyzeCroppedRegion(ImageStack mask, int x0, int y0, int z0, Calibration calib);
+
+	/**
+	 * Creates the result associated to a label that does not correspond to
+	 * any voxel of the image, so that results are never null.
+	 * 
+	 * @return the result of a label without voxels
+	 */
+	protected abstract T createEmptyResult();
+}
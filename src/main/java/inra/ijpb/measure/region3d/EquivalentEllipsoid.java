@@ -9,7 +9,6 @@ import static java.lang.Math.sqrt;
 import static java.lang.Math.toDegrees;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Map;
 
 import Jama.Matrix;
@@ -20,7 +19,7 @@ import ij.measure.ResultsTable;
 import inra.ijpb.geometry.Ellipsoid;
 import inra.ijpb.geometry.Point3D;
 import inra.ijpb.geometry.Vector3D;
-import inra.ijpb.label.LabelImages;
+import inra.ijpb.label.LabelIndex;
 
 /**
  * Compute the parameters of 3D ellipsoids that has the same moments up to the
@@ -189,7 +188,7 @@ public class EquivalentEllipsoid extends RegionAnalyzer3D<Ellipsoid>
         fireStatusChanged(this, "Ellipsoid: compute Moments");
 
         // create associative array to know index of each label
-	    HashMap<Integer, Integer> labelIndices = LabelImages.mapLabelIndices(labels);
+	    LabelIndex labelIndices = LabelIndex.fromLabels(labels);
 
 	    // allocate memory for result
 	    int nLabels = labels.length;
@@ -214,11 +213,11 @@ public class EquivalentEllipsoid extends RegionAnalyzer3D<Ellipsoid>
 	                    continue;
 
                     // do not process labels that are not in the input list 
-                    if (!labelIndices.containsKey(label))
+                    if (!labelIndices.contains(label))
                         continue;
 
                     // convert label to its index
-	                int index = labelIndices.get(label);
+	                int index = labelIndices.indexOf(label);
 
 	                // update sum coordinates, taking into account the spatial calibration
 	                Moments3D moment = moments[index];
@@ -253,7 +252,7 @@ public class EquivalentEllipsoid extends RegionAnalyzer3D<Ellipsoid>
                         continue;
 
                     // convert label to its index
-                    int index = labelIndices.get(label);
+                    int index = labelIndices.indexOf(label);
                     Moments3D moment = moments[index];
 
                     // convert coordinates relative to centroid 
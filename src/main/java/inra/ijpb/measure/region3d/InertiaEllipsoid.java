@@ -9,7 +9,6 @@ import static java.lang.Math.sqrt;
 import static java.lang.Math.toDegrees;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Map;
 
 import Jama.Matrix;
@@ -20,7 +19,7 @@ import ij.measure.ResultsTable;
 import inra.ijpb.geometry.Ellipsoid;
 import inra.ijpb.geometry.Point3D;
 import inra.ijpb.geometry.Vector3D;
-import inra.ijpb.label.LabelImages;
+import inra.ijpb.label.LabelIndex;
 
 /**
  * Compute parameters of inertia ellipsoids from 3D binary / label images.
@@ -147,20 +146,21 @@ public class InertiaEllipsoid extends RegionAnalyzer3D<Ellipsoid>
         return ellipsoids;
 	}
 	
-	private Ellipsoid[] momentsToEllipsoids(InertiaMoments3D[] moments)
+	private Ellipsoid[] momentsToEllipsoids(final InertiaMoments3D[] moments)
 	{
 		int n = moments.length;
     	Ellipsoid[] ellipsoids = new Ellipsoid[n];
 
-    	// compute ellipsoid parameters for each region
+    	// compute ellipsoid parameters of the regions in parallel
         fireStatusChanged(this, "Ellipsoid: compute SVD");
-    	for (int i = 0; i < n; i++) 
-    	{
-            this.fireProgressChanged(this, i, n);
-            // create the new ellipsoid
-            ellipsoids[i] = moments[i].equivalentEllipsoid();
-    	}
-        fireProgressChanged(this, 1, 1);
+        processRegions(ellipsoids, new RegionTask<Ellipsoid>()
+        {
+            public Ellipsoid process(int index)
+            {
+                // create the new ellipsoid
+                return moments[index].equivalentEllipsoid();
+            }
+        });
     	
 		return ellipsoids;
 	}
@@ -188,7 +188,7 @@ public class InertiaEllipsoid extends RegionAnalyzer3D<Ellipsoid>
         fireStatusChanged(this, "Ellipsoid: compute Moments");
 
         // create associative array to know index of each label
-	    HashMap<Integer, Integer> labelIndices = LabelImages.mapLabelIndices(labels);
+	    LabelIndex labelIndices = LabelIndex.fromLabels(labels);
 
 	    // allocate memory for result
 	    int nLabels = labels.length;
@@ -213,12 +213,12 @@ public class InertiaEllipsoid extends RegionAnalyzer3D<Ellipsoid>
 	                    continue;
 
 	                // convert label to its index
-	                if (!labelIndices.containsKey(label))
+	                if (!labelIndices.contains(label))
 	                {
 	                    System.err.println("Label image contains unknown label: " + label);
 	                    continue;
 	                }
-	                int index = labelIndices.get(label);
+	                int index = labelIndices.indexOf(label);
 
 	                // update sum coordinates, taking into account the spatial calibration
 	                InertiaMoments3D moment = moments[index];
@@ -253,7 +253,7 @@ public class InertiaEllipsoid extends RegionAnalyzer3D<Ellipsoid>
                         continue;
 
                     // convert label to its index
-                    int index = labelIndices.get(label);
+                    int index = labelIndices.indexOf(label);
                     InertiaMoments3D moment = moments[index];
 
                     // convert coordinates relative to centroid 
@@ -21,7 +21,7 @@ import inra.ijpb.label.LabelValues;
  * @author dlegland
  *
  */
-public class LargestInscribedBall extends RegionAnalyzer3D<Sphere>
+public class LargestInscribedBall extends CroppedRegionAnalyzer3D<Sphere>
 {
 	// ==================================================
 	// Static methods
@@ -107,50 +107,32 @@ public class LargestInscribedBall extends RegionAnalyzer3D<Sphere>
 	 *         region, in calibrated coordinates
 	 */
 	public Sphere[] analyzeRegions(ImageStack labelImage, int[] labels, Calibration calib)
-    {
-    	// compute max label within image
-    	int nLabels = labels.length;
-    	
-		// first distance propagation to find an arbitrary center
-    	fireStatusChanged(this, "Compute distance map");
-		ImageStack distanceMap = LabelImages.distanceMap(labelImage);
+	{
+		// process each region independently within its bounding box
+		return analyzeCroppedRegions(labelImage, labels, calib, new Sphere[labels.length]);
+	}
 
-		// Extract position of maxima
-		fireStatusChanged(this, "Find inscribed balls center");
-		Cursor3D[] posCenter;
-		posCenter = LabelValues.findPositionOfMaxValues(distanceMap, labelImage, labels);
-		float[] radii = getValues(distanceMap, posCenter);
+	@Override
+	protected Sphere analyzeCroppedRegion(ImageStack mask, int x0, int y0, int z0, Calibration calib)
+	{
+		// distance propagation from the region boundary
+		ImageStack distanceMap = LabelImages.distanceMap(mask);
 
-		// Create result data table
-		fireStatusChanged(this, "Create ball data");
-        Sphere[] balls = new Sphere[nLabels];
-		for (int i = 0; i < nLabels; i++) 
-		{
-			double xc = posCenter[i].getX() * calib.pixelWidth + calib.xOrigin;
-			double yc = posCenter[i].getY() * calib.pixelHeight + calib.yOrigin;
-			double zc = posCenter[i].getZ() * calib.pixelDepth + calib.zOrigin;
-			Point3D center = new Point3D(xc, yc, zc);
-			balls[i] = new Sphere(center, radii[i] * calib.pixelWidth);
-		}
+		// Extract position of maximum
+		Cursor3D posCenter = LabelValues.findPositionOfMaxValues(distanceMap, mask, new int[] { 255 })[0];
+		float radius = (float) distanceMap.getVoxel(posCenter.getX(), posCenter.getY(), posCenter.getZ());
 
-		return balls;
-    }
-	
-	/**
-	 * Get values in input image for each specified position.
-	 */
-	private final static float[] getValues(ImageStack image, 
-			Cursor3D[] positions) 
+		// Create ball data, in image coordinates
+		double xc = (posCenter.getX() + x0) * calib.pixelWidth + calib.xOrigin;
+		double yc = (posCenter.getY() + y0) * calib.pixelHeight + calib.yOrigin;
+		double zc = (posCenter.getZ() + z0) * calib.pixelDepth + calib.zOrigin;
+		Point3D center = new Point3D(xc, yc, zc);
+		return new Sphere(center, radius * calib.pixelWidth);
+	}
+
+	@Override
+	protected Sphere createEmptyResult()
 	{
-		float[] values = new float[positions.length];
-		
-		// iterate on positions
-		for (int i = 0; i < positions.length; i++) 
-		{
-			values[i] = (float) image.getVoxel((int) positions[i].getX(),
-					(int) positions[i].getY(), (int) positions[i].getZ());
-		}
-				
-		return values;
+		return new Sphere(new Point3D(Double.NaN, Double.NaN, Double.NaN), Double.NaN);
 	}
 }
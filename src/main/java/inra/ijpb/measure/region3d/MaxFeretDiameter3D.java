@@ -9,6 +9,7 @@ import java.util.Map;
 import ij.ImageStack;
 import ij.measure.Calibration;
 import ij.measure.ResultsTable;
+import inra.ijpb.geometry.ConvexHull3D;
 import inra.ijpb.geometry.Point3D;
 import inra.ijpb.geometry.PointPair3D;
 
@@ -116,7 +117,8 @@ public class MaxFeretDiameter3D extends RegionAnalyzer3D<PointPair3D>
 	 * Computes maximum Feret Diameter for each label of the input label image.
 	 * 
 	 * Computes diameter between corners of image pixels, so the result is
-	 * always greater than or equal to one.
+	 * always greater than or equal to one. The diameter is searched among the
+	 * vertices of the convex hull of the corners of each region.
 	 * 
 	 * @param image
 	 *            a label image (8, 16 or 32 bits)
@@ -152,24 +154,27 @@ public class MaxFeretDiameter3D extends RegionAnalyzer3D<PointPair3D>
 		fireStatusChanged(this, "Find Label Corner Points");
         ArrayList<Point3D>[] labelCornerPointsArray = RegionBoundaries3D.regionsCornersArray(image, labels);
                 
-        // Compute the oriented box of each set of corner points
+        // Compute the Feret diameter of the convex hull of each set of corner points
         PointPair3D[] labelMaxDiams = new PointPair3D[nLabels];
         fireStatusChanged(this, "Compute feret Diameters");
         for (int i = 0; i < nLabels; i++)
         {
         	this.fireProgressChanged(this, i, nLabels);
         	
-        	ArrayList<Point3D> hull = labelCornerPointsArray[i];
+        	// the extreme points of the region are vertices of its convex hull
+        	ArrayList<Point3D> corners = labelCornerPointsArray[i];
+        	ConvexHull3D hull = ConvexHull3D.fromPoints(corners);
+        	ArrayList<Point3D> vertices = hull.isDegenerate() ? corners : hull.vertices();
+        	
     		// calibrate coordinates of hull vertices
-    		for (int iv = 0; iv < hull.size(); iv++)
+        	ArrayList<Point3D> calibratedVertices = new ArrayList<Point3D>(vertices.size());
+        	for (Point3D vertex : vertices)
     		{
-    			Point3D vertex = hull.get(iv);
-    			vertex = new Point3D(vertex.getX() * sx + ox, vertex.getY() * sy + oy, vertex.getZ() * sz + oz);
-    			hull.set(iv, vertex);
+        		calibratedVertices.add(new Point3D(vertex.getX() * sx + ox, vertex.getY() * sy + oy, vertex.getZ() * sz + oz));
     		}
 
     		// compute Feret diameter of calibrated hull
-        	labelMaxDiams[i] = maxFeretDiameter(hull);
+        	labelMaxDiams[i] = maxFeretDiameter(calibratedVertices);
         }
         
         fireProgressChanged(this, 1, 1);
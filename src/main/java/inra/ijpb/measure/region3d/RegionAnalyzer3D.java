@@ -10,9 +10,8 @@ import ij.ImagePlus;
 import ij.ImageStack;
 import ij.measure.Calibration;
 import ij.measure.ResultsTable;
-import inra.ijpb.algo.AlgoStub;
 import inra.ijpb.label.LabelImages;
-import inra.ijpb.measure.RegionAnalyzer;
+import inra.ijpb.measure.RegionAnalyzerStub;
 
 /**
  * Base implementation of RegionAnalyzer interface for 3D binary/label
@@ -24,7 +23,7 @@ import inra.ijpb.measure.RegionAnalyzer;
  * @author dlegland
  *
  */
-public abstract class RegionAnalyzer3D<T> extends AlgoStub implements RegionAnalyzer<T>
+public abstract class RegionAnalyzer3D<T> extends RegionAnalyzerStub<T>
 {
 	/**
      * Utility method that convert an array of result into a map using labels as
@@ -74,27 +74,13 @@ public class RegionBoundaries3D
 						// if leave a region, add a new corner points for the end of the region
 						if (currentLabel > 0 && labelCornerPoints.containsKey(currentLabel))
 						{
-							ArrayList<Point3D> corners = labelCornerPoints.get(currentLabel);
-							for (Point3D p : newPoints)
-							{
-								if (!corners.contains(p))
-								{
-									corners.add(p);
-								}
-							}
+							labelCornerPoints.get(currentLabel).addAll(newPoints);
 						}
 
 						// transition into a new region
 						if (pixel > 0 && labelCornerPoints.containsKey(pixel))
 						{
-							ArrayList<Point3D> corners = labelCornerPoints.get(pixel);
-							for (Point3D p : newPoints)
-							{
-								if (!corners.contains(p))
-								{
-									corners.add(p);
-								}
-							}
+							labelCornerPoints.get(pixel).addAll(newPoints);
 						}
 					}
 					currentLabel = pixel;
@@ -111,14 +97,7 @@ public class RegionBoundaries3D
 					newPoints.add(new Point3D(sizeX, y, z + 1));
 					newPoints.add(new Point3D(sizeX, y + 1, z + 1));
 					
-					ArrayList<Point3D> corners = labelCornerPoints.get(currentLabel);
-					for (Point3D p : newPoints)
-					{
-						if (!corners.contains(p))
-						{
-							corners.add(p);
-						}
-					}
+					labelCornerPoints.get(currentLabel).addAll(newPoints);
 				}
 			}
 		}
@@ -0,0 +1,799 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.measure.region3d;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import ij.ImagePlus;
+import ij.ImageStack;
+import ij.measure.Calibration;
+import ij.measure.ResultsTable;
+import ij.process.ImageProcessor;
+import inra.ijpb.geometry.Box3D;
+import inra.ijpb.geometry.Ellipsoid;
+import inra.ijpb.geometry.Point3D;
+import inra.ijpb.label.LabelIndex;
+import inra.ijpb.measure.IntrinsicVolumes3D;
+
+/**
+ * Computes a set of features for each region of a 3D label image, using a
+ * single scan of the image.
+ *
+ * All the additive statistics required by the requested features (voxel
+ * counts, bounding boxes, raw moments up to order two, and histograms of
+ * binary 2-by-2-by-2 configurations) are accumulated during the same pass.
+ * Intrinsic volumes, centroids and equivalent ellipsoids are then derived
+ * from these statistics, and give the same results as the dedicated
+ * analyzers.
+ *
+ * When the labels are not specified, they are identified during the scan, so
+ * that the label image is read only once.
+ *
+ * @see IntrinsicVolumesAnalyzer3D
+ * @see BoundingBox3D
+ * @see Centroid3D
+ * @see EquivalentEllipsoid
+ *
+ * @author agent
+ *
+ */
+public class RegionFeatures3D extends RegionAnalyzer3D<RegionFeatures3D.Result>
+{
+	// ==================================================
+	// Inner enumeration for features
+
+	/**
+	 * The list of features that can be computed by this analyzer.
+	 */
+	public enum Feature
+	{
+		/** The volume, computed from the number of voxels. */
+		VOLUME,
+		/** The surface area, estimated with Crofton formula. */
+		SURFACE_AREA,
+		/** The mean breadth, estimated with Crofton formula. */
+		MEAN_BREADTH,
+		/** The Euler number, using the connectivity of the analyzer. */
+		EULER_NUMBER,
+		/** The bounding box, in calibrated coordinates. */
+		BOUNDING_BOX,
+		/** The centroid, in calibrated coordinates. */
+		CENTROID,
+		/** The equivalent ellipsoid, computed from second-order moments. */
+		ELLIPSOID;
+	}
+
+
+	// ==================================================
+	// Static methods
+
+	/**
+	 * Computes all the features of each region in input 3D label image, using
+	 * default settings.
+	 *
+	 * @param image
+	 *            a label image (8, 16 or 32 bits)
+	 * @param labels
+	 *            the set of labels within the image
+	 * @param calib
+	 *            the spatial calibration of the image
+	 * @return an array of RegionFeatures3D.Result, one for each label
+	 */
+	public static final RegionFeatures3D.Result[] features(ImageStack image, int[] labels, Calibration calib)
+	{
+		return new RegionFeatures3D().analyzeRegions(image, labels, calib);
+	}
+
+
+	// ==================================================
+	// Class variables
+
+	/**
+	 * The set of features to compute.
+	 */
+	EnumSet<Feature> features;
+
+	/**
+	 * Number of directions for computing surface area or mean breadth with
+	 * Crofton Formula. Default is 13.
+	 */
+	int directionNumber = 13;
+
+	/**
+	 * Connectivity for computing 3D Euler number. Default is 6.
+	 */
+	int connectivity = 6;
+
+
+	// ==================================================
+	// Constructors
+
+	/**
+	 * Creates a new analyzer that computes all features.
+	 */
+	public RegionFeatures3D()
+	{
+		this(EnumSet.allOf(Feature.class));
+	}
+
+	/**
+	 * Creates a new analyzer that computes the specified set of features.
+	 *
+	 * @param features
+	 *            the set of features to compute
+	 */
+	public RegionFeatures3D(EnumSet<Feature> features)
+	{
+		this.features = EnumSet.copyOf(features);
+	}
+
+
+	// ==================================================
+	// Setters and Getters
+
+	/**
+	 * @return the set of features computed by this analyzer
+	 */
+	public EnumSet<Feature> getFeatures()
+	{
+		return EnumSet.copyOf(features);
+	}
+
+	/**
+	 * @return the number of directions used to compute surface area and mean
+	 *         breadth
+	 */
+	public int getDirectionNumber()
+	{
+		return directionNumber;
+	}
+
+	/**
+	 * @param directionNumber
+	 *            the number of directions used to compute surface area and
+	 *            mean breadth (either 3 or 13)
+	 */
+	public void setDirectionNumber(int directionNumber)
+	{
+		this.directionNumber = directionNumber;
+	}
+
+	/**
+	 * @return the connectivity used to compute Euler number
+	 */
+	public int getConnectivity()
+	{
+		return connectivity;
+	}
+
+	/**
+	 * @param connectivity
+	 *            the connectivity used to compute Euler number (either 6 or
+	 *            26)
+	 */
+	public void setConnectivity(int connectivity)
+	{
+		this.connectivity = connectivity;
+	}
+
+
+	// ==================================================
+	// Implementation of RegionAnalyzer interface
+
+	@Override
+	public ResultsTable createTable(Map<Integer, RegionFeatures3D.Result> results)
+	{
+		// Initialize a new result table
+		ResultsTable table = new ResultsTable();
+
+		for (int label : results.keySet())
+		{
+			Result res = results.get(label);
+
+			// add an entry to the resulting data table
+			table.incrementCounter();
+			table.addLabel(Integer.toString(label));
+
+			if (features.contains(Feature.VOLUME))
+				table.addValue("Volume", res.volume);
+			if (features.contains(Feature.SURFACE_AREA))
+				table.addValue("SurfaceArea", res.surfaceArea);
+			if (features.contains(Feature.MEAN_BREADTH))
+				table.addValue("MeanBreadth", res.meanBreadth);
+			if (features.contains(Feature.VOLUME) && features.contains(Feature.SURFACE_AREA))
+				table.addValue("Sphericity", IntrinsicVolumes3D.sphericity(res.volume, res.surfaceArea));
+			if (features.contains(Feature.EULER_NUMBER))
+				table.addValue("EulerNumber", res.eulerNumber);
+
+			if (features.contains(Feature.BOUNDING_BOX))
+			{
+				Box3D box = res.boundingBox;
+				table.addValue("Box.X.Min", box.getXMin());
+				table.addValue("Box.X.Max", box.getXMax());
+				table.addValue("Box.Y.Min", box.getYMin());
+				table.addValue("Box.Y.Max", box.getYMax());
+				table.addValue("Box.Z.Min", box.getZMin());
+				table.addValue("Box.Z.Max", box.getZMax());
+			}
+
+			if (features.contains(Feature.CENTROID))
+			{
+				Point3D center = res.centroid;
+				table.addValue("Centroid.X", center.getX());
+				table.addValue("Centroid.Y", center.getY());
+				table.addValue("Centroid.Z", center.getZ());
+			}
+
+			if (features.contains(Feature.ELLIPSOID))
+			{
+				Ellipsoid elli = res.ellipsoid;
+				Point3D center = elli.center();
+				table.addValue("Elli.Center.X", center.getX());
+				table.addValue("Elli.Center.Y", center.getY());
+				table.addValue("Elli.Center.Z", center.getZ());
+				table.addValue("Elli.R1", elli.radius1());
+				table.addValue("Elli.R2", elli.radius2());
+				table.addValue("Elli.R3", elli.radius3());
+				table.addValue("Elli.Azim", elli.phi());
+				table.addValue("Elli.Elev", elli.theta());
+				table.addValue("Elli.Roll", elli.psi());
+			}
+		}
+
+		return table;
+	}
+
+	/**
+	 * Computes the features of the regions corresponding to the specified
+	 * labels. Voxels whose label does not belong to the list are ignored.
+	 *
+	 * @param image
+	 *            the input image containing region labels
+	 * @param labels
+	 *            the array of labels within the image
+	 * @param calib
+	 *            the calibration of the image
+	 * @return an array of Result, one for each label
+	 */
+	@Override
+	public RegionFeatures3D.Result[] analyzeRegions(ImageStack image, int[] labels, Calibration calib)
+	{
+		// initialize statistics of each region
+		RegionStats[] stats = new RegionStats[labels.length];
+		for (int i = 0; i < labels.length; i++)
+		{
+			stats[i] = new RegionStats(labels[i]);
+		}
+
+		fireStatusChanged(this, "Scan label image");
+		scanImage(image, new StatsTable(LabelIndex.fromLabels(labels), stats));
+
+		fireStatusChanged(this, "Compute features");
+		RegionFeatures3D.Result[] results = computeResults(stats, calib);
+
+		fireStatusChanged(this, "");
+		return results;
+	}
+
+	/**
+	 * Computes the features of all the regions within the label image. The
+	 * labels are identified during the scan of the image, and the results
+	 * are returned by increasing label value.
+	 *
+	 * @param image
+	 *            the input image containing region labels
+	 * @param calib
+	 *            the calibration of the image
+	 * @return a map between each label and the result computed for the region
+	 */
+	@Override
+	public Map<Integer, RegionFeatures3D.Result> analyzeRegions(ImageStack image, Calibration calib)
+	{
+		fireStatusChanged(this, "Scan label image");
+		StatsTable table = new StatsTable();
+		scanImage(image, table);
+
+		// sort regions by increasing label value
+		ArrayList<RegionStats> statsList = new ArrayList<RegionStats>(table.statsMap.values());
+		Collections.sort(statsList, new Comparator<RegionStats>()
+		{
+			@Override
+			public int compare(RegionStats stats1, RegionStats stats2)
+			{
+				return Integer.compare(stats1.label, stats2.label);
+			}
+		});
+		RegionStats[] stats = statsList.toArray(new RegionStats[statsList.size()]);
+
+		fireStatusChanged(this, "Compute features");
+		RegionFeatures3D.Result[] results = computeResults(stats, calib);
+
+		// encapsulate into map
+		Map<Integer, RegionFeatures3D.Result> map = new TreeMap<Integer, RegionFeatures3D.Result>();
+		for (int i = 0; i < stats.length; i++)
+		{
+			map.put(stats[i].label, results[i]);
+		}
+
+		fireStatusChanged(this, "");
+		return map;
+	}
+
+	@Override
+	public Map<Integer, RegionFeatures3D.Result> analyzeRegions(ImagePlus labelPlus)
+	{
+		return analyzeRegions(labelPlus.getImageStack(), labelPlus.getCalibration());
+	}
+
+
+	// ==================================================
+	// Computation methods
+
+	/**
+	 * Returns true if at least one of the requested features requires the
+	 * histogram of binary configurations.
+	 */
+	private boolean requiresConfigurations()
+	{
+		return features.contains(Feature.SURFACE_AREA)
+				|| features.contains(Feature.MEAN_BREADTH)
+				|| features.contains(Feature.EULER_NUMBER);
+	}
+
+	/**
+	 * Scans the label image and updates the statistics of each region.
+	 */
+	private void scanImage(ImageStack image, StatsTable table)
+	{
+		if (requiresConfigurations())
+		{
+			scanConfigurations(image, table);
+		}
+		else
+		{
+			scanVoxels(image, table);
+		}
+	}
+
+	/**
+	 * Updates voxel statistics by iterating over the voxels of the image.
+	 */
+	private void scanVoxels(ImageStack image, StatsTable table)
+	{
+		// size of image
+		int sizeX = image.getWidth();
+		int sizeY = image.getHeight();
+		int sizeZ = image.getSize();
+
+		for (int z = 0; z < sizeZ; z++)
+		{
+			this.fireProgressChanged(this, z, sizeZ);
+			ImageProcessor slice = image.getProcessor(z + 1);
+
+			for (int y = 0; y < sizeY; y++)
+			{
+				for (int x = 0; x < sizeX; x++)
+				{
+					int label = (int) slice.getf(x, y);
+					if (label == 0)
+						continue;
+
+					RegionStats stats = table.get(label);
+					if (stats != null)
+					{
+						stats.addVoxel(x, y, z);
+					}
+				}
+			}
+		}
+
+		this.fireProgressChanged(this, 1, 1);
+	}
+
+	/**
+	 * Updates voxel statistics and histograms of binary configurations by
+	 * iterating over all the 2-by-2-by-2 configurations containing at least
+	 * one voxel of the image. The voxel at the lower-right corner of each
+	 * configuration is used to update voxel statistics.
+	 */
+	private void scanConfigurations(ImageStack image, StatsTable table)
+	{
+		// size of image
+		int sizeX = image.getWidth();
+		int sizeY = image.getHeight();
+		int sizeZ = image.getSize();
+
+		// values of voxels within current 2-by-2-by-2 configuration, and the
+		// distinct labels they contain
+		int[] configValues = new int[8];
+		int[] localLabels = new int[8];
+
+		for (int z = 0; z < sizeZ + 1; z++)
+		{
+			this.fireProgressChanged(this, z, sizeZ + 1);
+
+			// the slices before and after the current configurations
+			ImageProcessor slice0 = z > 0 ? image.getProcessor(z) : null;
+			ImageProcessor slice1 = z < sizeZ ? image.getProcessor(z + 1) : null;
+
+			for (int y = 0; y < sizeY + 1; y++)
+			{
+				// initialize left voxels
+				configValues[0] = 0;
+				configValues[2] = 0;
+				configValues[4] = 0;
+				configValues[6] = 0;
+
+				for (int x = 0; x < sizeX + 1; x++)
+				{
+					// update voxel values of configuration
+					if (x < sizeX)
+					{
+						configValues[1] = slice0 != null && y > 0 ? (int) slice0.getf(x, y - 1) : 0;
+						configValues[3] = slice0 != null && y < sizeY ? (int) slice0.getf(x, y) : 0;
+						configValues[5] = slice1 != null && y > 0 ? (int) slice1.getf(x, y - 1) : 0;
+						configValues[7] = slice1 != null && y < sizeY ? (int) slice1.getf(x, y) : 0;
+					}
+					else
+					{
+						configValues[1] = configValues[3] = configValues[5] = configValues[7] = 0;
+					}
+
+					// update statistics of the region containing current voxel
+					if (configValues[7] != 0)
+					{
+						RegionStats stats = table.get(configValues[7]);
+						if (stats != null)
+						{
+							stats.addVoxel(x, y, z);
+						}
+					}
+
+					// identify the distinct labels within current configuration
+					int nLocalLabels = 0;
+					for (int label : configValues)
+					{
+						if (label == 0)
+							continue;
+						boolean found = false;
+						for (int i = 0; i < nLocalLabels; i++)
+						{
+							if (localLabels[i] == label)
+							{
+								found = true;
+								break;
+							}
+						}
+						if (!found)
+						{
+							localLabels[nLocalLabels++] = label;
+						}
+					}
+
+					// update configuration histogram of each label
+					for (int i = 0; i < nLocalLabels; i++)
+					{
+						int label = localLabels[i];
+						RegionStats stats = table.get(label);
+						if (stats != null)
+						{
+							stats.histogram()[configIndex(configValues, label)]++;
+						}
+					}
+
+					// update values of configuration for next iteration
+					configValues[0] = configValues[1];
+					configValues[2] = configValues[3];
+					configValues[4] = configValues[5];
+					configValues[6] = configValues[7];
+				}
+			}
+		}
+
+		this.fireProgressChanged(this, 1, 1);
+	}
+
+	private static final int configIndex(int[] configValues, int label)
+	{
+		// Compute index of local configuration
+		int index = 0;
+		index += configValues[0] == label ?   1 : 0;
+		index += configValues[1] == label ?   2 : 0;
+		index += configValues[2] == label ?   4 : 0;
+		index += configValues[3] == label ?   8 : 0;
+		index += configValues[4] == label ?  16 : 0;
+		index += configValues[5] == label ?  32 : 0;
+		index += configValues[6] == label ?  64 : 0;
+		index += configValues[7] == label ? 128 : 0;
+		return index;
+	}
+
+	/**
+	 * Derives the requested features from the statistics of each region.
+	 */
+	private RegionFeatures3D.Result[] computeResults(RegionStats[] stats, Calibration calib)
+	{
+		// Extract spatial calibration
+		double sx = 1, sy = 1, sz = 1;
+		double ox = 0, oy = 0, oz = 0;
+		if (calib != null)
+		{
+			sx = calib.pixelWidth;
+			sy = calib.pixelHeight;
+			sz = calib.pixelDepth;
+			ox = calib.xOrigin;
+			oy = calib.yOrigin;
+			oz = calib.zOrigin;
+		}
+		else
+		{
+			calib = new Calibration();
+		}
+		double voxelVolume = sx * sy * sz;
+
+		// look-up tables for intrinsic volumes
+		double[] surfaceLut = null;
+		double[] breadthLut = null;
+		double[] eulerLut = null;
+		if (features.contains(Feature.SURFACE_AREA))
+			surfaceLut = IntrinsicVolumes3DUtils.surfaceAreaLut(calib, this.directionNumber);
+		if (features.contains(Feature.MEAN_BREADTH))
+			breadthLut = IntrinsicVolumes3DUtils.meanBreadthLut(calib, this.directionNumber, 8);
+		if (features.contains(Feature.EULER_NUMBER))
+			eulerLut = IntrinsicVolumes3DUtils.eulerNumberLut(this.connectivity);
+
+		int nRegions = stats.length;
+		RegionFeatures3D.Result[] results = new RegionFeatures3D.Result[nRegions];
+		for (int i = 0; i < nRegions; i++)
+		{
+			RegionStats region = stats[i];
+			Result res = new Result();
+			res.voxelCount = region.count;
+			results[i] = res;
+
+			if (features.contains(Feature.VOLUME))
+				res.volume = region.count * voxelVolume;
+			if (surfaceLut != null)
+				res.surfaceArea = BinaryConfigurationsHistogram3D.applyLut(region.histogram(), surfaceLut);
+			if (breadthLut != null)
+				res.meanBreadth = BinaryConfigurationsHistogram3D.applyLut(region.histogram(), breadthLut);
+			if (eulerLut != null)
+				res.eulerNumber = BinaryConfigurationsHistogram3D.applyLut(region.histogram(), eulerLut);
+
+			if (features.contains(Feature.BOUNDING_BOX))
+			{
+				res.boundingBox = new Box3D(
+						region.xmin * sx + ox, (region.xmax + 1) * sx + ox,
+						region.ymin * sy + oy, (region.ymax + 1) * sy + oy,
+						region.zmin * sz + oz, (region.zmax + 1) * sz + oz);
+			}
+
+			// the moments of regions without voxels are undefined
+			if (region.count == 0)
+				continue;
+
+			// mean voxel coordinates, in voxel units
+			double n = region.count;
+			double mx = region.x0 + region.sumX / n;
+			double my = region.y0 + region.sumY / n;
+			double mz = region.z0 + region.sumZ / n;
+
+			if (features.contains(Feature.CENTROID))
+			{
+				res.centroid = new Point3D(mx * sx + ox, my * sy + oy, mz * sz + oz);
+			}
+
+			if (features.contains(Feature.ELLIPSOID))
+			{
+				// compute centered second-order moments from raw moments
+				EquivalentEllipsoid.Moments3D moments = new EquivalentEllipsoid().new Moments3D();
+				moments.count = region.count;
+				moments.cx = mx * sx + .5 * sx + ox;
+				moments.cy = my * sy + .5 * sy + oy;
+				moments.cz = mz * sz + .5 * sz + oz;
+				moments.Ixx = (region.sumXX - region.sumX * (double) region.sumX / n) * sx * sx / n + sx / 12;
+				moments.Iyy = (region.sumYY - region.sumY * (double) region.sumY / n) * sy * sy / n + sy / 12;
+				moments.Izz = (region.sumZZ - region.sumZ * (double) region.sumZ / n) * sz * sz / n + sz / 12;
+				moments.Ixy = (region.sumXY - region.sumX * (double) region.sumY / n) * sx * sy / n;
+				moments.Ixz = (region.sumXZ - region.sumX * (double) region.sumZ / n) * sx * sz / n;
+				moments.Iyz = (region.sumYZ - region.sumY * (double) region.sumZ / n) * sy * sz / n;
+				res.ellipsoid = moments.equivalentEllipsoid();
+			}
+		}
+
+		return results;
+	}
+
+
+	// ==================================================
+	// Inner classes for accumulating statistics
+
+	/**
+	 * Retrieves the statistics associated to a label. When the labels are
+	 * known, statistics are retrieved from a primitive label index. Otherwise,
+	 * they are created for labels that were not encountered yet, and as
+	 * regions are scanned by runs of voxels, the statistics of the last label
+	 * are cached.
+	 */
+	private class StatsTable
+	{
+		LabelIndex labelIndex = null;
+		RegionStats[] statsArray = null;
+
+		HashMap<Integer, RegionStats> statsMap = null;
+
+		int lastLabel = 0;
+		RegionStats lastStats = null;
+
+		/**
+		 * Creates a table for a fixed set of labels.
+		 */
+		StatsTable(LabelIndex labelIndex, RegionStats[] statsArray)
+		{
+			this.labelIndex = labelIndex;
+			this.statsArray = statsArray;
+		}
+
+		/**
+		 * Creates a table that creates statistics for each new label.
+		 */
+		StatsTable()
+		{
+			this.statsMap = new HashMap<Integer, RegionStats>();
+		}
+
+		RegionStats get(int label)
+		{
+			if (labelIndex != null)
+			{
+				int index = labelIndex.indexOf(label);
+				return index >= 0 ? statsArray[index] : null;
+			}
+
+			if (label == lastLabel && lastStats != null)
+				return lastStats;
+
+			RegionStats stats = statsMap.get(label);
+			if (stats == null)
+			{
+				stats = new RegionStats(label);
+				statsMap.put(label, stats);
+			}
+
+			lastLabel = label;
+			lastStats = stats;
+			return stats;
+		}
+	}
+
+	/**
+	 * The additive statistics of a region. Moments are accumulated as
+	 * integer sums of voxel offsets with respect to the first voxel of the
+	 * region, so that they are exact and do not depend on the scan order.
+	 */
+	private static class RegionStats
+	{
+		int label;
+		int count = 0;
+
+		int xmin = Integer.MAX_VALUE, xmax = Integer.MIN_VALUE;
+		int ymin = Integer.MAX_VALUE, ymax = Integer.MIN_VALUE;
+		int zmin = Integer.MAX_VALUE, zmax = Integer.MIN_VALUE;
+
+		// the reference voxel
+		int x0, y0, z0;
+
+		// raw moments of voxel offsets
+		long sumX = 0, sumY = 0, sumZ = 0;
+		long sumXX = 0, sumYY = 0, sumZZ = 0;
+		long sumXY = 0, sumXZ = 0, sumYZ = 0;
+
+		// histogram of binary configurations, allocated on demand
+		int[] histogram = null;
+
+		RegionStats(int label)
+		{
+			this.label = label;
+		}
+
+		void addVoxel(int x, int y, int z)
+		{
+			if (count == 0)
+			{
+				x0 = x;
+				y0 = y;
+				z0 = z;
+			}
+			count++;
+
+			if (x < xmin) xmin = x;
+			if (x > xmax) xmax = x;
+			if (y < ymin) ymin = y;
+			if (y > ymax) ymax = y;
+			if (z < zmin) zmin = z;
+			if (z > zmax) zmax = z;
+
+			long dx = x - x0;
+			long dy = y - y0;
+			long dz = z - z0;
+			sumX += dx;
+			sumY += dy;
+			sumZ += dz;
+			sumXX += dx * dx;
+			sumYY += dy * dy;
+			sumZZ += dz * dz;
+			sumXY += dx * dy;
+			sumXZ += dx * dz;
+			sumYZ += dy * dz;
+		}
+
+		int[] histogram()
+		{
+			if (histogram == null)
+			{
+				histogram = new int[256];
+			}
+			return histogram;
+		}
+	}
+
+
+	// ==================================================
+	// Inner class for storing results
+
+	/**
+	 * Simple class for storing the features computed for a region. Features
+	 * that were not requested are set to NaN or null.
+	 */
+	public class Result
+	{
+		/** The number of voxels within the region. */
+		public int voxelCount = 0;
+
+		/** The volume of the region. */
+		public double volume = Double.NaN;
+
+		/** The surface area of the region. */
+		public double surfaceArea = Double.NaN;
+
+		/** The mean breadth of the region. */
+		public double meanBreadth = Double.NaN;
+
+		/** The Euler number of the region. */
+		public double eulerNumber = Double.NaN;
+
+		/** The bounding box of the region. */
+		public Box3D boundingBox = null;
+
+		/** The centroid of the region. */
+		public Point3D centroid = null;
+
+		/** The equivalent ellipsoid of the region. */
+		public Ellipsoid ellipsoid = null;
+	}
+}
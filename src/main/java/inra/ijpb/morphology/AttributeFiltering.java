@@ -26,9 +26,10 @@ import ij.ImageStack;
 import ij.process.ImageProcessor;
 import inra.ijpb.algo.DefaultAlgoListener;
 import inra.ijpb.morphology.attrfilt.AreaOpening;
-import inra.ijpb.morphology.attrfilt.AreaOpeningQueue;
+import inra.ijpb.morphology.attrfilt.AreaOpeningUnionFind;
+import inra.ijpb.morphology.attrfilt.ComponentTree;
 import inra.ijpb.morphology.attrfilt.SizeOpening3D;
-import inra.ijpb.morphology.attrfilt.SizeOpening3DQueue;
+import inra.ijpb.morphology.attrfilt.SizeOpening3DUnionFind;
 
 /**
  * Several static methods for computation of attribute filtering (opening,
@@ -88,11 +89,35 @@ public class AttributeFiltering
 	 */
 	public static final ImageProcessor areaOpening(ImageProcessor image, int minArea)
 	{
-		AreaOpening algo = new AreaOpeningQueue();
+		AreaOpening algo = new AreaOpeningUnionFind();
 		DefaultAlgoListener.monitor(algo);
 		return algo.process(image, minArea);
 	}
 
+	/**
+	 * Applies grayscale area opening on input image for several minimum
+	 * areas. The max-tree of the image is computed only once, and each result
+	 * is the same as the one of {@link #areaOpening(ImageProcessor, int)}.
+	 * 
+	 * @param image
+	 *            input grayscale image
+	 * @param minAreas
+	 *            the minimum numbers of pixels at a given gray level
+	 * @return the results of grayscale area opening, in the order of the
+	 *         minimum areas
+	 * @see ComponentTree
+	 */
+	public static final ImageProcessor[] areaOpenings(ImageProcessor image, int... minAreas)
+	{
+		ComponentTree tree = ComponentTree.maxTree(image, 4);
+		ImageProcessor[] results = new ImageProcessor[minAreas.length];
+		for (int i = 0; i < minAreas.length; i++)
+		{
+			results[i] = tree.filterImage(ComponentTree.Attribute.AREA, minAreas[i], ComponentTree.Rule.DIRECT);
+		}
+		return results;
+	}
+
 	/**
 	 * Applies grayscale volume opening on input 3D image, by retaining only the
 	 * connected components that contain at least the specified number of voxels.
@@ -105,7 +130,7 @@ public class AttributeFiltering
 	 */
 	public static final ImageStack volumeOpening(ImageStack image, int minVolume)
 	{
-		SizeOpening3D algo = new SizeOpening3DQueue();
+		SizeOpening3D algo = new SizeOpening3DUnionFind();
 		DefaultAlgoListener.monitor(algo);
 		return algo.process(image, minVolume);
 	}
@@ -125,7 +150,7 @@ public class AttributeFiltering
 			int minVolume,
 			int connectivity )
 	{
-		SizeOpening3DQueue algo = new SizeOpening3DQueue();
+		SizeOpening3DUnionFind algo = new SizeOpening3DUnionFind();
 		algo.setConnectivity( connectivity );
 		DefaultAlgoListener.monitor( algo );
 		return algo.process( image, minVolume );
@@ -25,9 +25,7 @@ import static java.lang.Math.max;
 import static java.lang.Math.min;
 import ij.ImageStack;
 import ij.process.ImageProcessor;
-
-import java.awt.Point;
-import java.util.ArrayList;
+import inra.ijpb.data.IntStack;
 
 /**
  * <p>
@@ -111,8 +109,8 @@ public class FloodFill
 			return ;
 		
 		// initialize the stack with original pixel
-		ArrayList<Point> stack = new ArrayList<Point>();
-		stack.add(new Point(x, y));
+		IntStack stack = new IntStack();
+		stack.push(y * width + x);
 		
 		boolean inScanLine;
 		
@@ -120,9 +118,9 @@ public class FloodFill
 		while (!stack.isEmpty())
 		{
 			// Extract current position
-			Point p = stack.remove(stack.size()-1);
-			x = p.x;
-			y = p.y;
+			int index = stack.pop();
+			x = index % width;
+			y = index / width;
 			
 			// process only pixel with the same value
 			if (image.get(x, y) != oldValue) 
@@ -152,7 +150,7 @@ public class FloodFill
 					int val = image.get(i, y - 1);
 					if (!inScanLine && val == oldValue)
 					{
-						stack.add(new Point(i, y - 1));
+						stack.push((y - 1) * width + i);
 						inScanLine = true;
 					} 
 					else if (inScanLine && val != oldValue)
@@ -171,7 +169,7 @@ public class FloodFill
 					int val = image.getPixel(i, y + 1);
 					if (!inScanLine && val == oldValue)
 					{
-						stack.add(new Point(i, y + 1));
+						stack.push((y + 1) * width + i);
 						inScanLine = true;
 					}
 					else if (inScanLine && val != oldValue)
@@ -211,8 +209,8 @@ public class FloodFill
 			return;
 
 		// initialize the stack with original pixel
-		ArrayList<Point> stack = new ArrayList<Point>();
-		stack.add(new Point(x, y));
+		IntStack stack = new IntStack();
+		stack.push(y * width + x);
 
 		boolean inScanLine;
 
@@ -220,9 +218,9 @@ public class FloodFill
 		while (!stack.isEmpty())
 		{
 			// Extract current position
-			Point p = stack.remove(stack.size() - 1);
-			x = p.x;
-			y = p.y;
+			int index = stack.pop();
+			x = index % width;
+			y = index / width;
 
 			// process only pixel with the same value
 			if (image.get(x, y) != oldValue)
@@ -252,7 +250,7 @@ public class FloodFill
 					int val = image.get(i, y - 1);
 					if (!inScanLine && val == oldValue)
 					{
-						stack.add(new Point(i, y - 1));
+						stack.push((y - 1) * width + i);
 						inScanLine = true;
 					} else if (inScanLine && val != oldValue)
 						inScanLine = false;
@@ -268,7 +266,7 @@ public class FloodFill
 					int val = image.getPixel(i, y + 1);
 					if (!inScanLine && val == oldValue)
 					{
-						stack.add(new Point(i, y + 1));
+						stack.push((y + 1) * width + i);
 						inScanLine = true;
 					} 
 					else if (inScanLine && val != oldValue)
@@ -335,8 +333,8 @@ public class FloodFill
 			return ;
 		
 		// initialize the stack with original pixel
-		ArrayList<Point> stack = new ArrayList<Point>();
-		stack.add(new Point(x, y));
+		IntStack stack = new IntStack();
+		stack.push(y * width + x);
 		
 		boolean inScanLine;
 		
@@ -344,9 +342,9 @@ public class FloodFill
 		while (!stack.isEmpty())
 		{
 			// Extract current position
-			Point p = stack.remove(stack.size() - 1);
-			x = p.x;
-			y = p.y;
+			int index = stack.pop();
+			x = index % width;
+			y = index / width;
 
 			// process only pixel of the same value
 			if (image.getf(x, y) != oldValue)
@@ -376,7 +374,7 @@ public class FloodFill
 					float val = image.getf(i, y - 1);
 					if (!inScanLine && val == oldValue)
 					{
-						stack.add(new Point(i, y - 1));
+						stack.push((y - 1) * width + i);
 						inScanLine = true;
 					}
 					else if (inScanLine && val != oldValue)
@@ -395,7 +393,7 @@ public class FloodFill
 					float val = image.getf(i, y + 1);
 					if (!inScanLine && val == oldValue)
 					{
-						stack.add(new Point(i, y + 1));
+						stack.push((y + 1) * width + i);
 						inScanLine = true;
 					} 
 					else if (inScanLine && val != oldValue)
@@ -437,8 +435,8 @@ public class FloodFill
 			return;
 
 		// initialize the stack with original pixel
-		ArrayList<Point> stack = new ArrayList<Point>();
-		stack.add(new Point(x, y));
+		IntStack stack = new IntStack();
+		stack.push(y * width + x);
 
 		boolean inScanLine;
 
@@ -446,9 +444,9 @@ public class FloodFill
 		while (!stack.isEmpty())
 		{
 			// Extract current position
-			Point p = stack.remove(stack.size() - 1);
-			x = p.x;
-			y = p.y;
+			int index = stack.pop();
+			x = index % width;
+			y = index / width;
 
 			// process only pixel with the same value
 			if (image.getf(x, y) != oldValue)
@@ -478,7 +476,7 @@ public class FloodFill
 					float val = image.getf(i, y - 1);
 					if (!inScanLine && val == oldValue)
 					{
-						stack.add(new Point(i, y - 1));
+						stack.push((y - 1) * width + i);
 						inScanLine = true;
 					} 
 					else if (inScanLine && val != oldValue)
@@ -497,7 +495,7 @@ public class FloodFill
 					float val = image.getf(i, y + 1);
 					if (!inScanLine && val == oldValue)
 					{
-						stack.add(new Point(i, y + 1));
+						stack.push((y + 1) * width + i);
 						inScanLine = true;
 					} 
 					else if (inScanLine && val != oldValue)
@@ -548,8 +546,8 @@ public class FloodFill
 		int oldValue = inputImage.getPixel(x, y);
 				
 		// initialize the stack with original pixel
-		ArrayList<Point> stack = new ArrayList<Point>();
-		stack.add(new Point(x, y));
+		IntStack stack = new IntStack();
+		stack.push(y * width + x);
 		
 		boolean inScanLine;
 		
@@ -557,9 +555,9 @@ public class FloodFill
 		while (!stack.isEmpty()) 
 		{
 			// Extract current position
-			Point p = stack.remove(stack.size()-1);
-			x = p.x;
-			y = p.y;
+			int index = stack.pop();
+			x = index % width;
+			y = index / width;
 			
 			// process only pixel of the same value
 			if (inputImage.get(x, y) != oldValue) 
@@ -591,7 +589,7 @@ public class FloodFill
 					int lab = (int) outputImage.get(i, y - 1);
 					if (!inScanLine && val == oldValue && lab != value)
 					{
-						stack.add(new Point(i, y - 1));
+						stack.push((y - 1) * width + i);
 						inScanLine = true;
 					} 
 					else if (inScanLine && val != oldValue)
@@ -611,7 +609,7 @@ public class FloodFill
 					int lab = (int) outputImage.get(i, y + 1);
 					if (!inScanLine && val == oldValue && lab != value)
 					{
-						stack.add(new Point(i, y + 1));
+						stack.push((y + 1) * width + i);
 						inScanLine = true;
 					} 
 					else if (inScanLine && val != oldValue)
@@ -643,6 +641,51 @@ public class FloodFill
 	 */
 	public final static void floodFillFloat(ImageProcessor inputImage, int x,
 			int y, ImageProcessor outputImage, float value, int conn)
+	{
+		floodFillFloat(inputImage, x, y, outputImage, value, conn, new IntStack());
+	}
+	
+	/**
+	 * Assigns in <code>labelImage</code> the regions containing each of the
+	 * specified seed pixels, using the value associated to each seed. All the
+	 * regions are processed with the same stack, avoiding to allocate new
+	 * memory for each region. If several seeds belong to the same region, the
+	 * region is filled with the value of the last seed.
+	 * 
+	 * @param inputImage
+	 *            original image to read the pixel values from
+	 * @param xSeeds
+	 *            the x-coordinates of the seed pixels
+	 * @param ySeeds
+	 *            the y-coordinates of the seed pixels
+	 * @param outputImage
+	 *            the label image to fill in
+	 * @param values
+	 *            the filling value of each seed
+	 * @param conn
+	 *            connectivity to use (4 or 8)
+	 */
+	public final static void floodFillFloat(ImageProcessor inputImage,
+			int[] xSeeds, int[] ySeeds, ImageProcessor outputImage,
+			float[] values, int conn)
+	{
+		// check input validity
+		int nSeeds = xSeeds.length;
+		if (ySeeds.length != nSeeds || values.length != nSeeds)
+		{
+			throw new IllegalArgumentException("Seed coordinates and values must have the same length");
+		}
+		
+		IntStack stack = new IntStack();
+		for (int i = 0; i < nSeeds; i++)
+		{
+			floodFillFloat(inputImage, xSeeds[i], ySeeds[i], outputImage, values[i], conn, stack);
+		}
+	}
+	
+	private final static void floodFillFloat(ImageProcessor inputImage, int x,
+			int y, ImageProcessor outputImage, float value, int conn,
+			IntStack stack)
 	{
 		// the shifts to look for new markers to start lines
 		int dx1 = 0;
@@ -661,8 +704,8 @@ public class FloodFill
 		float oldValue = inputImage.getf(x, y);
 		
 		// initialize the stack with original pixel
-		ArrayList<Point> stack = new ArrayList<Point>();
-		stack.add(new Point(x, y));
+		stack.clear();
+		stack.push(y * width + x);
 		
 		
 		boolean inScanLine;
@@ -671,9 +714,9 @@ public class FloodFill
 		while (!stack.isEmpty()) 
 		{
 			// Extract current position
-			Point p = stack.remove(stack.size()-1);
-			x = p.x;
-			y = p.y;
+			int index = stack.pop();
+			x = index % width;
+			y = index / width;
 			
 			// process only pixel of the same value
 			if (inputImage.getf(x, y) != oldValue) 
@@ -704,7 +747,7 @@ public class FloodFill
 					float lab = outputImage.getf(i, y - 1);
 					if (!inScanLine && val == oldValue && lab != value)
 					{
-						stack.add(new Point(i, y - 1));
+						stack.push((y - 1) * width + i);
 						inScanLine = true;
 					} 
 					else if (inScanLine && val != oldValue)
@@ -724,7 +767,7 @@ public class FloodFill
 					float lab = outputImage.getf(i, y + 1);
 					if (!inScanLine && val == oldValue && lab != value)
 					{
-						stack.add(new Point(i, y + 1));
+						stack.push((y + 1) * width + i);
 						inScanLine = true;
 					} 
 					else if (inScanLine && val != oldValue)
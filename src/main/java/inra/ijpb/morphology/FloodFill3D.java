@@ -24,10 +24,9 @@ package inra.ijpb.morphology;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
 import ij.ImageStack;
+import inra.ijpb.data.IntStack;
 import inra.ijpb.data.image.Image3D;
 
-import java.util.ArrayList;
-
 /**
  * <p>
  * Implements various flood-fill algorithms for 3D stacks.
@@ -116,8 +115,10 @@ public class FloodFill3D
 			return ;
 		
 		// initialize the stack with original pixel
-		ArrayList<Cursor3D> stack = new ArrayList<Cursor3D>();
-		stack.add(new Cursor3D(x, y, z));
+		IntStack stack = new IntStack();
+		stack.push(x);
+		stack.push(y);
+		stack.push(z);
 		
 		
 		boolean inScanLine;
@@ -126,10 +127,9 @@ public class FloodFill3D
 		while (!stack.isEmpty()) 
 		{
 			// Extract current position
-			Cursor3D p = stack.remove(stack.size() - 1);
-			x = p.x;
-			y = p.y;
-			z = p.z;
+			z = stack.pop();
+			y = stack.pop();
+			x = stack.pop();
 			
 			// process only pixel of the same value
 			if (image.getVoxel(x, y, z) != oldValue) 
@@ -159,7 +159,9 @@ public class FloodFill3D
 					int val = (int) image.getVoxel(i, y - 1, z);
 					if (!inScanLine && val == oldValue)
 					{
-						stack.add(new Cursor3D(i, y - 1, z));
+						stack.push(i);
+						stack.push(y - 1);
+						stack.push(z);
 						inScanLine = true;
 					} 
 					else if (inScanLine && val != oldValue)
@@ -178,7 +180,9 @@ public class FloodFill3D
 					int val = (int) image.getVoxel(i, y + 1, z);
 					if (!inScanLine && val == oldValue)
 					{
-						stack.add(new Cursor3D(i, y + 1, z));
+						stack.push(i);
+						stack.push(y + 1);
+						stack.push(z);
 						inScanLine = true;
 					} 
 					else if (inScanLine && val != oldValue)
@@ -197,7 +201,9 @@ public class FloodFill3D
 					int val = (int) image.getVoxel(i, y, z - 1);
 					if (!inScanLine && val == oldValue)
 					{
-						stack.add(new Cursor3D(i, y, z - 1));
+						stack.push(i);
+						stack.push(y);
+						stack.push(z - 1);
 						inScanLine = true;
 					} 
 					else if (inScanLine && val != oldValue)
@@ -216,7 +222,9 @@ public class FloodFill3D
 					int val = (int) image.getVoxel(i, y, z + 1);
 					if (!inScanLine && val == oldValue)
 					{
-						stack.add(new Cursor3D(i, y, z + 1));
+						stack.push(i);
+						stack.push(y);
+						stack.push(z + 1);
 						inScanLine = true;
 					}
 					else if (inScanLine && val != oldValue)
@@ -260,8 +268,10 @@ public class FloodFill3D
 			return ;
 		
 		// initialize the stack with original pixel
-		ArrayList<Cursor3D> stack = new ArrayList<Cursor3D>();
-		stack.add(new Cursor3D(x, y, z));
+		IntStack stack = new IntStack();
+		stack.push(x);
+		stack.push(y);
+		stack.push(z);
 		
 		boolean inScanLine;
 		
@@ -269,10 +279,9 @@ public class FloodFill3D
 		while (!stack.isEmpty())
 		{
 			// Extract current position
-			Cursor3D p = stack.remove(stack.size()-1);
-			x = p.x;
-			y = p.y;
-			z = p.z;
+			z = stack.pop();
+			y = stack.pop();
+			x = stack.pop();
 			
 			// process only pixel with the same value
 			if (image.getVoxel(x, y, z) != oldValue) 
@@ -299,7 +308,7 @@ public class FloodFill3D
 				for (int y2 = max(y - 1, 0); y2 <= min(y + 1, sizeY - 1); y2++)
 				{
 					// do not process the middle line
-					if (y2 == z && y2 == y)
+					if (z2 == z && y2 == y)
 						continue;
 
 					inScanLine = false;
@@ -308,7 +317,9 @@ public class FloodFill3D
 						int val = (int) image.getVoxel(i, y2, z2);
 						if (!inScanLine && val == oldValue)
 						{
-							stack.add(new Cursor3D(i, y2, z2));
+							stack.push(i);
+							stack.push(y2);
+							stack.push(z2);
 							inScanLine = true;
 						} 
 						else if (inScanLine && val != oldValue)
@@ -384,8 +395,10 @@ public class FloodFill3D
 			return ;
 		
 		// initialize the stack with original pixel
-		ArrayList<Cursor3D> stack = new ArrayList<Cursor3D>();
-		stack.add(new Cursor3D(x, y, z));
+		IntStack stack = new IntStack();
+		stack.push(x);
+		stack.push(y);
+		stack.push(z);
 		
 		
 		boolean inScanLine;
@@ -394,10 +407,9 @@ public class FloodFill3D
 		while (!stack.isEmpty()) 
 		{
 			// Extract current position
-			Cursor3D p = stack.remove(stack.size()-1);
-			x = p.x;
-			y = p.y;
-			z = p.z;
+			z = stack.pop();
+			y = stack.pop();
+			x = stack.pop();
 			
 			// process only pixel of the same value
 			if (image.getVoxel(x, y, z) != oldValue) 
@@ -427,7 +439,9 @@ public class FloodFill3D
 					double val = image.getVoxel(i, y - 1, z);
 					if (!inScanLine && val == oldValue)
 					{
-						stack.add(new Cursor3D(i, y - 1, z));
+						stack.push(i);
+						stack.push(y - 1);
+						stack.push(z);
 						inScanLine = true;
 					} 
 					else if (inScanLine && val != oldValue)
@@ -446,7 +460,9 @@ public class FloodFill3D
 					double val = image.getVoxel(i, y + 1, z);
 					if (!inScanLine && val == oldValue)
 					{
-						stack.add(new Cursor3D(i, y + 1, z));
+						stack.push(i);
+						stack.push(y + 1);
+						stack.push(z);
 						inScanLine = true;
 					}
 					else if (inScanLine && val != oldValue)
@@ -465,7 +481,9 @@ public class FloodFill3D
 					double val = image.getVoxel(i, y, z - 1);
 					if (!inScanLine && val == oldValue)
 					{
-						stack.add(new Cursor3D(i, y, z - 1));
+						stack.push(i);
+						stack.push(y);
+						stack.push(z - 1);
 						inScanLine = true;
 					}
 					else if (inScanLine && val != oldValue)
@@ -484,7 +502,9 @@ public class FloodFill3D
 					double val = image.getVoxel(i, y, z + 1);
 					if (!inScanLine && val == oldValue)
 					{
-						stack.add(new Cursor3D(i, y, z + 1));
+						stack.push(i);
+						stack.push(y);
+						stack.push(z + 1);
 						inScanLine = true;
 					} 
 					else if (inScanLine && val != oldValue)
@@ -528,8 +548,10 @@ public class FloodFill3D
 			return ;
 		
 		// initialize the stack with original pixel
-		ArrayList<Cursor3D> stack = new ArrayList<Cursor3D>();
-		stack.add(new Cursor3D(x, y, z));
+		IntStack stack = new IntStack();
+		stack.push(x);
+		stack.push(y);
+		stack.push(z);
 		
 		boolean inScanLine;
 		
@@ -537,10 +559,9 @@ public class FloodFill3D
 		while (!stack.isEmpty())
 		{
 			// Extract current position
-			Cursor3D p = stack.remove(stack.size()-1);
-			x = p.x;
-			y = p.y;
-			z = p.z;
+			z = stack.pop();
+			y = stack.pop();
+			x = stack.pop();
 			
 			// process only pixel with the same value
 			if (image.getVoxel(x, y, z) != oldValue) 
@@ -567,7 +588,7 @@ public class FloodFill3D
 				for (int y2 = max(y - 1, 0); y2 <= min(y + 1, sizeY - 1); y2++)
 				{
 					// do not process the middle line
-					if (y2 == z && y2 == y)
+					if (z2 == z && y2 == y)
 						continue;
 
 					inScanLine = false;
@@ -576,7 +597,9 @@ public class FloodFill3D
 						double val = image.getVoxel(i, y2, z2);
 						if (!inScanLine && val == oldValue)
 						{
-							stack.add(new Cursor3D(i, y2, z2));
+							stack.push(i);
+							stack.push(y2);
+							stack.push(z2);
 							inScanLine = true;
 						} 
 						else if (inScanLine && val != oldValue)
@@ -661,8 +684,10 @@ public class FloodFill3D
 		int oldValue = (int) inputImage.getVoxel(x, y, z);
 
 		// initialize the stack with original pixel
-		ArrayList<Cursor3D> stack = new ArrayList<Cursor3D>();
-		stack.add(new Cursor3D(x, y, z));
+		IntStack stack = new IntStack();
+		stack.push(x);
+		stack.push(y);
+		stack.push(z);
 
 		boolean inScanLine;
 
@@ -670,10 +695,9 @@ public class FloodFill3D
 		while (!stack.isEmpty()) 
 		{
 			// Extract current position
-			Cursor3D p = stack.remove(stack.size()-1);
-			x = p.x;
-			y = p.y;
-			z = p.z;
+			z = stack.pop();
+			y = stack.pop();
+			x = stack.pop();
 
 			// process only pixel of the same value
 			if ((int) inputImage.getVoxel(x, y, z) != oldValue)
@@ -709,7 +733,9 @@ public class FloodFill3D
 
 					if (!inScanLine && val == oldValue && lab != value)
 					{
-						stack.add(new Cursor3D(i, y - 1, z));
+						stack.push(i);
+						stack.push(y - 1);
+						stack.push(z);
 						inScanLine = true;
 					} 
 					else if (inScanLine && val != oldValue)
@@ -730,7 +756,9 @@ public class FloodFill3D
 
 					if (!inScanLine && val == oldValue && lab != value)
 					{
-						stack.add(new Cursor3D(i, y + 1, z));
+						stack.push(i);
+						stack.push(y + 1);
+						stack.push(z);
 						inScanLine = true;
 					} 
 					else if (inScanLine && val != oldValue)
@@ -751,7 +779,9 @@ public class FloodFill3D
 
 					if (!inScanLine && val == oldValue && lab != value)
 					{
-						stack.add(new Cursor3D(i, y, z - 1));
+						stack.push(i);
+						stack.push(y);
+						stack.push(z - 1);
 						inScanLine = true;
 					}
 					else if (inScanLine && val != oldValue)
@@ -772,7 +802,9 @@ public class FloodFill3D
 
 					if (!inScanLine && val == oldValue && lab != value)
 					{
-						stack.add(new Cursor3D(i, y, z + 1));
+						stack.push(i);
+						stack.push(y);
+						stack.push(z + 1);
 						inScanLine = true;
 					} 
 					else if (inScanLine && val != oldValue)
@@ -816,8 +848,10 @@ public class FloodFill3D
 		int oldValue = (int) inputImage.getVoxel(x, y, z);
 				
 		// initialize the stack with original pixel
-		ArrayList<Cursor3D> stack = new ArrayList<Cursor3D>();
-		stack.add(new Cursor3D(x, y, z));
+		IntStack stack = new IntStack();
+		stack.push(x);
+		stack.push(y);
+		stack.push(z);
 		
 		boolean inScanLine;
 		
@@ -825,10 +859,9 @@ public class FloodFill3D
 		while (!stack.isEmpty()) 
 		{
 			// Extract current position
-			Cursor3D p = stack.remove(stack.size()-1);
-			x = p.x;
-			y = p.y;
-			z = p.z;
+			z = stack.pop();
+			y = stack.pop();
+			x = stack.pop();
 			
 			// process only pixel of the same value
 			if ((int) inputImage.getVoxel(x, y, z) != oldValue)
@@ -870,7 +903,9 @@ public class FloodFill3D
 						
 						if (!inScanLine && val == oldValue && lab != value)
 						{
-							stack.add(new Cursor3D(i, y2, z2));
+							stack.push(i);
+							stack.push(y2);
+							stack.push(z2);
 							inScanLine = true;
 						} 
 						else if (inScanLine && val != oldValue)
@@ -911,10 +946,10 @@ public class FloodFill3D
 		switch (conn)
 		{
 		case 6:
-			floodFillFloatC6(inputImage, x, y, z, outputImage, value);
+			floodFillFloatC6(inputImage, x, y, z, outputImage, value, new IntStack());
 			return;
 		case 26:
-			floodFillFloatC26(inputImage, x, y, z, outputImage, value);
+			floodFillFloatC26(inputImage, x, y, z, outputImage, value, new IntStack());
 			return;
 		default:
 			throw new IllegalArgumentException(
@@ -922,6 +957,54 @@ public class FloodFill3D
 		}
 	}
 	
+	/**
+	 * Assigns in <code>labelImage</code> the regions containing each of the
+	 * specified seed voxels, using the value associated to each seed. All the
+	 * regions are processed with the same stack, avoiding to allocate new
+	 * memory for each region. If several seeds belong to the same region, the
+	 * region is filled with the value of the last seed.
+	 * 
+	 * @param inputImage
+	 *            original image to read the voxel values from
+	 * @param xSeeds
+	 *            the x-coordinates of the seed voxels
+	 * @param ySeeds
+	 *            the y-coordinates of the seed voxels
+	 * @param zSeeds
+	 *            the z-coordinates of the seed voxels
+	 * @param outputImage
+	 *            output label image (to fill)
+	 * @param values
+	 *            the filling value of each seed
+	 * @param conn
+	 *            connectivity to use (6 or 26)
+	 */
+	public final static void floodFillFloat(ImageStack inputImage,
+			int[] xSeeds, int[] ySeeds, int[] zSeeds, ImageStack outputImage,
+			float[] values, int conn)
+	{
+		// check input validity
+		if (conn != 6 && conn != 26)
+		{
+			throw new IllegalArgumentException(
+					"Connectivity must be either 6 or 26, not " + conn);
+		}
+		int nSeeds = xSeeds.length;
+		if (ySeeds.length != nSeeds || zSeeds.length != nSeeds || values.length != nSeeds)
+		{
+			throw new IllegalArgumentException("Seed coordinates and values must have the same length");
+		}
+		
+		IntStack stack = new IntStack();
+		for (int i = 0; i < nSeeds; i++)
+		{
+			if (conn == 6)
+				floodFillFloatC6(inputImage, xSeeds[i], ySeeds[i], zSeeds[i], outputImage, values[i], stack);
+			else
+				floodFillFloatC26(inputImage, xSeeds[i], ySeeds[i], zSeeds[i], outputImage, values[i], stack);
+		}
+	}
+	
 	/**
 	 * Assigns to all the neighbor voxels of (x,y,z) that have the same voxel
 	 * value in <code>image</code>, the specified new label value (
@@ -979,7 +1062,7 @@ public class FloodFill3D
 	 *            filling value
 	 */
 	private final static void floodFillFloatC6(ImageStack inputImage, int x,
-			int y, int z, ImageStack outputImage, float value)
+			int y, int z, ImageStack outputImage, float value, IntStack stack)
 	{
 		// get image size
 		int sizeX = inputImage.getWidth();
@@ -990,8 +1073,10 @@ public class FloodFill3D
 		double oldValue = inputImage.getVoxel(x, y, z);
 
 		// initialize the stack with original pixel
-		ArrayList<Cursor3D> stack = new ArrayList<Cursor3D>();
-		stack.add(new Cursor3D(x, y, z));
+		stack.clear();
+		stack.push(x);
+		stack.push(y);
+		stack.push(z);
 
 		boolean inScanLine;
 
@@ -999,10 +1084,9 @@ public class FloodFill3D
 		while (!stack.isEmpty()) 
 		{
 			// Extract current position
-			Cursor3D p = stack.remove(stack.size()-1);
-			x = p.x;
-			y = p.y;
-			z = p.z;
+			z = stack.pop();
+			y = stack.pop();
+			x = stack.pop();
 
 			// process only pixel of the same value
 			if (inputImage.getVoxel(x, y, z) != oldValue)
@@ -1038,7 +1122,9 @@ public class FloodFill3D
 
 					if (!inScanLine && val == oldValue && lab != value) 
 					{
-						stack.add(new Cursor3D(i, y - 1, z));
+						stack.push(i);
+						stack.push(y - 1);
+						stack.push(z);
 						inScanLine = true;
 					} 
 					else if (inScanLine && val != oldValue)
@@ -1059,7 +1145,9 @@ public class FloodFill3D
 
 					if (!inScanLine && val == oldValue && lab != value) 
 					{
-						stack.add(new Cursor3D(i, y + 1, z));
+						stack.push(i);
+						stack.push(y + 1);
+						stack.push(z);
 						inScanLine = true;
 					}
 					else if (inScanLine && val != oldValue)
@@ -1080,7 +1168,9 @@ public class FloodFill3D
 
 					if (!inScanLine && val == oldValue && lab != value) 
 					{
-						stack.add(new Cursor3D(i, y, z - 1));
+						stack.push(i);
+						stack.push(y);
+						stack.push(z - 1);
 						inScanLine = true;
 					}
 					else if (inScanLine && val != oldValue)
@@ -1101,7 +1191,9 @@ public class FloodFill3D
 
 					if (!inScanLine && val == oldValue && lab != value)
 					{
-						stack.add(new Cursor3D(i, y, z + 1));
+						stack.push(i);
+						stack.push(y);
+						stack.push(z + 1);
 						inScanLine = true;
 					} 
 					else if (inScanLine && val != oldValue)
@@ -1143,8 +1235,10 @@ public class FloodFill3D
 		double oldValue = inputImage.getValue(x, y, z);
 
 		// initialize the stack with original pixel
-		ArrayList<Cursor3D> stack = new ArrayList<Cursor3D>();
-		stack.add(new Cursor3D(x, y, z));
+		IntStack stack = new IntStack();
+		stack.push(x);
+		stack.push(y);
+		stack.push(z);
 
 		boolean inScanLine;
 
@@ -1152,10 +1246,9 @@ public class FloodFill3D
 		while (!stack.isEmpty()) 
 		{
 			// Extract current position
-			Cursor3D p = stack.remove(stack.size()-1);
-			x = p.x;
-			y = p.y;
-			z = p.z;
+			z = stack.pop();
+			y = stack.pop();
+			x = stack.pop();
 
 			// process only pixel of the same value
 			if (inputImage.getValue(x, y, z) != oldValue)
@@ -1191,7 +1284,9 @@ public class FloodFill3D
 
 					if (!inScanLine && val == oldValue && lab != value) 
 					{
-						stack.add(new Cursor3D(i, y - 1, z));
+						stack.push(i);
+						stack.push(y - 1);
+						stack.push(z);
 						inScanLine = true;
 					} 
 					else if (inScanLine && val != oldValue)
@@ -1212,7 +1307,9 @@ public class FloodFill3D
 
 					if (!inScanLine && val == oldValue && lab != value) 
 					{
-						stack.add(new Cursor3D(i, y + 1, z));
+						stack.push(i);
+						stack.push(y + 1);
+						stack.push(z);
 						inScanLine = true;
 					}
 					else if (inScanLine && val != oldValue)
@@ -1233,7 +1330,9 @@ public class FloodFill3D
 
 					if (!inScanLine && val == oldValue && lab != value) 
 					{
-						stack.add(new Cursor3D(i, y, z - 1));
+						stack.push(i);
+						stack.push(y);
+						stack.push(z - 1);
 						inScanLine = true;
 					}
 					else if (inScanLine && val != oldValue)
@@ -1254,7 +1353,9 @@ public class FloodFill3D
 
 					if (!inScanLine && val == oldValue && lab != value)
 					{
-						stack.add(new Cursor3D(i, y, z + 1));
+						stack.push(i);
+						stack.push(y);
+						stack.push(z + 1);
 						inScanLine = true;
 					} 
 					else if (inScanLine && val != oldValue)
@@ -1286,7 +1387,7 @@ public class FloodFill3D
 	 *            filling value
 	 */
 	private final static void floodFillFloatC26(ImageStack inputImage, int x,
-			int y, int z, ImageStack outputImage, float value)
+			int y, int z, ImageStack outputImage, float value, IntStack stack)
 	{
 		// get image size
 		int sizeX = inputImage.getWidth();
@@ -1297,8 +1398,10 @@ public class FloodFill3D
 		double oldValue = inputImage.getVoxel(x, y, z);
 				
 		// initialize the stack with original pixel
-		ArrayList<Cursor3D> stack = new ArrayList<Cursor3D>();
-		stack.add(new Cursor3D(x, y, z));
+		stack.clear();
+		stack.push(x);
+		stack.push(y);
+		stack.push(z);
 		
 		boolean inScanLine;
 		
@@ -1306,10 +1409,9 @@ public class FloodFill3D
 		while (!stack.isEmpty())
 		{
 			// Extract current position
-			Cursor3D p = stack.remove(stack.size()-1);
-			x = p.x;
-			y = p.y;
-			z = p.z;
+			z = stack.pop();
+			y = stack.pop();
+			x = stack.pop();
 			
 			// process only pixel of the same value
 			if (inputImage.getVoxel(x, y, z) != oldValue)
@@ -1351,7 +1453,9 @@ public class FloodFill3D
 						
 						if (!inScanLine && val == oldValue && lab != value) 
 						{
-							stack.add(new Cursor3D(i, y2, z2));
+							stack.push(i);
+							stack.push(y2);
+							stack.push(z2);
 							inScanLine = true;
 						}
 						else if (inScanLine && val != oldValue)
@@ -1396,8 +1500,10 @@ public class FloodFill3D
 		double oldValue = inputImage.getValue(x, y, z);
 				
 		// initialize the stack with original pixel
-		ArrayList<Cursor3D> stack = new ArrayList<Cursor3D>();
-		stack.add(new Cursor3D(x, y, z));
+		IntStack stack = new IntStack();
+		stack.push(x);
+		stack.push(y);
+		stack.push(z);
 		
 		boolean inScanLine;
 		
@@ -1405,10 +1511,9 @@ public class FloodFill3D
 		while (!stack.isEmpty())
 		{
 			// Extract current position
-			Cursor3D p = stack.remove(stack.size()-1);
-			x = p.x;
-			y = p.y;
-			z = p.z;
+			z = stack.pop();
+			y = stack.pop();
+			x = stack.pop();
 			
 			// process only pixel of the same value
 			if (inputImage.getValue(x, y, z) != oldValue)
@@ -1450,7 +1555,9 @@ public class FloodFill3D
 						
 						if (!inScanLine && val == oldValue && lab != value) 
 						{
-							stack.add(new Cursor3D(i, y2, z2));
+							stack.push(i);
+							stack.push(y2);
+							stack.push(z2);
 							inScanLine = true;
 						}
 						else if (inScanLine && val != oldValue)
@@ -1500,22 +1607,4 @@ public class FloodFill3D
 		for (int x = x1; x <= x2; x++)
 			image.setValue(x, y, z, value);
 	}
-
-	/**
-	 * Defines a position within a 3D stack.
-	 * Needs to be a static class to be called by static methods.
-	 */
-	private static class Cursor3D 
-	{
-		int x;
-		int y;
-		int z;
-		
-		public Cursor3D(int x, int y, int z) 
-		{
-			this.x = x;
-			this.y = y;
-			this.z = z;
-		}
-	}
 }
@@ -23,9 +23,10 @@ package inra.ijpb.morphology;
 
 import ij.process.ByteProcessor;
 import ij.process.ImageProcessor;
+import inra.ijpb.morphology.extrema.ExtremaDynamics;
 import inra.ijpb.morphology.extrema.ExtremaType;
 import inra.ijpb.morphology.extrema.RegionalExtremaAlgo;
-import inra.ijpb.morphology.extrema.RegionalExtremaByFlooding;
+import inra.ijpb.morphology.extrema.RegionalExtremaByUnionFind;
 import inra.ijpb.morphology.geodrec.GeodesicReconstructionAlgo;
 import inra.ijpb.morphology.geodrec.GeodesicReconstructionHybrid;
 import inra.ijpb.morphology.geodrec.GeodesicReconstructionType;
@@ -34,9 +35,9 @@ import inra.ijpb.morphology.geodrec.GeodesicReconstructionType;
  * A collection of static methods for computing regional and extended minima
  * and maxima.
  * 
- * Regional extrema algorithms are based on flood-filling-like algorithms, 
- * whereas extended extrema and extrema imposition algorithms use geodesic 
- * reconstruction algorithm.
+ * Regional extrema algorithms are based on union-find of plateaus, 
+ * extended extrema are computed from the dynamics of the regional extrema,
+ * and extrema imposition algorithms use geodesic reconstruction algorithm.
  * 
  * See the books of Serra and Soille for further details.
  * 
@@ -96,7 +97,7 @@ public class MinimaAndMaxima
 	public final static ImageProcessor regionalMaxima(ImageProcessor image,
 			int conn)
 	{
-		RegionalExtremaAlgo algo = new RegionalExtremaByFlooding();
+		RegionalExtremaAlgo algo = new RegionalExtremaByUnionFind();
 		algo.setConnectivity(conn);
 		algo.setExtremaType(ExtremaType.MAXIMA);
 		
@@ -170,7 +171,7 @@ public class MinimaAndMaxima
 	public final static ImageProcessor regionalMinima(ImageProcessor image,
 			int conn) 
 	{
-		RegionalExtremaAlgo algo = new RegionalExtremaByFlooding();
+		RegionalExtremaAlgo algo = new RegionalExtremaByUnionFind();
 		algo.setConnectivity(conn);
 		algo.setExtremaType(ExtremaType.MINIMA);
 		
@@ -248,14 +249,7 @@ public class MinimaAndMaxima
 	public final static ImageProcessor extendedMaxima(ImageProcessor image,
 			double dynamic, int conn)
 	{
-		ImageProcessor mask = image.duplicate();
-		mask.add(dynamic);
-		
-		GeodesicReconstructionAlgo algo = new GeodesicReconstructionHybrid(
-				GeodesicReconstructionType.BY_DILATION, conn);
-		ImageProcessor rec = algo.applyTo(image, mask);
-		
-		return regionalMaxima(rec, conn);
+		return ExtremaDynamics.compute(image, ExtremaType.MAXIMA, conn).extendedExtrema(dynamic);
 	}
 
 	/**
@@ -291,14 +285,7 @@ public class MinimaAndMaxima
 	public final static ImageProcessor extendedMinima(ImageProcessor image,
 			double dynamic, int conn)
 	{
-		ImageProcessor marker = image.duplicate();
-		marker.add(dynamic);
-		
-		GeodesicReconstructionAlgo algo = new GeodesicReconstructionHybrid(
-				GeodesicReconstructionType.BY_EROSION, conn);
-		ImageProcessor rec = algo.applyTo(marker, image);
-
-		return regionalMinima(rec, conn);
+		return ExtremaDynamics.compute(image, ExtremaType.MINIMA, conn).extendedExtrema(dynamic);
 	}
 
 	/**
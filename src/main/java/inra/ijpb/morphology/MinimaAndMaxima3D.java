@@ -25,9 +25,11 @@ import ij.ImageStack;
 import inra.ijpb.algo.DefaultAlgoListener;
 import inra.ijpb.data.image.Image3D;
 import inra.ijpb.data.image.Images3D;
+import inra.ijpb.morphology.extrema.ExtremaDynamics;
 import inra.ijpb.morphology.extrema.ExtremaType;
 import inra.ijpb.morphology.extrema.RegionalExtrema3DAlgo;
 import inra.ijpb.morphology.extrema.RegionalExtrema3DByFlooding;
+import inra.ijpb.morphology.extrema.RegionalExtrema3DByUnionFind;
 
 /**
  * <p>
@@ -37,9 +39,10 @@ import inra.ijpb.morphology.extrema.RegionalExtrema3DByFlooding;
  * </p>
  * 
  * <p>
- * Regional extrema algorithms are based on flood-filling-like algorithms,
- * whereas extended extrema and extrema imposition algorithms use geodesic
- * reconstruction algorithm.
+ * Regional extrema algorithms are based on union-find of plateaus, or on
+ * flood-filling-like algorithms when a mask is specified. Extended extrema
+ * are computed from the dynamics of the regional extrema, and extrema
+ * imposition algorithms use geodesic reconstruction algorithm.
  * </p>
  * 
  * <p>
@@ -93,7 +96,7 @@ public class MinimaAndMaxima3D
 	public final static ImageStack regionalMaxima(ImageStack image,
 			int conn) 
 	{
-		RegionalExtrema3DAlgo algo = new RegionalExtrema3DByFlooding();
+		RegionalExtrema3DAlgo algo = new RegionalExtrema3DByUnionFind();
 		algo.setConnectivity(conn);
 		algo.setExtremaType(ExtremaType.MAXIMA);
 		DefaultAlgoListener.monitor(algo);
@@ -194,7 +197,7 @@ public class MinimaAndMaxima3D
 		if ( Thread.currentThread().isInterrupted() )					
 			return null;
 		
-		RegionalExtrema3DAlgo algo = new RegionalExtrema3DByFlooding();
+		RegionalExtrema3DAlgo algo = new RegionalExtrema3DByUnionFind();
 		algo.setConnectivity(conn);
 		algo.setExtremaType(ExtremaType.MINIMA);
 		DefaultAlgoListener.monitor(algo);
@@ -299,11 +302,8 @@ public class MinimaAndMaxima3D
 	public final static ImageStack extendedMaxima(ImageStack image,
 			double dynamic, int conn) 
 	{
-		ImageStack mask = addValue(image, dynamic);
-
-		ImageStack rec = Reconstruction3D.reconstructByDilation(image, mask, conn);
-
-		return regionalMaxima(rec, conn);
+		ExtremaDynamics dynamics = ExtremaDynamics.compute(image, ExtremaType.MAXIMA, conn);
+		return dynamics.extendedExtremaStack(dynamic);
 	}
 	
 	/**
@@ -389,14 +389,8 @@ public class MinimaAndMaxima3D
 	public final static ImageStack extendedMinima(ImageStack image,
 			double dynamic, int conn) 
 	{
-		ImageStack marker = addValue(image, dynamic);
-
-		ImageStack rec = Reconstruction3D.reconstructByErosion(marker, image, conn);
-
-		if( null == rec )
-			return null;
-		
-		return regionalMinima(rec, conn);
+		ExtremaDynamics dynamics = ExtremaDynamics.compute(image, ExtremaType.MINIMA, conn);
+		return dynamics.extendedExtremaStack(dynamic);
 	}
 
 	/**
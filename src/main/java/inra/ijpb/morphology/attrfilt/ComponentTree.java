@@ -0,0 +1,789 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.morphology.attrfilt;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+
+import ij.ImageStack;
+import ij.process.ImageProcessor;
+
+/**
+ * Component tree (max-tree or min-tree) of a 2D or 3D grayscale image.
+ * 
+ * The nodes of a max-tree are the connected components of the upper level
+ * sets of the image, and the nodes of a min-tree are the connected components
+ * of the lower level sets. Each node is represented by the elements (pixels
+ * or voxels) whose value equals the level of the node, the other elements of
+ * the component belonging to descendant nodes.
+ * 
+ * The tree is built once, using a union-find algorithm. Attributes of the
+ * nodes are then computed in linear time, and the image can be filtered for
+ * any attribute, threshold and filtering rule, without having to re-flood
+ * the image.
+ * 
+ * <pre><code>
+ * ComponentTree tree = ComponentTree.maxTree(image, 4);
+ * for (int minArea : new int[]{10, 100, 1000})
+ * {
+ *     ImageProcessor result = tree.filterImage(ComponentTree.Attribute.AREA,
+ *             minArea, ComponentTree.Rule.DIRECT);
+ *     // process result...
+ * }
+ * </code></pre>
+ * 
+ * References:
+ * <ul>
+ * <li>P. Salembier, A. Oliveras and L. Garrido (1998). "Antiextensive
+ * connected operators for image and sequence processing". IEEE Transactions
+ * on Image Processing 7(4), pp. 555-570.</li>
+ * <li>C. Berger, T. Geraud, R. Levillain, N. Widynski, A. Baillard and E.
+ * Bertin (2007). "Effective component tree computation with application to
+ * pattern recognition in astronomical imaging". IEEE ICIP, pp. 41-44.</li>
+ * </ul>
+ * 
+ * @see AreaOpeningUnionFind
+ * @see inra.ijpb.morphology.AttributeFiltering#areaOpenings(ImageProcessor, int...)
+ * 
+ * @author agent
+ *
+ */
+public class ComponentTree
+{
+	// ==================================================
+	// Inner enumerations
+	
+	/**
+	 * The attributes that can be computed on the nodes of the tree.
+	 */
+	public enum Attribute
+	{
+		/** The number of pixels or voxels within the component. */
+		AREA,
+		/**
+		 * The length of the diagonal of the bounding box of the component, in
+		 * pixels, computed from the extreme coordinates of its elements.
+		 */
+		BOX_DIAGONAL,
+		/**
+		 * The absolute difference between the extreme value within the
+		 * component and the level of the component.
+		 */
+		HEIGHT,
+		/**
+		 * The sum over the elements of the component of the absolute
+		 * difference between their value and the level of the parent node.
+		 */
+		VOLUME,
+		/**
+		 * The mean squared distance of the elements of the component to its
+		 * centroid, computed from the moments of order 1 and 2 of the element
+		 * coordinates.
+		 */
+		INERTIA;
+	}
+	
+	/**
+	 * The rules used to decide the new value of the elements of the nodes
+	 * that do not fulfill the filtering criterion.
+	 */
+	public enum Rule
+	{
+		/**
+		 * Removed nodes take the value of their closest preserved ancestor,
+		 * whereas the preserved descendants of removed nodes keep their
+		 * value.
+		 */
+		DIRECT,
+		/**
+		 * A node is removed if it or any of its ancestors does not fulfill the
+		 * criterion.
+		 */
+		MIN,
+		/**
+		 * A node is preserved if it or any of its descendants fulfills the
+		 * criterion.
+		 */
+		MAX,
+		/**
+		 * As for the direct rule, but the preserved descendants of removed
+		 * nodes are shifted by the contrast of the removed nodes.
+		 */
+		SUBTRACTIVE;
+	}
+	
+	
+	// ==================================================
+	// Class variables
+	
+	/** The size of the image along each dimension. */
+	final int sizeX, sizeY, sizeZ;
+	
+	/** The input image, as an array of slices. */
+	final ImageProcessor[] slices;
+	
+	/** The type of tree: true for max-tree, false for min-tree. */
+	final boolean maxTree;
+	
+	/** The index of the node containing each element of the image. */
+	final int[] elementNodes;
+	
+	/**
+	 * The index of the parent of each node. Nodes are sorted such that parents
+	 * are always before their children. The first node is the root, and is its
+	 * own parent.
+	 */
+	final int[] nodeParents;
+	
+	/** The level (gray value) of each node. */
+	final float[] nodeLevels;
+	
+	/** The attributes already computed. */
+	private final EnumMap<Attribute, double[]> attributes = new EnumMap<Attribute, double[]>(Attribute.class);
+	
+
+	// ==================================================
+	// Static factories
+	
+	/**
+	 * Computes the max-tree of a planar image.
+	 * 
+	 * @param image
+	 *            the grayscale image
+	 * @param connectivity
+	 *            the connectivity to use, either 4 or 8
+	 * @return the max-tree of the image
+	 */
+	public static final ComponentTree maxTree(ImageProcessor image, int connectivity)
+	{
+		return new ComponentTree(new ImageProcessor[] { image }, shifts2d(connectivity), true);
+	}
+	
+	/**
+	 * Computes the min-tree of a planar image.
+	 * 
+	 * @param image
+	 *            the grayscale image
+	 * @param connectivity
+	 *            the connectivity to use, either 4 or 8
+	 * @return the min-tree of the image
+	 */
+	public static final ComponentTree minTree(ImageProcessor image, int connectivity)
+	{
+		return new ComponentTree(new ImageProcessor[] { image }, shifts2d(connectivity), false);
+	}
+	
+	/**
+	 * Computes the max-tree of a 3D image.
+	 * 
+	 * @param image
+	 *            the 3D grayscale image
+	 * @param connectivity
+	 *            the connectivity to use, either 6 or 26
+	 * @return the max-tree of the image
+	 */
+	public static final ComponentTree maxTree(ImageStack image, int connectivity)
+	{
+		return new ComponentTree(getSlices(image), shifts3d(connectivity), true);
+	}
+	
+	/**
+	 * Computes the min-tree of a 3D image.
+	 * 
+	 * @param image
+	 *            the 3D grayscale image
+	 * @param connectivity
+	 *            the connectivity to use, either 6 or 26
+	 * @return the min-tree of the image
+	 */
+	public static final ComponentTree minTree(ImageStack image, int connectivity)
+	{
+		return new ComponentTree(getSlices(image), shifts3d(connectivity), false);
+	}
+	
+	private static final ImageProcessor[] getSlices(ImageStack image)
+	{
+		ImageProcessor[] slices = new ImageProcessor[image.getSize()];
+		for (int z = 0; z < slices.length; z++)
+		{
+			slices[z] = image.getProcessor(z + 1);
+		}
+		return slices;
+	}
+	
+	private static final int[][] shifts2d(int connectivity)
+	{
+		switch (connectivity)
+		{
+		case 4:
+			return new int[][] { { 0, -1, 0 }, { -1, 0, 0 }, { 1, 0, 0 }, { 0, 1, 0 } };
+		case 8:
+			return new int[][] { 
+				{ -1, -1, 0 }, { 0, -1, 0 }, { 1, -1, 0 }, { -1, 0, 0 }, 
+				{ 1, 0, 0 }, { -1, 1, 0 }, { 0, 1, 0 }, { 1, 1, 0 } };
+		default:
+			throw new IllegalArgumentException("Connectivity must be either 4 or 8, not " + connectivity);
+		}
+	}
+	
+	private static final int[][] shifts3d(int connectivity)
+	{
+		switch (connectivity)
+		{
+		case 6:
+			return new int[][] { 
+				{ 0, 0, -1 }, { 0, -1, 0 }, { -1, 0, 0 }, 
+				{ 1, 0, 0 }, { 0, 1, 0 }, { 0, 0, 1 } };
+		case 26:
+			int[][] shifts = new int[26][];
+			int n = 0;
+			for (int dz = -1; dz <= 1; dz++)
+			{
+				for (int dy = -1; dy <= 1; dy++)
+				{
+					for (int dx = -1; dx <= 1; dx++)
+					{
+						if (dx != 0 || dy != 0 || dz != 0)
+						{
+							shifts[n++] = new int[] { dx, dy, dz };
+						}
+					}
+				}
+			}
+			return shifts;
+		default:
+			throw new IllegalArgumentException("Connectivity must be either 6 or 26, not " + connectivity);
+		}
+	}
+
+	
+	// ==================================================
+	// Constructor
+	
+	/**
+	 * Builds the component tree of an image.
+	 * 
+	 * @param slices
+	 *            the slices of the image
+	 * @param shifts
+	 *            the shifts of the neighbors, as (dx,dy,dz) triplets
+	 * @param maxTree
+	 *            true for computing a max-tree, false for a min-tree
+	 */
+	private ComponentTree(ImageProcessor[] slices, int[][] shifts, boolean maxTree)
+	{
+		this.slices = slices;
+		this.sizeX = slices[0].getWidth();
+		this.sizeY = slices[0].getHeight();
+		this.sizeZ = slices.length;
+		this.maxTree = maxTree;
+		
+		// sort elements such that root is processed last
+		int[] order = UnionFindOpenings.sortByDecreasingValue(slices);
+		int nElements = order.length;
+		if (!maxTree)
+		{
+			for (int i = 0, j = nElements - 1; i < j; i++, j--)
+			{
+				int tmp = order[i];
+				order[i] = order[j];
+				order[j] = tmp;
+			}
+		}
+		
+		// parent of each element, and root of the union-find structure of
+		// each element (-1 for elements not yet processed)
+		int[] parent = new int[nElements];
+		int[] zpar = new int[nElements];
+		Arrays.fill(zpar, -1);
+		
+		int sliceSize = sizeX * sizeY;
+		for (int i = 0; i < nElements; i++)
+		{
+			int index = order[i];
+			parent[index] = index;
+			zpar[index] = index;
+			
+			int z = index / sliceSize;
+			int index2D = index % sliceSize;
+			int x = index2D % sizeX;
+			int y = index2D / sizeX;
+			for (int[] shift : shifts)
+			{
+				int x2 = x + shift[0];
+				int y2 = y + shift[1];
+				int z2 = z + shift[2];
+				if (x2 < 0 || x2 >= sizeX || y2 < 0 || y2 >= sizeY || z2 < 0 || z2 >= sizeZ)
+				{
+					continue;
+				}
+				
+				int index2 = z2 * sliceSize + y2 * sizeX + x2;
+				if (zpar[index2] < 0)
+				{
+					continue;
+				}
+				
+				int root = UnionFindOpenings.findRoot(zpar, index2);
+				if (root != index)
+				{
+					parent[root] = index;
+					zpar[root] = index;
+				}
+			}
+		}
+		
+		// canonicalize the tree and identify nodes, starting from the root.
+		// The array of union-find roots is reused for storing node indices.
+		int[] elementNodes = zpar;
+		int[] nodeParents = new int[nElements];
+		float[] nodeLevels = new float[nElements];
+		int nNodes = 0;
+		for (int i = nElements - 1; i >= 0; i--)
+		{
+			int index = order[i];
+			int par = parent[index];
+			float value = value(index);
+			
+			if (par == index)
+			{
+				// root of the tree
+				nodeParents[nNodes] = nNodes;
+				nodeLevels[nNodes] = value;
+				elementNodes[index] = nNodes++;
+				continue;
+			}
+			
+			// parent of parent is already canonical
+			int par2 = parent[par];
+			if (value(par2) == value(par))
+			{
+				par = par2;
+				parent[index] = par;
+			}
+			
+			if (value(par) == value)
+			{
+				elementNodes[index] = elementNodes[par];
+			}
+			else
+			{
+				nodeParents[nNodes] = elementNodes[par];
+				nodeLevels[nNodes] = value;
+				elementNodes[index] = nNodes++;
+			}
+		}
+		
+		this.elementNodes = elementNodes;
+		this.nodeParents = Arrays.copyOf(nodeParents, nNodes);
+		this.nodeLevels = Arrays.copyOf(nodeLevels, nNodes);
+	}
+	
+	private final float value(int index)
+	{
+		int sliceSize = sizeX * sizeY;
+		return slices[index / sliceSize].getf(index % sliceSize);
+	}
+	
+
+	// ==================================================
+	// Accessors
+	
+	/**
+	 * @return true if this tree is a max-tree, false if it is a min-tree
+	 */
+	public boolean isMaxTree()
+	{
+		return maxTree;
+	}
+	
+	/**
+	 * @return the number of nodes within this tree
+	 */
+	public int nodeCount()
+	{
+		return nodeLevels.length;
+	}
+	
+	/**
+	 * Returns the parent of a node. The root node has index 0, and is its own
+	 * parent. Parents always have a lower index than their children.
+	 * 
+	 * @param node
+	 *            the index of the node
+	 * @return the index of the parent node
+	 */
+	public int parent(int node)
+	{
+		return nodeParents[node];
+	}
+	
+	/**
+	 * @param node
+	 *            the index of the node
+	 * @return the level (gray value) of the node
+	 */
+	public double level(int node)
+	{
+		return nodeLevels[node];
+	}
+	
+	/**
+	 * Returns the index of the node containing the specified pixel or voxel.
+	 * 
+	 * @param x
+	 *            the x-coordinate of the element
+	 * @param y
+	 *            the y-coordinate of the element
+	 * @param z
+	 *            the z-coordinate of the element (0 for planar images)
+	 * @return the index of the node whose level equals the value of the
+	 *         element
+	 */
+	public int node(int x, int y, int z)
+	{
+		return elementNodes[(z * sizeY + y) * sizeX + x];
+	}
+	
+	
+	// ==================================================
+	// Computation of attributes
+	
+	/**
+	 * Returns the values of an attribute for each node of the tree. The
+	 * values are computed at the first call, and are kept for subsequent
+	 * calls.
+	 * 
+	 * @param attribute
+	 *            the attribute to compute
+	 * @return an array containing the value of the attribute for each node
+	 */
+	public double[] attribute(Attribute attribute)
+	{
+		double[] values = attributes.get(attribute);
+		if (values == null)
+		{
+			values = computeAttribute(attribute);
+			attributes.put(attribute, values);
+		}
+		return values;
+	}
+	
+	private double[] computeAttribute(Attribute attribute)
+	{
+		switch (attribute)
+		{
+		case AREA: return computeArea();
+		case BOX_DIAGONAL: return computeBoxDiagonal();
+		case HEIGHT: return computeHeight();
+		case VOLUME: return computeVolume();
+		case INERTIA: return computeInertia();
+		default:
+			throw new IllegalArgumentException("Unknown attribute: " + attribute);
+		}
+	}
+	
+	/**
+	 * Propagates the values of an attribute from the children to their
+	 * parents, by summing them.
+	 */
+	private void accumulate(double[] values)
+	{
+		for (int node = values.length - 1; node > 0; node--)
+		{
+			values[nodeParents[node]] += values[node];
+		}
+	}
+	
+	private double[] computeArea()
+	{
+		double[] area = new double[nodeCount()];
+		for (int node : elementNodes)
+		{
+			area[node]++;
+		}
+		accumulate(area);
+		return area;
+	}
+	
+	private double[] computeHeight()
+	{
+		// extreme value within the subtree of each node
+		int nNodes = nodeCount();
+		double[] extremes = new double[nNodes];
+		for (int node = 0; node < nNodes; node++)
+		{
+			extremes[node] = nodeLevels[node];
+		}
+		for (int node = nNodes - 1; node > 0; node--)
+		{
+			int parent = nodeParents[node];
+			extremes[parent] = maxTree ? Math.max(extremes[parent], extremes[node]) 
+					: Math.min(extremes[parent], extremes[node]);
+		}
+		
+		for (int node = 0; node < nNodes; node++)
+		{
+			extremes[node] = Math.abs(extremes[node] - nodeLevels[node]);
+		}
+		return extremes;
+	}
+	
+	private double[] computeVolume()
+	{
+		// sum of values and number of elements within each node
+		int nNodes = nodeCount();
+		double[] sums = new double[nNodes];
+		for (int index = 0; index < elementNodes.length; index++)
+		{
+			sums[elementNodes[index]] += value(index);
+		}
+		accumulate(sums);
+		double[] area = attribute(Attribute.AREA);
+		
+		double[] volume = new double[nNodes];
+		for (int node = 0; node < nNodes; node++)
+		{
+			double parentLevel = nodeLevels[nodeParents[node]];
+			volume[node] = Math.abs(sums[node] - area[node] * parentLevel);
+		}
+		return volume;
+	}
+	
+	private double[] computeBoxDiagonal()
+	{
+		int nNodes = nodeCount();
+		int[] xmin = new int[nNodes], xmax = new int[nNodes];
+		int[] ymin = new int[nNodes], ymax = new int[nNodes];
+		int[] zmin = new int[nNodes], zmax = new int[nNodes];
+		Arrays.fill(xmin, Integer.MAX_VALUE);
+		Arrays.fill(ymin, Integer.MAX_VALUE);
+		Arrays.fill(zmin, Integer.MAX_VALUE);
+		Arrays.fill(xmax, Integer.MIN_VALUE);
+		Arrays.fill(ymax, Integer.MIN_VALUE);
+		Arrays.fill(zmax, Integer.MIN_VALUE);
+		
+		// bounds of the elements of each node
+		int index = 0;
+		for (int z = 0; z < sizeZ; z++)
+		{
+			for (int y = 0; y < sizeY; y++)
+			{
+				for (int x = 0; x < sizeX; x++)
+				{
+					int node = elementNodes[index++];
+					xmin[node] = Math.min(xmin[node], x);
+					xmax[node] = Math.max(xmax[node], x);
+					ymin[node] = Math.min(ymin[node], y);
+					ymax[node] = Math.max(ymax[node], y);
+					zmin[node] = Math.min(zmin[node], z);
+					zmax[node] = Math.max(zmax[node], z);
+				}
+			}
+		}
+		
+		// propagate bounds to parents, and compute diagonal
+		double[] diagonal = new double[nNodes];
+		for (int node = nNodes - 1; node >= 0; node--)
+		{
+			double dx = xmax[node] - xmin[node];
+			double dy = ymax[node] - ymin[node];
+			double dz = zmax[node] - zmin[node];
+			diagonal[node] = Math.sqrt(dx * dx + dy * dy + dz * dz);
+			
+			int parent = nodeParents[node];
+			xmin[parent] = Math.min(xmin[parent], xmin[node]);
+			xmax[parent] = Math.max(xmax[parent], xmax[node]);
+			ymin[parent] = Math.min(ymin[parent], ymin[node]);
+			ymax[parent] = Math.max(ymax[parent], ymax[node]);
+			zmin[parent] = Math.min(zmin[parent], zmin[node]);
+			zmax[parent] = Math.max(zmax[parent], zmax[node]);
+		}
+		return diagonal;
+	}
+	
+	private double[] computeInertia()
+	{
+		// moments of order 1 and 2 of the coordinates of the elements
+		int nNodes = nodeCount();
+		double[] sx = new double[nNodes], sy = new double[nNodes], sz = new double[nNodes];
+		double[] s2 = new double[nNodes];
+		int index = 0;
+		for (int z = 0; z < sizeZ; z++)
+		{
+			for (int y = 0; y < sizeY; y++)
+			{
+				for (int x = 0; x < sizeX; x++)
+				{
+					int node = elementNodes[index++];
+					sx[node] += x;
+					sy[node] += y;
+					sz[node] += z;
+					s2[node] += (double) x * x + (double) y * y + (double) z * z;
+				}
+			}
+		}
+		accumulate(sx);
+		accumulate(sy);
+		accumulate(sz);
+		accumulate(s2);
+		
+		double[] area = attribute(Attribute.AREA);
+		double[] inertia = new double[nNodes];
+		for (int node = 0; node < nNodes; node++)
+		{
+			double n = area[node];
+			double cx = sx[node] / n, cy = sy[node] / n, cz = sz[node] / n;
+			inertia[node] = Math.max(s2[node] / n - (cx * cx + cy * cy + cz * cz), 0);
+		}
+		return inertia;
+	}
+	
+	
+	// ==================================================
+	// Filtering
+	
+	/**
+	 * Computes the new level of each node after filtering the tree with the
+	 * criterion <code>attribute &ge; threshold</code>. The root node is
+	 * always preserved.
+	 * 
+	 * @param attribute
+	 *            the attribute used for filtering
+	 * @param threshold
+	 *            the minimum value of the attribute for preserving a node
+	 * @param rule
+	 *            the rule used for deciding which nodes are removed
+	 * @return the new level of each node
+	 */
+	public float[] filterLevels(Attribute attribute, double threshold, Rule rule)
+	{
+		double[] values = attribute(attribute);
+		int nNodes = nodeCount();
+		
+		// identify preserved nodes
+		boolean[] preserved = new boolean[nNodes];
+		for (int node = 0; node < nNodes; node++)
+		{
+			preserved[node] = values[node] >= threshold;
+		}
+		preserved[0] = true;
+		
+		if (rule == Rule.MIN)
+		{
+			for (int node = 1; node < nNodes; node++)
+			{
+				preserved[node] &= preserved[nodeParents[node]];
+			}
+		}
+		else if (rule == Rule.MAX)
+		{
+			for (int node = nNodes - 1; node > 0; node--)
+			{
+				if (preserved[node])
+				{
+					preserved[nodeParents[node]] = true;
+				}
+			}
+		}
+		
+		// compute new levels, from the root to the leaves
+		float[] levels = new float[nNodes];
+		levels[0] = nodeLevels[0];
+		for (int node = 1; node < nNodes; node++)
+		{
+			int parent = nodeParents[node];
+			if (!preserved[node])
+			{
+				levels[node] = levels[parent];
+			}
+			else if (rule == Rule.SUBTRACTIVE)
+			{
+				levels[node] = levels[parent] + nodeLevels[node] - nodeLevels[parent];
+			}
+			else
+			{
+				levels[node] = nodeLevels[node];
+			}
+		}
+		return levels;
+	}
+	
+	/**
+	 * Filters the planar image this tree was computed from.
+	 * 
+	 * @param attribute
+	 *            the attribute used for filtering
+	 * @param threshold
+	 *            the minimum value of the attribute for preserving a component
+	 * @param rule
+	 *            the rule used for deciding which components are removed
+	 * @return the filtered image, with the same type as the original image
+	 */
+	public ImageProcessor filterImage(Attribute attribute, double threshold, Rule rule)
+	{
+		if (sizeZ != 1)
+		{
+			throw new IllegalStateException("Tree was computed from a 3D image");
+		}
+		ImageProcessor result = slices[0].duplicate();
+		fillResult(new ImageProcessor[] { result }, filterLevels(attribute, threshold, rule));
+		return result;
+	}
+	
+	/**
+	 * Filters the 3D image this tree was computed from.
+	 * 
+	 * @param attribute
+	 *            the attribute used for filtering
+	 * @param threshold
+	 *            the minimum value of the attribute for preserving a component
+	 * @param rule
+	 *            the rule used for deciding which components are removed
+	 * @return the filtered image, with the same type as the original image
+	 */
+	public ImageStack filterStack(Attribute attribute, double threshold, Rule rule)
+	{
+		ImageStack result = new ImageStack(sizeX, sizeY);
+		ImageProcessor[] resultSlices = new ImageProcessor[sizeZ];
+		for (int z = 0; z < sizeZ; z++)
+		{
+			resultSlices[z] = slices[z].duplicate();
+			result.addSlice(resultSlices[z]);
+		}
+		fillResult(resultSlices, filterLevels(attribute, threshold, rule));
+		return result;
+	}
+	
+	private void fillResult(ImageProcessor[] resultSlices, float[] levels)
+	{
+		int sliceSize = sizeX * sizeY;
+		int index = 0;
+		for (ImageProcessor slice : resultSlices)
+		{
+			for (int i = 0; i < sliceSize; i++)
+			{
+				slice.setf(i, levels[elementNodes[index++]]);
+			}
+		}
+	}
+}
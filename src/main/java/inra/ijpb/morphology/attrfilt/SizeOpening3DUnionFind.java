@@ -0,0 +1,179 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.morphology.attrfilt;
+
+import ij.ImageStack;
+import ij.process.ImageProcessor;
+import inra.ijpb.algo.AlgoStub;
+
+/**
+ * Volume opening on 3D grayscale image using a union-find structure for
+ * building the connected components of the upper level sets, processed by
+ * decreasing gray levels.
+ * 
+ * Running time is almost linear in the number of voxels, and does not depend
+ * on the minimum volume. Works for 8-bits, 16-bits and float images, with less
+ * than 2^31 voxels.
+ * 
+ * @see AreaOpeningUnionFind
+ * @see SizeOpening3DQueue
+ * 
+ * @author agent
+ *
+ */
+public class SizeOpening3DUnionFind extends AlgoStub implements SizeOpening3D
+{
+	/** Default connectivity is 6 */
+	int conn = 6;
+	
+	/**
+	 * Changes the connectivity used by this algorithm.
+	 * 
+	 * @param connectivity the connectivity to use, either 6 or 26
+	 */
+	public void setConnectivity(int connectivity)
+	{
+		if (connectivity != 6 && connectivity != 26)
+		{
+			throw new IllegalArgumentException("Connectivity must be either 6 or 26, not " + connectivity);
+		}
+		
+		this.conn = connectivity;
+	}
+
+	/**
+	 * Returns the current connectivity value for this algorithm.
+	 * 
+	 * @return the current connectivity value (either 6 or 26)
+	 */
+	public int getConnectivity()
+	{
+		return this.conn;
+	}
+	
+	/* (non-Javadoc)
+	 * @see inra.ijpb.morphology.attrfilt.SizeOpening3D#process(ij.process.ImageStack, int)
+	 */
+	@Override
+	public ImageStack process(ImageStack image, int minVolume)
+	{
+		// extract image size
+		int sizeX = image.getWidth();
+		int sizeY = image.getHeight();
+		int sizeZ = image.getSize();
+		int sliceSize = sizeX * sizeY;
+
+		// the voxel shifts used to identify neighbors
+		int[][] shifts = createShifts();
+		
+		ImageProcessor[] slices = new ImageProcessor[sizeZ];
+		for (int z = 0; z < sizeZ; z++)
+		{
+			slices[z] = image.getProcessor(z + 1);
+		}
+
+		fireStatusChanged(this, "Sorting voxels...");
+		int[] order = UnionFindOpenings.sortByDecreasingValue(slices);
+		int nVoxels = order.length;
+		
+		// parent of each voxel (-1 for voxels not yet processed), and volume
+		// of the components whose root is the voxel
+		int[] parent = new int[nVoxels];
+		int[] volume = new int[nVoxels];
+		for (int i = 0; i < nVoxels; i++)
+		{
+			parent[i] = -1;
+		}
+
+		fireStatusChanged(this, "Building components...");
+		for (int i = 0; i < nVoxels; i++)
+		{
+			if (i % sliceSize == 0)
+			{
+				fireProgressChanged(this, i, nVoxels);
+			}
+			
+			int index = order[i];
+			parent[index] = index;
+			volume[index] = 1;
+			
+			int z = index / sliceSize;
+			int index2D = index % sliceSize;
+			int x = index2D % sizeX;
+			int y = index2D / sizeX;
+			for (int[] shift : shifts)
+			{
+				int x2 = x + shift[0];
+				int y2 = y + shift[1];
+				int z2 = z + shift[2];
+				if (x2 >= 0 && x2 < sizeX && y2 >= 0 && y2 < sizeY && z2 >= 0 && z2 < sizeZ)
+				{
+					int index2 = z2 * sliceSize + y2 * sizeX + x2;
+					if (parent[index2] >= 0)
+					{
+						UnionFindOpenings.union(parent, volume, slices, sliceSize, index, index2, minVolume);
+					}
+				}
+			}
+		}
+		
+		// compute result image
+		fireStatusChanged(this, "Computing result...");
+		ImageStack result = image.duplicate();
+		ImageProcessor[] resultSlices = new ImageProcessor[sizeZ];
+		for (int z = 0; z < sizeZ; z++)
+		{
+			resultSlices[z] = result.getProcessor(z + 1);
+		}
+		UnionFindOpenings.resolve(order, parent, resultSlices);
+		
+		fireProgressChanged(this, 1, 1);
+		return result;
+	}
+	
+	private int[][] createShifts()
+	{
+		if (this.conn == 6)
+		{
+			return new int[][] { 
+				{ 0, 0, -1 }, { 0, -1, 0 }, { -1, 0, 0 }, 
+				{ +1, 0, 0 }, { 0, +1, 0 }, { 0, 0, +1 } };
+		}
+		
+		int[][] shifts = new int[26][];
+		int n = 0;
+		for (int dz = -1; dz <= 1; dz++)
+		{
+			for (int dy = -1; dy <= 1; dy++)
+			{
+				for (int dx = -1; dx <= 1; dx++)
+				{
+					if (dx != 0 || dy != 0 || dz != 0)
+					{
+						shifts[n++] = new int[] { dx, dy, dz };
+					}
+				}
+			}
+		}
+		return shifts;
+	}
+}
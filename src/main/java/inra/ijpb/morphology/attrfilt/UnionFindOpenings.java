@@ -0,0 +1,224 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.morphology.attrfilt;
+
+import java.util.Arrays;
+
+import ij.process.ImageProcessor;
+
+/**
+ * Utility methods shared by the union-find implementations of attribute
+ * openings.
+ * 
+ * Images are processed through their slices (a single one for planar images),
+ * and elements are identified by linear indices computed as
+ * <code>z * sliceSize + y * sizeX + x</code>.
+ * 
+ * @author agent
+ *
+ */
+class UnionFindOpenings
+{
+	/**
+	 * Private constructor to prevent instantiation.
+	 */
+	private UnionFindOpenings()
+	{
+	}
+	
+	/**
+	 * Computes the linear indices of the elements of an image, sorted by
+	 * decreasing value. Integer images are sorted with a counting sort, float
+	 * images with a sort on primitive keys.
+	 * 
+	 * @param slices
+	 *            the slices of the image
+	 * @return the linear indices of image elements, by decreasing value
+	 */
+	static final int[] sortByDecreasingValue(ImageProcessor[] slices)
+	{
+		int sliceSize = slices[0].getPixelCount();
+		long count = (long) sliceSize * slices.length;
+		if (count > Integer.MAX_VALUE - 8)
+		{
+			throw new IllegalArgumentException("Image is too large to be processed: " + count + " elements");
+		}
+		int nElements = (int) count;
+		
+		int[] order = new int[nElements];
+		int bitDepth = slices[0].getBitDepth();
+		if (bitDepth == 8 || bitDepth == 16)
+		{
+			// compute histogram of values
+			int[] histo = new int[bitDepth == 8 ? 256 : 65536];
+			for (ImageProcessor slice : slices)
+			{
+				for (int i = 0; i < sliceSize; i++)
+				{
+					histo[slice.get(i)]++;
+				}
+			}
+			
+			// compute position of first element of each value, from largest
+			// to smallest value
+			int pos = 0;
+			for (int v = histo.length - 1; v >= 0; v--)
+			{
+				int n = histo[v];
+				histo[v] = pos;
+				pos += n;
+			}
+			
+			for (int z = 0; z < slices.length; z++)
+			{
+				ImageProcessor slice = slices[z];
+				int offset = z * sliceSize;
+				for (int i = 0; i < sliceSize; i++)
+				{
+					order[histo[slice.get(i)]++] = offset + i;
+				}
+			}
+			return order;
+		}
+		
+		// for float images, sort keys made of the float bits (converted to
+		// preserve ordering of signed values) and of the element index
+		long[] keys = new long[nElements];
+		for (int z = 0; z < slices.length; z++)
+		{
+			ImageProcessor slice = slices[z];
+			int offset = z * sliceSize;
+			for (int i = 0; i < sliceSize; i++)
+			{
+				int bits = Float.floatToIntBits(slice.getf(i));
+				bits ^= (bits >> 31) & 0x7FFFFFFF;
+				keys[offset + i] = ((long) bits << 32) | (offset + i);
+			}
+		}
+		Arrays.sort(keys);
+		for (int i = 0; i < nElements; i++)
+		{
+			order[i] = (int) keys[nElements - 1 - i];
+		}
+		return order;
+	}
+	
+	/**
+	 * Finds the root of the tree containing the specified element, and
+	 * compresses the path from the element to the root.
+	 * 
+	 * @param parent
+	 *            the array of parents
+	 * @param index
+	 *            the index of the element
+	 * @return the index of the root element
+	 */
+	static final int findRoot(int[] parent, int index)
+	{
+		int root = index;
+		while (parent[root] != root)
+		{
+			root = parent[root];
+		}
+		
+		// path compression
+		while (parent[index] != root)
+		{
+			int next = parent[index];
+			parent[index] = root;
+			index = next;
+		}
+		return root;
+	}
+	
+	/**
+	 * Merges the component containing the neighbor of a newly processed
+	 * element with the component of the element, following the rule of the
+	 * area opening: the neighbor component is merged if it has the same value
+	 * as the current element, or if its size is smaller than the threshold.
+	 * Otherwise, the current component is flagged as large enough.
+	 * 
+	 * @param parent
+	 *            the array of parents
+	 * @param size
+	 *            the size of the components, for root elements
+	 * @param values
+	 *            the values of the image elements, indexed by slices
+	 * @param sliceSize
+	 *            the number of elements within a slice
+	 * @param index
+	 *            the index of the current element, root of its component
+	 * @param neighbor
+	 *            the index of the already processed neighbor
+	 * @param minSize
+	 *            the minimum size of components
+	 */
+	static final void union(int[] parent, int[] size, ImageProcessor[] values, 
+			int sliceSize, int index, int neighbor, int minSize)
+	{
+		int root = findRoot(parent, neighbor);
+		if (root == index)
+		{
+			return;
+		}
+		
+		float rootValue = values[root / sliceSize].getf(root % sliceSize);
+		float value = values[index / sliceSize].getf(index % sliceSize);
+		if (rootValue == value || size[root] < minSize)
+		{
+			size[index] = Math.min(size[index] + size[root], minSize);
+			parent[root] = index;
+		}
+		else
+		{
+			size[index] = minSize;
+		}
+	}
+	
+	/**
+	 * Computes the result of the opening, by processing elements in reverse
+	 * order: roots keep their value, and other elements take the value of
+	 * their parent.
+	 * 
+	 * @param order
+	 *            the indices of elements, sorted by decreasing value
+	 * @param parent
+	 *            the array of parents
+	 * @param result
+	 *            the slices of the result image, initialized with the values
+	 *            of the input image
+	 */
+	static final void resolve(int[] order, int[] parent, ImageProcessor[] result)
+	{
+		int sliceSize = result[0].getPixelCount();
+		for (int i = order.length - 1; i >= 0; i--)
+		{
+			int index = order[i];
+			int par = parent[index];
+			if (par != index)
+			{
+				float value = result[par / sliceSize].getf(par % sliceSize);
+				result[index / sliceSize].setf(index % sliceSize, value);
+			}
+		}
+	}
+}
@@ -0,0 +1,763 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.morphology.extrema;
+
+import java.util.Arrays;
+
+import ij.ImageStack;
+import ij.process.ImageProcessor;
+
+/**
+ * Computes the dynamics of the regional extrema of a grayscale image, and the
+ * extended extrema for any value of the dynamic.
+ * 
+ * The component tree of the image (the min-tree for minima, the max-tree for
+ * maxima) is computed once, using union-find on the pixels sorted by value.
+ * When two components merge, the extremum with the smallest depth is
+ * discarded, and its dynamic is the difference between the merge level and
+ * its value. The extended extrema for a given dynamic are then obtained by a
+ * single traversal of the tree, without running a geodesic reconstruction.
+ * The result is the same as the one of the
+ * {@link inra.ijpb.morphology.MinimaAndMaxima#extendedMinima(ImageProcessor, double, int)}
+ * and
+ * {@link inra.ijpb.morphology.MinimaAndMaxima#extendedMaxima(ImageProcessor, double, int)}
+ * methods.
+ * 
+ * Interactive plugins can keep the instance, and compute the extended extrema
+ * each time the value of the dynamic changes.
+ * 
+ * <pre>
+ * {@code
+ * ExtremaDynamics dynamics = ExtremaDynamics.compute(image, ExtremaType.MINIMA, 4);
+ * ImageProcessor minima = dynamics.extendedExtrema(10);
+ * ImageProcessor map = dynamics.dynamicsMap();
+ * }
+ * </pre>
+ * 
+ * @see inra.ijpb.morphology.MinimaAndMaxima
+ * @see inra.ijpb.morphology.MinimaAndMaxima3D
+ * 
+ * @author agent
+ *
+ */
+public class ExtremaDynamics
+{
+	// ==================================================
+	// Static factories
+
+	/**
+	 * Computes the dynamics of the regional extrema of a planar image.
+	 * 
+	 * @param image
+	 *            the grayscale image to process
+	 * @param type
+	 *            the type of extrema (minima or maxima)
+	 * @param conn
+	 *            the connectivity, that should be either 4 or 8
+	 * @return the dynamics of the regional extrema of the image
+	 */
+	public static final ExtremaDynamics compute(ImageProcessor image, ExtremaType type, int conn)
+	{
+		if (conn != 4 && conn != 8)
+		{
+			throw new IllegalArgumentException("Connectivity must be either 4 or 8, not " + conn);
+		}
+		
+		int sizeX = image.getWidth();
+		int sizeY = image.getHeight();
+		float[] values = new float[sizeX * sizeY];
+		for (int i = 0; i < values.length; i++)
+		{
+			values[i] = image.getf(i);
+		}
+		
+		return new ExtremaDynamics(values, sizeX, sizeY, 1, image.getBitDepth(), false, type, conn, conn == 4 ? 6 : 26);
+	}
+
+	/**
+	 * Computes the dynamics of the regional extrema of a 3D image.
+	 * 
+	 * @param image
+	 *            the grayscale 3D image to process
+	 * @param type
+	 *            the type of extrema (minima or maxima)
+	 * @param conn
+	 *            the connectivity, that should be either 6 or 26
+	 * @return the dynamics of the regional extrema of the image
+	 */
+	public static final ExtremaDynamics compute(ImageStack image, ExtremaType type, int conn)
+	{
+		if (conn != 6 && conn != 26)
+		{
+			throw new IllegalArgumentException("Connectivity must be either 6 or 26, not " + conn);
+		}
+		
+		int sizeX = image.getWidth();
+		int sizeY = image.getHeight();
+		int sizeZ = image.getSize();
+		int sliceSize = sizeX * sizeY;
+		float[] values = new float[sliceSize * sizeZ];
+		for (int z = 0; z < sizeZ; z++)
+		{
+			ImageProcessor slice = image.getProcessor(z + 1);
+			int offset = z * sliceSize;
+			for (int i = 0; i < sliceSize; i++)
+			{
+				values[offset + i] = slice.getf(i);
+			}
+		}
+		
+		return new ExtremaDynamics(values, sizeX, sizeY, sizeZ, image.getBitDepth(), true, type, conn, conn);
+	}
+
+
+	// ==================================================
+	// Class variables
+
+	int sizeX;
+	int sizeY;
+	int sizeZ;
+	
+	/** The bit depth of the input image, used to compute shifted values. */
+	int bitDepth;
+	
+	/**
+	 * Whether the dynamic is rounded for 8-bit images, as when it is added to
+	 * an 8-bit stack, or truncated, as when it is added to an 8-bit planar
+	 * image.
+	 */
+	boolean roundDynamic;
+	
+	ExtremaType type;
+	
+	/** The connectivity, as specified for the input image. */
+	int connectivity;
+	
+	/** The index of the tree node containing each pixel. */
+	int[] pixelNodes;
+	
+	/** The index of the parent of each node, or -1 for the root. */
+	int[] nodeParents;
+	
+	/** The value of the pixels of each node. */
+	float[] nodeLevels;
+	
+	/** The index of the deepest extremum within each node. */
+	int[] nodeExtrema;
+	
+	/** The value of each regional extremum. */
+	float[] extremumValues;
+	
+	/**
+	 * The level of the node where each regional extremum merges with a deeper
+	 * one, or an infinite value for the deepest extremum.
+	 */
+	float[] extremumMergeLevels;
+	
+	/** The difference between the largest and the smallest values. */
+	float range;
+	
+	
+	// ==================================================
+	// Constructor
+
+	private ExtremaDynamics(float[] values, int sizeX, int sizeY, int sizeZ, int bitDepth, boolean roundDynamic, ExtremaType type, int conn, int conn3d)
+	{
+		this.sizeX = sizeX;
+		this.sizeY = sizeY;
+		this.sizeZ = sizeZ;
+		this.bitDepth = bitDepth;
+		this.roundDynamic = roundDynamic;
+		this.type = type;
+		this.connectivity = conn;
+		
+		computeTree(values, conn3d);
+		computeExtrema();
+	}
+	
+	private void computeTree(float[] values, int conn3d)
+	{
+		int nPixels = values.length;
+		boolean maxima = this.type == ExtremaType.MAXIMA;
+		int[] sorted = sortPixels(values, maxima);
+		
+		float minValue = values[sorted[0]];
+		float maxValue = values[sorted[nPixels - 1]];
+		this.range = Math.abs(maxValue - minValue);
+		
+		// the offsets of the neighbors, restricted to the plane for 2D images
+		int[][] offsets = neighborOffsets(conn3d, this.sizeZ > 1);
+		int nNeighbors = offsets.length;
+		int sliceSize = this.sizeX * this.sizeY;
+		int[] shifts = new int[nNeighbors];
+		for (int n = 0; n < nNeighbors; n++)
+		{
+			shifts[n] = (offsets[n][2] * this.sizeY + offsets[n][1]) * this.sizeX + offsets[n][0];
+		}
+		
+		// process pixels from the deepest to the shallowest, each new pixel
+		// becomes the parent of the components of its processed neighbors.
+		// Union-find uses union by rank, and keeps the last processed pixel
+		// of each component as representative.
+		int[] parents = new int[nPixels];
+		int[] roots = new int[nPixels];
+		int[] reprs = new int[nPixels];
+		byte[] ranks = new byte[nPixels];
+		Arrays.fill(roots, -1);
+		for (int i = 0; i < nPixels; i++)
+		{
+			int p = sorted[i];
+			parents[p] = p;
+			roots[p] = p;
+			reprs[p] = p;
+			int root = p;
+			
+			int z = p / sliceSize;
+			int y = (p % sliceSize) / this.sizeX;
+			int x = p % this.sizeX;
+			boolean border = x == 0 || x == this.sizeX - 1 || y == 0 || y == this.sizeY - 1
+					|| (this.sizeZ > 1 && (z == 0 || z == this.sizeZ - 1));
+			for (int n = 0; n < nNeighbors; n++)
+			{
+				if (border)
+				{
+					int x2 = x + offsets[n][0];
+					int y2 = y + offsets[n][1];
+					int z2 = z + offsets[n][2];
+					if (x2 < 0 || x2 >= this.sizeX || y2 < 0 || y2 >= this.sizeY || z2 < 0 || z2 >= this.sizeZ)
+						continue;
+				}
+				
+				int q = p + shifts[n];
+				if (roots[q] == -1)
+					continue;
+				
+				int r = findRoot(roots, q);
+				if (r != root)
+				{
+					parents[reprs[r]] = p;
+					if (ranks[root] < ranks[r])
+					{
+						int tmp = root;
+						root = r;
+						r = tmp;
+					}
+					roots[r] = root;
+					reprs[root] = p;
+					if (ranks[root] == ranks[r])
+						ranks[root]++;
+				}
+			}
+		}
+		
+		// make the parent of each pixel the canonical pixel of its node,
+		// starting from the root
+		for (int i = nPixels - 1; i >= 0; i--)
+		{
+			int p = sorted[i];
+			int q = parents[p];
+			if (values[parents[q]] == values[q])
+			{
+				parents[p] = parents[q];
+			}
+		}
+		
+		// number the nodes so that children come before parents, reusing the
+		// union-find array to store the node index of canonical pixels
+		int[] nodeIndices = roots;
+		int nNodes = 0;
+		for (int i = 0; i < nPixels; i++)
+		{
+			int p = sorted[i];
+			int q = parents[p];
+			if (q == p || values[q] != values[p])
+			{
+				nodeIndices[p] = nNodes++;
+			}
+		}
+		
+		// compute node parents, and replace pixel parents by node indices
+		this.nodeParents = new int[nNodes];
+		this.nodeLevels = new float[nNodes];
+		for (int p = 0; p < nPixels; p++)
+		{
+			int q = parents[p];
+			if (q == p || values[q] != values[p])
+			{
+				int node = nodeIndices[p];
+				this.nodeParents[node] = q == p ? -1 : nodeIndices[q];
+				this.nodeLevels[node] = values[p];
+				parents[p] = node;
+			}
+			else
+			{
+				parents[p] = nodeIndices[q];
+			}
+		}
+		this.pixelNodes = parents;
+	}
+	
+	private static final int findRoot(int[] roots, int p)
+	{
+		while (roots[p] != p)
+		{
+			// path halving
+			roots[p] = roots[roots[p]];
+			p = roots[p];
+		}
+		return p;
+	}
+	
+	/**
+	 * Associates each node to the deepest extremum it contains, and computes
+	 * the merge level of each extremum using the elder rule.
+	 */
+	private void computeExtrema()
+	{
+		int nNodes = this.nodeParents.length;
+		boolean maxima = this.type == ExtremaType.MAXIMA;
+		
+		this.nodeExtrema = new int[nNodes];
+		Arrays.fill(this.nodeExtrema, -1);
+		float[] values = new float[nNodes];
+		float[] mergeLevels = new float[nNodes];
+		int nExtrema = 0;
+		
+		for (int node = 0; node < nNodes; node++)
+		{
+			// a node without children corresponds to a regional extremum
+			int extremum = this.nodeExtrema[node];
+			if (extremum == -1)
+			{
+				extremum = nExtrema++;
+				values[extremum] = this.nodeLevels[node];
+				this.nodeExtrema[node] = extremum;
+			}
+			
+			int parent = this.nodeParents[node];
+			if (parent == -1)
+			{
+				mergeLevels[extremum] = maxima ? Float.NEGATIVE_INFINITY : Float.POSITIVE_INFINITY;
+				continue;
+			}
+			
+			// keep the deepest extremum within the parent, or the oldest one
+			// in case of equality
+			int other = this.nodeExtrema[parent];
+			if (other == -1)
+			{
+				this.nodeExtrema[parent] = extremum;
+			}
+			else
+			{
+				float v1 = values[extremum];
+				float v2 = values[other];
+				boolean deeper = maxima ? v1 > v2 : v1 < v2;
+				if (deeper || (v1 == v2 && extremum < other))
+				{
+					mergeLevels[other] = this.nodeLevels[parent];
+					this.nodeExtrema[parent] = extremum;
+				}
+				else
+				{
+					mergeLevels[extremum] = this.nodeLevels[parent];
+				}
+			}
+		}
+		
+		this.extremumValues = Arrays.copyOf(values, nExtrema);
+		this.extremumMergeLevels = Arrays.copyOf(mergeLevels, nExtrema);
+	}
+	
+	private int[] sortPixels(float[] values, boolean decreasing)
+	{
+		if (this.bitDepth == 8 || this.bitDepth == 16)
+		{
+			// counting sort over the range of integer values
+			int nBins = this.bitDepth == 8 ? 256 : 65536;
+			int[] starts = new int[nBins + 1];
+			for (float v : values)
+			{
+				starts[binIndex((int) v, nBins, decreasing) + 1]++;
+			}
+			for (int b = 0; b < nBins; b++)
+			{
+				starts[b + 1] += starts[b];
+			}
+			
+			int[] sorted = new int[values.length];
+			for (int p = 0; p < values.length; p++)
+			{
+				sorted[starts[binIndex((int) values[p], nBins, decreasing)]++] = p;
+			}
+			return sorted;
+		}
+		
+		// sort pixel indices together with an integer key that preserves the
+		// order of float values
+		long[] keys = new long[values.length];
+		for (int p = 0; p < values.length; p++)
+		{
+			int bits = Float.floatToIntBits(decreasing ? -values[p] : values[p]);
+			bits ^= (bits >> 31) & 0x7fffffff;
+			keys[p] = ((long) bits << 32) | p;
+		}
+		Arrays.sort(keys);
+		
+		int[] sorted = new int[values.length];
+		for (int i = 0; i < values.length; i++)
+		{
+			sorted[i] = (int) keys[i];
+		}
+		return sorted;
+	}
+	
+	private static final int binIndex(int value, int nBins, boolean decreasing)
+	{
+		return decreasing ? nBins - 1 - value : value;
+	}
+	
+	private static final int[][] neighborOffsets(int conn3d, boolean use3d)
+	{
+		int[][] offsets = new int[26][];
+		int n = 0;
+		for (int dz = -1; dz <= 1; dz++)
+		{
+			if (dz != 0 && !use3d)
+				continue;
+			for (int dy = -1; dy <= 1; dy++)
+			{
+				for (int dx = -1; dx <= 1; dx++)
+				{
+					int norm = Math.abs(dx) + Math.abs(dy) + Math.abs(dz);
+					if (norm == 0 || (conn3d == 6 && norm > 1))
+						continue;
+					offsets[n++] = new int[] {dx, dy, dz};
+				}
+			}
+		}
+		return Arrays.copyOf(offsets, n);
+	}
+	
+	
+	// ==================================================
+	// Accessors
+
+	/**
+	 * @return the type of extrema (minima or maxima)
+	 */
+	public ExtremaType extremaType()
+	{
+		return this.type;
+	}
+	
+	/**
+	 * @return the connectivity used to compute the extrema
+	 */
+	public int connectivity()
+	{
+		return this.connectivity;
+	}
+	
+	/**
+	 * @return the number of regional extrema within the image
+	 */
+	public int extremaCount()
+	{
+		return this.extremumValues.length;
+	}
+	
+	/**
+	 * Returns the dynamic of a regional extremum, computed as the difference
+	 * between its value and the level at which it merges with a deeper
+	 * extremum. The dynamic of the deepest extremum is the difference between
+	 * the largest and the smallest values within the image.
+	 * 
+	 * @param index
+	 *            the index of the regional extremum
+	 * @return the dynamic of the regional extremum
+	 */
+	public double dynamic(int index)
+	{
+		float mergeLevel = this.extremumMergeLevels[index];
+		if (Float.isInfinite(mergeLevel))
+			return this.range;
+		return Math.abs(mergeLevel - this.extremumValues[index]);
+	}
+	
+	
+	// ==================================================
+	// Computation of extended extrema
+
+	/**
+	 * Computes the extended extrema of a planar image for the specified
+	 * dynamic.
+	 * 
+	 * @param dynamic
+	 *            the minimal difference between an extremum and its boundary
+	 * @return a binary image of the extended extrema
+	 */
+	public ImageProcessor extendedExtrema(double dynamic)
+	{
+		return extendedExtremaStack(dynamic).getProcessor(1);
+	}
+
+	/**
+	 * Computes the extended extrema of a 3D image for the specified dynamic.
+	 * 
+	 * @param dynamic
+	 *            the minimal difference between an extremum and its boundary
+	 * @return a binary 3D image of the extended extrema
+	 */
+	public ImageStack extendedExtremaStack(double dynamic)
+	{
+		int[] regions = selectRegions(dynamic);
+		
+		int sliceSize = this.sizeX * this.sizeY;
+		ImageStack result = ImageStack.create(this.sizeX, this.sizeY, this.sizeZ, 8);
+		for (int z = 0; z < this.sizeZ; z++)
+		{
+			byte[] pixels = (byte[]) result.getPixels(z + 1);
+			int offset = z * sliceSize;
+			for (int i = 0; i < sliceSize; i++)
+			{
+				if (regions[this.pixelNodes[offset + i]] != -1)
+					pixels[i] = (byte) 255;
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Computes the extended extrema of a planar image for the specified
+	 * dynamic, and returns them as a label image. Labels are numbered in the
+	 * order of the first pixel of each extended extremum, so that the result
+	 * is the same as the connected components labeling of the binary image
+	 * of extended extrema.
+	 * 
+	 * @param dynamic
+	 *            the minimal difference between an extremum and its boundary
+	 * @param bitDepth
+	 *            the number of bits used to create the result image (8, 16
+	 *            or 32)
+	 * @return a label image of the extended extrema
+	 * @throws RuntimeException
+	 *             if the number of extrema reaches the maximum number that
+	 *             can be represented with this bitDepth
+	 */
+	public ImageProcessor extendedExtremaLabels(double dynamic, int bitDepth)
+	{
+		return extendedExtremaLabelsStack(dynamic, bitDepth).getProcessor(1);
+	}
+	
+	/**
+	 * Computes the extended extrema of a 3D image for the specified dynamic,
+	 * and returns them as a label image. Labels are numbered in the order of
+	 * the first voxel of each extended extremum.
+	 * 
+	 * @param dynamic
+	 *            the minimal difference between an extremum and its boundary
+	 * @param bitDepth
+	 *            the number of bits used to create the result image (8, 16
+	 *            or 32)
+	 * @return a 3D label image of the extended extrema
+	 * @throws RuntimeException
+	 *             if the number of extrema reaches the maximum number that
+	 *             can be represented with this bitDepth
+	 */
+	public ImageStack extendedExtremaLabelsStack(double dynamic, int bitDepth)
+	{
+		int maxLabel;
+		switch (bitDepth)
+		{
+		case 8:
+			maxLabel = 255;
+			break;
+		case 16:
+			maxLabel = 65535;
+			break;
+		case 32:
+			maxLabel = 0x01 << 23;
+			break;
+		default:
+			throw new IllegalArgumentException("Bit Depth should be 8, 16 or 32.");
+		}
+		
+		// each extended extremum corresponds to a region of the tree, and
+		// adjacent pixels of different regions never belong both to extrema
+		int[] regions = selectRegions(dynamic);
+		int[] regionLabels = new int[regions.length];
+		int nLabels = 0;
+		
+		int sliceSize = this.sizeX * this.sizeY;
+		ImageStack result = ImageStack.create(this.sizeX, this.sizeY, this.sizeZ, bitDepth);
+		for (int z = 0; z < this.sizeZ; z++)
+		{
+			ImageProcessor slice = result.getProcessor(z + 1);
+			int offset = z * sliceSize;
+			for (int i = 0; i < sliceSize; i++)
+			{
+				int region = regions[this.pixelNodes[offset + i]];
+				if (region == -1)
+					continue;
+				
+				if (regionLabels[region] == 0)
+				{
+					if (nLabels == maxLabel)
+					{
+						throw new RuntimeException("Max number of label reached (" + maxLabel + ")");
+					}
+					regionLabels[region] = ++nLabels;
+				}
+				slice.setf(i, regionLabels[region]);
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Identifies the nodes of the tree contained within the extended extrema.
+	 * 
+	 * A node belongs to the extended extrema if one of its ancestors (or
+	 * itself) is within the flat zone created by the reconstruction around
+	 * its deepest extremum, and if this extremum merges with a deeper one
+	 * beyond the flat zone.
+	 * 
+	 * @return for each node, the index of the largest selected node
+	 *         containing it, or -1 if the node is not selected
+	 */
+	private int[] selectRegions(double dynamic)
+	{
+		dynamic = integerDynamic(dynamic);
+		boolean maxima = this.type == ExtremaType.MAXIMA;
+		int nNodes = this.nodeParents.length;
+		int[] regions = new int[nNodes];
+		
+		// parents are processed before their children
+		for (int node = nNodes - 1; node >= 0; node--)
+		{
+			int parent = this.nodeParents[node];
+			if (parent != -1 && regions[parent] != -1)
+			{
+				regions[node] = regions[parent];
+				continue;
+			}
+			
+			int extremum = this.nodeExtrema[node];
+			float value = this.extremumValues[extremum];
+			float level = this.nodeLevels[node];
+			float mergeLevel = this.extremumMergeLevels[extremum];
+			boolean selected;
+			if (maxima)
+			{
+				selected = shift(level, dynamic) >= value && shift(mergeLevel, dynamic) < value;
+			}
+			else
+			{
+				float shiftedValue = shift(value, dynamic);
+				selected = shiftedValue >= level && shiftedValue < mergeLevel;
+			}
+			regions[node] = selected ? node : -1;
+		}
+		
+		return regions;
+	}
+	
+	/**
+	 * Converts the dynamic to the value actually added to the pixels of an
+	 * integer image. Values added to 8-bit stacks are rounded to the nearest
+	 * integer, whereas values added to 8-bit planar images and to 16-bit
+	 * images are truncated.
+	 */
+	private double integerDynamic(double dynamic)
+	{
+		if (this.bitDepth == 8 && this.roundDynamic)
+			return Math.floor(dynamic + 0.5);
+		if (this.bitDepth == 8 || this.bitDepth == 16)
+			return Math.floor(dynamic);
+		return dynamic;
+	}
+	
+	/**
+	 * Adds the integer dynamic to a value, using the same clamping as when
+	 * the dynamic is added to an image with the bit depth of the input image.
+	 */
+	private float shift(float value, double dynamic)
+	{
+		if (this.bitDepth == 8)
+			return (float) Math.min(value + dynamic, 255);
+		if (this.bitDepth == 16)
+			return (float) Math.min(value + dynamic, 65535);
+		return (float) (value + dynamic);
+	}
+	
+	
+	// ==================================================
+	// Dynamics map
+
+	/**
+	 * Computes the dynamics map of a planar image. The pixels of each
+	 * regional extremum are given the dynamic of the extremum, and other
+	 * pixels are set to zero.
+	 * 
+	 * @return the dynamics map of the image
+	 */
+	public ImageProcessor dynamicsMap()
+	{
+		return dynamicsMapStack().getProcessor(1);
+	}
+
+	/**
+	 * Computes the dynamics map of a 3D image. The voxels of each regional
+	 * extremum are given the dynamic of the extremum, and other voxels are
+	 * set to zero.
+	 * 
+	 * @return the dynamics map of the image
+	 */
+	public ImageStack dynamicsMapStack()
+	{
+		int nExtrema = this.extremumValues.length;
+		float[] dynamics = new float[nExtrema];
+		for (int i = 0; i < nExtrema; i++)
+		{
+			dynamics[i] = (float) dynamic(i);
+		}
+		
+		int sliceSize = this.sizeX * this.sizeY;
+		ImageStack result = ImageStack.create(this.sizeX, this.sizeY, this.sizeZ, 32);
+		for (int z = 0; z < this.sizeZ; z++)
+		{
+			float[] pixels = (float[]) result.getPixels(z + 1);
+			int offset = z * sliceSize;
+			for (int i = 0; i < sliceSize; i++)
+			{
+				int node = this.pixelNodes[offset + i];
+				int extremum = this.nodeExtrema[node];
+				
+				// nodes of regional extrema have the value of their extremum
+				if (this.nodeLevels[node] == this.extremumValues[extremum])
+					pixels[i] = dynamics[extremum];
+			}
+		}
+		return result;
+	}
+}
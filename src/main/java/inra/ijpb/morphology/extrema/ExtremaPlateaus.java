@@ -0,0 +1,242 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.morphology.extrema;
+
+import ij.ImageStack;
+import ij.process.ImageProcessor;
+
+/**
+ * Identifies the plateaus of a 2D or 3D image that correspond to regional
+ * extrema, using a union-find structure over pixel indices.
+ * 
+ * The image is scanned once. Each pixel is merged with its previous
+ * neighbors with the same value, and pixels with a deeper neighbor are
+ * marked. The marks are then propagated to the root of each plateau, that
+ * is not an extremum if one of its pixels is marked. The root of each plateau is its
+ * first pixel in raster order, so that labels can be numbered in the same
+ * order as connected components labeling.
+ * 
+ * @see RegionalExtremaByUnionFind
+ * @see RegionalExtrema3DByUnionFind
+ * 
+ * @author agent
+ *
+ */
+final class ExtremaPlateaus
+{
+	/**
+	 * For each pixel, the index of the first pixel of its plateau, or -1 if
+	 * the pixel is outside the mask.
+	 */
+	final int[] roots;
+	
+	/**
+	 * For each root pixel, true if the plateau is not an extremum. During the
+	 * scan, true for the pixels with a deeper neighbor.
+	 */
+	final boolean[] notExtremum;
+	
+	/**
+	 * Computes the plateaus of a 3D image, and identifies the ones that are
+	 * regional extrema.
+	 * 
+	 * @param image
+	 *            the 3D image to process
+	 * @param mask
+	 *            an optional binary mask restricting the domain, or null
+	 * @param type
+	 *            the type of extrema to identify
+	 * @param conn
+	 *            the connectivity, either 4 or 8 for planar images, or 6 or
+	 *            26 for 3D images
+	 */
+	ExtremaPlateaus(ImageStack image, ImageStack mask, ExtremaType type, int conn)
+	{
+		int sizeX = image.getWidth();
+		int sizeY = image.getHeight();
+		int sizeZ = image.getSize();
+		int sliceSize = sizeX * sizeY;
+		
+		// copy values, with opposite sign for maxima
+		float sign = type == ExtremaType.MINIMA ? 1 : -1;
+		float[] values = new float[sliceSize * sizeZ];
+		this.roots = new int[sliceSize * sizeZ];
+		for (int z = 0; z < sizeZ; z++)
+		{
+			ImageProcessor slice = image.getProcessor(z + 1);
+			ImageProcessor maskSlice = mask != null ? mask.getProcessor(z + 1) : null;
+			int offset = z * sliceSize;
+			for (int i = 0; i < sliceSize; i++)
+			{
+				values[offset + i] = slice.getf(i) * sign;
+				if (maskSlice != null && maskSlice.getf(i) == 0)
+					this.roots[offset + i] = -1;
+			}
+		}
+		this.notExtremum = new boolean[sliceSize * sizeZ];
+		
+		// offsets of the neighbors that precede a pixel in raster order
+		int[][] offsets = previousNeighbors(conn);
+		int nNeighbors = offsets.length;
+		int[] shifts = new int[nNeighbors];
+		for (int n = 0; n < nNeighbors; n++)
+		{
+			shifts[n] = (offsets[n][2] * sizeY + offsets[n][1]) * sizeX + offsets[n][0];
+		}
+		
+		for (int z = 0; z < sizeZ; z++)
+		{
+			for (int y = 0; y < sizeY; y++)
+			{
+				for (int x = 0; x < sizeX; x++)
+				{
+					int p = (z * sizeY + y) * sizeX + x;
+					if (this.roots[p] == -1)
+						continue;
+					this.roots[p] = p;
+					float value = values[p];
+					
+					boolean border = x == 0 || x == sizeX - 1 || y == 0 || y == sizeY - 1 || z == 0;
+					for (int n = 0; n < nNeighbors; n++)
+					{
+						if (border)
+						{
+							int x2 = x + offsets[n][0];
+							int y2 = y + offsets[n][1];
+							int z2 = z + offsets[n][2];
+							if (x2 < 0 || x2 >= sizeX || y2 < 0 || y2 >= sizeY || z2 < 0)
+								continue;
+						}
+						
+						int q = p + shifts[n];
+						if (this.roots[q] == -1)
+							continue;
+						
+						float value2 = values[q];
+						if (value2 == value)
+						{
+							union(p, q);
+						}
+						else if (value2 < value)
+						{
+							this.notExtremum[p] = true;
+						}
+						else
+						{
+							this.notExtremum[q] = true;
+						}
+					}
+				}
+			}
+		}
+		
+		// make each pixel point to the root of its plateau, and propagate the
+		// status of pixels with a deeper neighbor to the root
+		for (int p = 0; p < this.roots.length; p++)
+		{
+			if (this.roots[p] == -1)
+				continue;
+			int root = this.roots[this.roots[p]];
+			this.roots[p] = root;
+			this.notExtremum[root] |= this.notExtremum[p];
+		}
+	}
+	
+	private int findRoot(int p)
+	{
+		while (this.roots[p] != p)
+		{
+			// path halving
+			this.roots[p] = this.roots[this.roots[p]];
+			p = this.roots[p];
+		}
+		return p;
+	}
+	
+	/**
+	 * Merges the plateaus of the two pixels, keeping the smallest index as
+	 * root.
+	 */
+	private void union(int p, int q)
+	{
+		int root1 = findRoot(p);
+		int root2 = findRoot(q);
+		if (root1 == root2)
+			return;
+		
+		if (root2 < root1)
+		{
+			int tmp = root1;
+			root1 = root2;
+			root2 = tmp;
+		}
+		this.roots[root2] = root1;
+	}
+	
+	/**
+	 * Returns true if the specified pixel belongs to a regional extremum.
+	 * 
+	 * @param p
+	 *            the index of the pixel
+	 * @return true if the pixel belongs to a regional extremum
+	 */
+	boolean isExtremum(int p)
+	{
+		int root = this.roots[p];
+		return root != -1 && !this.notExtremum[root];
+	}
+	
+	/**
+	 * Returns the offsets of the neighbors that precede a pixel in raster
+	 * order, for the specified connectivity.
+	 */
+	private static final int[][] previousNeighbors(int conn)
+	{
+		switch (conn)
+		{
+		case 4:
+			return new int[][] {{-1, 0, 0}, {0, -1, 0}};
+		case 8:
+			return new int[][] {{-1, 0, 0}, {-1, -1, 0}, {0, -1, 0}, {1, -1, 0}};
+		case 6:
+			return new int[][] {{-1, 0, 0}, {0, -1, 0}, {0, 0, -1}};
+		case 26:
+			int[][] offsets = new int[13][];
+			int n = 0;
+			for (int dz = -1; dz <= 0; dz++)
+			{
+				for (int dy = -1; dy <= 1; dy++)
+				{
+					for (int dx = -1; dx <= 1; dx++)
+					{
+						if (dz == 0 && (dy > 0 || (dy == 0 && dx >= 0)))
+							continue;
+						offsets[n++] = new int[] {dx, dy, dz};
+					}
+				}
+			}
+			return offsets;
+		default:
+			throw new IllegalArgumentException("Connectivity must be 4, 8, 6 or 26, not " + conn);
+		}
+	}
+}
@@ -0,0 +1,210 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.morphology.extrema;
+
+import ij.ImageStack;
+import ij.process.ImageProcessor;
+
+/**
+ * Computes regional extrema in 3D images using a union-find structure. The
+ * image is scanned once, plateaus are built by merging neighbor voxels with
+ * the same value, and plateaus adjacent to a deeper voxel are discarded. This
+ * class manages 6 and 26 connectivities, and 8-, 16- or 32-bit images.
+ * 
+ * The regional extrema can also be returned as a label image, avoiding to
+ * compute the connected components of the binary result. Labels are
+ * numbered in the order of the first voxel of each extremum, as for
+ * connected components labeling.
+ * 
+ * Example of use:
+ * <pre><code>
+ * ImageStack image = IJ.getImage().getStack();
+ * RegionalExtrema3DByUnionFind algo = new RegionalExtrema3DByUnionFind(); 
+ * algo.setExtremaType(ExtremaType.MINIMA);
+ * algo.setConnectivity(6);
+ * ImageStack labels = algo.labelExtrema(image, 32);
+ * ImagePlus resPlus = new ImagePlus("Regional Minima", labels); 
+ * resPlus.show(); 
+ * </code></pre>
+ *
+ * @see RegionalExtrema3DByFlooding
+ * @see RegionalExtremaByUnionFind
+ * 
+ * @author agent
+ */
+public class RegionalExtrema3DByUnionFind extends RegionalExtrema3DAlgo
+{
+	/**
+	 * Creates a new algorithm for computing regional minima with
+	 * connectivity 6.
+	 */
+	public RegionalExtrema3DByUnionFind()
+	{
+	}
+	
+	/**
+	 * Creates a new algorithm for computing regional extrema, by choosing type
+	 * of minima and connectivity.
+	 * 
+	 * @param extremaType
+	 *            the type of extrema (minima or maxima)
+	 * @param connectivity
+	 *            should be 6 or 26
+	 */
+	public RegionalExtrema3DByUnionFind(ExtremaType extremaType, int connectivity)
+	{
+		super(extremaType, connectivity);
+	}
+
+	@Override
+	public ImageStack applyTo(ImageStack inputImage)
+	{
+		return binaryImage(computePlateaus(inputImage, null), inputImage);
+	}
+
+	/**
+	 * Computes the regional extrema within the non-zero voxels of the mask.
+	 * Voxels outside of the mask are not considered as neighbors, and are set
+	 * to zero in the result.
+	 * 
+	 * @param inputImage
+	 *            the 3D image to process
+	 * @param maskImage
+	 *            a binary mask
+	 * @return the result of regional extrema detection
+	 */
+	@Override
+	public ImageStack applyTo(ImageStack inputImage, ImageStack maskImage)
+	{
+		return binaryImage(computePlateaus(inputImage, maskImage), inputImage);
+	}
+	
+	/**
+	 * Computes the regional extrema of the 3D image given as argument, and
+	 * returns them as a label image.
+	 * 
+	 * @param inputImage
+	 *            the 3D image to process
+	 * @param bitDepth
+	 *            the number of bits used to create the result image (8, 16
+	 *            or 32)
+	 * @return a label image of the regional extrema
+	 * @throws RuntimeException
+	 *             if the number of extrema reaches the maximum number that
+	 *             can be represented with this bitDepth
+	 */
+	public ImageStack labelExtrema(ImageStack inputImage, int bitDepth)
+	{
+		int maxLabel;
+		switch (bitDepth)
+		{
+		case 8:
+			maxLabel = 255;
+			break;
+		case 16:
+			maxLabel = 65535;
+			break;
+		case 32:
+			maxLabel = 0x01 << 23;
+			break;
+		default:
+			throw new IllegalArgumentException("Bit Depth should be 8, 16 or 32.");
+		}
+		
+		ExtremaPlateaus plateaus = computePlateaus(inputImage, null);
+		
+		fireStatusChanged(this, "Label regional extrema");
+		int sizeX = inputImage.getWidth();
+		int sizeY = inputImage.getHeight();
+		int sizeZ = inputImage.getSize();
+		int sliceSize = sizeX * sizeY;
+		ImageStack labels = ImageStack.create(sizeX, sizeY, sizeZ, bitDepth);
+		ImageProcessor[] slices = new ImageProcessor[sizeZ];
+		for (int z = 0; z < sizeZ; z++)
+		{
+			slices[z] = labels.getProcessor(z + 1);
+		}
+		
+		// roots precede the other voxels of their plateau
+		int nLabels = 0;
+		for (int z = 0; z < sizeZ; z++)
+		{
+			ImageProcessor slice = slices[z];
+			for (int i = 0; i < sliceSize; i++)
+			{
+				int p = z * sliceSize + i;
+				if (!plateaus.isExtremum(p))
+					continue;
+				
+				int root = plateaus.roots[p];
+				if (root == p)
+				{
+					if (nLabels == maxLabel)
+					{
+						throw new RuntimeException("Max number of label reached (" + maxLabel + ")");
+					}
+					slice.setf(i, ++nLabels);
+				}
+				else
+				{
+					slice.setf(i, slices[root / sliceSize].getf(root % sliceSize));
+				}
+			}
+		}
+		
+		fireStatusChanged(this, "");
+		return labels;
+	}
+	
+	private ExtremaPlateaus computePlateaus(ImageStack image, ImageStack mask)
+	{
+		if (this.connectivity != 6 && this.connectivity != 26)
+		{
+			throw new IllegalArgumentException("Connectivity must be either 6 or 26, not " + this.connectivity);
+		}
+		
+		fireStatusChanged(this, "Compute regional extrema");
+		return new ExtremaPlateaus(image, mask, this.extremaType, this.connectivity);
+	}
+	
+	private ImageStack binaryImage(ExtremaPlateaus plateaus, ImageStack image)
+	{
+		int sizeX = image.getWidth();
+		int sizeY = image.getHeight();
+		int sizeZ = image.getSize();
+		int sliceSize = sizeX * sizeY;
+		
+		ImageStack result = ImageStack.create(sizeX, sizeY, sizeZ, 8);
+		for (int z = 0; z < sizeZ; z++)
+		{
+			byte[] pixels = (byte[]) result.getPixels(z + 1);
+			for (int i = 0; i < sliceSize; i++)
+			{
+				if (plateaus.isExtremum(z * sliceSize + i))
+					pixels[i] = (byte) 255;
+			}
+		}
+		
+		fireStatusChanged(this, "");
+		return result;
+	}
+}
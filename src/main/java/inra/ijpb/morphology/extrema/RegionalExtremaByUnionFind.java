@@ -0,0 +1,174 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.morphology.extrema;
+
+import ij.ImageStack;
+import ij.process.ByteProcessor;
+import ij.process.FloatProcessor;
+import ij.process.ImageProcessor;
+import ij.process.ShortProcessor;
+
+/**
+ * Computes regional extrema in planar images using a union-find structure.
+ * The image is scanned once, plateaus are built by merging neighbor pixels
+ * with the same value, and plateaus adjacent to a deeper pixel are discarded.
+ * This class manages 4 and 8 connectivities, and 8-, 16- or 32-bit images.
+ * 
+ * The regional extrema can also be returned as a label image, avoiding to
+ * compute the connected components of the binary result. Labels are
+ * numbered in the order of the first pixel of each extremum, as for
+ * connected components labeling.
+ *
+ * Example of use:
+ * <pre><code>
+ * ImageProcessor image = IJ.getImage().getProcessor();
+ * RegionalExtremaByUnionFind algo = new RegionalExtremaByUnionFind(); 
+ * algo.setExtremaType(ExtremaType.MINIMA);
+ * algo.setConnectivity(4);
+ * ImageProcessor labels = algo.labelExtrema(image, 16);
+ * ImagePlus resPlus = new ImagePlus("Regional Minima", labels); 
+ * resPlus.show(); 
+ * </code></pre>
+ * 
+ * @see RegionalExtremaByFlooding
+ * @see RegionalExtrema3DByUnionFind
+ * 
+ * @author agent
+ */
+public class RegionalExtremaByUnionFind extends RegionalExtremaAlgo
+{
+	/**
+	 * Creates a new algorithm for computing regional minima with
+	 * connectivity 4.
+	 */
+	public RegionalExtremaByUnionFind()
+	{
+	}
+	
+	/**
+	 * Creates a new algorithm for computing regional extrema, by choosing type
+	 * of minima and connectivity.
+	 * 
+	 * @param extremaType
+	 *            the type of extrema (minima or maxima)
+	 * @param connectivity
+	 *            should be 4 or 8
+	 */
+	public RegionalExtremaByUnionFind(ExtremaType extremaType, int connectivity)
+	{
+		super(extremaType, connectivity);
+	}
+
+	@Override
+	public ImageProcessor applyTo(ImageProcessor inputImage)
+	{
+		ExtremaPlateaus plateaus = computePlateaus(inputImage);
+		
+		int sizeX = inputImage.getWidth();
+		int sizeY = inputImage.getHeight();
+		ImageProcessor result = new ByteProcessor(sizeX, sizeY);
+		for (int i = 0; i < sizeX * sizeY; i++)
+		{
+			if (plateaus.isExtremum(i))
+				result.set(i, 255);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Computes the regional extrema of the image given as argument, and
+	 * returns them as a label image.
+	 * 
+	 * @param inputImage
+	 *            the image to process
+	 * @param bitDepth
+	 *            the number of bits used to create the result image (8, 16
+	 *            or 32)
+	 * @return a label image of the regional extrema
+	 * @throws RuntimeException
+	 *             if the number of extrema reaches the maximum number that
+	 *             can be represented with this bitDepth
+	 */
+	public ImageProcessor labelExtrema(ImageProcessor inputImage, int bitDepth)
+	{
+		ExtremaPlateaus plateaus = computePlateaus(inputImage);
+		
+		int sizeX = inputImage.getWidth();
+		int sizeY = inputImage.getHeight();
+		ImageProcessor labels;
+		int maxLabel;
+		switch (bitDepth)
+		{
+		case 8:
+			labels = new ByteProcessor(sizeX, sizeY);
+			maxLabel = 255;
+			break;
+		case 16:
+			labels = new ShortProcessor(sizeX, sizeY);
+			maxLabel = 65535;
+			break;
+		case 32:
+			labels = new FloatProcessor(sizeX, sizeY);
+			maxLabel = 0x01 << 23;
+			break;
+		default:
+			throw new IllegalArgumentException("Bit Depth should be 8, 16 or 32.");
+		}
+		
+		// roots precede the other pixels of their plateau
+		int nLabels = 0;
+		for (int i = 0; i < sizeX * sizeY; i++)
+		{
+			if (!plateaus.isExtremum(i))
+				continue;
+			
+			int root = plateaus.roots[i];
+			if (root == i)
+			{
+				if (nLabels == maxLabel)
+				{
+					throw new RuntimeException("Max number of label reached (" + maxLabel + ")");
+				}
+				labels.setf(i, ++nLabels);
+			}
+			else
+			{
+				labels.setf(i, labels.getf(root));
+			}
+		}
+		
+		return labels;
+	}
+	
+	private ExtremaPlateaus computePlateaus(ImageProcessor image)
+	{
+		if (this.connectivity != 4 && this.connectivity != 8)
+		{
+			throw new IllegalArgumentException("Connectivity must be either 4 or 8, not " + this.connectivity);
+		}
+		
+		ImageStack stack = new ImageStack(image.getWidth(), image.getHeight());
+		stack.addSlice(image);
+		return new ExtremaPlateaus(stack, null, this.extremaType, this.connectivity);
+	}
+}
@@ -24,12 +24,9 @@ package inra.ijpb.morphology.geodrec;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
 import ij.ImageStack;
-import inra.ijpb.data.Cursor3D;
+import inra.ijpb.data.IntQueue;
 import inra.ijpb.data.image.Images3D;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
-
 
 /**
  * <p>
@@ -75,8 +72,11 @@ public class GeodesicReconstruction3DHybrid0Gray16 extends GeodesicReconstructio
 	/** image depth */
 	int sizeZ = 0;
 
-	/** the queue containing the positions that need update */
-	Deque<Cursor3D> queue;
+	/**
+	 * the queue containing the positions that need update, stored as pairs
+	 * of slice index and linear index within slice
+	 */
+	IntQueue queue;
 	
 	/**
 	 * Creates a new instance of geodesic reconstruction by dilation algorithm,
@@ -178,7 +178,7 @@ public class GeodesicReconstruction3DHybrid0Gray16 extends GeodesicReconstructio
 							+ connectivity);
 		}
 
-		queue = new ArrayDeque<Cursor3D>();
+		queue = new IntQueue();
 		
 		long t0 = System.currentTimeMillis();
 		trace("Initialize result ");
@@ -598,12 +598,11 @@ public class GeodesicReconstruction3DHybrid0Gray16 extends GeodesicReconstructio
 		
 		while (!queue.isEmpty()) 
 		{
-			Cursor3D p = queue.removeFirst();
-			int x = p.getX();
-			int y = p.getY();
-			int z = p.getZ();
+			int z = queue.removeFirst();
+			int index = queue.removeFirst();
+			int x = index % sizeX;
+			int y = index / sizeX;
 			short[] slice = resultSlices[z];
-			int index = y * sizeX + x;
 			value = (slice[index] & 0x00FFFF) * sign;
 			
 			// compare with each one of the neighbors
@@ -661,12 +660,11 @@ public class GeodesicReconstruction3DHybrid0Gray16 extends GeodesicReconstructio
 		
 		while (!queue.isEmpty()) 
 		{
-			Cursor3D p = queue.removeFirst();
-			int x = p.getX();
-			int y = p.getY();
-			int z = p.getZ();
+			int z = queue.removeFirst();
+			int index = queue.removeFirst();
+			int x = index % sizeX;
+			int y = index / sizeX;
 			short[] slice = resultSlices[z];
-			int index = y * sizeX + x;
 			value = (slice[index] & 0x00FFFF) * sign;
 			
 			// compute bounds of neighborhood
@@ -735,8 +733,8 @@ public class GeodesicReconstruction3DHybrid0Gray16 extends GeodesicReconstructio
 		int resultValue = (resultSlices[k][sizeX * j + i] & 0x00FFFF) * sign; 
 		if (value > resultValue) 
 		{
-			Cursor3D position = new Cursor3D(i, j, k);
-			queue.add(position);
+			queue.add(k);
+			queue.add(sizeX * j + i);
 		}
 	}
 
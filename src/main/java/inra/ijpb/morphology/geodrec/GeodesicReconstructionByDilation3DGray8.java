@@ -24,9 +24,9 @@ package inra.ijpb.morphology.geodrec;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
 import ij.ImageStack;
+import inra.ijpb.data.IntQueue;
 import inra.ijpb.data.image.Images3D;
 
-import java.util.LinkedList;
 
 
 /**
@@ -50,7 +50,7 @@ public class GeodesicReconstructionByDilation3DGray8 extends GeodesicReconstruct
 	/** image depth */
 	int size3 = 0;
 
-	LinkedList<int[]> queue;
+	IntQueue queue;
 	
 	/**
 	 * The flag indicating whether the result image has been modified during
@@ -610,7 +610,7 @@ public class GeodesicReconstructionByDilation3DGray8 extends GeodesicReconstruct
 		byte[] slice2;
 		byte[] maskSlice;
 
-		this.queue = new LinkedList<int[]>();
+		this.queue = new IntQueue();
 
 		// Iterate over pixels
 		for (int z = 0; z < size3; z++)
@@ -678,8 +678,8 @@ public class GeodesicReconstructionByDilation3DGray8 extends GeodesicReconstruct
 								if (neighborValue < maxValue
 										&& neighborValue < maskValue)
 								{
-									int[] pos = {x2, y2, z2};
-									queue.addLast(pos);
+									queue.add(z2);
+									queue.add(y2 * size1 + x2);
 								}
 							}
 						}
@@ -856,7 +856,7 @@ public class GeodesicReconstructionByDilation3DGray8 extends GeodesicReconstruct
 		byte[] slice2;
 		byte[] maskSlice;
 
-		this.queue = new LinkedList<int[]>();
+		this.queue = new IntQueue();
 
 		// Iterate over voxels
 		for (int z = size3 - 1; z >= 0; z--)
@@ -930,8 +930,8 @@ public class GeodesicReconstructionByDilation3DGray8 extends GeodesicReconstruct
 								int maskValue = maskSlice[index] & 0x00FF;
 								if (neighborValue < maxValue && neighborValue < maskValue)
 								{
-									int[] pos = {x2, y2, z2};
-									queue.addLast(pos);
+									queue.add(z2);
+									queue.add(y2 * size1 + x2);
 								}
 							}
 						}
@@ -950,7 +950,7 @@ public class GeodesicReconstructionByDilation3DGray8 extends GeodesicReconstruct
 		byte[] slice2;
 		byte[] maskSlice;
 
-		int total = this.queue.size();
+		int total = this.queue.size() / 2;
 		int iter = 1;
 
 		// iterate until queue is empty
@@ -959,10 +959,10 @@ public class GeodesicReconstructionByDilation3DGray8 extends GeodesicReconstruct
 			showProgress(iter, total);
 			trace("iter " + (iter++) + " over " + total);
 			
-			int[] p = this.queue.pollFirst();
-			int x = p[0];
-			int y = p[1];
-			int z = p[2];
+			int z = this.queue.removeFirst();
+			int pos = this.queue.removeFirst();
+			int x = pos % size1;
+			int y = pos / size1;
 
 			slice = (byte[]) stack[z];
 			maskSlice = (byte[]) maskStack[z];
@@ -1013,8 +1013,8 @@ public class GeodesicReconstructionByDilation3DGray8 extends GeodesicReconstruct
 
 						if (value < maxValue && value < maskValue)
 						{
-							int[] pos = { x2, y2, z2 };
-							queue.addLast(pos);
+							queue.add(z2);
+							queue.add(y2 * size1 + x2);
 							total++;
 						}
 					}
@@ -1033,7 +1033,7 @@ public class GeodesicReconstructionByDilation3DGray8 extends GeodesicReconstruct
 		byte[] slice2;
 		byte[] maskSlice;
 
-		int total = this.queue.size();
+		int total = this.queue.size() / 2;
 		int iter = 1;
 
 		// iterate until queue is empty
@@ -1042,10 +1042,10 @@ public class GeodesicReconstructionByDilation3DGray8 extends GeodesicReconstruct
 			showProgress(iter, total);
 			trace("iter " + (iter++) + " over " + total);
 			
-			int[] p = this.queue.pollFirst();
-			int x = p[0];
-			int y = p[1];
-			int z = p[2];
+			int z = this.queue.removeFirst();
+			int pos = this.queue.removeFirst();
+			int x = pos % size1;
+			int y = pos / size1;
 			
 			if ( binaryMask.getVoxel(x, y, z) == 0 )
 				continue;
@@ -1099,8 +1099,8 @@ public class GeodesicReconstructionByDilation3DGray8 extends GeodesicReconstruct
 
 						if (value < maxValue && value < maskValue)
 						{
-							int[] pos = {x2, y2, z2};
-							queue.addLast(pos);
+							queue.add(z2);
+							queue.add(y2 * size1 + x2);
 							total++;
 						}
 					}
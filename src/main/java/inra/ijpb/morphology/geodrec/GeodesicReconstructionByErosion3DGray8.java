@@ -24,9 +24,9 @@ package inra.ijpb.morphology.geodrec;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
 import ij.ImageStack;
+import inra.ijpb.data.IntQueue;
 import inra.ijpb.data.image.Images3D;
 
-import java.util.LinkedList;
 
 
 /**
@@ -50,7 +50,7 @@ public class GeodesicReconstructionByErosion3DGray8 extends GeodesicReconstructi
 	/** image depth */
 	int size3 = 0;
 
-	LinkedList<int[]> queue;
+	IntQueue queue;
 	
 	/**
 	 * The flag indicating whether the result image has been modified during
@@ -580,7 +580,7 @@ public class GeodesicReconstructionByErosion3DGray8 extends GeodesicReconstructi
 		byte[] slice2;
 		byte[] maskSlice;
 		
-		this.queue = new LinkedList<int[]>();
+		this.queue = new IntQueue();
 		
 		// Iterate over pixels
 		for (int z = 0; z < size3; z++) 
@@ -646,8 +646,8 @@ public class GeodesicReconstructionByErosion3DGray8 extends GeodesicReconstructi
 								int maskValue = maskSlice[index] & 0x00FF;
 								if (neighborValue > minValue && neighborValue > maskValue) 
 								{
-									int[] pos = {x2, y2, z2};
-									queue.addLast(pos);
+									queue.add(z2);
+									queue.add(y2 * size1 + x2);
 								}
 							}
 						}
@@ -673,7 +673,7 @@ public class GeodesicReconstructionByErosion3DGray8 extends GeodesicReconstructi
 		byte[] slice2;
 		byte[] maskSlice;
 		
-		this.queue = new LinkedList<int[]>();
+		this.queue = new IntQueue();
 		
 		// Iterate over pixels
 		for (int z = 0; z < size3; z++) 
@@ -741,8 +741,8 @@ public class GeodesicReconstructionByErosion3DGray8 extends GeodesicReconstructi
 									int maskValue = maskSlice[index] & 0x00FF;
 									if (neighborValue > minValue && neighborValue > maskValue) 
 									{
-										int[] pos = {x2, y2, z2};
-										queue.addLast(pos);
+										queue.add(z2);
+										queue.add(y2 * size1 + x2);
 									}
 								}
 							}
@@ -893,7 +893,7 @@ public class GeodesicReconstructionByErosion3DGray8 extends GeodesicReconstructi
 //			IJ.showProgress(0, size3);
 //		}
 //
-//		this.queue = new LinkedList<int[]>();
+//		this.queue = new IntQueue();
 //
 //		// Iterate over voxels
 //		for (int z = size3 - 1; z >= 0; z--) {
@@ -976,7 +976,7 @@ public class GeodesicReconstructionByErosion3DGray8 extends GeodesicReconstructi
 		byte[] slice2;
 		byte[] maskSlice;
 
-		int total = this.queue.size();
+		int total = this.queue.size() / 2;
 		int iter = 1;
 
 		// iterate until queue is empty
@@ -984,10 +984,10 @@ public class GeodesicReconstructionByErosion3DGray8 extends GeodesicReconstructi
 			showProgress(iter, total);
 			trace("iter " + (iter++) + " over " + total);
 			
-			int[] p = this.queue.pollFirst();
-			int x = p[0];
-			int y = p[1];
-			int z = p[2];
+			int z = this.queue.removeFirst();
+			int pos = this.queue.removeFirst();
+			int x = pos % size1;
+			int y = pos / size1;
 
 			slice = (byte[]) stack[z];
 			maskSlice = (byte[]) maskStack[z];
@@ -1037,8 +1037,8 @@ public class GeodesicReconstructionByErosion3DGray8 extends GeodesicReconstructi
 						
 						if (value > minValue && value > maskValue) 
 						{
-							int[] pos = {x2, y2, z2};
-							queue.addLast(pos);
+							queue.add(z2);
+							queue.add(y2 * size1 + x2);
 							total++;
 						}
 					}
@@ -1057,7 +1057,7 @@ public class GeodesicReconstructionByErosion3DGray8 extends GeodesicReconstructi
 		byte[] slice2;
 		byte[] maskSlice;
 
-		int total = this.queue.size();
+		int total = this.queue.size() / 2;
 		int iter = 1;
 
 		// iterate until queue is empty
@@ -1066,10 +1066,10 @@ public class GeodesicReconstructionByErosion3DGray8 extends GeodesicReconstructi
 			showProgress(iter, total);
 			trace("iter " + (iter++) + " over " + total);
 			
-			int[] p = this.queue.pollFirst();
-			int x = p[0];
-			int y = p[1];
-			int z = p[2];
+			int z = this.queue.removeFirst();
+			int pos = this.queue.removeFirst();
+			int x = pos % size1;
+			int y = pos / size1;
 			
 			if( binaryMask.getVoxel(x, y, z) == 0 )
 				continue;
@@ -1122,8 +1122,8 @@ public class GeodesicReconstructionByErosion3DGray8 extends GeodesicReconstructi
 						
 						if (value > minValue && value > maskValue)
 						{
-							int[] pos = {x2, y2, z2};
-							queue.addLast(pos);
+							queue.add(z2);
+							queue.add(y2 * size1 + x2);
 							total++;
 						}
 					}
@@ -1202,7 +1202,7 @@ public class GeodesicReconstructionByErosion3DGray8 extends GeodesicReconstructi
 		//		} while (modif);
 
 		forwardDilationC26InitQueue( binaryMask ); 
-		trace("queue size: " + this.queue.size());
+		trace("queue size: " + this.queue.size() / 2);
 
 		processQueueC26( binaryMask );
 
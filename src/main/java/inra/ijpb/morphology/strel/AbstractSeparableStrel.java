@@ -155,6 +155,8 @@ implements SeparableStrel, AlgoListener
 	private void runDilation(ImageProcessor image, InPlaceStrel strel)
 	{
 		strel.showProgress(this.showProgress());
+		if (strel instanceof AbstractStrel3D)
+			((AbstractStrel3D) strel).setThreadCount(this.getThreadCount());
 		strel.addAlgoListener(this);
 		strel.inPlaceDilation(image);
 		strel.removeAlgoListener(this);
@@ -163,6 +165,8 @@ implements SeparableStrel, AlgoListener
 	private void runErosion(ImageProcessor image, InPlaceStrel strel) 
 	{
 		strel.showProgress(this.showProgress());
+		if (strel instanceof AbstractStrel3D)
+			((AbstractStrel3D) strel).setThreadCount(this.getThreadCount());
 		strel.addAlgoListener(this);
 		strel.inPlaceErosion(image);
 		strel.removeAlgoListener(this);
@@ -149,6 +149,8 @@ public abstract class AbstractSeparableStrel3D extends AbstractStrel3D
 	private void runDilation(ImageStack image, InPlaceStrel3D strel) 
 	{
 		strel.showProgress(this.showProgress());
+		if (strel instanceof AbstractStrel3D)
+			((AbstractStrel3D) strel).setThreadCount(this.getThreadCount());
 		strel.addAlgoListener(this);
 		strel.inPlaceDilation(image);
 		strel.removeAlgoListener(this);
@@ -157,6 +159,8 @@ public abstract class AbstractSeparableStrel3D extends AbstractStrel3D
 	private void runErosion(ImageStack image, InPlaceStrel3D strel) 
 	{
 		strel.showProgress(this.showProgress());
+		if (strel instanceof AbstractStrel3D)
+			((AbstractStrel3D) strel).setThreadCount(this.getThreadCount());
 		strel.addAlgoListener(this);
 		strel.inPlaceErosion(image);
 		strel.removeAlgoListener(this);
@@ -22,6 +22,7 @@
 package inra.ijpb.morphology.strel;
 
 import ij.ImageStack;
+import ij.Prefs;
 import inra.ijpb.algo.AlgoStub;
 import inra.ijpb.algo.AlgoEvent;
 import inra.ijpb.morphology.Strel3D;
@@ -43,6 +44,12 @@ public abstract class AbstractStrel3D extends AlgoStub implements Strel3D
 	 */
 	private boolean showProgress = true;
 
+	/**
+	 * The number of threads used for processing independent lines or slices,
+	 * or 0 for using the number of threads specified in ImageJ preferences.
+	 */
+	private int threadCount = 0;
+	
 	
 	// ===================================================================
 	// Setter and getters
@@ -57,6 +64,36 @@ public abstract class AbstractStrel3D extends AlgoStub implements Strel3D
 		this.showProgress = b;
 	}
 
+	/**
+	 * Returns the number of threads used by this structuring element for
+	 * processing independent lines or slices. Default value is the number of
+	 * threads specified in ImageJ preferences.
+	 * 
+	 * @return the number of threads used by this structuring element
+	 */
+	public int getThreadCount()
+	{
+		return threadCount > 0 ? threadCount : Prefs.getThreads();
+	}
+
+	/**
+	 * Changes the number of threads used by this structuring element for
+	 * processing independent lines or slices. The result does not depend on
+	 * the number of threads.
+	 * 
+	 * @param nThreads
+	 *            the number of threads to use, or 0 for using the number of
+	 *            threads specified in ImageJ preferences
+	 */
+	public void setThreadCount(int nThreads)
+	{
+		if (nThreads < 0)
+		{
+			throw new IllegalArgumentException("Number of threads must be positive or zero, not " + nThreads);
+		}
+		this.threadCount = nThreads;
+	}
+
 
 	// ===================================================================
 	// Default implementation of some methods
@@ -22,12 +22,17 @@
 package inra.ijpb.morphology.strel;
 
 import ij.ImageStack;
-import ij.plugin.Filters3D;
+import inra.ijpb.algo.AlgoEvent;
+import inra.ijpb.algo.AlgoListener;
 import inra.ijpb.morphology.Strel3D;
 
 /**
  * A 3D structuring element with a ball shape, with same size in each direction.
  * 
+ * The shape of the ball is the same as the one used by the ImageJ Filters3D
+ * class. Dilations and erosions are computed by the corresponding
+ * EllipsoidStrel.
+ * 
  * @see EllipsoidStrel
  * 
  * @author dlegland
@@ -173,8 +178,8 @@ public class BallStrel extends AbstractStrel3D
 	}
 
 	/**
-	 * Performs dilation with a ball structuring element by calling the ImageJ
-	 * Filters3D.filter method, using Filters3D.MAX option.
+	 * Performs dilation with a ball structuring element, by using an
+	 * ellipsoid structuring element with the same radius in each direction.
 	 * 
 	 * @param image
 	 *            the 3D stack to process
@@ -182,15 +187,12 @@ public class BallStrel extends AbstractStrel3D
 	@Override
 	public ImageStack dilation(ImageStack image)
 	{
-		float r = (float) this.radius;
-		ImageStack result = Filters3D.filter(image, Filters3D.MAX, r, r, r);
-		result.setColorModel( image.getColorModel() );
-		return result;
+		return createEllipsoid().dilation(image);
 	}
 
 	/**
-	 * Performs erosion with a ball structuring element by calling the ImageJ
-	 * Filters3D.filter method, using Filters3D.MIN option.
+	 * Performs erosion with a ball structuring element, by using an
+	 * ellipsoid structuring element with the same radius in each direction.
 	 * 
 	 * @param image
 	 *            the 3D stack to process
@@ -198,9 +200,30 @@ public class BallStrel extends AbstractStrel3D
 	@Override
 	public ImageStack erosion(ImageStack image)
 	{
-		float r = (float) this.radius;
-		ImageStack result = Filters3D.filter(image, Filters3D.MIN, r, r, r);
-		result.setColorModel( image.getColorModel() );
-		return result;
+		return createEllipsoid().erosion(image);
+	}
+	
+	/**
+	 * Creates the ellipsoid corresponding to this ball, that uses the same
+	 * settings and propagates its events with this ball as source.
+	 */
+	private EllipsoidStrel createEllipsoid()
+	{
+		EllipsoidStrel strel = EllipsoidStrel.fromRadius(this.radius);
+		strel.setThreadCount(this.getThreadCount());
+		strel.showProgress(this.showProgress());
+		strel.addAlgoListener(new AlgoListener()
+		{
+			public void algoProgressChanged(AlgoEvent evt)
+			{
+				fireProgressChanged(BallStrel.this, evt.getCurrentProgress(), evt.getTotalProgress());
+			}
+
+			public void algoStatusChanged(AlgoEvent evt)
+			{
+				fireStatusChanged(BallStrel.this, evt.getStatus());
+			}
+		});
+		return strel;
 	}
 }
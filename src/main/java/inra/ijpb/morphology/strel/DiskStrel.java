@@ -23,11 +23,15 @@ package inra.ijpb.morphology.strel;
 
 import ij.plugin.filter.RankFilters;
 import ij.process.ByteProcessor;
+import ij.process.ColorProcessor;
 import ij.process.ImageProcessor;
+import inra.ijpb.util.ParallelRanges;
 
 /**
- * Disk structuring element. This class is a wrapper for the ImageJ native
- * RankFilters() method, that uses disk neighborhood.
+ * Disk structuring element. The shape of the disk is the same as the one used
+ * by the ImageJ native RankFilters() method. Dilations and erosions decompose
+ * the disk into horizontal chords, and are computed with the algorithm of
+ * Urbach and Wilkinson, using several threads.
  * 
  * @author David Legland
  *
@@ -187,8 +191,9 @@ public class DiskStrel extends AbstractInPlaceStrel implements InPlaceStrel
 	}
 
 	/**
-	 * Performs in-place dilation with a disk structuring element by calling the
-	 * ImageJ native RankFilters algorithm, using RankFilters.MAX option.
+	 * Performs in-place dilation with a disk structuring element. Color
+	 * images are processed by the ImageJ native RankFilters algorithm, using
+	 * RankFilters.MAX option.
 	 * 
 	 * @param image the image to process
 	 */
@@ -197,13 +202,17 @@ public class DiskStrel extends AbstractInPlaceStrel implements InPlaceStrel
 	{
 		if (radius > 0.5)
 		{
-			new RankFilters().rank(image, radius, RankFilters.MAX);
+			if (image instanceof ColorProcessor)
+				new RankFilters().rank(image, radius, RankFilters.MAX);
+			else
+				inPlaceFilter(image, true);
 		}
 	}
 
 	/**
-	 * Performs in-place erosion with a disk structuring element by calling the
-	 * ImageJ native RankFilters algorithm, using RankFilters.MIN option.
+	 * Performs in-place erosion with a disk structuring element. Color images
+	 * are processed by the ImageJ native RankFilters algorithm, using
+	 * RankFilters.MIN option.
 	 * 
 	 * @param image the image to process
 	 */
@@ -212,7 +221,60 @@ public class DiskStrel extends AbstractInPlaceStrel implements InPlaceStrel
 	{
 		if (radius > 0.5)
 		{
-			new RankFilters().rank(image, radius, RankFilters.MIN);
+			if (image instanceof ColorProcessor)
+				new RankFilters().rank(image, radius, RankFilters.MIN);
+			else
+				inPlaceFilter(image, false);
 		}
 	}
+	
+	private void inPlaceFilter(final ImageProcessor image, final boolean max)
+	{
+		final ImageProcessor source = image.duplicate();
+		final int[][] halfWidths = new int[][] { chordHalfWidths() };
+		final ImageProcessor[][] targets = new ImageProcessor[][] { { image } };
+		final int height = image.getHeight();
+		
+		ParallelRanges.run(height, getThreadCount(), new ParallelRanges.Task()
+		{
+			public void process(int start, int end)
+			{
+				UrbachWilkinsonFilter filter = new UrbachWilkinsonFilter(halfWidths);
+				for (int y = start; y < end; y++)
+				{
+					if (start == 0)
+						fireProgressChanged(DiskStrel.this, y, end);
+					filter.filterRow(source, y, targets, max, false);
+				}
+			}
+		});
+		
+		// clear the progress bar
+		fireProgressChanged(this, height, height);
+	}
+	
+	/**
+	 * Computes the half-width of the horizontal chords of the disk, for each
+	 * row of the disk. Uses the same computation as the RankFilters class
+	 * of ImageJ, to obtain the same disk shapes.
+	 * 
+	 * @return the half-width of the chord for each row of the disk
+	 */
+	private int[] chordHalfWidths()
+	{
+		double r = this.radius;
+		if (r >= 1.5 && r < 1.75)
+			r = 1.75;
+		else if (r >= 2.5 && r < 2.85)
+			r = 2.85;
+		
+		int r2 = (int) (r * r) + 1;
+		int kRadius = (int) (Math.sqrt(r2 + 1e-10));
+		int[] halfWidths = new int[2 * kRadius + 1];
+		for (int dy = -kRadius; dy <= kRadius; dy++)
+		{
+			halfWidths[dy + kRadius] = (int) (Math.sqrt(r2 - dy * dy + 1e-10));
+		}
+		return halfWidths;
+	}
 }
@@ -21,13 +21,23 @@
  */
 package inra.ijpb.morphology.strel;
 
+import java.util.ArrayList;
+
 import ij.ImageStack;
 import ij.plugin.Filters3D;
+import ij.process.FloatProcessor;
+import ij.process.ImageProcessor;
 import inra.ijpb.morphology.Strel3D;
+import inra.ijpb.util.ParallelRanges;
 
 /**
  * A 3D structuring element with an ellipsoidal shape, oriented along the three
  * main axes of the image.
+ * 
+ * The shape of the ellipsoid is the same as the one used by the ImageJ
+ * Filters3D class. Dilations and erosions decompose the ellipsoid into planar
+ * sections, each section being decomposed into horizontal chords, and are
+ * computed with the algorithm of Urbach and Wilkinson, using several threads.
  *
  * @see BallStrel
  * @author dlegland
@@ -205,40 +215,198 @@ public class EllipsoidStrel extends AbstractStrel3D
 	}
 
 	/**
-	 * Performs dilation with a ball structuring element by calling the ImageJ
-	 * Filters3D.filter method, using Filters3D.MAX option.
+	 * Performs dilation with an ellipsoid structuring element. Color images
+	 * are processed by the ImageJ Filters3D.filter method, using Filters3D.MAX
+	 * option.
 	 * 
 	 * @param image
 	 *            the 3D stack to process
-	 * @return the result of the dilation
+	 * @return the result of the dilation, or null if the current thread was
+	 *         interrupted
 	 */
 	@Override
 	public ImageStack dilation(ImageStack image)
 	{
-		float rx = (float) this.xRadius;
-		float ry = (float) this.yRadius;
-		float rz = (float) this.zRadius;
-		ImageStack result = Filters3D.filter(image, Filters3D.MAX, rx, ry, rz);
+		if ( Thread.currentThread().isInterrupted() )
+			return null;
+		
+		ImageStack result;
+		if (image.getBitDepth() == 24)
+		{
+			float rx = (float) this.xRadius;
+			float ry = (float) this.yRadius;
+			float rz = (float) this.zRadius;
+			// Filters3D modifies the color stack it processes, so work on a copy
+			result = Filters3D.filter(image.duplicate(), Filters3D.MAX, rx, ry, rz);
+		}
+		else
+		{
+			result = filter(image, true);
+			if (result == null)
+				return null;
+		}
 		result.setColorModel( image.getColorModel() );
 		return result;
 	}
 
 	/**
-	 * Performs erosion with a ball structuring element by calling the ImageJ
-	 * Filters3D.filter method, using Filters3D.MIN option.
+	 * Performs erosion with an ellipsoid structuring element. Color images
+	 * are processed by the ImageJ Filters3D.filter method, using Filters3D.MIN
+	 * option.
 	 * 
 	 * @param image
 	 *            the 3D stack to process
-	 * @return the result of the erosion
+	 * @return the result of the erosion, or null if the current thread was
+	 *         interrupted
 	 */
 	@Override
 	public ImageStack erosion(ImageStack image)
+	{
+		if ( Thread.currentThread().isInterrupted() )
+			return null;
+		
+		ImageStack result;
+		if (image.getBitDepth() == 24)
+		{
+			float rx = (float) this.xRadius;
+			float ry = (float) this.yRadius;
+			float rz = (float) this.zRadius;
+			// Filters3D modifies the color stack it processes, so work on a copy
+			result = Filters3D.filter(image.duplicate(), Filters3D.MIN, rx, ry, rz);
+		}
+		else
+		{
+			result = filter(image, false);
+			if (result == null)
+				return null;
+		}
+		result.setColorModel( image.getColorModel() );
+		return result;
+	}
+	
+	/**
+	 * Computes the maximum or the minimum over the ellipsoid. Each slice of
+	 * the input image is filtered by each planar section of the ellipsoid,
+	 * and the results are combined into the slices of the result located at
+	 * the same distance along the z-axis. Returns null if the current thread
+	 * is interrupted.
+	 */
+	private ImageStack filter(ImageStack image, final boolean max)
+	{
+		// get image size
+		int sizeX = image.getWidth();
+		final int sizeY = image.getHeight();
+		int sizeZ = image.getSize();
+		
+		// decompose the ellipsoid into sections with non empty chords
+		int[][] sections = computeSections();
+		ArrayList<int[]> halfWidthList = new ArrayList<int[]>(sections.length);
+		ArrayList<Integer> offsetList = new ArrayList<Integer>(sections.length);
+		for (int dz = 0; dz < sections.length; dz++)
+		{
+			if (sections[dz] != null)
+			{
+				halfWidthList.add(sections[dz]);
+				offsetList.add(dz);
+			}
+		}
+		final int[][] halfWidths = halfWidthList.toArray(new int[halfWidthList.size()][]);
+		int nSections = halfWidths.length;
+		
+		// create result image, filled with the neutral value of the operation
+		ImageStack result = ImageStack.create(sizeX, sizeY, sizeZ, image.getBitDepth());
+		for (int z = 1; z <= sizeZ; z++)
+		{
+			ImageProcessor slice = result.getProcessor(z);
+			if (slice instanceof FloatProcessor)
+				slice.setValue(max ? Float.NEGATIVE_INFINITY : Float.POSITIVE_INFINITY);
+			else
+				slice.setValue(max ? slice.minValue() : slice.maxValue());
+			slice.fill();
+		}
+		
+		// combine the result of each slice into the neighbor slices
+		for (int z = 0; z < sizeZ; z++)
+		{
+			if ( Thread.currentThread().isInterrupted() )
+				return null;
+			
+			fireProgressChanged(this, z, sizeZ);
+			
+			final ImageProcessor source = image.getProcessor(z + 1);
+			final ImageProcessor[][] targets = new ImageProcessor[nSections][];
+			for (int s = 0; s < nSections; s++)
+			{
+				int dz = offsetList.get(s);
+				ArrayList<ImageProcessor> slices = new ArrayList<ImageProcessor>(2);
+				if (z - dz >= 0)
+					slices.add(result.getProcessor(z - dz + 1));
+				if (dz > 0 && z + dz < sizeZ)
+					slices.add(result.getProcessor(z + dz + 1));
+				targets[s] = slices.toArray(new ImageProcessor[slices.size()]);
+			}
+			
+			ParallelRanges.run(sizeY, getThreadCount(), new ParallelRanges.Task()
+			{
+				public void process(int start, int end)
+				{
+					UrbachWilkinsonFilter filter = new UrbachWilkinsonFilter(halfWidths);
+					for (int y = start; y < end; y++)
+					{
+						filter.filterRow(source, y, targets, max, true);
+					}
+				}
+			});
+		}
+		
+		// clear the progress bar
+		fireProgressChanged(this, sizeZ, sizeZ);
+		
+		return result;
+	}
+	
+	/**
+	 * Computes the half-width of the chords of the planar sections of the
+	 * ellipsoid, using the same computation as the Filters3D class of ImageJ.
+	 * 
+	 * @return for each positive offset along the z-axis, the half-width of the
+	 *         chord of each row of the section, or -1 for rows without chord.
+	 *         The array is null for offsets without chord.
+	 */
+	private int[][] computeSections()
 	{
 		float rx = (float) this.xRadius;
 		float ry = (float) this.yRadius;
 		float rz = (float) this.zRadius;
-		ImageStack result = Filters3D.filter(image, Filters3D.MIN, rx, ry, rz);
-		result.setColorModel( image.getColorModel() );
-		return result;
+		int vx = (int) Math.ceil(rx);
+		int vy = (int) Math.ceil(ry);
+		int vz = (int) Math.ceil(rz);
+		
+		// inverse of squared radius, or 0 for null radius
+		double irx2 = rx != 0 ? 1.0 / (rx * rx) : 0;
+		double iry2 = ry != 0 ? 1.0 / (ry * ry) : 0;
+		double irz2 = rz != 0 ? 1.0 / (rz * rz) : 0;
+		
+		int[][] sections = new int[vz + 1][];
+		for (int dz = 0; dz <= vz; dz++)
+		{
+			int[] halfWidths = new int[2 * vy + 1];
+			boolean empty = true;
+			for (int dy = -vy; dy <= vy; dy++)
+			{
+				int h = -1;
+				for (int dx = 0; dx <= vx; dx++)
+				{
+					double dist = dx * dx * irx2 + dy * dy * iry2 + dz * dz * irz2;
+					if (dist > 1.0)
+						break;
+					h = dx;
+				}
+				halfWidths[dy + vy] = h;
+				empty = empty && h < 0;
+			}
+			sections[dz] = empty ? null : halfWidths;
+		}
+		return sections;
 	}
 }
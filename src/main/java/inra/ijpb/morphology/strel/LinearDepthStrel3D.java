@@ -22,7 +22,7 @@
 package inra.ijpb.morphology.strel;
 
 import ij.ImageStack;
-import inra.ijpb.morphology.Strel;
+import inra.ijpb.util.ParallelRanges;
 
 /**
  * An horizontal linear structuring element of a given length.
@@ -108,224 +108,87 @@ public class LinearDepthStrel3D extends AbstractInPlaceStrel3D  {
 	 * @see inra.ijpb.morphology.InPlaceStrel#inPlaceDilation(ij.process.ImageStack)
 	 */
 	@Override
-	public void inPlaceDilation(ImageStack stack) {
+	public void inPlaceDilation(final ImageStack stack) {
 		// If size is one, there is no need to compute
 		if (length <= 1) { 
 			return;
 		}
 		
-		if (stack.getBitDepth() == 8)
-			inPlaceDilationGray8(stack);
-		else
-			inPlaceDilationFloat(stack);
-	}
-
-	/* (non-Javadoc)
-	 * @see inra.ijpb.morphology.InPlaceStrel#inPlaceDilation(ij.process.ImageStack)
-	 */
-	private void inPlaceDilationGray8(ImageStack stack) {
-		// get image size
-		int width 	= stack.getWidth(); 
-		int height 	= stack.getHeight();
-		int depth 	= stack.getSize();
-			
-		// shifts between reference position and last position
-		int shift = this.length - this.offset - 1;
-		
-		// create local histogram instance
-		LocalExtremumBufferGray8 localMax = new LocalExtremumBufferGray8(
-				this.length, LocalExtremum.Type.MAXIMUM);		
-		
-		// Iterate on image z-columns
-		for (int y = 0; y < height; y++) {
-			fireProgressChanged(this, y, height);
-			for (int x = 0; x < width; x++) {
-
-				// init local histogram with background values
-				localMax.fill(Strel.BACKGROUND);
-
-				// add neighbor values
-				for (int z = 0; z < Math.min(shift, depth); z++) {
-					localMax.add((int) stack.getVoxel(x, y, z));
-				}
-
-				// iterate along "middle" values
-				for (int z = 0; z < depth - shift; z++) {
-					localMax.add((int) stack.getVoxel(x, y, z + shift));
-					stack.setVoxel(x, y, z, localMax.getMax());
-				}
-
-				// process pixels at the end of the line
-				for (int z = Math.max(0, depth - shift); z < depth; z++) {
-					localMax.add(Strel.BACKGROUND);
-					stack.setVoxel(x, y, z, localMax.getMax());
-				}
+		ParallelRanges.run(stack.getHeight(), getThreadCount(), new ParallelRanges.Task() {
+			public void process(int start, int end) {
+				dilateLines(stack, start, end);
 			}
-		}
-
+		});
+		
 		// clear the progress bar
-		fireProgressChanged(this, height, height);		
+		fireProgressChanged(this, stack.getHeight(), stack.getHeight());
 	}
 
-	/* (non-Javadoc)
-	 * @see inra.ijpb.morphology.InPlaceStrel#inPlaceDilation(ij.process.ImageStack)
-	 */
-	private void inPlaceDilationFloat(ImageStack stack) {
+	private void dilateLines(ImageStack stack, int yStart, int yEnd) {
 		// get image size
 		int width 	= stack.getWidth(); 
-		int height 	= stack.getHeight();
 		int depth 	= stack.getSize();
-			
-		// shifts between reference position and last position
-		int shift = this.length - this.offset - 1;
+		Object[] slices = stack.getImageArray();
 		
-		// create local histogram instance
-		LocalExtremumBufferDouble localMax = new LocalExtremumBufferDouble(
-				this.length, LocalExtremum.Type.MAXIMUM);		
+		// create line filter, with "offset" voxels before current voxel
+		VanHerkGilWermanFilter filter = new VanHerkGilWermanFilter(length, offset);
 		
 		// Iterate on image z-columns
-		for (int y = 0; y < height; y++) {
-			fireProgressChanged(this, y, height);
-			for (int x = 0; x < width; x++) {
-
-				// init local histogram with background values
-				localMax.fill(Float.NEGATIVE_INFINITY);
-
-				// add neighbor values
-				for (int z = 0; z < Math.min(shift, depth); z++) {
-					localMax.add((float) stack.getVoxel(x, y, z));
-				}
-
-				// iterate along "middle" values
-				for (int z = 0; z < depth - shift; z++) {
-					localMax.add((float) stack.getVoxel(x, y, z + shift));
-					stack.setVoxel(x, y, z, localMax.getMax());
-				}
-
-				// process pixels at the end of the line
-				for (int z = Math.max(0, depth - shift); z < depth; z++) {
-					localMax.add(Float.NEGATIVE_INFINITY);
-					stack.setVoxel(x, y, z, localMax.getMax());
-				}
+		for (int y = yStart; y < yEnd; y++) {
+			if (yStart == 0)
+				fireProgressChanged(this, y, yEnd);
+			
+			// process strips of adjacent z-columns
+			for (int x = 0; x < width; x += VanHerkGilWermanFilter.STRIP_WIDTH) {
+				int nColumns = Math.min(VanHerkGilWermanFilter.STRIP_WIDTH, width - x);
+				filter.dilation(slices, y * width + x, depth, nColumns);
 			}
 		}
-
-		// clear the progress bar
-		fireProgressChanged(this, height, height);		
 	}
 
 	/* (non-Javadoc)
 	 * @see inra.ijpb.morphology.InPlaceStrel#inPlaceErosion(ij.process.ImageStack)
 	 */
 	@Override
-	public void inPlaceErosion(ImageStack stack) {
+	public void inPlaceErosion(final ImageStack stack) {
 		// If size is one, there is no need to compute
 		if (length <= 1) { 
 			return;
 		}
-
-		if (stack.getBitDepth() == 8)
-			inPlaceErosionGray8(stack);
-		else
-			inPlaceErosionFloat(stack);
 		
-	}
-	
-	/* (non-Javadoc)
-	 * @see inra.ijpb.morphology.InPlaceStrel#inPlaceErosion(ij.process.ImageStack)
-	 */
-	private void inPlaceErosionGray8(ImageStack stack) {
-		// get image size
-		int width 	= stack.getWidth(); 
-		int height 	= stack.getHeight();
-		int depth 	= stack.getSize();
-		
-		// shifts between reference position and last position
-		int shift = this.length - this.offset - 1;
-		
-		// create local histogram instance
-		LocalExtremumBufferDouble localMin = new LocalExtremumBufferDouble(this.length,
-				LocalExtremum.Type.MINIMUM);
-		
-		
-		// Iterate on image z-columns
-		for (int y = 0; y < height; y++) {
-			fireProgressChanged(this, y, height);
-			for (int x = 0; x < width; x++) {
-
-				// init local histogram with background values
-				localMin.fill(Strel.FOREGROUND);
-
-				// add neighbor values
-				for (int z = 0; z < Math.min(shift, depth); z++) {
-					localMin.add((int) stack.getVoxel(x, y, z));
-				}
-
-				// iterate along "middle" values
-				for (int z = 0; z < depth - shift; z++) {
-					localMin.add((int) stack.getVoxel(x, y, z + shift));
-					stack.setVoxel(x, y, z, localMin.getMax());
-				}
-
-				// process pixels at the end of the line
-				for (int z = Math.max(0, depth - shift); z < depth; z++) {
-					localMin.add(Strel.FOREGROUND);
-					stack.setVoxel(x, y, z, localMin.getMax());
-				}
+		ParallelRanges.run(stack.getHeight(), getThreadCount(), new ParallelRanges.Task() {
+			public void process(int start, int end) {
+				erodeLines(stack, start, end);
 			}
-		}
+		});
 		
 		// clear the progress bar
-		fireProgressChanged(this, height, height);		
+		fireProgressChanged(this, stack.getHeight(), stack.getHeight());
 	}
 
-	/* (non-Javadoc)
-	 * @see inra.ijpb.morphology.InPlaceStrel#inPlaceErosion(ij.process.ImageStack)
-	 */
-	private void inPlaceErosionFloat(ImageStack stack) {
+	private void erodeLines(ImageStack stack, int yStart, int yEnd) {
 		// get image size
 		int width 	= stack.getWidth(); 
-		int height 	= stack.getHeight();
 		int depth 	= stack.getSize();
+		Object[] slices = stack.getImageArray();
 		
-		// shifts between reference position and last position
-		int shift = this.length - this.offset - 1;
-		
-		// create local histogram instance
-		LocalExtremumBufferDouble localMin = new LocalExtremumBufferDouble(
-				this.length, LocalExtremum.Type.MINIMUM);
+		// create line filter, with "offset" voxels before current voxel
+		VanHerkGilWermanFilter filter = new VanHerkGilWermanFilter(length, offset);
 		
 		// Iterate on image z-columns
-		for (int y = 0; y < height; y++) {
-			fireProgressChanged(this, y, height);
-			for (int x = 0; x < width; x++) {
-
-				// init local histogram with background values
-				localMin.fill(Float.POSITIVE_INFINITY);
-
-				// add neighbor values
-				for (int z = 0; z < Math.min(shift, depth); z++) {
-					localMin.add((float) stack.getVoxel(x, y, z));
-				}
-
-				// iterate along "middle" values
-				for (int z = 0; z < depth - shift; z++) {
-					localMin.add((float) stack.getVoxel(x, y, z + shift));
-					stack.setVoxel(x, y, z, localMin.getMax());
-				}
-
-				// process pixels at the end of the line
-				for (int z = Math.max(0, depth - shift); z < depth; z++) {
-					localMin.add(Float.POSITIVE_INFINITY);
-					stack.setVoxel(x, y, z, localMin.getMax());
-				}
+		for (int y = yStart; y < yEnd; y++) {
+			if (yStart == 0)
+				fireProgressChanged(this, y, yEnd);
+			
+			// process strips of adjacent z-columns
+			for (int x = 0; x < width; x += VanHerkGilWermanFilter.STRIP_WIDTH) {
+				int nColumns = Math.min(VanHerkGilWermanFilter.STRIP_WIDTH, width - x);
+				filter.erosion(slices, y * width + x, depth, nColumns);
 			}
 		}
-		
-		// clear the progress bar
-		fireProgressChanged(this, height, height);		
 	}
 
+	
 	/* (non-Javadoc)
 	 * @see inra.ijpb.morphology.Strel#getMask()
 	 */
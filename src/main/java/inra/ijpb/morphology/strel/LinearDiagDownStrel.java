@@ -21,9 +21,8 @@
  */
 package inra.ijpb.morphology.strel;
 
-import ij.process.ByteProcessor;
 import ij.process.ImageProcessor;
-import inra.ijpb.morphology.Strel;
+import inra.ijpb.util.ParallelRanges;
 
 /**
  * A diagonal linear structuring element of a given length, with direction
@@ -112,290 +111,101 @@ public class LinearDiagDownStrel extends AbstractInPlaceStrel {
 	 * @see ijt.morphology.InPlaceStrel#inPlaceDilation(ij.process.ImageProcessor)
 	 */
 	@Override
-	public void inPlaceDilation(ImageProcessor image) {
+	public void inPlaceDilation(final ImageProcessor image) {
 		// If size is one, there is no need to compute
 		if (size <= 1) { 
 			return;
 		}
 		
-		if (image instanceof ByteProcessor)
-			inPlaceDilationGray8(image);
-		else
-			inPlaceDilationFloat(image);
-	}
-	
-	private void inPlaceDilationGray8(ImageProcessor image) {
-		// get image size
-		int width = image.getWidth(); 
-		int height = image.getHeight();
-	
-		// Consider all diagonal lines with direction vector (+1,+1) that intersect image.
-		// Diagonal lines are identified by their intersection "d" with axis (-1,+1)
-		// Need to identify bounds for d
-		int dmin = -(width - 1);
-		int dmax = height - 1;
-	
-		// create local histogram instance
-		LocalExtremumBufferGray8 localMax = new LocalExtremumBufferGray8(size,
-				LocalExtremum.Type.MAXIMUM);
+		// number of diagonal lines that intersect image
+		int nDiags = image.getWidth() + image.getHeight() - 1;
 		
-		// Iterate on diagonal lines
-		for (int d = dmin; d < dmax; d++) {
-			fireProgressChanged(this, d - dmin, dmax - dmin);
-				
-			// reset local histogram
-			localMax.fill(Strel.BACKGROUND);
-			
-			int xmin = Math.max(0, -d);
-			int xmax = Math.min(width, height - d);
-			int ymin = Math.max(0, d);
-			int ymax = Math.min(height, d - width);
-			
-			int tmin = Math.max(xmin, d - ymin);
-			int tmax = Math.min(xmax, d - ymax);
-			
-			// position on the line
-			int t = tmin;
-
-			// init local histogram image values after current pos
-			while (t < Math.min(tmin + this.offset, tmax)) {
-				localMax.add(image.get(t, t + d));
-				t++;
-			}
-			
-			// process position that do not touch lower-right image boundary
-			while (t < tmax) {
-				localMax.add(image.get(t, t + d));
-				int t2 = t - this.offset;
-				image.set(t2, t2 + d, localMax.getMax());
-				t++;
-			}
-			
-			// process pixels at the end of the line 
-			// and that do not touch the upper left image boundary
-			while (t < tmax + this.offset) {
-				localMax.add(Strel.BACKGROUND);
-				int x = t - this.offset;
-				int y = t + d - this.offset;
-				if (x >= 0 && y >= 0 && x < width && y < height)
-					image.set(x, y, localMax.getMax());
-				t++;
+		ParallelRanges.run(nDiags, getThreadCount(), new ParallelRanges.Task() {
+			public void process(int start, int end) {
+				dilateDiagonals(image, start, end);
 			}
-		}
+		});
 		
 		// clear the progress bar
-		fireProgressChanged(this, dmax - dmin, dmax - dmin);
+		fireProgressChanged(this, nDiags, nDiags);
 	}
 
-	private void inPlaceDilationFloat(ImageProcessor image) {
+	private void dilateDiagonals(ImageProcessor image, int dStart, int dEnd) {
 		// get image size
 		int width = image.getWidth(); 
 		int height = image.getHeight();
-	
-		// Consider all diagonal lines with direction vector (+1,+1) that intersect image.
-		// Diagonal lines are identified by their intersection "d" with axis (-1,+1)
-		// Need to identify bounds for d
-		int dmin = -(width - 1);
-		int dmax = height - 1;
-	
-		// create local histogram instance
-		LocalExtremumBufferDouble localMax = new LocalExtremumBufferDouble(size,
-				LocalExtremum.Type.MAXIMUM);
+		Object pixels = image.getPixels();
 		
-		// Iterate on diagonal lines
-		for (int d = dmin; d < dmax; d++) {
-			fireProgressChanged(this, d - dmin, dmax - dmin);
-				
-			// reset local histogram
-			localMax.fill(Float.NEGATIVE_INFINITY);
-			
-			int xmin = Math.max(0, -d);
-			int xmax = Math.min(width, height - d);
-			int ymin = Math.max(0, d);
-			int ymax = Math.min(height, d - width);
-			
-			int tmin = Math.max(xmin, d - ymin);
-			int tmax = Math.min(xmax, d - ymax);
-			
-			// position on the line
-			int t = tmin;
-
-			// init local histogram image values after current pos
-			while (t < Math.min(tmin + this.offset, tmax)) {
-				localMax.add(image.getf(t, t + d));
-				t++;
-			}
+		// create line filter, with "offset" pixels after current pixel
+		VanHerkGilWermanFilter filter = new VanHerkGilWermanFilter(size, size - 1 - offset);
+		
+		// Consider all diagonal lines with direction vector (+1,+1) that intersect image.
+		// Diagonal lines are identified by their intersection "d" with axis (-1,+1), 
+		// shifted by (width-1) to start at zero
+		for (int i = dStart; i < dEnd; i++) {
+			if (dStart == 0)
+				fireProgressChanged(this, i, dEnd);
 			
-			// process position that do not touch lower-right image boundary
-			while (t < tmax) {
-				localMax.add(image.getf(t, t + d));
-				int t2 = t - this.offset;
-				image.setf(t2, t2 + d, (float) localMax.getMax());
-				t++;
-			}
+			// bounds of the x-coordinate of the pixels (t, t+d) on the line
+			int d = i - (width - 1);
+			int tmin = Math.max(0, -d);
+			int tmax = Math.min(width, height - d);
 			
-			// process pixels at the end of the line 
-			// and that do not touch the upper left image boundary
-			while (t < tmax + this.offset) {
-				localMax.add(Float.NEGATIVE_INFINITY);
-				int x = t - this.offset;
-				int y = t + d - this.offset;
-				if (x >= 0 && y >= 0 && x < width && y < height)
-					image.setf(x, y, (float) localMax.getMax());
-				t++;
-			}
+			// consecutive pixels are separated by (width+1) in pixel array
+			filter.dilation(pixels, (tmin + d) * width + tmin, width + 1, tmax - tmin);
 		}
-		
-		// clear the progress bar
-		fireProgressChanged(this, dmax - dmin, dmax - dmin);
 	}
 
 	/* (non-Javadoc)
 	 * @see ijt.morphology.InPlaceStrel#inPlaceErosion(ij.process.ImageProcessor)
 	 */
 	@Override
-	public void inPlaceErosion(ImageProcessor image) {
+	public void inPlaceErosion(final ImageProcessor image) {
 		// If size is one, there is no need to compute
 		if (size <= 1) { 
 			return;
 		}
 		
-		if (image instanceof ByteProcessor)
-			inPlaceErosionGray8(image);
-		else
-			inPlaceErosionFloat(image);
-	}
-	
-	private void inPlaceErosionGray8(ImageProcessor image) {
-		// get image size
-		int width = image.getWidth(); 
-		int height = image.getHeight();
-	
-		// Consider all diagonal lines with direction vector (+1,+1) that intersect image.
-		// Diagonal lines are identified by their intersection "d" with axis (-1,+1)
-		// Need to identify bounds for d
-		int dmin = -(width - 1);
-		int dmax = height - 1;
-		
-		// compute shifts
-		int dt0 = this.offset;
+		// number of diagonal lines that intersect image
+		int nDiags = image.getWidth() + image.getHeight() - 1;
 		
-		// create local histogram instance
-		LocalExtremumBufferGray8 localMin = new LocalExtremumBufferGray8(size,
-				LocalExtremum.Type.MINIMUM);
-
-		// Iterate on diagonal lines
-		for (int d = dmin; d < dmax; d++) {
-			fireProgressChanged(this, d - dmin, dmax - dmin);
-			
-			// reset local histogram
-			localMin.fill(Strel.FOREGROUND);
-			
-			int xmin = Math.max(0, -d);
-			int xmax = Math.min(width, height - d);
-			int ymin = Math.max(0, d);
-			int ymax = Math.min(height, d - width);
-			
-			int tmin = Math.max(xmin, d - ymin);
-			int tmax = Math.min(xmax, d - ymax);
-			
-			// position on the line
-			int t = tmin;
-			
-			// init local histogram image values after current pos
-			while (t < Math.min(tmin + dt0, tmax)) {
-				localMin.add(image.get(t, t + d));
-				t++;
-			}
-			
-			// process position that do not touch lower-right image boundary
-			while (t < tmax) {
-				localMin.add(image.get(t, t + d));
-				image.set(t - dt0, t + d - dt0, localMin.getMax());
-				t++;
-			}
-			
-			// process pixels at the end of the line 
-			// and that do not touch the upper left image boundary
-			while (t < tmax + dt0) {
-				localMin.add(Strel.FOREGROUND);
-				int x = t - dt0;
-				int y = t + d - dt0;
-				if (x >= 0 && y >= 0 && x < width && y < height)
-					image.set(x, y, localMin.getMax());
-				t++;
+		ParallelRanges.run(nDiags, getThreadCount(), new ParallelRanges.Task() {
+			public void process(int start, int end) {
+				erodeDiagonals(image, start, end);
 			}
-		}
+		});
 		
 		// clear the progress bar
-		fireProgressChanged(this, dmax - dmin, dmax - dmin);
+		fireProgressChanged(this, nDiags, nDiags);
 	}
 
-	private void inPlaceErosionFloat(ImageProcessor image) {
+	private void erodeDiagonals(ImageProcessor image, int dStart, int dEnd) {
 		// get image size
 		int width = image.getWidth(); 
 		int height = image.getHeight();
-	
-		// Consider all diagonal lines with direction vector (+1,+1) that intersect image.
-		// Diagonal lines are identified by their intersection "d" with axis (-1,+1)
-		// Need to identify bounds for d
-		int dmin = -(width - 1);
-		int dmax = height - 1;
+		Object pixels = image.getPixels();
 		
-		// compute shifts
-		int dt0 = this.offset;
+		// create line filter, with "offset" pixels after current pixel
+		VanHerkGilWermanFilter filter = new VanHerkGilWermanFilter(size, size - 1 - offset);
 		
-		// create local histogram instance
-		LocalExtremumBufferDouble localMin = new LocalExtremumBufferDouble(size,
-				LocalExtremum.Type.MINIMUM);
-
-		// Iterate on diagonal lines
-		for (int d = dmin; d < dmax; d++) {
-			fireProgressChanged(this, d - dmin, dmax - dmin);
-			
-			// reset local histogram
-			localMin.fill(Float.POSITIVE_INFINITY);
-			
-			int xmin = Math.max(0, -d);
-			int xmax = Math.min(width, height - d);
-			int ymin = Math.max(0, d);
-			int ymax = Math.min(height, d - width);
-			
-			int tmin = Math.max(xmin, d - ymin);
-			int tmax = Math.min(xmax, d - ymax);
-			
-			// position on the line
-			int t = tmin;
-			
-			// init local histogram image values after current pos
-			while (t < Math.min(tmin + dt0, tmax)) {
-				localMin.add(image.getf(t, t + d));
-				t++;
-			}
+		// Consider all diagonal lines with direction vector (+1,+1) that intersect image.
+		// Diagonal lines are identified by their intersection "d" with axis (-1,+1), 
+		// shifted by (width-1) to start at zero
+		for (int i = dStart; i < dEnd; i++) {
+			if (dStart == 0)
+				fireProgressChanged(this, i, dEnd);
 			
-			// process position that do not touch lower-right image boundary
-			while (t < tmax) {
-				localMin.add(image.getf(t, t + d));
-				image.setf(t - dt0, t + d - dt0, (float) localMin.getMax());
-				t++;
-			}
+			// bounds of the x-coordinate of the pixels (t, t+d) on the line
+			int d = i - (width - 1);
+			int tmin = Math.max(0, -d);
+			int tmax = Math.min(width, height - d);
 			
-			// process pixels at the end of the line 
-			// and that do not touch the upper left image boundary
-			while (t < tmax + dt0) {
-				localMin.add(Float.POSITIVE_INFINITY);
-				int x = t - dt0;
-				int y = t + d - dt0;
-				if (x >= 0 && y >= 0 && x < width && y < height)
-					image.setf(x, y, (float) localMin.getMax());
-				t++;
-			}
+			// consecutive pixels are separated by (width+1) in pixel array
+			filter.erosion(pixels, (tmin + d) * width + tmin, width + 1, tmax - tmin);
 		}
-		
-		// clear the progress bar
-		fireProgressChanged(this, dmax - dmin, dmax - dmin);
 	}
 
+	
 	/* (non-Javadoc)
 	 * @see ijt.morphology.Strel#getMask()
 	 */
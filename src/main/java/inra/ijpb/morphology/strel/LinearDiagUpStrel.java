@@ -21,9 +21,8 @@
  */
 package inra.ijpb.morphology.strel;
 import ij.IJ;
-import ij.process.ByteProcessor;
 import ij.process.ImageProcessor;
-import inra.ijpb.morphology.Strel;
+import inra.ijpb.util.ParallelRanges;
 
 /**
  * A diagonal linear structuring element of a given length, with direction
@@ -111,153 +110,54 @@ public class LinearDiagUpStrel extends AbstractInPlaceStrel {
 	 * @see ijt.morphology.InPlaceStrel#inPlaceDilation(ij.process.ImageProcessor)
 	 */
 	@Override
-	public void inPlaceDilation(ImageProcessor image) {
+	public void inPlaceDilation(final ImageProcessor image) {
 		// If size is one, there is no need to compute
 		if (size <= 1) { 
 			return;
 		}
 		
-		if (image instanceof ByteProcessor)
-			inPlaceDilationGray8(image);
-		else
-			inPlaceDilationFloat(image);
-	}
-	
-	private void inPlaceDilationGray8(ImageProcessor image) {
-		// get image size
-		int width = image.getWidth(); 
-		int height = image.getHeight();
-	
-		// Consider all diagonal lines with direction vector (+1,-1) that intersect image.
-		// Diagonal lines are identified by their intersection "d" with axis (+1,+1)
-		// Need to identify bounds for d
-		int dmin = 0;
-		int dmax = width + height - 1;
-	
-		// create local histogram instance
-		LocalExtremumBufferGray8 localMax = new LocalExtremumBufferGray8(size,
-				LocalExtremum.Type.MAXIMUM);
+		// number of diagonal lines that intersect image
+		int nDiags = image.getWidth() + image.getHeight() - 1;
 		
-		// Iterate on diagonal lines
-		for (int d = dmin; d < dmax; d++) {
-			if (this.showProgress()) {
-				IJ.showProgress(d, dmax - dmin);
-			}
-			fireProgressChanged(this, d - dmin, dmax - dmin);
-			
-			// reset local histogram
-			localMax.fill(Strel.BACKGROUND);
-			
-			int xmin = Math.max(0, d + 1 - height);
-			int xmax = Math.min(width, d + 1); 
-			int ymin = Math.max(0, d + 1 - width);
-			int ymax = Math.min(height, d + 1);
-			
-			int tmin = Math.max(xmin, d + 1 - ymax);
-			int tmax = Math.min(xmax, d + 1 - ymin);
-			
-			// position on the line
-			int t = tmin;
-
-			// init local histogram image values after current pos
-			while (t < Math.min(tmin + this.offset, tmax)) {
-				localMax.add(image.get(t, d - t));
-				t++;
+		ParallelRanges.run(nDiags, getThreadCount(), new ParallelRanges.Task() {
+			public void process(int start, int end) {
+				dilateDiagonals(image, start, end);
 			}
-			
-			// process position that do not touch lower-left image boundary
-			while (t < tmax) {
-				localMax.add(image.get(t, d - t));
-				int t2 = t - this.offset;
-				image.set(t2, d - t2, localMax.getMax());
-				t++;
-			}
-			
-			// process pixels at the end of the line 
-			// and that do not touch the upper left image boundary
-			while (t < tmax + this.offset) {
-				localMax.add(Strel.BACKGROUND);
-				int t2 = t - this.offset;
-				int x = t2;
-				int y = d - t2;
-				if (x >= 0 && y >= 0 && x < width && y < height)
-					image.set(x, y, localMax.getMax());
-				t++;
-			}
-		}
+		});
 		
 		// clear the progress bar
+		fireProgressChanged(this, nDiags, nDiags);
 		if (this.showProgress()) {
 			IJ.showProgress(1);
 		}
 	}
 
-	private void inPlaceDilationFloat(ImageProcessor image) {
+	private void dilateDiagonals(ImageProcessor image, int dStart, int dEnd) {
 		// get image size
 		int width = image.getWidth(); 
 		int height = image.getHeight();
-	
+		Object pixels = image.getPixels();
+		
+		// create line filter, with "offset" pixels after current pixel
+		VanHerkGilWermanFilter filter = new VanHerkGilWermanFilter(size, size - 1 - offset);
+		
 		// Consider all diagonal lines with direction vector (+1,-1) that intersect image.
 		// Diagonal lines are identified by their intersection "d" with axis (+1,+1)
-		// Need to identify bounds for d
-		int dmin = 0;
-		int dmax = width + height - 1;
-	
-		// create local histogram instance
-		LocalExtremumBufferDouble localMax = new LocalExtremumBufferDouble(size,
-				LocalExtremum.Type.MAXIMUM);
-		
-		// Iterate on diagonal lines
-		for (int d = dmin; d < dmax; d++) {
-			if (this.showProgress()) {
-				IJ.showProgress(d, dmax - dmin);
+		for (int d = dStart; d < dEnd; d++) {
+			// the first block is processed by the calling thread
+			if (dStart == 0) {
+				if (this.showProgress()) {
+					IJ.showProgress(d, dEnd);
+				}
+				fireProgressChanged(this, d, dEnd);
 			}
-			fireProgressChanged(this, d - dmin, dmax - dmin);
 			
-			// reset local histogram
-			localMax.fill(Float.NEGATIVE_INFINITY);
-			
-			int xmin = Math.max(0, d + 1 - height);
-			int xmax = Math.min(width, d + 1); 
-			int ymin = Math.max(0, d + 1 - width);
-			int ymax = Math.min(height, d + 1);
-			
-			int tmin = Math.max(xmin, d + 1 - ymax);
-			int tmax = Math.min(xmax, d + 1 - ymin);
-			
-			// position on the line
-			int t = tmin;
-
-			// init local histogram image values after current pos
-			while (t < Math.min(tmin + this.offset, tmax)) {
-				localMax.add(image.getf(t, d - t));
-				t++;
-			}
+			// bounds of the x-coordinate of the pixels on the line
+			int tmin = Math.max(0, d + 1 - height);
+			int tmax = Math.min(width, d + 1);
 			
-			// process position that do not touch lower-left image boundary
-			while (t < tmax) {
-				localMax.add(image.getf(t, d - t));
-				int t2 = t - this.offset;
-				image.setf(t2, d - t2, (float) localMax.getMax());
-				t++;
-			}
-			
-			// process pixels at the end of the line 
-			// and that do not touch the upper left image boundary
-			while (t < tmax + this.offset) {
-				localMax.add(Float.NEGATIVE_INFINITY);
-				int t2 = t - this.offset;
-				int x = t2;
-				int y = d - t2;
-				if (x >= 0 && y >= 0 && x < width && y < height)
-					image.setf(x, y, (float) localMax.getMax());
-				t++;
-			}
-		}
-		
-		// clear the progress bar
-		if (this.showProgress()) {
-			IJ.showProgress(1);
+			// consecutive pixels (t, d-t) are separated by (width-1) in pixel array
+			filter.dilation(pixels, (d - tmin) * width + tmin, 1 - width, tmax - tmin);
 		}
 	}
 
@@ -265,156 +165,58 @@ public class LinearDiagUpStrel extends AbstractInPlaceStrel {
 	 * @see ijt.morphology.InPlaceStrel#inPlaceErosion(ij.process.ImageProcessor)
 	 */
 	@Override
-	public void inPlaceErosion(ImageProcessor image) {
+	public void inPlaceErosion(final ImageProcessor image) {
 		// If size is one, there is no need to compute
 		if (size <= 1) { 
 			return;
 		}
 		
-		if (image instanceof ByteProcessor)
-			inPlaceErosionGray8(image);
-		else
-			inPlaceErosionFloat(image);
-	}
-	
-	private void inPlaceErosionGray8(ImageProcessor image) {
-		// get image size
-		int width = image.getWidth(); 
-		int height = image.getHeight();
-	
-		// Consider all diagonal lines with direction vector (+1,-1) that intersect image.
-		// Diagonal lines are identified by their intersection "d" with axis (+1,+1)
-		// Need to identify bounds for d
-		int dmin = 0;
-		int dmax = width + height - 1;
-	
-		// create local histogram instance
-		LocalExtremumBufferGray8 localMin = new LocalExtremumBufferGray8(size,
-				LocalExtremum.Type.MINIMUM);
+		// number of diagonal lines that intersect image
+		int nDiags = image.getWidth() + image.getHeight() - 1;
 		
-		// Iterate on diagonal lines
-		for (int d = dmin; d < dmax; d++) {
-			if (this.showProgress()) {
-				IJ.showProgress(d, dmax - dmin);
+		ParallelRanges.run(nDiags, getThreadCount(), new ParallelRanges.Task() {
+			public void process(int start, int end) {
+				erodeDiagonals(image, start, end);
 			}
-			fireProgressChanged(this, d - dmin, dmax - dmin);
-			
-			// reset local histogram
-			localMin.fill(Strel.FOREGROUND);
-			
-			int xmin = Math.max(0, d - height - 1);
-			int xmax = Math.min(width, d + 1); 
-			int ymin = Math.max(0, d - width - 1);
-			int ymax = Math.min(height, d + 1);
-			
-			int tmin = Math.max(xmin, d - ymax + 1);
-			int tmax = Math.min(xmax, d - ymin + 1);
-			
-			// position on the line
-			int t = tmin;
-
-			// init local histogram image values after current pos
-			while (t < Math.min(tmin + this.offset, tmax)) {
-				localMin.add(image.get(t, d - t));
-				t++;
-			}
-			
-			// process position that do not touch lower-left image boundary
-			while (t < tmax) {
-				localMin.add(image.get(t, d - t));
-				int t2 = t - this.offset;
-				image.set(t2, d - t2, localMin.getMax());
-				t++;
-			}
-			
-			// process pixels at the end of the line 
-			// and that do not touch the upper left image boundary
-			while (t < tmax + this.offset) {
-				localMin.add(Strel.FOREGROUND);
-				int t2 = t - this.offset;
-				int x = t2;
-				int y = d - t2;
-				if (x >= 0 && y >= 0 && x < width && y < height)
-					image.set(x, y, localMin.getMax());
-				t++;
-			}
-		}
+		});
 		
 		// clear the progress bar
+		fireProgressChanged(this, nDiags, nDiags);
 		if (this.showProgress()) {
 			IJ.showProgress(1);
 		}
 	}
 
-	private void inPlaceErosionFloat(ImageProcessor image) {
+	private void erodeDiagonals(ImageProcessor image, int dStart, int dEnd) {
 		// get image size
 		int width = image.getWidth(); 
 		int height = image.getHeight();
-	
+		Object pixels = image.getPixels();
+		
+		// create line filter, with "offset" pixels after current pixel
+		VanHerkGilWermanFilter filter = new VanHerkGilWermanFilter(size, size - 1 - offset);
+		
 		// Consider all diagonal lines with direction vector (+1,-1) that intersect image.
 		// Diagonal lines are identified by their intersection "d" with axis (+1,+1)
-		// Need to identify bounds for d
-		int dmin = 0;
-		int dmax = width + height - 1;
-	
-		// create local histogram instance
-		LocalExtremumBufferDouble localMin = new LocalExtremumBufferDouble(size,
-				LocalExtremum.Type.MINIMUM);
-		
-		// Iterate on diagonal lines
-		for (int d = dmin; d < dmax; d++) {
-			if (this.showProgress()) {
-				IJ.showProgress(d, dmax - dmin);
+		for (int d = dStart; d < dEnd; d++) {
+			// the first block is processed by the calling thread
+			if (dStart == 0) {
+				if (this.showProgress()) {
+					IJ.showProgress(d, dEnd);
+				}
+				fireProgressChanged(this, d, dEnd);
 			}
-			fireProgressChanged(this, d - dmin, dmax - dmin);
 			
-			// reset local histogram
-			localMin.fill(Float.POSITIVE_INFINITY);
-			
-			int xmin = Math.max(0, d - height - 1);
-			int xmax = Math.min(width, d + 1); 
-			int ymin = Math.max(0, d - width - 1);
-			int ymax = Math.min(height, d + 1);
-			
-			int tmin = Math.max(xmin, d - ymax + 1);
-			int tmax = Math.min(xmax, d - ymin + 1);
-			
-			// position on the line
-			int t = tmin;
-
-			// init local histogram image values after current pos
-			while (t < Math.min(tmin + this.offset, tmax)) {
-				localMin.add(image.getf(t, d - t));
-				t++;
-			}
+			// bounds of the x-coordinate of the pixels on the line
+			int tmin = Math.max(0, d + 1 - height);
+			int tmax = Math.min(width, d + 1);
 			
-			// process position that do not touch lower-left image boundary
-			while (t < tmax) {
-				localMin.add(image.getf(t, d - t));
-				int t2 = t - this.offset;
-				image.setf(t2, d - t2, (float) localMin.getMax());
-				t++;
-			}
-			
-			// process pixels at the end of the line 
-			// and that do not touch the upper left image boundary
-			while (t < tmax + this.offset) {
-				localMin.add(Float.POSITIVE_INFINITY);
-				int t2 = t - this.offset;
-				int x = t2;
-				int y = d - t2;
-				if (x >= 0 && y >= 0 && x < width && y < height)
-					image.setf(x, y, (float) localMin.getMax());
-				t++;
-			}
-		}
-		
-		// clear the progress bar
-		if (this.showProgress()) {
-			IJ.showProgress(1);
+			// consecutive pixels (t, d-t) are separated by (width-1) in pixel array
+			filter.erosion(pixels, (d - tmin) * width + tmin, 1 - width, tmax - tmin);
 		}
 	}
 
+	
 	/* (non-Javadoc)
 	 * @see ijt.morphology.Strel#getMask()
 	 */
@@ -21,9 +21,8 @@
  */
 package inra.ijpb.morphology.strel;
 
-import ij.process.ByteProcessor;
 import ij.process.ImageProcessor;
-import inra.ijpb.morphology.Strel;
+import inra.ijpb.util.ParallelRanges;
 
 /**
  * An horizontal linear structuring element of a given length.
@@ -109,197 +108,74 @@ public class LinearHorizontalStrel extends AbstractInPlaceStrel  {
 	 * @see inra.ijpb.morphology.InPlaceStrel#inPlaceDilation(ij.process.ImageProcessor)
 	 */
 	@Override
-	public void inPlaceDilation(ImageProcessor image) {
+	public void inPlaceDilation(final ImageProcessor image) {
 		// If size is one, there is no need to compute
 		if (size <= 1) { 
 			return;
 		}
 		
-		if (image instanceof ByteProcessor)
-			inPlaceDilationGray8(image);
-		else
-			inPlaceDilationFloat(image);
-	}
-	
-	private void inPlaceDilationGray8(ImageProcessor image) {
-		// get image size
-		int width = image.getWidth(); 
-		int height = image.getHeight();
-			
-		// shifts between reference position and last position
-		int shift = this.size - this.offset - 1;
-		
-		// create local histogram instance
-		LocalExtremumBufferGray8 localMax = new LocalExtremumBufferGray8(size,
-				LocalExtremum.Type.MAXIMUM);
-		
-		// Iterate on image rows
-		for (int y = 0; y < height; y++) {
-			fireProgressChanged(this, y, height);
-			
-			// init local histogram with background values
-			localMax.fill(Strel.BACKGROUND);
-			
-			// add neighbor values
-			for (int x = 0; x < Math.min(shift, width); x++) {
-				localMax.add(image.get(x, y));
+		ParallelRanges.run(image.getHeight(), getThreadCount(), new ParallelRanges.Task() {
+			public void process(int start, int end) {
+				dilateRows(image, start, end);
 			}
-			
-			// iterate along "middle" values
-			for (int x = 0; x < width - shift; x++) {
-				localMax.add(image.get(x + shift, y));
-				image.set(x, y, localMax.getMax());
-			}
-			
-			// process pixels at the end of the line
-			for (int x = Math.max(0, width - shift); x < width; x++) {
-				localMax.add(Strel.BACKGROUND);
-				image.set(x, y, localMax.getMax());
-			}
-		}
+		});
 		
 		// clear the progress bar
-		fireProgressChanged(this, height, height);
+		fireProgressChanged(this, image.getHeight(), image.getHeight());
 	}
 
-	private void inPlaceDilationFloat(ImageProcessor image) {
+	private void dilateRows(ImageProcessor image, int yStart, int yEnd) {
 		// get image size
 		int width = image.getWidth(); 
-		int height = image.getHeight();
-			
-		// shifts between reference position and last position
-		int shift = this.size - this.offset - 1;
+		Object pixels = image.getPixels();
 		
-		// create local histogram instance
-		LocalExtremumBufferDouble localMax = new LocalExtremumBufferDouble(size,
-				LocalExtremum.Type.MAXIMUM);
+		// create line filter, with "offset" pixels before current pixel
+		VanHerkGilWermanFilter filter = new VanHerkGilWermanFilter(size, offset);
 		
 		// Iterate on image rows
-		for (int y = 0; y < height; y++) {
-			fireProgressChanged(this, y, height);
-			
-			// init local histogram with background values
-			localMax.fill(Float.NEGATIVE_INFINITY);
-			
-			// add neighbor values
-			for (int x = 0; x < Math.min(shift, width); x++) {
-				localMax.add(image.getf(x, y));
-			}
+		for (int y = yStart; y < yEnd; y++) {
+			if (yStart == 0)
+				fireProgressChanged(this, y, yEnd);
 			
-			// iterate along "middle" values
-			for (int x = 0; x < width - shift; x++) {
-				localMax.add(image.getf(x + shift, y));
-				image.setf(x, y, (float) localMax.getMax());
-			}
-			
-			// process pixels at the end of the line
-			for (int x = Math.max(0, width - shift); x < width; x++) {
-				localMax.add(Float.NEGATIVE_INFINITY);
-				image.setf(x, y, (float) localMax.getMax());
-			}
+			filter.dilation(pixels, y * width, 1, width);
 		}
-		
-		// clear the progress bar
-		fireProgressChanged(this, height, height);
 	}
 
-
 	/* (non-Javadoc)
 	 * @see inra.ijpb.morphology.InPlaceStrel#inPlaceErosion(ij.process.ImageProcessor)
 	 */
 	@Override
-	public void inPlaceErosion(ImageProcessor image) {
+	public void inPlaceErosion(final ImageProcessor image) {
 		// If size is one, there is no need to compute
 		if (size <= 1) { 
 			return;
 		}
 		
-		if (image instanceof ByteProcessor)
-			inPlaceErosionGray8(image);
-		else
-			inPlaceErosionFloat(image);
-	}
-	
-	private void inPlaceErosionGray8(ImageProcessor image) {
-		// get image size
-		int width = image.getWidth(); 
-		int height = image.getHeight();
-		
-		// shifts between reference position and last position
-		int shift = this.size - this.offset - 1;
-		
-		// create local histogram instance
-		LocalExtremumBufferGray8 localMin = new LocalExtremumBufferGray8(size,
-				LocalExtremum.Type.MINIMUM);
-		
-		// Iterate on image rows
-		for (int y = 0; y < height; y++) {
-			fireProgressChanged(this, y, height);
-			
-			// reset local histogram
-			localMin.fill(Strel.FOREGROUND);
-			
-			// init local histogram with neighbor values
-			for (int x = 0; x < Math.min(shift, width); x++) {
-				localMin.add(image.get(x, y));
-			}
-			
-			// iterate along "middle" values
-			for (int x = 0; x < width - shift; x++) {
-				localMin.add(image.get(x + shift, y));
-				image.set(x, y, localMin.getMax());
+		ParallelRanges.run(image.getHeight(), getThreadCount(), new ParallelRanges.Task() {
+			public void process(int start, int end) {
+				erodeRows(image, start, end);
 			}
-			
-			// process pixels at the end of the line
-			for (int x = Math.max(0, width - shift); x < width; x++) {
-				localMin.add(Strel.FOREGROUND);
-				image.set(x, y, localMin.getMax());
-			}
-		}
+		});
 		
 		// clear the progress bar
-		fireProgressChanged(this, height, height);
+		fireProgressChanged(this, image.getHeight(), image.getHeight());
 	}
 
-	private void inPlaceErosionFloat(ImageProcessor image) {
+	private void erodeRows(ImageProcessor image, int yStart, int yEnd) {
 		// get image size
 		int width = image.getWidth(); 
-		int height = image.getHeight();
+		Object pixels = image.getPixels();
 		
-		// shifts between reference position and last position
-		int shift = this.size - this.offset - 1;
-		
-		// create local histogram instance
-		LocalExtremumBufferDouble localMin = new LocalExtremumBufferDouble(size,
-				LocalExtremum.Type.MINIMUM);
+		// create line filter, with "offset" pixels before current pixel
+		VanHerkGilWermanFilter filter = new VanHerkGilWermanFilter(size, offset);
 		
 		// Iterate on image rows
-		for (int y = 0; y < height; y++) {
-			fireProgressChanged(this, y, height);
-			
-			// reset local histogram
-			localMin.fill(Float.POSITIVE_INFINITY);
-			
-			// init local histogram with neighbor values
-			for (int x = 0; x < Math.min(shift, width); x++) {
-				localMin.add(image.getf(x, y));
-			}
-			
-			// iterate along "middle" values
-			for (int x = 0; x < width - shift; x++) {
-				localMin.add(image.getf(x + shift, y));
-				image.setf(x, y, (float) localMin.getMax());
-			}
+		for (int y = yStart; y < yEnd; y++) {
+			if (yStart == 0)
+				fireProgressChanged(this, y, yEnd);
 			
-			// process pixels at the end of the line
-			for (int x = Math.max(0, width - shift); x < width; x++) {
-				localMin.add(Float.POSITIVE_INFINITY);
-				image.setf(x, y, (float) localMin.getMax());
-			}
+			filter.erosion(pixels, y * width, 1, width);
 		}
-		
-		// clear the progress bar
-		fireProgressChanged(this, height, height);
 	}
 
 	
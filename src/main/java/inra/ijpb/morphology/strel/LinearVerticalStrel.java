@@ -21,9 +21,8 @@
  */
 package inra.ijpb.morphology.strel;
 
-import ij.process.ByteProcessor;
 import ij.process.ImageProcessor;
-import inra.ijpb.morphology.Strel;
+import inra.ijpb.util.ParallelRanges;
 
 /**
  * A vertical linear structuring element of a given length.
@@ -109,199 +108,78 @@ public class LinearVerticalStrel extends AbstractInPlaceStrel {
 	 * @see ijt.morphology.InPlaceStrel#inPlaceDilation(ij.process.ImageProcessor)
 	 */
 	@Override
-	public void inPlaceDilation(ImageProcessor image) {
+	public void inPlaceDilation(final ImageProcessor image) {
 		// If size is one, there is no need to compute
 		if (size <= 1) { 
 			return;
 		}
 		
-		if (image instanceof ByteProcessor)
-			inPlaceDilationGray8(image);
-		else
-			inPlaceDilationFloat(image);
-	}
-	
-	private void inPlaceDilationGray8(ImageProcessor image) {
-		// get image size
-		int width = image.getWidth(); 
-		int height = image.getHeight();
-	
-		// shifts between reference position and last position
-		int shift = this.size - this.offset - 1;
-		
-		// create local histogram instance
-		LocalExtremumBufferGray8 localMax = new LocalExtremumBufferGray8(size,
-				LocalExtremum.Type.MAXIMUM);
-
-		// Iterate on image columns
-		for (int x = 0; x < width; x++) {
-			fireProgressChanged(this, x, width);
-			
-			// reset local histogram
-			localMax.fill(Strel.BACKGROUND);
-			
-			// init local histogram with neighbor values
-			for (int y = 0; y < Math.min(shift, height); y++) {
-				localMax.add(image.get(x, y));
-			}
-			
-			// iterate along "middle" values
-			for (int y = 0; y < height - shift; y++) {
-				localMax.add(image.get(x, y + shift));
-				image.set(x, y, (int) localMax.getMax());
-			}
-			
-			// process pixels at the end of the line
-			for (int y = Math.max(0, height - shift); y < height; y++) {
-				localMax.add(Strel.BACKGROUND);
-				image.set(x, y, (int) localMax.getMax());
+		ParallelRanges.run(image.getWidth(), getThreadCount(), new ParallelRanges.Task() {
+			public void process(int start, int end) {
+				dilateColumns(image, start, end);
 			}
-		}
+		});
 		
 		// clear the progress bar
-		fireProgressChanged(this, width, width);
+		fireProgressChanged(this, image.getWidth(), image.getWidth());
 	}
 
-	
-	private void inPlaceDilationFloat(ImageProcessor image) {
+	private void dilateColumns(ImageProcessor image, int xStart, int xEnd) {
 		// get image size
 		int width = image.getWidth(); 
 		int height = image.getHeight();
-	
-		// shifts between reference position and last position
-		int shift = this.size - this.offset - 1;
+		Object pixels = image.getPixels();
 		
-		// create local histogram instance
-		LocalExtremumBufferDouble localMax = new LocalExtremumBufferDouble(size,
-				LocalExtremum.Type.MAXIMUM);
+		// create line filter, with "offset" pixels before current pixel
+		VanHerkGilWermanFilter filter = new VanHerkGilWermanFilter(size, offset);
 		
-		// Iterate on image columns
-		for (int x = 0; x < width; x++) {
-			fireProgressChanged(this, x, width);
-			
-			// reset local histogram
-			localMax.fill(Float.NEGATIVE_INFINITY);
-			
-			// init local histogram with neighbor values
-			for (int y = 0; y < Math.min(shift, height); y++) {
-				localMax.add(image.getf(x, y));
-			}
+		// Iterate on strips of adjacent image columns
+		for (int x = xStart; x < xEnd; x += VanHerkGilWermanFilter.STRIP_WIDTH) {
+			if (xStart == 0)
+				fireProgressChanged(this, x, xEnd);
 			
-			// iterate along "middle" values
-			for (int y = 0; y < height - shift; y++) {
-				localMax.add(image.getf(x, y + shift));
-				image.setf(x, y, (float) localMax.getMax());
-			}
-			
-			// process pixels at the end of the line
-			for (int y = Math.max(0, height - shift); y < height; y++) {
-				localMax.add(Float.NEGATIVE_INFINITY);
-				image.setf(x, y, (float) localMax.getMax());
-			}
+			int nColumns = Math.min(VanHerkGilWermanFilter.STRIP_WIDTH, xEnd - x);
+			filter.dilation(pixels, x, width, height, nColumns);
 		}
-		
-		// clear the progress bar
-		fireProgressChanged(this, width, width);
 	}
 
 	/* (non-Javadoc)
 	 * @see ijt.morphology.InPlaceStrel#inPlaceErosion(ij.process.ImageProcessor)
 	 */
 	@Override
-	public void inPlaceErosion(ImageProcessor image) {
+	public void inPlaceErosion(final ImageProcessor image) {
 		// If size is one, there is no need to compute
 		if (size <= 1) { 
 			return;
 		}
 		
-		if (image instanceof ByteProcessor)
-			inPlaceErosionGray8(image);
-		else
-			inPlaceErosionFloat(image);
-	}
-	
-	private void inPlaceErosionGray8(ImageProcessor image) {
-		// get image size
-		int width = image.getWidth(); 
-		int height = image.getHeight();
-	
-		// shifts between reference position and last position
-		int shift = this.size - this.offset - 1;
-		
-		// create local histogram instance
-		LocalExtremumBufferGray8 localMin = new LocalExtremumBufferGray8(size,
-				LocalExtremum.Type.MINIMUM);
-
-
-		// Iterate on image columns
-		for (int x = 0; x < width; x++) {
-			fireProgressChanged(this, x, width);
-			
-			// reset local histogram
-			localMin.fill(Strel.FOREGROUND);
-			
-			// init local histogram with neighbor values
-			for (int y = 0; y < Math.min(shift, height); y++) {
-				localMin.add(image.get(x, y));
+		ParallelRanges.run(image.getWidth(), getThreadCount(), new ParallelRanges.Task() {
+			public void process(int start, int end) {
+				erodeColumns(image, start, end);
 			}
-			
-			// iterate along "middle" values
-			for (int y = 0; y < height - shift; y++) {
-				localMin.add(image.get(x, y + shift));
-				image.set(x, y, localMin.getMax());
-			}
-			
-			// process pixels at the end of the line
-			for (int y = Math.max(0, height - shift); y < height; y++) {
-				localMin.add(Strel.FOREGROUND);
-				image.set(x, y, localMin.getMax());
-			}
-		}
+		});
 		
 		// clear the progress bar
-		fireProgressChanged(this, width, width);
+		fireProgressChanged(this, image.getWidth(), image.getWidth());
 	}
 
-	private void inPlaceErosionFloat(ImageProcessor image) {
+	private void erodeColumns(ImageProcessor image, int xStart, int xEnd) {
 		// get image size
 		int width = image.getWidth(); 
 		int height = image.getHeight();
-	
-		// shifts between reference position and last position
-		int shift = this.size - this.offset - 1;
+		Object pixels = image.getPixels();
 		
-		// create local histogram instance
-		LocalExtremumBufferDouble localMin = new LocalExtremumBufferDouble(size,
-				LocalExtremum.Type.MINIMUM);
-
+		// create line filter, with "offset" pixels before current pixel
+		VanHerkGilWermanFilter filter = new VanHerkGilWermanFilter(size, offset);
 		
-		// Iterate on image columns
-		for (int x = 0; x < width; x++) {
-			fireProgressChanged(this, x, width);
-			
-			// reset local histogram
-			localMin.fill(Float.POSITIVE_INFINITY);
-			
-			// init local histogram with neighbor values
-			for (int y = 0; y < Math.min(shift, height); y++) {
-				localMin.add(image.getf(x, y));
-			}
-			
-			// iterate along "middle" values
-			for (int y = 0; y < height - shift; y++) {
-				localMin.add(image.getf(x, y + shift));
-				image.setf(x, y, (float) localMin.getMax());
-			}
+		// Iterate on strips of adjacent image columns
+		for (int x = xStart; x < xEnd; x += VanHerkGilWermanFilter.STRIP_WIDTH) {
+			if (xStart == 0)
+				fireProgressChanged(this, x, xEnd);
 			
-			// process pixels at the end of the line
-			for (int y = Math.max(0, height - shift); y < height; y++) {
-				localMin.add(Float.POSITIVE_INFINITY);
-				image.setf(x, y, (float) localMin.getMax());
-			}
+			int nColumns = Math.min(VanHerkGilWermanFilter.STRIP_WIDTH, xEnd - x);
+			filter.erosion(pixels, x, width, height, nColumns);
 		}
-		
-		// clear the progress bar
-		fireProgressChanged(this, width, width);
 	}
 
 	
@@ -0,0 +1,411 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.morphology.strel;
+
+import ij.process.ImageProcessor;
+
+/**
+ * <p>
+ * Computes the minimum or the maximum over a planar neighborhood decomposed
+ * into horizontal chords, using the algorithm of Urbach and Wilkinson.
+ * </p>
+ * <p>
+ * For each row of the source image, a table of extrema over windows whose
+ * length is a power of two is computed once. The extremum over a chord of
+ * any length is then obtained from two overlapping windows of the table,
+ * and the extremum over the neighborhood is the extremum over its chords.
+ * The processing time depends on the number of chords, and not on the
+ * number of pixels within the neighborhood.
+ * </p>
+ * <p>
+ * Several neighborhoods with the same height, called sections, can be
+ * processed together, sharing the tables of the rows. This is used for 3D
+ * neighborhoods, decomposed into the planar sections orthogonal to the
+ * z-axis. Each row of the result is combined into a set of target images
+ * for each section.
+ * </p>
+ * <p>
+ * Chords are centered on the reference pixel, and pixels outside of the
+ * image are ignored. Tables are kept in a cache containing the rows around
+ * the last processed row, so rows are expected to be processed in
+ * increasing order. Each instance allocates its own buffers, so a single
+ * instance must not be shared by several threads.
+ * </p>
+ * 
+ * @author agent
+ *
+ */
+final class UrbachWilkinsonFilter
+{
+	// ==================================================
+	// Description of the neighborhood
+	
+	/**
+	 * The half-width of each chord, for each section and each row offset
+	 * between -radiusY and +radiusY, or -1 for rows without chord.
+	 */
+	private final int[][] halfWidths;
+
+	/**
+	 * The number of rows of the neighborhood above and below the reference
+	 * pixel.
+	 */
+	private final int radiusY;
+	
+	/**
+	 * The largest half-width of chords, used for padding the rows.
+	 */
+	private final int maxHalfWidth;
+	
+	/**
+	 * The number of levels of the tables, such that the longest chord
+	 * contains at least the length of the last level.
+	 */
+	private final int levelCount;
+	
+	/**
+	 * The table level used for each chord.
+	 */
+	private final int[][] chordLevels;
+	
+	/**
+	 * The shift between the two windows used for each chord.
+	 */
+	private final int[][] chordShifts;
+	
+	
+	// ==================================================
+	// Cache of row tables
+	
+	/**
+	 * The tables of extrema, for each cached row and each level.
+	 */
+	private float[][][] tables = null;
+	
+	/**
+	 * The index of the row stored in each slot of the cache, or -1.
+	 */
+	private int[] cachedRows;
+	
+	/**
+	 * The source image of the cached rows.
+	 */
+	private Object cachedPixels = null;
+	
+	/**
+	 * The type of extremum of the cached rows.
+	 */
+	private boolean cachedMax;
+	
+	/**
+	 * The extrema over the neighborhood for the current row.
+	 */
+	private float[] rowValues;
+	
+	
+	// ==================================================
+	// Constructor
+	
+	/**
+	 * Creates a new filter from the half-widths of the chords of each
+	 * section.
+	 * 
+	 * @param halfWidths
+	 *            the half-width of the chords, for each section and each row
+	 *            of the neighborhood, or -1 for rows without chord. All
+	 *            sections must have the same odd number of rows.
+	 */
+	UrbachWilkinsonFilter(int[][] halfWidths)
+	{
+		int nRows = halfWidths[0].length;
+		if (nRows % 2 == 0)
+		{
+			throw new IllegalArgumentException("Requires an odd number of rows");
+		}
+		for (int[] section : halfWidths)
+		{
+			if (section.length != nRows)
+			{
+				throw new IllegalArgumentException("All sections must have the same number of rows");
+			}
+		}
+		
+		this.halfWidths = halfWidths;
+		this.radiusY = (nRows - 1) / 2;
+		
+		int maxHalf = 0;
+		for (int[] section : halfWidths)
+		{
+			for (int h : section)
+				maxHalf = Math.max(maxHalf, h);
+		}
+		this.maxHalfWidth = maxHalf;
+		this.levelCount = log2(2 * maxHalf + 1) + 1;
+		
+		// for each chord, compute the level and the shift of the windows
+		int nSections = halfWidths.length;
+		this.chordLevels = new int[nSections][nRows];
+		this.chordShifts = new int[nSections][nRows];
+		for (int s = 0; s < nSections; s++)
+		{
+			for (int r = 0; r < nRows; r++)
+			{
+				int h = halfWidths[s][r];
+				if (h < 0)
+					continue;
+				int length = 2 * h + 1;
+				int level = log2(length);
+				this.chordLevels[s][r] = level;
+				this.chordShifts[s][r] = length - (1 << level);
+			}
+		}
+		
+		this.cachedRows = new int[nRows];
+	}
+	
+	private static final int log2(int n)
+	{
+		return 31 - Integer.numberOfLeadingZeros(n);
+	}
+	
+	
+	// ==================================================
+	// Processing methods
+	
+	/**
+	 * Computes the extrema over the neighborhood of each pixel of a row of
+	 * the source image, and combines the result into the target images of
+	 * each section. Target images must have the same size and the same type
+	 * as the source image.
+	 * 
+	 * @param source
+	 *            the image to filter, with byte, short or float pixels
+	 * @param y
+	 *            the index of the row to process
+	 * @param targets
+	 *            the images that receive the result of each section
+	 * @param max
+	 *            true for computing maxima, false for minima
+	 * @param combine
+	 *            if true, the values of the target are replaced only when the
+	 *            result is larger (for maxima) or smaller (for minima). If
+	 *            false, the values of the target are replaced.
+	 */
+	void filterRow(ImageProcessor source, int y, ImageProcessor[][] targets,
+			boolean max, boolean combine)
+	{
+		int width = source.getWidth();
+		int height = source.getHeight();
+		Object pixels = source.getPixels();
+		prepareCache(pixels, width, max);
+		
+		float[] values = this.rowValues;
+		for (int s = 0; s < halfWidths.length; s++)
+		{
+			if (targets[s].length == 0)
+				continue;
+			
+			// reset current row
+			float neutral = max ? Float.NEGATIVE_INFINITY : Float.POSITIVE_INFINITY;
+			for (int x = 0; x < width; x++)
+				values[x] = neutral;
+			
+			// combine the extrema over each chord
+			for (int r = 0; r < 2 * radiusY + 1; r++)
+			{
+				int h = halfWidths[s][r];
+				int j = y + r - radiusY;
+				if (h < 0 || j < 0 || j >= height)
+					continue;
+				
+				float[] table = rowTables(pixels, j, width, max)[chordLevels[s][r]];
+				int i0 = maxHalfWidth - h;
+				int i1 = i0 + chordShifts[s][r];
+				if (max)
+				{
+					for (int x = 0; x < width; x++)
+					{
+						float v = Math.max(table[i0 + x], table[i1 + x]);
+						if (v > values[x])
+							values[x] = v;
+					}
+				}
+				else
+				{
+					for (int x = 0; x < width; x++)
+					{
+						float v = Math.min(table[i0 + x], table[i1 + x]);
+						if (v < values[x])
+							values[x] = v;
+					}
+				}
+			}
+			
+			for (ImageProcessor target : targets[s])
+			{
+				store(target.getPixels(), y * width, width, max, combine);
+			}
+		}
+	}
+	
+	/**
+	 * Allocates the cache if necessary, and clears it if the source or the
+	 * type of extremum changed.
+	 */
+	private void prepareCache(Object pixels, int width, boolean max)
+	{
+		int tableLength = width + 2 * maxHalfWidth;
+		if (tables == null || tables[0][0].length != tableLength)
+		{
+			tables = new float[2 * radiusY + 1][levelCount][tableLength];
+			rowValues = new float[width];
+			cachedPixels = null;
+		}
+		
+		if (pixels != cachedPixels || max != cachedMax)
+		{
+			for (int i = 0; i < cachedRows.length; i++)
+				cachedRows[i] = -1;
+			cachedPixels = pixels;
+			cachedMax = max;
+		}
+	}
+	
+	/**
+	 * Returns the tables of the specified row, computing them if they are not
+	 * within the cache.
+	 */
+	private float[][] rowTables(Object pixels, int j, int width, boolean max)
+	{
+		int slot = j % cachedRows.length;
+		float[][] rowTables = tables[slot];
+		if (cachedRows[slot] == j)
+		{
+			return rowTables;
+		}
+		
+		// first level contains the padded row
+		float[] level0 = rowTables[0];
+		int length = level0.length;
+		float neutral = max ? Float.NEGATIVE_INFINITY : Float.POSITIVE_INFINITY;
+		for (int i = 0; i < maxHalfWidth; i++)
+		{
+			level0[i] = neutral;
+			level0[length - 1 - i] = neutral;
+		}
+		load(pixels, j * width, width, level0, maxHalfWidth);
+		
+		// each level combines two windows of the previous level
+		for (int k = 1; k < levelCount; k++)
+		{
+			float[] prev = rowTables[k - 1];
+			float[] table = rowTables[k];
+			int half = 1 << (k - 1);
+			int n = length - 2 * half + 1;
+			if (max)
+			{
+				for (int i = 0; i < n; i++)
+					table[i] = Math.max(prev[i], prev[i + half]);
+			}
+			else
+			{
+				for (int i = 0; i < n; i++)
+					table[i] = Math.min(prev[i], prev[i + half]);
+			}
+		}
+		
+		cachedRows[slot] = j;
+		return rowTables;
+	}
+	
+	/**
+	 * Copies the values of a row of the pixel array into a float array.
+	 */
+	private static final void load(Object pixels, int offset, int count, float[] values, int start)
+	{
+		if (pixels instanceof byte[])
+		{
+			byte[] array = (byte[]) pixels;
+			for (int i = 0; i < count; i++)
+				values[start + i] = array[offset + i] & 0x00FF;
+		}
+		else if (pixels instanceof short[])
+		{
+			short[] array = (short[]) pixels;
+			for (int i = 0; i < count; i++)
+				values[start + i] = array[offset + i] & 0x00FFFF;
+		}
+		else if (pixels instanceof float[])
+		{
+			System.arraycopy((float[]) pixels, offset, values, start, count);
+		}
+		else
+		{
+			throw new IllegalArgumentException("Requires an array of byte, short or float values");
+		}
+	}
+	
+	/**
+	 * Copies the values of the current row into a row of the pixel array,
+	 * possibly combining with the existing values.
+	 */
+	private void store(Object pixels, int offset, int count, boolean max, boolean combine)
+	{
+		float[] values = this.rowValues;
+		if (pixels instanceof byte[])
+		{
+			byte[] array = (byte[]) pixels;
+			for (int i = 0; i < count; i++)
+			{
+				int v = (int) values[i];
+				int v0 = array[offset + i] & 0x00FF;
+				if (!combine || (max ? v > v0 : v < v0))
+					array[offset + i] = (byte) v;
+			}
+		}
+		else if (pixels instanceof short[])
+		{
+			short[] array = (short[]) pixels;
+			for (int i = 0; i < count; i++)
+			{
+				int v = (int) values[i];
+				int v0 = array[offset + i] & 0x00FFFF;
+				if (!combine || (max ? v > v0 : v < v0))
+					array[offset + i] = (short) v;
+			}
+		}
+		else if (pixels instanceof float[])
+		{
+			float[] array = (float[]) pixels;
+			for (int i = 0; i < count; i++)
+			{
+				float v = values[i];
+				if (!combine || (max ? v > array[offset + i] : v < array[offset + i]))
+					array[offset + i] = v;
+			}
+		}
+		else
+		{
+			throw new IllegalArgumentException("Requires an array of byte, short or float values");
+		}
+	}
+}
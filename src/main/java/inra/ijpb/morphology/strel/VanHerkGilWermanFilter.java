@@ -0,0 +1,970 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.morphology.strel;
+
+/**
+ * <p>
+ * Computes the minimum or the maximum within a sliding window along lines of
+ * pixels, using the algorithm of van Herk and Gil-Werman.
+ * </p>
+ * <p>
+ * The line is split into blocks with the length of the window. The prefix
+ * extrema within each block are computed from left to right, the suffix
+ * extrema from right to left, and the extremum over a window is obtained by
+ * combining a suffix and a prefix value. This requires about three
+ * comparisons per pixel, whatever the length of the window.
+ * </p>
+ * <p>
+ * Values outside of the line are ignored, which is equivalent to padding the
+ * line with the background value for dilations and with the foreground value
+ * for erosions. Lines are read from and written to the pixel arrays of byte,
+ * short, float or RGB images. The channels of RGB images are processed
+ * independently. Several adjacent lines can be processed together, so that
+ * lines along the y- or z-axis are read from contiguous memory. Each instance
+ * allocates its own buffers, so a single instance must not be shared by
+ * several threads.
+ * </p>
+ * 
+ * @author agent
+ *
+ */
+final class VanHerkGilWermanFilter
+{
+	/**
+	 * The number of adjacent lines processed together when lines are not
+	 * contiguous in memory.
+	 */
+	static final int STRIP_WIDTH = 16;
+	
+	/**
+	 * The number of pixels within the window.
+	 */
+	private final int size;
+	
+	/**
+	 * The number of pixels of the window located before the current pixel.
+	 */
+	private final int before;
+	
+	/**
+	 * The lines padded on both sides and interleaved, also used for suffix
+	 * extrema and result.
+	 */
+	private int[] intValues = new int[0];
+	
+	/**
+	 * The prefix extrema within each block.
+	 */
+	private int[] intForward = new int[0];
+	
+	/**
+	 * The lines padded on both sides and interleaved, also used for suffix
+	 * extrema and result.
+	 */
+	private float[] floatValues = new float[0];
+	
+	/**
+	 * The prefix extrema within each block.
+	 */
+	private float[] floatForward = new float[0];
+	
+	/**
+	 * Creates a new filter for a window with the given number of pixels.
+	 * 
+	 * @param size
+	 *            the number of pixels within the window
+	 * @param before
+	 *            the number of pixels of the window located before the
+	 *            current pixel, between 0 and size-1
+	 */
+	VanHerkGilWermanFilter(int size, int before)
+	{
+		if (size < 1)
+		{
+			throw new IllegalArgumentException("Requires a positive size");
+		}
+		if (before < 0 || before >= size)
+		{
+			throw new IllegalArgumentException("Requires a position between 0 and size-1");
+		}
+		this.size = size;
+		this.before = before;
+	}
+	
+	
+	// ==================================================
+	// Processing of lines within planar images
+	
+	/**
+	 * Replaces each pixel of a line by the maximum value within the window.
+	 * 
+	 * @param pixels
+	 *            the pixel array of the image, as a byte, short, float or int
+	 *            array
+	 * @param start
+	 *            the index of the first pixel of the line
+	 * @param stride
+	 *            the difference of index between two consecutive pixels of
+	 *            the line
+	 * @param count
+	 *            the number of pixels of the line
+	 */
+	void dilation(Object pixels, int start, int stride, int count)
+	{
+		process(pixels, start, stride, count, 1, true);
+	}
+	
+	/**
+	 * Replaces each pixel of a line by the minimum value within the window.
+	 * 
+	 * @param pixels
+	 *            the pixel array of the image, as a byte, short, float or int
+	 *            array
+	 * @param start
+	 *            the index of the first pixel of the line
+	 * @param stride
+	 *            the difference of index between two consecutive pixels of
+	 *            the line
+	 * @param count
+	 *            the number of pixels of the line
+	 */
+	void erosion(Object pixels, int start, int stride, int count)
+	{
+		process(pixels, start, stride, count, 1, false);
+	}
+	
+	/**
+	 * Replaces each pixel of several adjacent lines by the maximum value
+	 * within the window. The first pixels of the lines are located at
+	 * consecutive indices.
+	 * 
+	 * @param pixels
+	 *            the pixel array of the image, as a byte, short, float or int
+	 *            array
+	 * @param start
+	 *            the index of the first pixel of the first line
+	 * @param stride
+	 *            the difference of index between two consecutive pixels of
+	 *            a line
+	 * @param count
+	 *            the number of pixels of each line
+	 * @param lineCount
+	 *            the number of adjacent lines to process
+	 */
+	void dilation(Object pixels, int start, int stride, int count, int lineCount)
+	{
+		process(pixels, start, stride, count, lineCount, true);
+	}
+	
+	/**
+	 * Replaces each pixel of several adjacent lines by the minimum value
+	 * within the window. The first pixels of the lines are located at
+	 * consecutive indices.
+	 * 
+	 * @param pixels
+	 *            the pixel array of the image, as a byte, short, float or int
+	 *            array
+	 * @param start
+	 *            the index of the first pixel of the first line
+	 * @param stride
+	 *            the difference of index between two consecutive pixels of
+	 *            a line
+	 * @param count
+	 *            the number of pixels of each line
+	 * @param lineCount
+	 *            the number of adjacent lines to process
+	 */
+	void erosion(Object pixels, int start, int stride, int count, int lineCount)
+	{
+		process(pixels, start, stride, count, lineCount, false);
+	}
+
+	private void process(Object pixels, int start, int stride, int count, int lineCount, boolean max)
+	{
+		if (count == 0 || lineCount == 0)
+		{
+			return;
+		}
+		
+		if (pixels instanceof byte[])
+		{
+			intBuffer(count, lineCount, max);
+			read((byte[]) pixels, start, stride, count, lineCount);
+			filterInt(count, lineCount, max);
+			write((byte[]) pixels, start, stride, count, lineCount);
+		}
+		else if (pixels instanceof short[])
+		{
+			intBuffer(count, lineCount, max);
+			read((short[]) pixels, start, stride, count, lineCount);
+			filterInt(count, lineCount, max);
+			write((short[]) pixels, start, stride, count, lineCount);
+		}
+		else if (pixels instanceof float[])
+		{
+			floatBuffer(count, lineCount, max);
+			read((float[]) pixels, start, stride, count, lineCount);
+			filterFloat(count, lineCount, max);
+			write((float[]) pixels, start, stride, count, lineCount);
+		}
+		else if (pixels instanceof int[])
+		{
+			// process the red, green and blue channels independently
+			for (int shift = 16; shift >= 0; shift -= 8)
+			{
+				intBuffer(count, lineCount, max);
+				read((int[]) pixels, shift, start, stride, count, lineCount);
+				filterInt(count, lineCount, max);
+				write((int[]) pixels, shift, start, stride, count, lineCount);
+			}
+		}
+		else
+		{
+			throw new IllegalArgumentException("Requires an array of byte, short, float or int values");
+		}
+	}
+	
+	/**
+	 * Copies the lines from the pixel array into the buffer, after the
+	 * padding. Lines are interleaved when several lines are processed.
+	 */
+	private void read(byte[] array, int start, int stride, int count, int m)
+	{
+		int[] values = intValues;
+		if (m == 1)
+		{
+			for (int i = 0, index = start; i < count; i++, index += stride)
+				values[before + i] = array[index] & 0x00FF;
+			return;
+		}
+		
+		for (int i = 0, index = start, k = before * m; i < count; i++, index += stride)
+		{
+			for (int c = 0; c < m; c++, k++)
+				values[k] = array[index + c] & 0x00FF;
+		}
+	}
+	
+	/**
+	 * Copies the filtered lines from the buffer into the pixel array.
+	 */
+	private void write(byte[] array, int start, int stride, int count, int m)
+	{
+		int[] values = intValues;
+		if (m == 1)
+		{
+			for (int i = 0, index = start; i < count; i++, index += stride)
+				array[index] = (byte) values[i];
+			return;
+		}
+		
+		for (int i = 0, index = start, k = 0; i < count; i++, index += stride)
+		{
+			for (int c = 0; c < m; c++, k++)
+				array[index + c] = (byte) values[k];
+		}
+	}
+	
+	/**
+	 * Copies the lines from the pixel array into the buffer, after the
+	 * padding. Lines are interleaved when several lines are processed.
+	 */
+	private void read(short[] array, int start, int stride, int count, int m)
+	{
+		int[] values = intValues;
+		if (m == 1)
+		{
+			for (int i = 0, index = start; i < count; i++, index += stride)
+				values[before + i] = array[index] & 0x00FFFF;
+			return;
+		}
+		
+		for (int i = 0, index = start, k = before * m; i < count; i++, index += stride)
+		{
+			for (int c = 0; c < m; c++, k++)
+				values[k] = array[index + c] & 0x00FFFF;
+		}
+	}
+	
+	/**
+	 * Copies the filtered lines from the buffer into the pixel array.
+	 */
+	private void write(short[] array, int start, int stride, int count, int m)
+	{
+		int[] values = intValues;
+		if (m == 1)
+		{
+			for (int i = 0, index = start; i < count; i++, index += stride)
+				array[index] = (short) values[i];
+			return;
+		}
+		
+		for (int i = 0, index = start, k = 0; i < count; i++, index += stride)
+		{
+			for (int c = 0; c < m; c++, k++)
+				array[index + c] = (short) values[k];
+		}
+	}
+	
+	/**
+	 * Copies the lines from the pixel array into the buffer, after the
+	 * padding. Lines are interleaved when several lines are processed.
+	 */
+	private void read(float[] array, int start, int stride, int count, int m)
+	{
+		float[] values = floatValues;
+		if (m == 1)
+		{
+			for (int i = 0, index = start; i < count; i++, index += stride)
+				values[before + i] = array[index];
+			return;
+		}
+		
+		for (int i = 0, index = start, k = before * m; i < count; i++, index += stride)
+		{
+			for (int c = 0; c < m; c++, k++)
+				values[k] = array[index + c];
+		}
+	}
+	
+	/**
+	 * Copies the filtered lines from the buffer into the pixel array.
+	 */
+	private void write(float[] array, int start, int stride, int count, int m)
+	{
+		float[] values = floatValues;
+		if (m == 1)
+		{
+			for (int i = 0, index = start; i < count; i++, index += stride)
+				array[index] = values[i];
+			return;
+		}
+		
+		for (int i = 0, index = start, k = 0; i < count; i++, index += stride)
+		{
+			for (int c = 0; c < m; c++, k++)
+				array[index + c] = values[k];
+		}
+	}
+	
+	
+	/**
+	 * Copies the values of a channel of the lines from the pixel array into
+	 * the buffer, after the padding. Lines are interleaved when several lines
+	 * are processed.
+	 */
+	private void read(int[] array, int shift, int start, int stride, int count, int m)
+	{
+		int[] values = intValues;
+		if (m == 1)
+		{
+			for (int i = 0, index = start; i < count; i++, index += stride)
+				values[before + i] = (array[index] >> shift) & 0x00FF;
+			return;
+		}
+		
+		for (int i = 0, index = start, k = before * m; i < count; i++, index += stride)
+		{
+			for (int c = 0; c < m; c++, k++)
+				values[k] = (array[index + c] >> shift) & 0x00FF;
+		}
+	}
+	
+	/**
+	 * Copies the filtered values of a channel from the buffer into the pixel
+	 * array, keeping the values of the other channels.
+	 */
+	private void write(int[] array, int shift, int start, int stride, int count, int m)
+	{
+		int[] values = intValues;
+		int mask = ~(0x00FF << shift);
+		if (m == 1)
+		{
+			for (int i = 0, index = start; i < count; i++, index += stride)
+				array[index] = (array[index] & mask) | (values[i] << shift);
+			return;
+		}
+		
+		for (int i = 0, index = start, k = 0; i < count; i++, index += stride)
+		{
+			for (int c = 0; c < m; c++, k++)
+				array[index + c] = (array[index + c] & mask) | (values[k] << shift);
+		}
+	}
+	
+	
+	// ==================================================
+	// Processing of lines along the z-axis of 3D images
+	
+	/**
+	 * Replaces each voxel of several adjacent lines along the z-axis by the
+	 * maximum value within the window.
+	 * 
+	 * @param slices
+	 *            the pixel arrays of the slices of the stack, as byte, short,
+	 *            float or int arrays
+	 * @param index
+	 *            the index of the first line within each slice
+	 * @param count
+	 *            the number of slices
+	 * @param lineCount
+	 *            the number of lines to process, located at consecutive
+	 *            indices within each slice
+	 */
+	void dilation(Object[] slices, int index, int count, int lineCount)
+	{
+		process(slices, index, count, lineCount, true);
+	}
+	
+	/**
+	 * Replaces each voxel of several adjacent lines along the z-axis by the
+	 * minimum value within the window.
+	 * 
+	 * @param slices
+	 *            the pixel arrays of the slices of the stack, as byte, short,
+	 *            float or int arrays
+	 * @param index
+	 *            the index of the first line within each slice
+	 * @param count
+	 *            the number of slices
+	 * @param lineCount
+	 *            the number of lines to process, located at consecutive
+	 *            indices within each slice
+	 */
+	void erosion(Object[] slices, int index, int count, int lineCount)
+	{
+		process(slices, index, count, lineCount, false);
+	}
+	
+	private void process(Object[] slices, int index, int count, int lineCount, boolean max)
+	{
+		if (count == 0 || lineCount == 0)
+		{
+			return;
+		}
+		
+		int m = lineCount;
+		if (slices[0] instanceof byte[])
+		{
+			int[] values = intBuffer(count, m, max);
+			for (int z = 0, k = before * m; z < count; z++)
+			{
+				byte[] array = (byte[]) slices[z];
+				for (int c = 0; c < m; c++, k++)
+					values[k] = array[index + c] & 0x00FF;
+			}
+			filterInt(count, m, max);
+			for (int z = 0, k = 0; z < count; z++)
+			{
+				byte[] array = (byte[]) slices[z];
+				for (int c = 0; c < m; c++, k++)
+					array[index + c] = (byte) values[k];
+			}
+		}
+		else if (slices[0] instanceof short[])
+		{
+			int[] values = intBuffer(count, m, max);
+			for (int z = 0, k = before * m; z < count; z++)
+			{
+				short[] array = (short[]) slices[z];
+				for (int c = 0; c < m; c++, k++)
+					values[k] = array[index + c] & 0x00FFFF;
+			}
+			filterInt(count, m, max);
+			for (int z = 0, k = 0; z < count; z++)
+			{
+				short[] array = (short[]) slices[z];
+				for (int c = 0; c < m; c++, k++)
+					array[index + c] = (short) values[k];
+			}
+		}
+		else if (slices[0] instanceof float[])
+		{
+			float[] values = floatBuffer(count, m, max);
+			for (int z = 0, k = before * m; z < count; z++)
+			{
+				float[] array = (float[]) slices[z];
+				for (int c = 0; c < m; c++, k++)
+					values[k] = array[index + c];
+			}
+			filterFloat(count, m, max);
+			for (int z = 0, k = 0; z < count; z++)
+			{
+				float[] array = (float[]) slices[z];
+				for (int c = 0; c < m; c++, k++)
+					array[index + c] = values[k];
+			}
+		}
+		else if (slices[0] instanceof int[])
+		{
+			// process the red, green and blue channels independently
+			for (int shift = 16; shift >= 0; shift -= 8)
+			{
+				int[] values = intBuffer(count, m, max);
+				for (int z = 0, k = before * m; z < count; z++)
+				{
+					int[] array = (int[]) slices[z];
+					for (int c = 0; c < m; c++, k++)
+						values[k] = (array[index + c] >> shift) & 0x00FF;
+				}
+				filterInt(count, m, max);
+				int mask = ~(0x00FF << shift);
+				for (int z = 0, k = 0; z < count; z++)
+				{
+					int[] array = (int[]) slices[z];
+					for (int c = 0; c < m; c++, k++)
+						array[index + c] = (array[index + c] & mask) | (values[k] << shift);
+				}
+			}
+		}
+		else
+		{
+			throw new IllegalArgumentException("Requires arrays of byte, short, float or int values");
+		}
+	}
+	
+	
+	// ==================================================
+	// Buffer management
+	
+	/**
+	 * Ensures the integer buffers can contain the padded lines, and fills the
+	 * padding with the neutral value of the operation.
+	 */
+	private int[] intBuffer(int count, int lineCount, boolean max)
+	{
+		int length = (count + size - 1) * lineCount;
+		if (intValues.length < length)
+		{
+			intValues = new int[length];
+			intForward = new int[length];
+		}
+		
+		int pad = max ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+		for (int i = 0; i < before * lineCount; i++)
+		{
+			intValues[i] = pad;
+		}
+		for (int i = (before + count) * lineCount; i < length; i++)
+		{
+			intValues[i] = pad;
+		}
+		return intValues;
+	}
+	
+	/**
+	 * Ensures the float buffers can contain the padded lines, and fills the
+	 * padding with the neutral value of the operation.
+	 */
+	private float[] floatBuffer(int count, int lineCount, boolean max)
+	{
+		int length = (count + size - 1) * lineCount;
+		if (floatValues.length < length)
+		{
+			floatValues = new float[length];
+			floatForward = new float[length];
+		}
+		
+		float pad = max ? Float.NEGATIVE_INFINITY : Float.POSITIVE_INFINITY;
+		for (int i = 0; i < before * lineCount; i++)
+		{
+			floatValues[i] = pad;
+		}
+		for (int i = (before + count) * lineCount; i < length; i++)
+		{
+			floatValues[i] = pad;
+		}
+		return floatValues;
+	}
+	
+	
+	// ==================================================
+	// Van Herk / Gil-Werman kernels
+	
+	private void filterInt(int count, int lineCount, boolean max)
+	{
+		if (lineCount == 1)
+		{
+			if (max)
+				maxInt(count);
+			else
+				minInt(count);
+		}
+		else
+		{
+			if (max)
+				maxIntStrip(count, lineCount);
+			else
+				minIntStrip(count, lineCount);
+		}
+	}
+	
+	private void filterFloat(int count, int lineCount, boolean max)
+	{
+		if (lineCount == 1)
+		{
+			if (max)
+				maxFloat(count);
+			else
+				minFloat(count);
+		}
+		else
+		{
+			if (max)
+				maxFloatStrip(count, lineCount);
+			else
+				minFloatStrip(count, lineCount);
+		}
+	}
+	
+	/**
+	 * Computes the maximum over each window of a single padded line. The
+	 * result for the i-th pixel of the line is stored at index i of the
+	 * buffer.
+	 */
+	private void maxInt(int count)
+	{
+		int[] values = intValues;
+		int[] forward = intForward;
+		int length = count + size - 1;
+		
+		for (int b = 0; b < length; b += size)
+		{
+			int end = Math.min(b + size, length);
+			
+			// prefix maxima within block
+			int v = values[b];
+			forward[b] = v;
+			for (int i = b + 1; i < end; i++)
+			{
+				if (values[i] > v)
+					v = values[i];
+				forward[i] = v;
+			}
+			
+			// suffix maxima within block, computed in place
+			for (int i = end - 2; i >= b; i--)
+			{
+				if (values[i + 1] > values[i])
+					values[i] = values[i + 1];
+			}
+		}
+		
+		// combine suffix of current block with prefix of next block
+		for (int i = 0, j = size - 1; i < count; i++, j++)
+		{
+			if (forward[j] > values[i])
+				values[i] = forward[j];
+		}
+	}
+	
+	/**
+	 * Computes the maximum over each window of several interleaved padded
+	 * lines. The result for the i-th pixel of each line is stored at row i of
+	 * the buffer.
+	 */
+	private void maxIntStrip(int count, int lineCount)
+	{
+		int[] values = intValues;
+		int[] forward = intForward;
+		int m = lineCount;
+		int length = count + size - 1;
+		
+		for (int b = 0; b < length; b += size)
+		{
+			int end = Math.min(b + size, length);
+			
+			// prefix maxima within block
+			for (int c = b * m; c < (b + 1) * m; c++)
+			{
+				forward[c] = values[c];
+			}
+			for (int i = (b + 1) * m; i < end * m; i++)
+			{
+				forward[i] = values[i] > forward[i - m] ? values[i] : forward[i - m];
+			}
+			
+			// suffix maxima within block, computed in place
+			for (int i = (end - 1) * m - 1; i >= b * m; i--)
+			{
+				if (values[i + m] > values[i])
+					values[i] = values[i + m];
+			}
+		}
+		
+		// combine suffix of current block with prefix of next block
+		for (int i = 0, j = (size - 1) * m; i < count * m; i++, j++)
+		{
+			if (forward[j] > values[i])
+				values[i] = forward[j];
+		}
+	}
+	
+	/**
+	 * Computes the minimum over each window of a single padded line. The
+	 * result for the i-th pixel of the line is stored at index i of the
+	 * buffer.
+	 */
+	private void minInt(int count)
+	{
+		int[] values = intValues;
+		int[] forward = intForward;
+		int length = count + size - 1;
+		
+		for (int b = 0; b < length; b += size)
+		{
+			int end = Math.min(b + size, length);
+			
+			// prefix minima within block
+			int v = values[b];
+			forward[b] = v;
+			for (int i = b + 1; i < end; i++)
+			{
+				if (values[i] < v)
+					v = values[i];
+				forward[i] = v;
+			}
+			
+			// suffix minima within block, computed in place
+			for (int i = end - 2; i >= b; i--)
+			{
+				if (values[i + 1] < values[i])
+					values[i] = values[i + 1];
+			}
+		}
+		
+		// combine suffix of current block with prefix of next block
+		for (int i = 0, j = size - 1; i < count; i++, j++)
+		{
+			if (forward[j] < values[i])
+				values[i] = forward[j];
+		}
+	}
+	
+	/**
+	 * Computes the minimum over each window of several interleaved padded
+	 * lines. The result for the i-th pixel of each line is stored at row i of
+	 * the buffer.
+	 */
+	private void minIntStrip(int count, int lineCount)
+	{
+		int[] values = intValues;
+		int[] forward = intForward;
+		int m = lineCount;
+		int length = count + size - 1;
+		
+		for (int b = 0; b < length; b += size)
+		{
+			int end = Math.min(b + size, length);
+			
+			// prefix minima within block
+			for (int c = b * m; c < (b + 1) * m; c++)
+			{
+				forward[c] = values[c];
+			}
+			for (int i = (b + 1) * m; i < end * m; i++)
+			{
+				forward[i] = values[i] < forward[i - m] ? values[i] : forward[i - m];
+			}
+			
+			// suffix minima within block, computed in place
+			for (int i = (end - 1) * m - 1; i >= b * m; i--)
+			{
+				if (values[i + m] < values[i])
+					values[i] = values[i + m];
+			}
+		}
+		
+		// combine suffix of current block with prefix of next block
+		for (int i = 0, j = (size - 1) * m; i < count * m; i++, j++)
+		{
+			if (forward[j] < values[i])
+				values[i] = forward[j];
+		}
+	}
+	
+	/**
+	 * Computes the maximum over each window of a single padded line. The
+	 * result for the i-th pixel of the line is stored at index i of the
+	 * buffer.
+	 */
+	private void maxFloat(int count)
+	{
+		float[] values = floatValues;
+		float[] forward = floatForward;
+		int length = count + size - 1;
+		
+		for (int b = 0; b < length; b += size)
+		{
+			int end = Math.min(b + size, length);
+			
+			// prefix maxima within block
+			float v = values[b];
+			forward[b] = v;
+			for (int i = b + 1; i < end; i++)
+			{
+				if (values[i] > v)
+					v = values[i];
+				forward[i] = v;
+			}
+			
+			// suffix maxima within block, computed in place
+			for (int i = end - 2; i >= b; i--)
+			{
+				if (values[i + 1] > values[i])
+					values[i] = values[i + 1];
+			}
+		}
+		
+		// combine suffix of current block with prefix of next block
+		for (int i = 0, j = size - 1; i < count; i++, j++)
+		{
+			if (forward[j] > values[i])
+				values[i] = forward[j];
+		}
+	}
+	
+	/**
+	 * Computes the maximum over each window of several interleaved padded
+	 * lines. The result for the i-th pixel of each line is stored at row i of
+	 * the buffer.
+	 */
+	private void maxFloatStrip(int count, int lineCount)
+	{
+		float[] values = floatValues;
+		float[] forward = floatForward;
+		int m = lineCount;
+		int length = count + size - 1;
+		
+		for (int b = 0; b < length; b += size)
+		{
+			int end = Math.min(b + size, length);
+			
+			// prefix maxima within block
+			for (int c = b * m; c < (b + 1) * m; c++)
+			{
+				forward[c] = values[c];
+			}
+			for (int i = (b + 1) * m; i < end * m; i++)
+			{
+				forward[i] = values[i] > forward[i - m] ? values[i] : forward[i - m];
+			}
+			
+			// suffix maxima within block, computed in place
+			for (int i = (end - 1) * m - 1; i >= b * m; i--)
+			{
+				if (values[i + m] > values[i])
+					values[i] = values[i + m];
+			}
+		}
+		
+		// combine suffix of current block with prefix of next block
+		for (int i = 0, j = (size - 1) * m; i < count * m; i++, j++)
+		{
+			if (forward[j] > values[i])
+				values[i] = forward[j];
+		}
+	}
+	
+	/**
+	 * Computes the minimum over each window of a single padded line. The
+	 * result for the i-th pixel of the line is stored at index i of the
+	 * buffer.
+	 */
+	private void minFloat(int count)
+	{
+		float[] values = floatValues;
+		float[] forward = floatForward;
+		int length = count + size - 1;
+		
+		for (int b = 0; b < length; b += size)
+		{
+			int end = Math.min(b + size, length);
+			
+			// prefix minima within block
+			float v = values[b];
+			forward[b] = v;
+			for (int i = b + 1; i < end; i++)
+			{
+				if (values[i] < v)
+					v = values[i];
+				forward[i] = v;
+			}
+			
+			// suffix minima within block, computed in place
+			for (int i = end - 2; i >= b; i--)
+			{
+				if (values[i + 1] < values[i])
+					values[i] = values[i + 1];
+			}
+		}
+		
+		// combine suffix of current block with prefix of next block
+		for (int i = 0, j = size - 1; i < count; i++, j++)
+		{
+			if (forward[j] < values[i])
+				values[i] = forward[j];
+		}
+	}
+	
+	/**
+	 * Computes the minimum over each window of several interleaved padded
+	 * lines. The result for the i-th pixel of each line is stored at row i of
+	 * the buffer.
+	 */
+	private void minFloatStrip(int count, int lineCount)
+	{
+		float[] values = floatValues;
+		float[] forward = floatForward;
+		int m = lineCount;
+		int length = count + size - 1;
+		
+		for (int b = 0; b < length; b += size)
+		{
+			int end = Math.min(b + size, length);
+			
+			// prefix minima within block
+			for (int c = b * m; c < (b + 1) * m; c++)
+			{
+				forward[c] = values[c];
+			}
+			for (int i = (b + 1) * m; i < end * m; i++)
+			{
+				forward[i] = values[i] < forward[i - m] ? values[i] : forward[i - m];
+			}
+			
+			// suffix minima within block, computed in place
+			for (int i = (end - 1) * m - 1; i >= b * m; i--)
+			{
+				if (values[i + m] < values[i])
+					values[i] = values[i + m];
+			}
+		}
+		
+		// combine suffix of current block with prefix of next block
+		for (int i = 0, j = (size - 1) * m; i < count * m; i++, j++)
+		{
+			if (forward[j] < values[i])
+				values[i] = forward[j];
+		}
+	}
+}
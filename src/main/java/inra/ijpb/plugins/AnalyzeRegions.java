@@ -23,6 +23,8 @@ package inra.ijpb.plugins;
 
 
 import java.awt.geom.Point2D;
+import java.util.EnumSet;
+import java.util.Map;
 
 import ij.IJ;
 import ij.ImagePlus;
@@ -39,17 +41,13 @@ import inra.ijpb.geometry.OrientedBox2D;
 import inra.ijpb.geometry.PointPair2D;
 import inra.ijpb.label.LabelImages;
 import inra.ijpb.measure.region2d.AverageThickness;
-import inra.ijpb.measure.region2d.BoundingBox;
-import inra.ijpb.measure.region2d.Centroid;
 //import inra.ijpb.measure.IntrinsicVolumes2D;
 import inra.ijpb.measure.region2d.Convexity;
 import inra.ijpb.measure.region2d.GeodesicDiameter;
-import inra.ijpb.measure.region2d.EquivalentEllipse;
-import inra.ijpb.measure.region2d.IntrinsicVolumes2DUtils;
-import inra.ijpb.measure.region2d.IntrinsicVolumesAnalyzer2D;
 import inra.ijpb.measure.region2d.LargestInscribedCircle;
 import inra.ijpb.measure.region2d.MaxFeretDiameter;
 import inra.ijpb.measure.region2d.OrientedBoundingBox2D;
+import inra.ijpb.measure.region2d.RegionFeatures2D;
 
 public class AnalyzeRegions implements PlugInFilter 
 {
@@ -179,20 +177,8 @@ public class AnalyzeRegions implements PlugInFilter
         // Extract spatial calibration
         Calibration calib = imagePlus.getCalibration();
 
-		int[] labels = LabelImages.findAllLabels(image);
-		int nLabels = labels.length;
-
-		// create results table with appropriate labels
-    	ResultsTable table = new ResultsTable();
-    	for (int i = 0; i < nLabels; i++)
-    	{
-    		table.incrementCounter();
-    		table.addLabel("" + labels[i]);
-    	}
-    	
     	// Parameters to be computed
-    	IntrinsicVolumesAnalyzer2D.Result[] intrinsicVolumes = null; 
-        Box2D[] boundingBoxes = null;
+    	RegionFeatures2D.Result[] features = null;
     	Point2D[] centroids = null;
     	Ellipse[] ellipses = null;
     	Convexity.Result[] convexities = null;
@@ -202,36 +188,56 @@ public class AnalyzeRegions implements PlugInFilter
     	Circle2D[] inscrDiscs = null;
     	AverageThickness.Result[] avgThickness = null;
     	
+    	// select the features computed from a single scan of the label image
+    	EnumSet<RegionFeatures2D.Feature> featureSet = EnumSet.noneOf(RegionFeatures2D.Feature.class);
+    	if (computeArea || computeCircularity)
+    		featureSet.add(RegionFeatures2D.Feature.AREA);
+    	if (computePerimeter || computeCircularity)
+    		featureSet.add(RegionFeatures2D.Feature.PERIMETER);
+    	if (computeEulerNumber)
+    		featureSet.add(RegionFeatures2D.Feature.EULER_NUMBER);
+    	if (computeBoundingBox)
+    		featureSet.add(RegionFeatures2D.Feature.BOUNDING_BOX);
+    	if (computeEquivalentEllipse || computeEllipseElongation)
+    		featureSet.add(RegionFeatures2D.Feature.ELLIPSE);
+    	else if (computeCentroid)
+    		featureSet.add(RegionFeatures2D.Feature.CENTROID);
+    	
+    	// Identifies labels and computes additive features within a single
+    	// scan of the image
+    	IJ.showStatus("Region Features");
+    	RegionFeatures2D featuresAlgo = new RegionFeatures2D(featureSet);
+    	featuresAlgo.setDirectionNumber(4);
+    	featuresAlgo.setConnectivity(4);
+    	DefaultAlgoListener.monitor(featuresAlgo);
+    	Map<Integer, RegionFeatures2D.Result> featureMap = featuresAlgo.analyzeRegions(image, calib);
+    	
+		int nLabels = featureMap.size();
+		int[] labels = new int[nLabels];
+		features = new RegionFeatures2D.Result[nLabels];
+		int index = 0;
+		for (Map.Entry<Integer, RegionFeatures2D.Result> entry : featureMap.entrySet())
+		{
+			labels[index] = entry.getKey();
+			features[index] = entry.getValue();
+			index++;
+		}
 
-    	// compute intrinsic volumes
-    	if (computeArea || computePerimeter || computeEulerNumber || computeCircularity)
+		// create results table with appropriate labels
+    	ResultsTable table = new ResultsTable();
+    	for (int i = 0; i < nLabels; i++)
     	{
-    	    IJ.showStatus("Intrinsic Volumes");
-    	    
-    	    // Create and setup computation class
-            IntrinsicVolumesAnalyzer2D algo = new IntrinsicVolumesAnalyzer2D();
-            algo.setDirectionNumber(4);
-            algo.setConnectivity(4);
-            DefaultAlgoListener.monitor(algo);
-            
-            // run analysis
-            intrinsicVolumes = algo.analyzeRegions(image, labels, calib); 
+    		table.incrementCounter();
+    		table.addLabel("" + labels[i]);
     	}
     	
-        if (computeBoundingBox)
-        {
-            IJ.showStatus("Compute bounding boxes");
-            BoundingBox algo = new BoundingBox();
-            DefaultAlgoListener.monitor(algo);
-            boundingBoxes = algo.analyzeRegions(image, labels, calib);
-        }
-
         if (computeEquivalentEllipse || computeEllipseElongation)
     	{
-    		IJ.showStatus("Equivalent Ellipse");
-    		EquivalentEllipse algo = new EquivalentEllipse();
-    		DefaultAlgoListener.monitor(algo);
-    		ellipses = algo.analyzeRegions(image, labels, calib);
+    		ellipses = new Ellipse[nLabels];
+    		for (int i = 0; i < nLabels; i++)
+    		{
+    			ellipses[i] = features[i].ellipse;
+    		}
     		
     		if (computeCentroid)
     		{
@@ -240,11 +246,11 @@ public class AnalyzeRegions implements PlugInFilter
     	}
         else if (computeCentroid)
         {
-            // Compute centroids if not already computed from inertia ellipsoid
-            IJ.showStatus("Centroids");
-            Centroid algo = new Centroid();
-            DefaultAlgoListener.monitor(algo);
-            centroids = algo.analyzeRegions(image, labels, calib);
+        	centroids = new Point2D[nLabels];
+        	for (int i = 0; i < nLabels; i++)
+        	{
+        		centroids[i] = features[i].centroid;
+        	}
         }
 
     	if (computeConvexity)
@@ -301,7 +307,7 @@ public class AnalyzeRegions implements PlugInFilter
         {
             for (int i = 0; i < nLabels; i++)
             {
-                table.setValue("Area", i, intrinsicVolumes[i].area);
+                table.setValue("Area", i, features[i].area);
             }
         }
         
@@ -309,21 +315,23 @@ public class AnalyzeRegions implements PlugInFilter
         {
             for (int i = 0; i < nLabels; i++)
             {
-                table.setValue("Perimeter", i, intrinsicVolumes[i].perimeter);
+                table.setValue("Perimeter", i, features[i].perimeter);
             }
         }
         
     	if (computeCircularity)
     	{
-    		double[] circularities = IntrinsicVolumes2DUtils.computeCircularities(intrinsicVolumes);
-    		addColumnToTable(table, "Circularity", circularities);
+    		for (int i = 0; i < nLabels; i++)
+    		{
+    			table.setValue("Circularity", i, features[i].circularity());
+    		}
     	}
 
     	if (computeEulerNumber)
     	{
             for (int i = 0; i < nLabels; i++)
             {
-                table.setValue("EulerNumber", i, intrinsicVolumes[i].eulerNumber);
+                table.setValue("EulerNumber", i, features[i].eulerNumber);
             }
     	}
 
@@ -331,7 +339,7 @@ public class AnalyzeRegions implements PlugInFilter
         {
             for (int i = 0; i < nLabels; i++)
             {
-                Box2D box = boundingBoxes[i];
+                Box2D box = features[i].boundingBox;
                 table.setValue("Box.X.Min", i, box.getXMin());
                 table.setValue("Box.X.Max", i, box.getXMax());
                 table.setValue("Box.Y.Min", i, box.getYMin());
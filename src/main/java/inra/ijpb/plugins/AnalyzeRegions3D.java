@@ -22,6 +22,9 @@
 package inra.ijpb.plugins;
 
 
+import java.util.EnumSet;
+import java.util.Map;
+
 import ij.IJ;
 import ij.ImagePlus;
 import ij.ImageStack;
@@ -34,13 +37,9 @@ import inra.ijpb.geometry.Box3D;
 import inra.ijpb.geometry.Ellipsoid;
 import inra.ijpb.geometry.Point3D;
 import inra.ijpb.geometry.Sphere;
-import inra.ijpb.label.LabelImages;
 import inra.ijpb.measure.IntrinsicVolumes3D;
-import inra.ijpb.measure.region3d.BoundingBox3D;
-import inra.ijpb.measure.region3d.Centroid3D;
-import inra.ijpb.measure.region3d.EquivalentEllipsoid;
-import inra.ijpb.measure.region3d.IntrinsicVolumesAnalyzer3D;
 import inra.ijpb.measure.region3d.LargestInscribedBall;
+import inra.ijpb.measure.region3d.RegionFeatures3D;
 
 /**
  * Plugin for measuring geometric quantities such as volume, surface area,
@@ -220,57 +219,59 @@ public class AnalyzeRegions3D implements PlugIn
         }
 
         // declare arrays for results
-        IntrinsicVolumesAnalyzer3D.Result[] intrinsicVolumes = null; 
-        Box3D[] boxes = null;
+        RegionFeatures3D.Result[] features = null;
         Point3D[] centroids = null;
         Ellipsoid[] ellipsoids = null;
         double[][] elongations = null;
         Sphere[] inscribedBalls = null;
         
-        
-        // Identifies labels within image
-        int[] labels = LabelImages.findAllLabels(image);
-
-        // compute intrinsic volumes
-        if (computeVolume || computeSurface || computeEulerNumber || computeMeanBreadth || computeSphericity)
-        {
-            IJ.showStatus("Intrinsic Volumes");
-            
-            long tic = System.nanoTime();
-            // Create ans setup computation class
-            IntrinsicVolumesAnalyzer3D algo = new IntrinsicVolumesAnalyzer3D();
-            algo.setDirectionNumber(this.surfaceAreaDirs);
-            algo.setConnectivity(this.connectivity);
-            DefaultAlgoListener.monitor(algo);
-            
-            // run analysis
-            intrinsicVolumes = algo.analyzeRegions(image, labels, calib);
-            long toc = System.nanoTime();
-            IJ.log(String.format("Intrinsic volumes: %7.2f ms", (toc - tic) / 1000000.0));
-        }
-
-        // compute image-aligned bounding box
+        // select the features computed from a single scan of the label image
+        EnumSet<RegionFeatures3D.Feature> featureSet = EnumSet.noneOf(RegionFeatures3D.Feature.class);
+        if (computeVolume || computeSphericity)
+            featureSet.add(RegionFeatures3D.Feature.VOLUME);
+        if (computeSurface || computeSphericity)
+            featureSet.add(RegionFeatures3D.Feature.SURFACE_AREA);
+        if (computeMeanBreadth)
+            featureSet.add(RegionFeatures3D.Feature.MEAN_BREADTH);
+        if (computeEulerNumber)
+            featureSet.add(RegionFeatures3D.Feature.EULER_NUMBER);
         if (computeBoundingBox)
+            featureSet.add(RegionFeatures3D.Feature.BOUNDING_BOX);
+        if (computeEllipsoid)
+            featureSet.add(RegionFeatures3D.Feature.ELLIPSOID);
+        else if (computeCentroid)
+            featureSet.add(RegionFeatures3D.Feature.CENTROID);
+        
+        // Identifies labels and computes additive features within a single
+        // scan of the image
+        IJ.showStatus("Region Features");
+        long tic = System.nanoTime();
+        RegionFeatures3D algo = new RegionFeatures3D(featureSet);
+        algo.setDirectionNumber(this.surfaceAreaDirs);
+        algo.setConnectivity(this.connectivity);
+        DefaultAlgoListener.monitor(algo);
+        Map<Integer, RegionFeatures3D.Result> featureMap = algo.analyzeRegions(image, calib);
+        long toc = System.nanoTime();
+        IJ.log(String.format("Region features: %7.2f ms", (toc - tic) / 1000000.0));
+        
+        int[] labels = new int[featureMap.size()];
+        features = new RegionFeatures3D.Result[featureMap.size()];
+        int index = 0;
+        for (Map.Entry<Integer, RegionFeatures3D.Result> entry : featureMap.entrySet())
         {
-        	IJ.showStatus("Bounding Boxes");
-            long tic = System.nanoTime();
-            BoundingBox3D algo = new BoundingBox3D();
-        	DefaultAlgoListener.monitor(algo);
-            boxes = algo.analyzeRegions(image, labels, calib);
-            long toc = System.nanoTime();
-            IJ.log(String.format("Bounding boxes: %7.2f ms", (toc - tic) / 1000000.0));
+            labels[index] = entry.getKey();
+            features[index] = entry.getValue();
+            index++;
         }
         
-        // compute inertia ellipsoids and their elongations
+        // inertia ellipsoids and their elongations
         if (computeEllipsoid)
         {
-        	IJ.showStatus("Equivalent Ellipsoids");
-            long tic = System.nanoTime();
-        	EquivalentEllipsoid algo = new EquivalentEllipsoid();
-        	DefaultAlgoListener.monitor(algo);
-            ellipsoids = algo.analyzeRegions(image, labels, calib);
-            long toc = System.nanoTime();
-            IJ.log(String.format("Equivalent ellipsoids: %7.2f ms", (toc - tic) / 1000000.0));
+            ellipsoids = new Ellipsoid[labels.length];
+            for (int i = 0; i < labels.length; i++)
+            {
+                ellipsoids[i] = features[i].ellipsoid;
+            }
 
             if (computeCentroid)
             {
@@ -280,11 +281,11 @@ public class AnalyzeRegions3D implements PlugIn
         } 
         else if (computeCentroid)
         {
-            // Compute centroids if not computed from inertia ellipsoid
-            IJ.showStatus("Centroid");
-            Centroid3D algo = new Centroid3D();
-            DefaultAlgoListener.monitor(algo);
-            centroids = algo.analyzeRegions(image, labels, calib);
+            centroids = new Point3D[labels.length];
+            for (int i = 0; i < labels.length; i++)
+            {
+                centroids[i] = features[i].centroid;
+            }
         }
         
         if (computeElongations)
@@ -297,11 +298,11 @@ public class AnalyzeRegions3D implements PlugIn
         if (computeInscribedBall)
         {
         	IJ.showStatus("Inscribed Balls");
-            long tic = System.nanoTime();
-        	LargestInscribedBall algo = new LargestInscribedBall();
-        	DefaultAlgoListener.monitor(algo);
-        	inscribedBalls = algo.analyzeRegions(image, labels, calib);
-            long toc = System.nanoTime();
+            tic = System.nanoTime();
+        	LargestInscribedBall ballAlgo = new LargestInscribedBall();
+        	DefaultAlgoListener.monitor(ballAlgo);
+        	inscribedBalls = ballAlgo.analyzeRegions(image, labels, calib);
+            toc = System.nanoTime();
             IJ.log(String.format("inscribed balls: %7.2f ms", (toc - tic) / 1000000.0));
         }
         
@@ -317,23 +318,23 @@ public class AnalyzeRegions3D implements PlugIn
         	
         	// geometrical quantities
         	if (computeVolume)
-        		table.addValue("Volume", intrinsicVolumes[i].volume);
+        		table.addValue("Volume", features[i].volume);
         	if (computeSurface)
-        		table.addValue("SurfaceArea", intrinsicVolumes[i].surfaceArea);
+        		table.addValue("SurfaceArea", features[i].surfaceArea);
         	if (computeMeanBreadth)
-        		table.addValue("MeanBreadth", intrinsicVolumes[i].meanBreadth);
+        		table.addValue("MeanBreadth", features[i].meanBreadth);
         	if (computeSphericity)
         	{
-                double vol =  intrinsicVolumes[i].volume;
-                double surf =  intrinsicVolumes[i].surfaceArea;
+                double vol =  features[i].volume;
+                double surf =  features[i].surfaceArea;
         		table.addValue("Sphericity", IntrinsicVolumes3D.sphericity(vol, surf));
         	}
         	if (computeEulerNumber)
-        		table.addValue("EulerNumber", intrinsicVolumes[i].eulerNumber);
+        		table.addValue("EulerNumber", features[i].eulerNumber);
 
             if (computeBoundingBox)
             {
-            	Box3D box = boxes[i];
+            	Box3D box = features[i].boundingBox;
                 table.addValue("Box.X.Min", box.getXMin());
                 table.addValue("Box.X.Max", box.getXMax());
                 table.addValue("Box.Y.Min", box.getYMin());
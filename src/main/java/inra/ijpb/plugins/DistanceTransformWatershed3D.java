@@ -28,9 +28,11 @@ import ij.ImagePlus;
 import ij.ImageStack;
 import ij.WindowManager;
 import ij.gui.GenericDialog;
+import ij.measure.Calibration;
 import ij.plugin.PlugIn;
 import inra.ijpb.binary.BinaryImages;
 import inra.ijpb.binary.ChamferWeights3D;
+import inra.ijpb.binary.distmap.DistanceMethod;
 import inra.ijpb.data.image.Images3D;
 import inra.ijpb.util.IJUtils;
 import inra.ijpb.watershed.ExtendedMinimaWatershed;
@@ -52,6 +54,9 @@ public class DistanceTransformWatershed3D implements PlugIn
 
 	private static int dynamic = 2;
 	private static String weightLabel = ChamferWeights3D.BORGEFORS.toString();
+	
+	/** the label of the exact Euclidean distance, in addition to chamfer weights */
+	private static final String EUCLIDEAN_LABEL = DistanceMethod.EXACT_EUCLIDEAN.toString();
 
 	private static Conn3D connectivity = Conn3D.C6;
 
@@ -131,7 +136,11 @@ public class DistanceTransformWatershed3D implements PlugIn
 		gd.setInsets( 0, 0, 0 );
 		gd.addMessage( "Distance map options:",
 				new Font( "SansSerif", Font.BOLD, 12 ) );
-		gd.addChoice( "Distances", ChamferWeights3D.getAllLabels(), weightLabel );
+		String[] chamferLabels = ChamferWeights3D.getAllLabels();
+		String[] distanceLabels = new String[ chamferLabels.length + 1 ];
+		System.arraycopy( chamferLabels, 0, distanceLabels, 0, chamferLabels.length );
+		distanceLabels[ chamferLabels.length ] = EUCLIDEAN_LABEL;
+		gd.addChoice( "Distances", distanceLabels, weightLabel );
 		String[] outputTypes = new String[]{"32 bits", "16 bits"};
 		gd.addChoice( "Output Type", outputTypes, outputTypes[ floatProcessing ? 0:1 ]);
 		gd.setInsets( 0, 0, 0 );
@@ -156,16 +165,23 @@ public class DistanceTransformWatershed3D implements PlugIn
 		dynamic = (int) gd.getNextNumber();
 		connectivity = Conn3D.fromLabel( gd.getNextChoice() );
 
-		// identify which weights should be used
-		weights = ChamferWeights3D.fromLabel( weightLabel );
-
 		long t0 = System.currentTimeMillis();
 
 		final ImagePlus result;
-		if (floatProcessing)
-			result = processFloat( image, weights.getFloatWeights(), normalize );
+		if ( weightLabel.equals( EUCLIDEAN_LABEL ) )
+		{
+			// exact distances are always computed with floating point values
+			result = processEuclidean( image );
+		}
 		else
-			result = processShort( image, weights.getShortWeights(), normalize );
+		{
+			// identify which weights should be used
+			weights = ChamferWeights3D.fromLabel( weightLabel );
+			if (floatProcessing)
+				result = processFloat( image, weights.getFloatWeights(), normalize );
+			else
+				result = processShort( image, weights.getShortWeights(), normalize );
+		}
 
 		Images3D.optimizeDisplayRange( result );
 
@@ -179,6 +195,26 @@ public class DistanceTransformWatershed3D implements PlugIn
 				t1 - t0, image );
 	}
 
+	private ImagePlus processEuclidean( ImagePlus image )
+	{
+		// use spacing relative to pixel width, to keep distances in pixels
+		Calibration calib = image.getCalibration();
+		double[] spacing = new double[] { 1.0,
+				calib.pixelHeight / calib.pixelWidth,
+				calib.pixelDepth / calib.pixelWidth };
+		final ImageStack dist =
+				BinaryImages.distanceMap( image.getImageStack(), spacing );
+		// invert distance map
+		Images3D.invert( dist );
+
+		ImageStack result = ExtendedMinimaWatershed.extendedMinimaWatershed(
+				dist, image.getImageStack(), dynamic, connectivity.value, 32, false );
+		ImagePlus ip = new ImagePlus( image.getShortTitle() + "dist-watershed",
+				result );
+		ip.setCalibration( image.getCalibration() );
+		return ip;
+	}
+
 	private ImagePlus processFloat(
 			ImagePlus image,
 			float[] weights,
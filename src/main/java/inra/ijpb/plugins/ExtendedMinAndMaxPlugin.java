@@ -31,6 +31,8 @@ import ij.plugin.filter.PlugInFilterRunner;
 import ij.process.ImageProcessor;
 import ij.process.ByteProcessor;
 import inra.ijpb.morphology.MinimaAndMaxima;
+import inra.ijpb.morphology.extrema.ExtremaDynamics;
+import inra.ijpb.morphology.extrema.ExtremaType;
 
 import java.awt.AWTEvent;
 
@@ -79,6 +81,10 @@ public class ExtendedMinAndMaxPlugin implements ExtendedPlugInFilter, DialogList
 					"Unable to process the " + this + " morphological operation");
 		}
 
+		public ExtremaType getExtremaType() {
+			return this == EXTENDED_MAXIMA ? ExtremaType.MAXIMA : ExtremaType.MINIMA;
+		}
+
 		public String toString() {
 			return this.label;
 		}
@@ -138,6 +144,9 @@ public class ExtendedMinAndMaxPlugin implements ExtendedPlugInFilter, DialogList
 	
 	/** Keep instance of result image */
 	private ImageProcessor result;
+	
+	/** Keep the dynamics of the extrema, to update the preview quickly */
+	private ExtremaDynamics dynamics;
 
 	Operation op = Operation.EXTENDED_MINIMA;
 	int dynamic = 10;
@@ -225,9 +234,15 @@ public class ExtendedMinAndMaxPlugin implements ExtendedPlugInFilter, DialogList
     
 	@Override
 	public void run(ImageProcessor image) {
-		// Create structuring element of the given size
+		// Compute the dynamics of the extrema of the original image only
+		// when the operation or the connectivity change
+		ExtremaType type = op.getExtremaType();
+		if (dynamics == null || dynamics.extremaType() != type || dynamics.connectivity() != connectivity) {
+			dynamics = ExtremaDynamics.compute(baseImage, type, connectivity);
+		}
+		
 		// Execute core of the plugin
-		result = op.apply(image, dynamic, connectivity);
+		result = dynamics.extendedExtrema(dynamic);
 
     	if (previewing) {
     		// Fill up the values of original image with inverted values of the 
@@ -32,6 +32,8 @@ import inra.ijpb.algo.DefaultAlgoListener;
 import inra.ijpb.binary.ChamferWeights3D;
 import inra.ijpb.binary.geodesic.GeodesicDistanceTransform3D;
 import inra.ijpb.binary.geodesic.GeodesicDistanceTransform3DFloat;
+import inra.ijpb.binary.geodesic.GeodesicDistanceTransform3DFloatQueue;
+import inra.ijpb.binary.geodesic.PropagationMethod;
 import inra.ijpb.data.image.Images3D;
 import inra.ijpb.util.ColorMaps;
 
@@ -82,6 +84,8 @@ public class GeodesicDistanceMap3DPlugin implements PlugIn
 				ChamferWeights3D.WEIGHTS_3_4_5_7.toString());
 //		String[] outputTypes = new String[] { "32 bits", "16 bits" };
 //		gd.addChoice("Output Type", outputTypes, outputTypes[0]);
+		gd.addChoice("Propagation", PropagationMethod.getAllLabels(),
+				PropagationMethod.ITERATED_SCANS.toString());
 		gd.addCheckbox("Normalize weights", true);
 
 		gd.showDialog();
@@ -99,6 +103,7 @@ public class GeodesicDistanceMap3DPlugin implements PlugIn
 		// identify which weights should be used
 		ChamferWeights3D weights = ChamferWeights3D.fromLabel(weightLabel);
 //		boolean resultAsFloat = gd.getNextChoiceIndex() == 0;
+		PropagationMethod method = PropagationMethod.fromLabel(gd.getNextChoice());
 		boolean normalizeWeights = gd.getNextBoolean();
 
 		// check image types
@@ -119,7 +124,7 @@ public class GeodesicDistanceMap3DPlugin implements PlugIn
 //		if (resultAsFloat)
 //		{
 			res = process(markerImage, maskImage, newName,
-					weights.getFloatWeights(), normalizeWeights);
+					weights.getFloatWeights(), normalizeWeights, method);
 //		} else
 //		{
 //			res = process(markerImage, maskImage, newName,
@@ -150,6 +155,35 @@ public class GeodesicDistanceMap3DPlugin implements PlugIn
 	 */
 	public ImagePlus process(ImagePlus markerPlus, ImagePlus maskPlus,
 			String newName, float[] weights, boolean normalize)
+	{
+		return process(markerPlus, maskPlus, newName, weights, normalize,
+				PropagationMethod.ITERATED_SCANS);
+	}
+
+	/**
+	 * Computes the distance propagated from the boundary of the white
+	 * particles, within the white phase, using the specified method for
+	 * propagating distances.
+	 * 
+	 * @param markerPlus
+	 *            the binary marker image from which distances will be
+	 *            propagated
+	 * @param maskPlus
+	 *            the binary mask image that will constrain the propagation
+	 * @param newName
+	 *            the name of the result image
+	 * @param weights
+	 *            the set of chamfer weights for computing distances
+	 * @param normalize
+	 *            specifies whether the resulting distance map should be
+	 *            normalized
+	 * @param method
+	 *            the method used for propagating distances
+	 * @return the new ImagePlus instance containing the distance map
+	 */
+	public ImagePlus process(ImagePlus markerPlus, ImagePlus maskPlus,
+			String newName, float[] weights, boolean normalize,
+			PropagationMethod method)
 	{
 		// Check validity of parameters
 		if (markerPlus == null)
@@ -167,7 +201,7 @@ public class GeodesicDistanceMap3DPlugin implements PlugIn
 			throw new IllegalArgumentException("Weights not specified");
 		}
 
-		ImageStack result = process(markerPlus.getStack(), maskPlus.getStack(), weights, normalize);
+		ImageStack result = process(markerPlus.getStack(), maskPlus.getStack(), weights, normalize, method);
 		ImagePlus resultPlus = new ImagePlus(newName, result);
 
 		// copy calibration settings
@@ -186,6 +220,12 @@ public class GeodesicDistanceMap3DPlugin implements PlugIn
 
 	public ImageStack process(ImageStack marker, ImageStack mask,
 			float[] weights, boolean normalize)
+	{
+		return process(marker, mask, weights, normalize, PropagationMethod.ITERATED_SCANS);
+	}
+
+	public ImageStack process(ImageStack marker, ImageStack mask,
+			float[] weights, boolean normalize, PropagationMethod method)
 	{
 		if (weights == null)
 		{
@@ -201,7 +241,15 @@ public class GeodesicDistanceMap3DPlugin implements PlugIn
 		}
 
 		// Initialize calculator
-		GeodesicDistanceTransform3D algo = new GeodesicDistanceTransform3DFloat(weights, normalize);
+		GeodesicDistanceTransform3D algo;
+		if (method == PropagationMethod.PRIORITY_QUEUE)
+		{
+			algo = new GeodesicDistanceTransform3DFloatQueue(weights, normalize);
+		}
+		else
+		{
+			algo = new GeodesicDistanceTransform3DFloat(weights, normalize);
+		}
 		DefaultAlgoListener.monitor(algo);
     	
 
@@ -33,7 +33,10 @@ import inra.ijpb.binary.BinaryImages;
 import inra.ijpb.binary.ChamferWeights;
 import inra.ijpb.binary.geodesic.GeodesicDistanceTransform;
 import inra.ijpb.binary.geodesic.GeodesicDistanceTransformFloat5x5;
+import inra.ijpb.binary.geodesic.GeodesicDistanceTransformFloatQueue;
 import inra.ijpb.binary.geodesic.GeodesicDistanceTransformShort5x5;
+import inra.ijpb.binary.geodesic.GeodesicDistanceTransformShortQueue;
+import inra.ijpb.binary.geodesic.PropagationMethod;
 import inra.ijpb.util.ColorMaps;
 
 import java.awt.image.IndexColorModel;
@@ -83,6 +86,8 @@ public class GeodesicDistanceMapPlugin implements PlugIn
 				ChamferWeights.CHESSKNIGHT.toString());
 		String[] outputTypes = new String[] { "32 bits", "16 bits" };
 		gd.addChoice("Output Type", outputTypes, outputTypes[0]);
+		gd.addChoice("Propagation", PropagationMethod.getAllLabels(),
+				PropagationMethod.ITERATED_SCANS.toString());
 		gd.addCheckbox("Normalize weights", true);
 
 		gd.showDialog();
@@ -100,6 +105,7 @@ public class GeodesicDistanceMapPlugin implements PlugIn
 		// identify which weights should be used
 		ChamferWeights weights = ChamferWeights.fromLabel(weightLabel);
 		boolean resultAsFloat = gd.getNextChoiceIndex() == 0;
+		PropagationMethod method = PropagationMethod.fromLabel(gd.getNextChoice());
 		boolean normalizeWeights = gd.getNextBoolean();
 
 		// check image types
@@ -120,11 +126,11 @@ public class GeodesicDistanceMapPlugin implements PlugIn
 		if (resultAsFloat)
 		{
 			res = process(markerImage, maskImage, newName,
-					weights.getFloatWeights(), normalizeWeights);
+					weights.getFloatWeights(), normalizeWeights, method);
 		} else
 		{
 			res = process(markerImage, maskImage, newName,
-					weights.getShortWeights(), normalizeWeights);
+					weights.getShortWeights(), normalizeWeights, method);
 		}
 
 		res.show();
@@ -277,6 +283,35 @@ public class GeodesicDistanceMapPlugin implements PlugIn
 	 */
 	public ImagePlus process(ImagePlus markerPlus, ImagePlus maskPlus,
 			String newName, float[] weights, boolean normalize)
+	{
+		return process(markerPlus, maskPlus, newName, weights, normalize,
+				PropagationMethod.ITERATED_SCANS);
+	}
+
+	/**
+	 * Computes the distance propagated from the boundary of the white
+	 * particles, within the white phase, using the specified method for
+	 * propagating distances.
+	 * 
+	 * @param markerPlus
+	 *            the binary marker image from which distances will be
+	 *            propagated
+	 * @param maskPlus
+	 *            the binary mask image that will constrain the propagation
+	 * @param newName
+	 *            the name of the result image
+	 * @param weights
+	 *            the set of chamfer weights for computing distances
+	 * @param normalize
+	 *            specifies whether the resulting distance map should be
+	 *            normalized
+	 * @param method
+	 *            the method used for propagating distances
+	 * @return the new ImagePlus instance containing the distance map
+	 */
+	public ImagePlus process(ImagePlus markerPlus, ImagePlus maskPlus,
+			String newName, float[] weights, boolean normalize,
+			PropagationMethod method)
 	{
 		// Check validity of parameters
 		if (markerPlus == null)
@@ -307,7 +342,15 @@ public class GeodesicDistanceMapPlugin implements PlugIn
 		}
 
 		// Initialize calculator
-		GeodesicDistanceTransform algo = new GeodesicDistanceTransformFloat5x5(weights, normalize);
+		GeodesicDistanceTransform algo;
+		if (method == PropagationMethod.PRIORITY_QUEUE)
+		{
+			algo = new GeodesicDistanceTransformFloatQueue(chessknightWeights(weights), normalize);
+		}
+		else
+		{
+			algo = new GeodesicDistanceTransformFloat5x5(weights, normalize);
+		}
 		DefaultAlgoListener.monitor(algo);
     	
 
@@ -380,6 +423,34 @@ public class GeodesicDistanceMapPlugin implements PlugIn
 	 */
 	public ImagePlus process(ImagePlus marker, ImagePlus mask, String newName,
 			short[] weights, boolean normalize)
+	{
+		return process(marker, mask, newName, weights, normalize,
+				PropagationMethod.ITERATED_SCANS);
+	}
+
+	/**
+	 * Computes the distance propagated from the boundary of the white
+	 * particles, within the black phase, using the specified method for
+	 * propagating distances.
+	 * 
+	 * @param marker
+	 *            the binary marker image from which distances will be
+	 *            propagated
+	 * @param mask
+	 *            the binary mask image that will constrain the propagation
+	 * @param newName
+	 *            the name of the result image
+	 * @param weights
+	 *            the set of chamfer weights for computing distances
+	 * @param normalize
+	 *            specifies whether the resulting distance map should be
+	 *            normalized
+	 * @param method
+	 *            the method used for propagating distances
+	 * @return the new ImagePlus instance containing the distance map
+	 */
+	public ImagePlus process(ImagePlus marker, ImagePlus mask, String newName,
+			short[] weights, boolean normalize, PropagationMethod method)
 	{
 		// Check validity of parameters
 		if (marker == null)
@@ -410,7 +481,15 @@ public class GeodesicDistanceMapPlugin implements PlugIn
 		}
 
 		// Initialize calculator
-		GeodesicDistanceTransform algo = new GeodesicDistanceTransformShort5x5(weights, normalize);
+		GeodesicDistanceTransform algo;
+		if (method == PropagationMethod.PRIORITY_QUEUE)
+		{
+			algo = new GeodesicDistanceTransformShortQueue(chessknightWeights(weights), normalize);
+		}
+		else
+		{
+			algo = new GeodesicDistanceTransformShort5x5(weights, normalize);
+		}
 
 		DefaultAlgoListener.monitor(algo);
 
@@ -428,6 +507,30 @@ public class GeodesicDistanceMapPlugin implements PlugIn
 		return resultPlus;
 	}
 	
+	/**
+	 * Ensures the array of weights contains a weight for chess-knight moves,
+	 * so that the same 5-by-5 chamfer mask is used whatever the propagation
+	 * method.
+	 */
+	private static float[] chessknightWeights(float[] weights)
+	{
+		if (weights.length >= 3)
+			return weights;
+		return new float[] {weights[0], weights[1], weights[0] + weights[1]};
+	}
+
+	/**
+	 * Ensures the array of weights contains a weight for chess-knight moves,
+	 * so that the same 5-by-5 chamfer mask is used whatever the propagation
+	 * method.
+	 */
+	private static short[] chessknightWeights(short[] weights)
+	{
+		if (weights.length >= 3)
+			return weights;
+		return new short[] {weights[0], weights[1], (short) (weights[0] + weights[1])};
+	}
+	
 	private LUT createFireLUT(double maxVal)
 	{
 		byte[][] lut = ColorMaps.createFireLut(256);
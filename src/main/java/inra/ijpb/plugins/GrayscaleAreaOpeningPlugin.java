@@ -26,8 +26,10 @@ import ij.gui.DialogListener;
 import ij.gui.GenericDialog;
 import ij.plugin.filter.ExtendedPlugInFilter;
 import ij.plugin.filter.PlugInFilterRunner;
+import ij.process.ColorProcessor;
 import ij.process.ImageProcessor;
 import inra.ijpb.morphology.AttributeFiltering;
+import inra.ijpb.morphology.attrfilt.ComponentTree;
 
 import java.awt.AWTEvent;
 
@@ -56,6 +58,12 @@ public class GrayscaleAreaOpeningPlugin implements ExtendedPlugInFilter, DialogL
 	
 	/** Keep instance of result image */
 	private ImageProcessor result;
+	
+	/**
+	 * The max-tree of the original image, computed at the first preview, and
+	 * reused when the number of pixels changes.
+	 */
+	private ComponentTree tree = null;
 
 	int minPixelCount = 100;
 	
@@ -115,7 +123,20 @@ public class GrayscaleAreaOpeningPlugin implements ExtendedPlugInFilter, DialogL
 	@Override
 	public void run(ImageProcessor image)
 	{
-		this.result = AttributeFiltering.areaOpening(image, this.minPixelCount); 
+		if (baseImage instanceof ColorProcessor)
+		{
+			this.result = AttributeFiltering.areaOpening(image, this.minPixelCount);
+		}
+		else
+		{
+			// filter the original image, as the preview modifies the image
+			if (tree == null)
+			{
+				tree = ComponentTree.maxTree(baseImage, 4);
+			}
+			this.result = tree.filterImage(ComponentTree.Attribute.AREA,
+					this.minPixelCount, ComponentTree.Rule.DIRECT);
+		}
 		
 		if (previewing)
 		{
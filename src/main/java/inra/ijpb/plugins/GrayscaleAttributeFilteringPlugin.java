@@ -29,7 +29,7 @@ import ij.plugin.filter.PlugInFilterRunner;
 import ij.process.FloatProcessor;
 import ij.process.ImageProcessor;
 import inra.ijpb.algo.DefaultAlgoListener;
-import inra.ijpb.morphology.attrfilt.AreaOpeningQueue;
+import inra.ijpb.morphology.attrfilt.AreaOpeningUnionFind;
 import inra.ijpb.morphology.attrfilt.BoxDiagonalOpeningQueue;
 
 import java.awt.AWTEvent;
@@ -239,7 +239,7 @@ public class GrayscaleAttributeFilteringPlugin implements ExtendedPlugInFilter,
 		// switch depending on attribute to use
 		if (attribute == Attribute.AREA)
 		{
-			AreaOpeningQueue algo = new AreaOpeningQueue();
+			AreaOpeningUnionFind algo = new AreaOpeningUnionFind();
 			algo.setConnectivity(this.connectivity);
 			DefaultAlgoListener.monitor(algo);
 			this.result = algo.process(image2, this.minimumValue);
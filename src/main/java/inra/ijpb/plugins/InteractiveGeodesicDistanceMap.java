@@ -24,6 +24,7 @@ package inra.ijpb.plugins;
 import java.awt.AWTEvent;
 import java.awt.event.ActionEvent;
 import java.awt.image.IndexColorModel;
+import java.util.Arrays;
 
 import ij.IJ;
 import ij.ImagePlus;
@@ -41,11 +42,8 @@ import ij.process.LUT;
 import inra.ijpb.algo.DefaultAlgoListener;
 import inra.ijpb.binary.BinaryImages;
 import inra.ijpb.binary.ChamferWeights;
-import inra.ijpb.binary.geodesic.GeodesicDistanceTransform;
-import inra.ijpb.binary.geodesic.GeodesicDistanceTransformFloat;
-import inra.ijpb.binary.geodesic.GeodesicDistanceTransformFloat5x5;
-import inra.ijpb.binary.geodesic.GeodesicDistanceTransformShort;
-import inra.ijpb.binary.geodesic.GeodesicDistanceTransformShort5x5;
+import inra.ijpb.binary.geodesic.GeodesicDistanceTransformFloatIncremental;
+import inra.ijpb.binary.geodesic.GeodesicDistanceTransformShortIncremental;
 import inra.ijpb.util.ColorMaps;
 import inra.ijpb.util.IJUtils;
 
@@ -54,6 +52,10 @@ import inra.ijpb.util.IJUtils;
  * weights. The difference with the regular GeodesicDistanceMapPlugin is that
  * the marker image is created on demand based on user-defined ROIs.
  *
+ * The distance map is kept between two computations, so that modifying the
+ * ROIs only updates the distances of the pixels affected by the added or
+ * removed markers.
+ *
  * @author Ignacio Arganda-Carreras
  *
  */
@@ -83,6 +85,22 @@ DialogListener
 	private static boolean resultAsFloat = true;
 	/** flag to select to normalize the weights */
 	private static boolean normalize = true;
+
+	/**
+	 * The algorithms used for the previous computation, that keep the
+	 * current distance map. At most one of them is not null.
+	 */
+	private GeodesicDistanceTransformFloatIncremental floatAlgo = null;
+	private GeodesicDistanceTransformShortIncremental shortAlgo = null;
+	/**
+	 * A copy of the mask, and the weights and normalization used by the
+	 * current algorithm. The mask is copied, as the pixels of the processor
+	 * given to the run method are overwritten during preview.
+	 */
+	private ImageProcessor algoMask = null;
+	private float[] algoFloatWeights = null;
+	private short[] algoShortWeights = null;
+	private boolean algoNormalize;
 	/**
 	 * Called at the beginning of the process to know if the plugin can be run
 	 * with current image, and at the end to finalize.
@@ -287,17 +305,25 @@ DialogListener
 		marker.setColor( java.awt.Color.WHITE );
 		marker.draw( roi );
 
-		// Initialize calculator
-		GeodesicDistanceTransform algo;
-		if( weights.length == 2 )
-			algo = new GeodesicDistanceTransformFloat( weights, normalize );
-		else
-			algo = new GeodesicDistanceTransformFloat5x5( weights, normalize );
-
-		DefaultAlgoListener.monitor( algo );
+		// Initialize calculator, unless only the markers have changed
+		if( floatAlgo == null || !sameMask( mask, algoMask )
+				|| !Arrays.equals( weights, algoFloatWeights )
+				|| normalize != algoNormalize )
+		{
+			floatAlgo = new GeodesicDistanceTransformFloatIncremental(
+					weights, normalize );
+			DefaultAlgoListener.monitor( floatAlgo );
+			floatAlgo.setMask( mask );
+
+			shortAlgo = null;
+			algoMask = mask.duplicate();
+			algoFloatWeights = weights.clone();
+			algoNormalize = normalize;
+		}
 
-		// Compute distance on specified images
-		ImageProcessor result = algo.geodesicDistanceMap( marker, mask );
+		// Update distances from the modified markers
+		floatAlgo.setMarker( marker );
+		ImageProcessor result = floatAlgo.getDistanceMap();
 
 		// setup display options
 		double maxVal = result.getMax();
@@ -349,17 +375,25 @@ DialogListener
 		marker.setColor( java.awt.Color.WHITE );
 		marker.draw( roi );
 
-		// Initialize calculator
-		GeodesicDistanceTransform algo;
-		if( weights.length == 2 )
-			algo = new GeodesicDistanceTransformShort( weights, normalize );
-		else
-			algo = new GeodesicDistanceTransformShort5x5( weights, normalize );
-
-		DefaultAlgoListener.monitor( algo );
+		// Initialize calculator, unless only the markers have changed
+		if( shortAlgo == null || !sameMask( mask, algoMask )
+				|| !Arrays.equals( weights, algoShortWeights )
+				|| normalize != algoNormalize )
+		{
+			shortAlgo = new GeodesicDistanceTransformShortIncremental(
+					weights, normalize );
+			DefaultAlgoListener.monitor( shortAlgo );
+			shortAlgo.setMask( mask );
+
+			floatAlgo = null;
+			algoMask = mask.duplicate();
+			algoShortWeights = weights.clone();
+			algoNormalize = normalize;
+		}
 
-		// Compute distance on specified images
-		ImageProcessor result = algo.geodesicDistanceMap( marker, mask );
+		// Update distances from the modified markers
+		shortAlgo.setMarker( marker );
+		ImageProcessor result = shortAlgo.getDistanceMap();
 
 		// setup display options
 		double maxVal = result.getMax();
@@ -369,6 +403,32 @@ DialogListener
 		return result;
 	}
 
+	/**
+	 * Checks whether a mask has the same size and pixel values as the mask
+	 * used by the current algorithm.
+	 * 
+	 * @param mask
+	 *            the mask to check
+	 * @param algoMask
+	 *            the copy of the mask used by the current algorithm, or null
+	 * @return true if both masks have the same content
+	 */
+	private static boolean sameMask( ImageProcessor mask,
+			ImageProcessor algoMask )
+	{
+		if( algoMask == null
+				|| mask.getWidth() != algoMask.getWidth()
+				|| mask.getHeight() != algoMask.getHeight() )
+			return false;
+
+		for( int i = 0; i < mask.getPixelCount(); i++ )
+		{
+			if( mask.getf( i ) != algoMask.getf( i ) )
+				return false;
+		}
+		return true;
+	}
+
 	/**
 	 * Create fire look-up table
 	 * @param maxVal maximum intensity value
@@ -27,8 +27,7 @@ import ij.WindowManager;
 import ij.gui.GenericDialog;
 import ij.measure.ResultsTable;
 import ij.plugin.PlugIn;
-import inra.ijpb.label.LabelImages;
-import inra.ijpb.measure.ResultsBuilder;
+import inra.ijpb.label.LabelOverlapTable;
 /**
  * This class implements a plugin to calculate overlap measurements over
  * an source and a target label image (2D or 3D).
@@ -97,61 +96,87 @@ public class LabelOverlapMeasures implements PlugIn{
             ImagePlus targetImage = WindowManager.getImage( targetIndex + 1 );
             
             if( sourceImage.getWidth() != targetImage.getWidth() || 
-            		sourceImage.getHeight() != targetImage.getHeight() )
+            		sourceImage.getHeight() != targetImage.getHeight() ||
+            		sourceImage.getImageStackSize() != targetImage.getImageStackSize() )
             {
             	IJ.error( "Label Overlap Measures input error", "Error: input"
             			+ " and label images must have the same size" );
             	return;
             }
 
-            ResultsBuilder rb = new ResultsBuilder();
+            // compute all measures from a single scan of both images
+            IJ.showStatus( "Computing label overlaps..." );
+            LabelOverlapTable overlaps = LabelOverlapTable.compute(
+            		sourceImage.getImageStack(), targetImage.getImageStack() );
+            int[] labels = overlaps.sourceLabels();
+
+            ResultsTable labelTable = new ResultsTable();
+            for( int i = 0; i < labels.length; i++ )
+            {
+            	labelTable.incrementCounter();
+            	labelTable.addLabel( Integer.toString( labels[ i ] ) );
+            }
             ResultsTable totalTable = new ResultsTable(); 
             totalTable.incrementCounter();
             totalTable.setPrecision( 6 );
 
             if( measureStates[ 0 ] ) // Overlap
             {
-            	rb.addResult( LabelImages.getTargetOverlapPerLabel( sourceImage, targetImage ) );
-            	totalTable.addValue( "TotalOverlap", LabelImages.getTotalOverlap( sourceImage, targetImage ) );
+            	addColumn( labelTable, "TargetOverlap", overlaps.targetOverlapPerLabel() );
+            	totalTable.addValue( "TotalOverlap", overlaps.totalOverlap() );
             }
 
             if( measureStates[ 1 ] ) // Jaccard index
             {
-            	rb.addResult( LabelImages.getJaccardIndexPerLabel( sourceImage, targetImage ) );
-            	totalTable.addValue( "JaccardIndex", LabelImages.getJaccardIndex( sourceImage, targetImage ) );
+            	addColumn( labelTable, "JaccardIndex", overlaps.jaccardIndexPerLabel() );
+            	totalTable.addValue( "JaccardIndex", overlaps.jaccardIndex() );
             }
 
             if( measureStates[ 2 ] ) // Dice coefficient
             {
-            	rb.addResult( LabelImages.getDiceCoefficientPerLabel( sourceImage, targetImage ) );
-            	totalTable.addValue( "DiceCoefficient", LabelImages.getDiceCoefficient( sourceImage, targetImage ) );
+            	addColumn( labelTable, "DiceCoefficient", overlaps.diceCoefficientPerLabel() );
+            	totalTable.addValue( "DiceCoefficient", overlaps.diceCoefficient() );
             }
 
             if( measureStates[ 3 ] ) // Volume similarity
             {
-            	rb.addResult( LabelImages.getVolumeSimilarityPerLabel( sourceImage, targetImage ) );
-            	totalTable.addValue( "VolumeSimilarity", LabelImages.getVolumeSimilarity( sourceImage, targetImage ) );
+            	addColumn( labelTable, "VolumeSimilarity", overlaps.volumeSimilarityPerLabel() );
+            	totalTable.addValue( "VolumeSimilarity", overlaps.volumeSimilarity() );
             }
 
             if( measureStates[ 4 ] ) // False negative error
             {
-            	rb.addResult( LabelImages.getFalseNegativeErrorPerLabel( sourceImage, targetImage ) );
-            	totalTable.addValue( "FalseNegativeError", LabelImages.getFalseNegativeError( sourceImage, targetImage ) );
+            	addColumn( labelTable, "FalseNegativeError", overlaps.falseNegativeErrorPerLabel() );
+            	totalTable.addValue( "FalseNegativeError", overlaps.falseNegativeError() );
             }
 
             if( measureStates[ 5 ] ) // False positive error
             {
-            	rb.addResult( LabelImages.getFalsePositiveErrorPerLabel( sourceImage, targetImage ) );
-            	totalTable.addValue( "FalsePositiveError", LabelImages.getFalsePositiveError( sourceImage, targetImage ) );
+            	addColumn( labelTable, "FalsePositiveError", overlaps.falsePositiveErrorPerLabel() );
+            	totalTable.addValue( "FalsePositiveError", overlaps.falsePositiveError() );
             }
+            IJ.showStatus( "" );
             // show table with results for all labels
             totalTable.show( sourceImage.getShortTitle() +
             		"-all-labels-overlap-measurements" );
             // set 6 decimal places in the displayed results
-            rb.getResultsTable().setPrecision( 6 );
+            labelTable.setPrecision( 6 );
             // show table with results for individual labels
-            rb.getResultsTable().show( sourceImage.getShortTitle() +
+            labelTable.show( sourceImage.getShortTitle() +
             		"-individual-labels-overlap-measurements" );
         }
 	}
+
+	/**
+	 * Adds a column to a table with one row per label.
+	 * 
+	 * @param table the table to update
+	 * @param name the name of the new column
+	 * @param values the value of each row
+	 */
+	private static void addColumn( ResultsTable table, String name, double[] values )
+	{
+		for( int i = 0; i < values.length; i++ )
+			table.setValue( name, i, values[ i ] );
+	}
 }
@@ -44,6 +44,8 @@ import inra.ijpb.morphology.MinimaAndMaxima3D;
 import inra.ijpb.morphology.Morphology;
 import inra.ijpb.morphology.Strel;
 import inra.ijpb.morphology.Strel3D;
+import inra.ijpb.morphology.extrema.ExtremaDynamics;
+import inra.ijpb.morphology.extrema.ExtremaType;
 import inra.ijpb.util.ColorMaps;
 import inra.ijpb.util.ColorMaps.CommonLabelMaps;
 import inra.ijpb.watershed.Watershed;
@@ -111,6 +113,18 @@ public class MorphologicalSegmentation implements PlugIn {
 	/** gradient image stack */
 	ImageStack gradientStack = null;
 
+	/** type of the gradient stored in the gradient image stack */
+	String gradientStackType = null;
+
+	/** radius of the gradient stored in the gradient image stack */
+	int gradientStackRadius = -1;
+
+	/** dynamics of the minima of the last segmented image */
+	ExtremaDynamics minimaDynamics = null;
+
+	/** image used to compute the dynamics of the minima */
+	ImageStack minimaDynamicsImage = null;
+
 	/** image containing the final results of the watershed segmentation (basins with or without dams) */
 	ImagePlus resultImage = null;		
 
@@ -1082,44 +1096,56 @@ public class MorphologicalSegmentation implements PlugIn {
 								return;
 							}
 
-							final long t1 = System.currentTimeMillis();
-							String extra = "";
-							if( gradientList.getSelectedItem().equals("Internal") )
-								extra = " internal";
-							else if( gradientList.getSelectedItem().equals("External") )
-								extra = " external";
-							IJ.log( "Applying morphological"+ extra +" gradient to input image..." );
-
-							if ( image.getSize() > 1 )
+							String gradientType = (String) gradientList.getSelectedItem();
+							if( null != gradientStack && gradientRadius == gradientStackRadius
+									&& gradientType.equals( gradientStackType ) )
 							{
-								Strel3D strel = Strel3D.Shape.CUBE.fromRadius( gradientRadius );
-								if( gradientList.getSelectedItem().equals("Internal") )
-									image = Morphology.internalGradient( image, strel );
-								else if( gradientList.getSelectedItem().equals("External") )
-									image = Morphology.externalGradient( image, strel );
-								else
-									image = Morphology.gradient( image, strel );
+								// reuse the gradient computed with the same parameters
+								image = gradientStack;
 							}
 							else
 							{
-								Strel strel = Strel.Shape.SQUARE.fromRadius( gradientRadius );
-								ImageProcessor gradient = null;
+								final long t1 = System.currentTimeMillis();
+								String extra = "";
 								if( gradientList.getSelectedItem().equals("Internal") )
-									gradient = Morphology.internalGradient( image.getProcessor( 1 ), strel );
+									extra = " internal";
 								else if( gradientList.getSelectedItem().equals("External") )
-									gradient = Morphology.internalGradient( image.getProcessor( 1 ), strel );
+									extra = " external";
+								IJ.log( "Applying morphological"+ extra +" gradient to input image..." );
+
+								if ( image.getSize() > 1 )
+								{
+									Strel3D strel = Strel3D.Shape.CUBE.fromRadius( gradientRadius );
+									if( gradientList.getSelectedItem().equals("Internal") )
+										image = Morphology.internalGradient( image, strel );
+									else if( gradientList.getSelectedItem().equals("External") )
+										image = Morphology.externalGradient( image, strel );
+									else
+										image = Morphology.gradient( image, strel );
+								}
 								else
-									gradient = Morphology.gradient( image.getProcessor( 1 ), strel );
-								image = new ImageStack(image.getWidth(), image.getHeight());
-								image.addSlice(gradient);								
-							}
+								{
+									Strel strel = Strel.Shape.SQUARE.fromRadius( gradientRadius );
+									ImageProcessor gradient = null;
+									if( gradientList.getSelectedItem().equals("Internal") )
+										gradient = Morphology.internalGradient( image.getProcessor( 1 ), strel );
+									else if( gradientList.getSelectedItem().equals("External") )
+										gradient = Morphology.internalGradient( image.getProcessor( 1 ), strel );
+									else
+										gradient = Morphology.gradient( image.getProcessor( 1 ), strel );
+									image = new ImageStack(image.getWidth(), image.getHeight());
+									image.addSlice(gradient);								
+								}
 
-							// store gradient image
-							gradientStack = image;
+								// store gradient image
+								gradientStack = image;
+								gradientStackType = gradientType;
+								gradientStackRadius = gradientRadius;
+
+								final long t2 = System.currentTimeMillis();
+								IJ.log( "Morphological" + extra + " gradient took " + (t2-t1) + " ms.");
+							}
 
-							final long t2 = System.currentTimeMillis();
-							IJ.log( "Morphological" + extra + " gradient took " + (t2-t1) + " ms.");
-							
 							// macro recording
 							String[] arg = new String[] { gradientRadiusSizeText.getText() };
 							record( SET_RADIUS, arg );
@@ -1131,8 +1157,15 @@ public class MorphologicalSegmentation implements PlugIn {
 						IJ.log( "Running extended minima with dynamic value " + dynamic + "..." );
 						final long step0 = System.currentTimeMillis();				
 
-						// Run extended minima
-						ImageStack regionalMinima = MinimaAndMaxima3D.extendedMinima( image, dynamic, connectivity );
+						// Compute the dynamics of the minima only when the image or
+						// the connectivity changed, and threshold them
+						if( null == minimaDynamics || minimaDynamicsImage != image
+								|| minimaDynamics.connectivity() != connectivity )
+						{
+							minimaDynamics = ExtremaDynamics.compute( image, ExtremaType.MINIMA, connectivity );
+							minimaDynamicsImage = image;
+						}
+						ImageStack regionalMinima = minimaDynamics.extendedExtremaStack( dynamic );
 
 						if( null == regionalMinima )
 						{
@@ -1164,7 +1197,7 @@ public class MorphologicalSegmentation implements PlugIn {
 						IJ.log( "Labeling regional minima..." );
 
 						// Label regional minima
-						ImageStack labeledMinima = BinaryImages.componentsLabeling( regionalMinima, connectivity, 32 );
+						ImageStack labeledMinima = minimaDynamics.extendedExtremaLabelsStack( dynamic, 32 );
 						if( null == labeledMinima )
 						{
 							IJ.log( "The segmentation was interrupted!" );
@@ -1174,7 +1207,7 @@ public class MorphologicalSegmentation implements PlugIn {
 						}
 
 						final long step3 = System.currentTimeMillis();
-						IJ.log( "Connected components took " + (step3-step2) + " ms." );
+						IJ.log( "Labeling took " + (step3-step2) + " ms." );
 
 						// Apply watershed		
 						IJ.log("Running watershed...");
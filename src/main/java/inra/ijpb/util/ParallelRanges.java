@@ -0,0 +1,175 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Splits the processing of a range of independent lines (rows, columns or
+ * slices) into contiguous blocks, processed by several threads.
+ * 
+ * @author agent
+ *
+ */
+public class ParallelRanges
+{
+	/**
+	 * The minimum number of lines processed by each thread, to avoid
+	 * creating threads for small images.
+	 */
+	public static final int MIN_LINES_PER_THREAD = 16;
+	
+	/**
+	 * The processing of a block of lines. Implementations must allocate their
+	 * own buffers, as blocks are processed concurrently.
+	 */
+	public interface Task
+	{
+		/**
+		 * Processes the lines with index between start (inclusive) and end
+		 * (exclusive).
+		 * 
+		 * @param start
+		 *            the index of the first line to process
+		 * @param end
+		 *            the index after the last line to process
+		 */
+		public void process(int start, int end);
+	}
+	
+	/**
+	 * Private constructor to prevent instantiation.
+	 */
+	private ParallelRanges()
+	{
+	}
+	
+	/**
+	 * Processes the lines from 0 to count-1, by splitting them into blocks
+	 * processed by at most nThreads threads. If a single thread is used, the
+	 * task is run within the calling thread. The block starting at 0 is
+	 * always processed by the calling thread, so it can be used for reporting
+	 * progress.
+	 * 
+	 * If the processing of a block throws an exception, the remaining blocks
+	 * are not processed, and the first exception is thrown again by this
+	 * method once all the threads have finished.
+	 * 
+	 * @param count
+	 *            the number of lines to process
+	 * @param nThreads
+	 *            the maximum number of threads to use
+	 * @param task
+	 *            the task processing a block of lines
+	 */
+	public static final void run(final int count, int nThreads, final Task task)
+	{
+		final int nBlocks = Math.max(Math.min(nThreads, count / MIN_LINES_PER_THREAD), 1);
+		if (nBlocks == 1)
+		{
+			task.process(0, count);
+			return;
+		}
+		
+		// the first block is kept for the calling thread, the other ones are
+		// shared between the calling thread and the worker threads
+		final int blockSize = (count + nBlocks - 1) / nBlocks;
+		final AtomicInteger ai = new AtomicInteger(1);
+		final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+		Runnable worker = new Runnable()
+		{
+			public void run()
+			{
+				try
+				{
+					for (int k = ai.getAndIncrement(); k < nBlocks && error.get() == null; k = ai.getAndIncrement())
+					{
+						int start = k * blockSize;
+						int end = Math.min(start + blockSize, count);
+						if (start < end)
+						{
+							task.process(start, end);
+						}
+					}
+				}
+				catch (Throwable ex)
+				{
+					error.compareAndSet(null, ex);
+				}
+			}
+		};
+		
+		Thread[] threads = new Thread[nBlocks - 1];
+		for (int ithread = 0; ithread < threads.length; ithread++)
+		{
+			threads[ithread] = new Thread(worker);
+			threads[ithread].start();
+		}
+		
+		try
+		{
+			task.process(0, Math.min(blockSize, count));
+		}
+		catch (Throwable ex)
+		{
+			error.compareAndSet(null, ex);
+		}
+		worker.run();
+		
+		// wait for all the threads, as they modify the data of the caller
+		boolean interrupted = false;
+		for (Thread thread : threads)
+		{
+			while (thread.isAlive())
+			{
+				try
+				{
+					thread.join();
+				}
+				catch (InterruptedException ex)
+				{
+					interrupted = true;
+				}
+			}
+		}
+		if (interrupted)
+		{
+			Thread.currentThread().interrupt();
+		}
+		
+		// propagate the first exception thrown by a block
+		Throwable ex = error.get();
+		if (ex instanceof RuntimeException)
+		{
+			throw (RuntimeException) ex;
+		}
+		if (ex instanceof Error)
+		{
+			throw (Error) ex;
+		}
+		if (ex != null)
+		{
+			throw new RuntimeException(ex);
+		}
+	}
+}
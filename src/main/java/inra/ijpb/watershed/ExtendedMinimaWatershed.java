@@ -24,9 +24,10 @@ package inra.ijpb.watershed;
 import ij.ImagePlus;
 import ij.ImageStack;
 import ij.process.ImageProcessor;
-import inra.ijpb.binary.BinaryImages;
 import inra.ijpb.morphology.MinimaAndMaxima;
 import inra.ijpb.morphology.MinimaAndMaxima3D;
+import inra.ijpb.morphology.extrema.ExtremaDynamics;
+import inra.ijpb.morphology.extrema.ExtremaType;
 
 /**
  * <p>
@@ -103,9 +104,10 @@ public class ExtendedMinimaWatershed
 	public static final ImageProcessor extendedMinimaWatershed(
 			ImageProcessor image, int dynamic, int connectivity, int outputType )
 	{
-		ImageProcessor minima = MinimaAndMaxima.extendedMinima(image, dynamic, connectivity);
+		ExtremaDynamics dynamics = ExtremaDynamics.compute(image, ExtremaType.MINIMA, connectivity);
+		ImageProcessor minima = dynamics.extendedExtrema(dynamic);
 		ImageProcessor imposedMinima = MinimaAndMaxima.imposeMinima(image, minima, connectivity);
-		ImageProcessor labels = BinaryImages.componentsLabeling(minima, connectivity, outputType);
+		ImageProcessor labels = dynamics.extendedExtremaLabels(dynamic, outputType);
 		ImageProcessor basins = Watershed.computeWatershed(imposedMinima, labels, connectivity, true);
 		return basins;
 	}
@@ -139,12 +141,12 @@ public class ExtendedMinimaWatershed
 			int outputType,
 			boolean verbose )
 	{
-		ImageProcessor minima =
-				MinimaAndMaxima.extendedMinima( image, dynamic, connectivity );
+		ExtremaDynamics dynamics =
+				ExtremaDynamics.compute( image, ExtremaType.MINIMA, connectivity );
+		ImageProcessor minima = dynamics.extendedExtrema( dynamic );
 		ImageProcessor imposedMinima =
 				MinimaAndMaxima.imposeMinima( image, minima, connectivity );
-		ImageProcessor labels =
-				BinaryImages.componentsLabeling( minima, connectivity, outputType );
+		ImageProcessor labels = dynamics.extendedExtremaLabels( dynamic, outputType );
 		ImageProcessor basins =
 				Watershed.computeWatershed( imposedMinima, labels, mask,
 						connectivity, true, verbose);
@@ -179,12 +181,12 @@ public class ExtendedMinimaWatershed
 			int outputType,
 			boolean verbose )
 	{
-		ImageStack minima =
-				MinimaAndMaxima3D.extendedMinima( image, dynamic, connectivity );
+		ExtremaDynamics dynamics =
+				ExtremaDynamics.compute( image, ExtremaType.MINIMA, connectivity );
+		ImageStack minima = dynamics.extendedExtremaStack( dynamic );
 		ImageStack imposedMinima =
 				MinimaAndMaxima3D.imposeMinima( image, minima, connectivity );
-		ImageStack labels =
-				BinaryImages.componentsLabeling( minima, connectivity, outputType );
+		ImageStack labels = dynamics.extendedExtremaLabelsStack( dynamic, outputType );
 		ImageStack basins =
 				Watershed.computeWatershed( imposedMinima, labels, mask,
 						connectivity, true, verbose );
@@ -210,9 +212,10 @@ public class ExtendedMinimaWatershed
 	public static final ImageStack extendedMinimaWatershed(
 			ImageStack image, int dynamic, int connectivity, int outputType )
 	{
-		ImageStack minima = MinimaAndMaxima3D.extendedMinima(image, dynamic, connectivity);
+		ExtremaDynamics dynamics = ExtremaDynamics.compute(image, ExtremaType.MINIMA, connectivity);
+		ImageStack minima = dynamics.extendedExtremaStack(dynamic);
 		ImageStack imposedMinima = MinimaAndMaxima3D.imposeMinima(image, minima, connectivity);
-		ImageStack labels = BinaryImages.componentsLabeling(minima, connectivity, outputType);
+		ImageStack labels = dynamics.extendedExtremaLabelsStack(dynamic, outputType);
 		ImageStack basins = Watershed.computeWatershed(imposedMinima, labels, connectivity, true);
 		return basins;
 	}
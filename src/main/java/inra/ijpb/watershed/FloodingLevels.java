@@ -0,0 +1,118 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.watershed;
+
+/**
+ * Converts the values of the input image of a watershed transform into the
+ * integer levels of a hierarchical queue.
+ * 
+ * For 8-bits and 16-bits images, the level equals the gray value, so that
+ * flooding with a hierarchical queue visits pixels in exactly the same order
+ * as with a priority queue. For other images (float), the range of values is
+ * quantized into a fixed number of levels; pixels whose values fall within
+ * the same level are then visited in the order they were reached.
+ * 
+ * @see inra.ijpb.data.HierarchicalQueue
+ * 
+ * @author agent
+ */
+class FloodingLevels
+{
+	/** The number of levels used for quantizing floating point values. */
+	static final int FLOAT_LEVEL_COUNT = 65536;
+
+	/** The number of levels. */
+	final int levelCount;
+
+	/** The value corresponding to level 0. */
+	final double minValue;
+	
+	/** The factor for converting a value into a level. */
+	final double scale;
+	
+	/** The level of the maximum value within the image. */
+	final int maxLevel;
+	
+	/**
+	 * Creates the levels adapted to an image with the given bit depth and
+	 * range of values.
+	 * 
+	 * @param bitDepth
+	 *            the bit depth of the input image
+	 * @param minValue
+	 *            the minimum value within the image
+	 * @param maxValue
+	 *            the maximum value within the image
+	 */
+	FloodingLevels(int bitDepth, double minValue, double maxValue)
+	{
+		switch (bitDepth)
+		{
+		case 8:
+			this.levelCount = 256;
+			this.minValue = 0;
+			this.scale = 1;
+			break;
+		case 16:
+			this.levelCount = 65536;
+			this.minValue = 0;
+			this.scale = 1;
+			break;
+		default:
+			this.levelCount = FLOAT_LEVEL_COUNT;
+			this.minValue = minValue;
+			double range = maxValue - minValue;
+			this.scale = range > 0 ? (FLOAT_LEVEL_COUNT - 1) / range : 0;
+		}
+		this.maxLevel = level(maxValue);
+	}
+	
+	/**
+	 * Computes the level of a pixel or voxel value.
+	 * 
+	 * @param value
+	 *            the value of the pixel or voxel
+	 * @return the corresponding level, between 0 and levelCount-1
+	 */
+	final int level(double value)
+	{
+		double level = (value - minValue) * scale;
+		if (level >= levelCount - 1 || Double.isNaN(level))
+			return levelCount - 1;
+		if (level <= 0)
+			return 0;
+		return (int) level;
+	}
+	
+	/**
+	 * Computes the approximate fraction of the range of values that have
+	 * been flooded, for displaying progression.
+	 * 
+	 * @param level
+	 *            the current flooding level
+	 * @return a value between 0 and 1
+	 */
+	final double progress(int level)
+	{
+		return Math.min((level + 1.0) / (maxLevel + 1.0), 1.0);
+	}
+}
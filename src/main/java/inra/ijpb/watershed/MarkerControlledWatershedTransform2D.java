@@ -33,6 +33,7 @@ import ij.ImageStack;
 import ij.process.FloatProcessor;
 import ij.process.ImageProcessor;
 import inra.ijpb.data.Cursor2D;
+import inra.ijpb.data.HierarchicalQueue;
 import inra.ijpb.data.Neighborhood2D;
 import inra.ijpb.data.Neighborhood2DC8;
 import inra.ijpb.data.Neighborhood2DC4;
@@ -1579,6 +1580,261 @@ public class MarkerControlledWatershedTransform2D extends WatershedTransform2D
 	}
 	
 	
+	/**
+	 * Apply watershed transform on inputImage, using the labeled markers from
+	 * markerImage and restricted to the white areas of maskImage. This
+	 * implementation floods the image using a hierarchical queue, made of one
+	 * FIFO queue of pixel indices for each gray level.
+	 * 
+	 * For 8-bits and 16-bits input images, the result is the same as the one
+	 * obtained with {@link #applyWithPriorityQueue()}, but pushing or
+	 * removing a pixel is performed in constant time, and no object is
+	 * created for each pixel. For floating point input images, the values are
+	 * quantized into 65536 levels, and pixels within the same level are
+	 * processed in the order they were reached.
+	 * 
+	 * @return watershed domains image (no dams)
+	 */
+	public ImageProcessor applyWithHierarchicalQueue()
+	{
+		final int[] labels = floodWithHierarchicalQueue( false );
+		if ( null == labels )
+			return null;
+		
+		return new FloatProcessor( inputImage.getWidth(), 
+				inputImage.getHeight(), labels );
+	}
+
+	/**
+	 * Apply watershed transform on inputImage, using the labeled markers from
+	 * markerImage and restricted to the white areas of maskImage. This
+	 * implementation floods the image using a hierarchical queue, and labels
+	 * as watershed (dams) the pixels adjacent to several catchment basins.
+	 * 
+	 * For 8-bits and 16-bits input images, the result is the same as the one
+	 * obtained with {@link #applyWithPriorityQueueAndDams()}.
+	 * 
+	 * @see #applyWithHierarchicalQueue()
+	 * @return watershed domains image (with dams)
+	 */
+	public ImageProcessor applyWithHierarchicalQueueAndDams()
+	{
+		final int[] labels = floodWithHierarchicalQueue( true );
+		if ( null == labels )
+			return null;
+
+		// Create result label image
+		final int size1 = inputImage.getWidth();
+		ImageProcessor labelProcessor = markerImage.duplicate();
+		for (int i = 0; i < labels.length; ++i)
+		{
+			if( labels[ i ] == INIT ) // set unlabeled pixels to WSHED
+				labelProcessor.setf( i % size1, i / size1, 0 );
+			else
+				labelProcessor.setf( i % size1, i / size1, labels[ i ] );
+		}
+		return labelProcessor;
+	}
+
+	/**
+	 * Floods the input image from the markers using a hierarchical queue.
+	 * 
+	 * @param dams
+	 *            if true, pixels adjacent to several basins are labeled as
+	 *            watershed
+	 * @return the array of labels, indexed by y * width + x, or null if the
+	 *         thread was interrupted
+	 */
+	private int[] floodWithHierarchicalQueue( boolean dams )
+	{
+		final int size1 = inputImage.getWidth();
+		final int size2 = inputImage.getHeight();
+
+		if (size1 != markerImage.getWidth() || size2 != markerImage.getHeight())
+		{
+			throw new IllegalArgumentException("Marker and input images must have the same size");
+		}
+
+		// Check connectivity has a correct value
+		if ( connectivity != 4 && connectivity != 8 ) 
+		{
+			throw new RuntimeException(
+					"Connectivity for 2D images must be either 4 or 8, not "
+							+ connectivity);
+		}
+		
+		// neighbor shifts, in the same order as the Neighborhood2D classes
+		final int[] dx, dy;
+		if ( connectivity == 4 )
+		{
+			dx = new int[] { -1, 0, 1, 0 };
+			dy = new int[] { 0, -1, 0, 1 };
+		}
+		else
+		{
+			dx = new int[] { -1, -1, -1, 0, 0, 1, 1, 1 };
+			dy = new int[] { -1, 0, 1, -1, 1, -1, 0, 1 };
+		}
+		final int nNeighbors = dx.length;
+		
+		// output labels: pixels outside of the mask are set to WSHED
+		final int[] labels = new int[ size1 * size2 ];
+		for ( int i = 0; i < labels.length; i++ )
+		{
+			if ( null == maskImage || maskImage.getf( i ) > 0 )
+				labels[ i ] = INIT;
+		}
+		
+		// conversion of input values into queue levels (the min and max of
+		// the processor correspond to the display range, not to the data)
+		final double[] extent = findMinAndMax( inputImage );
+		final FloodingLevels levels = new FloodingLevels( inputImage.getBitDepth(),
+				extent[ 0 ], extent[ 1 ] );
+		final HierarchicalQueue queue = new HierarchicalQueue( levels.levelCount );
+
+		// Initialize the queue with the neighbors of the markers
+		IJ.showStatus( "Extracting pixel values..." );
+		if( verbose ) IJ.log("  Extracting pixel values..." );
+		final long t0 = System.currentTimeMillis();
+
+		for( int x = 0; x < size1; ++x )
+		{
+			for( int y = 0; y < size2; ++y )
+			{
+				final int index = y * size1 + x;
+				if ( null != maskImage && maskImage.getf( index ) <= 0 )
+					continue;
+				
+				final int label = (int) markerImage.getf( index );
+				if ( label <= 0 )
+					continue;
+				
+				// add unlabeled neighbors to the queue
+				for ( int n = 0; n < nNeighbors; n++ )
+				{
+					final int u = x + dx[ n ];
+					final int v = y + dy[ n ];
+					if ( u < 0 || u >= size1 || v < 0 || v >= size2 )
+						continue;
+					
+					final int index2 = v * size1 + u;
+					if ( (int) markerImage.getf( index2 ) == 0 && labels[ index2 ] != INQUEUE )
+					{
+						queue.add( levels.level( inputImage.getf( index2 ) ), index2 );
+						labels[ index2 ] = INQUEUE;
+					}
+				}
+				labels[ index ] = label;
+			}
+		}
+
+		final long t1 = System.currentTimeMillis();		
+		if( verbose ) IJ.log("  Extraction took " + (t1-t0) + " ms.");
+
+		// Watershed
+		final long start = System.currentTimeMillis();
+
+		final int count = queue.size();
+		if( verbose ) IJ.log( "  Flooding from " + count + " pixels..." );
+		IJ.showStatus("Flooding from " + count + " pixels...");
+
+		// indices of unlabeled neighbors of current pixel
+		final int[] neighborIndices = new int[ nNeighbors ];
+		int lastLevel = -1;
+
+		while ( !queue.isEmpty() )
+		{
+			if ( Thread.currentThread().isInterrupted() )
+				return null;
+
+			// show progression along levels
+			final int level = queue.currentLevel();
+			if ( level > lastLevel )
+			{
+				IJ.showProgress( levels.progress( level ) );
+				lastLevel = level;
+			}
+
+			final int index = queue.removeFirst();
+			final int x = index % size1;
+			final int y = index / size1;
+
+			// find unlabeled neighbors and labels of labeled neighbors
+			int nUnlabeled = 0;
+			int firstLabel = 0;
+			boolean severalLabels = false;
+			for ( int n = 0; n < nNeighbors; n++ )
+			{
+				final int u = x + dx[ n ];
+				final int v = y + dy[ n ];
+				if ( u < 0 || u >= size1 || v < 0 || v >= size2 )
+					continue;
+
+				final int index2 = v * size1 + u;
+				final int label2 = labels[ index2 ];
+				if ( label2 == INIT )
+				{
+					neighborIndices[ nUnlabeled++ ] = index2;
+				}
+				else if ( label2 > 0 )
+				{
+					if ( firstLabel == 0 )
+						firstLabel = label2;
+					else if ( label2 != firstLabel )
+						severalLabels = true;
+				}
+			}
+			
+			if ( dams && severalLabels )
+			{
+				labels[ index ] = WSHED;
+			}
+			else if ( firstLabel > 0 )
+			{
+				labels[ index ] = firstLabel;
+				// now that we know the pixel is labeled, add unlabeled
+				// neighbors to the queue
+				for ( int n = 0; n < nUnlabeled; n++ )
+				{
+					final int index2 = neighborIndices[ n ];
+					labels[ index2 ] = INQUEUE;
+					queue.add( levels.level( inputImage.getf( index2 ) ), index2 );
+				}
+			}
+		}
+
+		final long end = System.currentTimeMillis();
+		if( verbose ) IJ.log("  Flooding took: " + (end-start) + " ms");
+		IJ.showStatus("");
+		IJ.showProgress( 1.0 );
+		
+		return labels;
+	}
+	
+
+	/**
+	 * Computes the range of values within an image, independently of its
+	 * display range.
+	 * 
+	 * @param image
+	 *            the image to process
+	 * @return an array containing the minimum and maximum values
+	 */
+	private static final double[] findMinAndMax( ImageProcessor image )
+	{
+		double min = Double.POSITIVE_INFINITY;
+		double max = Double.NEGATIVE_INFINITY;
+		final int count = image.getWidth() * image.getHeight();
+		for ( int i = 0; i < count; i++ )
+		{
+			final double value = image.getf( i );
+			if ( value < min )
+				min = value;
+			if ( value > max )
+				max = value;
+		}
+		return new double[] { min, max };
+	}
 	/**
 	 * Extract pixel values from input and seed images
 	 * 
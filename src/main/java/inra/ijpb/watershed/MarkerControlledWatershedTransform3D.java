@@ -35,6 +35,7 @@ import ij.Prefs;
 import ij.process.ImageProcessor;
 import ij.util.ThreadUtil;
 import inra.ijpb.data.Cursor3D;
+import inra.ijpb.data.HierarchicalQueue;
 import inra.ijpb.data.Neighborhood3D;
 import inra.ijpb.data.Neighborhood3DC26;
 import inra.ijpb.data.Neighborhood3DC6;
@@ -908,6 +909,325 @@ public class MarkerControlledWatershedTransform3D extends WatershedTransform3D
 	}
 	
 	
+	/**
+	 * Apply watershed transform on inputImage, using the labeled markers from
+	 * markerImage and restricted to the white areas of maskImage. This
+	 * implementation floods the image using a hierarchical queue, made of one
+	 * FIFO queue of voxel positions for each gray level.
+	 * 
+	 * For 8-bits and 16-bits input images, the result is the same as the one
+	 * obtained with {@link #applyWithPriorityQueue()}, but pushing or
+	 * removing a voxel is performed in constant time, and no object is
+	 * created for each voxel. For floating point input images, the values are
+	 * quantized into 65536 levels, and voxels within the same level are
+	 * processed in the order they were reached.
+	 * 
+	 * @return watershed domains image (no dams)
+	 */
+	public ImagePlus applyWithHierarchicalQueue()
+	{
+		final int[][] labels = floodWithHierarchicalQueue( false );
+		if ( null == labels )
+			return null;
+		
+		return createResultImage( labels );
+	}
+
+	/**
+	 * Apply watershed transform on inputImage, using the labeled markers from
+	 * markerImage and restricted to the white areas of maskImage. This
+	 * implementation floods the image using a hierarchical queue, and labels
+	 * as watershed (dams) the voxels adjacent to several catchment basins.
+	 * 
+	 * For 8-bits and 16-bits input images, the result is the same as the one
+	 * obtained with {@link #applyWithPriorityQueueAndDams()}.
+	 * 
+	 * @see #applyWithHierarchicalQueue()
+	 * @return watershed domains image (with dams)
+	 */
+	public ImagePlus applyWithHierarchicalQueueAndDams()
+	{
+		final int[][] labels = floodWithHierarchicalQueue( true );
+		if ( null == labels )
+			return null;
+		
+		return createResultImage( labels );
+	}
+
+	/**
+	 * Floods the input image from the markers using a hierarchical queue.
+	 * Voxels are stored within the queue as pairs of integers, made of the
+	 * slice index and of the index of the voxel within the slice.
+	 * 
+	 * @param dams
+	 *            if true, voxels adjacent to several basins are labeled as
+	 *            watershed
+	 * @return the array of labels, indexed by z and by y * width + x, or null
+	 *         if the thread was interrupted
+	 */
+	private int[][] floodWithHierarchicalQueue( boolean dams )
+	{
+		final ImageStack inputStack = inputImage.getStack();
+		final int size1 = inputStack.getWidth();
+		final int size2 = inputStack.getHeight();
+		final int size3 = inputStack.getSize();
+
+		if (size1 != markerImage.getWidth() || size2 != markerImage.getHeight()
+				|| size3 != markerImage.getStackSize())
+		{
+			throw new IllegalArgumentException("Marker and input images must have the same size");
+		}
+
+		// Check connectivity has a correct value
+		if ( connectivity != 6 && connectivity != 26 ) 
+		{
+			throw new RuntimeException(
+					"Connectivity for stacks must be either 6 or 26, not "
+							+ connectivity);
+		}
+		
+		// neighbor shifts, in the same order as the Neighborhood3D classes
+		final int[] dx, dy, dz;
+		if ( connectivity == 6 )
+		{
+			dx = new int[] { 0, -1, 0, 0, 1, 0 };
+			dy = new int[] { 0, 0, -1, 1, 0, 0 };
+			dz = new int[] { -1, 0, 0, 0, 0, 1 };
+		}
+		else
+		{
+			dx = new int[ 26 ];
+			dy = new int[ 26 ];
+			dz = new int[ 26 ];
+			int n = 0;
+			for ( int z = -1; z <= 1; z++ )
+				for ( int x = -1; x <= 1; x++ )
+					for ( int y = -1; y <= 1; y++ )
+					{
+						if ( x == 0 && y == 0 && z == 0 )
+							continue;
+						dx[ n ] = x;
+						dy[ n ] = y;
+						dz[ n ] = z;
+						n++;
+					}
+		}
+		final int nNeighbors = dx.length;
+		
+		// processors of input and marker slices
+		final ImageStack markerStack = markerImage.getStack();
+		final ImageProcessor[] inputSlices = new ImageProcessor[ size3 ];
+		final ImageProcessor[] markerSlices = new ImageProcessor[ size3 ];
+		for ( int z = 0; z < size3; z++ )
+		{
+			inputSlices[ z ] = inputStack.getProcessor( z + 1 );
+			markerSlices[ z ] = markerStack.getProcessor( z + 1 );
+		}
+
+		// output labels: voxels outside of the mask are set to WSHED
+		final int sliceSize = size1 * size2;
+		final int[][] labels = new int[ size3 ][ sliceSize ];
+		final ImageStack maskStack = null == maskImage ? null : maskImage.getStack();
+		for ( int z = 0; z < size3; z++ )
+		{
+			if ( null == maskStack )
+			{
+				Arrays.fill( labels[ z ], INIT );
+				continue;
+			}
+			final ImageProcessor maskSlice = maskStack.getProcessor( z + 1 );
+			for ( int i = 0; i < sliceSize; i++ )
+			{
+				if ( maskSlice.getf( i ) > 0 )
+					labels[ z ][ i ] = INIT;
+			}
+		}
+		
+		// conversion of input values into queue levels
+		final double[] extent = Images3D.findMinAndMax( inputImage );
+		final FloodingLevels levels = new FloodingLevels( inputImage.getBitDepth(),
+				extent[ 0 ], extent[ 1 ] );
+		final HierarchicalQueue queue = new HierarchicalQueue( levels.levelCount );
+
+		// Initialize the queue with the neighbors of the markers
+		IJ.showStatus( "Extracting voxel values..." );
+		if( verbose ) IJ.log("  Extracting voxel values..." );
+		final long t0 = System.currentTimeMillis();
+
+		for ( int z = 0; z < size3; ++z )
+		{
+			IJ.showProgress( z+1, size3 );
+			if ( Thread.currentThread().isInterrupted() )
+			{
+				IJ.showProgress( 1.0 );
+				return null;
+			}
+			
+			for ( int x = 0; x < size1; ++x )
+			{
+				for ( int y = 0; y < size2; ++y )
+				{
+					final int index = y * size1 + x;
+					if ( null != maskStack && labels[ z ][ index ] == WSHED )
+						continue;
+
+					final int label = (int) markerSlices[ z ].getf( index );
+					if ( label <= 0 )
+						continue;
+
+					// add unlabeled neighbors to the queue
+					for ( int n = 0; n < nNeighbors; n++ )
+					{
+						final int u = x + dx[ n ];
+						final int v = y + dy[ n ];
+						final int w = z + dz[ n ];
+						if ( u < 0 || u >= size1 || v < 0 || v >= size2 || w < 0 || w >= size3 )
+							continue;
+
+						final int index2 = v * size1 + u;
+						if ( (int) markerSlices[ w ].getf( index2 ) == 0 
+								&& labels[ w ][ index2 ] != INQUEUE )
+						{
+							final int level = levels.level( inputSlices[ w ].getf( index2 ) );
+							queue.add( level, w );
+							queue.add( level, index2 );
+							labels[ w ][ index2 ] = INQUEUE;
+						}
+					}
+					labels[ z ][ index ] = label;
+				}
+			}
+		}
+
+		final long t1 = System.currentTimeMillis();		
+		if( verbose ) IJ.log("  Extraction took " + (t1-t0) + " ms.");
+
+		// Watershed
+		final long start = System.currentTimeMillis();
+
+		final int count = queue.size() / 2;
+		if( verbose ) IJ.log( "  Flooding from " + count + " voxels..." );
+		IJ.showStatus("Flooding from " + count + " voxels...");
+
+		// positions of unlabeled neighbors of current voxel
+		final int[] neighborSlices = new int[ nNeighbors ];
+		final int[] neighborIndices = new int[ nNeighbors ];
+		int lastLevel = -1;
+
+		while ( !queue.isEmpty() )
+		{
+			if ( Thread.currentThread().isInterrupted() )
+				return null;
+
+			// show progression along voxel values
+			final int level = queue.currentLevel();
+			if ( level > lastLevel )
+			{
+				IJ.showProgress( levels.progress( level ) );
+				lastLevel = level;
+			}
+
+			final int z = queue.removeFirst();
+			final int index = queue.removeFirst();
+			final int x = index % size1;
+			final int y = index / size1;
+
+			// find unlabeled neighbors and labels of labeled neighbors
+			int nUnlabeled = 0;
+			int firstLabel = 0;
+			boolean severalLabels = false;
+			for ( int n = 0; n < nNeighbors; n++ )
+			{
+				final int u = x + dx[ n ];
+				final int v = y + dy[ n ];
+				final int w = z + dz[ n ];
+				if ( u < 0 || u >= size1 || v < 0 || v >= size2 || w < 0 || w >= size3 )
+					continue;
+
+				final int index2 = v * size1 + u;
+				final int label2 = labels[ w ][ index2 ];
+				if ( label2 == INIT )
+				{
+					neighborSlices[ nUnlabeled ] = w;
+					neighborIndices[ nUnlabeled ] = index2;
+					nUnlabeled++;
+				}
+				else if ( label2 > 0 )
+				{
+					if ( firstLabel == 0 )
+						firstLabel = label2;
+					else if ( label2 != firstLabel )
+						severalLabels = true;
+				}
+			}
+
+			if ( dams && severalLabels )
+			{
+				labels[ z ][ index ] = WSHED;
+			}
+			else if ( firstLabel > 0 )
+			{
+				labels[ z ][ index ] = firstLabel;
+				// now that we know the voxel is labeled, add unlabeled
+				// neighbors to the queue
+				for ( int n = 0; n < nUnlabeled; n++ )
+				{
+					final int w = neighborSlices[ n ];
+					final int index2 = neighborIndices[ n ];
+					final int level2 = levels.level( inputSlices[ w ].getf( index2 ) );
+					labels[ w ][ index2 ] = INQUEUE;
+					queue.add( level2, w );
+					queue.add( level2, index2 );
+				}
+			}
+		}
+
+		final long end = System.currentTimeMillis();
+		if( verbose ) IJ.log("  Flooding took: " + (end-start) + " ms");
+		IJ.showStatus("");
+		IJ.showProgress( 1.0 );
+
+		return labels;
+	}
+
+	/**
+	 * Creates the result image of the watershed from the array of labels,
+	 * using the same type and calibration as the marker and input images.
+	 * 
+	 * @param labels
+	 *            the array of labels, indexed by z and by y * width + x
+	 * @return the label image
+	 */
+	private ImagePlus createResultImage( int[][] labels )
+	{
+		final ImageStack labelStack = markerImage.duplicate().getStack();
+		for ( int z = 0; z < labels.length; z++ )
+		{
+			final ImageProcessor labelProcessor = labelStack.getProcessor( z + 1 );
+			final int[] sliceLabels = labels[ z ];
+			for ( int i = 0; i < sliceLabels.length; i++ )
+			{
+				if( sliceLabels[ i ] == INIT ) // set unlabeled voxels to WSHED
+					labelProcessor.setf( i, 0 );
+				else
+					labelProcessor.setf( i, sliceLabels[ i ] );
+			}
+		}
+
+		String title = inputImage.getTitle();
+		String ext = "";
+		int index = title.lastIndexOf( "." );
+		if( index != -1 )
+		{
+			ext = title.substring( index );
+			title = title.substring( 0, index );
+		}
+
+		final ImagePlus ws = new ImagePlus( title + "-watershed" + ext, labelStack );
+		ws.setCalibration( inputImage.getCalibration() );
+		return ws;
+	}
+	
 	/**
 	 * Extract voxel values from input and seed images
 	 * 
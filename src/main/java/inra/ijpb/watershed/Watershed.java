@@ -192,6 +192,35 @@ public class Watershed
 			int connectivity,
 			boolean getDams,
 			boolean verbose )
+	{
+		return computeWatershed( input, marker, binaryMask, connectivity,
+				getDams, verbose, false );
+	}
+
+	/**
+	 * Compute watershed with markers with an optional binary mask
+	 * to restrict the regions of application, using either a priority
+	 * queue or a hierarchical queue for flooding.
+	 *
+	 * @param input original grayscale image (usually a gradient image)
+	 * @param marker image with labeled markers
+	 * @param binaryMask binary mask to restrict the regions of interest
+	 * @param connectivity voxel connectivity to define neighborhoods (4 or 8 for 2D, 6 or 26 for 3D)
+	 * @param getDams select/deselect the calculation of dams
+	 * @param verbose flag to display messages in the log window
+	 * @param hierarchicalQueue flag to flood using a hierarchical queue
+	 *            (faster and less memory-consuming, especially for 8-bits
+	 *            and 16-bits images)
+	 * @return image of labeled catchment basins (labels are 1, 2, ...)
+	 */
+	public static ImagePlus computeWatershed(
+			ImagePlus input,
+			ImagePlus marker,
+			ImagePlus binaryMask,
+			int connectivity,
+			boolean getDams,
+			boolean verbose,
+			boolean hierarchicalQueue )
 	{
 		if( connectivity == 6 || connectivity == 26 )
 		{
@@ -199,6 +228,9 @@ public class Watershed
 					new MarkerControlledWatershedTransform3D( input, marker,
 							binaryMask, connectivity );
 			wt.setVerbose( verbose );
+			if( hierarchicalQueue )
+				return getDams ? wt.applyWithHierarchicalQueueAndDams()
+						: wt.applyWithHierarchicalQueue();
 			if( getDams )
 				return wt.applyWithPriorityQueueAndDams();
 			else 
@@ -213,7 +245,10 @@ public class Watershed
 								null, connectivity );
 			wt.setVerbose( verbose );
 			ImageProcessor ip;
-			if( getDams )
+			if( hierarchicalQueue )
+				ip = getDams ? wt.applyWithHierarchicalQueueAndDams()
+						: wt.applyWithHierarchicalQueue();
+			else if( getDams )
 				ip = wt.applyWithPriorityQueueAndDams();
 			else 
 				ip = wt.applyWithPriorityQueue();
@@ -281,14 +316,40 @@ public class Watershed
 			boolean getDams,
 			boolean verbose )
 	{
-				
+		return computeWatershed( input, marker, binaryMask, connectivity,
+				getDams, verbose, false );
+	}
+
+	/**
+	 * Compute watershed with markers with an optional binary mask
+	 * to restrict the regions of application, using either a priority
+	 * queue or a hierarchical queue for flooding.
+	 *
+	 * @param input original grayscale image (usually a gradient image)
+	 * @param marker image with labeled markers
+	 * @param binaryMask binary mask to restrict the regions of interest
+	 * @param connectivity voxel connectivity to define neighborhoods
+	 * @param getDams select/deselect the calculation of dams
+	 * @param verbose flag to display messages in the log window
+	 * @param hierarchicalQueue flag to flood using a hierarchical queue
+	 * @return image of labeled catchment basins (labels are 1, 2, ...)
+	 */
+	public static ImageStack computeWatershed(
+			ImageStack input,
+			ImageStack marker,
+			ImageStack binaryMask,
+			int connectivity,
+			boolean getDams,
+			boolean verbose,
+			boolean hierarchicalQueue )
+	{
 		final ImagePlus inputIP = new ImagePlus( "input", input );
 		final ImagePlus markerIP = new ImagePlus( "marker", marker );
 		final ImagePlus binaryMaskIP = ( null != binaryMask ) ?
 				new ImagePlus( "binary mask", binaryMask ) : null;
 
 		ImagePlus ws = computeWatershed( inputIP, markerIP, binaryMaskIP,
-				connectivity, getDams, verbose );
+				connectivity, getDams, verbose, hierarchicalQueue );
 		if ( null != ws )
 			return ws.getImageStack();
 		else 
@@ -335,11 +396,41 @@ public class Watershed
 			int connectivity,
 			boolean getDams,
 			boolean verbose )
+	{
+		return computeWatershed( input, marker, binaryMask, connectivity,
+				getDams, verbose, false );
+	}
+
+	/**
+	 * Compute watershed with markers with an optional binary mask
+	 * to restrict the regions of application, using either a priority
+	 * queue or a hierarchical queue for flooding.
+	 *
+	 * @param input original grayscale image (usually a gradient image)
+	 * @param marker image with labeled markers
+	 * @param binaryMask binary mask to restrict the regions of interest
+	 * @param connectivity voxel connectivity to define neighborhoods
+	 * @param getDams select/deselect the calculation of dams
+	 * @param verbose flag to display log messages
+	 * @param hierarchicalQueue flag to flood using a hierarchical queue
+	 * @return image of labeled catchment basins (labels are 1, 2, ...)
+	 */
+	public static ImageProcessor computeWatershed(
+			ImageProcessor input,
+			ImageProcessor marker,
+			ImageProcessor binaryMask,
+			int connectivity,
+			boolean getDams,
+			boolean verbose,
+			boolean hierarchicalQueue )
 	{
 		MarkerControlledWatershedTransform2D wt =
 				new MarkerControlledWatershedTransform2D( input, marker,
 						binaryMask, connectivity );
 		wt.setVerbose( verbose );
+		if( hierarchicalQueue )
+			return getDams ? wt.applyWithHierarchicalQueueAndDams()
+					: wt.applyWithHierarchicalQueue();
 		if( getDams )
 			return wt.applyWithPriorityQueueAndDams();
 		else 
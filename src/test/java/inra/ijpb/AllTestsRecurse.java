@@ -30,6 +30,7 @@ import org.junit.runners.Suite;
 	// generic classes
 	inra.ijpb.OpenResourceImage.class, 
 	inra.ijpb.binary.AllTestsRecurse.class,
+	inra.ijpb.data.AllTests.class,
 	inra.ijpb.geometry.AllTests.class,
 	inra.ijpb.label.AllTestsRecurse.class,
     inra.ijpb.math.AllTests.class,
@@ -37,6 +38,7 @@ import org.junit.runners.Suite;
 	inra.ijpb.morphology.AllTestsRecurse.class,
     inra.ijpb.plugins.AllTests.class,
 	inra.ijpb.util.AllTests.class,
+	inra.ijpb.watershed.AllTests.class,
 	})
 public class AllTestsRecurse {
   //nothing
@@ -31,6 +31,7 @@ import ij.process.ByteProcessor;
 import ij.process.FloatProcessor;
 import ij.process.ImageProcessor;
 import ij.process.ShortProcessor;
+import inra.ijpb.binary.distmap.DistanceMethod;
 
 import org.junit.Test;
 
@@ -169,6 +170,24 @@ public class BinaryImagesTest {
 		assertEquals(3, result.getf(4, 4), 1e-12);
 	}
 
+	@Test
+	public final void testDistanceMapImagePlus_ExactEuclidean()
+	{
+		ImagePlus imagePlus = new ImagePlus("square", createBinarySquareImage());
+		imagePlus.getCalibration().pixelWidth = 0.5;
+		imagePlus.getCalibration().pixelHeight = 1.0;
+
+		ImagePlus resultPlus = BinaryImages.distanceMap(imagePlus, DistanceMethod.EXACT_EUCLIDEAN);
+		ImageProcessor result = resultPlus.getProcessor();
+
+		assertTrue(result instanceof FloatProcessor);
+		assertEquals(0.5, resultPlus.getCalibration().pixelWidth, 1e-12);
+		// distances are given in pixel width unit
+		assertEquals(3, result.getf(4, 4), 1e-6);
+		assertEquals(2, result.getf(4, 2), 1e-6);
+		assertEquals(1, result.getf(2, 4), 1e-6);
+	}
+
 	@Test
 	public final void testAreaOpeningImageProcessor() 
 	{
@@ -30,6 +30,8 @@ import org.junit.runners.Suite;
 	// generic classes
 	FloodFillComponentsLabelingTest.class, 
 	FloodFillComponentsLabeling3DTest.class, 
+	UnionFindComponentsLabelingTest.class, 
+	UnionFindComponentsLabeling3DTest.class, 
 	})
 public class AllTests {
   //nothing
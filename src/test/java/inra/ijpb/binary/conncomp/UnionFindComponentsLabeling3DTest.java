@@ -0,0 +1,146 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.binary.conncomp;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import ij.ImageStack;
+
+public class UnionFindComponentsLabeling3DTest
+{
+	/**
+	 * Default settings are 6 connectivity, 16 bits image.
+	 */
+	@Test
+	public void testUnionFindComponentsLabeling_Default()
+	{
+		ImageStack image = createNineCubesImage();
+		
+		UnionFindComponentsLabeling3D algo = new UnionFindComponentsLabeling3D();
+		ImageStack result = algo.computeLabels(image);
+		
+		assertEquals(16, result.getBitDepth());
+		assertEquals(9, result.getVoxel(7, 7, 7), .1);
+	}
+
+	/**
+	 * Using 26 connectivity should result in one connected component.
+	 */
+	@Test
+	public void testUnionFindComponentsLabeling_C26_Byte()
+	{
+		ImageStack image = createNineCubesImage();
+		
+		UnionFindComponentsLabeling3D algo = new UnionFindComponentsLabeling3D(26, 8);
+		ImageStack result = algo.computeLabels(image);
+		
+		assertEquals(8, result.getBitDepth());
+		assertEquals(1, result.getVoxel(7, 7, 7), .1);
+	}
+	
+	/**
+	 * Compares with flood-fill labeling on random images, for each
+	 * connectivity, output type and for several numbers of threads.
+	 */
+	@Test
+	public void testUnionFindComponentsLabeling_SameAsFloodFill()
+	{
+		// use a large number of slices to have several slabs
+		int sizeX = 12, sizeY = 10, sizeZ = 70;
+		ImageStack image = ImageStack.create(sizeX, sizeY, sizeZ, 8);
+		Random random = new Random(42);
+		for (int z = 0; z < sizeZ; z++)
+		{
+			for (int y = 0; y < sizeY; y++)
+			{
+				for (int x = 0; x < sizeX; x++)
+				{
+					// use several values, as components are made of equal values
+					image.setVoxel(x, y, z, random.nextInt(2) == 0 ? 0 : 1 + random.nextInt(2));
+				}
+			}
+		}
+		
+		for (int conn : new int[] {6, 26})
+		{
+			for (int bitDepth : new int[] {16, 32})
+			{
+				ImageStack exp = new FloodFillComponentsLabeling3D(conn, bitDepth).computeLabels(image);
+				for (int nThreads : new int[] {1, 2, 4})
+				{
+					UnionFindComponentsLabeling3D algo = new UnionFindComponentsLabeling3D(conn, bitDepth);
+					algo.setThreadCount(nThreads);
+					ImageStack result = algo.computeLabels(image);
+					
+					assertEquals(bitDepth, result.getBitDepth());
+					for (int z = 0; z < sizeZ; z++)
+					{
+						for (int y = 0; y < sizeY; y++)
+						{
+							for (int x = 0; x < sizeX; x++)
+							{
+								assertEquals(exp.getVoxel(x, y, z), result.getVoxel(x, y, z), 0);
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Create a 10-by-10-by-10 byte stack containing nine squares touching by
+	 * corners.
+	 * 
+	 * Expected number of connected components is nine for 6 (and 18)
+	 * connectivity, and one for 26 connectivity.
+	 * 
+	 * @return an image containing nine cubes touching by corners
+	 */
+	private final static ImageStack createNineCubesImage()
+	{
+		ImageStack image = ImageStack.create(10,  10,  10, 8);
+		for (int z = 0; z < 2; z++)
+		{
+			for (int y = 0; y < 2; y++)
+			{
+				for (int x = 0; x < 2; x++)
+				{
+					image.setVoxel(x + 2, y + 2, z + 2, 255);
+					image.setVoxel(x + 2, y + 6, z + 2, 255);
+					image.setVoxel(x + 6, y + 2, z + 2, 255);
+					image.setVoxel(x + 6, y + 6, z + 2, 255);
+					image.setVoxel(x + 4, y + 4, z + 4, 255);
+					image.setVoxel(x + 2, y + 2, z + 6, 255);
+					image.setVoxel(x + 2, y + 6, z + 6, 255);
+					image.setVoxel(x + 6, y + 2, z + 6, 255);
+					image.setVoxel(x + 6, y + 6, z + 6, 255);
+				}
+			}
+		}
+		return image;
+	}
+}
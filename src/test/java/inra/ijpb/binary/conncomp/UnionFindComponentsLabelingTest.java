@@ -0,0 +1,145 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.binary.conncomp;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import ij.process.ByteProcessor;
+import ij.process.ImageProcessor;
+
+public class UnionFindComponentsLabelingTest
+{
+	/**
+	 * Default settings are 4 connectivity, 16 bits image.
+	 */
+	@Test
+	public void testUnionFindComponentsLabeling_Default()
+	{
+		ByteProcessor image = createFiveSquaresImage();
+		
+		UnionFindComponentsLabeling algo = new UnionFindComponentsLabeling();
+		ImageProcessor result = algo.computeLabels(image);
+		
+		assertEquals(16, result.getBitDepth());
+		assertEquals(5, result.get(7, 7));
+	}
+	
+	/**
+	 * Using 8 connectivity should result in one connected component.
+	 */
+	@Test
+	public void testUnionFindComponentsLabeling_C8_Byte()
+	{
+		ByteProcessor image = createFiveSquaresImage();
+		
+		UnionFindComponentsLabeling algo = new UnionFindComponentsLabeling(8, 8);
+		ImageProcessor result = algo.computeLabels(image);
+		
+		assertEquals(8, result.getBitDepth());
+		assertEquals(1, result.get(7, 7));
+	}
+	
+	/**
+	 * Compares with flood-fill labeling on random images, for each
+	 * connectivity, output type and for several numbers of threads.
+	 */
+	@Test
+	public void testUnionFindComponentsLabeling_SameAsFloodFill()
+	{
+		// use a large number of rows to have several blocks
+		ImageProcessor image = new ByteProcessor(50, 200);
+		Random random = new Random(42);
+		for (int i = 0; i < 50 * 200; i++)
+		{
+			// use several values, as components are made of equal values
+			image.set(i, random.nextInt(3) == 0 ? 0 : 1 + random.nextInt(2));
+		}
+		
+		for (int conn : new int[] {4, 8})
+		{
+			for (int bitDepth : new int[] {16, 32})
+			{
+				ImageProcessor exp = new FloodFillComponentsLabeling(conn, bitDepth).computeLabels(image);
+				for (int nThreads : new int[] {1, 3, 8})
+				{
+					UnionFindComponentsLabeling algo = new UnionFindComponentsLabeling(conn, bitDepth);
+					algo.setThreadCount(nThreads);
+					ImageProcessor result = algo.computeLabels(image);
+					
+					assertEquals(bitDepth, result.getBitDepth());
+					for (int i = 0; i < 50 * 200; i++)
+					{
+						assertEquals(exp.getf(i), result.getf(i), 0);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks that an exception is thrown when the number of components
+	 * exceeds the capacity of the result.
+	 */
+	@Test(expected = RuntimeException.class)
+	public void testUnionFindComponentsLabeling_TooManyLabels()
+	{
+		ImageProcessor image = new ByteProcessor(40, 40);
+		for (int y = 0; y < 40; y += 2)
+		{
+			for (int x = 0; x < 40; x += 2)
+			{
+				image.set(x, y, 255);
+			}
+		}
+		
+		new UnionFindComponentsLabeling(4, 8).computeLabels(image);
+	}
+	
+	/**
+	 * Create a 10-by-10 byte image containing five square touching by corners.
+	 * 
+	 * Expected number of connected components is five for 4 connectivity, and
+	 * one for 8 connectivity.
+	 * 
+	 * @return an image containing five squares touching by corners
+	 */
+	private final static ByteProcessor createFiveSquaresImage()
+	{
+		ByteProcessor image = new ByteProcessor(10, 10);
+		for (int y = 0; y < 2; y++)
+		{
+			for (int x = 0; x < 2; x++)
+			{
+				image.set(x + 2, y + 2, 255);
+				image.set(x + 6, y + 2, 255);
+				image.set(x + 4, y + 4, 255);
+				image.set(x + 2, y + 6, 255);
+				image.set(x + 6, y + 6, 255);
+			}
+		}
+		return image;
+	}
+}
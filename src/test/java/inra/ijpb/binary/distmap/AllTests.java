@@ -35,7 +35,9 @@ import org.junit.runners.Suite;
 		DistanceTransform3DShortTest.class,
 		DistanceTransform3D4WeightsShortTest.class,
 		DistanceTransform3DFloatTest.class,
-		DistanceTransform3D4WeightsFloatTest.class, })
+		DistanceTransform3D4WeightsFloatTest.class,
+		DistanceTransformEuclideanTest.class,
+		DistanceTransform3DEuclideanTest.class, })
 public class AllTests {
   //nothing
 }
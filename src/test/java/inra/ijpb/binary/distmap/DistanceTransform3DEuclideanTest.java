@@ -0,0 +1,145 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.binary.distmap;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import ij.ImageStack;
+
+import org.junit.Test;
+
+public class DistanceTransform3DEuclideanTest
+{
+	@Test
+	public void testDistanceMap()
+	{
+		// create 3D image containing a cube 
+		ImageStack image = ImageStack.create(20, 20, 20, 8);
+		for (int z = 2; z < 19; z++)
+		{
+			for (int y = 2; y < 19; y++)
+			{
+				for (int x = 2; x < 19; x++)
+				{
+					image.setVoxel(x, y, z, 255);
+				}
+			}
+		}
+
+		DistanceTransform3D algo = new DistanceTransform3DEuclidean();
+		ImageStack result = algo.distanceMap(image);
+		
+		assertEquals(32, result.getBitDepth());
+		assertEquals(0, result.getVoxel(1, 1, 1), 0);
+		assertEquals(1, result.getVoxel(2, 2, 2), 0);
+		assertEquals(9, result.getVoxel(10, 10, 10), 0);
+	}
+
+	@Test
+	public void testDistanceMap_FromCenter()
+	{
+		// create 3D image with a single background voxel
+		ImageStack image = ImageStack.create(21, 21, 21, 8);
+		for (int z = 0; z < 21; z++)
+		{
+			for (int y = 0; y < 21; y++)
+			{
+				for (int x = 0; x < 21; x++)
+				{
+					image.setVoxel(x, y, z, 255);
+				}
+			}
+		}
+		image.setVoxel(10, 10, 10, 0);
+
+		DistanceTransform3D algo = new DistanceTransform3DEuclidean();
+		ImageStack result = algo.distanceMap(image);
+		
+		assertEquals(Math.sqrt(300), result.getVoxel(0, 0, 0), 1e-5);
+		assertEquals(Math.sqrt(100 + 9 + 16), result.getVoxel(20, 7, 14), 1e-5);
+	}
+	
+	/**
+	 * Compares the result with a brute-force computation, using anisotropic
+	 * spacing and various numbers of threads.
+	 */
+	@Test
+	public void testDistanceMap_BruteForce()
+	{
+		int sizeX = 25, sizeY = 20, sizeZ = 15;
+		ImageStack image = ImageStack.create(sizeX, sizeY, sizeZ, 8);
+		Random random = new Random(42);
+		for (int z = 0; z < sizeZ; z++)
+		{
+			for (int y = 0; y < sizeY; y++)
+			{
+				for (int x = 0; x < sizeX; x++)
+				{
+					image.setVoxel(x, y, z, random.nextInt(150) == 0 ? 0 : 255);
+				}
+			}
+		}
+		
+		double[] spacing = new double[] {0.7, 1.0, 2.5};
+		for (int nThreads : new int[] {1, 4})
+		{
+			DistanceTransform3DEuclidean algo = new DistanceTransform3DEuclidean(spacing);
+			algo.setThreadCount(nThreads);
+			ImageStack result = algo.distanceMap(image);
+			
+			for (int z = 0; z < sizeZ; z++)
+			{
+				for (int y = 0; y < sizeY; y++)
+				{
+					for (int x = 0; x < sizeX; x++)
+					{
+						double exp = bruteForceDistance(image, x, y, z, spacing);
+						assertEquals(exp, result.getVoxel(x, y, z), 1e-4);
+					}
+				}
+			}
+		}
+	}
+	
+	private static final double bruteForceDistance(ImageStack image, int x, int y, int z, double[] spacing)
+	{
+		double minDist2 = Double.POSITIVE_INFINITY;
+		for (int z2 = 0; z2 < image.getSize(); z2++)
+		{
+			for (int y2 = 0; y2 < image.getHeight(); y2++)
+			{
+				for (int x2 = 0; x2 < image.getWidth(); x2++)
+				{
+					if (image.getVoxel(x2, y2, z2) != 0)
+						continue;
+					double dx = (x2 - x) * spacing[0];
+					double dy = (y2 - y) * spacing[1];
+					double dz = (z2 - z) * spacing[2];
+					minDist2 = Math.min(minDist2, dx * dx + dy * dy + dz * dz);
+				}
+			}
+		}
+		return Math.sqrt(minDist2);
+	}
+}
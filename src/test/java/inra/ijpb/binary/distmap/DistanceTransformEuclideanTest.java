@@ -0,0 +1,135 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.binary.distmap;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import ij.process.ByteProcessor;
+import ij.process.FloatProcessor;
+import ij.process.ImageProcessor;
+
+import org.junit.Test;
+
+public class DistanceTransformEuclideanTest
+{
+	@Test
+	public void testDistanceMap()
+	{
+		// create image containing a square
+		ImageProcessor image = new ByteProcessor(20, 20);
+		for (int y = 2; y < 19; y++)
+		{
+			for (int x = 2; x < 19; x++)
+			{
+				image.set(x, y, 255);
+			}
+		}
+		
+		DistanceTransform algo = new DistanceTransformEuclidean();
+		ImageProcessor result = algo.distanceMap(image);
+		
+		assertTrue(result instanceof FloatProcessor);
+		assertEquals(0, result.getf(1, 1), 0);
+		assertEquals(1, result.getf(2, 2), 0);
+		assertEquals(9, result.getf(10, 10), 0);
+	}
+	
+	@Test
+	public void testDistanceMap_FromCenter()
+	{
+		// create image with a single background pixel
+		ImageProcessor image = new ByteProcessor(21, 21);
+		image.setValue(255);
+		image.fill();
+		image.set(10, 10, 0);
+		
+		DistanceTransform algo = new DistanceTransformEuclidean();
+		ImageProcessor result = algo.distanceMap(image);
+		
+		assertEquals(Math.hypot(10, 10), result.getf(0, 0), 1e-5);
+		assertEquals(Math.hypot(10, 3), result.getf(20, 7), 1e-5);
+		assertEquals(Math.hypot(4, 10), result.getf(14, 20), 1e-5);
+	}
+	
+	/**
+	 * Compares the result with a brute-force computation, using anisotropic
+	 * spacing and various numbers of threads.
+	 */
+	@Test
+	public void testDistanceMap_BruteForce()
+	{
+		ImageProcessor image = new ByteProcessor(70, 90);
+		Random random = new Random(42);
+		for (int i = 0; i < 70 * 90; i++)
+		{
+			image.set(i, random.nextInt(40) == 0 ? 0 : 255);
+		}
+		
+		double[] spacing = new double[] {1.5, 0.8};
+		for (int nThreads : new int[] {1, 4})
+		{
+			DistanceTransformEuclidean algo = new DistanceTransformEuclidean(spacing);
+			algo.setThreadCount(nThreads);
+			ImageProcessor result = algo.distanceMap(image);
+			
+			for (int y = 0; y < 90; y++)
+			{
+				for (int x = 0; x < 70; x++)
+				{
+					double exp = bruteForceDistance(image, x, y, spacing);
+					assertEquals(exp, result.getf(x, y), 1e-4);
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void testDistanceMap_NoBackground()
+	{
+		ImageProcessor image = new ByteProcessor(10, 10);
+		image.setValue(255);
+		image.fill();
+		
+		ImageProcessor result = new DistanceTransformEuclidean().distanceMap(image);
+		
+		assertEquals(Float.POSITIVE_INFINITY, result.getf(5, 5), 0);
+	}
+	
+	private static final double bruteForceDistance(ImageProcessor image, int x, int y, double[] spacing)
+	{
+		double minDist2 = Double.POSITIVE_INFINITY;
+		for (int y2 = 0; y2 < image.getHeight(); y2++)
+		{
+			for (int x2 = 0; x2 < image.getWidth(); x2++)
+			{
+				if (image.get(x2, y2) != 0)
+					continue;
+				double dx = (x2 - x) * spacing[0];
+				double dy = (y2 - y) * spacing[1];
+				minDist2 = Math.min(minDist2, dx * dx + dy * dy);
+			}
+		}
+		return Math.sqrt(minDist2);
+	}
+}
@@ -32,6 +32,11 @@ import org.junit.runners.Suite;
 	GeodesicDistanceTransformShortTest.class,
 	GeodesicDistanceTransformFloat5x5Test.class,
 	GeodesicDistanceTransformShort5x5Test.class,
+	GeodesicDistanceTransformFloatQueueTest.class,
+	GeodesicDistanceTransformShortQueueTest.class,
+	GeodesicDistanceTransformFloatIncrementalTest.class,
+	GeodesicDistanceTransformShortIncrementalTest.class,
+	GeodesicDistanceTransform3DFloatQueueTest.class,
 	GeodesicDiameter3DFloatTest.class,
 })
 public class AllTests {
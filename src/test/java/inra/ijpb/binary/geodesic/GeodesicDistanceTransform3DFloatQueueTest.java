@@ -0,0 +1,142 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.binary.geodesic;
+
+import static org.junit.Assert.*;
+import ij.IJ;
+import ij.ImagePlus;
+import ij.ImageStack;
+import inra.ijpb.binary.ChamferWeights3D;
+
+import org.junit.Test;
+
+public class GeodesicDistanceTransform3DFloatQueueTest
+{
+	/**
+	 * Creates a 3D cube.
+	 * Computes geodesic distance map between two extreme corners.
+	 */
+	@Test
+	public void testGeodesicDistanceMap_Cube_CityBlock()
+	{
+		ImageStack mask = createCubeImage();
+		ImageStack marker = ImageStack.create(12, 12, 12, 8);		
+		marker.setVoxel(1, 1, 1, 255);
+
+		ChamferWeights3D weights = ChamferWeights3D.CITY_BLOCK; 
+		GeodesicDistanceTransform3D gdt = new GeodesicDistanceTransform3DFloatQueue(weights, false);
+		
+		ImageStack distMap = gdt.geodesicDistanceMap(marker, mask);
+		
+		double cornerValue = distMap.getVoxel(10, 10, 10);
+		assertEquals(27, cornerValue, .1);
+	}
+	
+	/**
+	 * Creates a 3D cube.
+	 * Computes geodesic distance map between two extreme corners.
+	 */
+	@Test
+	public void testGeodesicDistanceMap_Cube_ChessBoard()
+	{
+		ImageStack mask = createCubeImage();
+		ImageStack marker = ImageStack.create(12, 12, 12, 8);		
+		marker.setVoxel(1, 1, 1, 255);
+
+		ChamferWeights3D weights = ChamferWeights3D.CHESSBOARD; 
+		GeodesicDistanceTransform3D gdt = new GeodesicDistanceTransform3DFloatQueue(weights, false);
+		
+		ImageStack distMap = gdt.geodesicDistanceMap(marker, mask);
+		
+		double cornerValue = distMap.getVoxel(10, 10, 10);
+		assertEquals(9, cornerValue, .1);
+	}
+	
+	/**
+	 * Compares with the result of iterated scans within a Hilbert curve.
+	 */
+	@Test
+	public void testGeodesicDistanceMap_Hilbert_SameAsScans()
+	{
+		ImagePlus maskPlus = IJ.openImage(getClass().getResource("/files/hilbert3d.tif").getFile());
+		ImageStack mask = maskPlus.getStack();
+		ImageStack marker = ImageStack.create(mask.getWidth(), mask.getHeight(), mask.getSize(), 8);
+		marker.setVoxel(0, 0, 0, 255);
+		
+		for (ChamferWeights3D weights : ChamferWeights3D.values())
+		{
+			ImageStack expected = new GeodesicDistanceTransform3DFloat(weights, true).geodesicDistanceMap(marker, mask);
+			ImageStack distMap = new GeodesicDistanceTransform3DFloatQueue(weights, true).geodesicDistanceMap(marker, mask);
+			assertSameStacks(expected, distMap);
+		}
+	}
+	
+	/**
+	 * Compares with the result of iterated scans, using several markers.
+	 */
+	@Test
+	public void testGeodesicDistanceMap_BatCochlea_SameAsScans()
+	{
+		ImagePlus maskPlus = IJ.openImage(getClass().getResource("/files/bat-cochlea-volume.tif").getFile());
+		ImagePlus markerPlus = IJ.openImage(getClass().getResource("/files/bat-cochlea-marker.tif").getFile());
+		ImageStack mask = maskPlus.getStack();
+		ImageStack marker = markerPlus.getStack();
+		
+		float[] weights = ChamferWeights3D.WEIGHTS_3_4_5_7.getFloatWeights();
+		ImageStack expected = new GeodesicDistanceTransform3DFloat(weights, false).geodesicDistanceMap(marker, mask);
+		ImageStack distMap = new GeodesicDistanceTransform3DFloatQueue(weights, false).geodesicDistanceMap(marker, mask);
+		assertSameStacks(expected, distMap);
+	}
+	
+	private static final void assertSameStacks(ImageStack expected, ImageStack actual)
+	{
+		assertEquals(expected.getSize(), actual.getSize());
+		assertEquals(expected.getBitDepth(), actual.getBitDepth());
+		for (int z = 0; z < expected.getSize(); z++)
+		{
+			for (int y = 0; y < expected.getHeight(); y++)
+			{
+				for (int x = 0; x < expected.getWidth(); x++)
+				{
+					assertEquals(expected.getVoxel(x, y, z), actual.getVoxel(x, y, z), 0);
+				}
+			}
+		}
+	}
+	
+	private final static ImageStack createCubeImage()
+	{
+		ImageStack image = ImageStack.create(12, 12, 12, 8);
+		for (int z = 1; z <= 10; z++)
+		{
+			for (int y = 1; y <= 10; y++)
+			{
+				for (int x = 1; x <= 10; x++)
+				{
+					image.setVoxel(x, y, z, 255);
+				}
+			}
+		}
+		
+		return image;
+	}
+}
@@ -0,0 +1,150 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.binary.geodesic;
+
+import static org.junit.Assert.assertEquals;
+import ij.IJ;
+import ij.ImagePlus;
+import ij.process.ImageProcessor;
+
+import org.junit.Test;
+
+public class GeodesicDistanceTransformFloatIncrementalTest
+{
+
+	@Test
+	public void testGeodesicDistanceMap_Borgefors()
+	{
+		ImagePlus maskPlus = IJ.openImage(getClass().getResource("/files/circles.tif").getFile());
+		ImageProcessor mask = maskPlus.getProcessor();
+		ImageProcessor marker = mask.duplicate();
+		marker.fill();
+		marker.set(30, 30, 255);
+
+		float[] weights = new float[] { 3, 4 };
+		GeodesicDistanceTransform algo = new GeodesicDistanceTransformFloatIncremental(
+				weights, true);
+		ImageProcessor map = algo.geodesicDistanceMap(marker, mask);
+
+		assertEquals(259, map.getf(190, 211), .01);
+	}
+
+	/**
+	 * Adds then removes marker pixels, and compares with the distance map
+	 * computed from scratch after each update.
+	 */
+	@Test
+	public void testSetMarker_AddAndRemove()
+	{
+		ImagePlus maskPlus = IJ.openImage(getClass().getResource("/files/circles.tif").getFile());
+		ImageProcessor mask = maskPlus.getProcessor();
+		ImageProcessor marker = mask.duplicate();
+		marker.fill();
+
+		float[][] weightsArray = new float[][] {
+			{ 3, 4 }, 
+			{ 1, (float) Math.sqrt(2) }, 
+			{ 5, 7, 11 }};
+		for (float[] weights : weightsArray)
+		{
+			GeodesicDistanceTransformFloatIncremental algo;
+			algo = new GeodesicDistanceTransformFloatIncremental(weights, true);
+			algo.setMask(mask);
+			GeodesicDistanceTransform ref = new GeodesicDistanceTransformFloatQueue(weights, true);
+			
+			marker.fill();
+			marker.set(30, 30, 255);
+			algo.setMarker(marker);
+			assertSameImages(ref.geodesicDistanceMap(marker, mask), algo.getDistanceMap());
+			
+			marker.set(200, 100, 255);
+			marker.set(120, 180, 255);
+			algo.setMarker(marker);
+			assertSameImages(ref.geodesicDistanceMap(marker, mask), algo.getDistanceMap());
+			
+			marker.set(30, 30, 0);
+			algo.setMarker(marker);
+			assertSameImages(ref.geodesicDistanceMap(marker, mask), algo.getDistanceMap());
+			
+			// move a marker, and add a marker outside of the mask
+			marker.set(200, 100, 0);
+			marker.set(190, 211, 255);
+			marker.set(0, 0, 255);
+			algo.setMarker(marker);
+			assertSameImages(ref.geodesicDistanceMap(marker, mask), algo.getDistanceMap());
+			
+			// remove all markers
+			marker.fill();
+			algo.setMarker(marker);
+			assertSameImages(ref.geodesicDistanceMap(marker, mask), algo.getDistanceMap());
+		}
+	}
+
+	/**
+	 * Updates a marker made of a grid of pixels when the mask is a label
+	 * image.
+	 */
+	@Test
+	public void testSetMarker_LabelMask()
+	{
+		ImagePlus maskPlus = IJ.openImage(getClass().getResource("/files/blobs-lbl.tif").getFile());
+		ImageProcessor mask = maskPlus.getProcessor();
+		ImageProcessor marker = mask.duplicate();
+		marker.fill();
+		for (int y = 0; y < marker.getHeight(); y += 20)
+		{
+			for (int x = 0; x < marker.getWidth(); x += 20)
+			{
+				marker.set(x, y, 255);
+			}
+		}
+
+		float[] weights = new float[] { 5, 7, 11 };
+		GeodesicDistanceTransformFloatIncremental algo;
+		algo = new GeodesicDistanceTransformFloatIncremental(weights, false);
+		algo.setMask(mask);
+		algo.setMarker(marker);
+		GeodesicDistanceTransform ref = new GeodesicDistanceTransformFloatQueue(weights, false);
+		assertSameImages(ref.geodesicDistanceMap(marker, mask), algo.getDistanceMap());
+		
+		// shift the grid of marker pixels
+		for (int y = 0; y < marker.getHeight(); y += 20)
+		{
+			for (int x = 0; x < marker.getWidth(); x += 20)
+			{
+				marker.set(x, y, 0);
+				marker.putPixel(x + 10, y + 10, 255);
+			}
+		}
+		algo.setMarker(marker);
+		assertSameImages(ref.geodesicDistanceMap(marker, mask), algo.getDistanceMap());
+	}
+	
+	private static final void assertSameImages(ImageProcessor expected, ImageProcessor actual)
+	{
+		for (int i = 0; i < expected.getPixelCount(); i++)
+		{
+			assertEquals(expected.getf(i), actual.getf(i), 0);
+		}
+		assertEquals(expected.getMax(), actual.getMax(), .01);
+	}
+}
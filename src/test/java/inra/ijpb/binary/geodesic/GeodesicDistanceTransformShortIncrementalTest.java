@@ -0,0 +1,113 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.binary.geodesic;
+
+import static org.junit.Assert.assertEquals;
+import ij.IJ;
+import ij.ImagePlus;
+import ij.process.ImageProcessor;
+
+import org.junit.Test;
+
+public class GeodesicDistanceTransformShortIncrementalTest
+{
+
+	@Test
+	public void testGeodesicDistanceMap_Borgefors()
+	{
+		ImagePlus maskPlus = IJ.openImage(getClass().getResource("/files/circles.tif").getFile());
+		ImageProcessor mask = maskPlus.getProcessor();
+		ImageProcessor marker = mask.duplicate();
+		marker.fill();
+		marker.set(30, 30, 255);
+
+		short[] weights = new short[] { 3, 4 };
+		GeodesicDistanceTransform algo = new GeodesicDistanceTransformShortIncremental(
+				weights, true);
+		ImageProcessor map = algo.geodesicDistanceMap(marker, mask);
+
+		assertEquals(259, map.get(190, 211));
+	}
+
+	/**
+	 * Adds then removes marker pixels, and compares with the distance map
+	 * computed from scratch after each update, with and without
+	 * normalization.
+	 */
+	@Test
+	public void testSetMarker_AddAndRemove()
+	{
+		ImagePlus maskPlus = IJ.openImage(getClass().getResource("/files/circles.tif").getFile());
+		ImageProcessor mask = maskPlus.getProcessor();
+		ImageProcessor marker = mask.duplicate();
+
+		short[][] weightsArray = new short[][] {
+			{ 3, 4 }, 
+			{ 1, 1 }, 
+			{ 5, 7, 11 }};
+		for (short[] weights : weightsArray)
+		{
+			for (boolean normalize : new boolean[] {false, true})
+			{
+				GeodesicDistanceTransformShortIncremental algo;
+				algo = new GeodesicDistanceTransformShortIncremental(weights, normalize);
+				algo.setMask(mask);
+				GeodesicDistanceTransform ref = new GeodesicDistanceTransformShortQueue(weights, normalize);
+
+				marker.fill();
+				marker.set(30, 30, 255);
+				algo.setMarker(marker);
+				assertSameImages(ref.geodesicDistanceMap(marker, mask), algo.getDistanceMap());
+
+				marker.set(200, 100, 255);
+				marker.set(120, 180, 255);
+				algo.setMarker(marker);
+				assertSameImages(ref.geodesicDistanceMap(marker, mask), algo.getDistanceMap());
+
+				marker.set(30, 30, 0);
+				algo.setMarker(marker);
+				assertSameImages(ref.geodesicDistanceMap(marker, mask), algo.getDistanceMap());
+
+				// move a marker, and add a marker outside of the mask
+				marker.set(200, 100, 0);
+				marker.set(190, 211, 255);
+				marker.set(0, 0, 255);
+				algo.setMarker(marker);
+				assertSameImages(ref.geodesicDistanceMap(marker, mask), algo.getDistanceMap());
+
+				// remove all markers
+				marker.fill();
+				algo.setMarker(marker);
+				assertSameImages(ref.geodesicDistanceMap(marker, mask), algo.getDistanceMap());
+			}
+		}
+	}
+	
+	private static final void assertSameImages(ImageProcessor expected, ImageProcessor actual)
+	{
+		for (int i = 0; i < expected.getPixelCount(); i++)
+		{
+			assertEquals(expected.get(i), actual.get(i));
+		}
+		assertEquals(expected.getMax(), actual.getMax(), .01);
+	}
+}
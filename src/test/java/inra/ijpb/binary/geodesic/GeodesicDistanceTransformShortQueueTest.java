@@ -0,0 +1,89 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.binary.geodesic;
+
+import static org.junit.Assert.assertEquals;
+import ij.IJ;
+import ij.ImagePlus;
+import ij.process.ImageProcessor;
+
+import org.junit.Test;
+
+public class GeodesicDistanceTransformShortQueueTest
+{
+
+	@Test
+	public void testGeodesicDistanceMap_Borgefors()
+	{
+		ImagePlus maskPlus = IJ.openImage(getClass().getResource("/files/circles.tif").getFile());
+		ImageProcessor mask = maskPlus.getProcessor();
+		ImageProcessor marker = mask.duplicate();
+		marker.fill();
+		marker.set(30, 30, 255);
+
+		short[] weights = new short[] { 3, 4 };
+		GeodesicDistanceTransform algo = new GeodesicDistanceTransformShortQueue(
+				weights, true);
+		ImageProcessor map = algo.geodesicDistanceMap(marker, mask);
+
+		assertEquals(259, map.get(190, 211));
+	}
+
+	/**
+	 * Compares with the result of iterated scans, for 3-by-3 and 5-by-5
+	 * chamfer masks, with and without normalization.
+	 */
+	@Test
+	public void testGeodesicDistanceMap_SameAsScans()
+	{
+		ImagePlus maskPlus = IJ.openImage(getClass().getResource("/files/circles.tif").getFile());
+		ImageProcessor mask = maskPlus.getProcessor();
+		ImageProcessor marker = mask.duplicate();
+		marker.fill();
+		marker.set(30, 30, 255);
+		marker.set(200, 100, 255);
+
+		short[][] weightsArray = new short[][] {
+			{ 3, 4 }, 
+			{ 1, 1 }, 
+			{ 5, 7, 11 }};
+		for (short[] weights : weightsArray)
+		{
+			for (boolean normalize : new boolean[] {false, true})
+			{
+				GeodesicDistanceTransform scans = weights.length == 2 
+						? new GeodesicDistanceTransformShort(weights, normalize) 
+						: new GeodesicDistanceTransformShort5x5(weights, normalize);
+				ImageProcessor expected = scans.geodesicDistanceMap(marker, mask);
+
+				GeodesicDistanceTransform algo = new GeodesicDistanceTransformShortQueue(weights, normalize);
+				ImageProcessor map = algo.geodesicDistanceMap(marker, mask);
+
+				for (int i = 0; i < expected.getPixelCount(); i++)
+				{
+					assertEquals(expected.get(i), map.get(i));
+				}
+				assertEquals(expected.getMax(), map.getMax(), .01);
+			}
+		}
+	}
+}
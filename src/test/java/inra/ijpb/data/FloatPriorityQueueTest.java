@@ -0,0 +1,78 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.data;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class FloatPriorityQueueTest
+{
+	/**
+	 * Test method for {@link inra.ijpb.data.FloatPriorityQueue#removeFirst()}.
+	 */
+	@Test
+	public void testRemoveFirst_PriorityOrder()
+	{
+		FloatPriorityQueue queue = new FloatPriorityQueue();
+		queue.add(5.5f, 50);
+		queue.add(2.5f, 20);
+		queue.add(9.0f, 90);
+		queue.add(0.5f, 0);
+		
+		assertEquals(4, queue.size());
+		assertEquals(0.5f, queue.firstPriority(), 1e-10);
+		assertEquals(0, queue.removeFirst());
+		assertEquals(20, queue.removeFirst());
+		assertEquals(5.5f, queue.firstPriority(), 1e-10);
+		assertEquals(50, queue.removeFirst());
+		assertEquals(90, queue.removeFirst());
+		assertTrue(queue.isEmpty());
+	}
+
+	/**
+	 * Adds many random values, with several growths of the buffers, and
+	 * checks they are removed in increasing order of priority.
+	 */
+	@Test
+	public void testRemoveFirst_RandomValues()
+	{
+		FloatPriorityQueue queue = new FloatPriorityQueue(4);
+		Random random = new Random(12);
+		for (int i = 0; i < 1000; i++)
+		{
+			int value = random.nextInt(100);
+			queue.add(value, value);
+		}
+		
+		assertEquals(1000, queue.size());
+		int previous = 0;
+		while (!queue.isEmpty())
+		{
+			int value = queue.removeFirst();
+			assertTrue(value >= previous);
+			previous = value;
+		}
+	}
+}
@@ -0,0 +1,73 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.data;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class HierarchicalQueueTest
+{
+	/**
+	 * Test method for {@link inra.ijpb.data.HierarchicalQueue#removeFirst()}.
+	 */
+	@Test
+	public void testRemoveFirst_LevelThenFifoOrder()
+	{
+		HierarchicalQueue queue = new HierarchicalQueue(10);
+		queue.add(5, 50);
+		queue.add(2, 20);
+		queue.add(5, 51);
+		queue.add(2, 21);
+		queue.add(9, 90);
+		
+		assertEquals(5, queue.size());
+		assertEquals(2, queue.currentLevel());
+		assertEquals(20, queue.removeFirst());
+		assertEquals(21, queue.removeFirst());
+		assertEquals(5, queue.currentLevel());
+		assertEquals(50, queue.removeFirst());
+		assertEquals(51, queue.removeFirst());
+		assertEquals(90, queue.removeFirst());
+		assertTrue(queue.isEmpty());
+		assertEquals(10, queue.currentLevel());
+	}
+
+	/**
+	 * Checks that adding a value with a level lower than the current one
+	 * makes it the next value to be removed.
+	 */
+	@Test
+	public void testAdd_LowerThanCurrentLevel()
+	{
+		HierarchicalQueue queue = new HierarchicalQueue(256);
+		queue.add(100, 1);
+		queue.add(100, 2);
+		assertEquals(1, queue.removeFirst());
+		
+		queue.add(10, 3);
+		assertEquals(10, queue.currentLevel());
+		assertEquals(3, queue.removeFirst());
+		assertEquals(2, queue.removeFirst());
+		assertTrue(queue.isEmpty());
+	}
+}
@@ -0,0 +1,90 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.data;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class IntQueueTest
+{
+	/**
+	 * Test method for {@link inra.ijpb.data.IntQueue#removeFirst()}.
+	 */
+	@Test
+	public void testRemoveFirst_FifoOrder()
+	{
+		IntQueue queue = new IntQueue();
+		queue.add(3);
+		queue.add(1);
+		queue.add(2);
+		
+		assertEquals(3, queue.size());
+		assertEquals(3, queue.removeFirst());
+		assertEquals(1, queue.removeFirst());
+		assertEquals(2, queue.removeFirst());
+		assertTrue(queue.isEmpty());
+	}
+
+	/**
+	 * Checks the order of elements is kept when the buffer grows while the
+	 * queue wraps around the end of the buffer.
+	 */
+	@Test
+	public void testAdd_GrowWhenWrapped()
+	{
+		IntQueue queue = new IntQueue(4);
+		int next = 0;
+		int expected = 0;
+		
+		// shift the head of the queue within the buffer
+		for (int i = 0; i < 3; i++)
+			queue.add(next++);
+		for (int i = 0; i < 2; i++)
+			assertEquals(expected++, queue.removeFirst());
+		
+		// add enough elements to wrap and to grow several times
+		for (int i = 0; i < 100; i++)
+			queue.add(next++);
+		
+		assertEquals(101, queue.size());
+		while (!queue.isEmpty())
+			assertEquals(expected++, queue.removeFirst());
+		assertEquals(next, expected);
+	}
+	
+	/**
+	 * Test method for {@link inra.ijpb.data.IntQueue#clear()}.
+	 */
+	@Test
+	public void testClear()
+	{
+		IntQueue queue = new IntQueue();
+		queue.add(5);
+		queue.add(6);
+		queue.clear();
+		assertTrue(queue.isEmpty());
+		
+		queue.add(7);
+		assertEquals(7, queue.removeFirst());
+	}
+}
@@ -0,0 +1,77 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.data;
+
+import static org.junit.Assert.*;
+
+import java.util.NoSuchElementException;
+
+import org.junit.Test;
+
+public class IntStackTest
+{
+	/**
+	 * Test method for {@link inra.ijpb.data.IntStack#pop()}.
+	 */
+	@Test
+	public void testPop_LifoOrder()
+	{
+		IntStack stack = new IntStack();
+		stack.push(3);
+		stack.push(1);
+		stack.push(2);
+		
+		assertEquals(3, stack.size());
+		assertEquals(2, stack.pop());
+		assertEquals(1, stack.pop());
+		assertEquals(3, stack.pop());
+		assertTrue(stack.isEmpty());
+	}
+
+	/**
+	 * Checks the order of elements is kept when the buffer grows.
+	 */
+	@Test
+	public void testPush_Grow()
+	{
+		IntStack stack = new IntStack(4);
+		for (int i = 0; i < 100; i++)
+			stack.push(i);
+		
+		assertEquals(100, stack.size());
+		for (int i = 99; i >= 0; i--)
+			assertEquals(i, stack.pop());
+		assertTrue(stack.isEmpty());
+	}
+	
+	/**
+	 * Test method for {@link inra.ijpb.data.IntStack#pop()}.
+	 */
+	@Test(expected = NoSuchElementException.class)
+	public void testPop_Empty()
+	{
+		IntStack stack = new IntStack();
+		stack.push(5);
+		stack.clear();
+		stack.pop();
+	}
+}
@@ -32,6 +32,8 @@ import org.junit.runners.Suite;
 	Polygons2DTest.class,
 	StraightLine2DTest.class,
 	Vector3DTest.class,
+	ConvexHull3DTest.class,
+	RotatingCalipersTest.class,
 	})
 public class AllTests {
   //nothing
@@ -0,0 +1,152 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.geometry;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * @author agent
+ *
+ */
+public class ConvexHull3DTest
+{
+	/**
+	 * Test method for {@link inra.ijpb.geometry.ConvexHull3D#fromPoints(java.util.Collection)}.
+	 */
+	@Test
+	public void testFromPoints_Cube()
+	{
+		ArrayList<Point3D> points = new ArrayList<Point3D>();
+		// corners of a cube with side length 2
+		for (int z = 0; z <= 2; z += 2)
+		{
+			for (int y = 0; y <= 2; y += 2)
+			{
+				for (int x = 0; x <= 2; x += 2)
+				{
+					points.add(new Point3D(x, y, z));
+				}
+			}
+		}
+		// add interior points, and points on faces and edges
+		points.add(new Point3D(1, 1, 1));
+		points.add(new Point3D(0.5, 1.5, 1.2));
+		points.add(new Point3D(1, 1, 0));
+		points.add(new Point3D(2, 1, 1));
+		points.add(new Point3D(1, 0, 0));
+
+		ConvexHull3D hull = ConvexHull3D.fromPoints(points);
+
+		assertFalse(hull.isDegenerate());
+		assertEquals(8, hull.vertices().size());
+		assertEquals(12, hull.faces().length);
+		assertEquals(8.0, hull.volume(), 1e-10);
+		assertEquals(24.0, hull.surfaceArea(), 1e-10);
+	}
+
+	/**
+	 * Test method for {@link inra.ijpb.geometry.ConvexHull3D#fromPoints(java.util.Collection)}.
+	 */
+	@Test
+	public void testFromPoints_RandomPoints()
+	{
+		Random random = new Random(42);
+		ArrayList<Point3D> points = new ArrayList<Point3D>();
+		for (int i = 0; i < 2000; i++)
+		{
+			points.add(new Point3D(random.nextDouble() * 10, random.nextDouble() * 5 + 3, random.nextDouble() * 20 - 7));
+		}
+
+		ConvexHull3D hull = ConvexHull3D.fromPoints(points);
+		ArrayList<Point3D> vertices = hull.vertices();
+		int[][] faces = hull.faces();
+
+		// Euler formula for a closed triangulated surface
+		assertEquals(2 * vertices.size() - 4, faces.length);
+
+		// all points must be inside or on each face
+		for (int[] face : faces)
+		{
+			Point3D p1 = vertices.get(face[0]);
+			Vector3D v12 = vector(p1, vertices.get(face[1]));
+			Vector3D v13 = vector(p1, vertices.get(face[2]));
+			Vector3D normal = Vector3D.crossProduct(v12, v13).normalize();
+			for (Point3D p : points)
+			{
+				assertTrue(Vector3D.dotProduct(normal, vector(p1, p)) < 1e-10);
+			}
+		}
+
+		// the hull is contained within the bounding box
+		assertTrue(hull.volume() > 0);
+		assertTrue(hull.volume() <= 1000.0);
+	}
+
+	/**
+	 * Test method for {@link inra.ijpb.geometry.ConvexHull3D#fromPoints(java.util.Collection)}.
+	 */
+	@Test
+	public void testFromPoints_Coplanar()
+	{
+		ArrayList<Point3D> points = new ArrayList<Point3D>();
+		points.add(new Point3D(0, 0, 3));
+		points.add(new Point3D(4, 0, 3));
+		points.add(new Point3D(4, 5, 3));
+		points.add(new Point3D(0, 5, 3));
+		points.add(new Point3D(2, 2, 3));
+
+		ConvexHull3D hull = ConvexHull3D.fromPoints(points);
+
+		assertTrue(hull.isDegenerate());
+		assertEquals(5, hull.vertices().size());
+		assertEquals(0, hull.volume(), 1e-10);
+	}
+
+	/**
+	 * Test method for {@link inra.ijpb.geometry.ConvexHull3D#volume()}.
+	 */
+	@Test
+	public void testVolume_Tetrahedron()
+	{
+		ArrayList<Point3D> points = new ArrayList<Point3D>();
+		points.add(new Point3D(1, 1, 1));
+		points.add(new Point3D(4, 1, 1));
+		points.add(new Point3D(1, 4, 1));
+		points.add(new Point3D(1, 1, 4));
+
+		ConvexHull3D hull = ConvexHull3D.fromPoints(points);
+
+		assertEquals(4, hull.faces().length);
+		assertEquals(4.5, hull.volume(), 1e-10);
+		assertEquals(3 * 4.5 + 4.5 * Math.sqrt(3), hull.surfaceArea(), 1e-10);
+	}
+
+	private static final Vector3D vector(Point3D p1, Point3D p2)
+	{
+		return new Vector3D(p2.getX() - p1.getX(), p2.getY() - p1.getY(), p2.getZ() - p1.getZ());
+	}
+}
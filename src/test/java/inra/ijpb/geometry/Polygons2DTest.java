@@ -4,9 +4,12 @@
 package inra.ijpb.geometry;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.awt.Point;
+import java.awt.geom.Point2D;
 import java.util.ArrayList;
+import java.util.Random;
 
 import org.junit.Test;
 
@@ -61,6 +64,79 @@ public class Polygons2DTest
 		assertEquals(8, convHull.vertexNumber());
 	}
 
+	/**
+	 * Checks that the monotone chain algorithm returns the same vertices as
+	 * the gift wrap algorithm, except for the aligned vertices.
+	 */
+	@Test
+	public void convexHullIndicesTest_Random()
+	{
+		Random random = new Random(5);
+		for (int iter = 0; iter < 20; iter++)
+		{
+			// generate distinct points on a grid
+			ArrayList<Point2D> points = new ArrayList<Point2D>();
+			boolean[][] used = new boolean[40][40];
+			for (int i = 0; i < 300; i++)
+			{
+				int x = random.nextInt(40);
+				int y = random.nextInt(40);
+				if (used[x][y])
+					continue;
+				used[x][y] = true;
+				points.add(new Point2D.Double(x * 0.5, y * 1.5));
+			}
+			int n = points.size();
+			double[] xs = new double[n];
+			double[] ys = new double[n];
+			for (int i = 0; i < n; i++)
+			{
+				xs[i] = points.get(i).getX();
+				ys[i] = points.get(i).getY();
+			}
+
+			Polygon2D convHull = Polygons2D.convexHull(points);
+			int[] indices = Polygons2D.convexHullIndices(xs, ys, n);
+
+			// vertices must be found in the same order
+			int iv = 0;
+			for (int i = 0; i < indices.length; i++)
+			{
+				Point2D p = new Point2D.Double(xs[indices[i]], ys[indices[i]]);
+				while (iv < convHull.vertexNumber() && !convHull.getVertex(iv).equals(p))
+				{
+					iv++;
+				}
+				assertTrue(iv < convHull.vertexNumber());
+			}
+			assertEquals(convHull.getVertex(0).getX(), xs[indices[0]], 0.0);
+			assertEquals(convHull.getVertex(0).getY(), ys[indices[0]], 0.0);
+
+			Polygon2D hull2 = new Polygon2D(convHull.vertexNumber());
+			for (int i : indices)
+			{
+				hull2.addVertex(new Point2D.Double(xs[i], ys[i]));
+			}
+			assertEquals(convHull.signedArea(), hull2.signedArea(), 1e-10);
+		}
+	}
+
+	/**
+	 * Checks the convex hull of a set of collinear points with duplicates.
+	 */
+	@Test
+	public void convexHullIndicesTest_Collinear()
+	{
+		double[] xs = new double[] {3, 1, 2, 1, 5, 4};
+		double[] ys = new double[] {3, 1, 2, 1, 5, 4};
+
+		int[] indices = Polygons2D.convexHullIndices(xs, ys, 6);
+
+		assertEquals(2, indices.length);
+		assertEquals(1.0, xs[indices[0]], 0.0);
+		assertEquals(5.0, xs[indices[1]], 0.0);
+	}
+
 //	public void testConvexHull_jarvis_int()
 //	{
 //		ArrayList<Point> polygon = new ArrayList<Point>();
@@ -0,0 +1,198 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.geometry;
+
+import static org.junit.Assert.*;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * @author agent
+ *
+ */
+public class RotatingCalipersTest
+{
+	/**
+	 * Test method for {@link inra.ijpb.geometry.RotatingCalipers#minimumAreaBox()}.
+	 */
+	@Test
+	public void testRectangle()
+	{
+		double[] xs = new double[] {2, 12, 12, 2};
+		double[] ys = new double[] {3, 3, 7, 7};
+
+		RotatingCalipers calipers = new RotatingCalipers(xs, ys, 4);
+
+		assertEquals(Math.hypot(10, 4), calipers.maxFeretDiameter().diameter(), 1e-10);
+		AngleDiameterPair minFeret = calipers.minFeretDiameter();
+		assertEquals(4.0, minFeret.diameter, 1e-10);
+		assertEquals(0.0, Math.sin(minFeret.angle - Math.PI / 2), 1e-10);
+
+		OrientedBox2D box = calipers.minimumAreaBox();
+		assertEquals(7.0, box.center().getX(), 1e-10);
+		assertEquals(5.0, box.center().getY(), 1e-10);
+		assertEquals(10.0, box.length(), 1e-10);
+		assertEquals(4.0, box.width(), 1e-10);
+		assertEquals(0.0, box.orientation(), 1e-10);
+
+		OrientedBox2D box2 = calipers.minimumWidthBox();
+		assertEquals(7.0, box2.center().getX(), 1e-10);
+		assertEquals(5.0, box2.center().getY(), 1e-10);
+		assertEquals(10.0, box2.length(), 1e-10);
+		assertEquals(4.0, box2.width(), 1e-10);
+		assertEquals(0.0, box2.orientation(), 1e-10);
+	}
+
+	/**
+	 * Test method for {@link inra.ijpb.geometry.RotatingCalipers#minimumAreaBox()}.
+	 */
+	@Test
+	public void testRotatedRectangle_Clockwise()
+	{
+		// a 10x4 rectangle rotated by 30 degrees, with clockwise vertices
+		double theta = Math.toRadians(30);
+		double cot = Math.cos(theta), sit = Math.sin(theta);
+		double[][] corners = new double[][] {{-5, -2}, {-5, 2}, {5, 2}, {5, -2}};
+		double[] xs = new double[4];
+		double[] ys = new double[4];
+		for (int i = 0; i < 4; i++)
+		{
+			xs[i] = 20 + corners[i][0] * cot - corners[i][1] * sit;
+			ys[i] = 30 + corners[i][0] * sit + corners[i][1] * cot;
+		}
+
+		OrientedBox2D box = new RotatingCalipers(xs, ys, 4).minimumAreaBox();
+
+		assertEquals(20.0, box.center().getX(), 1e-10);
+		assertEquals(30.0, box.center().getY(), 1e-10);
+		assertEquals(10.0, box.length(), 1e-10);
+		assertEquals(4.0, box.width(), 1e-10);
+		assertEquals(30.0, box.orientation(), 1e-10);
+	}
+
+	/**
+	 * Compares the results with the naive algorithms on random point sets.
+	 */
+	@Test
+	public void testRandomPoints()
+	{
+		Random random = new Random(3);
+		for (int iter = 0; iter < 50; iter++)
+		{
+			// generate distinct points on a grid with anisotropic spacing
+			ArrayList<Point2D> points = new ArrayList<Point2D>();
+			boolean[][] used = new boolean[50][30];
+			int nPoints = 5 + random.nextInt(200);
+			for (int i = 0; i < nPoints; i++)
+			{
+				int x = random.nextInt(50);
+				int y = random.nextInt(30);
+				if (used[x][y])
+					continue;
+				used[x][y] = true;
+				points.add(new Point2D.Double(x * 0.7, y * 1.3));
+			}
+			Polygon2D hull = Polygons2D.convexHull(points);
+
+			RotatingCalipers calipers = RotatingCalipers.fromPolygon(hull);
+
+			PointPair2D maxDiam = FeretDiameters.maxFeretDiameter(points);
+			assertEquals(maxDiam.diameter(), calipers.maxFeretDiameter().diameter(), 1e-10);
+
+			AngleDiameterPair minDiam = FeretDiameters.minFeretDiameter(hull.vertices());
+			assertEquals(minDiam.diameter, calipers.minFeretDiameter().diameter, 1e-10);
+
+			// the box must contain all the points, and have the smallest area
+			// among the boxes supported by the hull edges
+			OrientedBox2D box = calipers.minimumAreaBox();
+			double t = Math.toRadians(box.orientation());
+			double cot = Math.cos(t), sit = Math.sin(t);
+			for (Point2D p : points)
+			{
+				double dx = p.getX() - box.center().getX();
+				double dy = p.getY() - box.center().getY();
+				assertTrue(Math.abs(dx * cot + dy * sit) <= box.length() / 2 + 1e-8);
+				assertTrue(Math.abs(-dx * sit + dy * cot) <= box.width() / 2 + 1e-8);
+			}
+			assertTrue(box.length() >= box.width());
+			assertEquals(naiveMinimumArea(hull.vertices()), box.length() * box.width(), 1e-8);
+
+			// the box aligned with minimum Feret diameter has the same width
+			OrientedBox2D box2 = calipers.minimumWidthBox();
+			assertEquals(minDiam.diameter, box2.width(), 1e-10);
+			assertTrue(box2.area() >= box.area() - 1e-8);
+		}
+	}
+
+	/**
+	 * Test method for {@link inra.ijpb.geometry.RotatingCalipers#RotatingCalipers(double[], double[], int)}.
+	 */
+	@Test
+	public void testCollinearPoints()
+	{
+		double[] xs = new double[] {1, 3, 5, 7};
+		double[] ys = new double[] {1, 2, 3, 4};
+
+		RotatingCalipers calipers = new RotatingCalipers(xs, ys, 4);
+
+		assertEquals(Math.hypot(6, 3), calipers.maxFeretDiameter().diameter(), 1e-10);
+		assertEquals(0.0, calipers.minFeretDiameter().diameter, 1e-10);
+		OrientedBox2D box = calipers.minimumAreaBox();
+		assertEquals(Math.hypot(6, 3), box.length(), 1e-10);
+		assertEquals(0.0, box.width(), 1e-10);
+	}
+
+	private static final double naiveMinimumArea(ArrayList<Point2D> vertices)
+	{
+		int n = vertices.size();
+		double minArea = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < n; i++)
+		{
+			Point2D p1 = vertices.get(i);
+			Point2D p2 = vertices.get((i + 1) % n);
+			double ex = p2.getX() - p1.getX();
+			double ey = p2.getY() - p1.getY();
+			double len = Math.hypot(ex, ey);
+			if (len < 1e-12)
+				continue;
+			ex /= len;
+			ey /= len;
+			double umin = Double.POSITIVE_INFINITY, umax = Double.NEGATIVE_INFINITY;
+			double vmin = Double.POSITIVE_INFINITY, vmax = Double.NEGATIVE_INFINITY;
+			for (Point2D p : vertices)
+			{
+				double u = (p.getX() - p1.getX()) * ex + (p.getY() - p1.getY()) * ey;
+				double v = -(p.getX() - p1.getX()) * ey + (p.getY() - p1.getY()) * ex;
+				umin = Math.min(umin, u);
+				umax = Math.max(umax, u);
+				vmin = Math.min(vmin, v);
+				vmax = Math.max(vmax, v);
+			}
+			minArea = Math.min(minArea, (umax - umin) * (vmax - vmin));
+		}
+		return minArea;
+	}
+}
@@ -28,8 +28,12 @@ import org.junit.runners.Suite;
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
 	// generic classes
+	LabelCropsTest.class, 
 	LabelImagesTest.class, 
+	LabelIndexTest.class, 
+	LabelOverlapTableTest.class, 
 	RegionAdjacencyGraphTest.class, 
+	RegionMergingTest.class, 
 	})
 public class AllTests {
   //nothing
@@ -0,0 +1,167 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.label;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import ij.IJ;
+import ij.ImagePlus;
+import ij.ImageStack;
+import ij.process.ByteProcessor;
+import ij.process.ImageProcessor;
+
+public class LabelCropsTest
+{
+	/**
+	 * Test method for {@link inra.ijpb.label.LabelCrops#compute(ImageProcessor, int[], int)}.
+	 */
+	@Test
+	public void testCompute_ImageProcessor()
+	{
+		byte[] data = new byte[]{
+				0, 0, 0, 0, 0, 0,
+				0, 1, 1, 0, 0, 0,
+				0, 1, 0, 0, 2, 0,
+				0, 0, 0, 0, 2, 0,
+		};
+		ImageProcessor image = new ByteProcessor(6, 4, data);
+
+		LabelCrops crops = LabelCrops.compute(image, new int[] {1, 2, 3}, 1);
+		assertEquals(3, crops.size());
+
+		ImageProcessor mask1 = crops.mask(0);
+		assertEquals(4, mask1.getWidth());
+		assertEquals(4, mask1.getHeight());
+		assertEquals(0, crops.originX(0));
+		assertEquals(0, crops.originY(0));
+		assertEquals(255, mask1.get(1, 1));
+		assertEquals(255, mask1.get(2, 1));
+		assertEquals(255, mask1.get(1, 2));
+		assertEquals(0, mask1.get(2, 2));
+
+		// the border of the second region goes beyond the image bounds
+		ImageProcessor mask2 = crops.mask(1);
+		assertEquals(3, mask2.getWidth());
+		assertEquals(4, mask2.getHeight());
+		assertEquals(3, crops.originX(1));
+		assertEquals(1, crops.originY(1));
+		assertEquals(255, mask2.get(1, 1));
+		assertEquals(255, mask2.get(1, 2));
+
+		// missing label
+		assertNull(crops.mask(2));
+	}
+
+	/**
+	 * Test method for {@link inra.ijpb.label.LabelCrops#compute(ImageProcessor, int[], int, boolean)}.
+	 */
+	@Test
+	public void testCompute_ImageProcessor_Clip()
+	{
+		byte[] data = new byte[]{
+				1, 1, 0, 0, 0, 0,
+				1, 0, 0, 0, 0, 0,
+				0, 0, 0, 0, 2, 0,
+				0, 0, 0, 0, 2, 0,
+		};
+		ImageProcessor image = new ByteProcessor(6, 4, data);
+
+		LabelCrops crops = LabelCrops.compute(image, new int[] {1, 2}, 1, true);
+
+		ImageProcessor mask1 = crops.mask(0);
+		assertEquals(3, mask1.getWidth());
+		assertEquals(3, mask1.getHeight());
+		assertEquals(0, crops.originX(0));
+		assertEquals(0, crops.originY(0));
+		assertEquals(255, mask1.get(0, 0));
+		assertEquals(255, mask1.get(0, 1));
+		assertEquals(0, mask1.get(1, 1));
+
+		ImageProcessor mask2 = crops.mask(1);
+		assertEquals(3, mask2.getWidth());
+		assertEquals(3, mask2.getHeight());
+		assertEquals(3, crops.originX(1));
+		assertEquals(1, crops.originY(1));
+		assertEquals(255, mask2.get(1, 1));
+		assertEquals(255, mask2.get(1, 2));
+	}
+
+	/**
+	 * Compares bulk cropping with individual cropping of each label.
+	 */
+	@Test
+	public void testCropLabels_Blobs()
+	{
+		String fileName = getClass().getResource("/files/blobs-lbl.tif").getFile();
+		ImagePlus imagePlus = IJ.openImage(fileName);
+		ImageProcessor image = imagePlus.getProcessor();
+		int[] labels = LabelImages.findAllLabels(image);
+
+		ImageProcessor[] crops = LabelImages.cropLabels(image, labels, 2);
+		assertEquals(labels.length, crops.length);
+		for (int i = 0; i < labels.length; i++)
+		{
+			ImageProcessor expected = LabelImages.cropLabel(image, labels[i], 2);
+			assertEquals(expected.getWidth(), crops[i].getWidth());
+			assertEquals(expected.getHeight(), crops[i].getHeight());
+			assertArrayEquals((byte[]) expected.getPixels(), (byte[]) crops[i].getPixels());
+		}
+	}
+
+	/**
+	 * Compares bulk cropping with individual cropping of each label.
+	 */
+	@Test
+	public void testCropLabels_ImageStack()
+	{
+		ImageStack image = ImageStack.create(8, 7, 6, 16);
+		for (int z = 0; z < 6; z++)
+		{
+			for (int y = 0; y < 7; y++)
+			{
+				for (int x = 0; x < 8; x++)
+				{
+					image.setVoxel(x, y, z, (x / 3 + 3 * (y / 4) + 5 * (z / 2) + x * y * z) % 7);
+				}
+			}
+		}
+		int[] labels = LabelImages.findAllLabels(image);
+
+		LabelCrops crops = LabelCrops.compute(image, labels, 1);
+		for (int i = 0; i < labels.length; i++)
+		{
+			ImageStack expected = LabelImages.cropLabel(image, labels[i], 1);
+			ImageStack mask = crops.maskStack(i);
+			assertEquals(expected.getWidth(), mask.getWidth());
+			assertEquals(expected.getHeight(), mask.getHeight());
+			assertEquals(expected.getSize(), mask.getSize());
+			for (int z = 0; z < mask.getSize(); z++)
+			{
+				assertArrayEquals((byte[]) expected.getPixels(z + 1), (byte[]) mask.getPixels(z + 1));
+			}
+		}
+	}
+}
@@ -0,0 +1,208 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.label;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import ij.ImageStack;
+import ij.process.ByteProcessor;
+import ij.process.FloatProcessor;
+import ij.process.ImageProcessor;
+import ij.process.ShortProcessor;
+
+public class LabelIndexTest
+{
+	/**
+	 * Test method for {@link inra.ijpb.label.LabelIndex#fromLabels(int[])}.
+	 */
+	@Test
+	public void testFromLabels_Dense()
+	{
+		int[] labels = new int[] {5, 2, 9, 3};
+		LabelIndex index = LabelIndex.fromLabels(labels);
+
+		assertEquals(4, index.size());
+		assertArrayEquals(labels, index.labels());
+		for (int i = 0; i < labels.length; i++)
+		{
+			assertEquals(i, index.indexOf(labels[i]));
+		}
+		assertEquals(-1, index.indexOf(0));
+		assertEquals(-1, index.indexOf(4));
+		assertEquals(-1, index.indexOf(100));
+		assertEquals(-1, index.indexOf(-3));
+		assertFalse(index.contains(1));
+		assertTrue(index.contains(9));
+		assertNull(index.counts());
+	}
+
+	/**
+	 * Test method for {@link inra.ijpb.label.LabelIndex#fromLabels(int[])},
+	 * using labels spread over a large range.
+	 */
+	@Test
+	public void testFromLabels_Sparse()
+	{
+		Random random = new Random(12);
+		int n = 1000;
+		int[] labels = new int[n];
+		java.util.HashSet<Integer> set = new java.util.HashSet<Integer>();
+		int i = 0;
+		while (i < n)
+		{
+			int label = random.nextInt();
+			if (set.add(label))
+				labels[i++] = label;
+		}
+
+		LabelIndex index = LabelIndex.fromLabels(labels);
+		for (i = 0; i < n; i++)
+		{
+			assertEquals(i, index.indexOf(labels[i]));
+		}
+		for (int k = 0; k < 1000; k++)
+		{
+			int label = random.nextInt();
+			if (!set.contains(label))
+				assertEquals(-1, index.indexOf(label));
+		}
+	}
+
+	/**
+	 * Test method for {@link inra.ijpb.label.LabelIndex#fromLabels(int[])}.
+	 */
+	@Test
+	public void testFromLabels_Empty()
+	{
+		LabelIndex index = LabelIndex.fromLabels(new int[0]);
+		assertEquals(0, index.size());
+		assertEquals(-1, index.indexOf(1));
+	}
+
+	/**
+	 * Test method for {@link inra.ijpb.label.LabelIndex#fromImage(ij.process.ImageProcessor)}.
+	 */
+	@Test
+	public void testFromImage_Byte()
+	{
+		ImageProcessor image = new ByteProcessor(10, 10);
+		image.set(2, 3, 4);
+		image.set(2, 4, 4);
+		image.set(5, 5, 255);
+		image.set(7, 1, 12);
+
+		LabelIndex index = LabelIndex.fromImage(image);
+
+		assertArrayEquals(new int[] {4, 12, 255}, index.labels());
+		assertArrayEquals(new int[] {2, 1, 1}, index.counts());
+		assertEquals(1, index.indexOf(12));
+	}
+
+	/**
+	 * Test method for {@link inra.ijpb.label.LabelIndex#fromImage(ij.process.ImageProcessor)}.
+	 */
+	@Test
+	public void testFromImage_Short()
+	{
+		ImageProcessor image = new ShortProcessor(10, 10);
+		image.set(2, 3, 40000);
+		image.set(5, 5, 300);
+		image.set(6, 5, 300);
+		image.set(7, 5, 300);
+
+		LabelIndex index = LabelIndex.fromImage(image);
+
+		assertArrayEquals(new int[] {300, 40000}, index.labels());
+		assertArrayEquals(new int[] {3, 1}, index.counts());
+	}
+
+	/**
+	 * Test method for {@link inra.ijpb.label.LabelIndex#fromImage(ij.process.ImageProcessor)},
+	 * using a float image with large and negative labels.
+	 */
+	@Test
+	public void testFromImage_Float()
+	{
+		ImageProcessor image = new FloatProcessor(50, 50);
+		Random random = new Random(3);
+		int[] values = new int[] {-5, 7, 100000, 2000000, 3};
+		int[] expectedCounts = new int[5];
+		for (int i = 0; i < 2500; i++)
+		{
+			int k = random.nextInt(6);
+			if (k < 5)
+			{
+				image.setf(i, values[k]);
+				expectedCounts[k]++;
+			}
+		}
+
+		LabelIndex index = LabelIndex.fromImage(image);
+
+		assertArrayEquals(new int[] {-5, 3, 7, 100000, 2000000}, index.labels());
+		int[] counts = index.counts();
+		assertEquals(expectedCounts[0], counts[0]);
+		assertEquals(expectedCounts[4], counts[1]);
+		assertEquals(expectedCounts[1], counts[2]);
+		assertEquals(expectedCounts[2], counts[3]);
+		assertEquals(expectedCounts[3], counts[4]);
+	}
+
+	/**
+	 * Test method for {@link inra.ijpb.label.LabelIndex#fromImage(ij.ImageStack)},
+	 * using more labels than the initial capacity of the hash table.
+	 */
+	@Test
+	public void testFromImage_Stack()
+	{
+		ImageStack image = ImageStack.create(20, 20, 10, 32);
+		for (int z = 0; z < 10; z++)
+		{
+			for (int y = 0; y < 20; y++)
+			{
+				for (int x = 0; x < 20; x++)
+				{
+					image.setVoxel(x, y, z, x == 0 ? 0 : 1000 * (y + 1) + z);
+				}
+			}
+		}
+
+		LabelIndex index = LabelIndex.fromImage(image);
+
+		assertEquals(200, index.size());
+		assertArrayEquals(LabelImages.findAllLabels(image), index.labels());
+		int[] counts = index.counts();
+		for (int i = 0; i < 200; i++)
+		{
+			assertEquals(19, counts[i]);
+		}
+		assertEquals(11, index.indexOf(2001));
+	}
+}
@@ -0,0 +1,239 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.label;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import ij.ImageStack;
+import ij.process.ByteProcessor;
+import ij.process.ImageProcessor;
+
+public class LabelOverlapTableTest
+{
+	/**
+	 * Source image (4x4 pixels):
+	 * <pre>
+	 * 1 1 2 2
+	 * 1 1 2 2
+	 * 3 3 0 0
+	 * 3 3 0 0
+	 * </pre>
+	 * Target image:
+	 * <pre>
+	 * 1 1 1 2
+	 * 1 1 1 2
+	 * 0 5 5 0
+	 * 0 5 5 0
+	 * </pre>
+	 */
+	private static final ImageProcessor[] createImages()
+	{
+		ImageProcessor source = new ByteProcessor(4, 4);
+		ImageProcessor target = new ByteProcessor(4, 4);
+		int[][] sourceData = new int[][] { { 1, 1, 2, 2 }, { 1, 1, 2, 2 }, { 3, 3, 0, 0 }, { 3, 3, 0, 0 } };
+		int[][] targetData = new int[][] { { 1, 1, 1, 2 }, { 1, 1, 1, 2 }, { 0, 5, 5, 0 }, { 0, 5, 5, 0 } };
+		for (int y = 0; y < 4; y++)
+		{
+			for (int x = 0; x < 4; x++)
+			{
+				source.set(x, y, sourceData[y][x]);
+				target.set(x, y, targetData[y][x]);
+			}
+		}
+		return new ImageProcessor[] { source, target };
+	}
+
+	/**
+	 * Test method for {@link inra.ijpb.label.LabelOverlapTable#compute(ImageProcessor, ImageProcessor)}.
+	 */
+	@Test
+	public void testCompute_ContingencyTable()
+	{
+		ImageProcessor[] images = createImages();
+		LabelOverlapTable table = LabelOverlapTable.compute(images[0], images[1]);
+
+		assertArrayEquals(new int[] { 1, 2, 3 }, table.sourceLabels());
+		assertArrayEquals(new int[] { 1, 2, 5 }, table.targetLabels());
+		assertArrayEquals(new int[] { 4, 4, 4 }, table.sourceCounts());
+		assertArrayEquals(new int[] { 6, 2, 4 }, table.targetCounts());
+
+		assertEquals(4, table.overlap(1, 1));
+		assertEquals(2, table.overlap(2, 1));
+		assertEquals(2, table.overlap(2, 2));
+		assertEquals(2, table.overlap(3, 5));
+		assertEquals(0, table.overlap(3, 1));
+		assertEquals(0, table.overlap(4, 1));
+
+		assertArrayEquals(new int[] { 1, 2 }, table.overlappingTargetLabels(1));
+		assertArrayEquals(new int[] { 2, 2 }, table.overlapCounts(1));
+	}
+
+	/**
+	 * Test method for {@link inra.ijpb.label.LabelOverlapTable#jaccardIndexPerLabel()}.
+	 */
+	@Test
+	public void testSameLabelMeasures()
+	{
+		ImageProcessor[] images = createImages();
+		LabelOverlapTable table = LabelOverlapTable.compute(images[0], images[1]);
+
+		// 6 pixels with same label, 12 source pixels, 12 target pixels
+		assertEquals(6.0 / 12.0, table.totalOverlap(), 1e-10);
+		assertEquals(6.0 / 18.0, table.jaccardIndex(), 1e-10);
+		assertEquals(12.0 / 24.0, table.diceCoefficient(), 1e-10);
+		assertEquals(0.0, table.volumeSimilarity(), 1e-10);
+		assertEquals(6.0 / 12.0, table.falsePositiveError(), 1e-10);
+
+		assertArrayEquals(new double[] { 4.0 / 6.0, 1.0, 0.0 }, table.targetOverlapPerLabel(), 1e-10);
+		assertArrayEquals(new double[] { 4.0 / 6.0, 2.0 / 4.0, 0.0 }, table.jaccardIndexPerLabel(), 1e-10);
+		assertArrayEquals(new double[] { 8.0 / 10.0, 4.0 / 6.0, 0.0 }, table.diceCoefficientPerLabel(), 1e-10);
+		assertArrayEquals(new double[] { -4.0 / 10.0, 4.0 / 6.0, 0.0 }, table.volumeSimilarityPerLabel(), 1e-10);
+		assertArrayEquals(new double[] { 0.0, 0.5, 1.0 }, table.falsePositiveErrorPerLabel(), 1e-10);
+	}
+
+	/**
+	 * Test method for {@link inra.ijpb.label.LabelOverlapTable#f1Score(double)}.
+	 */
+	@Test
+	public void testMatchingMeasures()
+	{
+		ImageProcessor[] images = createImages();
+		LabelOverlapTable table = LabelOverlapTable.compute(images[0], images[1]);
+
+		// 1 -> 1 (4/6), 2 -> 2 (2/4), 3 -> 5 (2/6)
+		assertArrayEquals(new int[] { 1, 2, 5 }, table.bestMatchLabels());
+		assertArrayEquals(new double[] { 4.0 / 6.0, 2.0 / 4.0, 2.0 / 6.0 }, table.bestMatchJaccardIndex(), 1e-10);
+
+		assertEquals(3, table.matchCount(0.3));
+		assertEquals(2, table.matchCount(0.5));
+		assertEquals(1, table.matchCount(0.6));
+		assertEquals(0, table.matchCount(0.9));
+		assertEquals(4.0 / 6.0, table.f1Score(0.5), 1e-10);
+	}
+
+	/**
+	 * Compares the measures computed from a 3D table with the per-voxel
+	 * definitions, using more lines than the minimum block size, such that
+	 * several threads may be used.
+	 */
+	@Test
+	public void testCompute_RandomStack()
+	{
+		int size = 40;
+		ImageStack source = ImageStack.create(size, size, size, 16);
+		ImageStack target = ImageStack.create(size, size, size, 16);
+		Random random = new Random(1);
+		long intersection = 0, numSource = 0, numTarget = 0;
+		for (int z = 0; z < size; z++)
+		{
+			for (int y = 0; y < size; y++)
+			{
+				for (int x = 0; x < size; x++)
+				{
+					int s = random.nextInt(20) * 1000;
+					int t = random.nextDouble() < 0.7 ? s : random.nextInt(20) * 1000;
+					source.setVoxel(x, y, z, s);
+					target.setVoxel(x, y, z, t);
+					if (s > 0)
+						numSource++;
+					if (t > 0)
+						numTarget++;
+					if (s > 0 && s == t)
+						intersection++;
+				}
+			}
+		}
+
+		LabelOverlapTable table = LabelOverlapTable.compute(source, target);
+		assertEquals(19, table.sourceLabels().length);
+		assertEquals((double) intersection / numTarget, table.totalOverlap(), 1e-10);
+		assertEquals((double) intersection / (numSource + numTarget - intersection), table.jaccardIndex(), 1e-10);
+		assertEquals(
+				LabelImages.getJaccardIndex(source, target),
+				table.jaccardIndex(), 1e-10);
+
+		int sum = 0;
+		for (int count : table.sourceCounts())
+			sum += count;
+		assertEquals(numSource, sum);
+	}
+
+	/**
+	 * The overlap table does not depend on the number of threads.
+	 */
+	@Test
+	public void testCompute_ThreadCount()
+	{
+		int size = 30;
+		ImageStack source = ImageStack.create(size, size, size, 8);
+		ImageStack target = ImageStack.create(size, size, size, 8);
+		Random random = new Random(2);
+		for (int z = 0; z < size; z++)
+		{
+			for (int y = 0; y < size; y++)
+			{
+				for (int x = 0; x < size; x++)
+				{
+					source.setVoxel(x, y, z, random.nextInt(10));
+					target.setVoxel(x, y, z, random.nextInt(10));
+				}
+			}
+		}
+
+		LabelOverlapTable ref = LabelOverlapTable.compute(source, target, 1);
+		for (int nThreads : new int[] { 0, 2, 5 })
+		{
+			LabelOverlapTable table = LabelOverlapTable.compute(source, target, nThreads);
+			assertArrayEquals(ref.sourceLabels(), table.sourceLabels());
+			assertArrayEquals(ref.sourceCounts(), table.sourceCounts());
+			assertArrayEquals(ref.targetCounts(), table.targetCounts());
+			for (int i = 0; i < ref.sourceLabels().length; i++)
+			{
+				assertArrayEquals(ref.overlappingTargetLabels(i), table.overlappingTargetLabels(i));
+				assertArrayEquals(ref.overlapCounts(i), table.overlapCounts(i));
+			}
+		}
+	}
+
+	/**
+	 * A negative number of threads is not accepted.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testCompute_NegativeThreadCount()
+	{
+		LabelOverlapTable.compute(ImageStack.create(4, 4, 4, 8), ImageStack.create(4, 4, 4, 8), -1);
+	}
+
+	/**
+	 * Images with different sizes are not accepted.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testCompute_DifferentSizes()
+	{
+		LabelOverlapTable.compute(new ByteProcessor(4, 4), new ByteProcessor(4, 5));
+	}
+}
@@ -21,15 +21,19 @@
  */
 package inra.ijpb.label;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Random;
 import java.util.Set;
 
 import org.junit.Test;
 
+import ij.ImageStack;
 import ij.process.ByteProcessor;
+import ij.process.FloatProcessor;
 import ij.process.ImageProcessor;
 import inra.ijpb.label.RegionAdjacencyGraph.LabelPair;
 
@@ -65,4 +69,130 @@ public class RegionAdjacencyGraphTest {
 		assertTrue(adjacencies.contains(new LabelPair(4, 5)));
 	}
 
+	@Test
+	public void testComputeGraph_ContactSizesAndValues()
+	{
+		byte[] data = new byte[]{
+				1, 1, 0, 2, 2,
+				1, 1, 0, 2, 2,
+				1, 1, 0, 2, 2,
+				3, 3, 3, 3, 3,
+		};
+		ImageProcessor image = new ByteProcessor(5, 4, data);
+		ImageProcessor values = new FloatProcessor(5, 4);
+		values.setf(2, 0, 10);
+		values.setf(2, 1, 20);
+		values.setf(2, 2, 30);
+		for (int x = 0; x < 5; x++)
+		{
+			values.setf(x, 3, 4);
+		}
+		
+		RegionGraph graph = RegionAdjacencyGraph.computeGraph(image, values);
+		assertEquals(3, graph.nodeCount());
+		assertEquals(3, graph.edgeCount());
+		assertEquals(6, graph.regionSize(0));
+		assertEquals(5, graph.regionSize(2));
+		
+		// regions 1 and 2 are separated by a line of background pixels
+		int edge12 = graph.edgeIndex(graph.nodeIndex(1), graph.nodeIndex(2));
+		assertEquals(edge12, graph.edgeIndex(graph.nodeIndex(2), graph.nodeIndex(1)));
+		assertEquals(3, graph.contactSize(edge12));
+		assertEquals(20, graph.meanValue(edge12), 1e-10);
+		assertEquals(10, graph.minValue(edge12), 1e-10);
+		assertEquals(30, graph.maxValue(edge12), 1e-10);
+		
+		// region 3 touches regions 1 and 2, each pair of touching pixels is
+		// counted once
+		int edge13 = graph.edgeIndex(graph.nodeIndex(1), graph.nodeIndex(3));
+		assertEquals(2, graph.contactSize(edge13));
+		assertEquals(2, graph.meanValue(edge13), 1e-10);
+		int edge23 = graph.edgeIndex(graph.nodeIndex(2), graph.nodeIndex(3));
+		assertEquals(2, graph.contactSize(edge23));
+		
+		// check CSR structure
+		assertEquals(2, graph.degree(0));
+		assertArrayEquals(new int[] {1, 2}, graph.neighbors(0));
+		assertArrayEquals(new int[] {0, 1}, graph.neighbors(2));
+	}
+
+	@Test
+	public void testComputeGraph_Stack()
+	{
+		// two regions separated by a plane of background voxels
+		ImageStack image = ImageStack.create(5, 5, 5, 8);
+		for (int z = 0; z < 5; z++)
+		{
+			for (int y = 0; y < 5; y++)
+			{
+				for (int x = 0; x < 5; x++)
+				{
+					if (z < 2)
+						image.setVoxel(x, y, z, 1);
+					else if (z > 2)
+						image.setVoxel(x, y, z, 2);
+				}
+			}
+		}
+		
+		RegionGraph graph = RegionAdjacencyGraph.computeGraph(image);
+		assertEquals(2, graph.nodeCount());
+		assertEquals(1, graph.edgeCount());
+		assertEquals(25, graph.contactSize(0));
+		assertFalse(graph.hasValues());
+		assertTrue(Double.isNaN(graph.meanValue(0)));
+		
+		Set<LabelPair> adjacencies = RegionAdjacencyGraph.computeAdjacencies(image);
+		assertEquals(1, adjacencies.size());
+		assertTrue(adjacencies.contains(new LabelPair(1, 2)));
+	}
+
+	/**
+	 * The graph does not depend on the number of threads.
+	 */
+	@Test
+	public void testComputeGraph_ThreadCount()
+	{
+		int size = 30;
+		ImageStack image = ImageStack.create(size, size, size, 8);
+		ImageStack values = ImageStack.create(size, size, size, 32);
+		Random random = new Random(3);
+		for (int z = 0; z < size; z++)
+		{
+			for (int y = 0; y < size; y++)
+			{
+				for (int x = 0; x < size; x++)
+				{
+					image.setVoxel(x, y, z, random.nextInt(8));
+					values.setVoxel(x, y, z, random.nextDouble());
+				}
+			}
+		}
+
+		RegionGraph ref = RegionAdjacencyGraph.computeGraph(image, values, 1);
+		for (int nThreads : new int[] { 0, 2, 5 })
+		{
+			RegionGraph graph = RegionAdjacencyGraph.computeGraph(image, values, nThreads);
+			assertArrayEquals(ref.labels(), graph.labels());
+			assertEquals(ref.edgeCount(), graph.edgeCount());
+			for (int e = 0; e < ref.edgeCount(); e++)
+			{
+				assertEquals(ref.edgeNode1(e), graph.edgeNode1(e));
+				assertEquals(ref.edgeNode2(e), graph.edgeNode2(e));
+				assertEquals(ref.contactSize(e), graph.contactSize(e));
+				assertEquals(ref.meanValue(e), graph.meanValue(e), 1e-10);
+				assertEquals(ref.minValue(e), graph.minValue(e), 0.0);
+				assertEquals(ref.maxValue(e), graph.maxValue(e), 0.0);
+			}
+		}
+	}
+
+	/**
+	 * A negative number of threads is not accepted.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testComputeGraph_NegativeThreadCount()
+	{
+		RegionAdjacencyGraph.computeGraph(ImageStack.create(4, 4, 4, 8), null, -1);
+	}
 }
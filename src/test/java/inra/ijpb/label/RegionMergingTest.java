@@ -0,0 +1,218 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.label;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import ij.ImageStack;
+import ij.process.ByteProcessor;
+import ij.process.FloatProcessor;
+import ij.process.ImageProcessor;
+
+public class RegionMergingTest
+{
+	/**
+	 * Three regions separated by watershed lines, with values 4 and 6 on the
+	 * lines, and minimal values 0, 3 and 5.5 within the regions.
+	 */
+	private static final ImageProcessor createLabelImage()
+	{
+		byte[] data = new byte[]{
+				1, 1, 0, 2, 2, 0, 3, 3,
+				1, 1, 0, 2, 2, 0, 3, 3,
+				1, 1, 0, 2, 2, 0, 3, 3,
+		};
+		return new ByteProcessor(8, 3, data);
+	}
+
+	private static final ImageProcessor createValueImage()
+	{
+		float[] data = new float[]{
+				0, 1, 4, 3, 4, 6, 5.5f, 6,
+				0, 1, 4, 3, 4, 6, 5.5f, 6,
+				0, 1, 4, 3, 4, 6, 5.5f, 6,
+		};
+		return new FloatProcessor(8, 3, data);
+	}
+
+	@Test
+	public void testMeanBoundaryValue()
+	{
+		ImageProcessor labels = createLabelImage();
+		RegionMerging merging = RegionMerging.compute(labels, createValueImage(),
+				RegionMerging.Weight.MEAN_BOUNDARY_VALUE);
+
+		assertEquals(2, merging.mergeCount());
+		assertEquals(4.0, merging.mergeLevel(0), 1e-10);
+		assertEquals(6.0, merging.mergeLevel(1), 1e-10);
+
+		assertArrayEquals(new int[] {1, 2, 3}, merging.nodeLabels(3.0));
+		assertArrayEquals(new int[] {1, 1, 3}, merging.nodeLabels(5.0));
+		assertArrayEquals(new int[] {1, 1, 1}, merging.nodeLabelsForRegionCount(1));
+		assertArrayEquals(new int[] {1, 2, 3}, merging.nodeLabelsForRegionCount(5));
+	}
+
+	@Test
+	public void testRelabel()
+	{
+		ImageProcessor labels = createLabelImage();
+		RegionMerging merging = RegionMerging.compute(labels, createValueImage(),
+				RegionMerging.Weight.MEAN_BOUNDARY_VALUE);
+		int[] nodeLabels = merging.nodeLabels(5.0);
+
+		ImageProcessor res = merging.relabel(labels, nodeLabels);
+		assertEquals(8, res.getBitDepth());
+		assertEquals(1, res.get(4, 1));
+		assertEquals(0, res.get(2, 1));
+		assertEquals(3, res.get(6, 1));
+
+		res = merging.relabelWithGap(labels, nodeLabels, 4);
+		assertEquals(1, res.get(2, 1));
+		assertEquals(0, res.get(5, 1));
+		assertEquals(3, res.get(6, 1));
+	}
+
+	@Test
+	public void testSaliencyMap()
+	{
+		ImageProcessor labels = createLabelImage();
+		RegionMerging merging = RegionMerging.compute(labels, createValueImage(),
+				RegionMerging.Weight.MEAN_BOUNDARY_VALUE);
+
+		FloatProcessor saliency = merging.saliencyMap(labels);
+		for (int y = 0; y < 3; y++)
+		{
+			assertEquals(0.0, saliency.getf(1, y), 1e-10);
+			assertEquals(4.0, saliency.getf(2, y), 1e-10);
+			assertEquals(0.0, saliency.getf(3, y), 1e-10);
+			assertEquals(6.0, saliency.getf(5, y), 1e-10);
+		}
+	}
+
+	@Test
+	public void testDynamics()
+	{
+		RegionMerging merging = RegionMerging.compute(createLabelImage(), createValueImage(),
+				RegionMerging.Weight.DYNAMICS);
+
+		// regions 2 and 3 are merged first, then with region 1
+		assertEquals(2, merging.mergeCount());
+		assertEquals(0.5, merging.mergeLevel(0), 1e-10);
+		assertEquals(1.0, merging.mergeLevel(1), 1e-10);
+		assertArrayEquals(new int[] {1, 2, 2}, merging.nodeLabels(0.7));
+	}
+
+	@Test
+	public void testSize()
+	{
+		byte[] data = new byte[]{
+				1, 1, 1, 2, 3, 3,
+				1, 1, 1, 2, 3, 3,
+				1, 1, 1, 3, 3, 3,
+		};
+		ImageProcessor labels = new ByteProcessor(6, 3, data);
+
+		RegionMerging merging = RegionMerging.compute(labels, null, RegionMerging.Weight.SIZE);
+
+		// smallest region is merged with the neighbor with the longest boundary
+		assertEquals(2, merging.mergeCount());
+		assertEquals(2.0, merging.mergeLevel(0), 1e-10);
+		assertEquals(9.0, merging.mergeLevel(1), 1e-10);
+		assertArrayEquals(new int[] {1, 2, 2}, merging.nodeLabelsForRegionCount(2));
+	}
+
+	@Test
+	public void testMergeCombinesBoundaries()
+	{
+		// four regions in a two by two grid, separated by watershed lines
+		byte[] data = new byte[]{
+				1, 1, 0, 2, 2,
+				1, 1, 0, 2, 2,
+				0, 0, 0, 0, 0,
+				3, 3, 0, 4, 4,
+				3, 3, 0, 4, 4,
+		};
+		ImageProcessor labels = new ByteProcessor(5, 5, data);
+		float[] values = new float[]{
+				0, 0, 1, 0, 0,
+				0, 0, 1, 0, 0,
+				2, 2, 9, 8, 8,
+				0, 0, 9, 0, 0,
+				0, 0, 9, 0, 0,
+		};
+
+		RegionMerging merging = RegionMerging.compute(labels, new FloatProcessor(5, 5, values),
+				RegionMerging.Weight.MEAN_BOUNDARY_VALUE);
+
+		// the boundary between regions {1,2} and 3 has mean value 2, whereas
+		// the boundary with region 4 has mean value 8
+		assertEquals(3, merging.mergeCount());
+		assertEquals(1.0, merging.mergeLevel(0), 1e-10);
+		assertEquals(2.0, merging.mergeLevel(1), 1e-10);
+		assertArrayEquals(new int[] {1, 1, 1, 4}, merging.nodeLabels(2.0));
+		for (int i = 1; i < merging.mergeCount(); i++)
+		{
+			assertEquals(true, merging.mergeLevel(i) >= merging.mergeLevel(i - 1));
+		}
+	}
+
+	@Test
+	public void testRelabelWithGap_Stack()
+	{
+		// two regions separated by a plane of background voxels
+		ImageStack labels = ImageStack.create(4, 4, 5, 16);
+		ImageStack values = ImageStack.create(4, 4, 5, 32);
+		for (int z = 0; z < 5; z++)
+		{
+			for (int y = 0; y < 4; y++)
+			{
+				for (int x = 0; x < 4; x++)
+				{
+					labels.setVoxel(x, y, z, z < 2 ? 3 : (z > 2 ? 7 : 0));
+					values.setVoxel(x, y, z, z == 2 ? 10 : 0);
+				}
+			}
+		}
+
+		RegionMerging merging = RegionMerging.compute(labels, values, RegionMerging.Weight.MIN_BOUNDARY_VALUE);
+		assertEquals(1, merging.mergeCount());
+		assertEquals(10.0, merging.mergeLevel(0), 1e-10);
+
+		ImageStack res = merging.relabelWithGap(labels, merging.nodeLabels(10.0), 6);
+		assertEquals(16, res.getBitDepth());
+		assertEquals(3, (int) res.getVoxel(1, 1, 2));
+		assertEquals(3, (int) res.getVoxel(1, 1, 4));
+
+		ImageStack saliency = merging.saliencyMap(labels);
+		assertEquals(10.0, saliency.getVoxel(2, 2, 2), 1e-10);
+		assertEquals(0.0, saliency.getVoxel(2, 2, 0), 1e-10);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCompute_MissingValues()
+	{
+		RegionMerging.compute(createLabelImage(), null, RegionMerging.Weight.MEAN_BOUNDARY_VALUE);
+	}
+}
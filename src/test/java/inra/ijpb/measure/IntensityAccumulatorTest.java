@@ -0,0 +1,231 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.measure;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * @author agent
+ *
+ */
+public class IntensityAccumulatorTest
+{
+	/**
+	 * Compares moments with the values computed with two passes.
+	 */
+	@Test
+	public final void testMoments_RandomValues()
+	{
+		Random random = new Random(42);
+		double[] values = new double[1000];
+		IntensityAccumulator acc = new IntensityAccumulator(false);
+		for (int i = 0; i < values.length; i++)
+		{
+			// add an offset to check numerical stability
+			values[i] = 1e6 + random.nextGaussian() * 10 + random.nextDouble() * random.nextDouble() * 40;
+			acc.add(values[i]);
+		}
+
+		double[] expected = moments(values);
+		assertEquals(values.length, acc.count);
+		assertEquals(expected[0], acc.mean, 1e-6);
+		assertEquals(expected[1], acc.variance(), 1e-6);
+		assertEquals(expected[2], acc.skewness(), 1e-6);
+		assertEquals(expected[3], acc.kurtosis(), 1e-6);
+	}
+
+	/**
+	 * Checks that merging accumulators gives the same result as a single
+	 * accumulator.
+	 */
+	@Test
+	public final void testMerge()
+	{
+		Random random = new Random(123);
+		IntensityAccumulator all = new IntensityAccumulator(true);
+		IntensityAccumulator acc1 = new IntensityAccumulator(true);
+		IntensityAccumulator acc2 = new IntensityAccumulator(true);
+		for (int i = 0; i < 500; i++)
+		{
+			double v1 = random.nextInt(100);
+			double v2 = 500 + random.nextInt(1000);
+			all.add(v1);
+			all.add(v2);
+			acc1.add(v1);
+			acc2.add(v2);
+		}
+
+		IntensityAccumulator merged = new IntensityAccumulator(true);
+		merged.merge(acc2);
+		merged.merge(new IntensityAccumulator(true));
+		merged.merge(acc1);
+
+		assertEquals(all.count, merged.count);
+		assertEquals(all.sum, merged.sum, 1e-6);
+		assertEquals(all.min, merged.min, 1e-6);
+		assertEquals(all.max, merged.max, 1e-6);
+		assertEquals(all.mean, merged.mean, 1e-8);
+		assertEquals(all.variance(), merged.variance(), 1e-6);
+		assertEquals(all.skewness(), merged.skewness(), 1e-8);
+		assertEquals(all.kurtosis(), merged.kurtosis(), 1e-8);
+		assertEquals(all.median(), merged.median(), 1e-8);
+		assertEquals(all.mode(1), merged.mode(1), 1e-8);
+	}
+
+	/**
+	 * Median and mode of integer values are exact.
+	 */
+	@Test
+	public final void testMedianMode_IntegerValues()
+	{
+		// values added in decreasing order to check growth of histogram
+		IntensityAccumulator acc = new IntensityAccumulator(true);
+		double[] values = new double[] { 60000, 3, 3, 12, 7, 3, 40, 12, 12, 1000, 2 };
+		for (int i = values.length - 1; i >= 0; i--)
+		{
+			acc.add(values[i]);
+		}
+
+		double[] sorted = values.clone();
+		Arrays.sort(sorted);
+		assertEquals(sorted[values.length / 2], acc.median(), 0);
+		// 3 and 12 are both found three times
+		assertEquals(3, acc.mode(1), 0);
+		assertTrue(Double.isNaN(acc.mode(4)));
+		assertEquals(2, acc.min, 0);
+		assertEquals(60000, acc.max, 0);
+	}
+
+	/**
+	 * Median and mode of float values are exact by default.
+	 */
+	@Test
+	public final void testMedianMode_FloatValues()
+	{
+		IntensityAccumulator acc1 = new IntensityAccumulator(false);
+		IntensityAccumulator acc2 = new IntensityAccumulator(false);
+		float[] values = new float[] { 2.5f, -0.75f, 1.125f, 2.5f, 1e-3f, 1.125f, 2.5f, 1.125f, 100.25f };
+		for (int i = 0; i < values.length; i++)
+		{
+			if (i % 2 == 0)
+				acc1.add(values[i]);
+			else
+				acc2.add(values[i]);
+		}
+		acc1.merge(acc2);
+
+		float[] sorted = values.clone();
+		Arrays.sort(sorted);
+		assertEquals(sorted[values.length / 2], acc1.median(), 0);
+		// 1.125 and 2.5 are both found three times
+		assertEquals(1.125, acc1.mode(1), 0);
+		assertTrue(Double.isNaN(acc1.mode(4)));
+	}
+
+	/**
+	 * Median of float values is approximated with bounded relative error in
+	 * approximate mode.
+	 */
+	@Test
+	public final void testMedian_FloatValuesApproximate()
+	{
+		Random random = new Random(7);
+		double[] values = new double[1001];
+		IntensityAccumulator acc = new IntensityAccumulator(false, true);
+		for (int i = 0; i < values.length; i++)
+		{
+			values[i] = (random.nextDouble() - 0.3) * 1000;
+			acc.add(values[i]);
+		}
+
+		Arrays.sort(values);
+		double expected = values[values.length / 2];
+		double tol = Math.abs(expected) * IntensityAccumulator.RELATIVE_ACCURACY;
+		assertEquals(expected, acc.median(), tol);
+	}
+
+	/**
+	 * Median and mode of constant float values are exact, also in
+	 * approximate mode.
+	 */
+	@Test
+	public final void testMedianMode_ConstantFloatValues()
+	{
+		for (boolean approximate : new boolean[] { false, true })
+		{
+			IntensityAccumulator acc = new IntensityAccumulator(false, approximate);
+			for (int i = 0; i < 10; i++)
+			{
+				acc.add(-2.5);
+			}
+
+			assertEquals(-2.5, acc.median(), 0);
+			assertEquals(-2.5, acc.mode(2), 0);
+			assertEquals(0, acc.skewness(), 0);
+			assertEquals(-6.0 / 5.0, acc.kurtosis(), 0);
+		}
+	}
+
+	/**
+	 * An empty accumulator returns NaN values.
+	 */
+	@Test
+	public final void testEmpty()
+	{
+		IntensityAccumulator acc = new IntensityAccumulator(false);
+		assertTrue(Double.isNaN(acc.median()));
+		assertTrue(Double.isNaN(acc.mode(1)));
+		assertTrue(Double.isNaN(acc.stdDev()));
+		assertTrue(Double.isNaN(acc.skewness()));
+		assertTrue(Double.isNaN(acc.kurtosis()));
+	}
+
+	/**
+	 * Computes mean, population variance, skewness and excess kurtosis with
+	 * two passes.
+	 */
+	private static final double[] moments(double[] values)
+	{
+		int n = values.length;
+		double mean = 0;
+		for (double v : values)
+			mean += v;
+		mean /= n;
+
+		double s2 = 0, s3 = 0, s4 = 0;
+		for (double v : values)
+		{
+			double d = v - mean;
+			s2 += d * d;
+			s3 += d * d * d;
+			s4 += d * d * d * d;
+		}
+		double var = s2 / n;
+		return new double[] { mean, var, (s3 / n) / Math.pow(var, 1.5), (s4 / n) / (var * var) - 3 };
+	}
+}
@@ -7,6 +7,8 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
+
 import org.junit.Test;
 
 import ij.IJ;
@@ -15,6 +17,7 @@ import ij.ImageStack;
 import ij.measure.ResultsTable;
 import ij.process.ByteProcessor;
 import ij.process.FloatProcessor;
+import ij.process.ImageProcessor;
 
 /**
  * @author dlegland
@@ -149,6 +152,49 @@ public class IntensityMeasuresTest
 		assertTrue(table.getCounter() > 40);
 	}
 
+	/**
+	 * The measures do not depend on the number of threads.
+	 */
+	@Test
+	public final void testGetMean_ThreadCount()
+	{
+		String fileName = getClass().getResource("/files/grains.tif").getFile();
+		ImagePlus grayImagePlus = IJ.openImage(fileName);
+		assertNotNull(grayImagePlus);
+
+		fileName = getClass().getResource("/files/grains-med-WTH-lbl.tif")
+				.getFile();
+		ImagePlus labelImagePlus = IJ.openImage(fileName);
+		assertNotNull(labelImagePlus);
+
+		IntensityMeasures ref = new IntensityMeasures(grayImagePlus,
+				labelImagePlus, false, 1);
+		double[] refMean = ref.getMean().getColumnAsDoubles(0);
+		double[] refMedian = ref.getMedian().getColumnAsDoubles(0);
+		for (int nThreads : new int[] { 0, 2, 5 })
+		{
+			IntensityMeasures algo = new IntensityMeasures(grayImagePlus,
+					labelImagePlus, false, nThreads);
+			double[] mean = algo.getMean().getColumnAsDoubles(0);
+			double[] median = algo.getMedian().getColumnAsDoubles(0);
+			for (int i = 0; i < refMean.length; i++)
+			{
+				assertEquals(refMean[i], mean[i], 1e-10);
+				assertEquals(refMedian[i], median[i], 1e-10);
+			}
+		}
+	}
+
+	/**
+	 * A negative number of threads is not accepted.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public final void testConstructor_NegativeThreadCount()
+	{
+		ImagePlus labels = createImage3DNineLabels();
+		new IntensityMeasures(labels, labels, false, -1);
+	}
+
 	/**
 	 * Test method for {@link inra.ijpb.measure.IntensityMeasures#getMedian()}.
 	 */
@@ -232,6 +278,149 @@ public class IntensityMeasuresTest
 		}
 	}
 
+	/**
+	 * Compares the streamed statistics with the values computed from the
+	 * sorted list of values of each label.
+	 */
+	@Test
+	public final void testStatistics_Grains()
+	{
+		String fileName = getClass().getResource("/files/grains.tif").getFile();
+		ImagePlus grayImagePlus = IJ.openImage(fileName);
+		assertNotNull(grayImagePlus);
+
+		fileName = getClass().getResource("/files/grains-med-WTH-lbl.tif")
+				.getFile();
+		ImagePlus labelImagePlus = IJ.openImage(fileName);
+		assertNotNull(labelImagePlus);
+
+		IntensityMeasures algo = new IntensityMeasures(grayImagePlus,
+				labelImagePlus);
+		ResultsTable meanTable = algo.getMean();
+		ResultsTable sdTable = algo.getStdDev();
+		ResultsTable medianTable = algo.getMedian();
+		ResultsTable modeTable = algo.getMode();
+
+		ImageProcessor gray = grayImagePlus.getProcessor();
+		ImageProcessor labels = labelImagePlus.getProcessor();
+		int nPixels = gray.getPixelCount();
+		for (int row = 0; row < meanTable.getCounter(); row++)
+		{
+			int label = Integer.parseInt(meanTable.getLabel(row));
+
+			// collect values of current label
+			double[] values = new double[nPixels];
+			int n = 0;
+			int[] histo = new int[256];
+			for (int i = 0; i < nPixels; i++)
+			{
+				if ((int) labels.getf(i) == label)
+				{
+					values[n++] = gray.getf(i);
+					histo[(int) gray.getf(i)]++;
+				}
+			}
+			values = Arrays.copyOf(values, n);
+			Arrays.sort(values);
+
+			double mean = 0;
+			for (double v : values)
+				mean += v;
+			mean /= n;
+			double var = 0;
+			for (double v : values)
+				var += (v - mean) * (v - mean);
+			var /= n;
+			int mode = 0;
+			for (int i = 1; i < 256; i++)
+			{
+				if (histo[i] > histo[mode])
+					mode = i;
+			}
+
+			assertEquals(mean, meanTable.getValueAsDouble(0, row), 1e-8);
+			assertEquals(Math.sqrt(var), sdTable.getValueAsDouble(0, row), 1e-8);
+			assertEquals(values[n / 2], medianTable.getValueAsDouble(0, row), 0);
+			assertEquals(mode, modeTable.getValueAsDouble(0, row), 0);
+		}
+	}
+
+	/**
+	 * Checks that median of 32-bit images is exact by default, and
+	 * approximated within the relative accuracy of the sketch in approximate
+	 * mode.
+	 */
+	@Test
+	public final void testMedian_Float()
+	{
+		String fileName = getClass().getResource("/files/grains.tif").getFile();
+		ImagePlus grainsImagePlus = IJ.openImage(fileName);
+		assertNotNull(grainsImagePlus);
+		ImageProcessor gray = grainsImagePlus.getProcessor().convertToFloat();
+		gray.multiply(0.37);
+		gray.add(0.01);
+		ImagePlus grayImagePlus = new ImagePlus("float", gray);
+
+		fileName = getClass().getResource("/files/grains-med-WTH-lbl.tif")
+				.getFile();
+		ImagePlus labelImagePlus = IJ.openImage(fileName);
+		assertNotNull(labelImagePlus);
+
+		ResultsTable exactTable = new IntensityMeasures(grayImagePlus,
+				labelImagePlus).getMedian();
+		ResultsTable approxTable = new IntensityMeasures(grayImagePlus,
+				labelImagePlus, true).getMedian();
+
+		ImageProcessor labels = labelImagePlus.getProcessor();
+		int nPixels = gray.getPixelCount();
+		for (int row = 0; row < exactTable.getCounter(); row++)
+		{
+			int label = Integer.parseInt(exactTable.getLabel(row));
+
+			// collect values of current label
+			float[] values = new float[nPixels];
+			int n = 0;
+			for (int i = 0; i < nPixels; i++)
+			{
+				if ((int) labels.getf(i) == label)
+					values[n++] = gray.getf(i);
+			}
+			values = Arrays.copyOf(values, n);
+			Arrays.sort(values);
+			double median = values[n / 2];
+
+			assertEquals(median, exactTable.getValueAsDouble(0, row), 0);
+			assertEquals(median, approxTable.getValueAsDouble(0, row),
+					median * IntensityAccumulator.RELATIVE_ACCURACY);
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link inra.ijpb.measure.IntensityMeasures#getKurtosis()}.
+	 */
+	@Test
+	public final void testGetSkewnessKurtosis_NineLabels()
+	{
+		// use the same image for label and gray levels: constant values
+		ImagePlus labelImagePlus = createImage3DNineLabels();
+		ImagePlus grayImagePlus = createImage3DNineLabels();
+		IntensityMeasures algo = new IntensityMeasures(grayImagePlus,
+				labelImagePlus);
+
+		ResultsTable skewness = algo.getSkewness();
+		ResultsTable kurtosis = algo.getKurtosis();
+		ResultsTable neighborsSkewness = algo.getNeighborsSkewness();
+		assertEquals(9, kurtosis.getCounter());
+		for (int i = 0; i < 9; i++)
+		{
+			assertEquals(0.0, skewness.getValueAsDouble(0, i), .01);
+			assertEquals(-1.2, kurtosis.getValueAsDouble(0, i), .01);
+		}
+		// label 10 has no neighbor
+		assertTrue(Double.isNaN(neighborsSkewness.getValueAsDouble(0, 8)));
+	}
+
 	/**
 	 * Test method for
 	 * {@link inra.ijpb.measure.IntensityMeasures#getNeighborsMean()}.
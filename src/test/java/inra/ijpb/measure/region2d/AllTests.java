@@ -37,6 +37,7 @@ import org.junit.runners.Suite;
 	MaxFeretDiameterTest.class,
 	OrientedBoundingBox2DTest.class,
     RegionBoundariesTest.class,
+	RegionFeatures2DTest.class,
 	})
 public class AllTests {
   //nothing
@@ -6,11 +6,17 @@ package inra.ijpb.measure.region2d;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
+
 import org.junit.Test;
 
+import ij.IJ;
+import ij.ImagePlus;
 import ij.measure.Calibration;
 import ij.process.ByteProcessor;
 import ij.process.ImageProcessor;
+import inra.ijpb.binary.BinaryImages;
+import inra.ijpb.label.LabelImages;
 import inra.ijpb.measure.region2d.AverageThickness.Result;
 
 /**
@@ -85,4 +91,47 @@ public class AverageThicknessTest
             assertTrue(res.meanDist < 2.5);
         }
     }
+
+    /**
+     * Checks that processing each region within its bounding box, with
+     * several threads, gives the same result as computing distance map and
+     * skeleton on the whole label image.
+     */
+    @Test
+    public void testAnalyzeRegions_Grains_SameAsWholeImage()
+    {
+        ImagePlus imagePlus = IJ.openImage(getClass().getResource("/files/grains-WTH-areaOpen-lbl2.tif").getFile());
+        ImageProcessor image = imagePlus.getProcessor();
+        int[] labels = LabelImages.findAllLabels(image);
+
+        // compute average distance along skeleton within the whole image
+        ImageProcessor distanceMap = BinaryImages.distanceMap(image);
+        ImageProcessor skeleton = BinaryImages.skeleton(image);
+        double[] sums = new double[labels.length];
+        int[] counts = new int[labels.length];
+        for (int y = 0; y < image.getHeight(); y++)
+        {
+            for (int x = 0; x < image.getWidth(); x++)
+            {
+                int label = (int) skeleton.getf(x, y);
+                if (label == 0)
+                {
+                    continue;
+                }
+                int index = Arrays.binarySearch(labels, label);
+                sums[index] += distanceMap.getf(x, y);
+                counts[index]++;
+            }
+        }
+
+        AverageThickness op = new AverageThickness();
+        op.setThreadCount(4);
+        Result[] results = op.analyzeRegions(image, labels, new Calibration());
+
+        assertEquals(labels.length, results.length);
+        for (int i = 0; i < labels.length; i++)
+        {
+            assertEquals(sums[i] / counts[i], results[i].meanDist, 1e-6);
+        }
+    }
 }
@@ -1,10 +1,15 @@
 package inra.ijpb.measure.region2d;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 
+import java.awt.Point;
 import java.awt.geom.Point2D;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.Test;
 
@@ -13,7 +18,15 @@ import ij.ImagePlus;
 import ij.measure.Calibration;
 import ij.process.ByteProcessor;
 import ij.process.ImageProcessor;
+import inra.ijpb.algo.AlgoEvent;
+import inra.ijpb.algo.AlgoListener;
+import inra.ijpb.binary.BinaryImages;
 import inra.ijpb.binary.ChamferWeights;
+import inra.ijpb.binary.geodesic.GeodesicDistanceTransform;
+import inra.ijpb.binary.geodesic.GeodesicDistanceTransformFloat5x5;
+import inra.ijpb.label.LabelImages;
+import inra.ijpb.label.LabelValues;
+import inra.ijpb.label.LabelValues.PositionValuePair;
 
 public class GeodesicDiameterTest
 {
@@ -226,4 +239,136 @@ public class GeodesicDiameterTest
 		}
     }
 
+	/**
+	 * Checks that a label that is not within the image gets a non-null
+	 * result, and that the table can be created.
+	 */
+	@Test
+	public final void testGeodesicDiameter_MissingLabel()
+	{
+		ByteProcessor labelImage = new ByteProcessor(10, 10);
+		for (int i = 2; i < 8; i++)
+		{
+			labelImage.set(i, 4, 1);
+			labelImage.set(i, 5, 1);
+		}
+
+		GeodesicDiameter algo = new GeodesicDiameter(ChamferWeights.BORGEFORS);
+		algo.setComputePaths(true);
+		int[] labels = new int[] { 1, 6 };
+		GeodesicDiameter.Result[] geodDiams = algo.analyzeRegions(labelImage, labels, new Calibration());
+
+		assertNotNull(geodDiams[1]);
+		assertEquals(Double.NEGATIVE_INFINITY, geodDiams[1].diameter, 0);
+		assertEquals(0, geodDiams[1].path.size());
+
+		Map<Integer, GeodesicDiameter.Result> map = new TreeMap<Integer, GeodesicDiameter.Result>();
+		for (int i = 0; i < labels.length; i++)
+		{
+			map.put(labels[i], geodDiams[i]);
+		}
+		assertEquals(2, algo.createTable(map).getCounter());
+	}
+
+	/**
+	 * Checks that processing regions with several threads gives the same
+	 * results as processing them one after the other, and that progress is
+	 * reported once for each region, in increasing order.
+	 */
+	@Test
+	public void testGeodesicDiameter_Grains_ForkJoinPool()
+	{
+		ImagePlus imagePlus = IJ.openImage(getClass().getResource("/files/grains-WTH-areaOpen-lbl2.tif").getFile());
+		ImageProcessor image = imagePlus.getProcessor();
+		int[] labels = LabelImages.findAllLabels(image);
+
+		// the shared geodesic distance transform forces sequential processing
+		GeodesicDiameter algo1 = new GeodesicDiameter(new GeodesicDistanceTransformFloat5x5(ChamferWeights.CHESSKNIGHT, true));
+		GeodesicDiameter.Result[] expected = algo1.analyzeRegions(image, labels, new Calibration());
+
+		GeodesicDiameter algo2 = new GeodesicDiameter(ChamferWeights.CHESSKNIGHT);
+		algo2.setComputePaths(true);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		algo2.setForkJoinPool(pool);
+		final List<Double> steps = new ArrayList<Double>();
+		algo2.addAlgoListener(new AlgoListener()
+		{
+			@Override
+			public void algoProgressChanged(AlgoEvent evt)
+			{
+				steps.add(evt.getCurrentProgress());
+			}
+
+			@Override
+			public void algoStatusChanged(AlgoEvent evt)
+			{
+			}
+		});
+		GeodesicDiameter.Result[] results = algo2.analyzeRegions(image, labels, new Calibration());
+		pool.shutdown();
+
+		assertEquals(labels.length, results.length);
+		for (int i = 0; i < labels.length; i++)
+		{
+			assertEquals(expected[i].diameter, results[i].diameter, 1e-10);
+			assertEquals(expected[i].firstExtremity, results[i].firstExtremity);
+			assertEquals(expected[i].secondExtremity, results[i].secondExtremity);
+			assertEquals(results[i].firstExtremity, results[i].path.get(results[i].path.size() - 1));
+		}
+
+		assertEquals(labels.length, steps.size());
+		for (int i = 0; i < steps.size(); i++)
+		{
+			assertEquals(i + 1, steps.get(i), 1e-10);
+		}
+	}
+
+	/**
+	 * Checks that processing each region within its bounding box, with
+	 * several threads, gives the same diameters and extremities as
+	 * propagating distances within the whole label image.
+	 */
+	@Test
+	public void testGeodesicDiameter_Grains_SameAsWholeImage()
+	{
+		ImagePlus imagePlus = IJ.openImage(getClass().getResource("/files/grains-WTH-areaOpen-lbl2.tif").getFile());
+		ImageProcessor image = imagePlus.getProcessor();
+		int[] labels = LabelImages.findAllLabels(image);
+		int nLabels = labels.length;
+
+		// propagate distances within the whole image, from the centers of
+		// the regions, then from the first geodesic extremities
+		float[] weights = ChamferWeights.CHESSKNIGHT.getFloatWeights();
+		GeodesicDistanceTransform gdt = new GeodesicDistanceTransformFloat5x5(weights, true);
+		ImageProcessor distanceMap = BinaryImages.distanceMap(image, weights, true);
+		PositionValuePair[] innerCircles = LabelValues.findMaxValues(distanceMap, image, labels);
+		ImageProcessor marker = new ByteProcessor(image.getWidth(), image.getHeight());
+		for (int i = 0; i < nLabels; i++)
+		{
+			Point center = innerCircles[i].getPosition();
+			marker.set(center.x, center.y, 255);
+		}
+		distanceMap = gdt.geodesicDistanceMap(marker, image);
+		Point[] firstExtremities = LabelValues.findPositionOfMaxValues(distanceMap, image, labels);
+		marker = new ByteProcessor(image.getWidth(), image.getHeight());
+		for (int i = 0; i < nLabels; i++)
+		{
+			marker.set(firstExtremities[i].x, firstExtremities[i].y, 255);
+		}
+		distanceMap = gdt.geodesicDistanceMap(marker, image);
+		PositionValuePair[] secondExtremities = LabelValues.findMaxValues(distanceMap, image, labels);
+
+		GeodesicDiameter algo = new GeodesicDiameter(ChamferWeights.CHESSKNIGHT);
+		algo.setThreadCount(4);
+		GeodesicDiameter.Result[] results = algo.analyzeRegions(image, labels, new Calibration());
+
+		assertEquals(nLabels, results.length);
+		for (int i = 0; i < nLabels; i++)
+		{
+			assertEquals(secondExtremities[i].getValue() + Math.sqrt(2), results[i].diameter, 1e-6);
+			assertEquals(innerCircles[i].getValue(), results[i].innerRadius, 1e-6);
+			assertEquals(firstExtremities[i], results[i].firstExtremity);
+			assertEquals(secondExtremities[i].getPosition(), results[i].secondExtremity);
+		}
+	}
 }
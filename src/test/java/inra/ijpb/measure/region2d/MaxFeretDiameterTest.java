@@ -4,15 +4,23 @@
 package inra.ijpb.measure.region2d;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
 import java.util.Map;
 
 import org.junit.Test;
 
 import ij.IJ;
 import ij.ImagePlus;
+import ij.measure.Calibration;
 import ij.measure.ResultsTable;
+import ij.process.ByteProcessor;
+import ij.process.ImageProcessor;
+import inra.ijpb.geometry.FeretDiameters;
 import inra.ijpb.geometry.PointPair2D;
+import inra.ijpb.label.LabelImages;
 
 /**
  * @author dlegland
@@ -59,4 +67,54 @@ public class MaxFeretDiameterTest
 		ResultsTable table = algo.createTable(maxFeretDiams);
 		assertEquals(96, table.size());
 	}
+
+	/**
+	 * Checks that the orientation of the diameter is between 0 and 180
+	 * degrees, and that the extremities are the same as the ones obtained by
+	 * comparing all the pairs of corners.
+	 */
+	@Test
+	public void testAnalyzeRegions_riceGrains_sameAsCornerPairs()
+	{
+		ImagePlus imagePlus = IJ.openImage(getClass().getResource("/files/grains-med-WTH-lbl.tif").getFile());
+		ImageProcessor image = imagePlus.getProcessor();
+		int[] labels = LabelImages.findAllLabels(image);
+		
+		PointPair2D[] diams = new MaxFeretDiameter().analyzeRegions(image, labels, new Calibration());
+		ArrayList<Point2D>[] corners = RegionBoundaries.runlengthsCorners(image, labels);
+		for (int i = 0; i < labels.length; i++)
+		{
+			PointPair2D exp = FeretDiameters.maxFeretDiameter(corners[i]);
+			assertEquals(exp.p1, diams[i].p1);
+			assertEquals(exp.p2, diams[i].p2);
+			
+			double angle = Math.toDegrees(diams[i].angle());
+			assertTrue(angle >= 0 && angle < 180);
+		}
+	}
+
+	/**
+	 * Pins the orientation of the diameter of a rectangle, that has two
+	 * diagonals with the same length.
+	 */
+	@Test
+	public void testAnalyzeRegions_rectangleOrientation()
+	{
+		ImageProcessor image = new ByteProcessor(10, 10);
+		for (int y = 3; y < 5; y++)
+		{
+			for (int x = 2; x < 7; x++)
+			{
+				image.set(x, y, 255);
+			}
+		}
+		
+		PointPair2D diam = new MaxFeretDiameter().analyzeRegions(image, new int[] {255}, new Calibration())[0];
+		
+		assertEquals(2, diam.p1.getX(), .01);
+		assertEquals(3, diam.p1.getY(), .01);
+		assertEquals(7, diam.p2.getX(), .01);
+		assertEquals(5, diam.p2.getY(), .01);
+		assertEquals(21.8014, Math.toDegrees(diam.angle()), .001);
+	}
 }
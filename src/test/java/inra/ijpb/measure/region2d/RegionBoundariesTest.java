@@ -10,8 +10,11 @@ import java.util.ArrayList;
 
 import org.junit.Test;
 
+import ij.IJ;
+import ij.ImagePlus;
 import ij.process.ByteProcessor;
 import ij.process.ImageProcessor;
+import inra.ijpb.label.LabelImages;
 
 /**
  * @author dlegland
@@ -39,6 +42,35 @@ public class RegionBoundariesTest
         assertTrue(points.contains(new Point2D.Double(2.0, 2.0))); // bottom-right corner
     }
 
+    /**
+     * Test method for {@link inra.ijpb.measure.region2d.RegionBoundaries#runlengthsCorners(ij.process.ImageProcessor, int[])}.
+     */
+    @Test
+    public final void testRunlengthsCorners_TouchingLabels()
+    {
+        ImagePlus imagePlus = IJ.openImage(getClass().getResource("/files/grains-med-WTH-lbl.tif").getFile());
+        ImageProcessor image = imagePlus.getProcessor();
+        // add touching labels, including on image border
+        for (int y = 0; y < 20; y++)
+        {
+            for (int x = 0; x < 15; x++)
+            {
+                image.set(x, y, x < 8 ? 200 : 201);
+            }
+        }
+        int[] labels = LabelImages.findAllLabels(image);
+        
+        ArrayList<Point2D>[] cornersArray = RegionBoundaries.runlengthsCorners(image, labels);
+        
+        // compare with the corners of each binary region
+        for (int i = 0; i < labels.length; i++)
+        {
+            ImageProcessor binary = LabelImages.binarize(image, labels[i]);
+            ArrayList<Point2D> expected = RegionBoundaries.runLengthsCorners(binary);
+            assertEquals(expected, cornersArray[i]);
+        }
+    }
+
     /**
      * Test method for {@link inra.ijpb.measure.region2d.RegionBoundaries#boundaryPixelsMiddleEdges(ij.process.ImageProcessor)}.
      */
@@ -0,0 +1,166 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.measure.region2d;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.geom.Point2D;
+import java.util.EnumSet;
+import java.util.Map;
+
+import org.junit.Test;
+
+import ij.IJ;
+import ij.ImagePlus;
+import ij.measure.Calibration;
+import ij.process.ImageProcessor;
+import inra.ijpb.geometry.Box2D;
+import inra.ijpb.geometry.Ellipse;
+import inra.ijpb.label.LabelImages;
+
+/**
+ * @author agent
+ *
+ */
+public class RegionFeatures2DTest
+{
+	/**
+	 * Test method for {@link inra.ijpb.measure.region2d.RegionFeatures2D#analyzeRegions(ij.process.ImageProcessor, int[], ij.measure.Calibration)}.
+	 */
+	@Test
+	public void testAnalyzeRegions_CompareWithAnalyzers()
+	{
+		ImagePlus imagePlus = IJ.openImage(getClass().getResource("/files/grains-med-WTH-lbl.tif").getFile());
+		assertNotNull(imagePlus);
+		ImageProcessor image = imagePlus.getProcessor();
+		int[] labels = LabelImages.findAllLabels(image);
+		Calibration calib = createCalibration();
+
+		RegionFeatures2D algo = new RegionFeatures2D();
+		algo.setDirectionNumber(4);
+		algo.setConnectivity(8);
+		RegionFeatures2D.Result[] res = algo.analyzeRegions(image, labels, calib);
+
+		IntrinsicVolumesAnalyzer2D ivAlgo = new IntrinsicVolumesAnalyzer2D();
+		ivAlgo.setDirectionNumber(4);
+		ivAlgo.setConnectivity(8);
+		IntrinsicVolumesAnalyzer2D.Result[] intrinsicVolumes = ivAlgo.analyzeRegions(image, labels, calib);
+		Box2D[] boxes = new BoundingBox().analyzeRegions(image, labels, calib);
+		Point2D[] centroids = new Centroid().analyzeRegions(image, labels, calib);
+		Ellipse[] ellipses = new EquivalentEllipse().analyzeRegions(image, labels, calib);
+
+		assertEquals(labels.length, res.length);
+		for (int i = 0; i < labels.length; i++)
+		{
+			assertEquals(intrinsicVolumes[i].area, res[i].area, 1e-8);
+			assertEquals(intrinsicVolumes[i].perimeter, res[i].perimeter, 1e-8);
+			assertEquals(intrinsicVolumes[i].eulerNumber, res[i].eulerNumber, 1e-8);
+			assertEquals(intrinsicVolumes[i].circularity(), res[i].circularity(), 1e-8);
+
+			Box2D box = res[i].boundingBox;
+			assertEquals(boxes[i].getXMin(), box.getXMin(), 1e-10);
+			assertEquals(boxes[i].getXMax(), box.getXMax(), 1e-10);
+			assertEquals(boxes[i].getYMin(), box.getYMin(), 1e-10);
+			assertEquals(boxes[i].getYMax(), box.getYMax(), 1e-10);
+
+			assertEquals(centroids[i].getX(), res[i].centroid.getX(), 1e-10);
+			assertEquals(centroids[i].getY(), res[i].centroid.getY(), 1e-10);
+
+			Ellipse elli = res[i].ellipse;
+			assertEquals(ellipses[i].center().getX(), elli.center().getX(), 1e-10);
+			assertEquals(ellipses[i].center().getY(), elli.center().getY(), 1e-10);
+			assertEquals(ellipses[i].radius1(), elli.radius1(), 1e-8);
+			assertEquals(ellipses[i].radius2(), elli.radius2(), 1e-8);
+			assertEquals(ellipses[i].orientation(), elli.orientation(), 1e-6);
+		}
+	}
+
+	/**
+	 * Test method for {@link inra.ijpb.measure.region2d.RegionFeatures2D#analyzeRegions(ij.process.ImageProcessor, ij.measure.Calibration)}.
+	 */
+	@Test
+	public void testAnalyzeRegions_IdentifyLabels()
+	{
+		ImagePlus imagePlus = IJ.openImage(getClass().getResource("/files/grains-med-WTH-lbl.tif").getFile());
+		ImageProcessor image = imagePlus.getProcessor();
+		int[] labels = LabelImages.findAllLabels(image);
+		Calibration calib = createCalibration();
+
+		RegionFeatures2D algo = new RegionFeatures2D();
+		RegionFeatures2D.Result[] res = algo.analyzeRegions(image, labels, calib);
+		Map<Integer, RegionFeatures2D.Result> map = algo.analyzeRegions(image, calib);
+
+		assertEquals(labels.length, map.size());
+		int i = 0;
+		for (int label : map.keySet())
+		{
+			assertEquals(labels[i], label);
+			RegionFeatures2D.Result res2 = map.get(label);
+			assertEquals(res[i].pixelCount, res2.pixelCount);
+			assertEquals(res[i].perimeter, res2.perimeter, 1e-10);
+			assertEquals(res[i].ellipse.radius1(), res2.ellipse.radius1(), 1e-10);
+			i++;
+		}
+	}
+
+	/**
+	 * Checks that only the requested features are computed, and that labels
+	 * absent from the list are ignored.
+	 */
+	@Test
+	public void testAnalyzeRegions_FeatureSubset()
+	{
+		ImagePlus imagePlus = IJ.openImage(getClass().getResource("/files/grains-med-WTH-lbl.tif").getFile());
+		ImageProcessor image = imagePlus.getProcessor();
+		int[] allLabels = LabelImages.findAllLabels(image);
+		int[] labels = new int[] {allLabels[2], allLabels[0]};
+		int[] counts = LabelImages.pixelCount(image, allLabels);
+		counts = new int[] {counts[2], counts[0]};
+
+		RegionFeatures2D algo = new RegionFeatures2D(EnumSet.of(RegionFeatures2D.Feature.AREA, RegionFeatures2D.Feature.BOUNDING_BOX));
+		RegionFeatures2D.Result[] res = algo.analyzeRegions(image, labels, new Calibration());
+
+		assertEquals(2, res.length);
+		for (int i = 0; i < 2; i++)
+		{
+			assertEquals(counts[i], res[i].pixelCount);
+			assertEquals(counts[i], res[i].area, 1e-10);
+			assertTrue(Double.isNaN(res[i].perimeter));
+			assertNotNull(res[i].boundingBox);
+			assertNull(res[i].centroid);
+			assertNull(res[i].ellipse);
+		}
+	}
+
+	private static final Calibration createCalibration()
+	{
+		Calibration calib = new Calibration();
+		calib.pixelWidth = 0.5;
+		calib.pixelHeight = 1.5;
+		calib.xOrigin = -10;
+		calib.yOrigin = 5;
+		return calib;
+	}
+}
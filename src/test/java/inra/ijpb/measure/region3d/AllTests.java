@@ -29,9 +29,11 @@ import org.junit.runners.Suite;
 @Suite.SuiteClasses({
     // generic classes
     GeometryUtilsTest.class, 
+    Convexity3DTest.class,
     EquivalentEllipsoidTest.class,
     InterfaceSurfaceAreaTest.class,
-    MaxFeretDiameter3DTest.class })
+    MaxFeretDiameter3DTest.class,
+    RegionFeatures3DTest.class })
 public class AllTests
 {
 	// nothing
@@ -0,0 +1,103 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.measure.region3d;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import ij.ImageStack;
+import ij.measure.Calibration;
+
+/**
+ * @author agent
+ *
+ */
+public class Convexity3DTest
+{
+	/**
+	 * Test method for {@link inra.ijpb.measure.region3d.Convexity3D#analyzeRegions(ij.ImageStack, int[], ij.measure.Calibration)}.
+	 */
+	@Test
+	public void testAnalyzeRegions_Boxes()
+	{
+		ImageStack stack = ImageStack.create(10, 10, 10, 8);
+		// a box of size 3x4x5
+		for (int z = 1; z < 6; z++)
+		{
+			for (int y = 1; y < 5; y++)
+			{
+				for (int x = 1; x < 4; x++)
+				{
+					stack.setVoxel(x, y, z, 3);
+				}
+			}
+		}
+		// a box touching the image border
+		for (int z = 7; z < 10; z++)
+		{
+			for (int y = 6; y < 10; y++)
+			{
+				for (int x = 6; x < 10; x++)
+				{
+					stack.setVoxel(x, y, z, 7);
+				}
+			}
+		}
+		int[] labels = new int[] {3, 7};
+
+		Convexity3D.Result[] res = new Convexity3D().analyzeRegions(stack, labels, new Calibration());
+
+		assertEquals(2, res.length);
+		assertEquals(60, res[0].volume, 1e-10);
+		assertEquals(60, res[0].convexVolume, 1e-10);
+		assertEquals(2 * (12 + 15 + 20), res[0].convexSurfaceArea, 1e-10);
+		assertEquals(1.0, res[0].convexity, 1e-10);
+		assertEquals(48, res[1].volume, 1e-10);
+		assertEquals(1.0, res[1].convexity, 1e-10);
+	}
+
+	/**
+	 * Test method for {@link inra.ijpb.measure.region3d.Convexity3D#analyzeRegions(ij.ImageStack, int[], ij.measure.Calibration)}.
+	 */
+	@Test
+	public void testAnalyzeRegions_Diagonal_Calibrated()
+	{
+		ImageStack stack = ImageStack.create(10, 10, 10, 8);
+		for (int i = 1; i < 9; i++)
+		{
+			stack.setVoxel(i, i, i, 255);
+		}
+		int[] labels = new int[] {255};
+		Calibration calib = new Calibration();
+		calib.pixelWidth = 0.5;
+		calib.pixelHeight = 2.0;
+		calib.pixelDepth = 3.0;
+
+		Convexity3D.Result[] res = Convexity3D.convexity(stack, labels, calib);
+
+		assertEquals(8 * 3.0, res[0].volume, 1e-10);
+		assertTrue(res[0].convexVolume > res[0].volume);
+		assertTrue(res[0].convexity < 1.0);
+	}
+}
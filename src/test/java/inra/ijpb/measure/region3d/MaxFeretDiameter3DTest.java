@@ -4,8 +4,12 @@
 package inra.ijpb.measure.region3d;
 
 import static org.junit.Assert.assertEquals;
+import java.util.ArrayList;
+import java.util.Random;
+
 import ij.ImageStack;
 import ij.measure.Calibration;
+import inra.ijpb.geometry.Point3D;
 import inra.ijpb.geometry.PointPair3D;
 
 import org.junit.Test;
@@ -39,4 +43,35 @@ public class MaxFeretDiameter3DTest
 		assertEquals(8*Math.sqrt(3), pair.diameter(), .1);
 	}
 
+	/**
+	 * Checks that the diameter computed on convex hull vertices is the same as
+	 * the one computed on all the corner points.
+	 */
+	@Test
+	public void testAnalyzeRegions_RandomRegion()
+	{
+		ImageStack stack = ImageStack.create(20, 20, 20, 8);
+		Random random = new Random(1234);
+		for (int i = 0; i < 300; i++)
+		{
+			stack.setVoxel(random.nextInt(20), random.nextInt(14), random.nextInt(9), 4);
+		}
+		int[] labels = new int[]{4};
+		Calibration calib = new Calibration();
+		calib.pixelWidth = 0.7;
+		calib.pixelHeight = 1.3;
+		calib.pixelDepth = 2.1;
+		
+		PointPair3D[] result = new MaxFeretDiameter3D().analyzeRegions(stack, labels, calib);
+		
+		ArrayList<Point3D> corners = RegionBoundaries3D.regionsCornersArray(stack, labels)[0];
+		ArrayList<Point3D> calibratedCorners = new ArrayList<Point3D>(corners.size());
+		for (Point3D p : corners)
+		{
+			calibratedCorners.add(new Point3D(p.getX() * 0.7, p.getY() * 1.3, p.getZ() * 2.1));
+		}
+		PointPair3D expected = MaxFeretDiameter3D.maxFeretDiameter(calibratedCorners);
+		
+		assertEquals(expected.diameter(), result[0].diameter(), 1e-10);
+	}
 }
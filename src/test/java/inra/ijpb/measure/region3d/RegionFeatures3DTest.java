@@ -0,0 +1,206 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.measure.region3d;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import ij.ImageStack;
+import ij.measure.Calibration;
+import inra.ijpb.geometry.Box3D;
+import inra.ijpb.geometry.Ellipsoid;
+import inra.ijpb.geometry.Point3D;
+import inra.ijpb.label.LabelImages;
+
+/**
+ * @author agent
+ *
+ */
+public class RegionFeatures3DTest
+{
+	/**
+	 * Test method for {@link inra.ijpb.measure.region3d.RegionFeatures3D#analyzeRegions(ij.ImageStack, int[], ij.measure.Calibration)}.
+	 */
+	@Test
+	public void testAnalyzeRegions_CompareWithAnalyzers()
+	{
+		ImageStack image = createBlobsImage();
+		int[] labels = LabelImages.findAllLabels(image);
+		Calibration calib = createCalibration();
+
+		RegionFeatures3D algo = new RegionFeatures3D();
+		algo.setDirectionNumber(13);
+		algo.setConnectivity(26);
+		RegionFeatures3D.Result[] res = algo.analyzeRegions(image, labels, calib);
+
+		IntrinsicVolumesAnalyzer3D ivAlgo = new IntrinsicVolumesAnalyzer3D();
+		ivAlgo.setDirectionNumber(13);
+		ivAlgo.setConnectivity(26);
+		IntrinsicVolumesAnalyzer3D.Result[] intrinsicVolumes = ivAlgo.analyzeRegions(image, labels, calib);
+		Box3D[] boxes = new BoundingBox3D().analyzeRegions(image, labels, calib);
+		Point3D[] centroids = new Centroid3D().analyzeRegions(image, labels, calib);
+		Ellipsoid[] ellipsoids = new EquivalentEllipsoid().analyzeRegions(image, labels, calib);
+
+		assertEquals(labels.length, res.length);
+		for (int i = 0; i < labels.length; i++)
+		{
+			assertEquals(intrinsicVolumes[i].volume, res[i].volume, 1e-8);
+			assertEquals(intrinsicVolumes[i].surfaceArea, res[i].surfaceArea, 1e-8);
+			assertEquals(intrinsicVolumes[i].meanBreadth, res[i].meanBreadth, 1e-8);
+			assertEquals(intrinsicVolumes[i].eulerNumber, res[i].eulerNumber, 1e-8);
+
+			Box3D box = res[i].boundingBox;
+			assertEquals(boxes[i].getXMin(), box.getXMin(), 1e-10);
+			assertEquals(boxes[i].getXMax(), box.getXMax(), 1e-10);
+			assertEquals(boxes[i].getYMin(), box.getYMin(), 1e-10);
+			assertEquals(boxes[i].getYMax(), box.getYMax(), 1e-10);
+			assertEquals(boxes[i].getZMin(), box.getZMin(), 1e-10);
+			assertEquals(boxes[i].getZMax(), box.getZMax(), 1e-10);
+
+			assertEquals(centroids[i].getX(), res[i].centroid.getX(), 1e-10);
+			assertEquals(centroids[i].getY(), res[i].centroid.getY(), 1e-10);
+			assertEquals(centroids[i].getZ(), res[i].centroid.getZ(), 1e-10);
+
+			Ellipsoid elli = res[i].ellipsoid;
+			Point3D center = elli.center();
+			assertEquals(ellipsoids[i].center().getX(), center.getX(), 1e-10);
+			assertEquals(ellipsoids[i].center().getY(), center.getY(), 1e-10);
+			assertEquals(ellipsoids[i].center().getZ(), center.getZ(), 1e-10);
+			assertEquals(ellipsoids[i].radius1(), elli.radius1(), 1e-8);
+			assertEquals(ellipsoids[i].radius2(), elli.radius2(), 1e-8);
+			assertEquals(ellipsoids[i].radius3(), elli.radius3(), 1e-8);
+			// Euler angles are ill-conditioned when main axis is close to z
+			if (Math.abs(ellipsoids[i].theta()) < 89)
+			{
+				assertEquals(ellipsoids[i].phi(), elli.phi(), 1e-6);
+				assertEquals(ellipsoids[i].theta(), elli.theta(), 1e-6);
+				assertEquals(ellipsoids[i].psi(), elli.psi(), 1e-6);
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link inra.ijpb.measure.region3d.RegionFeatures3D#analyzeRegions(ij.ImageStack, ij.measure.Calibration)}.
+	 */
+	@Test
+	public void testAnalyzeRegions_IdentifyLabels()
+	{
+		ImageStack image = createBlobsImage();
+		int[] labels = LabelImages.findAllLabels(image);
+		Calibration calib = createCalibration();
+
+		RegionFeatures3D algo = new RegionFeatures3D();
+		RegionFeatures3D.Result[] res = algo.analyzeRegions(image, labels, calib);
+		Map<Integer, RegionFeatures3D.Result> map = algo.analyzeRegions(image, calib);
+
+		assertEquals(labels.length, map.size());
+		int i = 0;
+		for (int label : map.keySet())
+		{
+			assertEquals(labels[i], label);
+			RegionFeatures3D.Result res2 = map.get(label);
+			assertEquals(res[i].voxelCount, res2.voxelCount);
+			assertEquals(res[i].surfaceArea, res2.surfaceArea, 1e-10);
+			assertEquals(res[i].eulerNumber, res2.eulerNumber, 1e-10);
+			assertEquals(res[i].ellipsoid.radius1(), res2.ellipsoid.radius1(), 1e-10);
+			i++;
+		}
+	}
+
+	/**
+	 * Checks that only the requested features are computed, and that labels
+	 * absent from the list are ignored.
+	 */
+	@Test
+	public void testAnalyzeRegions_FeatureSubset()
+	{
+		ImageStack image = createBlobsImage();
+		int[] allLabels = LabelImages.findAllLabels(image);
+		int[] labels = new int[] {allLabels[1], allLabels[0]};
+		int[] counts = LabelImages.voxelCount(image, allLabels);
+		counts = new int[] {counts[1], counts[0]};
+
+		RegionFeatures3D algo = new RegionFeatures3D(EnumSet.of(RegionFeatures3D.Feature.VOLUME, RegionFeatures3D.Feature.CENTROID));
+		RegionFeatures3D.Result[] res = algo.analyzeRegions(image, labels, new Calibration());
+
+		assertEquals(2, res.length);
+		for (int i = 0; i < 2; i++)
+		{
+			assertEquals(counts[i], res[i].voxelCount);
+			assertEquals(counts[i], res[i].volume, 1e-10);
+			assertTrue(Double.isNaN(res[i].surfaceArea));
+			assertTrue(res[i].centroid != null);
+			assertNull(res[i].ellipsoid);
+			assertNull(res[i].boundingBox);
+		}
+	}
+
+	/**
+	 * Creates a label image containing overlapping random boxes with
+	 * arbitrary label values.
+	 */
+	private static final ImageStack createBlobsImage()
+	{
+		ImageStack image = ImageStack.create(30, 25, 20, 16);
+		Random random = new Random(42);
+		int[] labelValues = new int[] {3, 12, 7, 1000, 255, 28};
+		for (int label : labelValues)
+		{
+			int x0 = random.nextInt(20), y0 = random.nextInt(15), z0 = random.nextInt(10);
+			int x1 = x0 + 3 + random.nextInt(10), y1 = y0 + 3 + random.nextInt(10), z1 = z0 + 3 + random.nextInt(10);
+			for (int z = z0; z < Math.min(z1, 20); z++)
+			{
+				for (int y = y0; y < Math.min(y1, 25); y++)
+				{
+					for (int x = x0; x < Math.min(x1, 30); x++)
+					{
+						// skew the boxes to obtain oriented regions
+						if ((x - x0) + (y - y0) < (x1 - x0))
+						{
+							image.setVoxel(x, y, z, label);
+						}
+					}
+				}
+			}
+		}
+		return image;
+	}
+
+	private static final Calibration createCalibration()
+	{
+		Calibration calib = new Calibration();
+		calib.pixelWidth = 0.5;
+		calib.pixelHeight = 0.8;
+		calib.pixelDepth = 1.5;
+		calib.xOrigin = -10;
+		calib.yOrigin = 5;
+		calib.zOrigin = 2;
+		return calib;
+	}
+}
@@ -38,7 +38,8 @@ import org.junit.runners.Suite;
 	ReconstructionTest.class,
 	Reconstruction3DTest.class,
 	MinimaAndMaximaTest.class,
-	MinimaAndMaxima3DTest.class
+	MinimaAndMaxima3DTest.class,
+	AttributeFilteringTest.class
 	})
 public class AllTests {
   //nothing
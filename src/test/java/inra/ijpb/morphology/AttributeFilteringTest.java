@@ -0,0 +1,60 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.morphology;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import org.junit.Test;
+
+import ij.IJ;
+import ij.ImagePlus;
+import ij.process.ImageProcessor;
+
+public class AttributeFilteringTest
+{
+	/**
+	 * Test method for {@link inra.ijpb.morphology.AttributeFiltering#areaOpenings(ImageProcessor, int...)}.
+	 */
+	@Test
+	public void testAreaOpenings_SameAsAreaOpening()
+	{
+		String fileName = getClass().getResource("/files/grains.tif").getFile();
+		ImagePlus imagePlus = IJ.openImage(fileName);
+		assertNotNull(imagePlus);
+		ImageProcessor image = imagePlus.getProcessor();
+
+		int[] minAreas = new int[] { 10, 100, 1000 };
+		ImageProcessor[] results = AttributeFiltering.areaOpenings(image, minAreas);
+		assertEquals(minAreas.length, results.length);
+
+		for (int k = 0; k < minAreas.length; k++)
+		{
+			ImageProcessor expected = AttributeFiltering.areaOpening(image, minAreas[k]);
+			assertEquals(image.getBitDepth(), results[k].getBitDepth());
+			for (int i = 0; i < image.getPixelCount(); i++)
+			{
+				assertEquals(expected.get(i), results[k].get(i));
+			}
+		}
+	}
+}
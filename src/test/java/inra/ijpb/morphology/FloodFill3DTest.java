@@ -215,6 +215,37 @@ public class FloodFill3DTest {
 		assertEquals(newVal, result.getVoxel(4, 4, 8), .01);
 	}
 	
+	/**
+	 * Fills the cross and the background using seeds given all at once.
+	 */
+	@Test
+	public final void testFloodFillFloat_MultipleSeeds() {
+		ImageStack image = createCornerCross();
+		ImageStack result = ImageStack.create(image.getWidth(), image.getHeight(), image.getSize(), 8);
+		
+		int[] xSeeds = new int[] {0, 4, 8};
+		int[] ySeeds = new int[] {0, 4, 8};
+		int[] zSeeds = new int[] {0, 4, 0};
+		float[] values = new float[] {10, 20, 30};
+		
+		// with 6-connectivity, branches are not connected to the center
+		FloodFill3D.floodFillFloat(image, xSeeds, ySeeds, zSeeds, result, values, 6);
+		assertEquals(30, result.getVoxel(0, 0, 0), .01);
+		assertEquals(30, result.getVoxel(8, 8, 8), .01);
+		assertEquals(20, result.getVoxel(4, 4, 4), .01);
+		assertEquals(0, result.getVoxel(3, 3, 3), .01);
+		assertEquals(0, result.getVoxel(0, 4, 4), .01);
+		assertEquals(0, result.getVoxel(4, 4, 8), .01);
+		
+		// with 26-connectivity, the whole cross is filled
+		result = ImageStack.create(image.getWidth(), image.getHeight(), image.getSize(), 8);
+		FloodFill3D.floodFillFloat(image, xSeeds, ySeeds, zSeeds, result, values, 26);
+		assertEquals(30, result.getVoxel(0, 0, 0), .01);
+		assertEquals(20, result.getVoxel(4, 4, 4), .01);
+		assertEquals(20, result.getVoxel(0, 4, 4), .01);
+		assertEquals(20, result.getVoxel(4, 4, 8), .01);
+	}
+	
 	/**
 	 * Creates a stack representing a cross with branches touching only by corners.
 	 */
@@ -257,6 +257,48 @@ public class FloodFillTest {
 //		printImage(result);
 	}
 	
+	/**
+	 * Fills the four squares and the background of the image using seeds
+	 * given all at once.
+	 */
+	@Test
+	public final void testFloodFillFloat_MultipleSeeds() {
+		int[] data = new int[]{
+				10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10,
+				10, 20, 20, 20, 10, 10, 10, 30, 30, 30, 10,
+				10, 20, 20, 20, 10, 10, 10, 30, 30, 30, 10,
+				10, 20, 20, 20, 10, 10, 10, 30, 30, 30, 10,
+				10, 10, 10, 10, 40, 40, 40, 10, 10, 10, 10,
+				10, 10, 10, 10, 40, 40, 40, 10, 10, 10, 10,
+				10, 10, 10, 10, 40, 40, 40, 10, 10, 10, 10,
+				10, 20, 20, 20, 10, 10, 10, 30, 30, 30, 10,
+				10, 20, 20, 20, 10, 10, 10, 30, 30, 30, 10,
+				10, 20, 20, 20, 10, 10, 10, 30, 30, 30, 10,
+				10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10
+		};
+		ImageProcessor image = new ByteProcessor(11, 11);
+		for (int i = 0; i < 11*11; i++) {
+			image.set(i, data[i]);
+		}
+		ImageProcessor result = new ByteProcessor(11, 11);
+
+		// one seed for each region, in arbitrary order
+		int[] xSeeds = new int[] {5, 2, 8, 0, 2, 8};
+		int[] ySeeds = new int[] {5, 2, 2, 0, 8, 8};
+		float[] values = new float[] {5, 1, 2, 6, 3, 4};
+		FloodFill.floodFillFloat(image, xSeeds, ySeeds, result, values, 4);
+		
+		assertEquals(6, result.get(0, 0));
+		assertEquals(6, result.get(10, 10));
+		assertEquals(6, result.get(5, 3));
+		assertEquals(1, result.get(1, 1));
+		assertEquals(1, result.get(3, 3));
+		assertEquals(2, result.get(9, 1));
+		assertEquals(3, result.get(1, 9));
+		assertEquals(4, result.get(9, 9));
+		assertEquals(5, result.get(4, 4));
+		assertEquals(5, result.get(6, 6));
+	}
 	
 	/**
 	 * Creates a stack representing a cross with branches touching only by corners.
@@ -22,11 +22,19 @@
 package inra.ijpb.morphology;
 
 import static org.junit.Assert.*;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Random;
+
 import ij.IJ;
 import ij.ImagePlus;
+import ij.ImageStack;
 import ij.process.ByteProcessor;
 import ij.process.ColorProcessor;
 import ij.process.ImageProcessor;
+import inra.ijpb.data.image.ColorImages;
+import inra.ijpb.morphology.strel.CubeStrel;
 import inra.ijpb.morphology.strel.SquareStrel;
 
 import org.junit.Test;
@@ -197,4 +205,46 @@ public class MorphologyTest {
 		assertNotNull(Morphology.whiteTopHat(image, strel));
 
 	}
+	
+	/**
+	 * Tests that dilation and erosion of a RGB stack by a cube process each
+	 * channel independently.
+	 */
+	@Test
+	public void testDilationErosion_Cube_RGBStack() {
+		ImageStack image = ImageStack.create(12, 10, 8, 24);
+		Random random = new Random(42);
+		for (int z = 0; z < 8; z++) {
+			for (int y = 0; y < 10; y++) {
+				for (int x = 0; x < 12; x++) {
+					image.setVoxel(x, y, z, random.nextInt(0x1000000));
+				}
+			}
+		}
+		
+		Strel3D strel = CubeStrel.fromRadius(2);
+		ImageStack dilation = Morphology.dilation(image, strel);
+		ImageStack erosion = Morphology.erosion(image, strel);
+		assertNotNull(dilation);
+		assertNotNull(erosion);
+		
+		Collection<ImageStack> channels = ColorImages.splitChannels(image);
+		Iterator<ImageStack> dilChannels = ColorImages.splitChannels(dilation).iterator();
+		Iterator<ImageStack> eroChannels = ColorImages.splitChannels(erosion).iterator();
+		for (ImageStack channel : channels) {
+			assertSameStacks(Morphology.dilation(channel, strel), dilChannels.next());
+			assertSameStacks(Morphology.erosion(channel, strel), eroChannels.next());
+		}
+	}
+	
+	private static final void assertSameStacks(ImageStack image1, ImageStack image2) {
+		assertEquals(image1.getSize(), image2.getSize());
+		for (int z = 0; z < image1.getSize(); z++) {
+			for (int y = 0; y < image1.getHeight(); y++) {
+				for (int x = 0; x < image1.getWidth(); x++) {
+					assertEquals(image1.getVoxel(x, y, z), image2.getVoxel(x, y, z), 0);
+				}
+			}
+		}
+	}
 }
@@ -29,7 +29,10 @@ import org.junit.runners.Suite;
 @Suite.SuiteClasses({
 	// generic classes
 	AreaOpeningQueueTest.class,
+	AreaOpeningUnionFindTest.class,
+	ComponentTreeTest.class,
 	SizeOpening3DQueueTest.class,
+	SizeOpening3DUnionFindTest.class,
 	})
 public class AllTests {
   //nothing
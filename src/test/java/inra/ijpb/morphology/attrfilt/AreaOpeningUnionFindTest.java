@@ -0,0 +1,135 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.morphology.attrfilt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import ij.IJ;
+import ij.ImagePlus;
+import ij.process.ByteProcessor;
+import ij.process.ImageProcessor;
+
+import org.junit.Test;
+
+public class AreaOpeningUnionFindTest
+{
+	@Test
+	public void testProcess()
+	{
+		int sizeX = 4;
+		int sizeY = 4;
+		ImageProcessor image = new ByteProcessor(sizeX, sizeY);
+		image.set(1, 1, 5);
+		image.set(2, 1, 4);
+		image.set(1, 2, 3);
+		image.set(2, 2, 2);
+		
+		AreaOpening algo = new AreaOpeningUnionFind();
+
+		ImageProcessor output = algo.process(image, 4);
+		
+		assertEquals(2, output.get(1, 1));
+		assertEquals(2, output.get(2, 1));
+		assertEquals(2, output.get(1, 2));
+		assertEquals(2, output.get(2, 2));
+	}
+	
+	@Test
+	public void testProcessTwoMaxima()
+	{
+		int sizeX = 6;
+		int sizeY = 4;
+		ImageProcessor image = new ByteProcessor(sizeX, sizeY);
+		image.set(1, 1, 5);
+		image.set(1, 2, 4);
+		image.set(2, 1, 3);
+		image.set(2, 2, 2);
+		image.set(3, 1, 6);
+		image.set(3, 2, 5);
+		
+		AreaOpening algo = new AreaOpeningUnionFind();
+
+		ImageProcessor output = algo.process(image, 4);
+		
+		assertEquals(3, output.get(1, 1));
+		assertEquals(3, output.get(2, 1));
+		assertEquals(3, output.get(3, 1));
+		assertEquals(3, output.get(1, 2));
+		assertEquals(2, output.get(2, 2));
+		assertEquals(3, output.get(3, 2));
+	}
+
+	/**
+	 * Compares the result on a real image with the result of the naive
+	 * algorithm, and checks 16-bits and float images give the same result.
+	 */
+	@Test
+	public void testProcessGrains()
+	{
+		String fileName = getClass().getResource("/files/grains.tif").getFile();
+		ImagePlus imagePlus = IJ.openImage(fileName);
+		assertNotNull(imagePlus);
+		ImageProcessor image = imagePlus.getProcessor();
+		
+		for (int minArea : new int[] {10, 150})
+		{
+			ImageProcessor expected = new AreaOpeningNaive().process(image, minArea);
+			
+			ImageProcessor result8 = new AreaOpeningUnionFind().process(image, minArea);
+			ImageProcessor result16 = new AreaOpeningUnionFind().process(image.convertToShort(false), minArea);
+			ImageProcessor result32 = new AreaOpeningUnionFind().process(image.convertToFloat(), minArea);
+			
+			for (int i = 0; i < image.getPixelCount(); i++)
+			{
+				assertEquals(expected.get(i), result8.get(i));
+				assertEquals(expected.get(i), result16.get(i));
+				assertEquals(expected.get(i), result32.getf(i), .01);
+			}
+		}
+	}
+
+	/**
+	 * Compares the result with C8 connectivity with the result of the
+	 * priority queue algorithm.
+	 */
+	@Test
+	public void testProcessGrains_C8()
+	{
+		String fileName = getClass().getResource("/files/grains.tif").getFile();
+		ImagePlus imagePlus = IJ.openImage(fileName);
+		assertNotNull(imagePlus);
+		ImageProcessor image = imagePlus.getProcessor();
+		
+		AreaOpeningQueue algo1 = new AreaOpeningQueue();
+		algo1.setConnectivity(8);
+		ImageProcessor expected = algo1.process(image, 50);
+		
+		AreaOpeningUnionFind algo2 = new AreaOpeningUnionFind();
+		algo2.setConnectivity(8);
+		ImageProcessor result = algo2.process(image, 50);
+		
+		for (int i = 0; i < image.getPixelCount(); i++)
+		{
+			assertEquals(expected.get(i), result.get(i));
+		}
+	}
+}
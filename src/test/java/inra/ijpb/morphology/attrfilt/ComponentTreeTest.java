@@ -0,0 +1,236 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.morphology.attrfilt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import ij.IJ;
+import ij.ImagePlus;
+import ij.ImageStack;
+import ij.process.ByteProcessor;
+import ij.process.ImageProcessor;
+
+public class ComponentTreeTest
+{
+	/**
+	 * Checks the structure of the max-tree of a small image with two
+	 * regional maxima.
+	 */
+	@Test
+	public void testMaxTree_TwoMaxima()
+	{
+		ImageProcessor image = createTwoMaximaImage();
+		
+		ComponentTree tree = ComponentTree.maxTree(image, 4);
+		
+		// levels 0, 2, 3, 4 and 5 on the left, 5 and 6 on the right
+		assertEquals(7, tree.nodeCount());
+		assertTrue(tree.isMaxTree());
+		assertEquals(0, tree.level(0), .01);
+		
+		int node6 = tree.node(3, 1, 0);
+		int node5 = tree.node(3, 2, 0);
+		assertEquals(6, tree.level(node6), .01);
+		assertEquals(node5, tree.parent(node6));
+		assertEquals(tree.node(2, 1, 0), tree.parent(node5));
+		
+		double[] area = tree.attribute(ComponentTree.Attribute.AREA);
+		assertEquals(24, area[0], .01);
+		assertEquals(2, area[node5], .01);
+		assertEquals(5, area[tree.node(2, 1, 0)], .01);
+		
+		double[] diag = tree.attribute(ComponentTree.Attribute.BOX_DIAGONAL);
+		assertEquals(0, diag[node6], .01);
+		assertEquals(1, diag[node5], .01);
+		
+		double[] height = tree.attribute(ComponentTree.Attribute.HEIGHT);
+		assertEquals(6, height[0], .01);
+		assertEquals(1, height[node5], .01);
+		
+		double[] volume = tree.attribute(ComponentTree.Attribute.VOLUME);
+		// (6-3) + (5-3)
+		assertEquals(5, volume[node5], .01);
+	}
+	
+	/**
+	 * Checks that area filtering gives the same result as area opening, for
+	 * each filtering rule and several thresholds computed on the same tree.
+	 */
+	@Test
+	public void testFilterImage_AreaSameAsAreaOpening()
+	{
+		ImageProcessor image = readGrains();
+		
+		for (int conn : new int[] {4, 8})
+		{
+			ComponentTree tree = ComponentTree.maxTree(image, conn);
+			for (int minArea : new int[] {10, 150})
+			{
+				AreaOpeningUnionFind algo = new AreaOpeningUnionFind();
+				algo.setConnectivity(conn);
+				ImageProcessor expected = algo.process(image, minArea);
+				
+				for (ComponentTree.Rule rule : ComponentTree.Rule.values())
+				{
+					ImageProcessor result = tree.filterImage(ComponentTree.Attribute.AREA, minArea, rule);
+					for (int i = 0; i < image.getPixelCount(); i++)
+					{
+						assertEquals(expected.get(i), result.get(i));
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Checks that area filtering of the min-tree gives the same result as
+	 * area opening of the inverted image.
+	 */
+	@Test
+	public void testFilterImage_MinTreeSameAsAreaClosing()
+	{
+		ImageProcessor image = readGrains();
+		ImageProcessor inverted = image.duplicate();
+		inverted.invert();
+		ImageProcessor expected = new AreaOpeningUnionFind().process(inverted, 50);
+		expected.invert();
+
+		ComponentTree tree = ComponentTree.minTree(image, 4);
+		ImageProcessor result = tree.filterImage(ComponentTree.Attribute.AREA, 50, ComponentTree.Rule.DIRECT);
+		for (int i = 0; i < image.getPixelCount(); i++)
+		{
+			assertEquals(expected.get(i), result.get(i));
+		}
+	}
+	
+	/**
+	 * Checks the effect of the different rules on a non increasing
+	 * attribute.
+	 */
+	@Test
+	public void testFilterImage_Rules()
+	{
+		// a horizontal line at level 8, within a compact component at level 4
+		ImageProcessor image = new ByteProcessor(9, 3);
+		for (int x = 3; x < 6; x++)
+		{
+			image.set(x, 0, 4);
+			image.set(x, 2, 4);
+		}
+		for (int x = 1; x < 8; x++)
+		{
+			image.set(x, 1, 8);
+		}
+		ComponentTree tree = ComponentTree.maxTree(image, 4);
+		assertEquals(3, tree.nodeCount());
+		
+		// inertia of the component at level 4 is 38/13, inertia of the line
+		// is 4, so only the line fulfills the criterion
+		ComponentTree.Attribute attr = ComponentTree.Attribute.INERTIA;
+		double[] inertia = tree.attribute(attr);
+		assertEquals(38.0 / 13.0, inertia[tree.node(4, 0, 0)], .01);
+		assertEquals(4.0, inertia[tree.node(4, 1, 0)], .01);
+		
+		ImageProcessor direct = tree.filterImage(attr, 3.5, ComponentTree.Rule.DIRECT);
+		assertEquals(0, direct.get(4, 0));
+		assertEquals(8, direct.get(4, 1));
+		
+		ImageProcessor min = tree.filterImage(attr, 3.5, ComponentTree.Rule.MIN);
+		assertEquals(0, min.get(4, 0));
+		assertEquals(0, min.get(4, 1));
+		
+		ImageProcessor max = tree.filterImage(attr, 3.5, ComponentTree.Rule.MAX);
+		assertEquals(4, max.get(4, 0));
+		assertEquals(8, max.get(4, 1));
+		
+		ImageProcessor sub = tree.filterImage(attr, 3.5, ComponentTree.Rule.SUBTRACTIVE);
+		assertEquals(0, sub.get(4, 0));
+		assertEquals(4, sub.get(4, 1));
+	}
+	
+	/**
+	 * Checks that volume filtering of 3D images gives the same result as size
+	 * opening.
+	 */
+	@Test
+	public void testFilterStack_SameAsSizeOpening()
+	{
+		ImageStack image = ImageStack.create(12, 10, 8, 8);
+		Random random = new Random(42);
+		for (int z = 0; z < 8; z++)
+		{
+			for (int y = 0; y < 10; y++)
+			{
+				for (int x = 0; x < 12; x++)
+				{
+					image.setVoxel(x, y, z, random.nextInt(40));
+				}
+			}
+		}
+		
+		for (int conn : new int[] {6, 26})
+		{
+			SizeOpening3DUnionFind algo = new SizeOpening3DUnionFind();
+			algo.setConnectivity(conn);
+			ImageStack expected = algo.process(image, 12);
+			
+			ComponentTree tree = ComponentTree.maxTree(image, conn);
+			ImageStack result = tree.filterStack(ComponentTree.Attribute.AREA, 12, ComponentTree.Rule.DIRECT);
+			for (int z = 0; z < 8; z++)
+			{
+				for (int y = 0; y < 10; y++)
+				{
+					for (int x = 0; x < 12; x++)
+					{
+						assertEquals(expected.getVoxel(x, y, z), result.getVoxel(x, y, z), .01);
+					}
+				}
+			}
+		}
+	}
+	
+	private static final ImageProcessor createTwoMaximaImage()
+	{
+		ImageProcessor image = new ByteProcessor(6, 4);
+		image.set(1, 1, 5);
+		image.set(1, 2, 4);
+		image.set(2, 1, 3);
+		image.set(2, 2, 2);
+		image.set(3, 1, 6);
+		image.set(3, 2, 5);
+		return image;
+	}
+	
+	private ImageProcessor readGrains()
+	{
+		String fileName = getClass().getResource("/files/grains.tif").getFile();
+		ImagePlus imagePlus = IJ.openImage(fileName);
+		assertNotNull(imagePlus);
+		return imagePlus.getProcessor();
+	}
+}
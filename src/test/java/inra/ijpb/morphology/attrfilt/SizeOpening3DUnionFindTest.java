@@ -0,0 +1,135 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.morphology.attrfilt;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import ij.ImageStack;
+
+import org.junit.Test;
+
+/**
+ * @author agent
+ *
+ */
+public class SizeOpening3DUnionFindTest
+{
+
+	/**
+	 * Test method for {@link inra.ijpb.morphology.attrfilt.SizeOpening3DUnionFind#process(ij.ImageStack, int)}.
+	 */
+	@Test
+	public void testProcess()
+	{
+		ImageStack image = ImageStack.create(6, 6, 6, 8);
+		for (int z = 1; z < 5; z++)
+		{
+			for (int y = 1; y < 5; y++)
+			{				
+				for (int x = 1; x < 5; x++)
+				{
+					image.setVoxel(x, y, z, 10);
+				}
+			}
+		}
+		
+		for (int z = 2; z < 5; z++)
+		{
+			for (int y = 2; y < 5; y++)
+			{				
+				for (int x = 2; x < 5; x++)
+				{
+					image.setVoxel(x, y, z, 20);
+				}
+			}
+		}
+		
+		image.setVoxel(2, 2, 2, 50);
+		image.setVoxel(4, 2, 2, 60);
+		image.setVoxel(2, 4, 2, 70);
+		image.setVoxel(4, 4, 2, 80);
+		image.setVoxel(2, 2, 4, 90);
+		image.setVoxel(4, 2, 4, 110);
+		image.setVoxel(2, 4, 4, 120);
+		image.setVoxel(4, 4, 4, 130);
+		
+		SizeOpening3D algo = new SizeOpening3DUnionFind();
+		
+		ImageStack result = algo.process(image, 4);
+		
+		assertEquals(10, result.getVoxel(1, 1, 1), .1);
+		assertEquals(10, result.getVoxel(4, 1, 1), .1);
+		assertEquals(10, result.getVoxel(1, 4, 1), .1);
+		assertEquals(10, result.getVoxel(4, 4, 1), .1);
+		assertEquals(10, result.getVoxel(1, 1, 4), .1);
+		assertEquals(10, result.getVoxel(4, 1, 4), .1);
+		assertEquals(10, result.getVoxel(1, 4, 4), .1);
+		
+		assertEquals(20, result.getVoxel(2, 2, 2), .1);
+		assertEquals(20, result.getVoxel(4, 4, 4), .1);
+	}
+
+	/**
+	 * Compares the result on a random image with the result of the priority
+	 * queue algorithm, for both connectivities.
+	 */
+	@Test
+	public void testProcess_SameAsQueue()
+	{
+		ImageStack image = ImageStack.create(12, 10, 8, 16);
+		Random random = new Random(42);
+		for (int z = 0; z < 8; z++)
+		{
+			for (int y = 0; y < 10; y++)
+			{
+				for (int x = 0; x < 12; x++)
+				{
+					image.setVoxel(x, y, z, random.nextInt(40) * 100);
+				}
+			}
+		}
+		
+		for (int conn : new int[] {6, 26})
+		{
+			SizeOpening3DQueue algo1 = new SizeOpening3DQueue();
+			algo1.setConnectivity(conn);
+			ImageStack expected = algo1.process(image, 12);
+
+			SizeOpening3DUnionFind algo2 = new SizeOpening3DUnionFind();
+			algo2.setConnectivity(conn);
+			ImageStack result = algo2.process(image, 12);
+			
+			for (int z = 0; z < 8; z++)
+			{
+				for (int y = 0; y < 10; y++)
+				{
+					for (int x = 0; x < 12; x++)
+					{
+						assertEquals(expected.getVoxel(x, y, z), result.getVoxel(x, y, z), .1);
+					}
+				}
+			}
+		}
+	}
+}
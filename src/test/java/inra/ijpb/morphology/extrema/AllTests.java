@@ -29,7 +29,10 @@ import org.junit.runners.Suite;
 @Suite.SuiteClasses({
 	// generic classes
 	RegionalExtrema3DByFloodingTest.class,
-	RegionalExtremaByFloodingTest.class
+	RegionalExtremaByFloodingTest.class,
+	RegionalExtrema3DByUnionFindTest.class,
+	RegionalExtremaByUnionFindTest.class,
+	ExtremaDynamicsTest.class
 	})
 public class AllTests {
   //nothing
@@ -0,0 +1,236 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.morphology.extrema;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import ij.IJ;
+import ij.ImagePlus;
+import ij.ImageStack;
+import ij.process.ByteProcessor;
+import ij.process.ImageProcessor;
+import inra.ijpb.binary.BinaryImages;
+import inra.ijpb.data.image.Image3D;
+import inra.ijpb.data.image.Images3D;
+import inra.ijpb.morphology.MinimaAndMaxima;
+import inra.ijpb.morphology.MinimaAndMaxima3D;
+import inra.ijpb.morphology.Reconstruction3D;
+import inra.ijpb.morphology.geodrec.GeodesicReconstructionAlgo;
+import inra.ijpb.morphology.geodrec.GeodesicReconstructionHybrid;
+import inra.ijpb.morphology.geodrec.GeodesicReconstructionType;
+
+public class ExtremaDynamicsTest {
+
+	/**
+	 * Test method for {@link inra.ijpb.morphology.extrema.ExtremaDynamics#dynamic(int)}.
+	 */
+	@Test
+	public final void testDynamics_Maxima_Conn4() {
+		ImageProcessor image = createBlocksImage();
+		
+		ExtremaDynamics dynamics = ExtremaDynamics.compute(image, ExtremaType.MAXIMA, 4);
+		
+		// two blocks with value 20, two blocks with value 30, one with 40
+		assertEquals(5, dynamics.extremaCount());
+		
+		ImageProcessor map = dynamics.dynamicsMap();
+		assertEquals(0, map.getf(0, 0), .01);
+		assertEquals(10, map.getf(1, 1), .01);
+		assertEquals(20, map.getf(9, 1), .01);
+		assertEquals(30, map.getf(5, 5), .01);
+		assertEquals(10, map.getf(1, 9), .01);
+		assertEquals(0, map.getf(10, 10), .01);
+	}
+
+	/**
+	 * Test method for {@link inra.ijpb.morphology.extrema.ExtremaDynamics#extendedExtrema(double)}.
+	 */
+	@Test
+	public final void testExtendedExtrema_Maxima_Conn4() {
+		ImageProcessor image = createBlocksImage();
+		
+		ExtremaDynamics dynamics = ExtremaDynamics.compute(image, ExtremaType.MAXIMA, 4);
+		
+		ImageProcessor maxima = dynamics.extendedExtrema(15);
+		assertEquals(0, maxima.get(0, 0));
+		assertEquals(0, maxima.get(1, 1));
+		assertEquals(255, maxima.get(9, 1));
+		assertEquals(255, maxima.get(5, 5));
+		assertEquals(0, maxima.get(10, 10));
+		
+		// the deepest maximum and its neighborhood form a single region
+		maxima = dynamics.extendedExtrema(35);
+		for (int i = 0; i < 11 * 11; i++) {
+			assertEquals(255, maxima.get(i));
+		}
+	}
+
+	/**
+	 * Checks that the extended minima and maxima of a grayscale image are the
+	 * same as the ones obtained with geodesic reconstruction, for several
+	 * values of the dynamic.
+	 */
+	@Test
+	public final void testExtendedExtrema_Grains() {
+		String fileName = getClass().getResource("/files/grains.tif").getFile();
+		ImagePlus imagePlus = IJ.openImage(fileName);
+		assertNotNull(imagePlus);
+		ImageProcessor image = imagePlus.getProcessor();
+		
+		for (int conn : new int[] {4, 8}) {
+			ExtremaDynamics minima = ExtremaDynamics.compute(image, ExtremaType.MINIMA, conn);
+			ExtremaDynamics maxima = ExtremaDynamics.compute(image, ExtremaType.MAXIMA, conn);
+			for (int dyn : new int[] {0, 3, 10, 25, 250}) {
+				ImageProcessor marker = image.duplicate();
+				marker.add(dyn);
+				GeodesicReconstructionAlgo algo = new GeodesicReconstructionHybrid(
+						GeodesicReconstructionType.BY_EROSION, conn);
+				ImageProcessor expMinima = MinimaAndMaxima.regionalMinima(algo.applyTo(marker, image), conn);
+				assertSameImages(expMinima, minima.extendedExtrema(dyn));
+				
+				algo = new GeodesicReconstructionHybrid(
+						GeodesicReconstructionType.BY_DILATION, conn);
+				ImageProcessor expMaxima = MinimaAndMaxima.regionalMaxima(algo.applyTo(image, marker), conn);
+				assertSameImages(expMaxima, maxima.extendedExtrema(dyn));
+			}
+		}
+	}
+
+	/**
+	 * Checks that the extended minima of a 3D image are the same as the ones
+	 * obtained with geodesic reconstruction.
+	 */
+	@Test
+	public final void testExtendedExtrema_3D() {
+		ImageStack image = ImageStack.create(12, 10, 8, 32);
+		for (int z = 0; z < 8; z++) {
+			for (int y = 0; y < 10; y++) {
+				for (int x = 0; x < 12; x++) {
+					double value = 10 * Math.cos(x * .9) * Math.sin(y * .7) + 5 * Math.cos(z * 1.1) + (x * 7 + y * 3 + z) % 5;
+					image.setVoxel(x, y, z, value);
+				}
+			}
+		}
+		
+		for (int conn : new int[] {6, 26}) {
+			ExtremaDynamics dynamics = ExtremaDynamics.compute(image, ExtremaType.MINIMA, conn);
+			for (double dyn : new double[] {0, 1.5, 4, 12, 100}) {
+				ImageStack marker = image.duplicate();
+				for (int z = 0; z < 8; z++) {
+					marker.getProcessor(z + 1).add(dyn);
+				}
+				ImageStack rec = Reconstruction3D.reconstructByErosion(marker, image, conn);
+				ImageStack expMinima = MinimaAndMaxima3D.regionalMinima(rec, conn);
+				
+				ImageStack minima = dynamics.extendedExtremaStack(dyn);
+				for (int z = 0; z < 8; z++) {
+					assertSameImages(expMinima.getProcessor(z + 1), minima.getProcessor(z + 1));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks that the extended extrema of 8-bit stacks are the same as the
+	 * ones obtained with geodesic reconstruction for non integer dynamics,
+	 * the dynamic being rounded when it is added to an 8-bit stack.
+	 */
+	@Test
+	public final void testExtendedExtrema_3D_Gray8() {
+		String fileName = getClass().getResource("/files/grains.tif").getFile();
+		ImagePlus imagePlus = IJ.openImage(fileName);
+		assertNotNull(imagePlus);
+		ImageStack image = imagePlus.getStack();
+		
+		ExtremaDynamics minima = ExtremaDynamics.compute(image, ExtremaType.MINIMA, 6);
+		ExtremaDynamics maxima = ExtremaDynamics.compute(image, ExtremaType.MAXIMA, 6);
+		for (double dyn : new double[] {0.4, 0.5, 1.5, 2.6}) {
+			ImageStack shifted = ImageStack.create(image.getWidth(), image.getHeight(), image.getSize(), 8);
+			Image3D image2 = Images3D.createWrapper(image);
+			Image3D shifted2 = Images3D.createWrapper(shifted);
+			for (int y = 0; y < image.getHeight(); y++) {
+				for (int x = 0; x < image.getWidth(); x++) {
+					shifted2.setValue(x, y, 0, image2.getValue(x, y, 0) + dyn);
+				}
+			}
+			
+			ImageStack rec = Reconstruction3D.reconstructByErosion(shifted, image, 6);
+			ImageStack expMinima = MinimaAndMaxima3D.regionalMinima(rec, 6);
+			assertSameImages(expMinima.getProcessor(1), minima.extendedExtremaStack(dyn).getProcessor(1));
+			
+			rec = Reconstruction3D.reconstructByDilation(image, shifted, 6);
+			ImageStack expMaxima = MinimaAndMaxima3D.regionalMaxima(rec, 6);
+			assertSameImages(expMaxima.getProcessor(1), maxima.extendedExtremaStack(dyn).getProcessor(1));
+		}
+	}
+
+	/**
+	 * Checks that labels of extended extrema are the same as the connected
+	 * components of the binary image of extended extrema.
+	 */
+	@Test
+	public final void testExtendedExtremaLabels_Grains() {
+		String fileName = getClass().getResource("/files/grains.tif").getFile();
+		ImagePlus imagePlus = IJ.openImage(fileName);
+		assertNotNull(imagePlus);
+		ImageProcessor image = imagePlus.getProcessor();
+		
+		for (int conn : new int[] {4, 8}) {
+			ExtremaDynamics dynamics = ExtremaDynamics.compute(image, ExtremaType.MINIMA, conn);
+			for (int dyn : new int[] {0, 5, 20}) {
+				ImageProcessor expected = BinaryImages.componentsLabeling(dynamics.extendedExtrema(dyn), conn, 16);
+				assertSameImages(expected, dynamics.extendedExtremaLabels(dyn, 16));
+			}
+		}
+	}
+
+	private static final ImageProcessor createBlocksImage() {
+		int[] data = new int[]{
+				10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10,
+				10, 20, 20, 20, 10, 10, 10, 30, 30, 30, 10,
+				10, 20, 20, 20, 10, 10, 10, 30, 30, 30, 10,
+				10, 20, 20, 20, 10, 10, 10, 30, 30, 30, 10,
+				10, 10, 10, 10, 40, 40, 40, 10, 10, 10, 10,
+				10, 10, 10, 10, 40, 40, 40, 10, 10, 10, 10,
+				10, 10, 10, 10, 40, 40, 40, 10, 10, 10, 10,
+				10, 20, 20, 20, 10, 10, 10, 30, 30, 30, 10,
+				10, 20, 20, 20, 10, 10, 10, 30, 30, 30, 10,
+				10, 20, 20, 20, 10, 10, 10, 30, 30, 30, 10,
+				10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10
+		};
+		ImageProcessor image = new ByteProcessor(11, 11);
+		for (int i = 0; i < 11 * 11; i++) {
+			image.set(i, data[i]);
+		}
+		return image;
+	}
+	
+	private static final void assertSameImages(ImageProcessor expected, ImageProcessor actual) {
+		assertEquals(expected.getWidth(), actual.getWidth());
+		assertEquals(expected.getHeight(), actual.getHeight());
+		for (int i = 0; i < expected.getPixelCount(); i++) {
+			assertEquals(expected.get(i), actual.get(i));
+		}
+	}
+}
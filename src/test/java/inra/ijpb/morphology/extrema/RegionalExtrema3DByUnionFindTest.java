@@ -0,0 +1,119 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.morphology.extrema;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import ij.IJ;
+import ij.ImagePlus;
+import ij.ImageStack;
+import inra.ijpb.binary.BinaryImages;
+
+public class RegionalExtrema3DByUnionFindTest {
+
+	/**
+	 * Checks that the result is the same as the one obtained with flooding.
+	 */
+	@Test
+	public final void testApplyTo_SameAsFlooding() {
+		ImageStack image = createTestImage();
+		
+		for (ExtremaType type : ExtremaType.values()) {
+			for (int conn : new int[] {6, 26}) {
+				RegionalExtrema3DAlgo flooding = new RegionalExtrema3DByFlooding();
+				flooding.setExtremaType(type);
+				flooding.setConnectivity(conn);
+				ImageStack expected = flooding.applyTo(image);
+				
+				RegionalExtrema3DByUnionFind algo = new RegionalExtrema3DByUnionFind(type, conn);
+				ImageStack result = algo.applyTo(image);
+				assertSameStacks(expected, result);
+			}
+		}
+	}
+
+	/**
+	 * Checks that labels are the same as the connected components of the
+	 * binary result.
+	 */
+	@Test
+	public final void testLabelExtrema_SameAsComponentsLabeling() {
+		ImageStack image = createTestImage();
+		
+		for (int conn : new int[] {6, 26}) {
+			RegionalExtrema3DByUnionFind algo = new RegionalExtrema3DByUnionFind(ExtremaType.MAXIMA, conn);
+			ImageStack expected = BinaryImages.componentsLabeling(algo.applyTo(image), conn, 16);
+			ImageStack labels = algo.labelExtrema(image, 16);
+			assertSameStacks(expected, labels);
+		}
+	}
+
+	/**
+	 * Checks that voxels outside of the mask are not extrema.
+	 */
+	@Test
+	public final void testApplyTo_Mask() {
+		ImageStack image = ImageStack.create(5, 5, 5, 8);
+		ImageStack mask = ImageStack.create(5, 5, 5, 8);
+		for (int z = 0; z < 5; z++) {
+			for (int y = 0; y < 5; y++) {
+				for (int x = 0; x < 5; x++) {
+					image.setVoxel(x, y, z, x + 10);
+					if (x >= 2)
+						mask.setVoxel(x, y, z, 255);
+				}
+			}
+		}
+		
+		RegionalExtrema3DByUnionFind algo = new RegionalExtrema3DByUnionFind(ExtremaType.MINIMA, 6);
+		ImageStack minima = algo.applyTo(image, mask);
+		
+		// the minimum within the mask is the first plane of the mask
+		for (int z = 0; z < 5; z++) {
+			for (int y = 0; y < 5; y++) {
+				assertEquals(0, minima.getVoxel(0, y, z), .01);
+				assertEquals(0, minima.getVoxel(1, y, z), .01);
+				assertEquals(255, minima.getVoxel(2, y, z), .01);
+				assertEquals(0, minima.getVoxel(3, y, z), .01);
+			}
+		}
+	}
+
+	private ImageStack createTestImage() {
+		String fileName = getClass().getResource("/files/bat-cochlea-volume.tif").getFile();
+		ImagePlus imagePlus = IJ.openImage(fileName);
+		assertNotNull(imagePlus);
+		// keep a small part of the volume to reduce computation time
+		return imagePlus.getStack().crop(20, 20, 20, 40, 40, 40);
+	}
+	
+	private static final void assertSameStacks(ImageStack expected, ImageStack actual) {
+		assertEquals(expected.getSize(), actual.getSize());
+		for (int z = 1; z <= expected.getSize(); z++) {
+			for (int i = 0; i < expected.getWidth() * expected.getHeight(); i++) {
+				assertEquals(expected.getProcessor(z).getf(i), actual.getProcessor(z).getf(i), .01);
+			}
+		}
+	}
+}
@@ -0,0 +1,126 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.morphology.extrema;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import ij.IJ;
+import ij.ImagePlus;
+import ij.process.ByteProcessor;
+import ij.process.ImageProcessor;
+import inra.ijpb.binary.BinaryImages;
+
+public class RegionalExtremaByUnionFindTest {
+
+	/**
+	 * Test method for {@link inra.ijpb.morphology.extrema.RegionalExtremaByUnionFind#applyTo(ij.process.ImageProcessor)}.
+	 */
+	@Test
+	public final void testApplyTo_Maxima() {
+		int[] data = new int[]{
+				10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10,
+				10, 20, 20, 20, 10, 10, 10, 30, 30, 30, 10,
+				10, 20, 20, 20, 10, 10, 10, 30, 30, 30, 10,
+				10, 20, 20, 20, 10, 10, 10, 30, 30, 30, 10,
+				10, 10, 10, 10, 40, 40, 40, 10, 10, 10, 10,
+				10, 10, 10, 10, 40, 40, 40, 10, 10, 10, 10,
+				10, 10, 10, 10, 40, 40, 40, 10, 10, 10, 10,
+				10, 20, 20, 20, 10, 10, 10, 30, 30, 30, 10,
+				10, 20, 20, 20, 10, 10, 10, 30, 30, 30, 10,
+				10, 20, 20, 20, 10, 10, 10, 30, 30, 30, 10,
+				10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10
+		};
+		ImageProcessor image = new ByteProcessor(11, 11);
+		for (int i = 0; i < 11 * 11; i++) {
+			image.set(i, data[i]);
+		}
+		
+		RegionalExtremaByUnionFind algo = new RegionalExtremaByUnionFind(ExtremaType.MAXIMA, 4);
+		ImageProcessor maxima = algo.applyTo(image);
+		assertEquals(0, maxima.get(0, 0));
+		assertEquals(255, maxima.get(1, 1));
+		assertEquals(255, maxima.get(9, 1));
+		assertEquals(255, maxima.get(5, 5));
+		assertEquals(0, maxima.get(10, 10));
+		
+		// with 8-connectivity, the blocks touching the central one are not
+		// maxima anymore
+		algo.setConnectivity(8);
+		maxima = algo.applyTo(image);
+		assertEquals(0, maxima.get(1, 1));
+		assertEquals(0, maxima.get(9, 1));
+		assertEquals(255, maxima.get(5, 5));
+		
+		ImageProcessor labels = algo.labelExtrema(image, 8);
+		assertEquals(1, labels.get(5, 5));
+		assertEquals(0, labels.get(1, 1));
+	}
+
+	/**
+	 * Checks that the result is the same as the one obtained with flooding.
+	 */
+	@Test
+	public final void testApplyTo_SameAsFlooding() {
+		String fileName = getClass().getResource("/files/grains.tif").getFile();
+		ImagePlus imagePlus = IJ.openImage(fileName);
+		assertNotNull(imagePlus);
+		ImageProcessor image = imagePlus.getProcessor();
+		
+		for (ExtremaType type : ExtremaType.values()) {
+			for (int conn : new int[] {4, 8}) {
+				RegionalExtremaAlgo flooding = new RegionalExtremaByFlooding();
+				flooding.setExtremaType(type);
+				flooding.setConnectivity(conn);
+				ImageProcessor expected = flooding.applyTo(image);
+				
+				RegionalExtremaByUnionFind algo = new RegionalExtremaByUnionFind(type, conn);
+				ImageProcessor result = algo.applyTo(image);
+				for (int i = 0; i < image.getPixelCount(); i++) {
+					assertEquals(expected.get(i), result.get(i));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks that labels are the same as the connected components of the
+	 * binary result.
+	 */
+	@Test
+	public final void testLabelExtrema_SameAsComponentsLabeling() {
+		String fileName = getClass().getResource("/files/grains.tif").getFile();
+		ImagePlus imagePlus = IJ.openImage(fileName);
+		assertNotNull(imagePlus);
+		ImageProcessor image = imagePlus.getProcessor();
+		
+		for (int conn : new int[] {4, 8}) {
+			RegionalExtremaByUnionFind algo = new RegionalExtremaByUnionFind(ExtremaType.MINIMA, conn);
+			ImageProcessor expected = BinaryImages.componentsLabeling(algo.applyTo(image), conn, 32);
+			ImageProcessor labels = algo.labelExtrema(image, 32);
+			for (int i = 0; i < image.getPixelCount(); i++) {
+				assertEquals(expected.getf(i), labels.getf(i), .01);
+			}
+		}
+	}
+}
@@ -33,6 +33,7 @@ import org.junit.runners.Suite;
 	LinearDiagDownStrelTest.class, 
 	LinearDiagUpStrelTest.class,
 	LinearDepthStrel3DTest.class,
+	VanHerkGilWermanFilterTest.class,
 	// compound of linear 
 	SquareStrelTest.class, 
 	OctagonStrelTest.class,
@@ -43,6 +44,9 @@ import org.junit.runners.Suite;
 	DiamondStrelTest.class,
 	// Also Disk strel, based on rank filters
 	DiskStrelTest.class,
+	EllipsoidStrelTest.class,
+	// multi-threaded processing of separable strels
+	ParallelSeparableStrelTest.class,
 })
 public class AllTests {
   //nothing
@@ -22,8 +22,14 @@
 package inra.ijpb.morphology.strel;
 
 import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import ij.plugin.filter.RankFilters;
 import ij.process.ByteProcessor;
+import ij.process.FloatProcessor;
 import ij.process.ImageProcessor;
+import ij.process.ShortProcessor;
 
 import org.junit.Test;
 
@@ -139,4 +145,51 @@ public class DiskStrelTest {
 				assertEquals(image.get(x, y), result.get(x, y));
 	}
 	
+	/**
+	 * Compares dilations and erosions with the results of the RankFilters
+	 * class of ImageJ, for various radius values and image types.
+	 */
+	@Test
+	public void testDilationErosion_SameAsRankFilters() 
+	{
+		Random random = new Random(42);
+		ImageProcessor[] images = new ImageProcessor[] { 
+				new ByteProcessor(43, 37), 
+				new ShortProcessor(43, 37), 
+				new FloatProcessor(43, 37) };
+		for (ImageProcessor image : images)
+		{
+			for (int i = 0; i < 43 * 37; i++)
+				image.setf(i, image instanceof FloatProcessor ? random.nextFloat() : random.nextInt(250));
+		}
+		
+		int[] diameterList = new int[] {3, 4, 5, 6, 7, 8, 10, 15, 24, 51};
+		for (ImageProcessor image : images)
+		{
+			for (int diameter : diameterList)
+			{
+				DiskStrel strel = DiskStrel.fromDiameter(diameter);
+				double radius = (diameter - 1) / 2.0;
+				
+				ImageProcessor exp = image.duplicate();
+				new RankFilters().rank(exp, radius, RankFilters.MAX);
+				assertSameImages(exp, strel.dilation(image));
+				
+				exp = image.duplicate();
+				new RankFilters().rank(exp, radius, RankFilters.MIN);
+				assertSameImages(exp, strel.erosion(image));
+			}
+		}
+	}
+	
+	private static final void assertSameImages(ImageProcessor image1, ImageProcessor image2)
+	{
+		for (int y = 0; y < image1.getHeight(); y++)
+		{
+			for (int x = 0; x < image1.getWidth(); x++)
+			{
+				assertEquals(image1.getf(x, y), image2.getf(x, y), 0);
+			}
+		}
+	}
 }
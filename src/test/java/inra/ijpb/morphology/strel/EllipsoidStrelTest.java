@@ -0,0 +1,162 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.morphology.strel;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import ij.ImageStack;
+import ij.plugin.Filters3D;
+
+import org.junit.Test;
+
+public class EllipsoidStrelTest
+{
+	/**
+	 * Compares dilations and erosions with the results of the Filters3D class
+	 * of ImageJ, for various radius values and image types.
+	 */
+	@Test
+	public void testDilationErosion_SameAsFilters3D()
+	{
+		double[][] radiusList = new double[][] {
+			{1, 1, 1}, {2, 2, 2}, {1.5, 1.5, 1.5}, {3, 2, 1}, {2.5, 4, 0.5}, {0, 2, 3}};
+		for (int bitDepth : new int[] {8, 16, 32})
+		{
+			ImageStack image = createRandomStack(bitDepth);
+			for (double[] radii : radiusList)
+			{
+				EllipsoidStrel strel = EllipsoidStrel.fromRadiusList(radii[0], radii[1], radii[2]);
+				
+				ImageStack exp = Filters3D.filter(image, Filters3D.MAX, (float) radii[0], (float) radii[1], (float) radii[2]);
+				assertSameStacks(exp, strel.dilation(image));
+
+				exp = Filters3D.filter(image, Filters3D.MIN, (float) radii[0], (float) radii[1], (float) radii[2]);
+				assertSameStacks(exp, strel.erosion(image));
+			}
+		}
+	}
+	
+	/**
+	 * Checks that the ball strel gives the same results as the Filters3D class
+	 * of ImageJ, using a single thread or the default number of threads.
+	 */
+	@Test
+	public void testBallStrel_SameAsFilters3D()
+	{
+		ImageStack image = createRandomStack(8);
+		for (int nThreads : new int[] {1, 0})
+		{
+			for (double radius : new double[] {1, 2, 3.5})
+			{
+				BallStrel strel = BallStrel.fromRadius(radius);
+				strel.setThreadCount(nThreads);
+				
+				float r = (float) radius;
+				assertSameStacks(Filters3D.filter(image, Filters3D.MAX, r, r, r), strel.dilation(image));
+				assertSameStacks(Filters3D.filter(image, Filters3D.MIN, r, r, r), strel.erosion(image));
+			}
+		}
+	}
+	
+	/**
+	 * Checks that color stacks are processed as with the Filters3D class of
+	 * ImageJ.
+	 */
+	@Test
+	public void testDilationErosion_RGB()
+	{
+		ImageStack image = createRandomStack(24);
+		ImageStack copy = image.duplicate();
+		for (double radius : new double[] {1, 2.5})
+		{
+			BallStrel strel = BallStrel.fromRadius(radius);
+			
+			// Filters3D modifies color stacks, so each reference uses a copy
+			float r = (float) radius;
+			assertSameStacks(Filters3D.filter(image.duplicate(), Filters3D.MAX, r, r, r), strel.dilation(image));
+			assertSameStacks(Filters3D.filter(image.duplicate(), Filters3D.MIN, r, r, r), strel.erosion(image));
+		}
+		
+		// the input stack must not be modified
+		assertSameStacks(copy, image);
+	}
+	
+	/**
+	 * Checks that the computation stops when the current thread is
+	 * interrupted.
+	 */
+	@Test
+	public void testDilation_Interrupted()
+	{
+		ImageStack image = createRandomStack(8);
+		EllipsoidStrel strel = EllipsoidStrel.fromRadiusList(2, 2, 1);
+		
+		Thread.currentThread().interrupt();
+		try
+		{
+			assertNull(strel.dilation(image));
+			assertNull(strel.closing(image));
+		}
+		finally
+		{
+			// clear the interrupted status
+			Thread.interrupted();
+		}
+	}
+	
+	private static final ImageStack createRandomStack(int bitDepth)
+	{
+		Random random = new Random(42);
+		ImageStack image = ImageStack.create(23, 19, 11, bitDepth);
+		for (int z = 0; z < 11; z++)
+		{
+			for (int y = 0; y < 19; y++)
+			{
+				for (int x = 0; x < 23; x++)
+				{
+					if (bitDepth == 24)
+						image.setVoxel(x, y, z, random.nextInt(0x1000000));
+					else
+						image.setVoxel(x, y, z, bitDepth == 32 ? random.nextFloat() : random.nextInt(250));
+				}
+			}
+		}
+		return image;
+	}
+	
+	private static final void assertSameStacks(ImageStack image1, ImageStack image2)
+	{
+		assertEquals(image1.getSize(), image2.getSize());
+		for (int z = 0; z < image1.getSize(); z++)
+		{
+			for (int y = 0; y < image1.getHeight(); y++)
+			{
+				for (int x = 0; x < image1.getWidth(); x++)
+				{
+					assertEquals(image1.getVoxel(x, y, z), image2.getVoxel(x, y, z), 0);
+				}
+			}
+		}
+	}
+}
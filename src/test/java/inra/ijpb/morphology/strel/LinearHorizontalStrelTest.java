@@ -68,6 +68,25 @@ public class LinearHorizontalStrelTest {
 		assertEquals(size[1], size2[1]);
 	}
 
+	/**
+	 * Checks that a strel longer than the image only considers the pixels
+	 * within the strel window.
+	 */
+	@Test
+	public void testDilation_StrelLongerThanImage() {
+		ImageProcessor image = new ByteProcessor(5, 3);
+		image.set(0, 1, 255);
+		
+		// strel covers the pixels from x to x+8
+		Strel strel = new LinearHorizontalStrel(9, 0);
+		ImageProcessor result = strel.dilation(image);
+		
+		assertEquals(255, result.get(0, 1));
+		for (int x = 1; x < 5; x++) {
+			assertEquals(0, result.get(x, 1));
+		}
+	}
+
 	@Test
 	public void testErosion_Square4x4() {
 		ImageProcessor image = createImage_Square4x4();
@@ -0,0 +1,168 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.morphology.strel;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import ij.ImageStack;
+import ij.process.ByteProcessor;
+import ij.process.FloatProcessor;
+import ij.process.ImageProcessor;
+
+/**
+ * Checks that separable structuring elements give the same results when
+ * lines are processed by one or several threads.
+ * 
+ * @author agent
+ *
+ */
+public class ParallelSeparableStrelTest
+{
+	/**
+	 * Test method for {@link inra.ijpb.morphology.strel.LinearHorizontalStrel#inPlaceDilation(ij.process.ImageProcessor)}.
+	 */
+	@Test
+	public void testLinearStrels_Gray8()
+	{
+		ImageProcessor image = createRandomImage(false);
+		checkSameResults(new LinearHorizontalStrel(9), image);
+		checkSameResults(new LinearVerticalStrel(9), image);
+	}
+	
+	/**
+	 * Test method for {@link inra.ijpb.morphology.strel.LinearHorizontalStrel#inPlaceDilation(ij.process.ImageProcessor)}.
+	 */
+	@Test
+	public void testLinearStrels_Float()
+	{
+		ImageProcessor image = createRandomImage(true);
+		checkSameResults(new LinearHorizontalStrel(9), image);
+		checkSameResults(new LinearVerticalStrel(9), image);
+	}
+	
+	/**
+	 * Test method for {@link inra.ijpb.morphology.strel.AbstractSeparableStrel#dilation(ij.process.ImageProcessor)}.
+	 */
+	@Test
+	public void testSeparableStrels()
+	{
+		for (boolean isFloat : new boolean[]{false, true})
+		{
+			ImageProcessor image = createRandomImage(isFloat);
+			checkSameResults(SquareStrel.fromDiameter(7), image);
+			checkSameResults(OctagonStrel.fromDiameter(9), image);
+		}
+	}
+	
+	/**
+	 * Test method for {@link inra.ijpb.morphology.strel.AbstractSeparableStrel3D#dilation(ij.ImageStack)}.
+	 */
+	@Test
+	public void testSeparableStrels3D()
+	{
+		for (int bitDepth : new int[]{8, 32})
+		{
+			ImageStack image = createRandomStack(bitDepth);
+			checkSameResults(new LinearDepthStrel3D(5), image);
+			checkSameResults(CubeStrel.fromDiameter(5), image);
+			checkSameResults(CuboidStrel.fromDiameterList(7, 3, 5), image);
+			checkSameResults(SquareStrel.fromDiameter(5), image);
+		}
+	}
+	
+	private static final void checkSameResults(AbstractStrel strel, ImageProcessor image)
+	{
+		strel.setThreadCount(1);
+		ImageProcessor dil1 = strel.dilation(image);
+		ImageProcessor ero1 = strel.erosion(image);
+		
+		strel.setThreadCount(4);
+		ImageProcessor dil4 = strel.dilation(image);
+		ImageProcessor ero4 = strel.erosion(image);
+		
+		assertSameImages(dil1, dil4);
+		assertSameImages(ero1, ero4);
+	}
+	
+	private static final void checkSameResults(AbstractStrel3D strel, ImageStack image)
+	{
+		strel.setThreadCount(1);
+		ImageStack dil1 = strel.dilation(image);
+		ImageStack ero1 = strel.erosion(image);
+		
+		strel.setThreadCount(4);
+		ImageStack dil4 = strel.dilation(image);
+		ImageStack ero4 = strel.erosion(image);
+		
+		for (int z = 1; z <= image.getSize(); z++)
+		{
+			assertSameImages(dil1.getProcessor(z), dil4.getProcessor(z));
+			assertSameImages(ero1.getProcessor(z), ero4.getProcessor(z));
+		}
+	}
+	
+	private static final void assertSameImages(ImageProcessor image1, ImageProcessor image2)
+	{
+		for (int y = 0; y < image1.getHeight(); y++)
+		{
+			for (int x = 0; x < image1.getWidth(); x++)
+			{
+				assertEquals(image1.getf(x, y), image2.getf(x, y), 0);
+			}
+		}
+	}
+	
+	private static final ImageProcessor createRandomImage(boolean isFloat)
+	{
+		ImageProcessor image = isFloat ? new FloatProcessor(80, 70) : new ByteProcessor(80, 70);
+		Random random = new Random(42);
+		for (int y = 0; y < 70; y++)
+		{
+			for (int x = 0; x < 80; x++)
+			{
+				image.setf(x, y, isFloat ? random.nextFloat() * 1000 : random.nextInt(256));
+			}
+		}
+		return image;
+	}
+	
+	private static final ImageStack createRandomStack(int bitDepth)
+	{
+		ImageStack image = ImageStack.create(40, 36, 34, bitDepth);
+		Random random = new Random(42);
+		for (int z = 0; z < 34; z++)
+		{
+			for (int y = 0; y < 36; y++)
+			{
+				for (int x = 0; x < 40; x++)
+				{
+					image.setVoxel(x, y, z, bitDepth == 8 ? random.nextInt(256) : random.nextFloat() * 1000);
+				}
+			}
+		}
+		return image;
+	}
+}
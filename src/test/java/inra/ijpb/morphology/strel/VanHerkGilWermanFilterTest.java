@@ -0,0 +1,229 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.morphology.strel;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Compares the results of the van Herk / Gil-Werman filter with a direct
+ * computation of the extremum within each window.
+ * 
+ * @author agent
+ *
+ */
+public class VanHerkGilWermanFilterTest
+{
+	/**
+	 * Test method for {@link inra.ijpb.morphology.strel.VanHerkGilWermanFilter#dilation(java.lang.Object, int, int, int)}.
+	 */
+	@Test
+	public void testDilation_Byte()
+	{
+		Random random = new Random(42);
+		for (int size = 1; size <= 12; size++)
+		{
+			for (int before = 0; before < size; before++)
+			{
+				for (int count : new int[]{1, size - 1, size, 37})
+				{
+					byte[] line = new byte[count];
+					for (int i = 0; i < count; i++)
+						line[i] = (byte) random.nextInt(256);
+					
+					double[] exp = extrema(toDouble(line), size, before, true);
+					new VanHerkGilWermanFilter(size, before).dilation(line, 0, 1, count);
+					assertLineEquals(exp, toDouble(line));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link inra.ijpb.morphology.strel.VanHerkGilWermanFilter#erosion(java.lang.Object, int, int, int)}.
+	 */
+	@Test
+	public void testErosion_Short()
+	{
+		Random random = new Random(42);
+		for (int size = 1; size <= 12; size++)
+		{
+			for (int before = 0; before < size; before++)
+			{
+				for (int count : new int[]{1, size - 1, size, 37})
+				{
+					short[] line = new short[count];
+					for (int i = 0; i < count; i++)
+						line[i] = (short) random.nextInt(65536);
+					
+					double[] exp = extrema(toDouble(line), size, before, false);
+					new VanHerkGilWermanFilter(size, before).erosion(line, 0, 1, count);
+					assertLineEquals(exp, toDouble(line));
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Checks lines extracted with a stride, using the same filter several
+	 * times with lines of different lengths.
+	 */
+	@Test
+	public void testDilationErosion_FloatStride()
+	{
+		Random random = new Random(42);
+		VanHerkGilWermanFilter filter = new VanHerkGilWermanFilter(7, 2);
+		for (int count : new int[]{40, 3, 12})
+		{
+			int stride = 3;
+			float[] array = new float[count * stride];
+			for (int i = 0; i < array.length; i++)
+				array[i] = random.nextFloat() * 100 - 50;
+			
+			double[] line = new double[count];
+			for (int i = 0; i < count; i++)
+				line[i] = array[1 + i * stride];
+			double[] expMax = extrema(line, 7, 2, true);
+			double[] expMin = extrema(expMax, 7, 2, false);
+			
+			filter.dilation(array, 1, stride, count);
+			filter.erosion(array, 1, stride, count);
+			for (int i = 0; i < count; i++)
+			{
+				assertEquals(expMin[i], array[1 + i * stride], 0);
+			}
+		}
+	}
+	
+	/**
+	 * Test method for {@link inra.ijpb.morphology.strel.VanHerkGilWermanFilter#erosion(java.lang.Object, int, int, int, int)}.
+	 */
+	@Test
+	public void testErosion_Strip()
+	{
+		Random random = new Random(42);
+		int width = 10;
+		int height = 31;
+		float[] array = new float[width * height];
+		for (int i = 0; i < array.length; i++)
+			array[i] = random.nextFloat();
+		
+		// compute expected values for columns 2 to 7
+		double[][] exp = new double[width][];
+		for (int x = 2; x < 8; x++)
+		{
+			double[] line = new double[height];
+			for (int y = 0; y < height; y++)
+				line[y] = array[y * width + x];
+			exp[x] = extrema(line, 6, 4, false);
+		}
+		float[] orig = array.clone();
+		
+		new VanHerkGilWermanFilter(6, 4).erosion(array, 2, width, height, 6);
+		for (int y = 0; y < height; y++)
+		{
+			for (int x = 0; x < width; x++)
+			{
+				double v = x >= 2 && x < 8 ? exp[x][y] : orig[y * width + x];
+				assertEquals(v, array[y * width + x], 0);
+			}
+		}
+	}
+	
+	/**
+	 * Test method for {@link inra.ijpb.morphology.strel.VanHerkGilWermanFilter#dilation(java.lang.Object[], int, int, int)}.
+	 */
+	@Test
+	public void testDilation_Slices()
+	{
+		Random random = new Random(42);
+		int depth = 23;
+		Object[] slices = new Object[depth];
+		double[][] lines = new double[3][depth];
+		for (int z = 0; z < depth; z++)
+		{
+			byte[] slice = new byte[5];
+			for (int i = 0; i < 5; i++)
+				slice[i] = (byte) random.nextInt(256);
+			slices[z] = slice;
+			for (int c = 0; c < 3; c++)
+				lines[c][z] = slice[1 + c] & 0x00FF;
+		}
+		
+		new VanHerkGilWermanFilter(5, 3).dilation(slices, 1, depth, 3);
+		for (int c = 0; c < 3; c++)
+		{
+			double[] exp = extrema(lines[c], 5, 3, true);
+			for (int z = 0; z < depth; z++)
+			{
+				assertEquals(exp[z], ((byte[]) slices[z])[1 + c] & 0x00FF, 0);
+			}
+		}
+	}
+	
+	/**
+	 * Computes the extremum within the window around each position, by
+	 * ignoring values outside of the line.
+	 */
+	private static final double[] extrema(double[] values, int size, int before, boolean max)
+	{
+		int n = values.length;
+		double[] res = new double[n];
+		for (int i = 0; i < n; i++)
+		{
+			double v = max ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+			for (int j = Math.max(i - before, 0); j <= Math.min(i - before + size - 1, n - 1); j++)
+			{
+				v = max ? Math.max(v, values[j]) : Math.min(v, values[j]);
+			}
+			res[i] = v;
+		}
+		return res;
+	}
+	
+	private static final void assertLineEquals(double[] exp, double[] line)
+	{
+		for (int i = 0; i < exp.length; i++)
+		{
+			assertEquals(exp[i], line[i], 0);
+		}
+	}
+	
+	private static final double[] toDouble(byte[] line)
+	{
+		double[] res = new double[line.length];
+		for (int i = 0; i < line.length; i++)
+			res[i] = line[i] & 0x00FF;
+		return res;
+	}
+	
+	private static final double[] toDouble(short[] line)
+	{
+		double[] res = new double[line.length];
+		for (int i = 0; i < line.length; i++)
+			res[i] = line[i] & 0x00FFFF;
+		return res;
+	}
+}
@@ -0,0 +1,78 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.util;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.Test;
+
+public class ParallelRangesTest
+{
+	/**
+	 * Checks that each line is processed once, and that the first block is
+	 * processed by the calling thread.
+	 */
+	@Test
+	public void testRun()
+	{
+		final int count = 1000;
+		final AtomicIntegerArray counts = new AtomicIntegerArray(count);
+		final Thread caller = Thread.currentThread();
+		final boolean[] firstBlockInCaller = new boolean[1];
+		
+		ParallelRanges.run(count, 4, new ParallelRanges.Task()
+		{
+			public void process(int start, int end)
+			{
+				if (start == 0)
+					firstBlockInCaller[0] = Thread.currentThread() == caller;
+				for (int i = start; i < end; i++)
+					counts.incrementAndGet(i);
+			}
+		});
+		
+		for (int i = 0; i < count; i++)
+		{
+			assertEquals(1, counts.get(i));
+		}
+		assertTrue(firstBlockInCaller[0]);
+	}
+	
+	/**
+	 * Checks that an exception thrown by a worker thread is propagated to the
+	 * calling thread.
+	 */
+	@Test(expected = IllegalStateException.class)
+	public void testRun_WorkerException()
+	{
+		ParallelRanges.run(1000, 4, new ParallelRanges.Task()
+		{
+			public void process(int start, int end)
+			{
+				if (start > 0)
+					throw new IllegalStateException("Failure in block starting at " + start);
+			}
+		});
+	}
+}
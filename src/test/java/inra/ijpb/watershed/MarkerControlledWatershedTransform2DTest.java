@@ -0,0 +1,152 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.watershed;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import ij.IJ;
+import ij.ImagePlus;
+import ij.process.ByteProcessor;
+import ij.process.ImageProcessor;
+import inra.ijpb.binary.BinaryImages;
+import inra.ijpb.morphology.MinimaAndMaxima;
+import inra.ijpb.morphology.Morphology;
+import inra.ijpb.morphology.Strel;
+
+public class MarkerControlledWatershedTransform2DTest
+{
+	/**
+	 * Checks that flooding with a hierarchical queue gives the same result as
+	 * with a priority queue, on 8-bits and 16-bits images.
+	 */
+	@Test
+	public void testApplyWithHierarchicalQueue_SameAsPriorityQueue()
+	{
+		ImageProcessor gradient = createGradient();
+		
+		for (int connectivity : new int[] { 4, 8 })
+		{
+			ImageProcessor markers = createMarkers(gradient, connectivity);
+			for (ImageProcessor input : new ImageProcessor[] { gradient, gradient.convertToShort(false) })
+			{
+				for (ImageProcessor mask : new ImageProcessor[] { null, createMask(input) })
+				{
+					MarkerControlledWatershedTransform2D algo = 
+							new MarkerControlledWatershedTransform2D(input, markers, mask, connectivity);
+					algo.setVerbose(false);
+					
+					assertSameImages(algo.applyWithPriorityQueue(),
+							algo.applyWithHierarchicalQueue());
+					assertSameImages(algo.applyWithPriorityQueueAndDams(),
+							algo.applyWithHierarchicalQueueAndDams());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks that flooding with a hierarchical queue on a floating point
+	 * image gives the same basins as on the 8-bits image it was converted
+	 * from, as the quantization does not merge distinct gray levels.
+	 */
+	@Test
+	public void testApplyWithHierarchicalQueue_Float()
+	{
+		ImageProcessor gradient = createGradient();
+		ImageProcessor markers = createMarkers(gradient, 4);
+		
+		MarkerControlledWatershedTransform2D algo8 = 
+				new MarkerControlledWatershedTransform2D(gradient, markers, null, 4);
+		algo8.setVerbose(false);
+		MarkerControlledWatershedTransform2D algo32 = 
+				new MarkerControlledWatershedTransform2D(gradient.convertToFloat(), markers, null, 4);
+		algo32.setVerbose(false);
+
+		assertSameImages(algo8.applyWithHierarchicalQueueAndDams(),
+				algo32.applyWithHierarchicalQueueAndDams());
+	}
+	
+	/**
+	 * Checks that the levels of a floating point image are computed from its
+	 * data range, and not from its display range.
+	 */
+	@Test
+	public void testApplyWithHierarchicalQueue_FloatNarrowDisplayRange()
+	{
+		ImageProcessor gradient = createGradient();
+		ImageProcessor markers = createMarkers(gradient, 4);
+		ImageProcessor input = gradient.convertToFloat();
+		input.setMinAndMax(100, 120);
+		
+		MarkerControlledWatershedTransform2D algo = 
+				new MarkerControlledWatershedTransform2D(input, markers, null, 4);
+		algo.setVerbose(false);
+
+		assertSameImages(algo.applyWithPriorityQueueAndDams(),
+				algo.applyWithHierarchicalQueueAndDams());
+	}
+	
+	private static final ImageProcessor createGradient()
+	{
+		ImagePlus imagePlus = IJ.openImage(MarkerControlledWatershedTransform2DTest.class
+				.getResource("/files/grains.tif").getFile());
+		return Morphology.gradient(imagePlus.getProcessor(), Strel.Shape.SQUARE.fromRadius(1));
+	}
+	
+	private static final ImageProcessor createMarkers(ImageProcessor gradient, int connectivity)
+	{
+		ImageProcessor minima = MinimaAndMaxima.extendedMinima(gradient, 10, connectivity);
+		return BinaryImages.componentsLabeling(minima, connectivity, 16);
+	}
+	
+	private static final ImageProcessor createMask(ImageProcessor image)
+	{
+		int sizeX = image.getWidth();
+		int sizeY = image.getHeight();
+		ImageProcessor mask = new ByteProcessor(sizeX, sizeY);
+		for (int y = 0; y < sizeY; y++)
+		{
+			for (int x = 0; x < sizeX; x++)
+			{
+				if ((x / 16 + y / 16) % 5 != 0)
+					mask.set(x, y, 255);
+			}
+		}
+		return mask;
+	}
+
+	private static final void assertSameImages(ImageProcessor expected, ImageProcessor actual)
+	{
+		assertEquals(expected.getWidth(), actual.getWidth());
+		assertEquals(expected.getHeight(), actual.getHeight());
+		for (int y = 0; y < expected.getHeight(); y++)
+		{
+			for (int x = 0; x < expected.getWidth(); x++)
+			{
+				assertEquals("At position (" + x + "," + y + ")", 
+						expected.getf(x, y), actual.getf(x, y), .01);
+			}
+		}
+	}
+}
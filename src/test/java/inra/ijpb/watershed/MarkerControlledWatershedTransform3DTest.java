@@ -0,0 +1,133 @@
+/*-
+ * #%L
+ * Mathematical morphology library and plugins for ImageJ/Fiji.
+ * %%
+ * Copyright (C) 2014 - 2017 INRA.
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+package inra.ijpb.watershed;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import ij.ImagePlus;
+import ij.ImageStack;
+
+public class MarkerControlledWatershedTransform3DTest
+{
+	/**
+	 * Checks that flooding with a hierarchical queue gives the same result as
+	 * with a priority queue, on 8-bits and 16-bits images.
+	 */
+	@Test
+	public void testApplyWithHierarchicalQueue_SameAsPriorityQueue()
+	{
+		ImageStack image8 = createRandomImage(8);
+		ImageStack image16 = createRandomImage(16);
+		ImagePlus markers = new ImagePlus("markers", createMarkers());
+		ImagePlus mask = new ImagePlus("mask", createMask());
+		
+		for (int connectivity : new int[] { 6, 26 })
+		{
+			for (ImageStack image : new ImageStack[] { image8, image16 })
+			{
+				ImagePlus input = new ImagePlus("input", image);
+				for (ImagePlus maskImage : new ImagePlus[] { null, mask })
+				{
+					MarkerControlledWatershedTransform3D algo = 
+							new MarkerControlledWatershedTransform3D(input, markers, maskImage, connectivity);
+					algo.setVerbose(false);
+
+					assertSameImages(algo.applyWithPriorityQueue(),
+							algo.applyWithHierarchicalQueue());
+					assertSameImages(algo.applyWithPriorityQueueAndDams(),
+							algo.applyWithHierarchicalQueueAndDams());
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Creates a random image with few distinct values, to check the order of
+	 * processing of voxels with the same value.
+	 */
+	private static final ImageStack createRandomImage(int bitDepth)
+	{
+		ImageStack image = ImageStack.create(20, 18, 16, bitDepth);
+		Random random = new Random(42);
+		for (int z = 0; z < 16; z++)
+		{
+			for (int y = 0; y < 18; y++)
+			{
+				for (int x = 0; x < 20; x++)
+				{
+					image.setVoxel(x, y, z, random.nextInt(16) * (bitDepth == 8 ? 10 : 1000));
+				}
+			}
+		}
+		return image;
+	}
+
+	private static final ImageStack createMarkers()
+	{
+		ImageStack markers = ImageStack.create(20, 18, 16, 8);
+		markers.setVoxel(2, 3, 2, 1);
+		markers.setVoxel(3, 3, 2, 1);
+		markers.setVoxel(15, 4, 5, 2);
+		markers.setVoxel(10, 10, 8, 3);
+		markers.setVoxel(4, 14, 12, 4);
+		markers.setVoxel(17, 15, 14, 5);
+		return markers;
+	}
+	
+	private static final ImageStack createMask()
+	{
+		ImageStack mask = ImageStack.create(20, 18, 16, 8);
+		for (int z = 0; z < 16; z++)
+		{
+			for (int y = 0; y < 18; y++)
+			{
+				for (int x = 0; x < 20; x++)
+				{
+					if (x != 8 || y < 12)
+						mask.setVoxel(x, y, z, 255);
+				}
+			}
+		}
+		return mask;
+	}
+
+	private static final void assertSameImages(ImagePlus expected, ImagePlus actual)
+	{
+		ImageStack stack1 = expected.getStack();
+		ImageStack stack2 = actual.getStack();
+		for (int z = 0; z < stack1.getSize(); z++)
+		{
+			for (int y = 0; y < stack1.getHeight(); y++)
+			{
+				for (int x = 0; x < stack1.getWidth(); x++)
+				{
+					assertEquals("At position (" + x + "," + y + "," + z + ")",
+							stack1.getVoxel(x, y, z), stack2.getVoxel(x, y, z), .01);
+				}
+			}
+		}
+	}
+}